@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.opengis.referencing.operation.MathTransform;
+import org.apache.sis.referencing.operation.matrix.Matrices;
+import org.apache.sis.referencing.operation.matrix.MatrixSIS;
+import org.apache.sis.referencing.operation.transform.LinearTransform;
+import org.apache.sis.referencing.operation.transform.MathTransforms;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures the throughput of {@link MathTransforms#concatenateFast(LinearTransform...)} compared to
+ * {@link MathTransforms#concatenate(MathTransform, MathTransform)} on linear transforms.
+ * This is the kind of concatenation performed by renderers for every frame or every tile.
+ * Each benchmark invocation concatenates the next pair of transforms taken from a pool of random transforms,
+ * so the results are reported in concatenations per second.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcatenationBenchmark {
+    /**
+     * The seed for the random number generator, fixed for allowing comparisons between runs.
+     */
+    private static final long SEED = 2018;
+
+    /**
+     * Number of transforms in the pool. Shall be a power of 2.
+     */
+    private static final int POOL_SIZE = 16;
+
+    /**
+     * Number of source and target dimensions of the transforms to concatenate. A value of 2 measures
+     * the concatenation of {@code AffineTransform2D} instances, while greater values measure the
+     * concatenation of {@code ProjectiveTransform} instances.
+     */
+    @Param({"2", "3"})
+    public int dimension;
+
+    /**
+     * The pool of random linear transforms to concatenate.
+     */
+    private LinearTransform[] transforms;
+
+    /**
+     * Index of the next pair of transforms to concatenate.
+     */
+    private int index;
+
+    /**
+     * Creates a new benchmark. JMH will assign the parameter values before to invoke {@link #setup()}.
+     */
+    public ConcatenationBenchmark() {
+    }
+
+    /**
+     * Creates the pool of random linear transforms.
+     */
+    @Setup
+    public void setup() {
+        final Random random = new Random(SEED);
+        transforms = new LinearTransform[POOL_SIZE];
+        for (int i=0; i<POOL_SIZE; i++) {
+            final MatrixSIS matrix = Matrices.createIdentity(dimension + 1);
+            for (int j=0; j<dimension; j++) {
+                for (int k=0; k<=dimension; k++) {
+                    matrix.setElement(j, k, random.nextDouble() * 10 - 5);
+                }
+            }
+            transforms[i] = MathTransforms.linear(matrix);
+        }
+    }
+
+    /**
+     * Concatenates the next pair of transforms with the double-double arithmetic used for coordinate operations.
+     *
+     * @return the concatenated transform, returned for preventing dead code elimination.
+     */
+    @Benchmark
+    public MathTransform concatenate() {
+        final int i = index++;
+        return MathTransforms.concatenate(transforms[i & (POOL_SIZE - 1)], transforms[(i+1) & (POOL_SIZE - 1)]);
+    }
+
+    /**
+     * Concatenates the next pair of transforms with double-precision arithmetic only.
+     *
+     * @return the concatenated transform, returned for preventing dead code elimination.
+     */
+    @Benchmark
+    public MathTransform concatenateFast() {
+        final int i = index++;
+        return MathTransforms.concatenateFast(transforms[i & (POOL_SIZE - 1)], transforms[(i+1) & (POOL_SIZE - 1)]);
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import org.opengis.geometry.Envelope;
+import org.opengis.parameter.ParameterValueGroup;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.MathTransformFactory;
+import org.opengis.util.FactoryException;
+import org.apache.sis.geometry.GeneralEnvelope;
+import org.apache.sis.internal.system.DefaultFactories;
+import org.apache.sis.parameter.Parameters;
+import org.apache.sis.referencing.operation.transform.EllipsoidToCentricTransform;
+import org.apache.sis.measure.Units;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.TearDown;
+
+
+/**
+ * Measures the throughput of datum shifts based on grids, and of conversions between geographic
+ * and geocentric coordinates (the first and last steps of datum shifts using geocentric translations).
+ * The grids are the small NTv2 and NADCON extracts distributed with the {@code sis-referencing} tests.
+ * Their size is not representative of the official grids, but the interpolation cost is the same.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+public class DatumShiftBenchmark extends TransformBenchmark {
+    /**
+     * Directory of the test resources containing the datum shift grids.
+     */
+    private static final String GRIDS = "/org/apache/sis/internal/referencing/provider/";
+
+    /**
+     * The kinds of datum shift to benchmark.
+     */
+    public enum Method {
+        /** Interpolation in a NTv2 grid (extract of the French {@code NTF_R93.gsb} grid). */
+        NTV2(2.3, 2.8, 48.4, 49.0),
+
+        /** Interpolation in a pair of NADCON grids (extract of the {@code conus} grids). */
+        NADCON(-99.75, -98.0, 37.5, 39.75),
+
+        /** Conversion from geographic (λ,φ,h) to geocentric (X,Y,Z) coordinates. */
+        GEOCENTRIC(-180, 180, -90, 90);
+
+        /**
+         * Domain of validity in degrees where to generate random points.
+         */
+        final double λmin, λmax, φmin, φmax;
+
+        /**
+         * Creates a new enumeration value for the given domain.
+         */
+        private Method(final double λmin, final double λmax, final double φmin, final double φmax) {
+            this.λmin = λmin;
+            this.λmax = λmax;
+            this.φmin = φmin;
+            this.φmax = φmax;
+        }
+    }
+
+    /**
+     * The datum shift method to benchmark.
+     */
+    @Param
+    public Method method;
+
+    /**
+     * Temporary copies of the grid files, or {@code null} if none. The grids need to be copied
+     * because the providers read them from a {@link Path}, while they are packaged in a JAR file.
+     */
+    private Path[] files;
+
+    /**
+     * Creates a new benchmark. JMH will assign the parameter values before to invoke {@link #setup()}.
+     */
+    public DatumShiftBenchmark() {
+    }
+
+    /**
+     * Creates the datum shift transform operating on (<var>longitude</var>, <var>latitude</var>)
+     * coordinates in degrees, optionally with an ellipsoidal height in metres.
+     *
+     * @return the datum shift to benchmark.
+     * @throws IOException if a grid can not be copied.
+     * @throws FactoryException if the transform can not be created.
+     */
+    @Override
+    protected MathTransform createTransform() throws IOException, FactoryException {
+        final MathTransformFactory factory = DefaultFactories.forBuildin(MathTransformFactory.class);
+        final ParameterValueGroup group;
+        switch (method) {
+            case NTV2: {
+                files = new Path[] {copy("NTF_R93-extract.gsb")};
+                group = factory.getDefaultParameters("NTv2");
+                Parameters.castOrWrap(group).parameter("Latitude and longitude difference file").setValue(files[0]);
+                break;
+            }
+            case NADCON: {
+                files = new Path[] {copy("conus-extract.laa"), copy("conus-extract.loa")};
+                group = factory.getDefaultParameters("NADCON");
+                final Parameters pg = Parameters.castOrWrap(group);
+                pg.parameter("Latitude difference file") .setValue(files[0]);
+                pg.parameter("Longitude difference file").setValue(files[1]);
+                break;
+            }
+            case GEOCENTRIC: {
+                return EllipsoidToCentricTransform.createGeodeticConversion(factory, 6378137.0, 6356752.314245179,
+                        Units.METRE, true, EllipsoidToCentricTransform.TargetType.CARTESIAN);
+            }
+            default: throw new AssertionError(method);
+        }
+        return factory.createParameterizedTransform(group);
+    }
+
+    /**
+     * Copies the given grid file from the test resources to a temporary file.
+     */
+    private static Path copy(final String filename) throws IOException {
+        final int s = filename.lastIndexOf('.');
+        final Path file = Files.createTempFile(filename.substring(0, s), filename.substring(s));
+        try (InputStream in = DatumShiftBenchmark.class.getResourceAsStream(GRIDS + filename)) {
+            if (in == null) {
+                throw new IOException("Resource not found: " + filename);
+            }
+            Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return file;
+    }
+
+    /**
+     * Deletes the temporary grid files.
+     *
+     * @throws IOException if a file can not be deleted.
+     */
+    @TearDown
+    public void deleteGrids() throws IOException {
+        if (files != null) {
+            for (final Path file : files) {
+                Files.deleteIfExists(file);
+            }
+            files = null;
+        }
+    }
+
+    /**
+     * Returns the domain in degrees of longitude and latitude, completed by a range of ellipsoidal heights
+     * in metres for the geocentric conversion.
+     *
+     * @return the domain where to generate random points.
+     */
+    @Override
+    protected Envelope getDomain() {
+        final GeneralEnvelope domain = new GeneralEnvelope(method == Method.GEOCENTRIC ? 3 : 2);
+        domain.setRange(0, method.λmin, method.λmax);
+        domain.setRange(1, method.φmin, method.φmax);
+        if (method == Method.GEOCENTRIC) {
+            domain.setRange(2, -100, 8000);
+        }
+        return domain;
+    }
+}
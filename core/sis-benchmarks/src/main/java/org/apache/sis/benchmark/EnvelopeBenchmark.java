@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.opengis.geometry.Envelope;
+import org.opengis.referencing.operation.CoordinateOperation;
+import org.opengis.referencing.operation.TransformException;
+import org.opengis.util.FactoryException;
+import org.apache.sis.geometry.Envelopes;
+import org.apache.sis.geometry.GeneralEnvelope;
+import org.apache.sis.referencing.CRS;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures the throughput of {@link Envelopes#transform(CoordinateOperation, Envelope)}.
+ * Envelope transformations sample many points on the envelope borders and compute derivatives
+ * for finding extremums, so they stress other code paths than the transformation of arrays.
+ * The coordinate operations are the same than the ones used by {@link OperationBenchmark}.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnvelopeBenchmark {
+    /**
+     * Number of envelopes to transform in each benchmark invocation.
+     */
+    private static final int NUM_ENVELOPES = 100;
+
+    /**
+     * The source and target CRS of the coordinate operation to benchmark.
+     */
+    @Param
+    public OperationBenchmark.Path path;
+
+    /**
+     * The coordinate operation to use for transforming envelopes.
+     */
+    private CoordinateOperation operation;
+
+    /**
+     * The envelopes to transform, randomly located in the domain of {@link #path}.
+     */
+    private Envelope[] envelopes;
+
+    /**
+     * Creates a new benchmark. JMH will assign the parameter values before to invoke {@link #setup()}.
+     */
+    public EnvelopeBenchmark() {
+    }
+
+    /**
+     * Finds the coordinate operation and creates random envelopes covering about 1/10 of the domain.
+     *
+     * @throws FactoryException if the coordinate operation can not be found.
+     */
+    @Setup
+    public void setup() throws FactoryException {
+        operation = CRS.findOperation(path.source(), path.target(), null);
+        final Envelope domain = path.domain();
+        final Random random = new Random(2018);
+        envelopes = new Envelope[NUM_ENVELOPES];
+        for (int i=0; i<NUM_ENVELOPES; i++) {
+            final GeneralEnvelope envelope = new GeneralEnvelope(domain);
+            for (int d=0; d<envelope.getDimension(); d++) {
+                final double span  = envelope.getSpan(d);
+                final double lower = envelope.getLower(d) + random.nextDouble() * span * 0.9;
+                envelope.setRange(d, lower, lower + span * 0.1);
+            }
+            envelopes[i] = envelope;
+        }
+    }
+
+    /**
+     * Transforms all envelopes.
+     *
+     * @return the last transformed envelope, returned for preventing dead code elimination.
+     * @throws TransformException if an envelope can not be transformed.
+     */
+    @Benchmark
+    public Envelope transformEnvelopes() throws TransformException {
+        Envelope result = null;
+        for (final Envelope envelope : envelopes) {
+            result = Envelopes.transform(operation, envelope);
+        }
+        return result;
+    }
+}
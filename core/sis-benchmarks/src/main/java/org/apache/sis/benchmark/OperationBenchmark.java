@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.benchmark;
+
+import org.opengis.geometry.Envelope;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.util.FactoryException;
+import org.apache.sis.geometry.GeneralEnvelope;
+import org.apache.sis.referencing.CRS;
+import org.apache.sis.referencing.CommonCRS;
+import org.openjdk.jmh.annotations.Param;
+
+
+/**
+ * Measures the throughput of complete coordinate operations, as chains of transforms found by
+ * {@link CRS#findOperation CRS.findOperation(…)}. Those chains include axis swapping, unit conversions,
+ * datum shifts and map projections, so this benchmark measures also the cost of concatenated transforms.
+ * Only CRS hard-coded in {@link CommonCRS} are used, so this benchmark does not need an EPSG database.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+public class OperationBenchmark extends TransformBenchmark {
+    /**
+     * The pairs of source and target CRS to benchmark. The source CRS is always geographic
+     * with (<var>latitude</var>, <var>longitude</var>) axis order, optionally with an ellipsoidal height.
+     */
+    public enum Path {
+        /** Geographic to projected CRS on the same datum. */
+        WGS84_TO_UTM(CommonCRS.WGS84, -100, -94, 20, 60, false),
+
+        /** Datum shift from ED50 to WGS84 between geographic CRS. */
+        ED50_TO_WGS84(CommonCRS.ED50, -10, 30, 35, 70, false),
+
+        /** Datum shift followed by a map projection. */
+        NAD27_TO_WGS84_UTM(CommonCRS.NAD27, -100, -94, 20, 60, false),
+
+        /** Conversion from three-dimensional geographic to geocentric coordinates. */
+        WGS84_TO_GEOCENTRIC(CommonCRS.WGS84, -180, 180, -90, 90, true);
+
+        /**
+         * The datum of the source CRS.
+         */
+        private final CommonCRS datum;
+
+        /**
+         * Domain of validity in degrees where to generate random points.
+         */
+        final double λmin, λmax, φmin, φmax;
+
+        /**
+         * Whether the source CRS is three-dimensional.
+         */
+        final boolean is3D;
+
+        /**
+         * Creates a new enumeration value for the given source datum and domain.
+         */
+        private Path(final CommonCRS datum, final double λmin, final double λmax,
+                final double φmin, final double φmax, final boolean is3D)
+        {
+            this.datum = datum;
+            this.λmin  = λmin;
+            this.λmax  = λmax;
+            this.φmin  = φmin;
+            this.φmax  = φmax;
+            this.is3D  = is3D;
+        }
+
+        /**
+         * Returns the source CRS, with (<var>latitude</var>, <var>longitude</var>) axis order.
+         */
+        final CoordinateReferenceSystem source() {
+            return is3D ? datum.geographic3D() : datum.geographic();
+        }
+
+        /**
+         * Returns the target CRS.
+         */
+        final CoordinateReferenceSystem target() {
+            switch (this) {
+                case WGS84_TO_UTM:
+                case NAD27_TO_WGS84_UTM:   return CommonCRS.WGS84.universal((φmin + φmax) / 2, (λmin + λmax) / 2);
+                case WGS84_TO_GEOCENTRIC:  return CommonCRS.WGS84.geocentric();
+                default:                   return CommonCRS.WGS84.geographic();
+            }
+        }
+
+        /**
+         * Returns the domain where to generate random points, in units and axis order of the source CRS.
+         */
+        final Envelope domain() {
+            final GeneralEnvelope domain = new GeneralEnvelope(source());
+            domain.setRange(0, φmin, φmax);
+            domain.setRange(1, λmin, λmax);
+            if (is3D) {
+                domain.setRange(2, -100, 8000);
+            }
+            return domain;
+        }
+    }
+
+    /**
+     * The source and target CRS of the coordinate operation to benchmark.
+     */
+    @Param
+    public Path path;
+
+    /**
+     * Creates a new benchmark. JMH will assign the parameter values before to invoke {@link #setup()}.
+     */
+    public OperationBenchmark() {
+    }
+
+    /**
+     * Finds the coordinate operation between the source and target CRS.
+     *
+     * @return the transform of the coordinate operation to benchmark.
+     * @throws FactoryException if the coordinate operation can not be found.
+     */
+    @Override
+    protected MathTransform createTransform() throws FactoryException {
+        return CRS.findOperation(path.source(), path.target(), null).getMathTransform();
+    }
+
+    /**
+     * Returns the domain of the source CRS where to generate random points.
+     *
+     * @return the domain where to generate random points.
+     */
+    @Override
+    protected Envelope getDomain() {
+        return path.domain();
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.benchmark;
+
+import org.opengis.geometry.Envelope;
+import org.opengis.parameter.ParameterValueGroup;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.MathTransformFactory;
+import org.opengis.util.FactoryException;
+import org.apache.sis.geometry.Envelope2D;
+import org.apache.sis.internal.system.DefaultFactories;
+import org.apache.sis.parameter.Parameters;
+import org.openjdk.jmh.annotations.Param;
+
+
+/**
+ * Measures the throughput of map projections from geographic coordinates in degrees to projected
+ * coordinates in metres. Each value of {@link Projection} creates a different {@code NormalizedProjection}
+ * subclass, completed by the normalization and denormalization steps created by the transform factory.
+ * Parameter values are taken from EPSG examples when available.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+public class ProjectionBenchmark extends TransformBenchmark {
+    /**
+     * The map projections to benchmark, together with their parameters and the
+     * (<var>longitude</var>, <var>latitude</var>) domain in which to generate points.
+     */
+    public enum Projection {
+        MERCATOR("Mercator (variant A)", -180, 180, -80, 80),
+
+        TRANSVERSE_MERCATOR("Transverse Mercator", 0, 6, 0, 80,
+                "Longitude of natural origin", 3,
+                "Scale factor at natural origin", 0.9996,
+                "False easting", 500000),
+
+        LAMBERT_CONIC_CONFORMAL("Lambert Conic Conformal (2SP)", -100, -90, 25, 35,
+                "Latitude of false origin", 27.83333333333333,
+                "Longitude of false origin", -99,
+                "Latitude of 1st standard parallel", 28.38333333333333,
+                "Latitude of 2nd standard parallel", 30.28333333333333),
+
+        POLAR_STEREOGRAPHIC("Polar Stereographic (variant B)", -180, 180, 60, 89,
+                "Latitude of standard parallel", 71),
+
+        OBLIQUE_STEREOGRAPHIC("Oblique Stereographic", 3, 8, 50, 54,
+                "Latitude of natural origin", 52.15616055555555,
+                "Longitude of natural origin", 5.38763888888889,
+                "Scale factor at natural origin", 0.9999079),
+
+        ALBERS_EQUAL_AREA("Albers Equal Area", -130, -60, 20, 55,
+                "Latitude of false origin", 23,
+                "Longitude of false origin", -96,
+                "Latitude of 1st standard parallel", 29.5,
+                "Latitude of 2nd standard parallel", 45.5),
+
+        CYLINDRICAL_EQUAL_AREA("Lambert Cylindrical Equal Area", -180, 180, -80, 80,
+                "Latitude of 1st standard parallel", 30),
+
+        MOLLWEIDE("Mollweide", -180, 180, -85, 85),
+
+        OBLIQUE_MERCATOR("Hotine Oblique Mercator (variant A)", 109, 120, 0, 8,
+                "Latitude of projection centre", 4,
+                "Longitude of projection centre", 115,
+                "Azimuth of initial line", 53.31582047222222,
+                "Angle from Rectified to Skew Grid", 53.13010236111111,
+                "Scale factor on initial line", 0.99984);
+
+        /**
+         * Name of the operation method.
+         */
+        final String method;
+
+        /**
+         * Domain of validity in degrees where to generate random points.
+         */
+        final double λmin, λmax, φmin, φmax;
+
+        /**
+         * Parameter names and values, in alternance.
+         */
+        private final Object[] parameters;
+
+        /**
+         * Creates a new enumeration value for the given method and parameters.
+         */
+        private Projection(final String method, final double λmin, final double λmax,
+                final double φmin, final double φmax, final Object... parameters)
+        {
+            this.method     = method;
+            this.λmin       = λmin;
+            this.λmax       = λmax;
+            this.φmin       = φmin;
+            this.φmax       = φmax;
+            this.parameters = parameters;
+        }
+
+        /**
+         * Creates the map projection on the WGS84 ellipsoid.
+         */
+        final MathTransform create() throws FactoryException {
+            final MathTransformFactory factory = DefaultFactories.forBuildin(MathTransformFactory.class);
+            final ParameterValueGroup group = factory.getDefaultParameters(method);
+            final Parameters pg = Parameters.castOrWrap(group);
+            pg.parameter("semi_major").setValue(6378137.0);
+            pg.parameter("semi_minor").setValue(6356752.314245179);
+            for (int i=0; i<parameters.length; i += 2) {
+                pg.parameter((String) parameters[i]).setValue(((Number) parameters[i+1]).doubleValue());
+            }
+            return factory.createParameterizedTransform(group);
+        }
+    }
+
+    /**
+     * The map projection to benchmark.
+     */
+    @Param
+    public Projection projection;
+
+    /**
+     * Creates a new benchmark. JMH will assign the parameter values before to invoke {@link #setup()}.
+     */
+    public ProjectionBenchmark() {
+    }
+
+    /**
+     * Creates the map projection from (<var>longitude</var>, <var>latitude</var>) in degrees
+     * to (<var>easting</var>, <var>northing</var>) in metres.
+     *
+     * @return the map projection to benchmark.
+     * @throws FactoryException if the map projection can not be created.
+     */
+    @Override
+    protected MathTransform createTransform() throws FactoryException {
+        return projection.create();
+    }
+
+    /**
+     * Returns the domain of the map projection in degrees of longitude and latitude.
+     *
+     * @return the domain where to generate random points.
+     */
+    @Override
+    protected Envelope getDomain() {
+        return new Envelope2D(null, projection.λmin, projection.φmin,
+                projection.λmax - projection.λmin, projection.φmax - projection.φmin);
+    }
+}
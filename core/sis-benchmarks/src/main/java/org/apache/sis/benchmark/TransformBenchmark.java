@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.opengis.geometry.Envelope;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+import org.apache.sis.geometry.Envelopes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Base class of benchmarks measuring the throughput of a {@link MathTransform} on arrays of coordinates.
+ * Subclasses provide the transform to test and the domain of source coordinates. This class generates
+ * random points in that domain and transforms them in {@code double[]} and {@code float[]} arrays.
+ * If the {@link #inverse} parameter is {@code true}, then the inverse transform is measured instead,
+ * with source points generated in the image of the domain.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class TransformBenchmark {
+    /**
+     * The seed for the random number generator, fixed for allowing comparisons between runs.
+     */
+    private static final long SEED = 2018;
+
+    /**
+     * Number of points to transform in a single call to a {@code MathTransform.transform(…)} method.
+     * Small values measure the overhead of each call, while large values measure the throughput
+     * of the loops inside the transforms.
+     */
+    @Param({"16", "1024", "65536"})
+    public int numPoints;
+
+    /**
+     * Whether to measure the inverse of the transform provided by the subclass.
+     */
+    @Param({"false", "true"})
+    public boolean inverse;
+
+    /**
+     * The transform to benchmark.
+     */
+    private MathTransform transform;
+
+    /**
+     * Source and target coordinates as double-precision numbers.
+     */
+    private double[] sourceDoubles, targetDoubles;
+
+    /**
+     * Source and target coordinates as single-precision numbers.
+     */
+    private float[] sourceFloats, targetFloats;
+
+    /**
+     * For subclass constructors.
+     */
+    protected TransformBenchmark() {
+    }
+
+    /**
+     * Creates the transform to benchmark. This method is invoked once at setup time,
+     * after JMH has assigned the values of all {@link Param} fields.
+     *
+     * @return the transform to benchmark.
+     * @throws Exception if the transform can not be created.
+     */
+    protected abstract MathTransform createTransform() throws Exception;
+
+    /**
+     * Returns the domain of source coordinates of the transform returned by {@link #createTransform()}.
+     * Random points will be generated inside that envelope.
+     *
+     * @return the domain of source coordinates.
+     */
+    protected abstract Envelope getDomain();
+
+    /**
+     * Creates the transform and the arrays of random coordinates.
+     *
+     * @throws Exception if the transform can not be created or if the domain can not be transformed.
+     */
+    @Setup
+    public final void setup() throws Exception {
+        transform = createTransform();
+        Envelope domain = getDomain();
+        if (inverse) {
+            domain    = Envelopes.transform(transform, domain);
+            transform = transform.inverse();
+        }
+        final int srcDim = transform.getSourceDimensions();
+        final int tgtDim = transform.getTargetDimensions();
+        sourceDoubles = new double[numPoints * srcDim];
+        targetDoubles = new double[numPoints * tgtDim];
+        sourceFloats  = new float [numPoints * srcDim];
+        targetFloats  = new float [numPoints * tgtDim];
+        final Random random = new Random(SEED);
+        for (int i=0; i<sourceDoubles.length; i++) {
+            final int    dim = i % srcDim;
+            final double min = domain.getMinimum(dim);
+            final double v   = min + random.nextDouble() * (domain.getMaximum(dim) - min);
+            sourceDoubles[i] = v;
+            sourceFloats [i] = (float) v;
+        }
+    }
+
+    /**
+     * Transforms all points stored in a {@code double[]} array.
+     *
+     * @return the transformed coordinates, returned for preventing dead code elimination.
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Benchmark
+    public double[] transformDoubles() throws TransformException {
+        transform.transform(sourceDoubles, 0, targetDoubles, 0, numPoints);
+        return targetDoubles;
+    }
+
+    /**
+     * Transforms all points stored in a {@code float[]} array.
+     *
+     * @return the transformed coordinates, returned for preventing dead code elimination.
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Benchmark
+    public float[] transformFloats() throws TransformException {
+        transform.transform(sourceFloats, 0, targetFloats, 0, numPoints);
+        return targetFloats;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * <a href="http://openjdk.java.net/projects/code-tools/jmh/">JMH</a> benchmarks for the hot paths of coordinate
+ * operations: {@code MathTransform} chains, map projections, datum shifts and envelope transformations.
+ * Those benchmarks are not part of the default build. They can be compiled and run as below
+ * (the second command accepts the usual JMH options, for example a regular expression
+ * for selecting the benchmarks to run):
+ *
+ * {@preformat text
+ *   mvn install --activate-profiles benchmarks
+ *   java -jar core/sis-benchmarks/target/benchmarks.jar
+ * }
+ *
+ * Each benchmark transforms arrays of random coordinates (generated with a fixed seed, for reproducibility)
+ * in both {@code double[]} and {@code float[]} arrays. The number of points is a JMH parameter, so the effect
+ * of the batch size on the throughput can be measured. Results are reported in transformed arrays per second;
+ * divide by the number of points for getting the throughput in points per second.
+ * The exception is {@link org.apache.sis.benchmark.ConcatenationBenchmark}, which measures the concatenation
+ * of linear transforms rather than their use and reports results in concatenations per second.
+ *
+ * <p>The older {@code Benchmark} class in the {@code sis-referencing} test directory is a single-shot
+ * comparison between two projection implementations; the classes in this package are the ones to use
+ * for tracking performance regressions.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+package org.apache.sis.benchmark;
@@ -17,6 +17,7 @@
 package org.apache.sis.internal.feature;
 
 import java.util.Iterator;
+import java.nio.ByteBuffer;
 import com.esri.core.geometry.Geometry;
 import com.esri.core.geometry.Envelope2D;
 import com.esri.core.geometry.MultiPath;
@@ -27,6 +28,8 @@ import com.esri.core.geometry.Point2D;
 import com.esri.core.geometry.Point3D;
 import com.esri.core.geometry.WktImportFlags;
 import com.esri.core.geometry.OperatorImportFromWkt;
+import com.esri.core.geometry.OperatorExportToWkb;
+import com.esri.core.geometry.WkbExportFlags;
 import org.apache.sis.geometry.GeneralEnvelope;
 import org.apache.sis.setup.GeometryLibrary;
 import org.apache.sis.math.Vector;
@@ -192,6 +195,21 @@ final class ESRI extends Geometries<Geometry> {
         return path;
     }
 
+    /**
+     * If the given object is an ESRI geometry, returns its WKB representation.
+     */
+    @Override
+    final byte[] tryGetWKB(final Object geometry) {
+        if (geometry instanceof Geometry) {
+            final ByteBuffer buffer = OperatorExportToWkb.local().execute(
+                    WkbExportFlags.wkbExportDefaults, (Geometry) geometry, null);
+            final byte[] wkb = new byte[buffer.remaining()];
+            buffer.get(wkb);
+            return wkb;
+        }
+        return null;
+    }
+
     /**
      * Parses the given WKT.
      */
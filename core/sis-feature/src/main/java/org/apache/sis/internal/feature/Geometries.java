@@ -292,6 +292,29 @@ public abstract class Geometries<G> {
      */
     public abstract Object parseWKT(String wkt) throws Exception;
 
+    /**
+     * If the given geometry is an implementation of this library, returns its Well Known Binary (WKB)
+     * representation. Otherwise returns {@code null}.
+     */
+    abstract byte[] tryGetWKB(Object geometry);
+
+    /**
+     * If the given object is one of the recognized geometry types, returns its Well Known Binary (WKB)
+     * representation. Otherwise returns {@code null}. This is the encoding used for writing geometries
+     * in spatial databases, for example with the {@code ST_GeomFromWKB(…)} function of PostGIS.
+     *
+     * @param  geometry  the geometry to encode, or {@code null}.
+     * @return the WKB representation of the given geometry, or {@code null} if the given object
+     *         is not a recognized geometry or can not be encoded by its library.
+     */
+    public static byte[] toWKB(final Object geometry) {
+        for (Geometries<?> g = implementation; g != null; g = g.fallback) {
+            final byte[] wkb = g.tryGetWKB(geometry);
+            if (wkb != null) return wkb;
+        }
+        return null;
+    }
+
     /**
      * Returns an error message for an unsupported geometry object.
      *
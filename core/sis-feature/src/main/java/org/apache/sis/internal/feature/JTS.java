@@ -29,6 +29,7 @@ import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.io.WKTReader;
+import org.locationtech.jts.io.WKBWriter;
 import org.locationtech.jts.io.ParseException;
 import org.apache.sis.geometry.GeneralEnvelope;
 import org.apache.sis.setup.GeometryLibrary;
@@ -242,6 +243,20 @@ final class JTS extends Geometries<Geometry> {
         return toGeometry(lines);
     }
 
+    /**
+     * If the given object is a JTS geometry, returns its WKB representation.
+     * The <var>z</var> values are written if the first coordinate has one.
+     */
+    @Override
+    final byte[] tryGetWKB(final Object geometry) {
+        if (geometry instanceof Geometry) {
+            final Coordinate c = ((Geometry) geometry).getCoordinate();
+            final int dimension = (c != null && !Double.isNaN(c.z)) ? 3 : 2;
+            return new WKBWriter(dimension).write((Geometry) geometry);
+        }
+        return null;
+    }
+
     /**
      * Parses the given WKT.
      */
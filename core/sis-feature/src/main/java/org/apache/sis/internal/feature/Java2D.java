@@ -213,6 +213,14 @@ final class Java2D extends Geometries<Shape> {
         return ShapeUtilities.toPrimitive(path);
     }
 
+    /**
+     * Returns {@code null} since this implementation does not support WKB encoding of Java2D shapes.
+     */
+    @Override
+    final byte[] tryGetWKB(final Object geometry) {
+        return null;
+    }
+
     /**
      * Parses the given WKT.
      */
@@ -18,6 +18,8 @@ package org.apache.sis.internal.feature;
 
 import java.util.Arrays;
 import java.util.Iterator;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import org.apache.sis.math.Vector;
 import org.apache.sis.geometry.GeneralEnvelope;
 import org.apache.sis.test.TestCase;
@@ -63,6 +65,23 @@ public abstract strictfp class GeometriesTestCase extends TestCase {
         assertArrayEquals("tryGetCoordinate", new double[] {4, 5}, factory.tryGetCoordinate(geometry), STRICT);
     }
 
+    /**
+     * Tests {@link Geometries#tryGetWKB(Object)} on a point. The Well Known Binary format of a point
+     * is the byte order flag, the geometry type as a 4 bytes integer, then the coordinate values.
+     */
+    @Test
+    public void testTryGetWKB() {
+        geometry = factory.createPoint(4, 5);
+        final byte[] wkb = factory.tryGetWKB(geometry);
+        assertNotNull("tryGetWKB", wkb);
+        assertEquals("length", 21, wkb.length);
+        final ByteBuffer buffer = ByteBuffer.wrap(wkb, 1, 20).order(wkb[0] == 0 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+        assertEquals("type", 1, buffer.getInt());
+        assertEquals("x", 4, buffer.getDouble(), STRICT);
+        assertEquals("y", 5, buffer.getDouble(), STRICT);
+        assertNull("tryGetWKB", factory.tryGetWKB("Not a geometry"));
+    }
+
     /**
      * Tests {@link Geometries#createPolyline(int, Vector...)}.
      * This method verifies the polylines by a call to {@link Geometries#tryGetEnvelope(Object)}.
@@ -38,6 +38,16 @@ public final strictfp class Java2DTest extends GeometriesTestCase {
         super(new Java2D());
     }
 
+    /**
+     * Verifies that {@link Java2D#tryGetWKB(Object)} returns {@code null},
+     * since WKB encoding is not supported for Java2D shapes.
+     */
+    @Test
+    @Override
+    public void testTryGetWKB() {
+        assertNull(new Java2D().tryGetWKB(new Java2D().createPoint(4, 5)));
+    }
+
     /**
      * Tests {@link Java2D#createPolyline(int, Vector...)}.
      */
@@ -17,7 +17,11 @@
 package org.apache.sis.internal.raster;
 
 import java.nio.Buffer;
-import java.nio.ReadOnlyBufferException;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.IntBuffer;
+import java.nio.FloatBuffer;
+import java.nio.DoubleBuffer;
 import java.awt.Point;
 import java.awt.image.DataBuffer;
 import java.awt.image.DataBufferByte;
@@ -93,12 +97,12 @@ public final class RasterFactory extends Static {
      * This method wraps the underlying array of primitive types; data are not copied.
      * For each buffer, the data starts at {@linkplain Buffer#position() buffer position}
      * and ends at the position + {@linkplain Buffer#remaining() remaining}.
+     * Buffers not backed by an accessible array (for example read-only views over a file mapped in memory)
+     * are copied in new arrays, since Java2D buffers require arrays.
      *
      * @param  dataType  type of buffer to create as one of {@link DataBuffer} constants.
      * @param  data      the data, one for each band.
      * @return buffer of the given type, or {@code null} if {@code dataType} is unrecognized.
-     * @throws UnsupportedOperationException if a buffer is not backed by an accessible array.
-     * @throws ReadOnlyBufferException if a buffer is backed by an array but is read-only.
      * @throws ArrayStoreException if the type of a backing array is not {@code dataType}.
      * @throws ArithmeticException if the position of a buffer is too high.
      * @throws IllegalArgumentException if buffers do not have the same amount of remaining values.
@@ -119,8 +123,12 @@ public final class RasterFactory extends Static {
         int length = 0;
         for (int i=0; i<numBands; i++) {
             final Buffer buffer = data[i];
-            arrays [i] = buffer.array();
-            offsets[i] = Math.addExact(buffer.arrayOffset(), buffer.position());
+            if (buffer.hasArray()) {
+                arrays [i] = buffer.array();
+                offsets[i] = Math.addExact(buffer.arrayOffset(), buffer.position());
+            } else {
+                arrays [i] = copy(buffer);      // For example a view over a file mapped in memory.
+            }
             final int r = buffer.remaining();
             if (i == 0) length = r;
             else if (length != r) {
@@ -137,4 +145,44 @@ public final class RasterFactory extends Static {
             default: return null;
         }
     }
+
+    /**
+     * Copies the remaining values of the given buffer in a new array. This is used for buffers
+     * that are not backed by an accessible array. The position of the given buffer is unchanged.
+     *
+     * @param  data  the buffer to copy.
+     * @return the remaining values of the given buffer in a new array of primitive type.
+     */
+    private static Object copy(final Buffer data) {
+        final int n = data.remaining();
+        if (data instanceof ByteBuffer)   {final byte[]   a = new byte  [n]; ((ByteBuffer)   data).duplicate().get(a); return a;}
+        if (data instanceof ShortBuffer)  {final short[]  a = new short [n]; ((ShortBuffer)  data).duplicate().get(a); return a;}
+        if (data instanceof IntBuffer)    {final int[]    a = new int   [n]; ((IntBuffer)    data).duplicate().get(a); return a;}
+        if (data instanceof FloatBuffer)  {final float[]  a = new float [n]; ((FloatBuffer)  data).duplicate().get(a); return a;}
+        if (data instanceof DoubleBuffer) {final double[] a = new double[n]; ((DoubleBuffer) data).duplicate().get(a); return a;}
+        throw new ArrayStoreException(data.getClass().getName());
+    }
+
+    /**
+     * Wraps the backing array of the given Java2D buffer bank into a NIO buffer. This is the converse
+     * of {@link #wrap(int, Buffer...)}. Data are not copied. The buffer position is the bank offset and
+     * the buffer limit is the offset plus the {@linkplain DataBuffer#getSize() data buffer size}.
+     *
+     * @param  data  the data buffer to wrap.
+     * @param  bank  index of the bank to wrap.
+     * @return a NIO buffer wrapping the array of the given bank, or {@code null} if the data type is unrecognized.
+     */
+    public static Buffer wrapAsBuffer(final DataBuffer data, final int bank) {
+        final int offset = data.getOffsets()[bank];
+        final int length = data.getSize();
+        switch (data.getDataType()) {
+            case DataBuffer.TYPE_BYTE:   return ByteBuffer  .wrap(((DataBufferByte)   data).getData(bank), offset, length);
+            case DataBuffer.TYPE_SHORT:  return ShortBuffer .wrap(((DataBufferShort)  data).getData(bank), offset, length);
+            case DataBuffer.TYPE_USHORT: return ShortBuffer .wrap(((DataBufferUShort) data).getData(bank), offset, length);
+            case DataBuffer.TYPE_INT:    return IntBuffer   .wrap(((DataBufferInt)    data).getData(bank), offset, length);
+            case DataBuffer.TYPE_FLOAT:  return FloatBuffer .wrap(((DataBufferFloat)  data).getData(bank), offset, length);
+            case DataBuffer.TYPE_DOUBLE: return DoubleBuffer.wrap(((DataBufferDouble) data).getData(bank), offset, length);
+            default: return null;
+        }
+    }
 }
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.raster;
+
+import java.awt.image.Raster;
+import java.awt.image.DataBuffer;
+import java.util.function.Predicate;
+import org.apache.sis.util.collection.Cache;
+
+
+/**
+ * A cache of tiles loaded or computed by {@link TiledImage} implementations.
+ * The cost of each tile is its size in bytes. Tiles are retained by strong references
+ * until the sum of tile sizes exceeds the cost limit, after which the eldest tiles are
+ * retained by soft references and may be discarded by the garbage collector.
+ *
+ * <p>Keys are {@link Key} instances combining a source identifier with a tile index.
+ * The source is any object with {@code equals(Object)} and {@code hashCode()} methods
+ * identifying the data and the layout of tiles (e.g. a file image with a sub-sampling).</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+public final class TileCache extends Cache<TileCache.Key, Raster> {
+    /**
+     * The cache shared by all data stores. The amount of memory retained by strong references
+     * is a fraction of the maximal amount of memory that the Java Virtual Machine will attempt
+     * to use. Tiles in excess are retained by soft references.
+     */
+    public static final TileCache GLOBAL = new TileCache(Runtime.getRuntime().maxMemory() / 8);
+
+    /**
+     * Creates a new tile cache retaining at most the given amount of bytes by strong references.
+     *
+     * @param  costLimit  maximal amount of bytes to retain by strong references.
+     */
+    public TileCache(final long costLimit) {
+        super(100, costLimit, true);
+    }
+
+    /**
+     * Returns an estimation of the memory used by the given tile, in bytes.
+     *
+     * @param  tile  the tile for which to get the cost.
+     * @return the memory used by the given tile, in bytes.
+     */
+    @Override
+    protected int cost(final Raster tile) {
+        final DataBuffer buffer = tile.getDataBuffer();
+        final long size = (long) buffer.getSize() * buffer.getNumBanks() * DataBuffer.getDataTypeSize(buffer.getDataType());
+        return (int) Math.min(size / Byte.SIZE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Removes all tiles having a source accepted by the given filter. Data stores invoke this method
+     * when they are closed, because the sources of their tiles usually reference the store resources
+     * (for example an open channel) which would otherwise stay reachable until the tiles are evicted.
+     *
+     * @param  filter  the filter of sources for which to remove the tiles.
+     */
+    public void removeAll(final Predicate<Object> filter) {
+        for (final Key key : keySet()) {
+            if (filter.test(key.source)) {
+                remove(key);
+            }
+        }
+    }
+
+    /**
+     * Key of a tile in the cache.
+     */
+    public static final class Key {
+        /**
+         * Identification of the data and of the layout of tiles.
+         */
+        private final Object source;
+
+        /**
+         * Index of the tile in the source.
+         */
+        private final long index;
+
+        /**
+         * Creates a new key for the tile at the given index in the given source.
+         *
+         * @param  source  identification of the data and of the layout of tiles.
+         * @param  index   index of the tile in the source.
+         */
+        public Key(final Object source, final long index) {
+            this.source = source;
+            this.index  = index;
+        }
+
+        /**
+         * Returns the identification of the data and of the layout of tiles.
+         *
+         * @return the source given at construction time.
+         */
+        public Object getSource() {
+            return source;
+        }
+
+        /**
+         * Returns a hash code value for this key.
+         */
+        @Override
+        public int hashCode() {
+            return 31 * source.hashCode() + Long.hashCode(index);
+        }
+
+        /**
+         * Compares this key with the given object for equality.
+         */
+        @Override
+        public boolean equals(final Object other) {
+            if (other instanceof Key) {
+                final Key that = (Key) other;
+                return index == that.index && source.equals(that.source);
+            }
+            return false;
+        }
+
+        /**
+         * Returns a string representation of this key for debugging purpose.
+         */
+        @Override
+        public String toString() {
+            return "Tile[" + source + ": " + index + ']';
+        }
+    }
+}
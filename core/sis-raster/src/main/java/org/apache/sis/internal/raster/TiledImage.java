@@ -0,0 +1,307 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.raster;
+
+import java.util.Vector;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.image.ColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import org.apache.sis.util.ArgumentChecks;
+import org.apache.sis.util.resources.Errors;
+import org.apache.sis.util.collection.BackingStoreException;
+
+
+/**
+ * A rendered image which loads or computes its tiles only when first requested.
+ * Subclasses need to implement only the {@link #createTile(int, int)} method.
+ * The image upper-left corner is located at (0,0) pixel coordinates, but the tile grid
+ * may have a negative offset if the image does not start on a tile boundary.
+ * The tile with indices (0,0) is always the tile containing the image upper-left pixel.
+ *
+ * <p>This class does not cache the tiles. Caching, if desired, is subclass responsibility;
+ * a {@link TileCache} can be used for that purpose.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+public abstract class TiledImage implements RenderedImage {
+    /**
+     * The sample model of all tiles. The sample model width and height are the tile size.
+     */
+    private final SampleModel sampleModel;
+
+    /**
+     * The color model, or {@code null} if none.
+     */
+    private final ColorModel colorModel;
+
+    /**
+     * The image size in pixels.
+     */
+    private final int width, height;
+
+    /**
+     * The pixel coordinates of the upper-left corner of the tile at index (0,0).
+     * Those values are zero or negative.
+     */
+    private final int tileGridXOffset, tileGridYOffset;
+
+    /**
+     * Creates a new tiled image.
+     *
+     * @param  sampleModel      the sample model of all tiles. The sample model size is the tile size.
+     * @param  colorModel       the color model, or {@code null} if none.
+     * @param  width            the image width in pixels.
+     * @param  height           the image height in pixels.
+     * @param  tileGridXOffset  <var>x</var> coordinate of the upper-left pixel of tile (0,0). Shall be zero or negative.
+     * @param  tileGridYOffset  <var>y</var> coordinate of the upper-left pixel of tile (0,0). Shall be zero or negative.
+     */
+    protected TiledImage(final SampleModel sampleModel, final ColorModel colorModel,
+                         final int width, final int height, final int tileGridXOffset, final int tileGridYOffset)
+    {
+        ArgumentChecks.ensureNonNull         ("sampleModel", sampleModel);
+        ArgumentChecks.ensureStrictlyPositive("width",       width);
+        ArgumentChecks.ensureStrictlyPositive("height",      height);
+        ArgumentChecks.ensureBetween("tileGridXOffset", 1 - sampleModel.getWidth(),  0, tileGridXOffset);
+        ArgumentChecks.ensureBetween("tileGridYOffset", 1 - sampleModel.getHeight(), 0, tileGridYOffset);
+        this.sampleModel     = sampleModel;
+        this.colorModel      = colorModel;
+        this.width           = width;
+        this.height          = height;
+        this.tileGridXOffset = tileGridXOffset;
+        this.tileGridYOffset = tileGridYOffset;
+    }
+
+    /**
+     * Returns the immediate sources of this image. This method returns {@code null} since
+     * tiles are loaded or computed from an external source rather than another image.
+     *
+     * @return {@code null}.
+     */
+    @Override
+    public Vector<RenderedImage> getSources() {
+        return null;
+    }
+
+    /**
+     * Gets a property from this image. The default implementation has no property.
+     *
+     * @param  name  the name of the property to get.
+     * @return {@link Image#UndefinedProperty} since this image has no property.
+     */
+    @Override
+    public Object getProperty(final String name) {
+        return Image.UndefinedProperty;
+    }
+
+    /**
+     * Returns the names of all recognized properties, or {@code null} if none.
+     *
+     * @return {@code null} since this image has no property.
+     */
+    @Override
+    public String[] getPropertyNames() {
+        return null;
+    }
+
+    /** Returns the color model of this image, or {@code null} if none. */
+    @Override public ColorModel  getColorModel()      {return colorModel;}
+
+    /** Returns the sample model of all tiles in this image. */
+    @Override public SampleModel getSampleModel()     {return sampleModel;}
+
+    /** Returns the image width in pixels. */
+    @Override public int         getWidth()           {return width;}
+
+    /** Returns the image height in pixels. */
+    @Override public int         getHeight()          {return height;}
+
+    /** Returns the minimum <var>x</var> coordinate, which is 0. */
+    @Override public int         getMinX()            {return 0;}
+
+    /** Returns the minimum <var>y</var> coordinate, which is 0. */
+    @Override public int         getMinY()            {return 0;}
+
+    /** Returns the tile width in pixels. */
+    @Override public int         getTileWidth()       {return sampleModel.getWidth();}
+
+    /** Returns the tile height in pixels. */
+    @Override public int         getTileHeight()      {return sampleModel.getHeight();}
+
+    /** Returns the <var>x</var> coordinate of the upper-left pixel of tile (0,0). */
+    @Override public int         getTileGridXOffset() {return tileGridXOffset;}
+
+    /** Returns the <var>y</var> coordinate of the upper-left pixel of tile (0,0). */
+    @Override public int         getTileGridYOffset() {return tileGridYOffset;}
+
+    /** Returns the minimum tile index in the <var>x</var> direction, which is 0. */
+    @Override public int         getMinTileX()        {return 0;}
+
+    /** Returns the minimum tile index in the <var>y</var> direction, which is 0. */
+    @Override public int         getMinTileY()        {return 0;}
+
+    /**
+     * Returns the number of tiles in the <var>x</var> direction.
+     */
+    @Override
+    public int getNumXTiles() {
+        return Math.floorDiv(width - 1 - tileGridXOffset, getTileWidth()) + 1;
+    }
+
+    /**
+     * Returns the number of tiles in the <var>y</var> direction.
+     */
+    @Override
+    public int getNumYTiles() {
+        return Math.floorDiv(height - 1 - tileGridYOffset, getTileHeight()) + 1;
+    }
+
+    /**
+     * Returns the tile at the given indices, loading or computing it if needed.
+     * Checked exceptions thrown by {@link #createTile(int, int)} are wrapped in a
+     * {@link BackingStoreException}.
+     *
+     * @param  tileX  the tile column index, from 0 inclusive to {@link #getNumXTiles()} exclusive.
+     * @param  tileY  the tile row index, from 0 inclusive to {@link #getNumYTiles()} exclusive.
+     * @return the tile at the given indices.
+     * @throws IndexOutOfBoundsException if a tile index is out of bounds.
+     * @throws BackingStoreException if an error occurred while loading or computing the tile.
+     */
+    @Override
+    public Raster getTile(final int tileX, final int tileY) {
+        ArgumentChecks.ensureValidIndex(getNumXTiles(), tileX);
+        ArgumentChecks.ensureValidIndex(getNumYTiles(), tileY);
+        final Raster tile;
+        try {
+            tile = createTile(tileX, tileY);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BackingStoreException(Errors.format(Errors.Keys.CanNotCompute_1, "tile(" + tileX + ", " + tileY + ')'), e);
+        }
+        assert tile.getMinX() == tileX * getTileWidth()  + tileGridXOffset : tileX;
+        assert tile.getMinY() == tileY * getTileHeight() + tileGridYOffset : tileY;
+        return tile;
+    }
+
+    /**
+     * Loads or computes the tile at the given indices. The returned raster shall use a sample model
+     * compatible with {@link #getSampleModel()} and have its upper-left corner located at
+     * (<var>tileX</var> × {@linkplain #getTileWidth() tile width} + {@linkplain #getTileGridXOffset() x offset},
+     *  <var>tileY</var> × {@linkplain #getTileHeight() tile height} + {@linkplain #getTileGridYOffset() y offset}).
+     * The raster may be shared and shall not be modified by the caller.
+     *
+     * @param  tileX  the tile column index, from 0 inclusive to {@link #getNumXTiles()} exclusive.
+     * @param  tileY  the tile row index, from 0 inclusive to {@link #getNumYTiles()} exclusive.
+     * @return the tile at the given indices.
+     * @throws Exception if an error occurred while loading or computing the tile.
+     */
+    protected abstract Raster createTile(int tileX, int tileY) throws Exception;
+
+    /**
+     * Notifies this image that all tiles in the given range of indices will be requested soon.
+     * This method is invoked by {@link #copyData(WritableRaster)} before to request the tiles
+     * when the region to copy covers more than one tile. Subclasses can override this method
+     * for loading many tiles in a single operation, for example by reading them in the order
+     * they appear in a file and decoding them in parallel.
+     *
+     * <p>The default implementation does nothing.</p>
+     *
+     * @param  minTileX  column index of the first tile, inclusive.
+     * @param  minTileY  row index of the first tile, inclusive.
+     * @param  maxTileX  column index of the last tile, inclusive.
+     * @param  maxTileY  row index of the last tile, inclusive.
+     * @throws Exception if an error occurred while loading or computing the tiles.
+     */
+    protected void prefetch(int minTileX, int minTileY, int maxTileX, int maxTileY) throws Exception {
+    }
+
+    /**
+     * Returns a copy of the whole image as a single raster.
+     *
+     * @return a copy of this image.
+     * @throws BackingStoreException if an error occurred while loading or computing a tile.
+     */
+    @Override
+    public Raster getData() {
+        return getData(new Rectangle(width, height));
+    }
+
+    /**
+     * Returns a copy of the given region of this image as a single raster.
+     *
+     * @param  region  the region of this image to copy.
+     * @return a copy of this image in the given region.
+     * @throws BackingStoreException if an error occurred while loading or computing a tile.
+     */
+    @Override
+    public Raster getData(final Rectangle region) {
+        final SampleModel model = sampleModel.createCompatibleSampleModel(region.width, region.height);
+        final WritableRaster raster = Raster.createWritableRaster(model, region.getLocation());
+        copyData(raster);
+        return raster;
+    }
+
+    /**
+     * Copies an arbitrary rectangular region of this image to the given writable raster.
+     * The region to copy is determined by the raster bounds. If the given raster is null,
+     * then a new raster is created for the whole image.
+     *
+     * @param  raster  the raster where to copy the pixel values, or {@code null}.
+     * @return the given raster, or a new raster if the argument was null.
+     * @throws BackingStoreException if an error occurred while loading or computing a tile.
+     */
+    @Override
+    public WritableRaster copyData(WritableRaster raster) {
+        if (raster == null) {
+            final SampleModel model = sampleModel.createCompatibleSampleModel(width, height);
+            raster = Raster.createWritableRaster(model, null);
+        }
+        final Rectangle region = raster.getBounds().intersection(new Rectangle(width, height));
+        if (!region.isEmpty()) {
+            final int tileWidth  = getTileWidth();
+            final int tileHeight = getTileHeight();
+            final int minTileX = Math.floorDiv(region.x - tileGridXOffset, tileWidth);
+            final int minTileY = Math.floorDiv(region.y - tileGridYOffset, tileHeight);
+            final int maxTileX = Math.floorDiv(region.x + region.width  - 1 - tileGridXOffset, tileWidth);
+            final int maxTileY = Math.floorDiv(region.y + region.height - 1 - tileGridYOffset, tileHeight);
+            if (maxTileX != minTileX || maxTileY != minTileY) try {
+                prefetch(minTileX, minTileY, maxTileX, maxTileY);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new BackingStoreException(Errors.format(Errors.Keys.CanNotCompute_1, "tiles"), e);
+            }
+            for (int ty = minTileY; ty <= maxTileY; ty++) {
+                for (int tx = minTileX; tx <= maxTileX; tx++) {
+                    final Raster tile = getTile(tx, ty);
+                    final Rectangle r = tile.getBounds().intersection(region);
+                    if (!r.isEmpty()) {
+                        raster.setRect(tile.createChild(r.x, r.y, r.width, r.height, r.x, r.y, null));
+                    }
+                }
+            }
+        }
+        return raster;
+    }
+}
@@ -67,6 +67,12 @@ public final class Resources extends IndexedResourceBundle {
          */
         public static final short AmbiguousEllipsoid_1 = 1;
 
+        /**
+         * The transform can not be approximated with an error smaller than {0} using a grid of at most
+         * {1} nodes along each axis. The exact transform will be used.
+         */
+        public static final short ApproximationFallback_2 = 84;
+
         /**
          * Can not create objects of type ‘{0}’ from combined URI.
          */
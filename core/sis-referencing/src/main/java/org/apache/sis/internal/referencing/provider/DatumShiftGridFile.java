@@ -16,11 +16,15 @@
  */
 package org.apache.sis.internal.referencing.provider;
 
+import java.util.Map;
 import java.util.Arrays;
+import java.util.Collections;
 import java.lang.reflect.Array;
+import java.nio.Buffer;
 import java.nio.file.Path;
 import javax.measure.Unit;
 import javax.measure.Quantity;
+import org.opengis.geometry.Envelope;
 import org.opengis.parameter.ParameterDescriptor;
 import org.opengis.parameter.ParameterDescriptorGroup;
 import org.opengis.parameter.GeneralParameterDescriptor;
@@ -50,10 +54,11 @@ import org.apache.sis.internal.util.Utilities;
  *       in a public API would probably be too distracting for the users.</li>
  * </ul>
  *
- * The main concrete subclass is {@link DatumShiftGridFile.Float}.
+ * The main concrete subclass is {@link DatumShiftGridFile.Float}. Large grids may use
+ * {@link DatumShiftGridMapped} instead for reading values from a memory-mapped file.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.8
+ * @version 1.0
  *
  * @param <C>  dimension of the coordinate unit (usually {@link javax.measure.quantity.Angle}).
  * @param <T>  dimension of the translation unit (usually {@link javax.measure.quantity.Angle}
@@ -79,7 +84,12 @@ public abstract class DatumShiftGridFile<C extends Quantity<C>, T extends Quanti
         @Override protected int cost(final DatumShiftGridFile<?,?> grid) {
             int p = 1;
             for (final Object array : grid.getData()) {
-                p *= Array.getLength(array);
+                if (!(array instanceof Buffer)) {           // Memory-mapped data are not in the Java heap.
+                    p *= Array.getLength(array);
+                }
+            }
+            for (final DatumShiftGridFile<?,?> subgrid : grid.subgrids.values()) {
+                p += cost(subgrid);
             }
             return p;
         }
@@ -113,6 +123,18 @@ public abstract class DatumShiftGridFile<C extends Quantity<C>, T extends Quanti
      */
     protected double accuracy;
 
+    /**
+     * Other grids loaded from the same file, or an empty map if none. Keys are the domains where the grids apply,
+     * as declared in the file, in the {@linkplain #getCoordinateUnit() coordinate unit} of this grid. This is used
+     * for formats like NTv2 where a file can contain sub-grids of finer resolution. The hierarchy of grids is not
+     * stored here; it is inferred from the nesting of domains by
+     * {@link org.apache.sis.referencing.operation.transform.MathTransforms#specialize MathTransforms.specialize(…)}.
+     *
+     * <p>This field is initialized to an empty map. It is loader responsibility to assign
+     * a value to this field after {@code DatumShiftGridFile} construction if needed.</p>
+     */
+    protected Map<Envelope, DatumShiftGridFile<C,T>> subgrids;
+
     /**
      * Creates a new datum shift grid for the given grid geometry.
      * The actual offset values need to be provided by subclasses.
@@ -141,6 +163,7 @@ public abstract class DatumShiftGridFile<C extends Quantity<C>, T extends Quanti
         this.files      = files;
         this.nx         = nx;
         this.accuracy   = Double.NaN;
+        this.subgrids   = Collections.emptyMap();
     }
 
     /**
@@ -178,6 +201,7 @@ public abstract class DatumShiftGridFile<C extends Quantity<C>, T extends Quanti
         files      = other.files;
         nx         = other.nx;
         accuracy   = other.accuracy;
+        subgrids   = other.subgrids;
     }
 
     /**
@@ -205,6 +229,9 @@ public abstract class DatumShiftGridFile<C extends Quantity<C>, T extends Quanti
      */
     protected final DatumShiftGridFile<C,T> useSharedData() {
         final Object[] data = getData();
+        if (data instanceof Buffer[]) {
+            return this;                    // Memory-mapped data are already shared by the operating system.
+        }
         for (final DatumShiftGridFile<?,?> grid : CACHE.values()) {
             final Object[] other = grid.getData();
             if (Arrays.deepEquals(data, other)) {
@@ -294,7 +321,14 @@ public abstract class DatumShiftGridFile<C extends Quantity<C>, T extends Quanti
         }
         if (super.equals(other)) {
             final DatumShiftGridFile<?,?> that = (DatumShiftGridFile<?,?>) other;
-            return Arrays.equals(files, that.files) && Arrays.deepEquals(getData(), that.getData());
+            if (Arrays.equals(files, that.files) && subgrids.equals(that.subgrids)) {
+                final Object[] data = getData();
+                /*
+                 * Memory-mapped data are not compared value by value, since it would require to scan the whole
+                 * file. Subclasses using buffers shall compare the location of data in the files instead.
+                 */
+                return (data instanceof Buffer[]) || Arrays.deepEquals(data, that.getData());
+            }
         }
         return false;
     }
@@ -23,6 +23,7 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.nio.file.NoSuchFileException;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import org.opengis.util.FactoryException;
 import org.apache.sis.util.resources.Errors;
@@ -37,7 +38,7 @@ import org.apache.sis.referencing.factory.MissingFactoryResourceException;
  * Base class of datum shift grid loaders.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.7
+ * @version 1.0
  * @since   0.7
  * @module
  */
@@ -64,6 +65,15 @@ class DatumShiftGridLoader {
      */
     static final double SECOND_PRECISION = 1E-4;
 
+    /**
+     * Minimal number of grid cells for reading the values from a memory-mapped file instead than copying them
+     * in arrays. Memory-mapped grids do not consume space in the Java heap and the pages can be shared between
+     * many processes, but each access to a value is slightly more costly and the grid can not be compressed.
+     *
+     * @see #map(int)
+     */
+    static final int MAPPING_THRESHOLD = 0x10000;
+
     /**
      * The file to load, used only if we have errors to report.
      */
@@ -136,6 +146,46 @@ class DatumShiftGridLoader {
         buffer.position(p);
     }
 
+    /**
+     * Maps the next <var>n</var> bytes in memory and skips them, or returns {@code null} if the channel
+     * does not support memory mapping. The returned buffer uses the same byte order than {@link #buffer}.
+     * After this method call, {@link #buffer} is empty and the next read operation starts after the mapped
+     * bytes.
+     *
+     * @param  n  number of bytes to map, starting at the current {@link #buffer} position.
+     * @return the mapped bytes, or {@code null} if the channel is not a {@link FileChannel}.
+     * @throws IOException if an error occurred while mapping the file.
+     */
+    final ByteBuffer map(final int n) throws IOException {
+        final long start = position();
+        if (start < 0) {
+            return null;
+        }
+        final FileChannel fc = (FileChannel) channel;
+        if (start + n > fc.size()) {
+            throw new EOFException(Errors.format(Errors.Keys.UnexpectedEndOfFile_1, file));
+        }
+        final ByteBuffer mapped = fc.map(FileChannel.MapMode.READ_ONLY, start, n);
+        mapped.order(buffer.order());
+        fc.position(start + n);
+        buffer.clear().flip();
+        return mapped;
+    }
+
+    /**
+     * Returns the position in the file of the next byte to read from the {@linkplain #buffer},
+     * or -1 if the channel is not a {@link FileChannel}.
+     *
+     * @return position of the current {@link #buffer} position in the file, or -1 if unknown.
+     * @throws IOException if an error occurred while fetching the channel position.
+     */
+    final long position() throws IOException {
+        if (channel instanceof FileChannel) {
+            return ((FileChannel) channel).position() - buffer.remaining();
+        }
+        return -1;
+    }
+
     /**
      * Logs a message about a grid which is about to be loaded.
      *
@@ -0,0 +1,295 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.referencing.provider;
+
+import java.util.Arrays;
+import java.io.Serializable;
+import java.io.InvalidObjectException;
+import java.io.ObjectStreamException;
+import java.nio.FloatBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import javax.measure.Unit;
+import javax.measure.Quantity;
+import org.opengis.util.FactoryException;
+import org.opengis.parameter.ParameterDescriptorGroup;
+import org.opengis.referencing.operation.NoninvertibleTransformException;
+import org.apache.sis.math.DecimalFunctions;
+import org.apache.sis.util.resources.Errors;
+
+
+/**
+ * A datum shift grid which reads the values from {@link FloatBuffer} views instead than {@code float[]} arrays.
+ * The buffers are typically views over a {@linkplain java.nio.MappedByteBuffer memory-mapped} region of the
+ * grid file, in which case the grid values do not consume space in the Java heap and the pages can be shared
+ * with other processes reading the same file. Values do not need to be contiguous: the value for dimension
+ * <var>dim</var> at grid index (<var>gridX</var>, <var>gridY</var>) is read at index
+ * <code>gridX × {@linkplain #cellStride} + gridY × {@linkplain #rowStride}</code> in buffer {@code data[dim]}.
+ * This allows to read directly the records of formats like NTv2, which interleave shift and accuracy values.
+ *
+ * <p>Two grids are considered equal if they map the same region of the same file; values are not compared.
+ * Buffers are not serialized: a serialized grid records only the file and the position of the grid in that file,
+ * and the file is mapped again (or fetched from the cache) on deserialization. In current version, only NTv2
+ * files are read in this way.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ *
+ * @param <C>  dimension of the coordinate unit (usually {@link javax.measure.quantity.Angle}).
+ * @param <T>  dimension of the translation unit (usually {@link javax.measure.quantity.Angle}
+ *             or {@link javax.measure.quantity.Length}).
+ *
+ * @since 1.0
+ * @module
+ */
+final class DatumShiftGridMapped<C extends Quantity<C>, T extends Quantity<T>> extends DatumShiftGridFile<C,T> {
+    /**
+     * Serial number for inter-operability with different versions.
+     */
+    private static final long serialVersionUID = 2771398203374716412L;
+
+    /**
+     * The buffers from which to read the translation values, one for each dimension.
+     * Many buffers may be views over the same memory-mapped region with different start positions.
+     * Only absolute {@code get(int)} operations are used, so the buffers position never change.
+     */
+    private final FloatBuffer[] data;
+
+    /**
+     * The factors by which to multiply the values read from the buffers, one for each dimension.
+     * This is used for example for dividing translations by the cell size when
+     * {@link #isCellValueRatio()} is {@code true}.
+     */
+    private final double[] scales;
+
+    /**
+     * Number of {@code float} values between two consecutive cells in a row.
+     */
+    private final int cellStride;
+
+    /**
+     * Number of {@code float} values between two consecutive rows.
+     */
+    private final int rowStride;
+
+    /**
+     * The file from which the grid is mapped.
+     */
+    private final Path file;
+
+    /**
+     * Position in {@link #file} of the first byte of the mapped region.
+     */
+    private final long offset;
+
+    /**
+     * Creates a new datum shift grid reading values from the given buffers.
+     *
+     * @param data        buffers from which to read the translation values, one for each dimension.
+     * @param scales      factors by which to multiply the values read from the buffers.
+     * @param cellStride  number of {@code float} values between two consecutive cells in a row.
+     * @param rowStride   number of {@code float} values between two consecutive rows.
+     * @param file        the file from which the grid is mapped.
+     * @param offset      position in the file of the first byte of the mapped region.
+     */
+    DatumShiftGridMapped(final Unit<C> coordinateUnit,
+                         final Unit<T> translationUnit,
+                         final boolean isCellValueRatio,
+                         final double x0, final double y0,
+                         final double Δx, final double Δy,
+                         final int    nx, final int    ny,
+                         final ParameterDescriptorGroup descriptor,
+                         final FloatBuffer[] data, final double[] scales,
+                         final int cellStride, final int rowStride,
+                         final Path file, final long offset) throws NoninvertibleTransformException
+    {
+        super(coordinateUnit, translationUnit, isCellValueRatio, x0, y0, Δx, Δy, nx, ny, descriptor, file);
+        this.data       = data;
+        this.scales     = scales;
+        this.cellStride = cellStride;
+        this.rowStride  = rowStride;
+        this.file       = file;
+        this.offset     = offset;
+    }
+
+    /**
+     * Creates a new grid of the same geometry than the given grid but using different buffers.
+     */
+    private DatumShiftGridMapped(final DatumShiftGridMapped<C,T> grid, final FloatBuffer[] data) {
+        super(grid);
+        this.data       = data;
+        this.scales     = grid.scales;
+        this.cellStride = grid.cellStride;
+        this.rowStride  = grid.rowStride;
+        this.file       = grid.file;
+        this.offset     = grid.offset;
+    }
+
+    /**
+     * Returns a view of the given buffer starting at the given index.
+     * This is a convenience method for building the {@code data} argument given to the constructor.
+     *
+     * @param  buffer  the buffer for which to create a view.
+     * @param  start   index of the first value in the view.
+     * @return a view of the given buffer where index 0 is the {@code start} index of the given buffer.
+     */
+    static FloatBuffer view(final FloatBuffer buffer, final int start) {
+        final FloatBuffer view = buffer.duplicate();
+        view.position(start);
+        return view.slice();
+    }
+
+    /**
+     * Returns a new grid with the same geometry than this grid but different buffers.
+     */
+    @Override
+    protected final DatumShiftGridFile<C,T> setData(final Object[] other) {
+        return new DatumShiftGridMapped<>(this, (FloatBuffer[]) other);
+    }
+
+    /**
+     * Returns direct references (not cloned) to the buffers. This method is for cache management,
+     * {@link #equals(Object)} and {@link #hashCode()} implementations only and should not be invoked
+     * in other context.
+     */
+    @Override
+    @SuppressWarnings("ReturnOfCollectionOrArrayField")
+    protected final Object[] getData() {
+        return data;
+    }
+
+    /**
+     * Returns the number of shift dimensions.
+     */
+    @Override
+    public final int getTranslationDimensions() {
+        return data.length;
+    }
+
+    /**
+     * Returns the cell value at the given dimension and grid index. This method casts the {@code float} values
+     * to {@code double} in the same way than {@link DatumShiftGridFile.Float#getCellValue(int, int, int)}
+     * before to apply the scale factor.
+     *
+     * @param  dim    the dimension for which to get an average value.
+     * @param  gridX  the grid index along the <var>x</var> axis, from 0 inclusive to {@link #nx} exclusive.
+     * @param  gridY  the grid index along the <var>y</var> axis, from 0 inclusive to {@code  ny} exclusive.
+     * @return the offset at the given dimension in the grid cell at the given index.
+     */
+    @Override
+    public final double getCellValue(final int dim, final int gridX, final int gridY) {
+        return DecimalFunctions.floatToDouble(data[dim].get(gridX*cellStride + gridY*rowStride)) * scales[dim];
+    }
+
+    /**
+     * Returns {@code true} if the given object is a grid mapping the same region of the same file than this grid.
+     * Values are not compared, since it would require to scan the whole mapped region.
+     *
+     * @param  other  the other object to compare with this datum shift grid.
+     * @return {@code true} if the given object is non-null, an instance of {@code DatumShiftGridMapped}
+     *         and maps the same data.
+     */
+    @Override
+    public boolean equals(final Object other) {
+        if (super.equals(other)) {
+            final DatumShiftGridMapped<?,?> that = (DatumShiftGridMapped<?,?>) other;
+            return offset == that.offset && cellStride == that.cellStride && rowStride == that.rowStride
+                    && Arrays.equals(scales, that.scales);
+        }
+        return false;
+    }
+
+    /**
+     * Returns a hash code value for this datum shift grid.
+     *
+     * @return {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return super.hashCode() + Long.hashCode(offset) + Arrays.hashCode(scales);
+    }
+
+    /**
+     * Replaces this grid by a proxy on serialization, since memory-mapped buffers can not be serialized.
+     *
+     * @return the object to serialize instead of this grid.
+     */
+    private Object writeReplace() {
+        return new Serialized(file.toString(), offset);
+    }
+
+    /**
+     * The object serialized in place of a {@link DatumShiftGridMapped}. Only the file and the position of the grid
+     * in that file are serialized. On deserialization, the file is loaded again by {@link NTv2#getOrLoad(Path)}
+     * (which may return a cached instance) and the grid at the recorded position is returned.
+     */
+    private static final class Serialized implements Serializable {
+        /**
+         * Serial number for inter-operability with different versions.
+         */
+        private static final long serialVersionUID = -3870581452617358417L;
+
+        /**
+         * The file from which the grid has been mapped, as given to {@link NTv2#getOrLoad(Path)}.
+         */
+        private final String file;
+
+        /**
+         * Position in the file of the first byte of the mapped grid.
+         */
+        private final long offset;
+
+        /**
+         * Creates a new proxy for the grid at the given position in the given file.
+         */
+        Serialized(final String file, final long offset) {
+            this.file   = file;
+            this.offset = offset;
+        }
+
+        /**
+         * Returns the grid at the serialized position, loading the file if needed.
+         *
+         * @return the deserialized grid.
+         * @throws ObjectStreamException if the file can not be loaded or does not contain the grid anymore.
+         */
+        private Object readResolve() throws ObjectStreamException {
+            final DatumShiftGridFile<?,?> grid;
+            try {
+                grid = NTv2.getOrLoad(Paths.get(file));
+            } catch (FactoryException e) {
+                throw (InvalidObjectException) new InvalidObjectException(e.getLocalizedMessage()).initCause(e);
+            }
+            if (isMapped(grid)) {
+                return grid;
+            }
+            for (final DatumShiftGridFile<?,?> subgrid : grid.subgrids.values()) {
+                if (isMapped(subgrid)) {
+                    return subgrid;
+                }
+            }
+            throw new InvalidObjectException(Errors.format(Errors.Keys.CanNotRead_1, file));
+        }
+
+        /**
+         * Returns {@code true} if the given grid is mapped from the serialized position.
+         */
+        private boolean isMapped(final DatumShiftGridFile<?,?> grid) {
+            return (grid instanceof DatumShiftGridMapped<?,?>) && ((DatumShiftGridMapped<?,?>) grid).offset == offset;
+        }
+    }
+}
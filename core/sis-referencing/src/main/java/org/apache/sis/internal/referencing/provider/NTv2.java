@@ -17,7 +17,9 @@
 package org.apache.sis.internal.referencing.provider;
 
 import java.util.Map;
+import java.util.Set;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Arrays;
 import java.util.Locale;
@@ -26,14 +28,17 @@ import java.util.logging.LogRecord;
 import java.io.IOException;
 import java.nio.ByteOrder;
 import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
 import javax.xml.bind.annotation.XmlTransient;
 import javax.measure.Unit;
+import javax.measure.UnitConverter;
 import javax.measure.quantity.Angle;
 import org.opengis.util.FactoryException;
+import org.opengis.geometry.Envelope;
 import org.opengis.parameter.ParameterValueGroup;
 import org.opengis.parameter.ParameterDescriptor;
 import org.opengis.parameter.ParameterDescriptorGroup;
@@ -43,6 +48,8 @@ import org.opengis.referencing.operation.MathTransformFactory;
 import org.opengis.referencing.operation.Transformation;
 import org.opengis.referencing.operation.NoninvertibleTransformException;
 import org.apache.sis.referencing.operation.transform.InterpolatedTransform;
+import org.apache.sis.referencing.operation.transform.MathTransforms;
+import org.apache.sis.geometry.GeneralEnvelope;
 import org.apache.sis.internal.system.Loggers;
 import org.apache.sis.internal.system.DataDirectory;
 import org.apache.sis.internal.referencing.Formulas;
@@ -125,7 +132,34 @@ public final class NTv2 extends AbstractProvider {
             throws ParameterNotFoundException, FactoryException
     {
         final Parameters pg = Parameters.castOrWrap(values);
-        return InterpolatedTransform.createGeodeticTransformation(factory, getOrLoad(pg.getMandatoryValue(FILE)));
+        final Path file = pg.getMandatoryValue(FILE);
+        final DatumShiftGridFile<Angle,Angle> grid = getOrLoad(file);
+        final MathTransform global = InterpolatedTransform.createGeodeticTransformation(factory, grid);
+        if (grid.subgrids.isEmpty()) {
+            return global;
+        }
+        /*
+         * If the file contains many grids, use the first one everywhere except in the domains of other grids.
+         * The most specialized grid for each point is selected by the transform created by MathTransforms,
+         * which infers the parent/child hierarchy from the nesting of domains and groups consecutive points
+         * falling in the same sub-grid. Domains are converted from the file unit to the degrees expected by
+         * InterpolatedTransform.
+         */
+        final UnitConverter uc = grid.getCoordinateUnit().getConverterTo(Units.DEGREE);
+        final Map<Envelope,MathTransform> specializations = new LinkedHashMap<>();
+        for (final Map.Entry<Envelope, DatumShiftGridFile<Angle,Angle>> entry : grid.subgrids.entrySet()) {
+            final Envelope domain = entry.getKey();
+            final GeneralEnvelope degrees = new GeneralEnvelope(2);
+            for (int i=0; i<2; i++) {
+                degrees.setRange(i, uc.convert(domain.getMinimum(i)), uc.convert(domain.getMaximum(i)));
+            }
+            specializations.put(degrees, InterpolatedTransform.createGeodeticTransformation(factory, entry.getValue()));
+        }
+        try {
+            return MathTransforms.specialize(global, specializations);
+        } catch (IllegalArgumentException e) {
+            throw DatumShiftGridLoader.canNotLoad("NTv2", file, e);
+        }
     }
 
     /**
@@ -146,7 +180,7 @@ public final class NTv2 extends AbstractProvider {
                     try (ReadableByteChannel in = Files.newByteChannel(resolved)) {
                         DatumShiftGridLoader.log(NTv2.class, file);
                         final Loader loader = new Loader(in, file);
-                        grid = loader.readGrid();
+                        grid = loader.readAllGrids();
                         loader.reportWarnings();
                     } catch (IOException | NoninvertibleTransformException | RuntimeException e) {
                         throw DatumShiftGridLoader.canNotLoad("NTv2", file, e);
@@ -270,23 +304,51 @@ public final class NTv2 extends AbstractProvider {
         }
 
         /**
-         * Reads the next grid, starting at the current position. A NTv2 file can have many grids.
-         * This can be used for grids having different resolutions depending on the geographic area.
-         * The first grid can cover a large area with a coarse resolution, and next grids cover smaller
-         * areas overlapping the first grid but with finer resolution.
-         *
-         * Current SIS implementation does not yet handle the above-cited hierarchy of grids.
-         * For now we just take the first one.
+         * Reads all grids in the file. A NTv2 file can have many grids. This can be used for grids having
+         * different resolutions depending on the geographic area. The first grid can cover a large area
+         * with a coarse resolution, and next grids cover smaller areas overlapping the first grid but with
+         * finer resolution. This method returns the first grid with all other grids stored in the
+         * {@link DatumShiftGridFile#subgrids} map.
+         */
+        final DatumShiftGridFile<Angle,Angle> readAllGrids() throws IOException, FactoryException, NoninvertibleTransformException {
+            final Set<String> names = new HashSet<>();
+            final DatumShiftGridFile<Angle,Angle> grid = readGrid(names, null);
+            if (remainingGrids != 0) {
+                final Map<Envelope, DatumShiftGridFile<Angle,Angle>> subgrids = new LinkedHashMap<>();
+                do readGrid(names, subgrids);
+                while (remainingGrids != 0);
+                grid.subgrids = subgrids;
+            }
+            return grid;
+        }
+
+        /**
+         * Reads the next grid, starting at the current position. The {@code "PARENT"} record, if present,
+         * shall be {@code "NONE"} or the {@code "SUB_NAME"} of a grid read before the current one.
          *
          * <p>NTv2 grids contain also information about shifts accuracy. This is not yet handled by SIS,
          * except for determining an approximate grid cell resolution.</p>
+         *
+         * @param  names     names of the grids read so far. The name of the new grid will be added to this set.
+         * @param  subgrids  where to add the grid together with its domain, or {@code null} if none.
          */
-        final DatumShiftGridFile<Angle,Angle> readGrid() throws IOException, FactoryException, NoninvertibleTransformException {
+        private DatumShiftGridFile<Angle,Angle> readGrid(final Set<String> names,
+                final Map<Envelope, DatumShiftGridFile<Angle,Angle>> subgrids)
+                throws IOException, FactoryException, NoninvertibleTransformException
+        {
             if (--remainingGrids < 0) {
                 throw new FactoryException(Errors.format(Errors.Keys.CanNotRead_1, file));
             }
             final Object[] overviewKeys = header.keySet().toArray();
             readHeader((Integer) get("NUM_SREC"), "NUM_SREC");
+            final Object parent = header.get("PARENT");
+            if (parent != null && !"NONE".equalsIgnoreCase((String) parent) && !names.contains(parent)) {
+                throw new FactoryException(Errors.format(Errors.Keys.UnexpectedValueInElement_2, "PARENT", parent));
+            }
+            final Object subName = header.get("SUB_NAME");
+            if (subName != null) {
+                names.add((String) subName);
+            }
             /*
              * Extract the geographic bounding box and cell size. While different units are allowed,
              * in practice we usually have seconds of angle. This units has the advantage of allowing
@@ -330,18 +392,41 @@ public final class NTv2 extends AbstractProvider {
              * free us from reversing the sign of longitude translations in the code below; instead, this reversal
              * will be handled by grid.coordinateToGrid MathTransform and its inverse.
              */
-            final DatumShiftGridFile.Float<Angle,Angle> grid = new DatumShiftGridFile.Float<>(2,
-                    unit, unit, true, -xmin, ymin, -dx, dy, width, height, PARAMETERS, file);
-            @SuppressWarnings("MismatchedReadAndWriteOfArray") final float[] tx = grid.offsets[0];
-            @SuppressWarnings("MismatchedReadAndWriteOfArray") final float[] ty = grid.offsets[1];
-            for (int i=0; i<count; i++) {
-                ensureBufferContains(4 * Float.BYTES);
-                ty[i] = (float) (buffer.getFloat() / dy);   // Division by dx and dy because isCellValueRatio = true.
-                tx[i] = (float) (buffer.getFloat() / dx);
-                final double accuracy = Math.min(buffer.getFloat() / dy, buffer.getFloat() / dx);
-                if (accuracy > 0 && !(accuracy >= grid.accuracy)) {   // Use '!' for replacing the initial NaN.
-                    grid.accuracy = accuracy;                         // Smallest non-zero accuracy.
+            final DatumShiftGridFile<Angle,Angle> grid;
+            final long offset = position();
+            final ByteBuffer mapped = (count >= MAPPING_THRESHOLD) ? map(Math.multiplyExact(count, RECORD_LENGTH)) : null;
+            if (mapped != null) {
+                /*
+                 * For large grids, read the values directly from the file mapped in memory. Each record is made of
+                 * 4 floats: latitude shift, longitude shift, latitude accuracy and longitude accuracy. We only need
+                 * to scan the accuracy values; the shifts will be read when needed.
+                 */
+                final FloatBuffer records = mapped.asFloatBuffer();
+                grid = new DatumShiftGridMapped<>(unit, unit, true, -xmin, ymin, -dx, dy, width, height, PARAMETERS,
+                        new FloatBuffer[] {DatumShiftGridMapped.view(records, 1), DatumShiftGridMapped.view(records, 0)},
+                        new double[] {1 / dx, 1 / dy}, 4, 4 * width, file, offset);
+                for (int i=0; i<count; i++) {
+                    final int p = 4*i + 2;
+                    final double accuracy = Math.min(records.get(p) / dy, records.get(p+1) / dx);
+                    if (accuracy > 0 && !(accuracy >= grid.accuracy)) {   // Use '!' for replacing the initial NaN.
+                        grid.accuracy = accuracy;                         // Smallest non-zero accuracy.
+                    }
                 }
+            } else {
+                final DatumShiftGridFile.Float<Angle,Angle> array = new DatumShiftGridFile.Float<>(2,
+                        unit, unit, true, -xmin, ymin, -dx, dy, width, height, PARAMETERS, file);
+                @SuppressWarnings("MismatchedReadAndWriteOfArray") final float[] tx = array.offsets[0];
+                @SuppressWarnings("MismatchedReadAndWriteOfArray") final float[] ty = array.offsets[1];
+                for (int i=0; i<count; i++) {
+                    ensureBufferContains(4 * Float.BYTES);
+                    ty[i] = (float) (buffer.getFloat() / dy);   // Division by dx and dy because isCellValueRatio = true.
+                    tx[i] = (float) (buffer.getFloat() / dx);
+                    final double accuracy = Math.min(buffer.getFloat() / dy, buffer.getFloat() / dx);
+                    if (accuracy > 0 && !(accuracy >= array.accuracy)) {  // Use '!' for replacing the initial NaN.
+                        array.accuracy = accuracy;                        // Smallest non-zero accuracy.
+                    }
+                }
+                grid = array;
             }
             /*
              * We need an estimation of translation accuracy, in order to decide when to stop iterations
@@ -353,7 +438,18 @@ public final class NTv2 extends AbstractProvider {
                 grid.accuracy = Units.DEGREE.getConverterTo(unit).convert(Formulas.ANGULAR_TOLERANCE) / size;
             }
             header.keySet().retainAll(Arrays.asList(overviewKeys));   // Keep only overview records.
-            return DatumShiftGridCompressed.compress(grid, null, precision / size);
+            final DatumShiftGridFile<Angle,Angle> compressed = (mapped != null) ? grid
+                    : DatumShiftGridCompressed.compress((DatumShiftGridFile.Float<Angle,Angle>) grid, null, precision / size);
+            if (subgrids != null) {
+                /*
+                 * Domain of the grid in "real world" coordinates with longitudes increasing toward East.
+                 * We use the values declared in the header instead than computing them from the grid
+                 * geometry in order to have exactly the same values on borders shared by two grids.
+                 */
+                subgrids.put(new GeneralEnvelope(new double[] {-xmax, ymin},
+                                                 new double[] {-xmin, ymax}), compressed);
+            }
+            return compressed;
         }
 
         /**
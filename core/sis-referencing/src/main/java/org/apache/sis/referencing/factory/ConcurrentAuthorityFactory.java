@@ -23,6 +23,10 @@ import java.util.Deque;
 import java.util.Iterator;
 import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.LinkedHashSet;
+import java.util.HashSet;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.WeakHashMap;
 import java.util.IdentityHashMap;
 import java.util.concurrent.Callable;
@@ -32,6 +36,21 @@ import java.util.logging.Level;
 import java.lang.ref.WeakReference;
 import java.lang.ref.PhantomReference;
 import java.io.PrintWriter;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.InvalidClassException;
+import java.io.ObjectStreamClass;
+import java.io.ObjectStreamException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.lang.reflect.Method;
 import javax.measure.Unit;
 import org.opengis.referencing.cs.*;
@@ -47,6 +66,7 @@ import org.opengis.metadata.citation.Citation;
 import org.opengis.parameter.ParameterDescriptor;
 import org.apache.sis.util.Classes;
 import org.apache.sis.util.Debug;
+import org.apache.sis.util.Version;
 import org.apache.sis.util.Disposable;
 import org.apache.sis.util.ArgumentChecks;
 import org.apache.sis.util.logging.Logging;
@@ -94,8 +114,14 @@ import org.apache.sis.util.resources.Messages;
  * {@link CRSAuthorityFactory} and {@link CoordinateOperationAuthorityFactory} interfaces.
  * Subclasses should select the interfaces that they choose to implement.
  *
+ * <div class="section">Snapshots</div>
+ * Applications that resolve the same objects at every start can {@linkplain #saveSnapshot(Path) save}
+ * the cache content in a file before shutdown, then {@linkplain #loadSnapshot(Path) load} that file at
+ * next start. This avoids the database queries for all objects found in the snapshot.
+ * This mechanism is opt-in: no snapshot is read or written unless one of above-cited methods is invoked.
+ *
  * @author  Martin Desruisseaux (IRD, Geomatys)
- * @version 0.8
+ * @version 1.0
  *
  * @param <DAO>  the type of factory used as Data Access Object (DAO).
  *
@@ -1992,6 +2018,218 @@ public abstract class ConcurrentAuthorityFactory<DAO extends GeodeticAuthorityFa
         CacheRecord.printCacheContent(cache, out);
     }
 
+    /**
+     * Version number of the format written by {@link #saveSnapshot(Path)}.
+     * Shall be incremented every time that the file format changes.
+     */
+    private static final int SNAPSHOT_FORMAT = 2;
+
+    /**
+     * Returns a string identifying the authority dataset, used for detecting obsolete snapshots.
+     * For the EPSG factory, this string contains the version of the EPSG geodetic dataset.
+     *
+     * @return the authority title and edition, or {@code null} if the authority is unavailable.
+     */
+    private String snapshotVersion() {
+        final Citation c = getAuthority();
+        if (c == null) {
+            return null;
+        }
+        final StringBuilder buffer = new StringBuilder().append(c.getTitle());
+        final InternationalString edition = c.getEdition();
+        if (edition != null) {
+            buffer.append(' ').append(edition);
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Writes all objects currently in the cache to the given file. The file can be read at next startup by
+     * {@link #loadSnapshot(Path)} for populating the cache without querying the Data Access Object.
+     * The snapshot is tagged with the {@linkplain #getAuthority() authority} edition (for example the
+     * EPSG dataset version) and the Apache SIS version, so obsolete snapshots can be detected at loading time.
+     *
+     * <p>Objects that are not serializable are omitted from the snapshot. The sets of coordinate operations
+     * created by {@link #createFromCoordinateReferenceSystemCodes(String, String)} are included; this may cause
+     * the creation of operations not yet instantiated if the set was lazy.</p>
+     *
+     * @param  file  the file where to write the snapshot. Existing file will be overwritten.
+     * @return number of objects written in the snapshot.
+     * @throws IOException if an error occurred while writing the file.
+     *
+     * @since 1.0
+     */
+    public int saveSnapshot(final Path file) throws IOException {
+        ArgumentChecks.ensureNonNull("file", file);
+        final String version = snapshotVersion();
+        if (version == null) {
+            return 0;
+        }
+        /*
+         * Serialize each entry in its own array of bytes, so an entry that can not be serialized can be skipped
+         * without corrupting the file. Each entry is a separated serialization stream, which also allows
+         * loadSnapshot(Path) to verify the classes of each entry before to deserialize it.
+         */
+        final List<String> codes  = new ArrayList<>(cache.size());
+        final List<byte[]> values = new ArrayList<>(cache.size());
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (Map.Entry<Key,Object> entry : cache.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof Set<?> && !(value instanceof Serializable)) try {
+                value = Collections.unmodifiableSet(new LinkedHashSet<>((Set<?>) value));
+            } catch (RuntimeException e) {
+                Logging.recoverableException(Logging.getLogger(Loggers.CRS_FACTORY),
+                        ConcurrentAuthorityFactory.class, "saveSnapshot", e);
+                continue;
+            }
+            if (value instanceof Serializable) {
+                bytes.reset();
+                try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                    out.writeObject(entry.getKey().type);
+                    out.writeObject(value);
+                } catch (ObjectStreamException | RuntimeException e) {
+                    Logging.recoverableException(Logging.getLogger(Loggers.CRS_FACTORY),
+                            ConcurrentAuthorityFactory.class, "saveSnapshot", e);
+                    continue;
+                }
+                codes .add(entry.getKey().code);
+                values.add(bytes.toByteArray());
+            }
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(SNAPSHOT_FORMAT);
+            out.writeUTF(Version.SIS.toString());
+            out.writeUTF(version);
+            out.writeInt(codes.size());
+            for (int i=0; i<codes.size(); i++) {
+                final byte[] value = values.get(i);
+                out.writeUTF(codes.get(i));
+                out.writeInt(value.length);
+                out.write(value);
+            }
+        }
+        return codes.size();
+    }
+
+    /**
+     * Populates the cache with the objects saved by a previous call to {@link #saveSnapshot(Path)}.
+     * If the snapshot has been written by another Apache SIS version, or for another edition of the
+     * {@linkplain #getAuthority() authority} dataset, then the snapshot is ignored and this method returns 0.
+     * Objects already in the cache are not replaced.
+     *
+     * <p>The snapshot is read with Java deserialization restricted to Apache SIS and GeoAPI classes,
+     * together with a few value types and collections of the standard Java library.
+     * Any other class in the file causes an {@link InvalidClassException} to be thrown.</p>
+     *
+     * @param  file  the file to read.
+     * @return number of objects loaded from the snapshot, or 0 if the snapshot is obsolete.
+     * @throws InvalidClassException if the file contains a class which is not allowed in a snapshot.
+     * @throws IOException if an error occurred while reading the file.
+     *
+     * @since 1.0
+     */
+    public int loadSnapshot(final Path file) throws IOException {
+        ArgumentChecks.ensureNonNull("file", file);
+        int count = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != SNAPSHOT_FORMAT || !Version.SIS.toString().equals(in.readUTF())) {
+                return 0;
+            }
+            final String version = in.readUTF();
+            if (!version.equals(snapshotVersion())) {
+                return 0;
+            }
+            for (int n = in.readInt(); --n >= 0;) {
+                final String code  = in.readUTF();
+                final byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                final Object type, value;
+                try (ObjectInputStream entry = new SnapshotInput(new ByteArrayInputStream(bytes))) {
+                    type  = entry.readObject();
+                    value = entry.readObject();
+                }
+                if (cache.putIfAbsent(new Key(type, code), value) == null) {
+                    count++;
+                }
+            }
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+        return count;
+    }
+
+    /**
+     * The stream used by {@link #loadSnapshot(Path)} for deserializing the entries of a snapshot.
+     * This stream accepts only the classes that may appear in objects created by authority factories:
+     * Apache SIS and GeoAPI classes, arrays, and a few value types and collections from the standard
+     * Java library. Any other class is rejected before it is loaded, so a tampered snapshot can not
+     * cause the execution of code in arbitrary serializable classes.
+     */
+    private static final class SnapshotInput extends ObjectInputStream {
+        /**
+         * Classes of the standard Java library allowed in a snapshot, in addition to the classes
+         * in the packages accepted by {@link #isAllowed(String)}.
+         */
+        private static final Set<String> JAVA_CLASSES = new HashSet<>(Arrays.asList(
+                "java.lang.Boolean", "java.lang.Byte",  "java.lang.Short",  "java.lang.Integer",
+                "java.lang.Long",    "java.lang.Float", "java.lang.Double", "java.lang.Character",
+                "java.lang.Number",  "java.lang.Enum",  "java.lang.String", "java.lang.Object",
+                "java.util.ArrayList",     "java.util.Arrays$ArrayList",
+                "java.util.HashMap",       "java.util.LinkedHashMap", "java.util.TreeMap",
+                "java.util.HashSet",       "java.util.LinkedHashSet", "java.util.TreeSet",
+                "java.util.EnumSet$SerializationProxy",
+                "java.util.Date",          "java.util.Locale",        "java.util.UUID",
+                "java.net.URI",            "java.time.Ser"));
+
+        /**
+         * Creates a new stream reading the given bytes.
+         */
+        SnapshotInput(final ByteArrayInputStream in) throws IOException {
+            super(in);
+        }
+
+        /**
+         * Returns {@code true} if the class of the given name is allowed in a snapshot.
+         * Array types are allowed if their component type is allowed.
+         */
+        private static boolean isAllowed(String name) {
+            int i = 0;
+            while (name.charAt(i) == '[') i++;
+            if (i != 0) {
+                if (name.length() == i + 1) {
+                    return true;                                // Array of primitive type.
+                }
+                if (name.charAt(i) != 'L' || !name.endsWith(";")) {
+                    return false;
+                }
+                name = name.substring(i + 1, name.length() - 1);
+            }
+            return name.startsWith("org.apache.sis.") || name.startsWith("org.opengis.")
+                    || name.startsWith("java.util.Collections$") || JAVA_CLASSES.contains(name);
+        }
+
+        /**
+         * Loads the class of the given description if allowed, or throws an exception otherwise.
+         */
+        @Override
+        protected Class<?> resolveClass(final ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            final String name = desc.getName();
+            if (!isAllowed(name)) {
+                throw new InvalidClassException(name, Errors.format(Errors.Keys.UnsupportedType_1, name));
+            }
+            return super.resolveClass(desc);
+        }
+
+        /**
+         * Rejects all proxy classes, since authority factories do not serialize proxies.
+         */
+        @Override
+        protected Class<?> resolveProxyClass(final String[] interfaces) throws IOException {
+            throw new InvalidClassException(Arrays.toString(interfaces),
+                    Errors.format(Errors.Keys.UnsupportedType_1, "Proxy"));
+        }
+    }
+
     /**
      * A hook to be executed either when the {@link ConcurrentAuthorityFactory} is collected by the garbage collector,
      * when the Java Virtual Machine is shutdown, or when the module is uninstalled by the OSGi or Servlet container.
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.referencing.operation;
+
+import java.util.Arrays;
+import org.opengis.metadata.extent.Extent;
+import org.opengis.metadata.extent.GeographicBoundingBox;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.apache.sis.metadata.iso.extent.DefaultGeographicBoundingBox;
+import org.apache.sis.metadata.iso.extent.Extents;
+
+
+/**
+ * A pair of source-destination {@link CoordinateReferenceSystem} objects together with an area of interest
+ * and a desired accuracy. Used as key in the cache of operations found for a given context.
+ *
+ * <p>The geographic area of interest is expanded to integer numbers of {@linkplain #QUANTUM quantum},
+ * so that requests for nearby areas (for example successive tiles in a map) share the same key.
+ * The operation is searched using that expanded area, which ensure that the cached value depends
+ * only on the key.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+final class ContextualCRSPair {
+    /**
+     * Size in degrees of the cells on which the area of interest is aligned.
+     */
+    static final double QUANTUM = 1;
+
+    /**
+     * The source and target CRS.
+     */
+    private final CRSPair crs;
+
+    /**
+     * The expanded area of interest as (west, east, south, north) bounds, or {@code null} if none.
+     */
+    private final double[] bounds;
+
+    /**
+     * The desired accuracy in metres, or 0 for the best accuracy available.
+     */
+    private final double accuracy;
+
+    /**
+     * The context to use for searching the coordinate operation. Contains the expanded area of interest.
+     * This field is not part of the key.
+     */
+    final CoordinateOperationContext context;
+
+    /**
+     * Creates a new key for the given CRS and expanded area of interest.
+     */
+    private ContextualCRSPair(final CRSPair crs, final double[] bounds, final double accuracy) {
+        this.crs      = crs;
+        this.bounds   = bounds;
+        this.accuracy = accuracy;
+        context = new CoordinateOperationContext();
+        if (bounds != null) {
+            context.setAreaOfInterest(new DefaultGeographicBoundingBox(bounds[0], bounds[1], bounds[2], bounds[3]));
+        }
+        context.setDesiredAccuracy(accuracy);
+    }
+
+    /**
+     * Returns a key for the given CRS and context, or {@code null} if the result of a search in the given context
+     * can not be cached. This is the case when the area of interest has vertical or temporal components, or when
+     * the context has a filter on the operations.
+     *
+     * @param  sourceCRS  input coordinate reference system.
+     * @param  targetCRS  output coordinate reference system.
+     * @param  context    area of interest and desired accuracy.
+     * @return the key, or {@code null} if the operation should not be cached.
+     */
+    static ContextualCRSPair create(final CoordinateReferenceSystem sourceCRS,
+                                    final CoordinateReferenceSystem targetCRS,
+                                    final CoordinateOperationContext context)
+    {
+        if (context.getOperationFilter() != null) {
+            return null;
+        }
+        double[] bounds = null;
+        final Extent area = context.getAreaOfInterest();
+        if (area != null) {
+            if (!area.getVerticalElements().isEmpty() || !area.getTemporalElements().isEmpty()) {
+                return null;
+            }
+            final GeographicBoundingBox bbox = Extents.getGeographicBoundingBox(area);
+            if (bbox != null) {
+                bounds = new double[] {
+                    Math.max(-180, Math.floor(bbox.getWestBoundLongitude() / QUANTUM) * QUANTUM),
+                    Math.min(+180, Math.ceil (bbox.getEastBoundLongitude() / QUANTUM) * QUANTUM),
+                    Math.max( -90, Math.floor(bbox.getSouthBoundLatitude() / QUANTUM) * QUANTUM),
+                    Math.min( +90, Math.ceil (bbox.getNorthBoundLatitude() / QUANTUM) * QUANTUM)
+                };
+                for (final double value : bounds) {
+                    if (Double.isNaN(value)) return null;
+                }
+            } else if (!area.getGeographicElements().isEmpty()) {
+                return null;
+            }
+        }
+        return new ContextualCRSPair(new CRSPair(sourceCRS, targetCRS), bounds, context.getDesiredAccuracy());
+    }
+
+    /**
+     * Returns the hash code value.
+     */
+    @Override
+    public int hashCode() {
+        return crs.hashCode() + 31 * Arrays.hashCode(bounds) + Double.hashCode(accuracy);
+    }
+
+    /**
+     * Compares this key to the specified object for equality.
+     */
+    @Override
+    public boolean equals(final Object object) {
+        if (object instanceof ContextualCRSPair) {
+            final ContextualCRSPair that = (ContextualCRSPair) object;
+            return crs.equals(that.crs) && Arrays.equals(bounds, that.bounds) &&
+                   Double.doubleToLongBits(accuracy) == Double.doubleToLongBits(that.accuracy);
+        }
+        return false;
+    }
+
+    /**
+     * Returns a string representation of this key.
+     */
+    @Override
+    public String toString() {
+        return crs + " in " + Arrays.toString(bounds);
+    }
+}
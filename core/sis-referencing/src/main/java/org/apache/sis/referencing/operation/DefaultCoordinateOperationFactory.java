@@ -148,13 +148,23 @@ public class DefaultCoordinateOperationFactory extends AbstractFactory implement
 
     /**
      * The cache of coordinate operations found for a given pair of source and target CRS.
-     * If current implementation, we cache only operations found without context (otherwise
-     * we would need to take in account the area of interest and desired accuracy in the key).
+     * This cache contains only operations found without context. Operations found for a
+     * given area of interest and desired accuracy are cached in {@link #contextualCache}.
      *
      * @see #createOperation(CoordinateReferenceSystem, CoordinateReferenceSystem, CoordinateOperationContext)
      */
     final Cache<CRSPair,CoordinateOperation> cache;
 
+    /**
+     * The cache of coordinate operations found for a given pair of source and target CRS in a given context.
+     * The area of interest in the keys is expanded to integer degrees, so requests for nearby areas share
+     * the same entry. This is a separated cache for avoiding that a large amount of areas of interest evict
+     * the operations found without context.
+     *
+     * @see #createOperation(CoordinateReferenceSystem, CoordinateReferenceSystem, CoordinateOperationContext)
+     */
+    private final Cache<ContextualCRSPair,CoordinateOperation> contextualCache;
+
     /**
      * Constructs a factory with no default properties.
      */
@@ -200,6 +210,7 @@ public class DefaultCoordinateOperationFactory extends AbstractFactory implement
         }
         pool = new WeakHashSet<>(IdentifiedObject.class);
         cache = new Cache<>(12, 50, true);
+        contextualCache = new Cache<>(12, 100, true);
     }
 
     /**
@@ -761,7 +772,10 @@ next:   for (int i=components.size(); --i >= 0;) {
      *
      * <p>The default implementation performs the following steps:</p>
      * <ul>
-     *   <li>If a coordinate operation has been previously cached for the given CRS and context, return it.</li>
+     *   <li>If a coordinate operation has been previously cached for the given CRS and context, return it.
+     *       For the purpose of this cache, the geographic area of interest is expanded to integer degrees.
+     *       The operation search uses that expanded area, so nearby areas of interest may share the same
+     *       operation.</li>
      *   <li>Otherwise:
      *     <ol>
      *       <li>Invoke {@link #createOperationFinder(CoordinateOperationAuthorityFactory, CoordinateOperationContext)}.</li>
@@ -788,7 +802,7 @@ next:   for (int i=components.size(); --i >= 0;) {
      */
     public CoordinateOperation createOperation(final CoordinateReferenceSystem sourceCRS,
                                                final CoordinateReferenceSystem targetCRS,
-                                               final CoordinateOperationContext context)
+                                               CoordinateOperationContext context)
             throws OperationNotFoundException, FactoryException
     {
         final Cache.Handler<CoordinateOperation> handler;
@@ -801,9 +815,19 @@ next:   for (int i=components.size(); --i >= 0;) {
             }
             handler = cache.lock(key);
         } else {
-            // We currently do not cache the operation when the result may depend on the context (see 'this.cache' javadoc).
-            handler = null;
-            op = null;
+            final ContextualCRSPair key = ContextualCRSPair.create(sourceCRS, targetCRS, context);
+            if (key != null) {
+                op = contextualCache.peek(key);
+                if (op != null) {
+                    return op;
+                }
+                handler = contextualCache.lock(key);
+                context = key.context;                  // Context with the expanded area of interest.
+            } else {
+                // Can not cache the operation when the result depends on a context that we can not use as a key.
+                handler = null;
+                op = null;
+            }
         }
         try {
             if (handler == null || (op = handler.peek()) == null) {
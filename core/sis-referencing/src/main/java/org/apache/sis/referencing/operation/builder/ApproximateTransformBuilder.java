@@ -0,0 +1,504 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.referencing.operation.builder;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.List;
+import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import org.opengis.util.FactoryException;
+import org.opengis.geometry.Envelope;
+import org.opengis.geometry.MismatchedDimensionException;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.MathTransform2D;
+import org.opengis.referencing.operation.MathTransformFactory;
+import org.opengis.referencing.operation.TransformException;
+import org.apache.sis.referencing.operation.transform.InterpolatedTransform;
+import org.apache.sis.referencing.operation.transform.MathTransforms;
+import org.apache.sis.referencing.operation.matrix.Matrix3;
+import org.apache.sis.internal.referencing.Resources;
+import org.apache.sis.internal.system.Loggers;
+import org.apache.sis.util.ArgumentChecks;
+import org.apache.sis.util.logging.Logging;
+import org.apache.sis.util.resources.Errors;
+
+
+/**
+ * Creates an approximation of a two-dimensional transform, with errors not greater than a given tolerance
+ * inside a given domain. The approximation is backed by a grid of localization computed by
+ * {@link LocalizationGridBuilder}: the exact transform is evaluated only at grid nodes, and other
+ * positions are computed by a linear transform completed by bilinear interpolations of the residuals
+ * in an {@link InterpolatedTransform}. This is much faster than the exact transform when the latter is a
+ * chain of map projections and datum shifts, which is useful for raster reprojection or map rendering
+ * where an accuracy of a fraction of pixel is sufficient.
+ *
+ * <p>The grid resolution is determined adaptively. This builder starts with a coarse grid, then compares
+ * the bilinear interpolation of each cell corners with the exact transform at the middle of the cell edges
+ * and at the cell center. Only the cells where the error exceeds the tolerance are subdivided, along the axes
+ * where the error is too large, and the process is repeated until all cells meet the tolerance or a cell can
+ * not be subdivided without exceeding the {@linkplain #setMaximumGridSize maximal grid size}. In the later case,
+ * a warning is logged and the exact transform is returned unchanged. The exact transform is evaluated only at
+ * the corners and test points of the cells actually created; other nodes of the final grid are interpolated
+ * in the cell containing them.</p>
+ *
+ * <p>The approximation is valid only inside the domain given at construction time.
+ * Positions outside that domain are extrapolated without guaranteed accuracy.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ *
+ * @see LocalizationGridBuilder
+ * @see InterpolatedTransform
+ *
+ * @since 1.0
+ * @module
+ */
+public class ApproximateTransformBuilder extends TransformBuilder {
+    /**
+     * Number of grid nodes along each axis in the first iteration.
+     */
+    static final int INITIAL_GRID_SIZE = 5;
+
+    /**
+     * Default value of {@link #maximumGridSize}. This value allows up to 10 subdivisions of the initial grid,
+     * for a grid of about one million nodes.
+     */
+    static final int DEFAULT_MAXIMUM_GRID_SIZE = 1025;
+
+    /**
+     * Maximal number of subdivisions of the initial grid cells, regardless the {@linkplain #maximumGridSize
+     * maximal grid size}. This limit ensures that lattice positions in {@link Refinement} fit in an integer.
+     */
+    private static final int MAXIMUM_DEPTH = 24;
+
+    /**
+     * The exact transform to approximate.
+     */
+    private final MathTransform2D transform;
+
+    /**
+     * The domain of source coordinates where the approximation shall meet the tolerance.
+     */
+    private final double xmin, ymin, xspan, yspan;
+
+    /**
+     * The maximal error allowed in the domain, in units of target coordinates.
+     */
+    private final double tolerance;
+
+    /**
+     * Maximal number of grid nodes along each axis.
+     *
+     * @see #getMaximumGridSize()
+     */
+    private int maximumGridSize;
+
+    /**
+     * Creates a new builder for approximating the given transform in the given domain.
+     *
+     * @param  transform  the exact transform to approximate.
+     * @param  domain     the domain of source coordinates where the approximation shall meet the tolerance.
+     * @param  tolerance  the maximal error allowed in the domain, in units of target coordinates.
+     * @throws MismatchedDimensionException if the domain is not two-dimensional.
+     * @throws IllegalArgumentException if the domain is empty or if the tolerance is not strictly positive.
+     */
+    public ApproximateTransformBuilder(final MathTransform2D transform, final Envelope domain, final double tolerance) {
+        ArgumentChecks.ensureNonNull("transform", transform);
+        ArgumentChecks.ensureNonNull("domain", domain);
+        ArgumentChecks.ensureDimensionMatches("domain", 2, domain);
+        ArgumentChecks.ensureStrictlyPositive("tolerance", tolerance);
+        this.transform  = transform;
+        this.tolerance  = tolerance;
+        xmin  = domain.getMinimum(0);
+        ymin  = domain.getMinimum(1);
+        xspan = domain.getSpan(0);
+        yspan = domain.getSpan(1);
+        if (!(xspan > 0 && yspan > 0)) {
+            throw new IllegalArgumentException(Errors.format(Errors.Keys.EmptyEnvelope2D));
+        }
+        maximumGridSize = DEFAULT_MAXIMUM_GRID_SIZE;
+    }
+
+    /**
+     * Sets the maximal number of grid nodes along each axis. If the tolerance can not be met
+     * with a grid of that size, then {@link #create(MathTransformFactory)} returns the exact transform.
+     *
+     * @param  size  maximal number of grid nodes along each axis. Shall be at least 2.
+     */
+    public void setMaximumGridSize(final int size) {
+        ArgumentChecks.ensureBetween("size", 2, Integer.MAX_VALUE, size);
+        maximumGridSize = size;
+    }
+
+    /**
+     * Returns the maximal number of grid nodes along each axis.
+     * This is the value set by the last call to {@link #setMaximumGridSize(int)}.
+     *
+     * @return maximal number of grid nodes along each axis.
+     */
+    public int getMaximumGridSize() {
+        return maximumGridSize;
+    }
+
+    /**
+     * Returns the maximal error allowed in the domain, in units of target coordinates.
+     *
+     * @return the maximal error allowed in the domain.
+     */
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * Creates an approximation of the transform given at construction time. The returned transform
+     * may be an instance of {@link InterpolatedTransform} concatenated with linear transforms, a linear
+     * transform if the exact transform is close enough to an affine one, or the exact transform itself
+     * if the tolerance can not be met with a grid of the {@linkplain #getMaximumGridSize() maximal size}.
+     * The later case is logged as a warning, and callers can detect it by checking if the returned
+     * transform is the instance given at construction time.
+     *
+     * @param  factory  the factory to use for creating the transform, or {@code null} for the default factory.
+     * @return an approximation of the transform given at construction time.
+     * @throws FactoryException if the transform can not be created, for example because
+     *         the exact transform failed at some points in the domain.
+     */
+    @Override
+    public MathTransform create(final MathTransformFactory factory) throws FactoryException {
+        final int cells = Math.max(1, Math.min(INITIAL_GRID_SIZE, maximumGridSize) - 1);
+        int depth = 0;
+        while (depth < MAXIMUM_DEPTH && ((long) cells << (depth + 1)) < maximumGridSize) {
+            depth++;
+        }
+        final Refinement grid = new Refinement((cells << depth) * 2);
+        List<int[]> pending = new ArrayList<>();
+        final int span = grid.size / cells;
+        for (int y=0; y<grid.size; y += span) {
+            for (int x=0; x<grid.size; x += span) {
+                pending.add(new int[] {x, y, x + span, y + span});
+            }
+        }
+        try {
+            while (grid.refine(pending)) {
+                /*
+                 * All cells meet the tolerance with the bilinear interpolation of their corners. But the grid
+                 * given to LocalizationGridBuilder needs a uniform resolution, so nodes at the junction between
+                 * cells of different sizes may differ from the interpolations tested above. Verify the result
+                 * at the points already computed and refine again only the cells where the tolerance is exceeded.
+                 */
+                final MathTransform approximation = grid.create(factory);
+                pending = grid.invalidCells(approximation);
+                if (pending == null) break;
+                if (pending.isEmpty()) {
+                    return approximation;
+                }
+            }
+        } catch (TransformException e) {
+            throw new FactoryException(e);
+        }
+        final LogRecord record = Resources.forLocale(null).getLogRecord(Level.WARNING,
+                Resources.Keys.ApproximationFallback_2, tolerance, maximumGridSize);
+        record.setLoggerName(Loggers.COORDINATE_OPERATION);
+        Logging.log(ApproximateTransformBuilder.class, "create", record);
+        return transform;
+    }
+
+    /**
+     * Cells of the localization grid, refined independently of each other. Cell corners are positions
+     * in a lattice of {@link #size}×{@link #size} units covering the whole domain. The smallest allowed
+     * cell spans two lattice units, so the middle of the edges of any cell is also on the lattice.
+     * The exact transform is evaluated only at the corners and test points of the cells that are
+     * actually created, and each lattice position is evaluated at most once.
+     */
+    private final class Refinement {
+        /**
+         * Bit set by {@link #check(int[], MathTransform)} when a cell needs to be divided along an axis.
+         */
+        private static final int SPLIT_X = 1, SPLIT_Y = 2;
+
+        /**
+         * Number of lattice units along each axis of the domain.
+         */
+        final int size;
+
+        /**
+         * Exact target coordinates computed so far, indexed by lattice position.
+         *
+         * @see #key(int, int)
+         */
+        private final Map<Long,double[]> exact;
+
+        /**
+         * The cells meeting the tolerance, as (<var>xmin</var>, <var>ymin</var>, <var>xmax</var>, <var>ymax</var>)
+         * lattice positions.
+         */
+        private final List<int[]> leaves;
+
+        /**
+         * Creates an initially empty grid for a lattice of the given size.
+         */
+        Refinement(final int size) {
+            this.size = size;
+            exact  = new HashMap<>();
+            leaves = new ArrayList<>();
+        }
+
+        /**
+         * Returns the key of the given lattice position in the {@link #exact} map.
+         */
+        private Long key(final int x, final int y) {
+            return ((long) y) * (size + 1) + x;
+        }
+
+        /**
+         * Subdivides the given cells until they all meet the tolerance, then adds them to the leaves.
+         * Each iteration evaluates the exact transform in a single call for all cells of the same level.
+         *
+         * @param  cells  the cells to verify.
+         * @return {@code false} if a cell exceeds the tolerance but can not be subdivided anymore.
+         */
+        boolean refine(List<int[]> cells) throws TransformException {
+            while (!cells.isEmpty()) {
+                compute(cells);
+                final List<int[]> next = new ArrayList<>();
+                for (final int[] cell : cells) {
+                    final int split = check(cell, null);
+                    if (split == 0) {
+                        leaves.add(cell);
+                    } else if (!split(cell, split, next)) {
+                        return false;
+                    }
+                }
+                cells = next;
+            }
+            return true;
+        }
+
+        /**
+         * Removes from the leaves the cells where the given approximation exceeds the tolerance,
+         * and returns their subdivisions. Only the points already computed by {@link #refine(List)}
+         * are verified, so this method does not invoke the exact transform.
+         *
+         * @param  approximation  the transform created from the current leaves.
+         * @return cells to refine (empty if the approximation is valid),
+         *         or {@code null} if a cell can not be subdivided anymore.
+         */
+        List<int[]> invalidCells(final MathTransform approximation) throws TransformException {
+            final List<int[]> cells = new ArrayList<>();
+            for (final Iterator<int[]> it = leaves.iterator(); it.hasNext();) {
+                final int[] cell = it.next();
+                final int split = check(cell, approximation);
+                if (split != 0) {
+                    it.remove();
+                    if (!split(cell, split, cells)) {
+                        return null;
+                    }
+                }
+            }
+            return cells;
+        }
+
+        /**
+         * Adds the subdivisions of the given cell to the given list.
+         *
+         * @return {@code false} if the cell is already as small as allowed along an axis to divide.
+         */
+        private boolean split(final int[] cell, final int split, final List<int[]> target) {
+            final int x0 = cell[0], y0 = cell[1], x1 = cell[2], y1 = cell[3];
+            final int mx = (x0 + x1) >>> 1;
+            final int my = (y0 + y1) >>> 1;
+            final boolean sx = (split & SPLIT_X) != 0;
+            final boolean sy = (split & SPLIT_Y) != 0;
+            if ((sx && x1 - x0 <= 2) || (sy && y1 - y0 <= 2)) {
+                return false;
+            }
+            if (sx && sy) {
+                target.add(new int[] {x0, y0, mx, my});
+                target.add(new int[] {mx, y0, x1, my});
+                target.add(new int[] {x0, my, mx, y1});
+                target.add(new int[] {mx, my, x1, y1});
+            } else if (sx) {
+                target.add(new int[] {x0, y0, mx, y1});
+                target.add(new int[] {mx, y0, x1, y1});
+            } else {
+                target.add(new int[] {x0, y0, x1, my});
+                target.add(new int[] {x0, my, x1, y1});
+            }
+            return true;
+        }
+
+        /**
+         * Evaluates the exact transform at the corners and test points of the given cells,
+         * except at the positions already computed. All positions are transformed in a single call.
+         */
+        private void compute(final List<int[]> cells) throws TransformException {
+            final Set<Long> missing = new LinkedHashSet<>();
+            for (final int[] cell : cells) {
+                final int x0 = cell[0], y0 = cell[1], x1 = cell[2], y1 = cell[3];
+                final int mx = (x0 + x1) >>> 1;
+                final int my = (y0 + y1) >>> 1;
+                for (final Long key : new Long[] {
+                        key(x0, y0), key(x1, y0), key(x0, y1), key(x1, y1),
+                        key(mx, y0), key(mx, y1), key(x0, my), key(x1, my), key(mx, my)})
+                {
+                    if (!exact.containsKey(key)) {
+                        missing.add(key);
+                    }
+                }
+            }
+            final double[] coordinates = new double[missing.size() * 2];
+            int i = 0;
+            for (final Long key : missing) {
+                final long k = key;
+                coordinates[i++] = sourceX((int) (k % (size + 1)));
+                coordinates[i++] = sourceY((int) (k / (size + 1)));
+            }
+            transform.transform(coordinates, 0, coordinates, 0, missing.size());
+            i = 0;
+            for (final Long key : missing) {
+                exact.put(key, new double[] {coordinates[i++], coordinates[i++]});
+            }
+        }
+
+        /**
+         * Returns the source coordinate at the given lattice position along the <var>x</var> axis.
+         */
+        private double sourceX(final int x) {
+            return xmin + xspan * x / size;
+        }
+
+        /**
+         * Returns the source coordinate at the given lattice position along the <var>y</var> axis.
+         */
+        private double sourceY(final int y) {
+            return ymin + yspan * y / size;
+        }
+
+        /**
+         * Compares the exact transform with its approximation at the middle of the cell edges and at the cell center.
+         * Errors at edge midpoints tell along which axis the cell needs to be divided. A NaN error (for example
+         * because the exact transform failed) is considered too large.
+         *
+         * @param  cell           the cell to verify.
+         * @param  approximation  the approximated transform, or {@code null} for a bilinear interpolation of cell corners.
+         * @return a combination of {@link #SPLIT_X} and {@link #SPLIT_Y}, or 0 if the cell meets the tolerance.
+         */
+        private int check(final int[] cell, final MathTransform approximation) throws TransformException {
+            final int x0 = cell[0], y0 = cell[1], x1 = cell[2], y1 = cell[3];
+            final int mx = (x0 + x1) >>> 1;
+            final int my = (y0 + y1) >>> 1;
+            int split = 0;
+            if (!(error(cell, mx, y0, approximation) <= tolerance && error(cell, mx, y1, approximation) <= tolerance)) {
+                split |= SPLIT_X;
+            }
+            if (!(error(cell, x0, my, approximation) <= tolerance && error(cell, x1, my, approximation) <= tolerance)) {
+                split |= SPLIT_Y;
+            }
+            if (split == 0 && !(error(cell, mx, my, approximation) <= tolerance)) {
+                split = SPLIT_X | SPLIT_Y;
+            }
+            return split;
+        }
+
+        /**
+         * Returns the distance between the exact and approximated transforms at the given lattice position.
+         *
+         * @param  cell           the cell containing the position.
+         * @param  approximation  the approximated transform, or {@code null} for a bilinear interpolation of cell corners.
+         */
+        private double error(final int[] cell, final int x, final int y, final MathTransform approximation)
+                throws TransformException
+        {
+            final double[] expected = exact.get(key(x, y));
+            final double[] actual;
+            if (approximation != null) {
+                actual = new double[] {sourceX(x), sourceY(y)};
+                approximation.transform(actual, 0, actual, 0, 1);
+            } else {
+                actual = interpolate(cell, x, y);
+            }
+            return Math.hypot(expected[0] - actual[0], expected[1] - actual[1]);
+        }
+
+        /**
+         * Returns the bilinear interpolation of the exact values at the corners of the given cell.
+         */
+        private double[] interpolate(final int[] cell, final int x, final int y) {
+            final int x0 = cell[0], y0 = cell[1], x1 = cell[2], y1 = cell[3];
+            final double u = (x - x0) / (double) (x1 - x0);
+            final double v = (y - y0) / (double) (y1 - y0);
+            final double[] c00 = exact.get(key(x0, y0));
+            final double[] c10 = exact.get(key(x1, y0));
+            final double[] c01 = exact.get(key(x0, y1));
+            final double[] c11 = exact.get(key(x1, y1));
+            final double[] p = new double[2];
+            for (int i=0; i<p.length; i++) {
+                p[i] = (1 - v) * ((1 - u) * c00[i] + u * c10[i])
+                     +      v  * ((1 - u) * c01[i] + u * c11[i]);
+            }
+            return p;
+        }
+
+        /**
+         * Creates an approximation of the exact transform from the current leaves. The localization grid has
+         * the resolution of the smallest leaf along each axis. Nodes where the exact transform has been computed
+         * take the exact value, and other nodes take the bilinear interpolation of the corners of their leaf,
+         * which is the value that the leaf has been verified to approximate within the tolerance.
+         *
+         * @param  factory  the factory to use for creating the transform, or {@code null} for the default factory.
+         */
+        MathTransform create(final MathTransformFactory factory) throws FactoryException {
+            int sx = size, sy = size;
+            for (final int[] cell : leaves) {
+                sx = Math.min(sx, cell[2] - cell[0]);
+                sy = Math.min(sy, cell[3] - cell[1]);
+            }
+            final int width  = size / sx + 1;
+            final int height = size / sy + 1;
+            final double[] nodes = new double[width * height * 2];
+            for (final int[] cell : leaves) {
+                for (int y = cell[1]; y <= cell[3]; y += sy) {
+                    for (int x = cell[0]; x <= cell[2]; x += sx) {
+                        double[] p = exact.get(key(x, y));
+                        if (p == null) {
+                            p = interpolate(cell, x, y);
+                        }
+                        final int i = ((y / sy) * width + (x / sx)) * 2;
+                        nodes[i  ] = p[0];
+                        nodes[i+1] = p[1];
+                    }
+                }
+            }
+            final LocalizationGridBuilder builder = new LocalizationGridBuilder(width, height);
+            builder.setSourceToGrid(MathTransforms.linear(new Matrix3(
+                    (width  - 1) / xspan, 0, -xmin * (width  - 1) / xspan,
+                    0, (height - 1) / yspan, -ymin * (height - 1) / yspan,
+                    0, 0, 1)));
+            int i = 0;
+            for (int y=0; y<height; y++) {
+                for (int x=0; x<width; x++) {
+                    builder.setControlPoint(x, y, nodes[i++], nodes[i++]);
+                }
+            }
+            return builder.create(factory);
+        }
+    }
+}
@@ -478,6 +478,8 @@ public abstract class AbstractMathTransform extends FormattableObject
     /**
      * Transforms a list of coordinate points. The default implementation delegates
      * to {@link #transform(double[], int, double[], int, int)} using a temporary array of doubles.
+     * That array is reused by subsequent calls in the same thread, so this method does not allocate
+     * memory in the common case where the source and destination arrays do not overlap.
      *
      * <div class="note"><b>Implementation note:</b> see {@link IterationStrategy} javadoc for a method skeleton.</div>
      *
@@ -555,51 +557,56 @@ public abstract class AbstractMathTransform extends FormattableObject
          * We will verify that with an assert statement inside the do loop.
          */
         final int bufferedSrcOff = (dimSource >= dimTarget) ? 0 : dstStop - srcStop;
-        final double[] buffer = new double[bufferSize];
+        final Workspace workspace = Workspace.current();
+        final double[] buffer = workspace.acquire(bufferSize);
         TransformException failure = null;
-        do {
-            if (numPts < numBufferedPts) {
-                numBufferedPts = numPts;
-                srcStop = numPts * dimSource;
-                dstStop = numPts * dimTarget;
-                if (srcInc < 0) {
+        try {
+            do {
+                if (numPts < numBufferedPts) {
+                    numBufferedPts = numPts;
+                    srcStop = numPts * dimSource;
+                    dstStop = numPts * dimTarget;
+                    if (srcInc < 0) {
+                        /*
+                         * If we were applying IterationStrategy.DESCENDING, then srcOff and dstOff
+                         * may be negative at this point because the last pass may not fill all the
+                         * buffer space. We need to apply the correction below.
+                         */
+                        srcOff -= (srcStop + srcInc);
+                        dstOff -= (dstStop + dstInc);
+                    }
+                }
+                for (int i=0; i<srcStop; i++) {
+                    buffer[bufferedSrcOff + i] = srcPts[srcOff + i];
+                }
+                assert !IterationStrategy.suggest(bufferedSrcOff, dimSource, 0, dimTarget, numBufferedPts).needBuffer;
+                try {
+                    transform(buffer, bufferedSrcOff, buffer, 0, numBufferedPts);
+                } catch (TransformException exception) {
                     /*
-                     * If we were applying IterationStrategy.DESCENDING, then srcOff and dstOff
-                     * may be negative at this point because the last pass may not fill all the
-                     * buffer space. We need to apply the correction below.
+                     * If an exception occurred but the transform nevertheless declares having been
+                     * able to process all coordinate points (setting to NaN those that can't be
+                     * transformed), we will keep the first exception (to be propagated at the end
+                     * of this method) and continue. Otherwise we will stop immediately.
                      */
-                    srcOff -= (srcStop + srcInc);
-                    dstOff -= (dstStop + dstInc);
+                    if (exception.getLastCompletedTransform() != this) {
+                        throw exception;
+                    } else if (failure == null) {
+                        failure = exception;                        // Keep only the first exception.
+                    } else {
+                        failure.addSuppressed(exception);
+                    }
                 }
-            }
-            for (int i=0; i<srcStop; i++) {
-                buffer[bufferedSrcOff + i] = srcPts[srcOff + i];
-            }
-            assert !IterationStrategy.suggest(bufferedSrcOff, dimSource, 0, dimTarget, numBufferedPts).needBuffer;
-            try {
-                transform(buffer, bufferedSrcOff, buffer, 0, numBufferedPts);
-            } catch (TransformException exception) {
-                /*
-                 * If an exception occurred but the transform nevertheless declares having been
-                 * able to process all coordinate points (setting to NaN those that can't be
-                 * transformed), we will keep the first exception (to be propagated at the end
-                 * of this method) and continue. Otherwise we will stop immediately.
-                 */
-                if (exception.getLastCompletedTransform() != this) {
-                    throw exception;
-                } else if (failure == null) {
-                    failure = exception;                        // Keep only the first exception.
-                } else {
-                    failure.addSuppressed(exception);
+                for (int i=0; i<dstStop; i++) {
+                    dstPts[dstOff + i] = (float) buffer[i];
                 }
-            }
-            for (int i=0; i<dstStop; i++) {
-                dstPts[dstOff + i] = (float) buffer[i];
-            }
-            srcOff += srcInc;
-            dstOff += dstInc;
-            numPts -= numBufferedPts;
-        } while (numPts != 0);
+                srcOff += srcInc;
+                dstOff += dstInc;
+                numPts -= numBufferedPts;
+            } while (numPts != 0);
+        } finally {
+            workspace.release();
+        }
         if (failure != null) {
             throw failure;
         }
@@ -637,32 +644,37 @@ public abstract class AbstractMathTransform extends FormattableObject
         }
         int srcLength = numBufferedPts * dimSource;
         int dstLength = numBufferedPts * dimTarget;
-        final double[] buffer = new double[bufferSize];
+        final Workspace workspace = Workspace.current();
+        final double[] buffer = workspace.acquire(bufferSize);
         TransformException failure = null;
-        do {
-            if (numPts < numBufferedPts) {
-                numBufferedPts = numPts;
-                srcLength = numPts * dimSource;
-                dstLength = numPts * dimTarget;
-            }
-            try {
-                transform(srcPts, srcOff, buffer, 0, numBufferedPts);
-            } catch (TransformException exception) {
-                // Same comment than in transform(float[], ...,float[], ...)
-                if (exception.getLastCompletedTransform() != this) {
-                    throw exception;
-                } else if (failure == null) {
-                    failure = exception;
-                } else {
-                    failure.addSuppressed(exception);
+        try {
+            do {
+                if (numPts < numBufferedPts) {
+                    numBufferedPts = numPts;
+                    srcLength = numPts * dimSource;
+                    dstLength = numPts * dimTarget;
                 }
-            }
-            for (int i=0; i<dstLength; i++) {
-                dstPts[dstOff++] = (float) buffer[i];
-            }
-            srcOff += srcLength;
-            numPts -= numBufferedPts;
-        } while (numPts != 0);
+                try {
+                    transform(srcPts, srcOff, buffer, 0, numBufferedPts);
+                } catch (TransformException exception) {
+                    // Same comment than in transform(float[], ...,float[], ...)
+                    if (exception.getLastCompletedTransform() != this) {
+                        throw exception;
+                    } else if (failure == null) {
+                        failure = exception;
+                    } else {
+                        failure.addSuppressed(exception);
+                    }
+                }
+                for (int i=0; i<dstLength; i++) {
+                    dstPts[dstOff++] = (float) buffer[i];
+                }
+                srcOff += srcLength;
+                numPts -= numBufferedPts;
+            } while (numPts != 0);
+        } finally {
+            workspace.release();
+        }
         if (failure != null) {
             throw failure;
         }
@@ -709,32 +721,37 @@ public abstract class AbstractMathTransform extends FormattableObject
         }
         int srcLength = numBufferedPts * dimSource;
         int dstLength = numBufferedPts * dimTarget;
-        final double[] buffer = new double[bufferSize];
+        final Workspace workspace = Workspace.current();
+        final double[] buffer = workspace.acquire(bufferSize);
         TransformException failure = null;
-        do {
-            if (numPts < numBufferedPts) {
-                numBufferedPts = numPts;
-                srcLength = numPts * dimSource;
-                dstLength = numPts * dimTarget;
-            }
-            for (int i=0; i<srcLength; i++) {
-                buffer[i] = srcPts[srcOff++];
-            }
-            try {
-                transform(buffer, 0, dstPts, dstOff, numBufferedPts);
-            } catch (TransformException exception) {
-                // Same comment than in transform(float[], ...,float[], ...)
-                if (exception.getLastCompletedTransform() != this) {
-                    throw exception;
-                } else if (failure == null) {
-                    failure = exception;
-                } else {
-                    failure.addSuppressed(exception);
+        try {
+            do {
+                if (numPts < numBufferedPts) {
+                    numBufferedPts = numPts;
+                    srcLength = numPts * dimSource;
+                    dstLength = numPts * dimTarget;
                 }
-            }
-            dstOff += dstLength;
-            numPts -= numBufferedPts;
-        } while (numPts != 0);
+                for (int i=0; i<srcLength; i++) {
+                    buffer[i] = srcPts[srcOff++];
+                }
+                try {
+                    transform(buffer, 0, dstPts, dstOff, numBufferedPts);
+                } catch (TransformException exception) {
+                    // Same comment than in transform(float[], ...,float[], ...)
+                    if (exception.getLastCompletedTransform() != this) {
+                        throw exception;
+                    } else if (failure == null) {
+                        failure = exception;
+                    } else {
+                        failure.addSuppressed(exception);
+                    }
+                }
+                dstOff += dstLength;
+                numPts -= numBufferedPts;
+            } while (numPts != 0);
+        } finally {
+            workspace.release();
+        }
         if (failure != null) {
             throw failure;
         }
@@ -617,22 +617,27 @@ class ConcatenatedTransform extends AbstractMathTransform implements Serializabl
             }
             length = numBuf * bufferDim;
         }
-        final double[] buf = new double[length];
-        do {
-            if (!descending && numBuf > numPts) {
-                // Must be done before transforms if we are iterating in ascending order.
-                numBuf = numPts;
-            }
-            transform1.transform(srcPts, srcOff, buf, 0, numBuf);
-            transform2.transform(buf, 0, dstPts, dstOff, numBuf);
-            numPts -= numBuf;
-            if (descending && numBuf > numPts) {
-                // Must be done after transforms if we are iterating in descending order.
-                numBuf = numPts;
-            }
-            srcOff += numBuf * sourceDim;
-            dstOff += numBuf * targetDim;
-        } while (numPts != 0);
+        final Workspace workspace = Workspace.current();
+        final double[] buf = workspace.acquire(length);
+        try {
+            do {
+                if (!descending && numBuf > numPts) {
+                    // Must be done before transforms if we are iterating in ascending order.
+                    numBuf = numPts;
+                }
+                transform1.transform(srcPts, srcOff, buf, 0, numBuf);
+                transform2.transform(buf, 0, dstPts, dstOff, numBuf);
+                numPts -= numBuf;
+                if (descending && numBuf > numPts) {
+                    // Must be done after transforms if we are iterating in descending order.
+                    numBuf = numPts;
+                }
+                srcOff += numBuf * sourceDim;
+                dstOff += numBuf * targetDim;
+            } while (numPts != 0);
+        } finally {
+            workspace.release();
+        }
     }
 
     /**
@@ -681,20 +686,25 @@ class ConcatenatedTransform extends AbstractMathTransform implements Serializabl
             }
             length = numBuf * dimension;
         }
-        final double[] buf = new double[length];
-        do {
-            if (!descending && numBuf > numPts) {
-                numBuf = numPts;
-            }
-            transform1.transform(srcPts, srcOff, buf, 0, numBuf);
-            transform2.transform(buf, 0, dstPts, dstOff, numBuf);
-            numPts -= numBuf;
-            if (descending && numBuf > numPts) {
-                numBuf = numPts;
-            }
-            srcOff += numBuf * sourceDim;
-            dstOff += numBuf * targetDim;
-        } while (numPts != 0);
+        final Workspace workspace = Workspace.current();
+        final double[] buf = workspace.acquire(length);
+        try {
+            do {
+                if (!descending && numBuf > numPts) {
+                    numBuf = numPts;
+                }
+                transform1.transform(srcPts, srcOff, buf, 0, numBuf);
+                transform2.transform(buf, 0, dstPts, dstOff, numBuf);
+                numPts -= numBuf;
+                if (descending && numBuf > numPts) {
+                    numBuf = numPts;
+                }
+                srcOff += numBuf * sourceDim;
+                dstOff += numBuf * targetDim;
+            } while (numPts != 0);
+        } finally {
+            workspace.release();
+        }
     }
 
     /**
@@ -726,17 +736,22 @@ class ConcatenatedTransform extends AbstractMathTransform implements Serializabl
             numBuf = Math.max(1, MAXIMUM_BUFFER_SIZE / dimension);
             length = numBuf * dimension;
         }
-        final double[] buf = new double[length];
-        do {
-            if (numBuf > numPts) {
-                numBuf = numPts;
-            }
-            transform1.transform(srcPts, srcOff, buf, 0, numBuf);
-            transform2.transform(buf, 0, dstPts, dstOff, numBuf);
-            srcOff += numBuf * sourceDim;
-            dstOff += numBuf * targetDim;
-            numPts -= numBuf;
-        } while (numPts != 0);
+        final Workspace workspace = Workspace.current();
+        final double[] buf = workspace.acquire(length);
+        try {
+            do {
+                if (numBuf > numPts) {
+                    numBuf = numPts;
+                }
+                transform1.transform(srcPts, srcOff, buf, 0, numBuf);
+                transform2.transform(buf, 0, dstPts, dstOff, numBuf);
+                srcOff += numBuf * sourceDim;
+                dstOff += numBuf * targetDim;
+                numPts -= numBuf;
+            } while (numPts != 0);
+        } finally {
+            workspace.release();
+        }
     }
 
     /**
@@ -773,18 +788,23 @@ class ConcatenatedTransform extends AbstractMathTransform implements Serializabl
             numBuf = Math.max(1, MAXIMUM_BUFFER_SIZE / bufferDim);
             length = numBuf * bufferDim;
         }
-        final double[] buf = new double[length];
+        final Workspace workspace = Workspace.current();
+        final double[] buf = workspace.acquire(length);
         final int sourceDim = getSourceDimensions();
-        do {
-            if (numBuf > numPts) {
-                numBuf = numPts;
-            }
-            transform1.transform(srcPts, srcOff, buf, 0, numBuf);
-            transform2.transform(buf, 0, dstPts, dstOff, numBuf);
-            srcOff += numBuf * sourceDim;
-            dstOff += numBuf * targetDim;
-            numPts -= numBuf;
-        } while (numPts != 0);
+        try {
+            do {
+                if (numBuf > numPts) {
+                    numBuf = numPts;
+                }
+                transform1.transform(srcPts, srcOff, buf, 0, numBuf);
+                transform2.transform(buf, 0, dstPts, dstOff, numBuf);
+                srcOff += numBuf * sourceDim;
+                dstOff += numBuf * targetDim;
+                numPts -= numBuf;
+            } while (numPts != 0);
+        } finally {
+            workspace.release();
+        }
     }
 
     /**
@@ -70,7 +70,7 @@ import org.apache.sis.internal.referencing.provider.DatumShiftGridFile;
  * @author  Martin Desruisseaux (IRD, Geomatys)
  * @author  Simon Reynard (Geomatys)
  * @author  Rueben Schulz (UBC)
- * @version 0.8
+ * @version 1.0
  *
  * @see DatumShiftGrid
  * @see org.apache.sis.referencing.operation.builder.LocalizationGridBuilder
@@ -378,6 +378,29 @@ public class InterpolatedTransform extends DatumShiftTransform {
         return inverse;
     }
 
+    /**
+     * Transforms a sequence of target coordinates to source coordinates and returns the number of iterations.
+     * This method produces the same results than <code>{@linkplain #inverse()}.transform(srcPts, srcOff, dstPts,
+     * dstOff, numPts)</code>, but reports the total number of grid interpolations performed by the iterative
+     * inversion. Points given in sequences of nearby positions (scanlines, trajectories, <i>etc.</i>) converge
+     * faster because the translation found for a point is used as the starting guess for the next point.
+     *
+     * @param  srcPts  the array containing the target coordinates of this transform.
+     * @param  srcOff  the offset to the first point to be transformed in the source array.
+     * @param  dstPts  the array into which the source coordinates are returned. May be the same than {@code srcPts}.
+     * @param  dstOff  the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts  the number of points to be transformed.
+     * @return total number of grid interpolations performed for all points.
+     * @throws TransformException if the iteration does not converge for a point.
+     *
+     * @since 1.0
+     */
+    public long inverseTransform(final double[] srcPts, final int srcOff, final double[] dstPts, final int dstOff,
+                                 final int numPts) throws TransformException
+    {
+        return inverse.transformSequence(srcPts, srcOff, dstPts, dstOff, numPts);
+    }
+
     /**
      * Invoked at construction time for creating the inverse transform.
      * To overridden by the two-dimensional transform case.
@@ -514,12 +537,33 @@ public class InterpolatedTransform extends DatumShiftTransform {
 
         /**
          * Transforms an arbitrary amount of coordinates.
+         * See {@link #transformSequence(double[], int, double[], int, int)} for a description of the algorithm.
          *
          * @throws TransformException if a point can not be transformed.
          */
         @Override
         public final void transform(double[] srcPts, int srcOff, final double[] dstPts, int dstOff, int numPts)
                 throws TransformException
+        {
+            transformSequence(srcPts, srcOff, dstPts, dstOff, numPts);
+        }
+
+        /**
+         * Transforms an arbitrary amount of coordinates and returns the total number of iterations.
+         * This method is exposed in public API by {@link InterpolatedTransform#inverseTransform
+         * InterpolatedTransform.inverseTransform(…)}.
+         * Points are often given in sequences of nearby positions (scanlines, trajectories, <i>etc.</i>),
+         * in which case the translation vector found for the previous point is a good approximation of the
+         * translation vector of the next point. This method uses that vector as the starting guess of the
+         * fixed-point iteration, which often saves one or two iterations per point. If the iteration does
+         * not converge from that starting guess, then this method restarts from the source coordinates
+         * as the single-point {@code transform(…)} method does.
+         *
+         * @return total number of calls to {@link DatumShiftGrid#interpolateInCell(double, double, double[])}.
+         * @throws TransformException if a point can not be transformed.
+         */
+        final long transformSequence(double[] srcPts, int srcOff, final double[] dstPts, int dstOff, int numPts)
+                throws TransformException
         {
             final int dimension = forward.dimension;
             int inc = dimension;
@@ -542,43 +586,68 @@ public class InterpolatedTransform extends DatumShiftTransform {
                 }
             }
             final double[] vector = new double[dimension];
+            double tx = 0, ty = 0;                                  // Translation of previous point.
+            long count = 0;
 nextPoint:  while (--numPts >= 0) {
-                double xi, yi;
-                final double x = xi = srcPts[srcOff  ];
-                final double y = yi = srcPts[srcOff+1];
-                int it = Formulas.MAXIMUM_ITERATIONS;
-                do {
-                    forward.grid.interpolateInCell(xi, yi, vector);
-                    final double ox = xi;
-                    final double oy = yi;
-                    xi = x - vector[0];
-                    yi = y - vector[1];
-                    if (!(Math.abs(xi - ox) > tolerance ||          // Use '!' for catching NaN.
-                          Math.abs(yi - oy) > tolerance))
-                    {
-                        if (dimension > GRID_DIMENSION) {
-                            System.arraycopy(srcPts, srcOff + GRID_DIMENSION,
-                                             dstPts, dstOff + GRID_DIMENSION,
-                                                  dimension - GRID_DIMENSION);
+                final double x = srcPts[srcOff  ];
+                final double y = srcPts[srcOff+1];
+                boolean warm = (tx != 0 || ty != 0);
+                for (;;) {
+                    double xi, yi;
+                    if (warm) {
+                        xi = x - tx;
+                        yi = y - ty;
+                    } else {
+                        xi = x;
+                        yi = y;
+                    }
+                    int it = Formulas.MAXIMUM_ITERATIONS;
+                    do {
+                        forward.grid.interpolateInCell(xi, yi, vector);
+                        count++;
+                        final double ox = xi;
+                        final double oy = yi;
+                        xi = x - vector[0];
+                        yi = y - vector[1];
+                        if (!(Math.abs(xi - ox) > tolerance ||          // Use '!' for catching NaN.
+                              Math.abs(yi - oy) > tolerance))
+                        {
+                            if (dimension > GRID_DIMENSION) {
+                                System.arraycopy(srcPts, srcOff + GRID_DIMENSION,
+                                                 dstPts, dstOff + GRID_DIMENSION,
+                                                      dimension - GRID_DIMENSION);
+                                /*
+                                 * We can not use srcPts[srcOff + i] = dstPts[dstOff + i] + offset[i]
+                                 * because the arrays may overlap. The contract said that this method
+                                 * must behave as if all input ordinate values have been read before
+                                 * we write outputs, which is the reason for System.arraycopy(…) call.
+                                 */
+                                int i = dimension;
+                                do dstPts[dstOff + --i] += vector[i];
+                                while (i > GRID_DIMENSION);
+                            }
+                            dstPts[dstOff  ] = xi;          // Shall not be done before above loop.
+                            dstPts[dstOff+1] = yi;
+                            dstOff += inc;
+                            srcOff += inc;
                             /*
-                             * We can not use srcPts[srcOff + i] = dstPts[dstOff + i] + offset[i]
-                             * because the arrays may overlap. The contract said that this method
-                             * must behave as if all input ordinate values have been read before
-                             * we write outputs, which is the reason for System.arraycopy(…) call.
+                             * Remember the translation for the starting guess of next point,
+                             * unless it is NaN (for example because the source point was NaN).
                              */
-                            int i = dimension;
-                            do dstPts[dstOff + --i] += vector[i];
-                            while (i > GRID_DIMENSION);
+                            tx = vector[0];
+                            ty = vector[1];
+                            if (!(Double.isFinite(tx) && Double.isFinite(ty))) {
+                                tx = ty = 0;
+                            }
+                            continue nextPoint;
                         }
-                        dstPts[dstOff  ] = xi;          // Shall not be done before above loop.
-                        dstPts[dstOff+1] = yi;
-                        dstOff += inc;
-                        srcOff += inc;
-                        continue nextPoint;
-                    }
-                } while (--it >= 0);
+                    } while (--it >= 0);
+                    if (!warm) break;
+                    warm = false;                       // Retry from the source coordinates.
+                }
                 throw new TransformException(Resources.format(Resources.Keys.NoConvergence));
             }
+            return count;
         }
     }
 }
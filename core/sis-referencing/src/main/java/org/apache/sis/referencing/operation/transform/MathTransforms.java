@@ -19,6 +19,8 @@ package org.apache.sis.referencing.operation.transform;
 import java.util.Map;
 import java.util.List;
 import java.util.Collections;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 import java.awt.geom.AffineTransform;
 import org.opengis.util.FactoryException;
 import org.opengis.geometry.Envelope;
@@ -39,6 +41,7 @@ import org.apache.sis.referencing.operation.matrix.Matrices;
 import org.apache.sis.util.ArgumentChecks;
 import org.apache.sis.util.ArraysExt;
 import org.apache.sis.util.Static;
+import org.apache.sis.util.resources.Errors;
 
 
 /**
@@ -272,7 +275,7 @@ public final class MathTransforms extends Static {
      *   <li>All envelopes in the {@code specializations} map must have the same number of dimensions
      *       than the global transform <em>source</em> dimensions.</li>
      *   <li>In current implementation, each envelope must either be fully included in another envelope,
-     *       or not overlap any other envelope.</li>
+     *       or not overlap any other envelope (envelopes sharing only a border are accepted).</li>
      * </ul>
      *
      * @param  global  the transform to use globally where there is no suitable specialization.
@@ -446,6 +449,74 @@ public final class MathTransforms extends Static {
         return (MathTransform2D) concatenate((MathTransform) tr1, (MathTransform) tr2);
     }
 
+    /**
+     * Concatenates the given linear transforms using only double-precision arithmetic.
+     * This method is faster than {@link #concatenate(MathTransform, MathTransform)} because it multiplies
+     * the matrices directly instead of using the double-double arithmetic which Apache SIS applies when
+     * building coordinate operations. This method is intended for transforms that are rebuilt often,
+     * for example the affine transforms concatenated by a renderer for every frame or every tile.
+     * It should not be used for transforms that define a coordinate operation, since the rounding
+     * errors may be significant for small datum shifts.
+     *
+     * <p>Transforms are applied in the order they are given:
+     * the first transform is applied first and the last transform is applied last.</p>
+     *
+     * @param  transforms  the linear transforms to concatenate, in the order they are applied.
+     * @return the concatenated transform.
+     * @throws MismatchedDimensionException if the output dimension of a transform
+     *         does not match the input dimension of next transform.
+     *
+     * @since 1.0
+     */
+    public static LinearTransform concatenateFast(final LinearTransform... transforms)
+            throws MismatchedDimensionException
+    {
+        ArgumentChecks.ensureNonNull("transforms", transforms);
+        if (transforms.length == 0) {
+            throw new IllegalArgumentException(Errors.format(Errors.Keys.EmptyArgument_1, "transforms"));
+        }
+        double[] product = null;
+        int numRow = 0, numCol = 0;
+        for (int i=0; i<transforms.length; i++) {
+            final LinearTransform tr = transforms[i];
+            ArgumentChecks.ensureNonNullElement("transforms", i, tr);
+            final Matrix matrix = tr.getMatrix();
+            final int n = matrix.getNumRow();
+            final int m = matrix.getNumCol();
+            if (product == null) {
+                product = new double[n * m];
+                for (int j=0; j<n; j++) {
+                    for (int k=0; k<m; k++) {
+                        product[j*m + k] = matrix.getElement(j, k);
+                    }
+                }
+                numCol = m;
+            } else {
+                if (m != numRow) {
+                    throw new MismatchedDimensionException(Errors.format(
+                            Errors.Keys.MismatchedDimension_3, "transforms[" + i + ']', numRow - 1, m - 1));
+                }
+                /*
+                 * Computes (matrix × product). The result has the number of rows of the new matrix
+                 * and the number of columns of the product computed so far (the source dimension).
+                 */
+                final double[] result = new double[n * numCol];
+                for (int j=0; j<n; j++) {
+                    for (int t=0; t<m; t++) {
+                        final double e = matrix.getElement(j, t);
+                        final int offset = t * numCol;
+                        for (int k=0; k<numCol; k++) {
+                            result[j*numCol + k] += e * product[offset + k];
+                        }
+                    }
+                }
+                product = result;
+            }
+            numRow = n;
+        }
+        return linear(Matrices.create(numRow, numCol, product));
+    }
+
     /**
      * Concatenates the three given transforms. This is a convenience methods doing its job
      * as two consecutive concatenations.
@@ -665,4 +736,65 @@ public final class MathTransforms extends Static {
         }
         return derivative;
     }
+
+    /**
+     * Transforms a list of coordinate points using all processors available to the common fork-join pool.
+     * This method produces the same result than {@code transform.transform(srcPts, srcOff, dstPts, dstOff, numPts)},
+     * but splits the work in chunks of contiguous coordinates transformed concurrently. The chunks are small enough
+     * for keeping the source and destination coordinates of each chunk in processor cache. If the number of points
+     * is too small for benefiting from parallelism, then this method delegates to the above-cited method in the
+     * current thread.
+     *
+     * <p>The given transform shall be thread-safe, which is the case of all Apache SIS implementations.
+     * The source and destination arrays may be the same with overlapping ranges. If the destination range
+     * is the same than the source range (transformation in-place between coordinates of the same dimension),
+     * then each chunk is transformed in-place. Otherwise if the ranges overlap, the source coordinates are
+     * copied before to be transformed, since the {@link IterationStrategy} applied by sequential transforms
+     * does not hold when chunks are processed in any order.</p>
+     *
+     * <p>Failures are handled as in sequential transforms. If some points can not be transformed and the
+     * transform {@linkplain TransformException#getLastCompletedTransform() declares} that it nevertheless
+     * processed all points (setting to {@link Double#NaN} the coordinates that can not be transformed),
+     * then all chunks are completed before the exception is thrown. The exception of the first chunk in
+     * array order is the one propagated, with the exceptions of other chunks added as
+     * {@linkplain Throwable#getSuppressed() suppressed exceptions}.</p>
+     *
+     * @param  transform  the transform to apply.
+     * @param  srcPts     the array containing the source point coordinates.
+     * @param  srcOff     the offset to the first point to be transformed in the source array.
+     * @param  dstPts     the array into which the transformed point coordinates are returned. May be the same than {@code srcPts}.
+     * @param  dstOff     the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts     the number of point objects to be transformed.
+     * @throws TransformException if a point can not be transformed.
+     *
+     * @see MathTransform#transform(double[], int, double[], int, int)
+     *
+     * @since 1.0
+     */
+    public static void transformInParallel(final MathTransform transform, double[] srcPts, int srcOff,
+            final double[] dstPts, final int dstOff, final int numPts) throws TransformException
+    {
+        ArgumentChecks.ensureNonNull("transform", transform);
+        ArgumentChecks.ensurePositive("numPts", numPts);
+        final int srcDim   = transform.getSourceDimensions();
+        final int tgtDim   = transform.getTargetDimensions();
+        final int chunkPts = Math.max(1, ParallelTransform.CHUNK_SIZE / Math.max(srcDim, tgtDim));
+        if (numPts <= chunkPts || ForkJoinPool.getCommonPoolParallelism() <= 1) {
+            transform.transform(srcPts, srcOff, dstPts, dstOff, numPts);
+            return;
+        }
+        if (srcPts == dstPts) {
+            final int srcEnd = srcOff + numPts * srcDim;
+            final int dstEnd = dstOff + numPts * tgtDim;
+            if (srcOff < dstEnd && dstOff < srcEnd && (srcOff != dstOff || srcDim != tgtDim)) {
+                srcPts = Arrays.copyOfRange(srcPts, srcOff, srcEnd);        // IterationStrategy.BUFFER_SOURCE
+                srcOff = 0;
+            }
+        }
+        final ParallelTransform task = new ParallelTransform(transform, srcPts, srcOff, dstPts, dstOff, numPts, chunkPts);
+        ForkJoinPool.commonPool().invoke(task);
+        if (task.failure != null) {
+            throw task.failure;
+        }
+    }
 }
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.referencing.operation.transform;
+
+import java.util.concurrent.RecursiveAction;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+
+
+/**
+ * A task transforming a range of coordinates in a fork-join pool. The range is recursively split in halves
+ * until each task contains no more than {@link #chunkPts} points, in which case the points are transformed
+ * by a single call to {@link MathTransform#transform(double[], int, double[], int, int)}. The split points
+ * are aligned on multiples of the chunk size for keeping the work of each thread in contiguous memory.
+ *
+ * <p>Since {@link RecursiveAction#compute()} can not throw checked exceptions, the {@link TransformException}
+ * thrown by a chunk is stored in the {@link #failure} field and merged with the exceptions of other chunks
+ * after the sub-tasks completed. The source and destination ranges of different chunks shall not overlap;
+ * this is verified by {@link MathTransforms#transformInParallel MathTransforms.transformInParallel(…)}
+ * before to create the first task.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+final class ParallelTransform extends RecursiveAction {
+    /**
+     * For cross-version compatibility.
+     */
+    private static final long serialVersionUID = -6318451087212648117L;
+
+    /**
+     * Approximate number of ordinate values to transform in each chunk. The chunk size is a compromise between
+     * the overhead of task scheduling and the locality of memory accesses: 16384 ordinates in the source array
+     * and as many in the destination array fit in the L2 cache of most processors.
+     */
+    static final int CHUNK_SIZE = 16384;
+
+    /**
+     * The transform to apply.
+     */
+    private final MathTransform transform;
+
+    /**
+     * The arrays of source and destination coordinates.
+     */
+    private final double[] srcPts, dstPts;
+
+    /**
+     * Index of the first coordinate to transform in {@link #srcPts}, and where to write it in {@link #dstPts}.
+     */
+    private final int srcOff, dstOff;
+
+    /**
+     * Number of points to transform by this task, and maximal number of points to transform in a single chunk.
+     */
+    private final int numPts, chunkPts;
+
+    /**
+     * The exception thrown while transforming the points of this task, or {@code null} if none.
+     * Exceptions of the sub-tasks, if any, are merged in this field when the sub-tasks are completed.
+     */
+    TransformException failure;
+
+    /**
+     * Creates a new task for transforming the given range of coordinates.
+     */
+    ParallelTransform(final MathTransform transform, final double[] srcPts, final int srcOff,
+                      final double[] dstPts, final int dstOff, final int numPts, final int chunkPts)
+    {
+        this.transform = transform;
+        this.srcPts    = srcPts;
+        this.srcOff    = srcOff;
+        this.dstPts    = dstPts;
+        this.dstOff    = dstOff;
+        this.numPts    = numPts;
+        this.chunkPts  = chunkPts;
+    }
+
+    /**
+     * Transforms the coordinates, either directly if there is no more than one chunk,
+     * or by splitting the range in two sub-tasks executed in parallel.
+     */
+    @Override
+    protected void compute() {
+        if (numPts <= chunkPts) {
+            try {
+                transform.transform(srcPts, srcOff, dstPts, dstOff, numPts);
+            } catch (TransformException e) {
+                failure = e;
+            }
+        } else {
+            final int n = Math.max(1, (numPts >>> 1) / chunkPts) * chunkPts;
+            final ParallelTransform lower = new ParallelTransform(transform, srcPts, srcOff, dstPts, dstOff, n, chunkPts);
+            final ParallelTransform upper = new ParallelTransform(transform,
+                    srcPts, srcOff + n * transform.getSourceDimensions(),
+                    dstPts, dstOff + n * transform.getTargetDimensions(), numPts - n, chunkPts);
+            invokeAll(lower, upper);
+            failure = merge(lower.failure, upper.failure);
+        }
+    }
+
+    /**
+     * Merges the exceptions of two sub-tasks, with {@code first} for the coordinates before {@code second}.
+     * The first exception is kept as the main one, consistently with sequential transforms which propagate
+     * the first failure. The only exception to this rule is when the first sub-task has been able to process
+     * all its points (setting the failed ones to NaN) while the second sub-task stopped at its first failure,
+     * in which case the incomplete processing is more important to report.
+     */
+    private TransformException merge(final TransformException first, final TransformException second) {
+        if (first  == null) return second;
+        if (second == null) return first;
+        if (first.getLastCompletedTransform() == transform && second.getLastCompletedTransform() != transform) {
+            second.addSuppressed(first);
+            return second;
+        }
+        first.addSuppressed(second);
+        return first;
+    }
+}
@@ -19,8 +19,8 @@ package org.apache.sis.referencing.operation.transform;
 import java.util.Map;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.Arrays;
-import java.util.Objects;
 import java.io.Serializable;
 import org.opengis.geometry.Envelope;
 import org.opengis.geometry.DirectPosition;
@@ -66,7 +66,7 @@ class SpecializableTransform extends AbstractMathTransform implements Serializab
 
     /**
      * The region where a transform is valid, together with the transform.
-     * Contains also a chain of {@code SubArea}s fully included in this area.
+     * Contains also the {@code SubArea}s fully included in this area, which form a tree.
      * Shall be unmodified after {@link SpecializableTransform} construction.
      */
     @SuppressWarnings("CloneableClassWithoutClone")                             // We will not use clone().
@@ -76,6 +76,11 @@ class SpecializableTransform extends AbstractMathTransform implements Serializab
          */
         private static final long serialVersionUID = 4197316795428796526L;
 
+        /**
+         * An empty array of sub-areas, used for leaf nodes.
+         */
+        private static final SubArea[] NONE = new SubArea[0];
+
         /**
          * The transform to apply in this area.
          */
@@ -85,20 +90,39 @@ class SpecializableTransform extends AbstractMathTransform implements Serializab
          * The inverse of the transform, computed when first needed.
          * Synchronization for multi-threading is done (indirectly) in {@link SpecializableTransform#inverse()}.
          *
-         * @see #createInverse(SubArea)
+         * @see #createInverse(SubArea[])
          */
         MathTransform inverse;
 
         /**
-         * Specialization, or {@code null} if none. If non-null, that sub-area shall be fully included
-         * in this {@code SubArea}. The specialization may itself contain another specialization. This
-         * form a chain from this wider area to smallest area, where each step is a smaller area.
+         * Specializations fully included in this {@code SubArea}, or an empty array if none.
+         * Elements in this array do not overlap (but may touch each other) and are sorted
+         * by increasing lower coordinate value in the first dimension. Each specialization
+         * may itself contain other specializations, thus forming a tree where each level
+         * is a set of smaller areas.
          *
-         * <p>Note that this is note a substitute for an R-Tree. This is an optimization for the common
-         * case where coordinates are close to each other (e.g. when iterating in a geometry), in which
-         * case we can check immediately for inclusion in smaller areas before to check the wider area.</p>
+         * @see #find(SubArea[], DirectPosition)
+         */
+        private SubArea[] children;
+
+        /**
+         * The specializations before they are sorted in the {@link #children} array.
+         * Used only during {@link SpecializableTransform} construction.
+         */
+        private transient List<SubArea> nested;
+
+        /**
+         * Lower coordinate value in the first dimension, or negative infinity if this area spans the
+         * anti-meridian. This is the key used for sorting areas in the {@link #children} array.
+         */
+        private double start;
+
+        /**
+         * Maximal upper coordinate value in the first dimension of this area and all sibling areas
+         * sorted before this area. This is used as a small interval index: when searching backward
+         * in a sorted array, we can stop as soon as this value is lower than the searched position.
          */
-        private SubArea specialization;
+        private double reach;
 
         /**
          * Creates a new area where a transform is valid.
@@ -106,23 +130,68 @@ class SpecializableTransform extends AbstractMathTransform implements Serializab
         SubArea(final Envelope area, final MathTransform transform) {
             super(area);
             this.transform = transform;
+            this.children  = NONE;
         }
 
         /**
-         * Tries to add a nested sub-area (a specialization of a specialization).
+         * Adds the given area in the given list, eventually as a child of an existing node.
+         * If the given area contains some existing nodes, those nodes are moved as children
+         * of the new area.
          *
-         * @return whether the given area has been added.
+         * @throws IllegalArgumentException if the given area overlaps an existing area
+         *         without being fully included in it or fully containing it.
+         */
+        static void insert(final List<SubArea> siblings, final SubArea area) {
+            for (final SubArea previous : siblings) {
+                if (previous.contains(area)) {
+                    if (previous.nested == null) {
+                        previous.nested = new ArrayList<>();
+                    }
+                    insert(previous.nested, area);
+                    return;
+                }
+            }
+            for (final Iterator<SubArea> it = siblings.iterator(); it.hasNext();) {
+                final SubArea previous = it.next();
+                if (area.contains(previous)) {
+                    if (area.nested == null) {
+                        area.nested = new ArrayList<>();
+                    }
+                    area.nested.add(previous);
+                    it.remove();
+                } else if (area.intersects(previous, false)) {
+                    throw new IllegalArgumentException("Current implementation does not accept overlapping envelopes.");
+                }
+            }
+            siblings.add(area);
+        }
+
+        /**
+         * Converts the given list of areas (together with their nested areas) into sorted arrays.
+         * This method shall be invoked once after all areas have been {@linkplain #insert inserted}.
          */
-        boolean addSpecialization(final SubArea candidate) {
-            if (specialization == null) {
-                if (!contains(candidate)) {
-                    return false;
+        static SubArea[] freeze(final List<SubArea> areas) {
+            final SubArea[] array = areas.toArray(new SubArea[areas.size()]);
+            for (final SubArea area : array) {
+                final double lower = area.getLower(0);
+                final double upper = area.getUpper(0);
+                if (lower <= upper) {
+                    area.start = lower;
+                    area.reach = upper;
+                } else {
+                    area.start = Double.NEGATIVE_INFINITY;          // Spanning anti-meridian or NaN values.
+                    area.reach = Double.POSITIVE_INFINITY;
+                }
+                if (area.nested != null) {
+                    area.children = freeze(area.nested);
+                    area.nested = null;
                 }
-            } else if (!candidate.addSpecialization(specialization)) {
-                return specialization.addSpecialization(candidate);
             }
-            specialization = candidate;
-            return true;
+            Arrays.sort(array, (a, b) -> Double.compare(a.start, b.start));
+            for (int i=1; i<array.length; i++) {
+                array[i].reach = Math.max(array[i].reach, array[i-1].reach);
+            }
+            return array;
         }
 
         /**
@@ -130,20 +199,34 @@ class SpecializableTransform extends AbstractMathTransform implements Serializab
          * This method does not verify the number of dimensions; this check should have been done by the caller.
          */
         static void uniformize(final SubArea[] domains) {
-            CoordinateReferenceSystem common = null;
-            for (SubArea area : domains) {
-                do {
-                    final CoordinateReferenceSystem crs = area.getCoordinateReferenceSystem();
-                    if (common == null) {
-                        common = crs;
-                    } else if (crs != null && !Utilities.equalsIgnoreMetadata(common, crs)) {
-                        throw new MismatchedReferenceSystemException(Errors.format(Errors.Keys.MismatchedCRS));
-                    }
-                } while ((area = area.specialization) != null);
+            final CoordinateReferenceSystem common = commonCRS(domains, null);
+            setCRS(domains, common);
+        }
+
+        /**
+         * Returns the CRS shared by all given areas and their children.
+         * An exception is thrown if incompatible CRS are found.
+         */
+        private static CoordinateReferenceSystem commonCRS(final SubArea[] domains, CoordinateReferenceSystem common) {
+            for (final SubArea area : domains) {
+                final CoordinateReferenceSystem crs = area.getCoordinateReferenceSystem();
+                if (common == null) {
+                    common = crs;
+                } else if (crs != null && !Utilities.equalsIgnoreMetadata(common, crs)) {
+                    throw new MismatchedReferenceSystemException(Errors.format(Errors.Keys.MismatchedCRS));
+                }
+                common = commonCRS(area.children, common);
             }
-            for (SubArea area : domains) {
-                do area.setCoordinateReferenceSystem(common);
-                while ((area = area.specialization) != null);
+            return common;
+        }
+
+        /**
+         * Sets the CRS of all given areas and their children.
+         */
+        private static void setCRS(final SubArea[] domains, final CoordinateReferenceSystem common) {
+            for (final SubArea area : domains) {
+                area.setCoordinateReferenceSystem(common);
+                setCRS(area.children, common);
             }
         }
 
@@ -151,26 +234,36 @@ class SpecializableTransform extends AbstractMathTransform implements Serializab
          * Creates the inverse transforms. This method should be invoked only once when first needed
          * in a block synchronized (indirectly) by {@link SpecializableTransform#inverse()}.
          */
-        static void createInverse(SubArea area) throws NoninvertibleTransformException {
-            do {
+        static void createInverse(final SubArea[] domains) throws NoninvertibleTransformException {
+            for (final SubArea area : domains) {
                 area.inverse = area.transform.inverse();
-                area = area.specialization;
-            } while (area != null);
+                createInverse(area.children);
+            }
         }
 
         /**
-         * Returns the area that contains the given position, or {@code null} if none.
-         * This method may be replaced by an R-Tree in a future Apache SIS version.
+         * Returns the most specialized area that contains the given position, or {@code null} if none.
+         * The search in each level of the tree uses a binary search on the lower coordinate values in the
+         * first dimension, then scans backward until the {@link #reach} value tells that no more area can
+         * contain the position.
          */
         static SubArea find(final SubArea[] domains, final DirectPosition pos) {
-            for (SubArea area : domains) {
+            final double x = pos.getOrdinate(0);
+            int low  = 0;
+            int high = domains.length;
+            while (low < high) {                            // Find the index after the last area having start ≤ x.
+                final int mid = (low + high) >>> 1;
+                if (domains[mid].start <= x) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            while (--low >= 0) {
+                final SubArea area = domains[low];
+                if (!(area.reach >= x)) break;              // No area before this one can contain the position.
                 if (area.contains(pos)) {
-                    SubArea next = area.specialization;
-                    while (next != null && next.contains(pos)) {
-                        area = next;
-                        next = next.specialization;
-                    }
-                    return area;
+                    return area.finest(pos);
                 }
             }
             return null;
@@ -180,25 +273,31 @@ class SpecializableTransform extends AbstractMathTransform implements Serializab
          * Returns the area that contains the given position, looking only in the given area or its specializations.
          * Returns {@code null} if no area has been found.
          */
-        static SubArea find(SubArea area, final DirectPosition pos) {
-            SubArea found = null;
-            while (area.contains(pos)) {
-                found = area;
-                area = area.specialization;
-                if (area == null) break;
+        static SubArea find(final SubArea area, final DirectPosition pos) {
+            return area.contains(pos) ? area.finest(pos) : null;
+        }
+
+        /**
+         * Returns the most specialized area that contains the given position, assuming that this area
+         * is already known to contain that position.
+         */
+        private SubArea finest(final DirectPosition pos) {
+            SubArea area = this, child;
+            while ((child = find(area.children, pos)) != null) {
+                area = child;
             }
-            return found;
+            return area;
         }
 
         /**
-         * Formats the given area and its transform as a pseudo-WKT.
+         * Formats the given areas and their transforms as a pseudo-WKT.
          * For {@link SpecializableTransform#formatTo(Formatter)} implementation only.
          */
-        static void format(SubArea area, final Formatter formatter) {
-            while (area != null) {
+        static void format(final SubArea[] domains, final Formatter formatter) {
+            for (final SubArea area : domains) {
                 formatter.newLine(); formatter.append(area);
                 formatter.newLine(); formatter.append(area.transform);
-                area = area.specialization;
+                format(area.children, formatter);
             }
         }
 
@@ -207,11 +306,7 @@ class SpecializableTransform extends AbstractMathTransform implements Serializab
          */
         @Override
         public int hashCode() {
-            int code = super.hashCode() ^ transform.hashCode();
-            if (specialization != null) {
-                code += 37 * specialization.hashCode();
-            }
-            return code;
+            return (super.hashCode() ^ transform.hashCode()) + 37 * Arrays.hashCode(children);
         }
 
         /**
@@ -221,7 +316,7 @@ class SpecializableTransform extends AbstractMathTransform implements Serializab
         public boolean equals(final Object obj) {
             if (super.equals(obj)) {
                 final SubArea other = (SubArea) obj;
-                return transform.equals(other.transform) && Objects.equals(specialization, other.specialization);
+                return transform.equals(other.transform) && Arrays.equals(children, other.children);
             }
             return false;
         }
@@ -238,9 +333,9 @@ class SpecializableTransform extends AbstractMathTransform implements Serializab
     }
 
     /**
-     * Domains where specialized transforms are valid. The array should be very small.
-     * In current implementation, elements in this array shall not overlap.
-     * This array may be replaced by an R-Tree in a future Apache SIS version.
+     * Domains where specialized transforms are valid. Elements in this array shall not overlap
+     * and are sorted for allowing the search performed by {@link SubArea#find(SubArea[], DirectPosition)}.
+     * Each element may contain more specialized domains, thus forming a tree.
      */
     private final SubArea[] domains;
 
@@ -281,17 +376,31 @@ class SpecializableTransform extends AbstractMathTransform implements Serializab
              * of steps when transforming coordinates.
              */
             if (inherited != null) {
-                for (final SubArea other : inherited) {
-                    final SubArea e = new SubArea(other, other.transform);
-                    e.intersect(area);
-                    addSpecialization(e, areas, sourceDim);
-                }
+                addInherited(inherited, area, areas, sourceDim);
             }
         }
-        domains = areas.toArray(new SubArea[areas.size()]);
+        domains = SubArea.freeze(areas);
         SubArea.uniformize(domains);
     }
 
+    /**
+     * Adds the specializations of another {@link SpecializableTransform}, including their nested specializations.
+     * The given areas are clipped to the domain where the other transform has been declared valid.
+     *
+     * @param  inherited  the domains of the other transform.
+     * @param  clip       the domain of validity of the other transform.
+     * @param  domains    where to add the sub-areas.
+     * @param  dim        expected number of dimensions, for verification purpose.
+     */
+    private static void addInherited(final SubArea[] inherited, final SubArea clip, final List<SubArea> domains, final int dim) {
+        for (final SubArea other : inherited) {
+            final SubArea e = new SubArea(other, other.transform);
+            e.intersect(clip);
+            addSpecialization(e, domains, dim);
+            addInherited(other.children, clip, domains, dim);
+        }
+    }
+
     /**
      * Helper method for verifying transform dimension consistency.
      *
@@ -318,18 +427,7 @@ class SpecializableTransform extends AbstractMathTransform implements Serializab
                 throw new MismatchedDimensionException(Errors.format(Errors.Keys.MismatchedDimension_3,
                             "envelope", dim, area.getDimension()));
             }
-            for (final SubArea previous : domains) {
-                if (previous.addSpecialization(area)) {
-                    return;
-                }
-            }
-            for (final SubArea previous : domains) {
-                if (area.intersects(previous)) {
-                    // Pending implementation of R-Tree in Apache SIS.
-                    throw new IllegalArgumentException("Current implementation does not accept overlapping envelopes.");
-                }
-            }
-            domains.add(area);
+            SubArea.insert(domains, area);
         }
     }
 
@@ -589,9 +687,7 @@ class SpecializableTransform extends AbstractMathTransform implements Serializab
     protected final String formatTo(final Formatter formatter) {
         formatter.newLine();
         formatter.append(global);
-        for (SubArea domain : domains) {
-            SubArea.format(domain, formatter);
-        }
+        SubArea.format(domains, formatter);
         formatter.setInvalidWKT(SpecializableTransform.class, null);
         return "Specializable_MT";
     }
@@ -640,9 +736,7 @@ class SpecializableTransform extends AbstractMathTransform implements Serializab
         Inverse(final SpecializableTransform forward) throws NoninvertibleTransformException {
             this.forward = forward;
             this.global = forward.global.inverse();
-            for (final SubArea domain : forward.domains) {
-                SubArea.createInverse(domain);
-            }
+            SubArea.createInverse(forward.domains);
         }
 
         /**
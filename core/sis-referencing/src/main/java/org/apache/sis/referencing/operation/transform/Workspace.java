@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.referencing.operation.transform;
+
+import java.util.Arrays;
+
+
+/**
+ * Temporary arrays of {@code double} values reused by the bulk {@code transform(…)} methods executed in a thread.
+ * Transforms that need a buffer for converting between {@code float[]} and {@code double[]} arrays, or for storing
+ * the intermediate results of a chain of transforms, borrow an array from this workspace instead of allocating a
+ * new array on each call. When the same transforms are invoked many times with small batches of points (typically
+ * by a renderer), this avoids the garbage collection activity that would otherwise dominate the cost.
+ *
+ * <p>A transform may invoke other transforms which also need a buffer, for example in nested concatenated
+ * transforms. Consequently the arrays are managed as a stack: each call to {@link #acquire(int)} shall be
+ * followed by a call to {@link #release()} in a {@code finally} block, in reverse order of acquisition.
+ * Arrays returned by {@code acquire(…)} may be longer than requested and may contain values from previous
+ * usages; callers shall write the values before to read them.</p>
+ *
+ * <p>This class is not thread-safe, but each thread has its own instance.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+final class Workspace {
+    /**
+     * The workspace of each thread, created when first needed.
+     */
+    private static final ThreadLocal<Workspace> CURRENT = ThreadLocal.withInitial(Workspace::new);
+
+    /**
+     * The arrays for each level of nested transforms. Elements at index equal or greater than {@link #depth}
+     * are available for reuse. Elements may be {@code null} if not yet allocated.
+     */
+    private double[][] buffers;
+
+    /**
+     * Number of arrays currently in use.
+     */
+    private int depth;
+
+    /**
+     * Creates a new workspace for the current thread.
+     */
+    private Workspace() {
+        buffers = new double[4][];
+    }
+
+    /**
+     * Returns the workspace of the current thread.
+     *
+     * @return the workspace of the current thread.
+     */
+    static Workspace current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Returns an array of length equal or greater than the given length. The array is cached for reuse
+     * if its length does not exceed {@link AbstractMathTransform#MAXIMUM_BUFFER_SIZE}, which is the case
+     * of all buffers except when a single point has a very large number of dimensions, or when a whole
+     * array must be copied because of overlapping source and destination. The caller shall invoke
+     * {@link #release()} when the array is no longer used, even if the array was not cached.
+     *
+     * @param  length  minimal length of the requested array.
+     * @return an array of length equal or greater than the given length.
+     */
+    double[] acquire(final int length) {
+        if (depth >= buffers.length) {
+            buffers = Arrays.copyOf(buffers, depth * 2);
+        }
+        double[] buffer = buffers[depth];
+        if (buffer == null || buffer.length < length) {
+            if (length <= AbstractMathTransform.MAXIMUM_BUFFER_SIZE) {
+                buffer = new double[AbstractMathTransform.MAXIMUM_BUFFER_SIZE];
+                buffers[depth] = buffer;
+            } else {
+                buffer = new double[length];
+            }
+        }
+        depth++;
+        return buffer;
+    }
+
+    /**
+     * Makes available for reuse the array returned by the last call to {@link #acquire(int)}.
+     */
+    void release() {
+        depth--;
+        assert depth >= 0 : depth;
+    }
+}
@@ -16,6 +16,7 @@
  */
 package org.apache.sis.internal.referencing.provider;
 
+import java.util.Arrays;
 import java.net.URISyntaxException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -28,7 +29,11 @@ import java.nio.charset.StandardCharsets;
 import javax.measure.quantity.Angle;
 import org.opengis.geometry.Envelope;
 import org.opengis.util.FactoryException;
+import org.opengis.parameter.ParameterValueGroup;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.MathTransformFactory;
 import org.opengis.referencing.operation.TransformException;
+import org.apache.sis.internal.system.DefaultFactories;
 import org.apache.sis.referencing.operation.matrix.Matrix3;
 import org.apache.sis.geometry.Envelope2D;
 import org.apache.sis.geometry.Envelopes;
@@ -42,7 +47,7 @@ import static org.apache.sis.test.Assert.*;
  * Tests the {@link NTv2} grid loader.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.8
+ * @version 1.0
  * @since 0.7
  * @module
  */
@@ -76,6 +81,127 @@ public final strictfp class NTv2Test extends DatumShiftTestCase {
                 147600 + 360 * (74 + 6));   // Subgrid uses 7 cells along latitude axis
     }
 
+    /**
+     * Tests a file containing a coarse parent grid and two finer child grids sharing a border.
+     * Each grid has a constant shift, which allow us to verify which grid has been used for
+     * each point.
+     *
+     * @throws IOException if an error occurred while writing or loading the grid.
+     * @throws FactoryException if an error occurred while computing the grid.
+     * @throws TransformException if an error occurred while transforming the points.
+     */
+    @Test
+    public void testSubGrids() throws IOException, FactoryException, TransformException {
+        final ByteBuffer buffer = ByteBuffer.allocate(4096);
+        writeOverview(buffer, 3);
+        //                                   West    East   South   North  Increment  Shift
+        writeConstantGrid(buffer, "P", "NONE",    0, -14400, 144000, 158400, 3600,    1);
+        writeConstantGrid(buffer, "A", "P",   -3600,  -7200, 147600, 154800, 1800,    2);
+        writeConstantGrid(buffer, "B", "P",   -7200, -10800, 147600, 154800, 1800,    3);
+        final Path file = Files.createTempFile("NTv2", ".gsb");
+        try {
+            Files.write(file, Arrays.copyOf(buffer.array(), buffer.position()));
+            assertEquals("subgrids", 2, NTv2.getOrLoad(file).subgrids.size());
+            final ParameterValueGroup values = NTv2.PARAMETERS.createValue();
+            values.parameter("Latitude and longitude difference file").setValue(file);
+            final MathTransform tr = new NTv2().createMathTransform(
+                    DefaultFactories.forBuildin(MathTransformFactory.class), values);
+            /*
+             * Points in the parent grid only, in the first child, in the second child and on the border
+             * shared by the two children. Longitude shifts are positive toward west in NTv2 files.
+             */
+            final double[] points = {0.5, 40.5,   1.5, 42,   2.5, 42,   2.0, 42};
+            final double[] shifts = {1,           2,         3,         3};
+            final double[] result = new double[points.length];
+            tr.transform(points, 0, result, 0, shifts.length);
+            for (int i=0; i<shifts.length; i++) {
+                final double shift = shifts[i] / DatumShiftGridLoader.DEGREES_TO_SECONDS;
+                assertEquals("λ", points[i*2  ] - shift, result[i*2  ], 1E-9);
+                assertEquals("φ", points[i*2+1] + shift, result[i*2+1], 1E-9);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests loading a grid large enough for being memory-mapped instead than copied in arrays,
+     * together with the serialization of that grid.
+     *
+     * @throws IOException if an error occurred while writing or loading the grid.
+     * @throws FactoryException if an error occurred while computing the grid.
+     * @throws TransformException if an error occurred while computing the envelope or interpolating.
+     */
+    @Test
+    public void testMemoryMapped() throws IOException, FactoryException, TransformException {
+        final int n = 256;              // Number of cells along each axis. Shall be at least √MAPPING_THRESHOLD.
+        final double cellSize = 60;
+        final ByteBuffer buffer = ByteBuffer.allocate(n*n*16 + 1024);
+        writeOverview(buffer, 1);
+        writeConstantGrid(buffer, "M", "NONE", 0, -(n-1)*cellSize, 144000, 144000 + (n-1)*cellSize, cellSize, 2);
+        final Path file = Files.createTempFile("NTv2", ".gsb");
+        try {
+            Files.write(file, Arrays.copyOf(buffer.array(), buffer.position()));
+            final DatumShiftGridFile<Angle,Angle> grid = NTv2.getOrLoad(file);
+            assertInstanceOf("Should be memory-mapped.", DatumShiftGridMapped.class, grid);
+            assertArrayEquals("gridSize", new int[] {n, n}, grid.getGridSize());
+            assertEquals("cellPrecision", (ACCURACY / 10) / cellSize, grid.getCellPrecision(), 0.5E-6 / cellSize);
+            assertEquals("cellValue", 2 / cellSize, grid.getCellValue(0, 10, 20), 1E-12);
+            assertEquals("cellValue", 2 / cellSize, grid.getCellValue(1, 20, 10), 1E-12);
+            assertArrayEquals("interpolateAt", new double[] {-2, 2},
+                    grid.interpolateAt(1000, 150000), 1E-6);
+            assertSame("Grid should be cached.", grid, NTv2.getOrLoad(file));
+            /*
+             * Memory-mapped buffers are not serializable. The grid is serialized as a reference
+             * to the file and the position of the grid in that file, then mapped again.
+             */
+            final DatumShiftGridFile<?,?> copy = assertSerializedEquals(grid);
+            assertEquals("cellValue", 2 / cellSize, copy.getCellValue(0, 10, 20), 1E-12);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Writes the overview header of a NTv2 file which will contain the given number of grids.
+     * The buffer is set to little endian byte order. Each grid shall have 9 header records,
+     * as written by {@link #writeConstantGrid writeConstantGrid(…)}.
+     */
+    private static void writeOverview(final ByteBuffer buffer, final int numGrids) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        writeString(buffer, "NUM_OREC"); buffer.putInt(4); nextRecord(buffer);
+        writeString(buffer, "NUM_SREC"); buffer.putInt(9); nextRecord(buffer);
+        writeString(buffer, "NUM_FILE"); buffer.putInt(numGrids); nextRecord(buffer);
+        writeString(buffer, "GS_TYPE");  writeString(buffer, "SECONDS");
+    }
+
+    /**
+     * Writes a sub-grid having the same shift in all cells. Longitudes are positive toward west
+     * and all angles are in arc-seconds. This is used by {@link #testSubGrids()}.
+     */
+    private static void writeConstantGrid(final ByteBuffer buffer, final String name, final String parent,
+            final double west, final double east, final double south, final double north,
+            final double increment, final float shift)
+    {
+        final int nx = (int) Math.round((west - east) / increment) + 1;
+        final int ny = (int) Math.round((north - south) / increment) + 1;
+        writeString(buffer, "SUB_NAME"); writeString(buffer, name);
+        writeString(buffer, "PARENT");   writeString(buffer, parent);
+        writeString(buffer, "S_LAT");    buffer.putDouble(south);
+        writeString(buffer, "N_LAT");    buffer.putDouble(north);
+        writeString(buffer, "E_LONG");   buffer.putDouble(east);
+        writeString(buffer, "W_LONG");   buffer.putDouble(west);
+        writeString(buffer, "LAT_INC");  buffer.putDouble(increment);
+        writeString(buffer, "LONG_INC"); buffer.putDouble(increment);
+        writeString(buffer, "GS_COUNT"); buffer.putInt(nx * ny); nextRecord(buffer);
+        for (int i = nx*ny; --i >= 0;) {
+            buffer.putFloat(shift);
+            buffer.putFloat(shift);
+            buffer.putFloat(ACCURACY);
+            buffer.putFloat(ACCURACY);
+        }
+    }
+
     /**
      * Tests loading an official {@code "NTF_R93.gsb"} datum shift grid file and interpolating the sample point
      * given by {@link FranceGeocentricInterpolationTest#samplePoint(int)}. This test is normally not executed
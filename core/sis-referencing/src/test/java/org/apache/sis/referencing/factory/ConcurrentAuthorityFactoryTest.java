@@ -21,10 +21,21 @@ import java.util.ArrayList;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.io.File;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import org.opengis.util.FactoryException;
 import org.apache.sis.internal.system.Loggers;
 import org.apache.sis.util.logging.Logging;
+import org.apache.sis.referencing.crs.HardCodedCRS;
 import org.apache.sis.test.DependsOn;
+import org.apache.sis.test.DependsOnMethod;
 import org.apache.sis.test.TestCase;
 import org.junit.Test;
 
@@ -36,7 +47,7 @@ import static org.junit.Assume.assumeTrue;
  * Tests {@link ConcurrentAuthorityFactory}.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.7
+ * @version 1.0
  * @since   0.7
  * @module
  */
@@ -147,6 +158,80 @@ public final strictfp class ConcurrentAuthorityFactoryTest extends TestCase {
         assertTrue  ("Worker should be disposed.",  createdDAOs.get(0).isClosed());
     }
 
+    /**
+     * Tests {@link ConcurrentAuthorityFactory#saveSnapshot(Path)} followed by
+     * {@link ConcurrentAuthorityFactory#loadSnapshot(Path)} in a new factory.
+     *
+     * @throws FactoryException should never happen.
+     * @throws IOException if an error occurred while writing or reading the temporary file.
+     */
+    @Test
+    public void testSnapshot() throws FactoryException, IOException {
+        final Path file = Files.createTempFile("sis-snapshot", ".ser");
+        try {
+            Mock factory = new Mock();
+            assertNotNull(factory.createObject("84"));
+            assertNotNull(factory.createObject("4326"));
+            assertEquals("saveSnapshot", 2, factory.saveSnapshot(file));
+            /*
+             * Load the snapshot in a new factory. A Data Access Object is created for verifying
+             * the authority edition, but no new DAO shall be created for the objects in the snapshot.
+             */
+            factory = new Mock();
+            assertEquals("loadSnapshot", 2, factory.loadSnapshot(file));
+            final List<AuthorityFactoryMock> createdDAOs = factory.createdDAOs();
+            assertEquals(HardCodedCRS.WGS84,    factory.createObject("84"));
+            assertEquals(HardCodedCRS.WGS84_φλ, factory.createObject("4326"));
+            assertEquals("Expected no new DAO.", createdDAOs, factory.createdDAOs());
+            assertEquals("Objects already in cache shall not be replaced.", 0, factory.loadSnapshot(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Verifies that {@link ConcurrentAuthorityFactory#loadSnapshot(Path)} rejects classes which are not expected
+     * in a snapshot. The header is copied from a valid snapshot, followed by an entry containing a {@link File}.
+     *
+     * @throws FactoryException should never happen.
+     * @throws IOException if an error occurred while writing or reading the temporary file.
+     */
+    @Test
+    @DependsOnMethod("testSnapshot")
+    public void testSnapshotClassFilter() throws FactoryException, IOException {
+        final Path file = Files.createTempFile("sis-snapshot", ".ser");
+        try {
+            final Mock factory = new Mock();
+            assertEquals("saveSnapshot", 0, factory.saveSnapshot(file));
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataInputStream  in  = new DataInputStream (Files.newInputStream(file));
+                 DataOutputStream out = new DataOutputStream(bytes))
+            {
+                out.writeInt(in.readInt());                     // Snapshot format.
+                out.writeUTF(in.readUTF());                     // Apache SIS version.
+                out.writeUTF(in.readUTF());                     // Authority edition.
+                out.writeInt(1);                                // Number of entries.
+                out.writeUTF("84");
+                final ByteArrayOutputStream entry = new ByteArrayOutputStream();
+                try (ObjectOutputStream oos = new ObjectOutputStream(entry)) {
+                    oos.writeObject(String.class);
+                    oos.writeObject(new File("forbidden"));
+                }
+                out.writeInt(entry.size());
+                entry.writeTo(out);
+            }
+            Files.write(file, bytes.toByteArray());
+            try {
+                new Mock().loadSnapshot(file);
+                fail("Shall not deserialize a class which is not allowed in snapshots.");
+            } catch (InvalidClassException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("java.io.File"));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
     /**
      * Sleeps and ensures that the sleep time did not exceeded the timeout. The sleep time could be greater if the test
      * machine is under heavy load (for example a Jenkins server), in which case we will cancel the test without failure.
@@ -17,9 +17,11 @@
 package org.apache.sis.referencing.operation;
 
 import java.util.List;
+import java.util.ArrayList;
 import java.text.ParseException;
 import org.opengis.util.FactoryException;
 import org.opengis.parameter.ParameterValueGroup;
+import org.opengis.metadata.extent.GeographicBoundingBox;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.referencing.operation.ConcatenatedOperation;
 import org.opengis.referencing.operation.CoordinateOperation;
@@ -30,6 +32,8 @@ import org.apache.sis.internal.referencing.Formulas;
 import org.apache.sis.internal.referencing.PositionalAccuracyConstant;
 import org.apache.sis.internal.util.Constants;
 import org.apache.sis.geometry.DirectPosition2D;
+import org.apache.sis.metadata.iso.extent.DefaultGeographicBoundingBox;
+import org.apache.sis.metadata.iso.extent.Extents;
 import org.apache.sis.io.wkt.WKTFormat;
 import org.apache.sis.referencing.CRS;
 import org.apache.sis.referencing.CommonCRS;
@@ -352,4 +356,58 @@ public final strictfp class DefaultCoordinateOperationFactoryTest extends MathTr
                         CoordinateOperationFinderTest.expectedAGD66(false));
         validate();
     }
+
+    /**
+     * A factory which counts the number of searches for coordinate operations, for verifying cache hits and misses.
+     * The areas of interest given to the finder are also recorded.
+     */
+    private static final class CountingFactory extends DefaultCoordinateOperationFactory {
+        /** The areas of interest given to the finders, in the order they were requested. */
+        final List<GeographicBoundingBox> searches = new ArrayList<>();
+
+        /** Records the area of interest before to create the finder. */
+        @Override
+        protected CoordinateOperationFinder createOperationFinder(
+                final CoordinateOperationAuthorityFactory registry,
+                final CoordinateOperationContext context) throws FactoryException
+        {
+            searches.add(Extents.getGeographicBoundingBox(context.getAreaOfInterest()));
+            return super.createOperationFinder(registry, context);
+        }
+    }
+
+    /**
+     * Tests the cache of operations found for an area of interest. Two areas of interest in the same cells
+     * of {@value ContextualCRSPair#QUANTUM}° shall share the same operation without new search, while a distant
+     * area of interest shall cause a new search. The search shall be done with the expanded area of interest.
+     *
+     * @throws ParseException if a CRS used in this test can not be parsed.
+     * @throws FactoryException if the operation can not be created.
+     */
+    @Test
+    public void testCacheWithAreaOfInterest() throws ParseException, FactoryException {
+        final CountingFactory counter = new CountingFactory();
+        final CoordinateReferenceSystem sourceCRS = CommonCRS.WGS84.geographic();
+        final CoordinateReferenceSystem targetCRS = parse("$Mercator");
+        final CoordinateOperation op1 = counter.createOperation(sourceCRS, targetCRS,
+                CoordinateOperationContext.fromBoundingBox(new DefaultGeographicBoundingBox(2.1, 2.4, 40.1, 40.3)));
+        assertEquals("Cache miss expected for the first request.", 1, counter.searches.size());
+        assertEquals("Area of interest shall be expanded.",
+                new DefaultGeographicBoundingBox(2, 3, 40, 41), counter.searches.get(0));
+
+        final CoordinateOperation op2 = counter.createOperation(sourceCRS, targetCRS,
+                CoordinateOperationContext.fromBoundingBox(new DefaultGeographicBoundingBox(2.2, 2.6, 40.2, 40.5)));
+        assertEquals("Cache hit expected for a nearby area of interest.", 1, counter.searches.size());
+        assertSame("Nearby areas of interest shall share the cached operation.", op1, op2);
+
+        counter.createOperation(sourceCRS, targetCRS,
+                CoordinateOperationContext.fromBoundingBox(new DefaultGeographicBoundingBox(5.1, 5.2, 40.1, 40.2)));
+        assertEquals("Cache miss expected for a distant area of interest.", 2, counter.searches.size());
+        assertEquals("Area of interest shall be expanded.",
+                new DefaultGeographicBoundingBox(5, 6, 40, 41), counter.searches.get(1));
+
+        counter.createOperation(sourceCRS, targetCRS,
+                CoordinateOperationContext.fromBoundingBox(new DefaultGeographicBoundingBox(5.3, 5.9, 40.5, 40.9)));
+        assertEquals("Cache hit expected for the distant area of interest.", 2, counter.searches.size());
+    }
 }
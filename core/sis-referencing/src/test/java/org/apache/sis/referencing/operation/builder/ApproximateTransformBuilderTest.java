@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.referencing.operation.builder;
+
+import java.util.Random;
+import org.opengis.util.FactoryException;
+import org.opengis.parameter.ParameterValueGroup;
+import org.opengis.referencing.operation.Matrix;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.MathTransform2D;
+import org.opengis.referencing.operation.MathTransformFactory;
+import org.opengis.referencing.operation.TransformException;
+import org.apache.sis.referencing.operation.transform.AbstractMathTransform2D;
+import org.apache.sis.referencing.operation.transform.LinearTransform;
+import org.apache.sis.referencing.operation.transform.MathTransforms;
+import org.apache.sis.referencing.operation.matrix.Matrix2;
+import org.apache.sis.referencing.operation.matrix.Matrix3;
+import org.apache.sis.internal.system.DefaultFactories;
+import org.apache.sis.internal.system.Loggers;
+import org.apache.sis.geometry.Envelope2D;
+import org.apache.sis.test.DependsOn;
+import org.apache.sis.test.DependsOnMethod;
+import org.apache.sis.test.LoggingWatcher;
+import org.apache.sis.test.TestCase;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link ApproximateTransformBuilder}.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+@DependsOn(LocalizationGridBuilderTest.class)
+public final strictfp class ApproximateTransformBuilderTest extends TestCase {
+    /**
+     * The domain in degrees of longitude and latitude where to approximate the Mercator projection.
+     */
+    private static final Envelope2D DOMAIN = new Envelope2D(null, -10, 0, 20, 50);
+
+    /**
+     * A JUnit rule for listening to the warning emitted when the tolerance can not be met.
+     *
+     * <p>This field is public because JUnit requires us to do so, but should be considered as an implementation details
+     * (it should have been a private field).</p>
+     */
+    @Rule
+    public final LoggingWatcher loggings = new LoggingWatcher(Loggers.COORDINATE_OPERATION);
+
+    /**
+     * Verifies that no unexpected warning has been emitted in any test defined in this class.
+     */
+    @After
+    public void assertNoUnexpectedLog() {
+        loggings.assertNoUnexpectedLog();
+    }
+
+    /**
+     * Creates a Mercator projection from (<var>longitude</var>, <var>latitude</var>) in degrees
+     * to (<var>easting</var>, <var>northing</var>) in metres.
+     */
+    private static MathTransform2D mercator() throws FactoryException {
+        final MathTransformFactory factory = DefaultFactories.forBuildin(MathTransformFactory.class);
+        final ParameterValueGroup pg = factory.getDefaultParameters("Mercator (variant A)");
+        pg.parameter("semi_major").setValue(6378137.0);
+        pg.parameter("semi_minor").setValue(6356752.314245179);
+        return (MathTransform2D) factory.createParameterizedTransform(pg);
+    }
+
+    /**
+     * Approximates a Mercator projection and verifies the errors at random points in the domain.
+     * The northing is non-linear, so the grid needs to be refined along the latitude axis.
+     *
+     * @throws FactoryException if an error occurred while creating a transform.
+     * @throws TransformException if an error occurred while transforming a point.
+     */
+    @Test
+    public void testMercator() throws FactoryException, TransformException {
+        final double tolerance = 10;                                // In metres.
+        final MathTransform2D exact = mercator();
+        final MathTransform approximation = new ApproximateTransformBuilder(exact, DOMAIN, tolerance).create(null);
+        assertNotSame("Expected an approximation.", exact, approximation);
+        verifyErrors(exact, approximation, tolerance);
+    }
+
+    /**
+     * Verifies the errors of the given approximation at random points in the domain.
+     */
+    private static void verifyErrors(final MathTransform exact, final MathTransform approximation,
+            final double tolerance) throws TransformException
+    {
+        final Random random = new Random(8392468);
+        final double[] source = new double[2000];
+        for (int i=0; i<source.length; i += 2) {
+            source[i  ] = DOMAIN.getMinX() + random.nextDouble() * DOMAIN.getWidth();
+            source[i+1] = DOMAIN.getMinY() + random.nextDouble() * DOMAIN.getHeight();
+        }
+        final double[] expected = new double[source.length];
+        final double[] actual   = new double[source.length];
+        exact.transform(source, 0, expected, 0, source.length / 2);
+        approximation.transform(source, 0, actual, 0, source.length / 2);
+        for (int i=0; i<source.length; i += 2) {
+            final double error = Math.hypot(expected[i] - actual[i], expected[i+1] - actual[i+1]);
+            assertTrue("Error exceeds tolerance.", error <= tolerance);
+        }
+    }
+
+    /**
+     * A transform which is affine everywhere except in the upper-right corner of {@link #DOMAIN},
+     * where a non-linear term is added to the <var>y</var> values. This transform counts the number
+     * of points where it has been evaluated.
+     */
+    private static final class Bump extends AbstractMathTransform2D {
+        /** Number of points evaluated in the affine part and in total. */
+        int affine, total;
+
+        /** Transforms a single point and optionally computes the derivative. */
+        @Override
+        public Matrix transform(final double[] srcPts, final int srcOff, final double[] dstPts, final int dstOff,
+                                final boolean derivate)
+        {
+            final double x  = srcPts[srcOff];
+            final double y  = srcPts[srcOff+1];
+            final double dx = Math.max(0, x -  5);
+            final double dy = Math.max(0, y - 40);
+            total++;
+            if (dx == 0 || dy == 0) affine++;
+            if (dstPts != null) {
+                dstPts[dstOff  ] = x;
+                dstPts[dstOff+1] = y + 0.04 * (dx*dx) * (dy*dy);
+            }
+            return derivate ? new Matrix2(1, 0, 0.08 * dx * (dy*dy), 1 + 0.08 * (dx*dx) * dy) : null;
+        }
+    }
+
+    /**
+     * Verifies that only the cells exceeding the tolerance are subdivided. The transform is non-linear
+     * only in a corner of the domain, so most exact evaluations shall be in that corner. A uniform grid
+     * would instead evaluate the exact transform mostly in the affine part, which is much larger.
+     *
+     * @throws FactoryException if an error occurred while creating a transform.
+     * @throws TransformException if an error occurred while transforming a point.
+     */
+    @Test
+    @DependsOnMethod("testMercator")
+    public void testLocalRefinement() throws FactoryException, TransformException {
+        final double tolerance = 0.01;
+        final Bump exact = new Bump();
+        final MathTransform approximation = new ApproximateTransformBuilder(exact, DOMAIN, tolerance).create(null);
+        assertNotSame("Expected an approximation.", exact, approximation);
+        assertTrue("Too many evaluations in the affine part.", exact.affine * 10 < exact.total);
+        verifyErrors(exact, approximation, tolerance);
+    }
+
+    /**
+     * Verifies that the exact transform is returned and a warning is logged
+     * if the tolerance can not be met with the maximal grid size.
+     *
+     * @throws FactoryException if an error occurred while creating a transform.
+     */
+    @Test
+    public void testFallback() throws FactoryException {
+        final MathTransform2D exact = mercator();
+        final ApproximateTransformBuilder builder = new ApproximateTransformBuilder(exact, DOMAIN, 0.001);
+        builder.setMaximumGridSize(9);
+        assertEquals("maximumGridSize", 9, builder.getMaximumGridSize());
+        assertSame(exact, builder.create(null));
+        loggings.assertNextLogContains("9");
+    }
+
+    /**
+     * Verifies that the approximation of an affine transform is linear.
+     *
+     * @throws FactoryException if an error occurred while creating a transform.
+     */
+    @Test
+    public void testLinear() throws FactoryException {
+        final MathTransform2D exact = (MathTransform2D) MathTransforms.linear(new Matrix3(
+                2, 0, 5,
+                0, 3, 7,
+                0, 0, 1));
+        final MathTransform approximation = new ApproximateTransformBuilder(exact, DOMAIN, 1E-6).create(null);
+        assertTrue("Expected a linear transform.", approximation instanceof LinearTransform);
+    }
+}
@@ -19,6 +19,7 @@ package org.apache.sis.referencing.operation.transform;
 import java.net.URL;
 import org.opengis.util.FactoryException;
 import org.opengis.parameter.ParameterValueGroup;
+import org.opengis.referencing.operation.MathTransform;
 import org.opengis.referencing.operation.MathTransformFactory;
 import org.opengis.referencing.operation.TransformException;
 import org.apache.sis.internal.referencing.provider.NADCON;
@@ -34,13 +35,14 @@ import org.apache.sis.test.DependsOnMethod;
 import org.apache.sis.test.DependsOn;
 import org.junit.Test;
 
+import static org.opengis.test.Assert.*;
 
 
 /**
  * Tests {@link InterpolatedTransform}.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.7
+ * @version 1.0
  * @since   0.7
  * @module
  */
@@ -129,6 +131,47 @@ public final strictfp class InterpolatedTransformTest extends MathTransformTestC
                         NADCONTest.samplePoint(1));
     }
 
+    /**
+     * Tests the inverse transformation of a sequence of nearby points. The translation found for a point
+     * shall be used as the starting guess for the next point, which should reduce the number of iterations
+     * compared to transforming each point independently.
+     *
+     * @throws FactoryException if an error occurred while loading the grid.
+     * @throws TransformException if an error occurred while transforming a coordinate.
+     */
+    @Test
+    @DependsOnMethod("testInverseTransform")
+    public void testInverseSequence() throws FactoryException, TransformException {
+        createRGF93();
+        InterpolatedTransform interpolated = null;
+        for (final MathTransform step : MathTransforms.getSteps(transform)) {
+            if (step instanceof InterpolatedTransform) {
+                interpolated = (InterpolatedTransform) step;
+            }
+        }
+        assertNotNull("InterpolatedTransform", interpolated);
+        final int numPts = 40;
+        final double[] points = new double[numPts * 2];
+        for (int i=0; i<numPts; i++) {
+            points[i*2  ] = 2 + 0.05*i;                     // Scanline in grid coordinates.
+            points[i*2+1] = 3;
+        }
+        final double[] expected = new double[points.length];
+        long independent = 0;
+        for (int i=0; i<numPts; i++) {
+            independent += interpolated.inverseTransform(points, i*2, expected, i*2, 1);
+        }
+        final double[] actual = new double[points.length];
+        final long sequence = interpolated.inverseTransform(points, 0, actual, 0, numPts);
+        final double[] bulk = new double[points.length];
+        interpolated.inverse().transform(points, 0, bulk, 0, numPts);
+        assertTrue("Expected fewer iterations.", sequence < independent);
+        assertArrayEquals(actual, bulk, 0);
+        for (int i=0; i<points.length; i++) {
+            assertEquals(expected[i], actual[i], 1E-6);             // Tolerance in units of grid cells.
+        }
+    }
+
     /**
      * Tests the derivatives at the sample point. This method compares the derivatives computed by
      * the transform with an estimation of derivatives computed by the finite differences method.
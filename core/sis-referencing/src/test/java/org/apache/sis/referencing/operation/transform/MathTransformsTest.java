@@ -17,7 +17,10 @@
 package org.apache.sis.referencing.operation.transform;
 
 import java.util.List;
+import java.util.Random;
+import java.util.Arrays;
 import org.opengis.geometry.DirectPosition;
+import org.opengis.geometry.MismatchedDimensionException;
 import org.opengis.referencing.operation.Matrix;
 import org.opengis.referencing.operation.MathTransform;
 import org.opengis.referencing.operation.MathTransform1D;
@@ -212,4 +215,130 @@ public final strictfp class MathTransformsTest extends TestCase {
         assertInstanceOf("2D", MathTransform2D.class, tr);
         assertFalse("isIdentity", tr.isIdentity());
     }
+
+    /**
+     * Tests {@link MathTransforms#concatenateFast(LinearTransform...)} by comparing with the result
+     * of {@link MathTransforms#concatenate(MathTransform, MathTransform, MathTransform)}.
+     * The concatenation includes a non-square matrix dropping a dimension.
+     */
+    @Test
+    public void testConcatenateFast() {
+        final LinearTransform tr1 = MathTransforms.linear(Matrices.create(4, 4, new double[] {
+            2, 0, 0, 10,
+            0, 3, 0, 20,
+            0, 0, 5, 30,
+            0, 0, 0,  1
+        }));
+        final LinearTransform tr2 = MathTransforms.linear(Matrices.create(3, 4, new double[] {
+            0, 1, 0, -4,
+            1, 0, 0,  7,
+            0, 0, 0,  1
+        }));
+        final LinearTransform tr3 = MathTransforms.linear(new Matrix3(
+            0.5, -0.25, 1,
+            0.25, 0.5,  2,
+            0,    0,    1));
+        final LinearTransform fast = MathTransforms.concatenateFast(tr1, tr2, tr3);
+        assertInstanceOf("2D", MathTransform2D.class, fast);
+        final Matrix expected = MathTransforms.getMatrix(MathTransforms.concatenate(tr1, tr2, tr3));
+        assertMatrixEquals("concatenateFast", expected, fast.getMatrix(), 1E-12);
+        try {
+            MathTransforms.concatenateFast(tr2, tr1);
+            fail("Expected a dimension mismatch.");
+        } catch (MismatchedDimensionException e) {
+            assertNotNull(e.getMessage());
+        }
+    }
+
+    /**
+     * Tests {@link MathTransforms#transformInParallel(MathTransform, double[], int, double[], int, int)}
+     * by comparing with the result of sequential transforms, with and without overlapping arrays.
+     *
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Test
+    public void testTransformInParallel() throws TransformException {
+        final MathTransform tr = createConcatenateAndPassThrough();
+        final int numPts = 7 * ParallelTransform.CHUNK_SIZE / 3 + 17;
+        final double[] source = new double[(numPts + 1) * 3];
+        final Random random = new Random(2018);
+        for (int i=0; i<source.length; i++) {
+            source[i] = random.nextDouble();
+        }
+        final double[] expected = new double[numPts * 3];
+        final double[] actual   = new double[numPts * 3];
+        tr.transform(source, 0, expected, 0, numPts);
+        MathTransforms.transformInParallel(tr, source, 0, actual, 0, numPts);
+        assertArrayEquals("Separated arrays.", expected, actual, STRICT);
+        /*
+         * Same test in a single array, with the destination shifted by one point.
+         * This case requires a copy of source coordinates.
+         */
+        final double[] shared = source.clone();
+        MathTransforms.transformInParallel(tr, shared, 0, shared, 3, numPts);
+        assertArrayEquals("Overlapping ranges.", expected, Arrays.copyOfRange(shared, 3, shared.length), STRICT);
+        /*
+         * Transformation in-place, which can be done in each chunk.
+         */
+        System.arraycopy(source, 0, shared, 0, shared.length);
+        MathTransforms.transformInParallel(tr, shared, 0, shared, 0, numPts);
+        assertArrayEquals("In-place.", expected, Arrays.copyOf(shared, numPts * 3), STRICT);
+    }
+
+    /**
+     * Tests {@link MathTransforms#transformInParallel(MathTransform, double[], int, double[], int, int)}
+     * with points that can not be transformed. The points that failed shall be set to NaN, all other points
+     * shall be transformed and the exception of the first failure shall be propagated.
+     */
+    @Test
+    @DependsOnMethod("testTransformInParallel")
+    public void testTransformInParallelFailures() {
+        final MathTransform tr = new NegativeFailureTransform();
+        final int numPts = 5 * ParallelTransform.CHUNK_SIZE;
+        final double[] coordinates = new double[numPts * 2];
+        for (int i=0; i<coordinates.length; i++) {
+            coordinates[i] = i;
+        }
+        final int[] failures = {1000, 3 * ParallelTransform.CHUNK_SIZE / 2, 4 * ParallelTransform.CHUNK_SIZE};
+        for (final int i : failures) {
+            coordinates[i * 2] = -i;
+        }
+        try {
+            MathTransforms.transformInParallel(tr, coordinates, 0, coordinates, 0, numPts);
+            fail("Expected a TransformException.");
+        } catch (TransformException e) {
+            assertSame("lastCompletedTransform", tr, e.getLastCompletedTransform());
+            assertEquals("First failure shall be propagated.", "-1000.0", e.getMessage());
+            assertEquals("suppressed", failures.length - 1, e.getSuppressed().length);
+        }
+        for (int i=0; i<numPts; i++) {
+            final double x = coordinates[i*2];
+            if (Arrays.binarySearch(failures, i) >= 0) {
+                assertTrue(Double.isNaN(x));
+            } else {
+                assertEquals(i * 4, x, STRICT);
+            }
+        }
+    }
+
+    /**
+     * A transform multiplying all coordinates by 2, except for negative <var>x</var> values
+     * for which an exception is thrown. This transform is stateless, thus thread-safe.
+     */
+    private static final strictfp class NegativeFailureTransform extends AbstractMathTransform {
+        @Override public int getSourceDimensions() {return 2;}
+        @Override public int getTargetDimensions() {return 2;}
+        @Override public Matrix transform(final double[] srcPts, final int srcOff,
+                                          final double[] dstPts, final int dstOff,
+                                          final boolean derivate) throws TransformException
+        {
+            final double x = srcPts[srcOff];
+            if (x < 0) {
+                throw new TransformException(String.valueOf(x));
+            }
+            dstPts[dstOff]   = x * 2;
+            dstPts[dstOff+1] = srcPts[srcOff+1] * 2;
+            return null;
+        }
+    }
 }
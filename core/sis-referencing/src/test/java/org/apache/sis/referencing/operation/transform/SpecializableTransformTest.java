@@ -119,6 +119,33 @@ public final strictfp class SpecializableTransformTest extends MathTransformTest
         verifyDerivatives(target);
     }
 
+    /**
+     * Tests a tree of specializations where a sub-area contains two sub-areas sharing a border,
+     * together with another top-level sub-area. This is the structure found in NTv2 files having
+     * many sub-grids.
+     *
+     * @throws IllegalArgumentException if {@link SpecializableTransform} constructor rejects a parameter.
+     * @throws TransformException if a transformation failed.
+     */
+    @Test
+    @DependsOnMethod("testTransform")
+    public void testSiblings() throws TransformException {
+        final Map<Envelope,MathTransform> specializations = new HashMap<>(8);
+        assertNull(specializations.put(new Envelope2D(null, -4, -3,  4, 2), translation(0.2)));
+        assertNull(specializations.put(new Envelope2D(null,  6, -4,  3, 3), translation(0.4)));
+        assertNull(specializations.put(new Envelope2D(null, -5, -4, 10, 7), translation(0.1)));
+        assertNull(specializations.put(new Envelope2D(null,  0, -3,  4, 2), translation(0.3)));
+        //                      ┌── Parent ──┐┌─ Child 1 ─┐┌─── Child 2 ──┐┌── Other ─┐┌ global ┐
+        final double[] source = {-4.5,  2,    -2,    -2,    2,    -2,     7,    -2,    8,  2};
+        final double[] target = {-44.9, 20.1, -19.8, -19.8, 20.3, -19.7,  70.4, -19.6, 80, 20};
+
+        tolerance = 1E-14;
+        transform = new SpecializableTransform(translation(0), specializations);
+        verifyTransform(source, target);
+        transform = transform.inverse();
+        verifyTransform(target, source);
+    }
+
     /**
      * Tests consistency between different {@code transform(…)} methods in forward transforms.
      * This test uses a fixed sequence of random numbers. We fix the sequence because the transform
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.referencing.operation.transform;
+
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the {@link Workspace} class.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+public final strictfp class WorkspaceTest extends TestCase {
+    /**
+     * Tests that nested acquisitions return distinct arrays, and that released arrays are reused.
+     */
+    @Test
+    public void testNesting() {
+        final Workspace workspace = Workspace.current();
+        assertSame("Shall be the same instance for the same thread.", workspace, Workspace.current());
+        final double[] outer = workspace.acquire(10);
+        try {
+            assertTrue(outer.length >= 10);
+            final double[] inner = workspace.acquire(20);
+            try {
+                assertNotSame("Nested buffers shall be distinct.", outer, inner);
+            } finally {
+                workspace.release();
+            }
+            final double[] again = workspace.acquire(30);
+            try {
+                assertSame("Released buffer shall be reused.", inner, again);
+            } finally {
+                workspace.release();
+            }
+        } finally {
+            workspace.release();
+        }
+        final double[] reused = workspace.acquire(AbstractMathTransform.MAXIMUM_BUFFER_SIZE);
+        workspace.release();
+        assertSame("Released buffer shall be reused.", outer, reused);
+    }
+
+    /**
+     * Tests that arrays larger than the maximal buffer size are not cached.
+     */
+    @Test
+    public void testLargeArray() {
+        final Workspace workspace = Workspace.current();
+        final int length = AbstractMathTransform.MAXIMUM_BUFFER_SIZE * 2 + 1;
+        final double[] large = workspace.acquire(length);
+        workspace.release();
+        assertEquals(length, large.length);
+        final double[] small = workspace.acquire(1);
+        workspace.release();
+        assertNotSame("Large arrays shall not be cached.", large, small);
+        assertEquals(AbstractMathTransform.MAXIMUM_BUFFER_SIZE, small.length);
+    }
+}
@@ -110,6 +110,7 @@ import org.junit.BeforeClass;
     org.apache.sis.referencing.operation.transform.CoordinateDomainTest.class,
     org.apache.sis.referencing.operation.transform.IterationStrategyTest.class,
     org.apache.sis.referencing.operation.transform.AbstractMathTransformTest.class,
+    org.apache.sis.referencing.operation.transform.WorkspaceTest.class,
     org.apache.sis.referencing.operation.transform.TranslationTransformTest.class,
     org.apache.sis.referencing.operation.transform.ScaleTransformTest.class,
     org.apache.sis.referencing.operation.transform.ProjectiveTransformTest.class,
@@ -219,6 +220,7 @@ import org.junit.BeforeClass;
     org.apache.sis.referencing.operation.builder.ResidualGridTest.class,
     org.apache.sis.referencing.operation.builder.LinearTransformBuilderTest.class,
     org.apache.sis.referencing.operation.builder.LocalizationGridBuilderTest.class,
+    org.apache.sis.referencing.operation.builder.ApproximateTransformBuilderTest.class,
 
     // Geometry and miscellaneous
     org.apache.sis.geometry.AbstractDirectPositionTest.class,
@@ -0,0 +1,351 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.math;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.FloatBuffer;
+import java.nio.DoubleBuffer;
+import java.util.Optional;
+import org.apache.sis.util.resources.Errors;
+
+
+/**
+ * A read-only vector backed by a NIO buffer which is not backed by an accessible array.
+ * This is typically a view over a file mapped in memory, in which case values are read
+ * directly from the operating system page cache without being copied in a Java array.
+ * Values are read at absolute positions, relative to the buffer position at construction time.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+abstract class BufferVector extends Vector {
+    /**
+     * Whether integer values shall be interpreted as unsigned.
+     */
+    private final boolean isUnsigned;
+
+    /**
+     * For sub-classes constructor.
+     */
+    BufferVector(final boolean isUnsigned) {
+        this.isUnsigned = isUnsigned;
+    }
+
+    /**
+     * Creates a new instance wrapping the values between the position and the limit of the given buffer.
+     *
+     * @throws IllegalArgumentException if the type of the given buffer is not recognized by the method.
+     */
+    static Vector newInstance(final Buffer buffer, final boolean isUnsigned) throws IllegalArgumentException {
+        if (buffer instanceof DoubleBuffer) return new Doubles(((DoubleBuffer) buffer).slice());
+        if (buffer instanceof FloatBuffer)  return new Floats (((FloatBuffer)  buffer).slice());
+        if (buffer instanceof LongBuffer)   return new Longs  (((LongBuffer)   buffer).slice(), isUnsigned);
+        if (buffer instanceof IntBuffer)    return new Integers(((IntBuffer)   buffer).slice(), isUnsigned);
+        if (buffer instanceof ShortBuffer)  return new Shorts (((ShortBuffer)  buffer).slice(), isUnsigned);
+        if (buffer instanceof ByteBuffer)   return new Bytes  (((ByteBuffer)   buffer).slice(), isUnsigned);
+        throw new IllegalArgumentException(Errors.format(Errors.Keys.IllegalArgumentClass_2, "array", buffer.getClass()));
+    }
+
+    /**
+     * Returns {@code true} if integer values shall be interpreted as unsigned.
+     */
+    @Override
+    public final boolean isUnsigned() {
+        return isUnsigned;
+    }
+
+    /**
+     * Returns the buffer wrapped by this vector.
+     */
+    abstract Buffer data();
+
+    /**
+     * Returns the number of elements in the buffer.
+     */
+    @Override
+    public final int size() {
+        return data().limit();
+    }
+
+    /**
+     * Returns a read-only view over the buffer wrapped by this vector.
+     */
+    @Override
+    public final Optional<Buffer> buffer() {
+        return Optional.of(data());
+    }
+
+    /**
+     * Unsupported operation since this vector is read-only.
+     */
+    @Override
+    public final Number set(final int index, final Number value) {
+        throw new UnsupportedOperationException(Errors.format(Errors.Keys.UnmodifiableObject_1, getClass()));
+    }
+
+    /**
+     * A vector backed by a {@link DoubleBuffer}.
+     */
+    private static final class Doubles extends BufferVector {
+        /** The backing buffer. */
+        private final DoubleBuffer data;
+
+        /** Creates a new vector for the given buffer. */
+        Doubles(final DoubleBuffer data) {
+            super(false);
+            this.data = data.asReadOnlyBuffer();
+        }
+
+        /** Returns the backing buffer. */
+        @Override Buffer data() {
+            return data.duplicate();
+        }
+
+        /** Returns the type of elements in the backing buffer. */
+        @Override public Class<Double> getElementType() {
+            return Double.class;
+        }
+
+        /** Returns {@code true} if the value at the given index is {@code NaN}. */
+        @Override public boolean isNaN(final int index) {
+            return Double.isNaN(data.get(index));
+        }
+
+        /** Returns the string representation at the given index. */
+        @Override public String stringValue(final int index) {
+            return Double.toString(data.get(index));
+        }
+
+        /** Returns the value at the given index. */
+        @Override public double doubleValue(int index) {return data.get(index);}
+        @Override public float   floatValue(int index) {return (float) data.get(index);}
+        @Override public Number         get(int index) {return data.get(index);}
+    }
+
+    /**
+     * A vector backed by a {@link FloatBuffer}.
+     */
+    private static final class Floats extends BufferVector {
+        /** The backing buffer. */
+        private final FloatBuffer data;
+
+        /** Creates a new vector for the given buffer. */
+        Floats(final FloatBuffer data) {
+            super(false);
+            this.data = data.asReadOnlyBuffer();
+        }
+
+        /** Returns the backing buffer. */
+        @Override Buffer data() {
+            return data.duplicate();
+        }
+
+        /** Returns the type of elements in the backing buffer. */
+        @Override public Class<Float> getElementType() {
+            return Float.class;
+        }
+
+        /** Returns {@code true} if the value at the given index is {@code NaN}. */
+        @Override public boolean isNaN(final int index) {
+            return Float.isNaN(data.get(index));
+        }
+
+        /** Returns the string representation at the given index. */
+        @Override public String stringValue(final int index) {
+            return Float.toString(data.get(index));
+        }
+
+        /** Returns the value at the given index. */
+        @Override public double doubleValue(int index) {return data.get(index);}
+        @Override public float   floatValue(int index) {return data.get(index);}
+        @Override public Number         get(int index) {return data.get(index);}
+    }
+
+    /**
+     * Base class of vectors backed by a buffer of integer values.
+     * The methods in this class apply the mask for unsigned integers if needed.
+     */
+    private abstract static class Integral extends BufferVector {
+        /** For sub-classes constructor. */
+        Integral(final boolean isUnsigned) {
+            super(isUnsigned);
+        }
+
+        /** Values in this vector are guaranteed to be integers. */
+        @Override public final boolean isInteger() {
+            return true;
+        }
+
+        /** Integer values are never NaN. */
+        @Override public final boolean isNaN(final int index) {
+            return false;
+        }
+
+        /** Returns the string representation at the given index. */
+        @Override public String stringValue(final int index) {
+            return Long.toString(longValue(index));
+        }
+
+        /** Returns the value at the given index. */
+        @Override public double doubleValue(int index) {return longValue(index);}
+        @Override public float   floatValue(int index) {return longValue(index);}
+    }
+
+    /**
+     * A vector backed by a {@link LongBuffer}.
+     */
+    private static final class Longs extends Integral {
+        /** The backing buffer. */
+        private final LongBuffer data;
+
+        /** Creates a new vector for the given buffer. */
+        Longs(final LongBuffer data, final boolean isUnsigned) {
+            super(isUnsigned);
+            this.data = data.asReadOnlyBuffer();
+        }
+
+        /** Returns the backing buffer. */
+        @Override Buffer data() {
+            return data.duplicate();
+        }
+
+        /** Returns the type of elements in the backing buffer. */
+        @Override public Class<Long> getElementType() {
+            return Long.class;
+        }
+
+        /** Returns the string representation at the given index. */
+        @Override public String stringValue(final int index) {
+            final long value = data.get(index);
+            return isUnsigned() ? Long.toUnsignedString(value) : Long.toString(value);
+        }
+
+        /** Returns the value at the given index. */
+        @Override public double doubleValue(int index) {
+            final long value = data.get(index);
+            return (isUnsigned() && value < 0) ? Math.scalb((double) (value >>> 1), 1) + (value & 1) : value;
+        }
+        @Override public float  floatValue(int index) {return (float) doubleValue(index);}
+        @Override public long    longValue(int index) {return data.get(index);}
+        @Override public Number        get(int index) {return data.get(index);}
+    }
+
+    /**
+     * A vector backed by a {@link IntBuffer}.
+     */
+    private static final class Integers extends Integral {
+        /** The backing buffer. */
+        private final IntBuffer data;
+
+        /** Creates a new vector for the given buffer. */
+        Integers(final IntBuffer data, final boolean isUnsigned) {
+            super(isUnsigned);
+            this.data = data.asReadOnlyBuffer();
+        }
+
+        /** Returns the backing buffer. */
+        @Override Buffer data() {
+            return data.duplicate();
+        }
+
+        /** Returns the type of elements in the backing buffer. */
+        @Override public Class<Integer> getElementType() {
+            return Integer.class;
+        }
+
+        /** Returns the value at the given index. */
+        @Override public long longValue(final int index) {
+            final int value = data.get(index);
+            return isUnsigned() ? Integer.toUnsignedLong(value) : value;
+        }
+        @Override public Number get(final int index) {
+            return isUnsigned() ? (Number) longValue(index) : (Number) data.get(index);
+        }
+    }
+
+    /**
+     * A vector backed by a {@link ShortBuffer}.
+     */
+    private static final class Shorts extends Integral {
+        /** The backing buffer. */
+        private final ShortBuffer data;
+
+        /** Creates a new vector for the given buffer. */
+        Shorts(final ShortBuffer data, final boolean isUnsigned) {
+            super(isUnsigned);
+            this.data = data.asReadOnlyBuffer();
+        }
+
+        /** Returns the backing buffer. */
+        @Override Buffer data() {
+            return data.duplicate();
+        }
+
+        /** Returns the type of elements in the backing buffer. */
+        @Override public Class<Short> getElementType() {
+            return Short.class;
+        }
+
+        /** Returns the value at the given index. */
+        @Override public long longValue(final int index) {
+            final short value = data.get(index);
+            return isUnsigned() ? Short.toUnsignedLong(value) : value;
+        }
+        @Override public Number get(final int index) {
+            return isUnsigned() ? (Number) intValue(index) : (Number) data.get(index);
+        }
+    }
+
+    /**
+     * A vector backed by a {@link ByteBuffer}.
+     */
+    private static final class Bytes extends Integral {
+        /** The backing buffer. */
+        private final ByteBuffer data;
+
+        /** Creates a new vector for the given buffer. */
+        Bytes(final ByteBuffer data, final boolean isUnsigned) {
+            super(isUnsigned);
+            this.data = data.asReadOnlyBuffer();
+        }
+
+        /** Returns the backing buffer. */
+        @Override Buffer data() {
+            return data.duplicate();
+        }
+
+        /** Returns the type of elements in the backing buffer. */
+        @Override public Class<Byte> getElementType() {
+            return Byte.class;
+        }
+
+        /** Returns the value at the given index. */
+        @Override public long longValue(final int index) {
+            final byte value = data.get(index);
+            return isUnsigned() ? Byte.toUnsignedLong(value) : value;
+        }
+        @Override public Number get(final int index) {
+            return isUnsigned() ? (Number) shortValue(index) : (Number) data.get(index);
+        }
+    }
+}
@@ -107,7 +107,9 @@ public abstract class Vector extends AbstractList<Number> implements RandomAcces
      *   <li>A {@code Number[]} array.</li>
      *   <li>A {@code String[]} array (not recommended, but happen with some file formats).</li>
      *   <li>A {@code Vector}, in which case it is returned unchanged.</li>
-     *   <li>A {@link Buffer} backed by an array.</li>
+     *   <li>A {@link Buffer}, in which case values between the buffer position and limit are wrapped.
+     *       If the buffer is not backed by an accessible array (for example a view over a file mapped
+     *       in memory), then the returned vector is read-only.</li>
      *   <li>The {@code null} value, in which case {@code null} is returned.</li>
      * </ul>
      *
@@ -144,6 +146,7 @@ public abstract class Vector extends AbstractList<Number> implements RandomAcces
                 return ArrayVector.newInstance(buffer.array(), isUnsigned)
                         .subList(offset + buffer.position(), offset + buffer.limit());
             }
+            return BufferVector.newInstance(buffer, isUnsigned);
         }
         throw new IllegalArgumentException(Errors.format(Errors.Keys.IllegalArgumentClass_2, "array", array.getClass()));
     }
@@ -16,6 +16,8 @@
  */
 package org.apache.sis.math;
 
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
 import org.apache.sis.measure.NumberRange;
 import org.apache.sis.test.DependsOnMethod;
 import org.apache.sis.test.TestCase;
@@ -223,6 +225,43 @@ public final strictfp class VectorTest extends TestCase {
         assertFalse("Expected concatenation of the indices.", v3 instanceof ConcatenatedVector);
     }
 
+    /**
+     * Tests {@link BufferVector}, which wraps a buffer not backed by an accessible array.
+     * A read-only view is used for simulating a file mapped in memory.
+     */
+    @Test
+    @DependsOnMethod({"testShortArray", "testDoubleArray"})
+    public void testReadOnlyBuffer() {
+        final ByteBuffer bytes = ByteBuffer.allocate(40);
+        for (int i=0; i<5; i++) {
+            bytes.putDouble(i * 8, i * 2.5);
+        }
+        vector = Vector.create(bytes.asReadOnlyBuffer().asDoubleBuffer(), false);
+        assertInstanceOf("vector", BufferVector.class, vector);
+        assertEquals(Double.class, vector.getElementType());
+        assertEquals(5, vector.size());
+        for (int i=0; i<5; i++) {
+            assertEquals(i * 2.5, vector.doubleValue(i), STRICT);
+        }
+        assertFalse(vector.buffer().get().hasArray());
+        try {
+            vector.set(0, 1);
+            fail("Buffer vector shall be read-only.");
+        } catch (UnsupportedOperationException e) {
+            assertNotNull(e.getMessage());
+        }
+        /*
+         * Unsigned short values in a sub-range of the buffer.
+         */
+        final ShortBuffer shorts = ShortBuffer.wrap(new short[] {1, -1, 40000 - 65536, 7}).asReadOnlyBuffer();
+        shorts.position(1).limit(3);
+        vector = Vector.create(shorts, true);
+        assertEquals(2, vector.size());
+        assertEquals(65535, vector.intValue(0));
+        assertEquals(40000, vector.intValue(1));
+        assertTrue(vector.isInteger());
+    }
+
     /**
      * Tests a vector backed by an array of strings.
      * This is not recommended, but happen in GDAL extensions of GeoTIFF.
@@ -65,6 +65,11 @@ public final class Resources extends IndexedResourceBundle {
          */
         public static final short CanNotComputeGridGeometry_1 = 26;
 
+        /**
+         * Can not write TIFF image “{0}” because its conversion from grid to CRS coordinates is not affine.
+         */
+        public static final short CanNotEncodeGridToCRS_1 = 30;
+
         /**
          * TIFF file “{0}” has circular references in its chain of images.
          */
@@ -175,6 +180,11 @@ public final class Resources extends IndexedResourceBundle {
          */
         public static final short UnknownCRS_1 = 22;
 
+        /**
+         * Can not read TIFF image “{0}” because the “{1}” compression is not supported.
+         */
+        public static final short UnsupportedCompression_2 = 28;
+
         /**
          * Coordinate system kind {0} is unsupported.
          */
@@ -190,10 +200,21 @@ public final class Resources extends IndexedResourceBundle {
          */
         public static final short UnsupportedGeoKeyStorage_1 = 21;
 
+        /**
+         * Can not read TIFF image “{0}” because the predictor {1} is not supported.
+         */
+        public static final short UnsupportedPredictor_2 = 29;
+
         /**
          * TIFF file “{0}” uses an unsupported map projection.
          */
         public static final short UnsupportedProjectionMethod_1 = 23;
+
+        /**
+         * Can not read TIFF image “{0}” because samples of {1} bits in sample format {2} are not
+         * supported.
+         */
+        public static final short UnsupportedSampleFormat_3 = 27;
     }
 
     /**
@@ -0,0 +1,395 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.geotiff;
+
+import java.util.List;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.awt.Point;
+import java.awt.image.Raster;
+import java.awt.image.DataBuffer;
+import java.awt.image.ColorModel;
+import java.awt.image.SampleModel;
+import java.awt.image.RenderedImage;
+import java.awt.image.BandedSampleModel;
+import java.awt.image.PixelInterleavedSampleModel;
+import org.opengis.geometry.DirectPosition;
+import org.apache.sis.coverage.SampleDimension;
+import org.apache.sis.coverage.grid.GridCoverage;
+import org.apache.sis.coverage.grid.GridGeometry;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.internal.raster.RasterFactory;
+import org.apache.sis.internal.raster.TiledImage;
+import org.apache.sis.internal.raster.TileCache;
+import org.apache.sis.util.collection.Cache;
+import org.apache.sis.util.ArraysExt;
+import org.apache.sis.math.Vector;
+
+
+/**
+ * A subset of the pixels of a TIFF image, with tiles loaded from the file only when first requested.
+ * The subset is described by a {@link Subsampling} (which tiles to read and which pixels to keep in
+ * each tile) together with the indices of the bands to show. Tiles read from the file are shared in
+ * {@link TileCache#GLOBAL}, so that two {@code DataSubset} instances using the same sub-sampling on
+ * the same image do not read the same tiles twice.
+ *
+ * <p>In the "chunky" layout, each cached tile contains all bands interleaved in a single bank.
+ * In the planar layout, each cached tile contains a single band and the tiles of all selected
+ * bands are combined in a multi-banks raster.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+final class DataSubset extends GridCoverage {
+    /**
+     * The image file directory, tile size and sub-sampling from which tiles are read.
+     * This is also the source identifier in {@link TileCache.Key}.
+     */
+    private final Subsampling subsampling;
+
+    /**
+     * Indices of the bands to show, in the order they will appear in the rendered image.
+     */
+    private final int[] bands;
+
+    /**
+     * Number of tiles in a row of the file, and number of tiles in a plane of the file.
+     * The latter is 0 if the image does not use the planar layout.
+     */
+    private final int tilesAcross, tilesPerPlane;
+
+    /**
+     * Index of the file tile containing the upper-left pixel of the subset.
+     */
+    private final int firstTileX, firstTileY;
+
+    /**
+     * Pixel coordinates of the upper-left corner of the first tile, relative to the upper-left corner
+     * of the subset. Those values are zero or negative.
+     */
+    private final int tileGridXOffset, tileGridYOffset;
+
+    /**
+     * Size of the subset, in pixels after sub-sampling.
+     */
+    private final int width, height;
+
+    /**
+     * The sample model of the tiles cached by this subset. This model contains all bands
+     * in the "chunky" case, or a single band in the planar case.
+     */
+    private final SampleModel cachedModel;
+
+    /**
+     * The sample model of the tiles returned by the rendered image. Contains only the selected bands.
+     */
+    private final SampleModel imageModel;
+
+    /**
+     * The color model of the rendered image.
+     */
+    private final ColorModel colors;
+
+    /**
+     * The image returned by {@link #render(DirectPosition)}, created when first needed.
+     */
+    private RenderedImage image;
+
+    /**
+     * Creates a new subset of the given image.
+     *
+     * @param  domain         the grid geometry of the subset, in units of pixels after sub-sampling.
+     * @param  range          the sample dimensions of the selected bands.
+     * @param  bands          indices of the selected bands.
+     * @param  subsampling    the image, tile size and sub-sampling from which tiles are read.
+     * @param  lowX           column index of the upper-left pixel of the subset, in units of pixels after sub-sampling.
+     * @param  lowY           row index of the upper-left pixel of the subset, in units of pixels after sub-sampling.
+     * @param  width          number of columns in the subset.
+     * @param  height         number of rows in the subset.
+     * @param  tilesAcross    number of tiles in a row of the file.
+     * @param  tilesDown      number of tiles in a column of the file.
+     * @param  isPlanar       whether the file stores each band in a separated plane.
+     * @param  numBands       the number of bands in the file.
+     * @param  dataType       the {@link DataBuffer} type of sample values.
+     * @param  colors         the color model of the rendered image.
+     */
+    DataSubset(final GridGeometry domain, final List<SampleDimension> range, final int[] bands,
+               final Subsampling subsampling, final long lowX, final long lowY, final int width, final int height,
+               final int tilesAcross, final int tilesDown, final boolean isPlanar, final int numBands,
+               final int dataType, final ColorModel colors)
+    {
+        super(domain, range);
+        this.subsampling   = subsampling;
+        this.bands         = bands;
+        this.tilesAcross   = tilesAcross;
+        this.tilesPerPlane = isPlanar ? Math.multiplyExact(tilesAcross, tilesDown) : 0;
+        this.width         = width;
+        this.height        = height;
+        this.colors        = colors;
+        final int tw       = subsampling.tileWidth;
+        final int th       = subsampling.tileHeight;
+        firstTileX         = Math.toIntExact(lowX / tw);
+        firstTileY         = Math.toIntExact(lowY / th);
+        tileGridXOffset    = Math.toIntExact(firstTileX * (long) tw - lowX);
+        tileGridYOffset    = Math.toIntExact(firstTileY * (long) th - lowY);
+        if (isPlanar) {
+            cachedModel = new BandedSampleModel(dataType, tw, th, 1);
+            imageModel  = new BandedSampleModel(dataType, tw, th, bands.length);
+        } else {
+            final int[] offsets = new int[numBands];
+            for (int i=0; i<numBands; i++) offsets[i] = i;
+            cachedModel = new PixelInterleavedSampleModel(dataType, tw, th, numBands, Math.multiplyExact(numBands, tw), offsets);
+            imageModel  = cachedModel.createSubsetSampleModel(bands);
+        }
+    }
+
+    /**
+     * Returns a two-dimensional slice of grid data as a rendered image. Tiles are loaded when first requested.
+     * This method returns a view; sample values are not copied. Since TIFF images are two-dimensional,
+     * there is only one slice and the {@code slicePoint} argument is ignored.
+     *
+     * @param  slicePoint  ignored since this coverage is two-dimensional. May be {@code null}.
+     * @return the grid slice as a rendered image.
+     */
+    @Override
+    public synchronized RenderedImage render(final DirectPosition slicePoint) {
+        if (image == null) {
+            image = new Image();
+        }
+        return image;
+    }
+
+    /**
+     * The rendered image reading tiles on demand.
+     */
+    private final class Image extends TiledImage {
+        /**
+         * Creates a new image for the enclosing subset.
+         */
+        Image() {
+            super(imageModel, colors, width, height, tileGridXOffset, tileGridYOffset);
+        }
+
+        /**
+         * Returns the tile at the given indices, reading it from the file or fetching it from the cache.
+         */
+        @Override
+        protected Raster createTile(final int tileX, final int tileY) throws Exception {
+            final int index = fileTileIndex(tileX, tileY);
+            final Point location = new Point(Math.addExact(tileX * getTileWidth(),  tileGridXOffset),
+                                             Math.addExact(tileY * getTileHeight(), tileGridYOffset));
+            final DataBuffer buffer;
+            if (tilesPerPlane == 0) {
+                buffer = cachedTile(index).getDataBuffer();
+            } else {
+                final Buffer[] planes = new Buffer[bands.length];
+                for (int i=0; i<planes.length; i++) {
+                    final int plane = Math.addExact(Math.multiplyExact(bands[i], tilesPerPlane), index);
+                    planes[i] = RasterFactory.wrapAsBuffer(cachedTile(plane).getDataBuffer(), 0);
+                }
+                buffer = RasterFactory.wrap(imageModel.getDataType(), planes);
+            }
+            return Raster.createRaster(imageModel, buffer, location);
+        }
+
+        /**
+         * Reads in a single operation all file tiles needed for the given range of image tiles,
+         * except the tiles already in the cache. The compressed bytes are read in file order,
+         * then decompressed in parallel.
+         */
+        @Override
+        protected void prefetch(final int minTileX, final int minTileY, final int maxTileX, final int maxTileY)
+                throws Exception
+        {
+            final int numPlanes = (tilesPerPlane == 0) ? 1 : bands.length;
+            int[] indices = new int[Math.multiplyExact(Math.multiplyExact(maxTileX - minTileX + 1, maxTileY - minTileY + 1), numPlanes)];
+            int count = 0;
+            for (int ty = minTileY; ty <= maxTileY; ty++) {
+                for (int tx = minTileX; tx <= maxTileX; tx++) {
+                    final int index = fileTileIndex(tx, ty);
+                    for (int i=0; i<numPlanes; i++) {
+                        final int plane = (tilesPerPlane == 0) ? index
+                                        : Math.addExact(Math.multiplyExact(bands[i], tilesPerPlane), index);
+                        if (TileCache.GLOBAL.peek(new TileCache.Key(subsampling, plane)) == null) {
+                            indices[count++] = plane;
+                        }
+                    }
+                }
+            }
+            if (count > 1) {
+                indices = ArraysExt.resize(indices, count);
+                final Object[] data = subsampling.source.readTiles(subsampling, indices, tileCapacity());
+                for (int i=0; i<count; i++) {
+                    TileCache.GLOBAL.putIfAbsent(new TileCache.Key(subsampling, indices[i]), toRaster(data[i]));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the index in the file of the tile at the given image tile indices, ignoring planes.
+     */
+    private int fileTileIndex(final int tileX, final int tileY) {
+        return Math.addExact(Math.multiplyExact(firstTileY + tileY, tilesAcross), firstTileX + tileX);
+    }
+
+    /**
+     * Returns the minimal number of sample values in the arrays of cached tiles.
+     */
+    private int tileCapacity() {
+        return cachedModel.getNumBands() * subsampling.tileWidth * subsampling.tileHeight;
+    }
+
+    /**
+     * Wraps the sample values returned by {@link ImageFileDirectory#readTile readTile(…)} in a raster
+     * for the cache. A {@code null} argument (tile without row to read) is replaced by zero values.
+     */
+    private Raster toRaster(final Object data) {
+        final DataBuffer buffer;
+        if (data != null) {
+            // Optional.get() should never fail since the reader returns an array of primitive type.
+            buffer = RasterFactory.wrap(cachedModel.getDataType(), Vector.create(data, false).buffer().get());
+        } else {
+            buffer = cachedModel.createDataBuffer();
+        }
+        return Raster.createRaster(cachedModel, buffer, null);
+    }
+
+    /**
+     * Returns the file tile at the given index, reading it if not already in the cache.
+     * The raster location is (0,0); callers need to wrap its data buffer in a new raster.
+     *
+     * @param  index  index of the tile in the file, including the offset for the plane if the layout is planar.
+     * @return the tile at the given index.
+     * @throws IOException if an error occurred while reading the file.
+     * @throws DataStoreException if the sample values type is not supported.
+     */
+    private Raster cachedTile(final int index) throws IOException, DataStoreException {
+        final TileCache.Key key = new TileCache.Key(subsampling, index);
+        Raster tile = TileCache.GLOBAL.peek(key);
+        if (tile == null) {
+            final Cache.Handler<Raster> handler = TileCache.GLOBAL.lock(key);
+            try {
+                tile = handler.peek();
+                if (tile == null) {
+                    tile = toRaster(subsampling.source.readTile(subsampling, index, tileCapacity()));
+                }
+            } finally {
+                handler.putAndUnlock(tile);
+            }
+        }
+        return tile;
+    }
+
+    /**
+     * Removes from {@link TileCache#GLOBAL} all tiles read by the given reader.
+     * This method shall be invoked when the reader is closed, for allowing
+     * the garbage collector to reclaim the store and its channel.
+     *
+     * @param  reader  the reader which is closed.
+     */
+    static void removeTiles(final Reader reader) {
+        TileCache.GLOBAL.removeAll((source) -> (source instanceof Subsampling)
+                && ((Subsampling) source).source.isReadBy(reader));
+    }
+
+    /**
+     * The image file directory, tile size and sub-sampling from which to read tiles.
+     * Instances of this class are used as source identifiers in {@link TileCache} keys.
+     * Two instances are equal if they read the same pixels in the same image file directory.
+     *
+     * <p>A tile of the subset contains the pixels of exactly one tile of the file. Consequently,
+     * if there is more than one tile along a dimension, the sub-sampling in that dimension shall
+     * be a divisor of the file tile size.</p>
+     */
+    static final class Subsampling {
+        /**
+         * The image file directory from which to read tiles.
+         */
+        final ImageFileDirectory source;
+
+        /**
+         * The sub-sampling to apply in each dimension. Values are greater than zero.
+         */
+        final int strideX, strideY;
+
+        /**
+         * Index of the first pixel to read in each file tile. Values are less than the strides.
+         */
+        final int phaseX, phaseY;
+
+        /**
+         * Size of tiles after sub-sampling. This is derived from above information and the file tile size.
+         */
+        final int tileWidth, tileHeight;
+
+        /**
+         * Creates a new description of the tiles to read in the given image.
+         *
+         * @param  source      the image file directory from which to read tiles.
+         * @param  strideX     the sub-sampling along columns.
+         * @param  strideY     the sub-sampling along rows.
+         * @param  phaseX      index of the first column to read in each file tile.
+         * @param  phaseY      index of the first row to read in each file tile.
+         * @param  tileWidth   size of tiles in the file along columns.
+         * @param  tileHeight  size of tiles in the file along rows.
+         */
+        Subsampling(final ImageFileDirectory source, final int strideX, final int strideY,
+                    final int phaseX, final int phaseY, final int tileWidth, final int tileHeight)
+        {
+            this.source     = source;
+            this.strideX    = strideX;
+            this.strideY    = strideY;
+            this.phaseX     = phaseX;
+            this.phaseY     = phaseY;
+            this.tileWidth  = (tileWidth  - phaseX + strideX - 1) / strideX;
+            this.tileHeight = (tileHeight - phaseY + strideY - 1) / strideY;
+        }
+
+        /**
+         * Returns a hash code value for this description.
+         */
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(source) + 31 * (strideX + 31 * (strideY + 31 * (phaseX + 31 * phaseY)));
+        }
+
+        /**
+         * Compares this description with the given object for equality.
+         */
+        @Override
+        public boolean equals(final Object other) {
+            if (other instanceof Subsampling) {
+                final Subsampling that = (Subsampling) other;
+                return source  == that.source  &&
+                       strideX == that.strideX && strideY == that.strideY &&
+                       phaseX  == that.phaseX  && phaseY  == that.phaseY;
+            }
+            return false;
+        }
+
+        /**
+         * Returns a string representation for debugging purpose.
+         */
+        @Override
+        public String toString() {
+            return source.getIdentifier() + " (" + strideX + '×' + strideY + ')';
+        }
+    }
+}
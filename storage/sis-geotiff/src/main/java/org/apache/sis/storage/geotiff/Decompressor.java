@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.geotiff;
+
+import java.io.IOException;
+import org.apache.sis.internal.storage.io.ChannelDataInput;
+import org.apache.sis.storage.DataStoreContentException;
+
+
+/**
+ * Base class of algorithms for uncompressing the raster data of a TIFF image.
+ * Compressed bytes are read directly from the {@link ChannelDataInput} buffer,
+ * and uncompressed bytes are written in an array provided by the caller.
+ * That array is typically a buffer reused for many tiles of a TIFF file.
+ *
+ * <p>Instances of this class are not thread-safe. Each instance is owned by a {@link Reader.Worker},
+ * which is used by only one thread at a time.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+abstract class Decompressor {
+    /**
+     * For subclass constructors.
+     */
+    Decompressor() {
+    }
+
+    /**
+     * Returns {@code true} if this package can uncompress data compressed with the given method.
+     * The {@link Compression#NONE} method is not considered a supported compression by this method,
+     * since uncompressed data do not need a {@code Decompressor}.
+     *
+     * @param  method  the compression method, or {@code null}.
+     * @return whether data compressed with the given method can be uncompressed.
+     */
+    static boolean isSupported(final Compression method) {
+        return method == Compression.DEFLATE || method == Compression.LZW || method == Compression.PACKBITS;
+    }
+
+    /**
+     * Creates a new decompressor for the given compression method.
+     *
+     * @param  method  the compression method.
+     * @return the decompressor, or {@code null} if the given method is not supported.
+     */
+    static Decompressor create(final Compression method) {
+        if (method != null) {
+            switch (method) {
+                case DEFLATE:  return new Inflate();
+                case LZW:      return new LZW();
+                case PACKBITS: return new PackBits();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads and uncompresses the data of one tile or strip. The input shall be positioned on the first
+     * compressed byte. This method stops after having written {@code length} bytes in the target array
+     * or after having read {@code count} compressed bytes, whichever comes first.
+     *
+     * @param  input   the input positioned on the first compressed byte.
+     * @param  count   number of compressed bytes to read.
+     * @param  target  where to write the uncompressed bytes, starting at index 0.
+     * @param  length  maximal number of bytes to write in the target array.
+     * @return number of bytes actually written. May be less than {@code length} if the compressed data are truncated.
+     * @throws IOException if an error occurred while reading the input.
+     * @throws DataStoreContentException if the compressed data are corrupted.
+     */
+    abstract int uncompress(ChannelDataInput input, long count, byte[] target, int length)
+            throws IOException, DataStoreContentException;
+
+    /**
+     * Releases resources used by this decompressor. The default implementation does nothing.
+     */
+    void dispose() {
+    }
+}
@@ -62,7 +62,7 @@ abstract class GeoTIFF implements Closeable {
     static final short CLASSIC = 42, BIG_TIFF= 43;
 
     /**
-     * The store which created this reader or writer.
+     * The store which created this reader or writer, or {@code null} if none.
      */
     final GeoTiffStore owner;
 
@@ -82,14 +82,22 @@ abstract class GeoTIFF implements Closeable {
      * Returns the resources to use for formatting error messages.
      */
     final Errors errors() {
-        return Errors.getResources(owner.getLocale());
+        return Errors.getResources(getLocale());
     }
 
     /**
      * Returns the GeoTIFF-specific resource for error messages and warnings.
      */
     final Resources resources() {
-        return Resources.forLocale(owner.getLocale());
+        return Resources.forLocale(getLocale());
+    }
+
+    /**
+     * Returns the locale for error messages and warnings, or {@code null} for the default locale.
+     * This is the locale of the {@linkplain #owner} store, if any.
+     */
+    private Locale getLocale() {
+        return (owner != null) ? owner.getLocale() : null;
     }
 
     /**
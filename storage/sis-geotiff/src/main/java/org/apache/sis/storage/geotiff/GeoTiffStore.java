@@ -21,9 +21,13 @@ import java.util.List;
 import java.util.logging.LogRecord;
 import java.net.URI;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.awt.image.RenderedImage;
 import org.opengis.util.NameSpace;
 import org.opengis.util.NameFactory;
 import org.opengis.util.GenericName;
@@ -31,6 +35,7 @@ import org.opengis.util.FactoryException;
 import org.opengis.metadata.Metadata;
 import org.opengis.metadata.maintenance.ScopeCode;
 import org.opengis.parameter.ParameterValueGroup;
+import org.apache.sis.coverage.grid.GridGeometry;
 import org.apache.sis.setup.OptionKey;
 import org.apache.sis.storage.Aggregate;
 import org.apache.sis.storage.GridCoverageResource;
@@ -41,23 +46,33 @@ import org.apache.sis.storage.DataStoreContentException;
 import org.apache.sis.storage.UnsupportedStorageException;
 import org.apache.sis.storage.DataStoreClosedException;
 import org.apache.sis.storage.IllegalNameException;
+import org.apache.sis.storage.ReadOnlyStorageException;
 import org.apache.sis.storage.event.ChangeEvent;
 import org.apache.sis.storage.event.ChangeListener;
 import org.apache.sis.internal.storage.io.ChannelDataInput;
+import org.apache.sis.internal.storage.io.ChannelDataOutput;
 import org.apache.sis.internal.storage.io.IOUtilities;
 import org.apache.sis.internal.storage.MetadataBuilder;
+import org.apache.sis.internal.storage.Resources;
 import org.apache.sis.internal.storage.StoreUtilities;
 import org.apache.sis.internal.storage.URIDataStore;
 import org.apache.sis.internal.util.Constants;
 import org.apache.sis.internal.util.Numerics;
 import org.apache.sis.internal.util.ListOfUnknownSize;
+import org.apache.sis.internal.system.DefaultFactories;
 import org.apache.sis.metadata.sql.MetadataStoreException;
+import org.apache.sis.util.ArgumentChecks;
+import org.apache.sis.util.ArraysExt;
 import org.apache.sis.util.collection.BackingStoreException;
 import org.apache.sis.util.resources.Errors;
 
 
 /**
  * A data store backed by GeoTIFF files.
+ * The store is opened in read-only mode by default. If the {@link OptionKey#OPEN_OPTIONS} given to the
+ * storage connector contains {@link StandardOpenOption#WRITE}, then the store is opened in write mode instead:
+ * a single image can be written with {@link #write(RenderedImage, GridGeometry)} as a Cloud Optimized GeoTIFF,
+ * and the file needs to be opened again with another {@code GeoTiffStore} instance for reading.
  *
  * @author  Rémi Maréchal (Geomatys)
  * @author  Martin Desruisseaux (Geomatys)
@@ -74,10 +89,23 @@ public class GeoTiffStore extends DataStore implements Aggregate {
     final Charset encoding;
 
     /**
-     * The GeoTIFF reader implementation, or {@code null} if the store has been closed.
+     * The GeoTIFF reader implementation, or {@code null} if the store has been closed or is opened in write mode.
      */
     private Reader reader;
 
+    /**
+     * The GeoTIFF writer implementation, or {@code null} if the store has been closed or is opened in read mode.
+     *
+     * @see #write(RenderedImage, GridGeometry)
+     */
+    private Writer writer;
+
+    /**
+     * Whether an image has already been written. The Cloud Optimized GeoTIFF layout
+     * requires that all images (the full resolution image and its overviews) are written together.
+     */
+    private boolean written;
+
     /**
      * The {@link GeoTiffStoreProvider#LOCATION} parameter value, or {@code null} if none.
      * This is used for information purpose only, not for actual reading operations.
@@ -119,21 +147,45 @@ public class GeoTiffStore extends DataStore implements Aggregate {
         super(provider, connector);
         final Charset encoding = connector.getOption(OptionKey.ENCODING);
         this.encoding = (encoding != null) ? encoding : StandardCharsets.US_ASCII;
-        final ChannelDataInput input = connector.getStorageAs(ChannelDataInput.class);
-        if (input == null) {
-            throw new UnsupportedStorageException(super.getLocale(), Constants.GEOTIFF,
-                    connector.getStorage(), connector.getOption(OptionKey.OPEN_OPTIONS));
-        }
-        location = connector.getStorageAs(URI.class);
-        connector.closeAllExcept(input);
-        try {
-            reader = new Reader(this, input);
-        } catch (IOException e) {
-            throw new DataStoreException(e);
+        final String storageName;
+        if (ArraysExt.contains(connector.getOption(OptionKey.OPEN_OPTIONS), StandardOpenOption.WRITE)) {
+            /*
+             * Write mode: the Cloud Optimized GeoTIFF layout requires the ability to go back in the file
+             * for writing tile offsets after the tiles, so we need a path from which to open a seekable channel.
+             */
+            final Path path = connector.getStorageAs(Path.class);
+            if (path == null) {
+                throw new UnsupportedStorageException(super.getLocale(), Constants.GEOTIFF,
+                        connector.getStorage(), connector.getOption(OptionKey.OPEN_OPTIONS));
+            }
+            location = path.toUri();
+            connector.closeAllExcept(path);
+            storageName = IOUtilities.filename(path);
+            try {
+                final FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+                writer = new Writer(this, new ChannelDataOutput(storageName, channel, ByteBuffer.allocate(65536)));
+            } catch (IOException e) {
+                throw new DataStoreException(e);
+            }
+        } else {
+            final ChannelDataInput input = connector.getStorageAs(ChannelDataInput.class);
+            if (input == null) {
+                throw new UnsupportedStorageException(super.getLocale(), Constants.GEOTIFF,
+                        connector.getStorage(), connector.getOption(OptionKey.OPEN_OPTIONS));
+            }
+            location = connector.getStorageAs(URI.class);
+            connector.closeAllExcept(input);
+            storageName = input.filename;
+            try {
+                reader = new Reader(this, input);
+            } catch (IOException e) {
+                throw new DataStoreException(e);
+            }
         }
         if (location != null) {
-            final NameFactory f = reader.nameFactory;
-            String filename = IOUtilities.filenameWithoutExtension(input.filename);
+            final NameFactory f = DefaultFactories.forBuildin(NameFactory.class);
+            String filename = IOUtilities.filenameWithoutExtension(storageName);
             if (Numerics.isUnsignedInteger(filename)) filename += ".tiff";
             identifier = f.createNameSpace(f.createLocalName(null, filename), null);
         } else {
@@ -196,7 +248,7 @@ public class GeoTiffStore extends DataStore implements Aggregate {
             int n = 0;
             try {
                 ImageFileDirectory dir;
-                while ((dir = reader.getImageFileDirectory(n++)) != null) {
+                while ((dir = reader.getImage(n++)) != null) {
                     dir.completeMetadata(builder, locale);
                 }
             } catch (IOException e) {
@@ -232,14 +284,56 @@ public class GeoTiffStore extends DataStore implements Aggregate {
     private Reader reader() throws DataStoreException {
         final Reader r = reader;
         if (r == null) {
+            final Writer w = writer;
+            if (w != null) {
+                throw new DataStoreException(Resources.forLocale(getLocale())
+                        .getString(Resources.Keys.StreamIsNotReadable_1, w.output.filename));
+            }
             throw new DataStoreClosedException(getLocale(), Constants.GEOTIFF, StandardOpenOption.READ);
         }
         return r;
     }
 
+    /**
+     * Writes the given image in the GeoTIFF file, together with overviews computed from that image.
+     * The file is written in the Cloud Optimized GeoTIFF layout: the Image File Directories (IFD)
+     * of the full-resolution image and of all overviews are written first, followed by the tiles.
+     * This method can be invoked only once, and only if this store has been opened in write mode.
+     *
+     * @param  image  the image to write.
+     * @param  grid   the grid geometry of the image, or {@code null} if unknown.
+     * @throws ReadOnlyStorageException if this store has not been opened in write mode.
+     * @throws DataStoreException if an image has already been written or if an error occurred while writing.
+     *
+     * @since 1.0
+     */
+    public synchronized void write(final RenderedImage image, final GridGeometry grid) throws DataStoreException {
+        ArgumentChecks.ensureNonNull("image", image);
+        final Writer w = writer;
+        if (w == null) {
+            if (reader == null) {
+                throw new DataStoreClosedException(getLocale(), Constants.GEOTIFF, StandardOpenOption.WRITE);
+            }
+            throw new ReadOnlyStorageException(Resources.forLocale(getLocale()).getString(Resources.Keys.StoreIsReadOnly));
+        }
+        if (written) {
+            throw new DataStoreException(Resources.forLocale(getLocale())
+                    .getString(Resources.Keys.StreamIsWriteOnce_1, w.output.filename));
+        }
+        written = true;
+        try {
+            w.write(image, grid);
+        } catch (IOException e) {
+            throw new DataStoreException(errors().getString(Errors.Keys.CanNotWriteFile_2,
+                    Constants.GEOTIFF, w.output.filename), e);
+        }
+    }
+
     /**
      * Returns descriptions of all images in this GeoTIFF file.
-     * Images are not immediately loaded.
+     * Images are not immediately loaded. Reduced-resolution images (overviews)
+     * are not listed; they are used automatically when reading the full-resolution
+     * image at a coarse resolution.
      *
      * <p>If an error occurs during iteration in the returned collection,
      * an unchecked {@link BackingStoreException} will be thrown with a {@link DataStoreException} as its cause.</p>
@@ -297,7 +391,7 @@ public class GeoTiffStore extends DataStore implements Aggregate {
         /** Returns element at the given index or returns {@code null} if the index is invalid. */
         private GridCoverageResource getImageFileDirectory(final int index) {
             try {
-                return reader().getImageFileDirectory(index);
+                return reader().getImage(index);
             } catch (IOException e) {
                 throw new BackingStoreException(errorIO(e));
             } catch (DataStoreException e) {
@@ -363,9 +457,15 @@ public class GeoTiffStore extends DataStore implements Aggregate {
     @Override
     public synchronized void close() throws DataStoreException {
         final Reader r = reader;
+        final Writer w = writer;
         reader = null;
-        if (r != null) try {
-            r.close();
+        writer = null;
+        try {
+            if (r != null) {
+                DataSubset.removeTiles(r);
+                r.close();
+            }
+            if (w != null) w.close();
         } catch (IOException e) {
             throw new DataStoreException(e);
         }
@@ -49,7 +49,7 @@ import org.apache.sis.internal.util.Constants;
  */
 @StoreMetadata(formatName   = "GeoTIFF",
                fileSuffixes = {"tiff", "tif"},
-               capabilities = Capability.READ)
+               capabilities = {Capability.READ, Capability.WRITE})
 public class GeoTiffStoreProvider extends DataStoreProvider {
     /**
      * The MIME type for GeoTIFF files.
@@ -19,30 +19,56 @@ package org.apache.sis.storage.geotiff;
 import java.io.IOException;
 import java.text.ParseException;
 import java.util.List;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Locale;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
+import java.util.stream.IntStream;
+import java.util.concurrent.ForkJoinPool;
 import java.nio.charset.Charset;
+import java.nio.Buffer;
+import java.nio.ByteOrder;
+import java.nio.ByteBuffer;
+import java.awt.Color;
+import java.awt.Transparency;
+import java.awt.color.ColorSpace;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBuffer;
 import javax.measure.Unit;
 import javax.measure.quantity.Length;
 import org.opengis.metadata.citation.DateType;
 import org.opengis.util.FactoryException;
 import org.opengis.util.GenericName;
 import org.opengis.util.InternationalString;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.datum.PixelInCell;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
 import org.apache.sis.internal.geotiff.Resources;
 import org.apache.sis.internal.storage.MetadataBuilder;
 import org.apache.sis.internal.storage.AbstractGridResource;
 import org.apache.sis.internal.storage.io.ChannelDataInput;
+import org.apache.sis.internal.storage.io.HyperRectangleReader;
+import org.apache.sis.internal.storage.io.Region;
+import org.apache.sis.internal.raster.ColorModelFactory;
 import org.apache.sis.internal.util.UnmodifiableArrayList;
+import org.apache.sis.internal.util.Numerics;
 import org.apache.sis.storage.DataStoreException;
 import org.apache.sis.storage.DataStoreContentException;
+import org.apache.sis.storage.DataStoreReferencingException;
 import org.apache.sis.coverage.grid.GridCoverage;
 import org.apache.sis.coverage.grid.GridGeometry;
+import org.apache.sis.coverage.grid.GridChange;
 import org.apache.sis.coverage.grid.GridExtent;
 import org.apache.sis.coverage.SampleDimension;
 import org.apache.sis.util.resources.Vocabulary;
+import org.apache.sis.util.Numbers;
+import org.apache.sis.util.collection.BackingStoreException;
+import org.apache.sis.math.MathFunctions;
 import org.apache.sis.math.Vector;
+import org.apache.sis.referencing.operation.transform.MathTransforms;
 import org.apache.sis.measure.Units;
 
 
@@ -95,6 +121,41 @@ final class ImageFileDirectory extends AbstractGridResource {
      */
     boolean hasDeferredEntries;
 
+    /**
+     * Value of the bit in {@link #subfileType} telling that the image is a reduced-resolution version
+     * of another image in the TIFF file, or that the image is a single page of a multi-page image.
+     */
+    private static final int REDUCED_RESOLUTION = 1, SINGLE_PAGE = 2;
+
+    /**
+     * A general indication of the kind of data contained in this subfile, as a set of bit flags.
+     * This is the value of the {@code NewSubfileType} tag, or the equivalent flags inferred from
+     * the deprecated {@code SubfileType} tag.
+     *
+     * @see #isReducedResolution()
+     */
+    private int subfileType;
+
+    /**
+     * Reduced-resolution versions of this image, in the order they appear in the TIFF file.
+     * This list is empty if this image has no overview or is itself an overview.
+     *
+     * @see #addOverview(ImageFileDirectory)
+     */
+    private final List<ImageFileDirectory> overviews = new ArrayList<>();
+
+    /**
+     * The image of which this image is a reduced-resolution version, or {@code null} if none.
+     * Used for inferring the grid geometry of overviews, which usually have no GeoTIFF tags.
+     */
+    private ImageFileDirectory fullResolution;
+
+    /**
+     * The grid geometry of this overview inferred from the {@link #fullResolution} image,
+     * or {@code null} if not yet computed or not applicable.
+     */
+    private GridGeometry overviewGeometry;
+
     /**
      * The size of the image described by this FID, or -1 if the information has not been found.
      * The image may be much bigger than the memory capacity, in which case the image shall be tiled.
@@ -323,6 +384,12 @@ final class ImageFileDirectory extends AbstractGridResource {
      */
     private Compression compression;
 
+    /**
+     * The mathematical operator applied to the image data before compression, as one of the
+     * {@link Predictor} constants. Default value is {@link Predictor#NONE}.
+     */
+    private short predictor = Predictor.NONE;
+
     /**
      * A helper class for building Coordinate Reference System and complete related metadata.
      * Contains the following information:
@@ -368,6 +435,13 @@ final class ImageFileDirectory extends AbstractGridResource {
         identifier = reader.nameFactory.createLocalName(reader.owner.identifier, String.valueOf(index + 1));
     }
 
+    /**
+     * Returns {@code true} if this image file directory has been created by the given reader.
+     */
+    final boolean isReadBy(final Reader r) {
+        return reader == r;
+    }
+
     /**
      * Shortcut for a frequently requested information.
      */
@@ -536,6 +610,17 @@ final class ImageFileDirectory extends AbstractGridResource {
                 }
                 break;
             }
+            /*
+             * Mathematical operator applied to the image data before compression, for improving compression ratio.
+             * 1 = no prediction scheme, 2 = horizontal differencing, 3 = floating point horizontal differencing.
+             */
+            case Tags.Predictor: {
+                predictor = type.readShort(input(), count);
+                if (predictor < Predictor.NONE || predictor > Predictor.FLOATING_POINT) {
+                    return predictor;                       // Cause a warning to be reported by the caller.
+                }
+                break;
+            }
             /*
              * The logical order of bits within a byte. If this value is 2, then
              * bits order shall be reversed in every bytes before decompression.
@@ -675,7 +760,7 @@ final class ImageFileDirectory extends AbstractGridResource {
              * Bit 4 indicates MRC imaging model as described in ITU-T recommendation T.44 [T.44] (See ImageLayer tag) - RFC 2301.
              */
             case Tags.NewSubfileType: {
-                // TODO
+                subfileType = (int) type.readLong(input(), count);
                 break;
             }
             /*
@@ -685,7 +770,13 @@ final class ImageFileDirectory extends AbstractGridResource {
              * 3 = a single page of a multi-page image (see PageNumber).
              */
             case Tags.SubfileType: {
-                // TODO
+                final short value = type.readShort(input(), count);
+                switch (value) {
+                    case 1:  break;
+                    case 2:  subfileType |= REDUCED_RESOLUTION; break;
+                    case 3:  subfileType |= SINGLE_PAGE; break;
+                    default: return value;                  // Cause a warning to be reported by the caller.
+                }
                 break;
             }
 
@@ -1239,11 +1330,35 @@ final class ImageFileDirectory extends AbstractGridResource {
          */
     }
 
+    /**
+     * Returns {@code true} if this image is a reduced-resolution version of another image in the TIFF file.
+     */
+    final boolean isReducedResolution() {
+        return (subfileType & REDUCED_RESOLUTION) != 0;
+    }
+
+    /**
+     * Declares the given image as a reduced-resolution version of this image.
+     * This method is invoked by {@link Reader#getImage(int)} only.
+     */
+    final void addOverview(final ImageFileDirectory overview) {
+        overview.fullResolution = this;
+        overviews.add(overview);
+    }
+
     /**
      * Returns an object containing the image size, the CRS and the conversion from pixel indices to CRS coordinates.
+     * If this image is an overview without its own GeoTIFF tags, then the grid geometry is inferred from the
+     * full-resolution image.
      */
     @Override
     public GridGeometry getGridGeometry() throws DataStoreContentException {
+        if (referencing == null && fullResolution != null) {
+            if (overviewGeometry == null) {
+                overviewGeometry = fullResolution.scaledGridGeometry(imageWidth, imageHeight);
+            }
+            return overviewGeometry;
+        }
         if (referencing != null) {
             GridGeometry gridGeometry = referencing.gridGeometry;
             if (gridGeometry == null) try {
@@ -1257,6 +1372,65 @@ final class ImageFileDirectory extends AbstractGridResource {
         }
     }
 
+    /**
+     * Returns the grid geometry of this image scaled to the given size. The "grid to CRS" transform is
+     * concatenated with a scale factor such as the given size covers the same envelope than this image.
+     * This is used for computing the grid geometry of overviews.
+     *
+     * @param  width   number of columns in the overview.
+     * @param  height  number of rows in the overview.
+     */
+    private GridGeometry scaledGridGeometry(final long width, final long height) throws DataStoreContentException {
+        final GridGeometry full = getGridGeometry();
+        final GridExtent extent = new GridExtent(width, height);
+        final CoordinateReferenceSystem crs = full.isDefined(GridGeometry.CRS) ? full.getCoordinateReferenceSystem() : null;
+        if (!full.isDefined(GridGeometry.GRID_TO_CRS) || full.getDimension() != extent.getDimension()) {
+            return new GridGeometry(extent, crs);
+        }
+        final MathTransform gridToCRS = MathTransforms.concatenate(
+                MathTransforms.scale(imageWidth / (double) width, imageHeight / (double) height),
+                full.getGridToCRS(PixelInCell.CELL_CORNER));
+        try {
+            return new GridGeometry(extent, PixelInCell.CELL_CORNER, gridToCRS, crs);
+        } catch (TransformException e) {
+            throw new DataStoreContentException(reader.resources().getString(Resources.Keys.CanNotComputeGridGeometry_1, filename()), e);
+        }
+    }
+
+    /**
+     * Returns the overview to use for reading the given domain, or {@code null} if none.
+     * The selected overview is the one with the lowest resolution which is still at least
+     * as fine as the requested resolution. Reading that overview may still require a small
+     * residual sub-sampling, which is computed by the overview {@code read(…)} method.
+     *
+     * @param  domain  the desired grid extent and resolution.
+     * @return the overview to read, or {@code null} if the full-resolution image shall be read.
+     */
+    final ImageFileDirectory selectOverview(final GridGeometry domain) throws DataStoreException {
+        final GridGeometry gridGeometry = getGridGeometry();
+        if (!gridGeometry.isDefined(GridGeometry.GRID_TO_CRS)) {
+            return null;
+        }
+        final int[] strides;
+        try {
+            strides = new GridChange(domain, gridGeometry).getTargetStrides();
+        } catch (TransformException e) {
+            throw new DataStoreReferencingException(e);
+        }
+        ImageFileDirectory selected = null;
+        double selectedScale = 1;
+        for (final ImageFileDirectory overview : overviews) {
+            final double scaleX = imageWidth  / (double) overview.imageWidth;
+            final double scaleY = imageHeight / (double) overview.imageHeight;
+            final double scale  = scaleX * scaleY;
+            if (scaleX <= strides[0] && scaleY <= strides[1] && scale > selectedScale) {
+                selectedScale = scale;
+                selected = overview;
+            }
+        }
+        return selected;
+    }
+
     /**
      * Returns the ranges of sample values together with the conversion from samples to real values.
      */
@@ -1268,8 +1442,10 @@ final class ImageFileDirectory extends AbstractGridResource {
             final SampleDimension.Builder builder = new SampleDimension.Builder();
             final InternationalString name = Vocabulary.formatInternational(Vocabulary.Keys.Value);
             for (int band = 0; band < samplesPerPixel;) {
-                builder.addQualitative(name, minValues.get(Math.min(band, minValues.size()-1)),
-                                             maxValues.get(Math.min(band, maxValues.size()-1)));
+                if (minValues != null && maxValues != null) {       // May be null for floating point values.
+                    builder.addQualitative(name, minValues.get(Math.min(band, minValues.size()-1)),
+                                                 maxValues.get(Math.min(band, maxValues.size()-1)));
+                }
                 dimensions[band] = builder.setName(++band).build();
                 builder.clear();
             }
@@ -1287,8 +1463,435 @@ final class ImageFileDirectory extends AbstractGridResource {
      * @throws DataStoreException if an error occurred while reading the grid coverage data.
      */
     @Override
-    public GridCoverage read(final GridGeometry domain, final int... range) throws DataStoreException {
-        throw new DataStoreException("Not yet implemented.");   // TODO
+    public GridCoverage read(GridGeometry domain, final int... range) throws DataStoreException {
+        if (!overviews.isEmpty() && domain != null && domain.isDefined(GridGeometry.GRID_TO_CRS)) {
+            final ImageFileDirectory overview = selectOverview(domain);
+            if (overview != null) {
+                return overview.read(domain, range);
+            }
+        }
+        final int[] bands = validateRangeArgument(samplesPerPixel, range);
+        final int dataType = dataType();
+        if (compression != Compression.NONE && !Decompressor.isSupported(compression)) {
+            throw new DataStoreContentException(reader.resources().getString(Resources.Keys.UnsupportedCompression_2,
+                    filename(), (compression != null) ? compression.name() : '?'));
+        }
+        if (predictor != Predictor.NONE && predictor != Predictor.HORIZONTAL
+                && (predictor != Predictor.FLOATING_POINT || sampleFormat != FLOAT))
+        {
+            throw new DataStoreContentException(reader.resources().getString(
+                    Resources.Keys.UnsupportedPredictor_2, filename(), predictor));
+        }
+        final GridGeometry gridGeometry = getGridGeometry();
+        final long tilesAcross = Numerics.ceilDiv(imageWidth,  tileWidth);
+        final long tilesDown   = Numerics.ceilDiv(imageHeight, tileHeight);
+        /*
+         * Compute the region to read and the sub-sampling, in units of file pixels. If there is more than one
+         * tile along a dimension, the sub-sampling is reduced to a divisor of the tile size in that dimension.
+         * This restriction allows each tile of the returned image to be built from exactly one tile of the file.
+         * The "phase" is the index of the first pixel to read in each tile of the file.
+         */
+        int  strideX = 1, strideY = 1, phaseX = 0, phaseY = 0;
+        long lowX = 0, lowY = 0, width = imageWidth, height = imageHeight;
+        if (domain == null || !domain.isDefined(GridGeometry.GRID_TO_CRS) || !gridGeometry.isDefined(GridGeometry.GRID_TO_CRS)) {
+            domain = gridGeometry;
+        } else try {
+            final GridChange change  = new GridChange(domain, gridGeometry);
+            final GridExtent extent  = change.getTargetExtent();
+            final int[]      strides = change.getTargetStrides();
+            if (tilesAcross > 1) strides[0] = tileAlignedStride(strides[0], tileWidth);
+            if (tilesDown   > 1) strides[1] = tileAlignedStride(strides[1], tileHeight);
+            Arrays.fill(strides, 2, strides.length, 1);
+            domain  = change.getTargetGeometry(strides);
+            strideX = strides[0];
+            strideY = strides[1];
+            final GridExtent subsampled = domain.getExtent();
+            if (!subsampled.startsWithZero()) {
+                phaseX = (int) (extent.getLow(0) % strideX);        // Shall be consistent with GridChange.
+                phaseY = (int) (extent.getLow(1) % strideY);
+            }
+            lowX   = subsampled.getLow (0);
+            lowY   = subsampled.getLow (1);
+            width  = subsampled.getSize(0);
+            height = subsampled.getSize(1);
+        } catch (TransformException e) {
+            throw new DataStoreReferencingException(e);
+        }
+        final List<SampleDimension> sampleDimensions = getSampleDimensions();
+        final SampleDimension[] selected = new SampleDimension[bands.length];
+        for (int i=0; i<bands.length; i++) {
+            selected[i] = sampleDimensions.get(bands[i]);
+        }
+        final List<SampleDimension> selectedRange = UnmodifiableArrayList.wrap(selected);
+        try {
+            return new DataSubset(domain, selectedRange, bands,
+                    new DataSubset.Subsampling(this, strideX, strideY, phaseX, phaseY, tileWidth, tileHeight),
+                    lowX, lowY, Math.toIntExact(width), Math.toIntExact(height),
+                    Math.toIntExact(tilesAcross), Math.toIntExact(tilesDown), isPlanar, samplesPerPixel,
+                    dataType, createColorModel(bands, dataType, selectedRange));
+        } catch (RuntimeException e) {                  // Many exceptions thrown by SampleModel constructors.
+            throw new DataStoreContentException(e);
+        }
+    }
+
+    /**
+     * Returns the largest divisor of the given tile size which is not greater than the given stride.
+     * Using such divisor as the sub-sampling ensures that all tiles start with the same phase.
+     *
+     * @param  stride    the desired sub-sampling.
+     * @param  tileSize  the tile width or height.
+     * @return the sub-sampling to use.
+     */
+    private static int tileAlignedStride(final int stride, final int tileSize) {
+        final int[] divisors = MathFunctions.divisors(tileSize);
+        int i = Arrays.binarySearch(divisors, stride);
+        if (i < 0) i = ~i - 1;                          // Index of the largest divisor smaller than 'stride'.
+        return divisors[Math.max(i, 0)];
+    }
+
+    /**
+     * Reads the sample values of the tile at the given index with the given sub-sampling.
+     * The values are stored in an array of a primitive type determined by {@link #numberType()},
+     * with all components of a pixel stored consecutively (except in planar layout, where a tile
+     * contains only one component), then pixels in a row, then rows. If the tile does not have
+     * enough rows for filling the array (e.g. the last strip of an image), remaining values are zero.
+     *
+     * <p>Uncompressed data without predictor are read directly from the file in the returned array.
+     * For other data, the bytes of the tile are copied in the scratch buffer of a {@link Reader.Worker}, then
+     * streamed to the decompressor which writes in another buffer of the same worker, and the differencing applied
+     * by the predictor (if any) is reverted in-place before the sample values are copied in the array. Only the
+     * copy of bytes is done while holding the lock on the data store, so many threads can decode tiles concurrently.</p>
+     *
+     * @param  subsampling  the sub-sampling and the first pixel to read in the tile.
+     * @param  index        index of the tile to read, in the order of {@link #tileOffsets} elements.
+     * @param  capacity     minimal length of the array to return.
+     * @return the sample values, or {@code null} if the tile has no row to read.
+     * @throws IOException if an error occurred while reading the file.
+     * @throws DataStoreException if the sample values type is not supported or the data are corrupted.
+     *
+     * @see #readTiles(DataSubset.Subsampling, int[], int)
+     */
+    final Object readTile(final DataSubset.Subsampling subsampling, final int index, final int capacity)
+            throws IOException, DataStoreException
+    {
+        final int rows = rowsInTile(index);
+        if (rows <= subsampling.phaseY) {
+            return null;
+        }
+        final Region region = region(subsampling, rows);
+        final long offset = Math.addExact(reader.origin, tileOffsets.longValue(index));
+        if (compression == Compression.NONE && predictor == Predictor.NONE) {
+            synchronized (reader.owner) {
+                return new HyperRectangleReader(numberType(), input(), offset).read(region, capacity);
+            }
+        }
+        /*
+         * Compressed data, or data with a predictor. Read the compressed bytes in the worker buffer while
+         * holding the lock, then uncompress all rows of the tile and apply the predictor without the lock.
+         */
+        final Reader.Worker worker = reader.acquire(compression);
+        try {
+            final int count = Math.toIntExact(tileByteCounts.longValue(index));
+            final ChannelDataInput source;
+            synchronized (reader.owner) {
+                final ChannelDataInput input = input();
+                input.seek(offset);
+                source = worker.read(input, count);
+            }
+            return decode(worker, source, count, rows, region, capacity);
+        } finally {
+            reader.release(worker);
+        }
+    }
+
+    /**
+     * Reads the sample values of all tiles at the given indices with the given sub-sampling.
+     * This method produces the same results than invoking {@link #readTile readTile(…)} for
+     * each index, but is more efficient when many tiles are compressed. The work is done in
+     * two steps:
+     *
+     * <ol>
+     *   <li>The compressed bytes of a tile are copied in the scratch buffer of a {@link Reader.Worker} while
+     *       holding the lock on the data store. Tiles are taken in increasing order of file offsets, which allows
+     *       the channel to read the file sequentially (or almost) even if the tiles are not stored in the same
+     *       order than the requested indices.</li>
+     *   <li>The compressed bytes are uncompressed, the predictor (if any) is applied and the sample values are
+     *       copied in the array to return, without holding the lock.</li>
+     * </ol>
+     *
+     * Those steps are executed by a fixed number of tasks in the common fork-join pool. Each task borrows one
+     * worker (decompressor and buffers) and repeats the two steps for the next tile in file order until all tiles
+     * are read. Consequently the number of tiles read ahead of the decoders, and the memory used for compressed
+     * bytes, is bounded by the number of tasks regardless of the number of requested tiles.
+     *
+     * If the data are not compressed and do not use a predictor, there is no CPU-intensive work to parallelize.
+     * In that case the tiles are read directly in the arrays to return, still in increasing file offset order.
+     *
+     * @param  subsampling  the sub-sampling and the first pixel to read in each tile.
+     * @param  indices      indices of the tiles to read, in the order of {@link #tileOffsets} elements.
+     * @param  capacity     minimal length of the arrays to return.
+     * @return the sample values for each index, with {@code null} elements for the tiles having no row to read.
+     * @throws IOException if an error occurred while reading the file.
+     * @throws DataStoreException if the sample values type is not supported or the data are corrupted.
+     */
+    final Object[] readTiles(final DataSubset.Subsampling subsampling, final int[] indices, final int capacity)
+            throws IOException, DataStoreException
+    {
+        final Object[] tiles = new Object[indices.length];
+        final int[] order = fileOrder(indices);
+        if (compression == Compression.NONE && predictor == Predictor.NONE) {
+            for (final int i : order) {
+                tiles[i] = readTile(subsampling, indices[i], capacity);
+            }
+            return tiles;
+        }
+        /*
+         * Each task reads the next tile in file order while holding the lock, then decodes it without the lock.
+         * The 'next' counter is read and incremented only while holding the lock, which guarantees that tiles
+         * are read in file order. Checked exceptions are wrapped in BackingStoreException by the worker threads,
+         * then unwrapped here.
+         */
+        final int[] next = new int[1];
+        final int numTasks = Math.min(order.length, ForkJoinPool.getCommonPoolParallelism() + 1);
+        IntStream tasks = IntStream.range(0, numTasks);
+        if (numTasks > 1) {
+            tasks = tasks.parallel();
+        }
+        try {
+            tasks.forEach((task) -> {
+                final Reader.Worker worker = reader.acquire(compression);
+                try {
+                    while (true) {
+                        final int i, rows, count;
+                        final ChannelDataInput source;
+                        synchronized (reader.owner) {
+                            if (next[0] >= order.length) break;
+                            i = order[next[0]++];
+                            rows = rowsInTile(indices[i]);
+                            if (rows <= subsampling.phaseY) continue;       // Tile without row to read.
+                            count = Math.toIntExact(tileByteCounts.longValue(indices[i]));
+                            final ChannelDataInput input = input();
+                            input.seek(Math.addExact(reader.origin, tileOffsets.longValue(indices[i])));
+                            source = worker.read(input, count);
+                        }
+                        tiles[i] = decode(worker, source, count, rows, region(subsampling, rows), capacity);
+                    }
+                } catch (IOException | DataStoreException e) {
+                    throw new BackingStoreException(e);
+                } finally {
+                    reader.release(worker);
+                }
+            });
+        } catch (BackingStoreException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof DataStoreException) {
+                throw (DataStoreException) cause;
+            }
+            throw e.unwrapOrRethrow(IOException.class);
+        }
+        return tiles;
+    }
+
+    /**
+     * Returns the positions in the given array of tile indices, sorted in increasing order of file offsets.
+     */
+    private int[] fileOrder(final int[] indices) {
+        final long[] keys = new long[indices.length];
+        for (int i=0; i<keys.length; i++) {
+            keys[i] = tileOffsets.longValue(indices[i]);
+        }
+        return IntStream.range(0, keys.length).boxed()
+                .sorted((i, j) -> Long.compare(keys[i], keys[j]))
+                .mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Returns the number of rows in the tile at the given index. This is the tile height,
+     * except for the last row of tiles (or the last strip) which may be shorter.
+     */
+    private int rowsInTile(final int index) {
+        final long row = (index / Numerics.ceilDiv(imageWidth, tileWidth)) % Numerics.ceilDiv(imageHeight, tileHeight);
+        return (int) Math.min(tileHeight, imageHeight - row * tileHeight);
+    }
+
+    /**
+     * Returns the region to copy from a tile having the given number of rows.
+     */
+    private Region region(final DataSubset.Subsampling subsampling, final int rows) {
+        final long[] size, lower;
+        final int[] steps;
+        if (isPlanar) {
+            size  = new long[] {tileWidth, rows};
+            lower = new long[] {subsampling.phaseX, subsampling.phaseY};
+            steps = new int[]  {subsampling.strideX, subsampling.strideY};
+        } else {
+            size  = new long[] {samplesPerPixel, tileWidth, rows};
+            lower = new long[] {0, subsampling.phaseX, subsampling.phaseY};
+            steps = new int[]  {1, subsampling.strideX, subsampling.strideY};
+        }
+        return new Region(size, lower, size, steps);
+    }
+
+    /**
+     * Returns the number of components in a row of a tile, ignoring the sample size.
+     */
+    private int rowLength() {
+        return Math.multiplyExact(tileWidth, isPlanar ? 1 : samplesPerPixel);
+    }
+
+    /**
+     * Returns the number of bytes in a tile having the given number of rows, after decompression.
+     */
+    private int uncompressedLength(final int rows) {
+        return Math.multiplyExact(Math.multiplyExact(rowLength(), bitsPerSample / Byte.SIZE), rows);
+    }
+
+    /**
+     * Returns the length of the array where to uncompress a tile of the given length.
+     * For the floating point predictor, we reserve space for one more row used as a temporary buffer.
+     */
+    private int workLength(final int length) {
+        return (predictor == Predictor.FLOATING_POINT)
+               ? Math.addExact(length, rowLength() * (bitsPerSample / Byte.SIZE)) : length;
+    }
+
+    /**
+     * Uncompresses the bytes of a tile, reverts the predictor (if any), then copies the sample values
+     * in a new array of the primitive type determined by {@link #numberType()}. The uncompressed bytes
+     * are written in the buffer of the given worker, followed by space for a temporary buffer if needed
+     * by the predictor.
+     *
+     * @param  worker    the worker providing the decompressor and the buffer for uncompressed bytes.
+     * @param  source    the compressed bytes of the tile, as returned by {@link Reader.Worker#read}.
+     * @param  count     number of compressed bytes.
+     * @param  rows      number of rows in the tile.
+     * @param  region    the region to copy.
+     * @param  capacity  minimal length of the array to return.
+     * @return the sample values.
+     */
+    private Object decode(final Reader.Worker worker, final ChannelDataInput source, final int count,
+            final int rows, final Region region, final int capacity) throws IOException, DataStoreException
+    {
+        final ByteOrder order  = source.buffer.order();
+        final int       length = uncompressedLength(rows);
+        final byte[]    data   = worker.uncompressed(workLength(length));
+        final int n;
+        if (worker.decompressor == null) {
+            n = Math.min(count, length);
+            source.readFully(data, 0, n);
+        } else {
+            n = worker.decompressor.uncompress(source, count, data, length);
+        }
+        if (n < length) {
+            Arrays.fill(data, n, length, (byte) 0);             // Truncated data.
+        }
+        final int numComponents = isPlanar ? 1 : samplesPerPixel;
+        final int sampleSize    = bitsPerSample / Byte.SIZE;
+        switch (predictor) {
+            case Predictor.HORIZONTAL: {
+                Predictor.horizontal(data, length, rowLength(), numComponents, sampleSize, order);
+                break;
+            }
+            case Predictor.FLOATING_POINT: {
+                Predictor.floatingPoint(data, length, rowLength(), numComponents, sampleSize, order);
+                break;
+            }
+        }
+        final ByteBuffer bytes = ByteBuffer.wrap(data, 0, length).order(order);
+        final Buffer view;
+        switch (numberType()) {
+            case Numbers.BYTE:    view = bytes; break;
+            case Numbers.SHORT:   view = bytes.asShortBuffer();  break;
+            case Numbers.INTEGER: view = bytes.asIntBuffer();    break;
+            case Numbers.FLOAT:   view = bytes.asFloatBuffer();  break;
+            default:              view = bytes.asDoubleBuffer(); break;
+        }
+        return new HyperRectangleReader(filename(), view).read(region, capacity);
+    }
+
+    /**
+     * Returns the type of sample values as one of the {@link Numbers} constants.
+     *
+     * @throws DataStoreContentException if the sample values type is not supported.
+     */
+    private byte numberType() throws DataStoreContentException {
+        if (sampleFormat == FLOAT) {
+            switch (bitsPerSample) {
+                case Float.SIZE:  return Numbers.FLOAT;
+                case Double.SIZE: return Numbers.DOUBLE;
+            }
+        } else {
+            switch (bitsPerSample) {
+                case Byte.SIZE:    return Numbers.BYTE;
+                case Short.SIZE:   return Numbers.SHORT;
+                case Integer.SIZE: return Numbers.INTEGER;
+            }
+        }
+        final int format;
+        switch (sampleFormat) {
+            case SIGNED: format = 2; break;         // Same values than the SampleFormat TIFF tag.
+            case FLOAT:  format = 3; break;
+            default:     format = 1; break;
+        }
+        throw new DataStoreContentException(reader.resources().getString(
+                Resources.Keys.UnsupportedSampleFormat_3, filename(), bitsPerSample, format));
+    }
+
+    /**
+     * Returns the type of sample values as one of the {@link DataBuffer} constants.
+     *
+     * @throws DataStoreContentException if the sample values type is not supported.
+     */
+    private int dataType() throws DataStoreContentException {
+        switch (numberType()) {
+            case Numbers.BYTE:    return DataBuffer.TYPE_BYTE;
+            case Numbers.SHORT:   return (sampleFormat == SIGNED) ? DataBuffer.TYPE_SHORT : DataBuffer.TYPE_USHORT;
+            case Numbers.INTEGER: return DataBuffer.TYPE_INT;
+            case Numbers.FLOAT:   return DataBuffer.TYPE_FLOAT;
+            default:              return DataBuffer.TYPE_DOUBLE;
+        }
+    }
+
+    /**
+     * Creates the color model for an image containing the given bands.
+     * Palette and RGB images use the colors specified in the TIFF file if the selected bands allow that.
+     * Other images use a grayscale color model.
+     *
+     * @param  bands     indices of the selected bands.
+     * @param  dataType  the {@link DataBuffer} type of sample values.
+     * @param  range     the sample dimensions of the selected bands.
+     */
+    private ColorModel createColorModel(final int[] bands, final int dataType, final List<SampleDimension> range) {
+        switch (photometricInterpretation) {
+            case 3: {                                           // PaletteColor
+                if (colorMap != null && bands.length == 1 && dataType == DataBuffer.TYPE_BYTE) {
+                    final int n = colorMap.size() / 3;
+                    final int[] ARGB = new int[n];
+                    for (int i=0; i<n; i++) {
+                        ARGB[i] = 0xFF000000 | ((colorMap.intValue(i)       & 0xFF00) << 8)
+                                             |  (colorMap.intValue(i +   n) & 0xFF00)
+                                             | ((colorMap.intValue(i + 2*n) & 0xFF00) >>> 8);
+                    }
+                    return ColorModelFactory.createIndexColorModel(ARGB, 1, 0, -1);
+                }
+                break;
+            }
+            case 2: {                                           // RGB
+                if (dataType == DataBuffer.TYPE_BYTE && (bands.length == 3 || bands.length == 4)) {
+                    boolean isOrdered = true;
+                    for (int i=0; i<bands.length; i++) {
+                        isOrdered &= (bands[i] == i);
+                    }
+                    if (isOrdered) {
+                        final boolean hasAlpha = (bands.length == 4);
+                        return new ComponentColorModel(ColorSpace.getInstance(ColorSpace.CS_sRGB), hasAlpha, false,
+                                hasAlpha ? Transparency.TRANSLUCENT : Transparency.OPAQUE, dataType);
+                    }
+                }
+                break;
+            }
+        }
+        return ColorModelFactory.createColorModel(range, 0, dataType, (category) -> new Color[] {Color.BLACK, Color.WHITE});
     }
 
     /**
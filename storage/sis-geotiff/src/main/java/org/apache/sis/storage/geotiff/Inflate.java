@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.geotiff;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.Inflater;
+import java.util.zip.DataFormatException;
+import org.apache.sis.internal.storage.io.ChannelDataInput;
+import org.apache.sis.storage.DataStoreContentException;
+
+
+/**
+ * Uncompresses data compressed with the "Deflate" method (ZIP format).
+ * The compressed bytes are given to the {@link Inflater} directly from the {@link ChannelDataInput} buffer
+ * when that buffer is backed by an accessible array. Otherwise (e.g. direct buffers), the bytes are copied
+ * in a small array reused for all tiles.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+final class Inflate extends Decompressor {
+    /**
+     * The object doing the actual decompression work. Reset before each tile.
+     */
+    private final Inflater inflater;
+
+    /**
+     * Temporary array for transferring bytes from a buffer not backed by an accessible array.
+     * Created when first needed.
+     */
+    private byte[] transfer;
+
+    /**
+     * Creates a new decompressor.
+     */
+    Inflate() {
+        inflater = new Inflater();
+    }
+
+    /**
+     * Reads and uncompresses the data of one tile or strip.
+     */
+    @Override
+    int uncompress(final ChannelDataInput input, long count, final byte[] target, final int length)
+            throws IOException, DataStoreContentException
+    {
+        inflater.reset();
+        final ByteBuffer buffer = input.buffer;
+        int n = 0;
+        try {
+            while (n < length) {
+                if (inflater.needsInput()) {
+                    if (count <= 0 || !input.hasRemaining()) break;
+                    final int chunk = (int) Math.min(buffer.remaining(), count);
+                    final int position = buffer.position();
+                    if (buffer.hasArray()) {
+                        inflater.setInput(buffer.array(), buffer.arrayOffset() + position, chunk);
+                        buffer.position(position + chunk);
+                    } else {
+                        if (transfer == null) {
+                            transfer = new byte[Math.min(buffer.capacity(), 4096)];
+                        }
+                        final int c = Math.min(chunk, transfer.length);
+                        buffer.get(transfer, 0, c);
+                        inflater.setInput(transfer, 0, c);
+                    }
+                    count -= buffer.position() - position;
+                }
+                final int r = inflater.inflate(target, n, length - n);
+                if (r == 0 && (inflater.finished() || inflater.needsDictionary())) {
+                    break;
+                }
+                n += r;
+            }
+        } catch (DataFormatException e) {
+            throw new DataStoreContentException(e);
+        }
+        return n;
+    }
+
+    /**
+     * Releases the native resources used by the inflater.
+     */
+    @Override
+    void dispose() {
+        inflater.end();
+    }
+}
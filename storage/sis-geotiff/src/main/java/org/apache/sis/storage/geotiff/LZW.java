@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.geotiff;
+
+import java.io.IOException;
+import org.apache.sis.internal.storage.io.ChannelDataInput;
+import org.apache.sis.storage.DataStoreContentException;
+import org.apache.sis.util.resources.Errors;
+
+
+/**
+ * Uncompresses data compressed with the Lempel-Ziv-Welch (LZW) method, as specified in TIFF 6.0 section 13.
+ * Codes are stored with the most significant bit first, starting with a length of 9 bits and increasing up
+ * to 12 bits. The code length increases one code earlier than what a strict LZW implementation would do,
+ * as mandated by the TIFF specification.
+ *
+ * <p>This implementation does not store the strings of the LZW table. Instead, it takes advantage of the fact
+ * that each string in the table is a sequence of bytes previously written in the target array. Consequently,
+ * each table entry is only an offset and a length in the target array.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+final class LZW extends Decompressor {
+    /**
+     * Code for clearing the table and resetting the code length to 9 bits.
+     */
+    private static final int CLEAR_CODE = 256;
+
+    /**
+     * Code for the end of the data.
+     */
+    private static final int EOI_CODE = 257;
+
+    /**
+     * First code available for strings of two or more bytes.
+     */
+    private static final int FIRST_ADAPTATIVE_CODE = 258;
+
+    /**
+     * Minimal and maximal number of bits in a code.
+     */
+    private static final int MIN_CODE_SIZE = 9, MAX_CODE_SIZE = 12;
+
+    /**
+     * For each code equals or greater than {@link #FIRST_ADAPTATIVE_CODE}, the offset in the target array
+     * of the first byte of the string represented by that code.
+     */
+    private final int[] offsets;
+
+    /**
+     * For each code equals or greater than {@link #FIRST_ADAPTATIVE_CODE}, the number of bytes in the string
+     * represented by that code.
+     */
+    private final int[] lengths;
+
+    /**
+     * Creates a new decompressor.
+     */
+    LZW() {
+        offsets = new int[1 << MAX_CODE_SIZE];
+        lengths = new int[1 << MAX_CODE_SIZE];
+    }
+
+    /**
+     * Reads and uncompresses the data of one tile or strip.
+     */
+    @Override
+    int uncompress(final ChannelDataInput input, long count, final byte[] target, final int length)
+            throws IOException, DataStoreContentException
+    {
+        long bits       = 0;                        // Bits read from the input but not yet consumed.
+        int  numBits    = 0;                        // Number of valid bits in the 'bits' field.
+        int  codeSize   = MIN_CODE_SIZE;
+        int  nextCode   = FIRST_ADAPTATIVE_CODE;
+        int  previous   = -1;                       // Previous code, or -1 after a clear code.
+        int  prevOffset = 0;                        // Offset in the target array of the previous string.
+        int  n          = 0;                        // Number of bytes written in the target array.
+        while (n < length) {
+            while (numBits < codeSize) {
+                if (--count < 0) return n;          // Truncated data (no end of information code).
+                bits = (bits << Byte.SIZE) | input.readUnsignedByte();
+                numBits += Byte.SIZE;
+            }
+            numBits -= codeSize;
+            final int code = (int) (bits >>> numBits) & ((1 << codeSize) - 1);
+            if (code == EOI_CODE) {
+                break;
+            }
+            if (code == CLEAR_CODE) {
+                codeSize = MIN_CODE_SIZE;
+                nextCode = FIRST_ADAPTATIVE_CODE;
+                previous = -1;
+                continue;
+            }
+            final int start = n;
+            if (code < CLEAR_CODE) {
+                target[n++] = (byte) code;
+            } else if (code < nextCode) {
+                final int size = Math.min(lengths[code], length - n);
+                System.arraycopy(target, offsets[code], target, n, size);
+                n += size;
+            } else if (code == nextCode && previous >= 0) {
+                /*
+                 * The code is not yet in the table. This happen when the string to write is
+                 * the previous string followed by the first character of the previous string.
+                 */
+                final int size = Math.min(stringLength(previous) + 1, length - n);
+                System.arraycopy(target, prevOffset, target, n, size - 1);
+                n += size - 1;
+                if (n < length) {
+                    target[n++] = target[prevOffset];
+                }
+            } else {
+                throw new DataStoreContentException(Errors.format(Errors.Keys.CanNotRead_1, "LZW"));
+            }
+            /*
+             * Add a new string in the table: the previous string followed by the first byte of
+             * the current string. Since the current string has been written immediately after
+             * the previous string, the new string is a sequence of bytes in the target array.
+             */
+            if (previous >= 0 && nextCode < offsets.length) {
+                offsets[nextCode] = prevOffset;
+                lengths[nextCode] = stringLength(previous) + 1;
+                if (++nextCode == (1 << codeSize) - 1 && codeSize < MAX_CODE_SIZE) {
+                    codeSize++;
+                }
+            }
+            previous   = code;
+            prevOffset = start;
+        }
+        return n;
+    }
+
+    /**
+     * Returns the number of bytes in the string represented by the given code.
+     */
+    private int stringLength(final int code) {
+        return (code < CLEAR_CODE) ? 1 : lengths[code];
+    }
+}
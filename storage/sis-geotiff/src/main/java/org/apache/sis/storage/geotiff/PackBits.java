@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.geotiff;
+
+import java.io.IOException;
+import java.util.Arrays;
+import org.apache.sis.internal.storage.io.ChannelDataInput;
+
+
+/**
+ * Uncompresses data compressed with the PackBits method, a simple byte-oriented run-length scheme
+ * specified in TIFF 6.0 section 9. Each run starts with a header byte <var>n</var> interpreted as below:
+ *
+ * <ul>
+ *   <li>0 to 127: copy the next <var>n</var>+1 bytes literally.</li>
+ *   <li>-127 to -1: repeat the next byte −<var>n</var>+1 times.</li>
+ *   <li>-128: no operation.</li>
+ * </ul>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+final class PackBits extends Decompressor {
+    /**
+     * Creates a new decompressor.
+     */
+    PackBits() {
+    }
+
+    /**
+     * Reads and uncompresses the data of one tile or strip.
+     */
+    @Override
+    int uncompress(final ChannelDataInput input, long count, final byte[] target, final int length) throws IOException {
+        int n = 0;
+        while (n < length && --count >= 0) {
+            final int header = input.readByte();
+            if (header >= 0) {
+                final int size = (int) Math.min(Math.min(header + 1, length - n), count);
+                input.readFully(target, n, size);
+                count -= size;
+                n += size;
+            } else if (header != -128) {
+                if (--count < 0) break;
+                final byte value = input.readByte();
+                final int end = Math.min(n + 1 - header, length);
+                Arrays.fill(target, n, end, value);
+                n = end;
+            }
+        }
+        return n;
+    }
+}
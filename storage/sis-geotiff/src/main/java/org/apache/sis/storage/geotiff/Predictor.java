@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.geotiff;
+
+import java.nio.ByteOrder;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+
+/**
+ * Reverses the differencing applied on sample values before compression, as specified by the
+ * {@code Predictor} TIFF tag. Two predictors are supported:
+ *
+ * <ul>
+ *   <li>2 = horizontal differencing (TIFF 6.0 section 14): each sample value, except in the first pixel of
+ *       each row, is stored as the difference with the same component of the previous pixel.</li>
+ *   <li>3 = floating point predictor (Adobe Photoshop TIFF Technical Note 3): the bytes of floating point
+ *       values in a row are reordered from most significant to less significant byte, then each byte is
+ *       stored as the difference with the byte of the same component in the previous pixel.</li>
+ * </ul>
+ *
+ * Those methods work in-place on the uncompressed bytes of a tile, before the sample values are copied
+ * in the arrays of the tiles returned to the user.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+final class Predictor {
+    /**
+     * Value of the {@code Predictor} TIFF tag for no prediction scheme, horizontal differencing
+     * or floating point prediction.
+     */
+    static final short NONE = 1, HORIZONTAL = 2, FLOATING_POINT = 3;
+
+    /**
+     * Do not allow instantiation of this class.
+     */
+    private Predictor() {
+    }
+
+    /**
+     * Reverses the horizontal differencing (predictor 2) applied on the given data.
+     * The number of bytes to process is a multiple of {@code rowLength × sampleSize}.
+     *
+     * @param  data             the uncompressed bytes of a tile, in the byte order of the TIFF file.
+     * @param  length           number of bytes to process, starting at index 0.
+     * @param  rowLength        number of samples in a row (tile width × samples per pixel).
+     * @param  samplesPerPixel  number of samples in a pixel (1 in planar layout).
+     * @param  sampleSize       number of bytes in a sample: 1, 2, 4 or 8.
+     * @param  order            the byte order of the TIFF file.
+     */
+    static void horizontal(final byte[] data, final int length, final int rowLength,
+            final int samplesPerPixel, final int sampleSize, final ByteOrder order)
+    {
+        final ByteBuffer bytes = ByteBuffer.wrap(data, 0, length).order(order);
+        final int limit = length / sampleSize;
+        switch (sampleSize) {
+            case Byte.BYTES: {
+                for (int row = 0; row < limit; row += rowLength) {
+                    final int end = row + rowLength;
+                    for (int i = row + samplesPerPixel; i < end; i++) {
+                        data[i] += data[i - samplesPerPixel];
+                    }
+                }
+                break;
+            }
+            case Short.BYTES: {
+                final ShortBuffer values = bytes.asShortBuffer();
+                for (int row = 0; row < limit; row += rowLength) {
+                    final int end = row + rowLength;
+                    for (int i = row + samplesPerPixel; i < end; i++) {
+                        values.put(i, (short) (values.get(i) + values.get(i - samplesPerPixel)));
+                    }
+                }
+                break;
+            }
+            case Integer.BYTES: {
+                final IntBuffer values = bytes.asIntBuffer();
+                for (int row = 0; row < limit; row += rowLength) {
+                    final int end = row + rowLength;
+                    for (int i = row + samplesPerPixel; i < end; i++) {
+                        values.put(i, values.get(i) + values.get(i - samplesPerPixel));
+                    }
+                }
+                break;
+            }
+            case Long.BYTES: {
+                final LongBuffer values = bytes.asLongBuffer();
+                for (int row = 0; row < limit; row += rowLength) {
+                    final int end = row + rowLength;
+                    for (int i = row + samplesPerPixel; i < end; i++) {
+                        values.put(i, values.get(i) + values.get(i - samplesPerPixel));
+                    }
+                }
+                break;
+            }
+            default: throw new AssertionError(sampleSize);
+        }
+    }
+
+    /**
+     * Reverses the floating point prediction (predictor 3) applied on the given data.
+     * The {@code data} array shall have at least {@code rowLength × sampleSize} bytes
+     * after {@code length}, which are used as a temporary buffer.
+     *
+     * @param  data             the uncompressed bytes of a tile, followed by space for one row.
+     * @param  length           number of bytes to process, starting at index 0.
+     * @param  rowLength        number of samples in a row (tile width × samples per pixel).
+     * @param  samplesPerPixel  number of samples in a pixel (1 in planar layout).
+     * @param  sampleSize       number of bytes in a sample: 2, 4 or 8.
+     * @param  order            the byte order in which to store the sample values.
+     */
+    static void floatingPoint(final byte[] data, final int length, final int rowLength,
+            final int samplesPerPixel, final int sampleSize, final ByteOrder order)
+    {
+        final int     rowBytes    = rowLength * sampleSize;
+        final boolean isBigEndian = ByteOrder.BIG_ENDIAN.equals(order);
+        for (int row = 0; row < length; row += rowBytes) {
+            /*
+             * Reverse the byte differencing. The result is written in the temporary space
+             * after the tile, for allowing the reordering of bytes in the row to process.
+             */
+            final int end = row + rowBytes;
+            for (int i = row + samplesPerPixel; i < end; i++) {
+                data[i] += data[i - samplesPerPixel];
+            }
+            System.arraycopy(data, row, data, length, rowBytes);
+            /*
+             * In each row, the most significant bytes of all samples are stored first,
+             * followed by the second most significant bytes of all samples, etc.
+             */
+            for (int b=0; b<sampleSize; b++) {
+                final int source = length + (isBigEndian ? b : sampleSize - 1 - b) * rowLength;
+                int target = row + b;
+                for (int i=0; i<rowLength; i++) {
+                    data[target] = data[source + i];
+                    target += sampleSize;
+                }
+            }
+        }
+    }
+}
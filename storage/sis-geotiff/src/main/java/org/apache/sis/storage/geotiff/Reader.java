@@ -16,14 +16,20 @@
  */
 package org.apache.sis.storage.geotiff;
 
+import java.util.Map;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.Set;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.EnumMap;
+import java.util.Deque;
+import java.util.ArrayDeque;
 import java.io.IOException;
 import java.nio.ByteOrder;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
 import java.text.ParseException;
 import org.opengis.util.NameFactory;
 import org.apache.sis.storage.DataStoreException;
@@ -62,8 +68,9 @@ final class Reader extends GeoTIFF {
 
     /**
      * Stream position of the first byte of the GeoTIFF file. This is usually zero.
+     * All offsets in the TIFF file (including tile offsets) are relative to this position.
      */
-    private final long origin;
+    final long origin;
 
     /**
      * A multiplication factor for the size of pointers, expressed as a power of 2.
@@ -104,6 +111,20 @@ final class Reader extends GeoTIFF {
      */
     private final List<ImageFileDirectory> imageFileDirectories = new ArrayList<>();
 
+    /**
+     * The full-resolution images found so far, with their overviews attached. This is a subset of
+     * {@link #imageFileDirectories} where reduced-resolution images have been omitted.
+     *
+     * @see #getImage(int)
+     */
+    private final List<ImageFileDirectory> images = new ArrayList<>();
+
+    /**
+     * Number of elements of {@link #imageFileDirectories} which have been classified as full-resolution
+     * images or overviews by {@link #getImage(int)}.
+     */
+    private int numClassified;
+
     /**
      * Entries having a value that can not be read immediately, but instead have a pointer
      * to a value stored elsewhere in the file. Those values will be read only when needed.
@@ -130,6 +151,22 @@ final class Reader extends GeoTIFF {
      */
     final NameFactory nameFactory;
 
+    /**
+     * The workers which are not currently in use, for each compression method.
+     * Workers are recycled for all tiles of all images in the TIFF file.
+     * All accesses to this map shall be synchronized on the map.
+     *
+     * @see #acquire(Compression)
+     * @see #release(Worker)
+     */
+    private final Map<Compression,Deque<Worker>> workers = new EnumMap<>(Compression.class);
+
+    /**
+     * Whether this reader has been closed. Workers released after this reader has been closed are disposed
+     * instead than recycled. All accesses to this field shall be synchronized on {@link #workers}.
+     */
+    private boolean closed;
+
     /**
      * Creates a new GeoTIFF reader which will read data from the given input.
      * The input must be at the beginning of the GeoTIFF file.
@@ -322,6 +359,30 @@ final class Reader extends GeoTIFF {
         return dir;
     }
 
+    /**
+     * Returns the full-resolution image at the given index, with its overviews attached.
+     * Images flagged as reduced-resolution versions (bit 0 of {@code NewSubfileType}) are
+     * not counted; they are instead added as overviews of the previous full-resolution image.
+     * Since overviews follow their full-resolution image in the file, this method reads the
+     * IFDs up to the next full-resolution image for making sure that all overviews are known.
+     *
+     * @param  index  index of the full-resolution image, ignoring overviews.
+     * @return the image at the given index, or {@code null} if there is no more image.
+     */
+    final ImageFileDirectory getImage(final int index) throws IOException, DataStoreException {
+        while (index + 1 >= images.size()) {
+            final ImageFileDirectory dir = getImageFileDirectory(numClassified);
+            if (dir == null) break;
+            numClassified++;
+            if (dir.isReducedResolution() && !images.isEmpty()) {
+                images.get(images.size() - 1).addOverview(dir);
+            } else {
+                images.add(dir);
+            }
+        }
+        return (index < images.size()) ? images.get(index) : null;
+    }
+
     /**
      * Reads some of the entries that has been deferred. If the given {@code dir} argument is non-null,
      * then this method resolves all entries needed by this IFD no matter where the entry value is located.
@@ -391,6 +452,147 @@ final class Reader extends GeoTIFF {
         owner.warning(errors().getString(key, args), exception);
     }
 
+    /**
+     * A decompressor together with the buffers where to store the compressed and uncompressed bytes of a tile.
+     * A worker is used by only one thread at a time, but can be used by different threads at different times.
+     * Workers are obtained by {@link Reader#acquire(Compression)} and shall be given back to the reader by
+     * {@link Reader#release(Worker)}, so that the decompressor and the buffers are reused for many tiles.
+     *
+     * <p>The compressed bytes of a tile are copied from the file in a scratch buffer owned by this worker,
+     * which is then given to the decompressor as a {@link ChannelDataInput}. This allows decompressors to
+     * use the same streaming API for reading directly from the file or from the scratch buffer.</p>
+     */
+    static final class Worker implements ReadableByteChannel {
+        /**
+         * The compression method of the data to be processed by this worker.
+         */
+        final Compression method;
+
+        /**
+         * The decompressor, or {@code null} if the data are not compressed.
+         */
+        final Decompressor decompressor;
+
+        /**
+         * Buffer for the compressed bytes of a tile. Created when first needed,
+         * and replaced by a larger buffer if a larger capacity is needed.
+         */
+        private ByteBuffer compressed;
+
+        /**
+         * Buffer for the uncompressed bytes of a tile.
+         * Created when first needed, and expanded if a larger capacity is needed.
+         */
+        private byte[] uncompressed;
+
+        /**
+         * Creates a new worker for the given compression method.
+         */
+        private Worker(final Compression method) {
+            this.method  = method;
+            decompressor = Decompressor.create(method);
+        }
+
+        /**
+         * Copies the given amount of bytes from the given input to the scratch buffer of this worker.
+         * The input shall be positioned on the first byte to copy. The returned stream is valid until
+         * the next call to this method.
+         *
+         * @param  input  the input positioned on the first byte to copy.
+         * @param  count  number of bytes to copy.
+         * @return a stream over the copied bytes.
+         * @throws IOException if an error occurred while reading the input.
+         */
+        final ChannelDataInput read(final ChannelDataInput input, final int count) throws IOException {
+            if (compressed == null || compressed.capacity() < count) {
+                compressed = ByteBuffer.allocate(count);
+            }
+            input.readFully(compressed.array(), 0, count);
+            compressed.clear().limit(count);
+            compressed.order(input.buffer.order());
+            return new ChannelDataInput(input.filename, this, compressed, true);
+        }
+
+        /**
+         * Returns a buffer of at least the given length for the uncompressed bytes of a tile.
+         */
+        final byte[] uncompressed(final int length) {
+            if (uncompressed == null || uncompressed.length < length) {
+                uncompressed = new byte[length];
+            }
+            return uncompressed;
+        }
+
+        /**
+         * Invoked by the stream returned by {@link #read(ChannelDataInput, int)} when it needs more bytes.
+         * Since all bytes of the tile are already in the scratch buffer, there is no more bytes to read.
+         *
+         * @return -1 for meaning <cite>end of stream</cite>.
+         */
+        @Override
+        public int read(final ByteBuffer target) {
+            return -1;
+        }
+
+        /**
+         * Returns {@code true} since the scratch buffer is always readable.
+         */
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        /**
+         * Does nothing, since the scratch buffer is released by {@link #dispose()}.
+         */
+        @Override
+        public void close() {
+        }
+
+        /**
+         * Releases the resources used by the decompressor.
+         */
+        final void dispose() {
+            if (decompressor != null) {
+                decompressor.dispose();
+            }
+        }
+    }
+
+    /**
+     * Returns a worker for uncompressing data compressed with the given method. The worker is taken from
+     * a pool of previously released workers if possible, or created otherwise. The caller has exclusive
+     * use of the worker until it is given back by a call to {@link #release(Worker)}.
+     *
+     * @param  method  the compression method.
+     * @return a worker for the given compression method.
+     */
+    final Worker acquire(final Compression method) {
+        synchronized (workers) {
+            final Deque<Worker> pool = workers.get(method);
+            if (pool != null) {
+                final Worker worker = pool.pollFirst();
+                if (worker != null) return worker;
+            }
+        }
+        return new Worker(method);
+    }
+
+    /**
+     * Gives back a worker obtained by {@link #acquire(Compression)}, for reuse by other tiles.
+     *
+     * @param  worker  the worker to release.
+     */
+    final void release(final Worker worker) {
+        synchronized (workers) {
+            if (!closed) {
+                workers.computeIfAbsent(worker.method, (k) -> new ArrayDeque<>()).addFirst(worker);
+                return;
+            }
+        }
+        worker.dispose();
+    }
+
     /**
      * Closes this reader.
      *
@@ -398,6 +600,11 @@ final class Reader extends GeoTIFF {
      */
     @Override
     public void close() throws IOException {
+        synchronized (workers) {
+            closed = true;
+            workers.values().forEach((pool) -> pool.forEach(Worker::dispose));
+            workers.clear();
+        }
         input.channel.close();
     }
 }
@@ -0,0 +1,682 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.geotiff;
+
+import java.util.List;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.stream.IntStream;
+import java.util.zip.Deflater;
+import java.io.IOException;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteOrder;
+import java.nio.ByteBuffer;
+import java.awt.Rectangle;
+import java.awt.image.Raster;
+import java.awt.image.DataBuffer;
+import java.awt.image.SampleModel;
+import java.awt.image.RenderedImage;
+import org.opengis.util.FactoryException;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.crs.GeographicCRS;
+import org.opengis.referencing.crs.ProjectedCRS;
+import org.opengis.referencing.datum.PixelInCell;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.Matrix;
+import org.apache.sis.coverage.grid.GridGeometry;
+import org.apache.sis.internal.geotiff.Resources;
+import org.apache.sis.internal.storage.io.ChannelDataOutput;
+import org.apache.sis.referencing.CRS;
+import org.apache.sis.referencing.IdentifiedObjects;
+import org.apache.sis.referencing.crs.AbstractCRS;
+import org.apache.sis.referencing.cs.AxesConvention;
+import org.apache.sis.referencing.operation.transform.MathTransforms;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.DataStoreReferencingException;
+import org.apache.sis.util.resources.Errors;
+
+
+/**
+ * An image writer for GeoTIFF files using the <cite>Cloud Optimized GeoTIFF</cite> (COG) layout.
+ * The image is written as DEFLATE-compressed tiles, followed by reduced-resolution images (overviews)
+ * until the overview fits in a single tile. The file layout is designed for efficient HTTP range reads:
+ *
+ * <ol>
+ *   <li>The TIFF header, followed by the Image File Directories (IFD) of the full-resolution image
+ *       and of all overviews, in decreasing resolution order. All tag values are stored together
+ *       with their IFD, so a reader can fetch all metadata in a single request.</li>
+ *   <li>The tiles of the overviews, from the smallest overview to the largest one.</li>
+ *   <li>The tiles of the full-resolution image, in row-major order.</li>
+ * </ol>
+ *
+ * The file does not contain the "ghost area" (GDAL-specific metadata at the beginning of the file).
+ * Since the IFDs must be written before the tiles, the IFDs are written with tile offsets and tile lengths
+ * initialized to zero. Then each row of tiles is compressed in parallel and written to the output as soon
+ * as completed, so that at most one row of compressed tiles is kept in memory. After all tiles have been
+ * written, the writer seeks back to the arrays of tile offsets and tile lengths for writing their actual values.
+ * Consequently the output channel shall be seekable, unless the whole file fits in the output buffer.
+ *
+ * <p>The BigTIFF format is used if the file could exceed the 4 gigabytes limit of classic TIFF.
+ * Since the compressed length of tiles is not known when the IFDs are written, this decision is
+ * based on the maximal length that the DEFLATE algorithm may produce.</p>
+ *
+ * <p>Overviews are computed by nearest-neighbor sub-sampling of the full-resolution image.
+ * Only pixel-interleaved ("chunky") layout is written.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+final class Writer extends GeoTIFF {
+    /**
+     * Width and height of tiles, in pixels. The TIFF specification requires a multiple of 16.
+     */
+    static final int TILE_SIZE = 256;
+
+    /**
+     * Values of the {@code NewSubfileType} tag for the full-resolution image and for overviews.
+     */
+    private static final int FULL_RESOLUTION = 0, REDUCED_RESOLUTION = 1;
+
+    /**
+     * Values of the {@code SampleFormat} tag for unsigned integers, signed integers and floating point values.
+     */
+    private static final int UNSIGNED = 1, SIGNED = 2, FLOATING_POINT = 3;
+
+    /**
+     * Value of the {@code PhotometricInterpretation} tag for gray scale or RGB images.
+     */
+    private static final int BLACK_IS_ZERO = 1, RGB = 2;
+
+    /**
+     * Value of the {@code PlanarConfiguration} tag for pixel-interleaved samples.
+     */
+    private static final int CHUNKY = 1;
+
+    /**
+     * The stream where to write the data.
+     */
+    final ChannelDataOutput output;
+
+    /**
+     * Stream position of the first byte of the GeoTIFF file.
+     * All offsets in the TIFF file (including tile offsets) are relative to this position.
+     */
+    private final long origin;
+
+    /**
+     * Whether the file is written in the BigTIFF format. This is determined before to write the IFDs.
+     */
+    private boolean isBigTIFF;
+
+    /**
+     * Number of bands, type of sample values and number of bytes per sample of the image being written.
+     */
+    private int numBands, dataType, sampleSize;
+
+    /**
+     * Creates a new GeoTIFF writer which will write data in the given output.
+     * The TIFF file will start at the current output position.
+     *
+     * @param  owner   the store which created this writer, or {@code null} if none.
+     * @param  output  where to write the GeoTIFF file.
+     */
+    Writer(final GeoTiffStore owner, final ChannelDataOutput output) {
+        super(owner);
+        this.output = output;
+        this.origin = output.getStreamPosition();
+    }
+
+    /**
+     * One of the images to write: the full-resolution image or an overview.
+     */
+    private static final class Level {
+        /** Sub-sampling relative to the full-resolution image. */
+        final int subsampling;
+
+        /** Size of this image, in pixels. */
+        final int width, height;
+
+        /** Number of tiles along the <var>x</var> and <var>y</var> axes. */
+        final int tilesAcross, tilesDown;
+
+        /** Tag entries of this image, sorted by tag number. */
+        final List<Entry> entries;
+
+        /** The entries for tile offsets and tile lengths. Their values are set after the tiles have been written. */
+        Entry offsets, lengths;
+
+        /** Position of this IFD, relative to the beginning of the TIFF file. */
+        long position;
+
+        /** Creates a new level for an image of the given size. */
+        Level(final int subsampling, final int width, final int height) {
+            this.subsampling = subsampling;
+            this.width       = width;
+            this.height      = height;
+            tilesAcross      = (width  + TILE_SIZE - 1) / TILE_SIZE;
+            tilesDown        = (height + TILE_SIZE - 1) / TILE_SIZE;
+            entries          = new ArrayList<>();
+        }
+
+        /** Returns the number of tiles in this image. */
+        final int tileCount() {
+            return Math.multiplyExact(tilesAcross, tilesDown);
+        }
+    }
+
+    /**
+     * A TIFF tag with its values. Values are stored in an array of type {@code short[]},
+     * {@code int[]} (written as unsigned), {@code long[]} or {@code double[]}.
+     */
+    private static final class Entry {
+        /** The TIFF tag. */
+        final short tag;
+
+        /** The TIFF type of values. */
+        final Type type;
+
+        /** The values, as an array of primitive type. */
+        final Object values;
+
+        /** Number of values. */
+        final int count;
+
+        /** Position of the values in the file, relative to the beginning of the TIFF file. Set when the IFD is written. */
+        long valuesPosition;
+
+        /** Creates a new entry. */
+        Entry(final short tag, final Type type, final Object values, final int count) {
+            this.tag    = tag;
+            this.type   = type;
+            this.values = values;
+            this.count  = count;
+        }
+
+        /**
+         * Returns the type to write in the file. This is the type specified at construction time,
+         * except for 64 bits integers which are written as 32 bits integers in classic TIFF files.
+         */
+        final Type type(final boolean isBigTIFF) {
+            return (type == Type.ULONG && !isBigTIFF) ? Type.UINT : type;
+        }
+
+        /** Number of bytes needed for all values. */
+        final long length(final boolean isBigTIFF) {
+            return (long) count * type(isBigTIFF).size;
+        }
+    }
+
+    /**
+     * Writes the given image in the Cloud Optimized GeoTIFF layout.
+     *
+     * @param  image  the image to write.
+     * @param  grid   the grid geometry of the image, or {@code null} if unknown.
+     * @throws IOException if an error occurred while writing to the output.
+     * @throws DataStoreException if the image or the grid geometry can not be encoded in a GeoTIFF file.
+     */
+    final void write(final RenderedImage image, final GridGeometry grid) throws IOException, DataStoreException {
+        final SampleModel sm = image.getSampleModel();
+        numBands = sm.getNumBands();
+        dataType = sm.getDataType();
+        final int sampleFormat;
+        switch (dataType) {
+            case DataBuffer.TYPE_BYTE:   sampleSize = Byte.BYTES;    sampleFormat = UNSIGNED;       break;
+            case DataBuffer.TYPE_USHORT: sampleSize = Short.BYTES;   sampleFormat = UNSIGNED;       break;
+            case DataBuffer.TYPE_SHORT:  sampleSize = Short.BYTES;   sampleFormat = SIGNED;         break;
+            case DataBuffer.TYPE_INT:    sampleSize = Integer.BYTES; sampleFormat = SIGNED;         break;
+            case DataBuffer.TYPE_FLOAT:  sampleSize = Float.BYTES;   sampleFormat = FLOATING_POINT; break;
+            case DataBuffer.TYPE_DOUBLE: sampleSize = Double.BYTES;  sampleFormat = FLOATING_POINT; break;
+            default: throw new DataStoreException(errors().getString(Errors.Keys.UnsupportedType_1, dataType));
+        }
+        /*
+         * Create the full-resolution image and the overviews. Each overview has half the size of the previous one,
+         * until the overview fits in a single tile.
+         */
+        final List<Level> levels = new ArrayList<>();
+        int width  = image.getWidth();
+        int height = image.getHeight();
+        int subsampling = 1;
+        while (true) {
+            levels.add(new Level(subsampling, width, height));
+            if (width <= TILE_SIZE && height <= TILE_SIZE) break;
+            width  = (width  + 1) / 2;
+            height = (height + 1) / 2;
+            subsampling *= 2;
+        }
+        /*
+         * Prepare the TIFF tags of each level. The georeferencing tags are written only with the full-resolution
+         * image; readers compute the georeferencing of overviews from the georeferencing of the full image.
+         * Tile offsets and tile lengths are zero for now; they will be known only after the tiles are written.
+         */
+        final short[] bitsPerSample = new short[numBands];
+        final short[] sampleFormats = new short[numBands];
+        Arrays.fill(bitsPerSample, (short) (sampleSize * Byte.SIZE));
+        Arrays.fill(sampleFormats, (short) sampleFormat);
+        final boolean isRGB = (numBands == 3 && dataType == DataBuffer.TYPE_BYTE);
+        final List<Entry> georeferencing = new ArrayList<>();
+        if (grid != null) {
+            georeferencing(grid, georeferencing);
+        }
+        for (final Level level : levels) {
+            final int numTiles = level.tileCount();
+            final List<Entry> e = level.entries;
+            level.offsets = new Entry(Tags.TileOffsets,    Type.ULONG, new long[numTiles], numTiles);
+            level.lengths = new Entry(Tags.TileByteCounts, Type.ULONG, new long[numTiles], numTiles);
+            e.add(new Entry(Tags.NewSubfileType,            Type.UINT,   new int[] {level.subsampling == 1 ? FULL_RESOLUTION : REDUCED_RESOLUTION}, 1));
+            e.add(new Entry(Tags.ImageWidth,                Type.UINT,   new int[] {level.width},  1));
+            e.add(new Entry(Tags.ImageLength,               Type.UINT,   new int[] {level.height}, 1));
+            e.add(new Entry(Tags.BitsPerSample,             Type.USHORT, bitsPerSample, numBands));
+            e.add(new Entry(Tags.Compression,               Type.USHORT, new short[] {(short) Compression.DEFLATE.code}, 1));
+            e.add(new Entry(Tags.PhotometricInterpretation, Type.USHORT, new short[] {(short) (isRGB ? RGB : BLACK_IS_ZERO)}, 1));
+            e.add(new Entry(Tags.SamplesPerPixel,           Type.USHORT, new short[] {(short) numBands}, 1));
+            e.add(new Entry(Tags.PlanarConfiguration,       Type.USHORT, new short[] {CHUNKY}, 1));
+            e.add(new Entry(Tags.TileWidth,                 Type.USHORT, new short[] {TILE_SIZE}, 1));
+            e.add(new Entry(Tags.TileLength,                Type.USHORT, new short[] {TILE_SIZE}, 1));
+            e.add(level.offsets);
+            e.add(level.lengths);
+            final int extraSamples = numBands - (isRGB ? 3 : 1);
+            if (extraSamples > 0) {
+                e.add(new Entry(Tags.ExtraSamples, Type.USHORT, new short[extraSamples], extraSamples));      // 0 = unspecified.
+            }
+            e.add(new Entry(Tags.SampleFormat, Type.USHORT, sampleFormats, numBands));
+            if (level.subsampling == 1) {
+                e.addAll(georeferencing);
+            }
+        }
+        /*
+         * Compute the position of all IFDs, first assuming the classic TIFF format.
+         * If the file may be too large, compute again for the BigTIFF format.
+         */
+        isBigTIFF = false;
+        if (Math.addExact(layout(levels), maximalDataLength(levels)) > 0xFFFFFFFFL) {
+            isBigTIFF = true;
+            layout(levels);
+        }
+        /*
+         * Write the header and the IFDs, then the tiles. Tiles are compressed in parallel one row at a time,
+         * and their offsets and lengths are saved in the entries for writing them in the IFDs at the end.
+         */
+        final ByteOrder order = output.buffer.order();
+        output.writeShort(ByteOrder.BIG_ENDIAN.equals(order) ? BIG_ENDIAN : LITTLE_ENDIAN);
+        if (isBigTIFF) {
+            output.writeShort(BIG_TIFF);
+            output.writeShort(Long.BYTES);
+            output.writeShort(0);
+            output.writeLong(levels.get(0).position);
+        } else {
+            output.writeShort(CLASSIC);
+            output.writeInt((int) levels.get(0).position);
+        }
+        for (int i=0; i<levels.size(); i++) {
+            final Level level = levels.get(i);
+            assert output.getStreamPosition() - origin == level.position : level.position;
+            writeDirectory(level, (i+1 < levels.size()) ? levels.get(i+1).position : 0);
+        }
+        for (int i=levels.size(); --i >= 0;) {
+            writeTiles(image, levels.get(i), order);
+        }
+        /*
+         * Go back to the arrays of tile offsets and tile lengths in the IFDs,
+         * write their values, then move to the end of the file.
+         */
+        final long end = output.getStreamPosition();
+        for (final Level level : levels) {
+            for (final Entry e : new Entry[] {level.offsets, level.lengths}) {
+                output.seek(Math.addExact(origin, e.valuesPosition));
+                writeValues(e.values, e.type(isBigTIFF));
+            }
+        }
+        output.seek(end);
+        output.flush();
+    }
+
+    /**
+     * Compresses and writes all tiles of the given image level. The tiles of a row are compressed in parallel,
+     * then written sequentially. The tile offsets and lengths are stored in the {@link Level#offsets} and
+     * {@link Level#lengths} entries.
+     *
+     * @param  image  the full-resolution image.
+     * @param  level  the image level (full resolution or overview) for which to write the tiles.
+     * @param  order  byte order of sample values in the TIFF file.
+     */
+    private void writeTiles(final RenderedImage image, final Level level, final ByteOrder order) throws IOException {
+        final long[] offsets = (long[]) level.offsets.values;
+        final long[] lengths = (long[]) level.lengths.values;
+        final byte[][] row = new byte[level.tilesAcross][];
+        for (int ty=0; ty < level.tilesDown; ty++) {
+            final int y = ty;
+            IntStream.range(0, row.length).parallel().forEach((tx) -> {
+                row[tx] = deflate(encode(image, level, tx, y, order));
+            });
+            for (int tx=0; tx < row.length; tx++) {
+                final int t = ty * level.tilesAcross + tx;
+                offsets[t] = output.getStreamPosition() - origin;
+                lengths[t] = row[tx].length;
+                output.write(row[tx]);
+                row[tx] = null;
+            }
+        }
+        if (!isBigTIFF && output.getStreamPosition() - origin > 0xFFFFFFFFL) {
+            throw new AssertionError(level.subsampling);        // Should not happen with 'maximalDataLength'.
+        }
+    }
+
+    /**
+     * Computes the position of all IFDs.
+     *
+     * @param  levels  the full-resolution image followed by its overviews.
+     * @return position after the last IFD, which is the position of the first tile.
+     */
+    private long layout(final List<Level> levels) {
+        long position = isBigTIFF ? 16 : 8;
+        for (final Level level : levels) {
+            level.position = position;
+            position += directoryLength(level.entries);
+        }
+        return position;
+    }
+
+    /**
+     * Returns an upper bound of the number of bytes needed for all compressed tiles.
+     * This is the uncompressed length plus the worst-case overhead of the DEFLATE algorithm,
+     * which expands incompressible data by a few bytes per block of 16 kilobytes.
+     *
+     * @param  levels  the full-resolution image followed by its overviews.
+     * @return maximal length of all compressed tiles.
+     */
+    private long maximalDataLength(final List<Level> levels) {
+        final long tileLength = (long) TILE_SIZE * TILE_SIZE * numBands * sampleSize;
+        final long maxLength  = tileLength + (tileLength >>> 10) + 64;
+        long length = 0;
+        for (final Level level : levels) {
+            length = Math.addExact(length, Math.multiplyExact(maxLength, level.tileCount()));
+        }
+        return length;
+    }
+
+    /**
+     * Returns the maximal number of bytes of values that can be stored directly in an IFD entry.
+     */
+    private int inlineLength() {
+        return isBigTIFF ? Long.BYTES : Integer.BYTES;
+    }
+
+    /**
+     * Returns the number of bytes needed for an IFD, including the values that are too large
+     * for being stored in the entries. Values stored outside the entries are aligned on a word boundary.
+     */
+    private long directoryLength(final List<Entry> entries) {
+        final int pointerSize = inlineLength();
+        long length = (isBigTIFF ? Long.BYTES : Short.BYTES)                    // Number of entries.
+                    + entries.size() * (long) (isBigTIFF ? 20 : 12)             // Entries.
+                    + pointerSize;                                              // Offset of next IFD.
+        for (final Entry e : entries) {
+            final long n = e.length(isBigTIFF);
+            if (n > pointerSize) {
+                length += (n + 1) & ~1L;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Writes an Image File Directory (IFD) followed by the values that do not fit in the entries.
+     * The stream shall be positioned at {@link Level#position}.
+     *
+     * @param  level  the image for which to write the IFD.
+     * @param  next   position of the next IFD, or 0 if none.
+     */
+    private void writeDirectory(final Level level, final long next) throws IOException {
+        final List<Entry> entries = level.entries;
+        entries.sort((e1, e2) -> Integer.compare(Short.toUnsignedInt(e1.tag), Short.toUnsignedInt(e2.tag)));
+        final int pointerSize = inlineLength();
+        if (isBigTIFF) {
+            output.writeLong(entries.size());
+        } else {
+            output.writeShort(entries.size());
+        }
+        long external = level.position + (isBigTIFF ? Long.BYTES : Short.BYTES)
+                      + entries.size() * (long) (isBigTIFF ? 20 : 12) + pointerSize;
+        for (final Entry e : entries) {
+            final Type type = e.type(isBigTIFF);
+            output.writeShort(e.tag);
+            output.writeShort(type.code);
+            if (isBigTIFF) {
+                output.writeLong(e.count);
+            } else {
+                output.writeInt(e.count);
+            }
+            final long n = e.length(isBigTIFF);
+            if (n <= pointerSize) {
+                e.valuesPosition = output.getStreamPosition() - origin;
+                writeValues(e.values, type);
+                for (long i=n; i<pointerSize; i++) {
+                    output.writeByte(0);
+                }
+            } else {
+                e.valuesPosition = external;
+                writePointer(external);
+                external += (n + 1) & ~1L;
+            }
+        }
+        writePointer(next);
+        for (final Entry e : entries) {
+            final long n = e.length(isBigTIFF);
+            if (n > pointerSize) {
+                writeValues(e.values, e.type(isBigTIFF));
+                if ((n & 1) != 0) {
+                    output.writeByte(0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes an offset in the file, using 4 or 8 bytes depending on the TIFF format.
+     */
+    private void writePointer(final long position) throws IOException {
+        if (isBigTIFF) {
+            output.writeLong(position);
+        } else {
+            output.writeInt((int) position);
+        }
+    }
+
+    /**
+     * Writes the given values using the given TIFF type.
+     */
+    private void writeValues(final Object values, final Type type) throws IOException {
+        if (values instanceof short[]) {
+            output.writeShorts((short[]) values);
+        } else if (values instanceof int[]) {
+            output.writeInts((int[]) values);
+        } else if (values instanceof double[]) {
+            output.writeDoubles((double[]) values);
+        } else if (type == Type.UINT) {
+            for (final long value : (long[]) values) {
+                output.writeInt((int) value);
+            }
+        } else {
+            output.writeLongs((long[]) values);
+        }
+    }
+
+    /**
+     * Adds the entries for the "grid to CRS" conversion and for the coordinate reference system.
+     * The conversion is written with {@code ModelPixelScaleTag} and {@code ModelTiepointTag} if it
+     * has no rotation, or with {@code ModelTransformationTag} otherwise. The CRS is written only if
+     * it has an EPSG code and is geographic or projected.
+     *
+     * @param  grid     the grid geometry of the image to write.
+     * @param  entries  where to add the entries.
+     */
+    private void georeferencing(final GridGeometry grid, final List<Entry> entries) throws DataStoreException {
+        if (!grid.isDefined(GridGeometry.GRID_TO_CRS)) {
+            return;
+        }
+        MathTransform gridToCRS = grid.getGridToCRS(PixelInCell.CELL_CORNER);
+        short modelType = 0, crsKey = 0;
+        int   epsg = 0;
+        if (grid.isDefined(GridGeometry.CRS)) try {
+            final CoordinateReferenceSystem crs = grid.getCoordinateReferenceSystem();
+            if (crs instanceof GeographicCRS) {
+                modelType = GeoCodes.ModelTypeGeographic;
+                crsKey    = GeoKeys.GeographicType;
+            } else if (crs instanceof ProjectedCRS) {
+                modelType = GeoCodes.ModelTypeProjected;
+                crsKey    = GeoKeys.ProjectedCSType;
+            }
+            final Integer code = (modelType != 0) ? IdentifiedObjects.lookupEPSG(crs) : null;
+            if (code != null) {
+                /*
+                 * GeoTIFF uses (longitude, latitude) or (easting, northing) axis order regardless the EPSG definition.
+                 * Concatenate the "grid to CRS" conversion with the change of axis order, if any.
+                 */
+                epsg = code;
+                final CoordinateReferenceSystem normalized = AbstractCRS.castOrCopy(crs).forConvention(AxesConvention.RIGHT_HANDED);
+                gridToCRS = MathTransforms.concatenate(gridToCRS, CRS.findOperation(crs, normalized, null).getMathTransform());
+            } else {
+                modelType = 0;
+            }
+        } catch (FactoryException e) {
+            throw new DataStoreReferencingException(e);
+        }
+        final Matrix m = MathTransforms.getMatrix(gridToCRS);
+        if (m == null || m.getNumRow() != 3 || m.getNumCol() != 3) {
+            throw new DataStoreReferencingException(resources().getString(Resources.Keys.CanNotEncodeGridToCRS_1, output.filename));
+        }
+        if (m.getElement(0, 1) == 0 && m.getElement(1, 0) == 0) {
+            entries.add(new Entry(Tags.ModelPixelScaleTag, Type.DOUBLE,
+                    new double[] {m.getElement(0, 0), -m.getElement(1, 1), 0}, 3));
+            entries.add(new Entry(Tags.ModelTiePoints, Type.DOUBLE,
+                    new double[] {0, 0, 0, m.getElement(0, 2), m.getElement(1, 2), 0}, 6));
+        } else {
+            entries.add(new Entry(Tags.ModelTransformation, Type.DOUBLE, new double[] {
+                    m.getElement(0, 0), m.getElement(0, 1), 0, m.getElement(0, 2),
+                    m.getElement(1, 0), m.getElement(1, 1), 0, m.getElement(1, 2),
+                    0, 0, 0, 0,
+                    0, 0, 0, 1}, 16));
+        }
+        /*
+         * GeoKey directory: header (version 1, revision 1.0, number of keys) followed by the keys
+         * sorted in increasing order. Each key is (identifier, location, count, value) where a
+         * location of 0 means that the value is stored directly in the key.
+         */
+        if (modelType != 0) {
+            final short[] keys = {
+                1, 1, 0, 3,
+                GeoKeys.ModelType,  0, 1, modelType,
+                GeoKeys.RasterType, 0, 1, GeoCodes.RasterPixelIsArea,
+                crsKey,             0, 1, (short) epsg
+            };
+            entries.add(new Entry(Tags.GeoKeyDirectory, Type.USHORT, keys, keys.length));
+        }
+    }
+
+    /**
+     * Returns the uncompressed bytes of a tile. Tiles on the last row or last column are padded with zeros.
+     * Sample values of overviews are taken from the full-resolution image with a sub-sampling.
+     *
+     * @param  image  the full-resolution image.
+     * @param  level  the image level (full resolution or overview) for which to get a tile.
+     * @param  tx     column index of the tile to encode.
+     * @param  ty     row index of the tile to encode.
+     * @param  order  byte order of sample values in the TIFF file.
+     * @return the uncompressed tile.
+     */
+    private byte[] encode(final RenderedImage image, final Level level, final int tx, final int ty, final ByteOrder order) {
+        final int rowLength = TILE_SIZE * numBands;
+        final ByteBuffer buffer = ByteBuffer.allocate(rowLength * TILE_SIZE * sampleSize).order(order);
+        final int s  = level.subsampling;
+        final int x0 = tx * TILE_SIZE;
+        final int y0 = ty * TILE_SIZE;
+        final int w  = Math.min(TILE_SIZE, level.width  - x0);
+        final int h  = Math.min(TILE_SIZE, level.height - y0);
+        final int sourceWidth = (w - 1) * s + 1;
+        final boolean isInteger = (dataType != DataBuffer.TYPE_FLOAT && dataType != DataBuffer.TYPE_DOUBLE);
+        final int[]    integers = isInteger ? new int[sourceWidth * numBands] : null;
+        final double[] reals    = isInteger ? null : new double[sourceWidth * numBands];
+        /*
+         * Without sub-sampling, we can fetch the whole tile in a single call. With sub-sampling,
+         * we fetch only the rows that we need since the source region may be large.
+         */
+        Raster raster = null;
+        if (s == 1) {
+            raster = image.getData(new Rectangle(image.getMinX() + x0, image.getMinY() + y0, w, h));
+        }
+        for (int row=0; row<h; row++) {
+            final int x = image.getMinX() + x0 * s;
+            final int y = image.getMinY() + (y0 + row) * s;
+            final Raster source = (s == 1) ? raster : image.getData(new Rectangle(x, y, sourceWidth, 1));
+            if (isInteger) {
+                source.getPixels(x, y, sourceWidth, 1, integers);
+            } else {
+                source.getPixels(x, y, sourceWidth, 1, reals);
+            }
+            buffer.position(row * rowLength * sampleSize);
+            for (int i=0; i<w; i++) {
+                final int p = i * s * numBands;
+                for (int b=0; b<numBands; b++) {
+                    switch (dataType) {
+                        case DataBuffer.TYPE_BYTE:   buffer.put     ((byte)  integers[p + b]); break;
+                        case DataBuffer.TYPE_USHORT:
+                        case DataBuffer.TYPE_SHORT:  buffer.putShort((short) integers[p + b]); break;
+                        case DataBuffer.TYPE_INT:    buffer.putInt  (        integers[p + b]); break;
+                        case DataBuffer.TYPE_FLOAT:  buffer.putFloat((float) reals   [p + b]); break;
+                        default:                     buffer.putDouble(       reals   [p + b]); break;
+                    }
+                }
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Compresses the given tile with the DEFLATE algorithm.
+     *
+     * @param  data  the uncompressed tile.
+     * @return the compressed tile.
+     */
+    private static byte[] deflate(final byte[] data) {
+        final Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+            final byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Flushes pending data and closes the channel.
+     *
+     * @throws IOException if an error occurred while closing the channel.
+     */
+    @Override
+    public void close() throws IOException {
+        output.flush();
+        output.channel.close();
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.geotiff;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.channels.FileChannel;
+import java.awt.Rectangle;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import org.apache.sis.internal.raster.TileCache;
+import org.apache.sis.internal.storage.io.ChannelDataInput;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.StorageConnector;
+import org.apache.sis.test.DependsOn;
+import org.apache.sis.test.DependsOnMethod;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link DataSubset}, which reads the tiles of a GeoTIFF image.
+ * The test files are created by {@link Writer}.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+@DependsOn(WriterTest.class)
+public final strictfp class DataSubsetTest extends TestCase {
+    /**
+     * Size of the test image. This size produces 3×2 tiles, with partial tiles on the right and bottom borders.
+     */
+    private static final int WIDTH = 600, HEIGHT = 300;
+
+    /**
+     * Number of arbitrary bytes to write before the TIFF file.
+     * This is an odd number for making sure that no offset is accidentally aligned.
+     */
+    private static final int PREFIX = 1237;
+
+    /**
+     * Verifies the sample values of all tiles of the given image, reading them one by one.
+     * Only the part of each tile inside the image bounds is verified.
+     */
+    private static void verifyTiles(final RenderedImage image) {
+        final Rectangle bounds = new Rectangle(image.getMinX(), image.getMinY(), image.getWidth(), image.getHeight());
+        for (int ty = 0; ty < image.getNumYTiles(); ty++) {
+            for (int tx = 0; tx < image.getNumXTiles(); tx++) {
+                final Raster tile = image.getTile(image.getMinTileX() + tx, image.getMinTileY() + ty);
+                final Rectangle r = tile.getBounds().intersection(bounds);
+                assertFalse(r.isEmpty());
+                WriterTest.assertValuesEqual(tile.createChild(r.x, r.y, r.width, r.height, r.x, r.y, null), 1);
+            }
+        }
+    }
+
+    /**
+     * Tests reading tiles of a TIFF file which does not start at the beginning of the stream.
+     * Tile offsets in the TIFF file are relative to the beginning of the TIFF file, not to the
+     * beginning of the stream.
+     *
+     * @throws IOException if an error occurred while creating the test file.
+     * @throws DataStoreException if an error occurred while writing or reading the image.
+     */
+    @Test
+    public void testTilesAtNonZeroOrigin() throws IOException, DataStoreException {
+        final Path tiff = WriterTest.write(WriterTest.createImage(WIDTH, HEIGHT), null);
+        final Path file = Files.createTempFile("SIS", ".bin");
+        try {
+            final byte[] content = Files.readAllBytes(tiff);
+            final byte[] shifted = new byte[PREFIX + content.length];
+            for (int i=0; i<PREFIX; i++) {
+                shifted[i] = (byte) (i * 31);
+            }
+            System.arraycopy(content, 0, shifted, PREFIX, content.length);
+            Files.write(file, shifted);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                final ChannelDataInput input = new ChannelDataInput("test", channel, ByteBuffer.allocate(4096), false);
+                input.seek(PREFIX);
+                try (GeoTiffStore store = new GeoTiffStore(null, new StorageConnector(input))) {
+                    final RenderedImage image = store.components().get(0).read(null).render(null);
+                    assertEquals("numXTiles", 3, image.getNumXTiles());
+                    assertEquals("numYTiles", 2, image.getNumYTiles());
+                    verifyTiles(image);
+                }
+            }
+        } finally {
+            Files.delete(file);
+            Files.delete(tiff);
+        }
+    }
+
+    /**
+     * Compares the tiles decoded one by one with the tiles decoded in parallel. The first store reads each tile
+     * individually with {@link ImageFileDirectory#readTile readTile(…)}, while the second store reads all tiles
+     * in a single {@link ImageFileDirectory#readTiles readTiles(…)} call which decodes them in parallel.
+     * Two different stores are used for making sure that the tiles are not shared through the cache.
+     *
+     * @throws IOException if an error occurred while creating the test file.
+     * @throws DataStoreException if an error occurred while writing or reading the image.
+     */
+    @Test
+    @DependsOnMethod("testTilesAtNonZeroOrigin")
+    public void testParallelDecoding() throws IOException, DataStoreException {
+        final int width = 1000, height = 700;               // 4×3 tiles.
+        final Path file = WriterTest.write(WriterTest.createImage(width, height), null);
+        try (GeoTiffStore sequential = new GeoTiffStore(null, new StorageConnector(file));
+             GeoTiffStore parallel   = new GeoTiffStore(null, new StorageConnector(file)))
+        {
+            final RenderedImage image = sequential.components().get(0).read(null).render(null);
+            assertEquals("numXTiles", 4, image.getNumXTiles());
+            assertEquals("numYTiles", 3, image.getNumYTiles());
+            verifyTiles(image);
+            final Raster data = parallel.components().get(0).read(null).render(null).getData();
+            WriterTest.assertValuesEqual(data, 1);
+            for (int ty = 0; ty < image.getNumYTiles(); ty++) {
+                for (int tx = 0; tx < image.getNumXTiles(); tx++) {
+                    final Raster tile = image.getTile(tx, ty);
+                    final Rectangle r = tile.getBounds().intersection(data.getBounds());
+                    assertArrayEquals(tile.getSamples(r.x, r.y, r.width, r.height, 0, (int[]) null),
+                                      data.getSamples(r.x, r.y, r.width, r.height, 0, (int[]) null));
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Verifies that closing a store removes its tiles from {@link TileCache#GLOBAL}.
+     * Otherwise the cache keys would keep the store and its channel reachable.
+     *
+     * @throws IOException if an error occurred while creating the test file.
+     * @throws DataStoreException if an error occurred while writing or reading the image.
+     */
+    @Test
+    @DependsOnMethod("testTilesAtNonZeroOrigin")
+    public void testTilesRemovedOnClose() throws IOException, DataStoreException {
+        final Path file = WriterTest.write(WriterTest.createImage(WIDTH, HEIGHT), null);
+        try {
+            final ImageFileDirectory image;
+            try (GeoTiffStore store = new GeoTiffStore(null, new StorageConnector(file))) {
+                image = (ImageFileDirectory) store.components().get(0);
+                verifyTiles(image.read(null).render(null));
+                assertTrue("Tiles shall be cached.", isCached(image));
+            }
+            assertFalse("Tiles shall be removed on close.", isCached(image));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Returns {@code true} if {@link TileCache#GLOBAL} contains at least one tile of the given image.
+     */
+    private static boolean isCached(final ImageFileDirectory image) {
+        return TileCache.GLOBAL.keySet().stream().anyMatch((key) -> {
+            final Object source = key.getSource();
+            return (source instanceof DataSubset.Subsampling) && ((DataSubset.Subsampling) source).source == image;
+        });
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.geotiff;
+
+import java.io.IOException;
+import java.io.ByteArrayInputStream;
+import java.nio.ByteOrder;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+import org.apache.sis.internal.storage.io.ChannelDataInput;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.test.TestUtilities;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the {@link Decompressor} subclasses and the {@link Predictor} class.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+public final strictfp class DecompressorTest extends TestCase {
+    /**
+     * Creates an input reading the given bytes. The buffer is intentionally small
+     * for forcing the decompressors to refill it many times.
+     */
+    private static ChannelDataInput input(final byte[] data) throws IOException {
+        return new ChannelDataInput("test", Channels.newChannel(new ByteArrayInputStream(data)), ByteBuffer.allocate(16), false);
+    }
+
+    /**
+     * Uncompresses the given data and compares with the expected values.
+     */
+    private static void verify(final Decompressor decompressor, final byte[] compressed, final byte[] expected)
+            throws IOException, DataStoreException
+    {
+        final byte[] actual = new byte[expected.length];
+        assertEquals("length", expected.length, decompressor.uncompress(input(compressed), compressed.length, actual, actual.length));
+        assertArrayEquals(expected, actual);
+    }
+
+    /**
+     * Tests {@link PackBits} with the example given in TIFF 6.0 specification.
+     *
+     * @throws IOException should never happen since we read in memory only.
+     * @throws DataStoreException should never happen.
+     */
+    @Test
+    public void testPackBits() throws IOException, DataStoreException {
+        final byte A = (byte) 0xAA, B = (byte) 0x80;
+        verify(new PackBits(),
+               new byte[] {-2, A, 2, B, 0, 0x2A, -3, A, 3, B, 0, 0x2A, 0x22, -9, A},
+               new byte[] {A, A, A, B, 0, 0x2A, A, A, A, A, B, 0, 0x2A, 0x22, A, A, A, A, A, A, A, A, A, A});
+    }
+
+    /**
+     * Tests {@link LZW} with the example given in TIFF 6.0 specification. The codes are
+     * Clear, 7, 258, 8, 8, 258, 6, 6, EOI, each of them encoded on 9 bits.
+     *
+     * @throws IOException should never happen since we read in memory only.
+     * @throws DataStoreException should never happen.
+     */
+    @Test
+    public void testLZW() throws IOException, DataStoreException {
+        final int[] codes = {256, 7, 258, 8, 8, 258, 6, 6, 257};
+        final byte[] compressed = new byte[(codes.length * 9 + 7) / 8];
+        int bitOffset = 0;
+        for (final int code : codes) {
+            for (int i = 8; i >= 0; i--) {
+                if ((code & (1 << i)) != 0) {
+                    compressed[bitOffset >>> 3] |= 0x80 >>> (bitOffset & 7);
+                }
+                bitOffset++;
+            }
+        }
+        verify(new LZW(), compressed, new byte[] {7, 7, 7, 8, 8, 7, 7, 6, 6});
+    }
+
+    /**
+     * Tests {@link Inflate} with data compressed by {@link Deflater}.
+     *
+     * @throws IOException should never happen since we read in memory only.
+     * @throws DataStoreException should never happen.
+     */
+    @Test
+    public void testInflate() throws IOException, DataStoreException {
+        final Random random = TestUtilities.createRandomNumberGenerator();
+        final byte[] data = new byte[5000];
+        for (int i=0; i<data.length; i++) {
+            data[i] = (byte) random.nextInt(8);
+        }
+        final Deflater deflater = new Deflater();
+        deflater.setInput(data);
+        deflater.finish();
+        final byte[] buffer = new byte[data.length * 2];
+        final int length = deflater.deflate(buffer);
+        assertTrue(deflater.finished());
+        deflater.end();
+        final Inflate inflate = new Inflate();
+        verify(inflate, Arrays.copyOf(buffer, length), data);
+        verify(inflate, Arrays.copyOf(buffer, length), data);       // Verify that the decompressor is reusable.
+        inflate.dispose();
+    }
+
+    /**
+     * Tests {@link Predictor#horizontal(byte[], int, int, int, int, ByteOrder)} on 16 bits integers.
+     */
+    @Test
+    public void testHorizontalPredictor() {
+        final ByteBuffer buffer = ByteBuffer.allocate(Short.BYTES * 12).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asShortBuffer().put(new short[] {
+            100, 200,  1,  2, -3,  4,       // First row: 3 pixels of 2 samples.
+            500, 600,  1,  1,  1,  1        // Second row.
+        });
+        Predictor.horizontal(buffer.array(), buffer.capacity(), 6, 2, Short.BYTES, ByteOrder.LITTLE_ENDIAN);
+        final short[] actual = new short[12];
+        buffer.asShortBuffer().get(actual);
+        assertArrayEquals(new short[] {100, 200, 101, 202, 98, 206, 500, 600, 501, 601, 502, 602}, actual);
+    }
+
+    /**
+     * Tests {@link Predictor#floatingPoint(byte[], int, int, int, int, ByteOrder)} on a single row
+     * of 32 bits floating point values.
+     */
+    @Test
+    public void testFloatingPointPredictor() {
+        final float[] expected = {1.5f, -2.25f, 1000, 0.125f};
+        final ByteBuffer bigEndian = ByteBuffer.allocate(expected.length * Float.BYTES);
+        bigEndian.asFloatBuffer().put(expected);
+        /*
+         * Encode as specified by the floating point predictor: bytes of the same significance grouped
+         * together from most significant to least significant, then each byte differenced with the
+         * previous byte. Extra space is reserved for the temporary row needed by the predictor.
+         */
+        final int rowBytes = expected.length * Float.BYTES;
+        final byte[] data = new byte[rowBytes * 2];
+        for (int i=0; i<expected.length; i++) {
+            for (int b=0; b<Float.BYTES; b++) {
+                data[b*expected.length + i] = bigEndian.get(i*Float.BYTES + b);
+            }
+        }
+        for (int i=rowBytes; --i >= 1;) {
+            data[i] -= data[i-1];
+        }
+        Predictor.floatingPoint(data, rowBytes, expected.length, 1, Float.BYTES, ByteOrder.LITTLE_ENDIAN);
+        final float[] actual = new float[expected.length];
+        ByteBuffer.wrap(data, 0, rowBytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(actual);
+        assertArrayEquals(expected, actual, 0f);
+    }
+}
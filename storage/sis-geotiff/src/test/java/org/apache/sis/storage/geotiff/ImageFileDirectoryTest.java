@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.geotiff;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.awt.image.RenderedImage;
+import org.opengis.referencing.datum.PixelInCell;
+import org.opengis.referencing.operation.TransformException;
+import org.apache.sis.coverage.grid.GridExtent;
+import org.apache.sis.coverage.grid.GridGeometry;
+import org.apache.sis.referencing.operation.transform.MathTransforms;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.StorageConnector;
+import org.apache.sis.test.DependsOn;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link ImageFileDirectory}, in particular the selection of overviews (reduced-resolution images).
+ * The test files are created by {@link Writer}.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+@DependsOn(DataSubsetTest.class)
+public final strictfp class ImageFileDirectoryTest extends TestCase {
+    /**
+     * Size of the test image. The writer creates two overviews of 500×350 and 250×175 pixels.
+     */
+    private static final int WIDTH = 1000, HEIGHT = 700;
+
+    /**
+     * Returns a grid geometry covering the test image with the given resolution.
+     * The "grid to CRS" conversion of the full-resolution image is the identity transform.
+     *
+     * @param  sx  the resolution along the <var>x</var> axis, in units of full-resolution pixels.
+     * @param  sy  the resolution along the <var>y</var> axis, in units of full-resolution pixels.
+     */
+    private static GridGeometry domain(final int sx, final int sy) throws TransformException {
+        return new GridGeometry(new GridExtent(WIDTH / sx, HEIGHT / sy), PixelInCell.CELL_CORNER,
+                                MathTransforms.scale(sx, sy), null);
+    }
+
+    /**
+     * Returns the width of the given image, or of the full-resolution image if {@code null}.
+     */
+    private static long width(final ImageFileDirectory image, final ImageFileDirectory fullResolution)
+            throws DataStoreException
+    {
+        return (image != null ? image : fullResolution).getGridGeometry().getExtent().getSize(0);
+    }
+
+    /**
+     * Tests the overview selected for various resolutions, then reads the image at coarse resolutions.
+     * The selected overview shall be the one with the lowest resolution which is still at least as fine
+     * as the requested resolution.
+     *
+     * @throws IOException if an error occurred while creating the test file.
+     * @throws DataStoreException if an error occurred while writing or reading the image.
+     * @throws TransformException if an error occurred while creating a grid geometry.
+     */
+    @Test
+    public void testOverviewSelection() throws IOException, DataStoreException, TransformException {
+        final Path file = WriterTest.write(WriterTest.createImage(WIDTH, HEIGHT), domain(1, 1));
+        try (GeoTiffStore store = new GeoTiffStore(null, new StorageConnector(file))) {
+            assertEquals("Overviews shall not be listed.", 1, store.components().size());
+            final ImageFileDirectory image = (ImageFileDirectory) store.components().get(0);
+            assertEquals("Full resolution", 1000, width(image, image));
+            assertNull  ("Resolution 1",          image.selectOverview(domain( 1,  1)));
+            assertEquals("Resolution 2",     500, width(image.selectOverview(domain( 2,  2)), image));
+            assertEquals("Resolution 3",     500, width(image.selectOverview(domain( 3,  3)), image));
+            assertEquals("Resolution 4",     250, width(image.selectOverview(domain( 4,  4)), image));
+            assertEquals("Resolution 16",    250, width(image.selectOverview(domain(16, 16)), image));
+            assertEquals("Anisotropic",      500, width(image.selectOverview(domain( 4,  2)), image));
+            assertNull  ("Anisotropic",           image.selectOverview(domain( 8,  1)));
+            /*
+             * Read the image at coarse resolutions. The sample values shall be those of the full-resolution
+             * image at the corresponding pixels. With a resolution of 8, the 250×175 overview is read with an
+             * additional sub-sampling of 2.
+             */
+            RenderedImage data = image.read(domain(4, 4)).render(null);
+            assertEquals("width",  250, data.getWidth());
+            assertEquals("height", 175, data.getHeight());
+            WriterTest.assertValuesEqual(data.getData(), 4);
+
+            data = image.read(domain(8, 8)).render(null);
+            assertEquals("width",  125, data.getWidth());
+            WriterTest.assertValuesEqual(data.getData(), 8);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.geotiff;
+
+import java.util.List;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.OpenOption;
+import java.nio.file.StandardOpenOption;
+import java.awt.image.Raster;
+import java.awt.image.BufferedImage;
+import java.awt.image.RenderedImage;
+import java.awt.image.WritableRaster;
+import org.apache.sis.coverage.grid.GridGeometry;
+import org.apache.sis.setup.OptionKey;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.GridCoverageResource;
+import org.apache.sis.storage.ReadOnlyStorageException;
+import org.apache.sis.storage.StorageConnector;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the {@link Writer} class by writing an image through {@link GeoTiffStore},
+ * then reading it back with another {@code GeoTiffStore} instance.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+public final strictfp class WriterTest extends TestCase {
+    /**
+     * Size of the test image. The width requires two overviews before to fit in a single tile.
+     */
+    private static final int WIDTH = 600, HEIGHT = 300;
+
+    /**
+     * Returns the sample value at the given pixel of the test image.
+     */
+    static int value(final int x, final int y) {
+        return (x * 7 + y * 13) & 0xFFFF;
+    }
+
+    /**
+     * Creates an image of unsigned short integers with sample values computed by {@link #value(int, int)}.
+     *
+     * @param  width   the image width.
+     * @param  height  the image height.
+     * @return an image of the given size.
+     */
+    static BufferedImage createImage(final int width, final int height) {
+        final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_USHORT_GRAY);
+        final WritableRaster raster = image.getRaster();
+        for (int y=0; y<height; y++) {
+            for (int x=0; x<width; x++) {
+                raster.setSample(x, y, 0, value(x, y));
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Writes the given image in a temporary file using {@link GeoTiffStore} in write mode.
+     * The file will be deleted on JVM exit.
+     *
+     * @param  image  the image to write.
+     * @param  grid   the grid geometry of the image, or {@code null} if none.
+     * @return the temporary file.
+     * @throws IOException if the temporary file can not be created.
+     * @throws DataStoreException if an error occurred while writing the image.
+     */
+    static Path write(final RenderedImage image, final GridGeometry grid) throws IOException, DataStoreException {
+        final Path file = Files.createTempFile("SIS", ".tiff");
+        file.toFile().deleteOnExit();
+        final StorageConnector connector = new StorageConnector(file);
+        connector.setOption(OptionKey.OPEN_OPTIONS, new OpenOption[] {StandardOpenOption.WRITE});
+        try (GeoTiffStore store = new GeoTiffStore(null, connector)) {
+            store.write(image, grid);
+        }
+        return file;
+    }
+
+    /**
+     * Asserts that all sample values in the given raster are equal to {@link #value(int, int)}
+     * evaluated at the given sub-sampling.
+     *
+     * @param  raster       the raster to verify.
+     * @param  subsampling  the sub-sampling of the raster relative to the image created by {@link #createImage(int, int)}.
+     */
+    static void assertValuesEqual(final Raster raster, final int subsampling) {
+        final int xmin = raster.getMinX();
+        final int ymin = raster.getMinY();
+        for (int y=0; y < raster.getHeight(); y++) {
+            for (int x=0; x < raster.getWidth(); x++) {
+                final int px = xmin + x;
+                final int py = ymin + y;
+                assertEquals(value(px * subsampling, py * subsampling), raster.getSample(px, py, 0));
+            }
+        }
+    }
+
+    /**
+     * Writes an image of unsigned short integers, then reads it back and compares the sample values.
+     * The overviews shall not be listed as separated images.
+     *
+     * @throws IOException if the temporary file can not be created.
+     * @throws DataStoreException if an error occurred while writing or reading the image.
+     */
+    @Test
+    public void testRoundTrip() throws IOException, DataStoreException {
+        final Path file = write(createImage(WIDTH, HEIGHT), null);
+        try (GeoTiffStore store = new GeoTiffStore(null, new StorageConnector(file))) {
+            final List<GridCoverageResource> images = store.components();
+            assertEquals("Overviews shall not be listed.", 1, images.size());
+            final RenderedImage image = images.get(0).read(null).render(null);
+            assertEquals("width",  WIDTH,  image.getWidth());
+            assertEquals("height", HEIGHT, image.getHeight());
+            assertEquals("tileWidth", Writer.TILE_SIZE, image.getTileWidth());
+            assertValuesEqual(image.getData(), 1);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Verifies that a store opened in read mode can not write, and that a store opened in write mode
+     * can not write twice.
+     *
+     * @throws IOException if the temporary file can not be created.
+     * @throws DataStoreException if an unexpected error occurred.
+     */
+    @Test
+    public void testWriteOnce() throws IOException, DataStoreException {
+        final BufferedImage image = createImage(20, 10);
+        final Path file = write(image, null);
+        try {
+            try (GeoTiffStore store = new GeoTiffStore(null, new StorageConnector(file))) {
+                store.write(image, null);
+                fail("Store opened in read mode shall not accept write operations.");
+            } catch (ReadOnlyStorageException e) {
+                assertNotNull(e.getMessage());
+            }
+            final StorageConnector connector = new StorageConnector(file);
+            connector.setOption(OptionKey.OPEN_OPTIONS, new OpenOption[] {StandardOpenOption.WRITE});
+            try (GeoTiffStore store = new GeoTiffStore(null, connector)) {
+                store.write(image, null);
+                try {
+                    store.write(image, null);
+                    fail("Image shall be written only once.");
+                } catch (DataStoreException e) {
+                    assertNotNull(e.getMessage());
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -26,6 +26,8 @@ import org.opengis.util.NameSpace;
 import org.opengis.util.NameFactory;
 import org.opengis.referencing.datum.Datum;
 import org.apache.sis.setup.GeometryLibrary;
+import org.apache.sis.coverage.grid.GridExtent;
+import org.apache.sis.math.Vector;
 import org.apache.sis.storage.DataStore;
 import org.apache.sis.storage.DataStoreException;
 import org.apache.sis.util.logging.WarningListeners;
@@ -258,4 +260,27 @@ public abstract class Decoder extends ReferencingFactoryContainer implements Clo
      * @throws DataStoreException if a logical error occurred.
      */
     public abstract Grid[] getGridGeometries() throws IOException, DataStoreException;
+
+    /**
+     * Reads a sub-sampled sub-area of all the given variables. All variables shall have the same dimensions.
+     * The default implementation invokes {@link Variable#read(GridExtent, int[])} for each variable.
+     * Subclasses can override for reading the values of many variables in a single pass over the file,
+     * for example when the variables are interleaved record by record.
+     *
+     * @param  variables    the variables to read, preferably in the order they appear in the file.
+     * @param  area         indices of cell values to read along each dimension, in "natural" order.
+     * @param  subsampling  sub-sampling along each dimension. 1 means no sub-sampling.
+     * @return the data of each variable, in the same order than the {@code variables} argument.
+     * @throws IOException if an error occurred while reading the data.
+     * @throws DataStoreException if a logical error occurred.
+     */
+    public Vector[] read(final Variable[] variables, final GridExtent area, final int[] subsampling)
+            throws IOException, DataStoreException
+    {
+        final Vector[] values = new Vector[variables.length];
+        for (int i=0; i<values.length; i++) {
+            values[i] = variables[i].read(area, subsampling);
+        }
+        return values;
+    }
 }
@@ -80,6 +80,12 @@ public final class Resources extends IndexedResourceBundle {
          */
         public static final short CanNotCreateGridGeometry_3 = 12;
 
+        /**
+         * Can not encode the grid geometry of netCDF file “{0}” because the grid axes are not aligned
+         * with the coordinate reference system axes.
+         */
+        public static final short CanNotEncodeGridGeometry_1 = 14;
+
         /**
          * Can not use UCAR library for netCDF format. Fallback on Apache SIS implementation.
          */
@@ -111,11 +117,26 @@ public final class Resources extends IndexedResourceBundle {
          */
         public static final short UnexpectedDimensionForVariable_4 = 2;
 
+        /**
+         * Can not write variable “{1}” in netCDF file “{0}” before variable “{2}”.
+         */
+        public static final short UnexpectedVariableOrder_3 = 15;
+
         /**
          * NetCDF file “{0}” uses unsupported data type {2} for variable “{1}”.
          */
         public static final short UnsupportedDataType_3 = 5;
 
+        /**
+         * NetCDF file “{0}” uses unsupported filter {1} for compressing data.
+         */
+        public static final short UnsupportedFilter_2 = 13;
+
+        /**
+         * NetCDF file “{0}” uses the “{1}” HDF5 feature, which is not supported.
+         */
+        public static final short UnsupportedHDF5Feature_2 = 16;
+
         /**
          * Variable “{1}” is not found in the “{0}” file.
          */
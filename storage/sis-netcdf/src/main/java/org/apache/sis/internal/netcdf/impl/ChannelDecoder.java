@@ -35,6 +35,7 @@ import java.util.regex.Matcher;
 import java.time.DateTimeException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.channels.ReadableByteChannel;
@@ -42,6 +43,7 @@ import javax.measure.UnitConverter;
 import javax.measure.IncommensurableException;
 import javax.measure.format.ParserException;
 import org.opengis.parameter.InvalidParameterCardinalityException;
+import org.apache.sis.coverage.grid.GridExtent;
 import org.apache.sis.internal.netcdf.DataType;
 import org.apache.sis.internal.netcdf.Decoder;
 import org.apache.sis.internal.netcdf.Grid;
@@ -61,6 +63,7 @@ import org.apache.sis.util.resources.Vocabulary;
 import org.apache.sis.util.logging.WarningListeners;
 import org.apache.sis.setup.GeometryLibrary;
 import org.apache.sis.measure.Units;
+import org.apache.sis.math.Vector;
 import ucar.nc2.constants.CF;
 
 
@@ -69,6 +72,11 @@ import ucar.nc2.constants.CF;
  * The javadoc in this class uses the "file" word for the source of data, but
  * this implementation actually works with arbitrary {@link ReadableByteChannel}.
  *
+ * <p>This decoder reads the netCDF classic and 64-bit offset formats. It also reads netCDF-4 files,
+ * which are HDF5 files, if they use only the features supported by {@link HDF5Header}: a single group,
+ * the netCDF classic data types and chunks indexed by a version 1 B-tree. Chunks may be compressed by
+ * the deflate filter, optionally preceded by the shuffle filter.</p>
+ *
  * @author  Johann Sorel (Geomatys)
  * @author  Martin Desruisseaux (Geomatys)
  * @version 1.0
@@ -95,6 +103,18 @@ public final class ChannelDecoder extends Decoder {
      */
     public static final int MAX_VERSION = 2;
 
+    /**
+     * The first 4 bytes of the HDF5 signature, which is expected at the beginning of netCDF-4 files.
+     * The next 4 bytes of the signature are {@link #HDF5_SIGNATURE_END}. Those two integers are in
+     * big-endian byte order.
+     */
+    public static final int HDF5_SIGNATURE = HDF5Header.SIGNATURE;
+
+    /**
+     * The last 4 bytes of the HDF5 signature, following {@link #HDF5_SIGNATURE}.
+     */
+    public static final int HDF5_SIGNATURE_END = HDF5Header.SIGNATURE_END;
+
     /**
      * The encoding of dimension, variable and attribute names. This is fixed to UTF-8 by the netCDF specification.
      * Note however that the encoding of attribute values may be different.
@@ -142,12 +162,13 @@ public final class ChannelDecoder extends Decoder {
 
     /**
      * {@code false} if the file is the classic format, or
-     * {@code true} if it is the 64-bits offset format.
+     * {@code true} if it is the 64-bits offset format or a netCDF-4 file.
      */
     private final boolean is64bits;
 
     /**
      * Number of records as an unsigned integer, or {@value #STREAMING} if undetermined.
+     * This is 0 in netCDF-4 files, where the length of unlimited dimensions is stored in each variable.
      */
     private final int numrecs;
 
@@ -216,6 +237,9 @@ public final class ChannelDecoder extends Decoder {
      *   <li>List of variables          (see {@link #readVariables(int, Dimension[])})</li>
      * </ul>
      *
+     * If the file starts with the HDF5 signature instead, then the header is parsed as a netCDF-4 file
+     * by {@link HDF5Header}.
+     *
      * @param  input      the channel and the buffer from where data are read.
      * @param  encoding   the encoding of attribute value, or {@code null} for the default value.
      * @param  geomlib    the library for geometric objects, or {@code null} for the default.
@@ -235,6 +259,29 @@ public final class ChannelDecoder extends Decoder {
          * The 4th byte is the version number, which we opportunistically use after the magic number check.
          */
         int version = input.readInt();
+        if (version == HDF5_SIGNATURE) {
+            final HDF5Header header = new HDF5Header(input);
+            /*
+             * Data not stored in chunks are read by HyperRectangleReader with the byte order of the input buffer.
+             * HDF5Header set an undefined offset for variables in big-endian order, which are read as chunks.
+             */
+            input.buffer.order(ByteOrder.LITTLE_ENDIAN);
+            is64bits = true;
+            numrecs  = 0;
+            dimensionMap = toCaseInsensitiveNameMap(header.dimensions);
+            final VariableInfo[] variables = new VariableInfo[header.variables.length];
+            for (int i=0; i<variables.length; i++) {
+                final HDF5Header.DataObject v = header.variables[i];
+                variables[i] = new VariableInfo(input, v.name, v.dimensions,
+                        CollectionsExt.toCaseInsensitiveNameMap(v.attributes, NAME_LOCALE),
+                        v.dataType, -1, v.offset, v.chunks, listeners);
+            }
+            VariableInfo.complete(variables);
+            this.attributeMap = CollectionsExt.toCaseInsensitiveNameMap(header.attributes, NAME_LOCALE);
+            this.variables    = variables;
+            this.variableMap  = toCaseInsensitiveNameMap(variables);
+            return;
+        }
         if ((version & 0xFFFFFF00) != MAGIC_NUMBER) {
             throw new DataStoreContentException(errors().getString(Errors.Keys.UnexpectedFileFormat_2, FORMAT_NAME, getFilename()));
         }
@@ -607,7 +654,7 @@ public final class ChannelDecoder extends Decoder {
                 }
             }
             variables[j] = new VariableInfo(input, name, varDims, attributes,
-                    DataType.valueOf(input.readInt()), input.readInt(), readOffset(), listeners);
+                    DataType.valueOf(input.readInt()), input.readInt(), readOffset(), null, listeners);
         }
         /*
          * The VariableInfo constructor determined if the variables are "unlimited" or not.
@@ -934,6 +981,51 @@ nextVar:    for (final VariableInfo variable : variables) {
         return gridGeometries;
     }
 
+    /**
+     * Reads a sub-sampled sub-area of all the given variables. If at least two variables use the unlimited dimension,
+     * then the records of those variables are read together in a single pass over the file, since their values are
+     * interleaved record by record. Other variables are read separately.
+     *
+     * @param  variables    the variables to read.
+     * @param  area         indices of cell values to read along each dimension, in "natural" order.
+     * @param  subsampling  sub-sampling along each dimension. 1 means no sub-sampling.
+     * @return the data of each variable, in the same order than the {@code variables} argument.
+     * @throws IOException if an error occurred while reading the data.
+     * @throws DataStoreException if a logical error occurred.
+     */
+    @Override
+    public Vector[] read(final Variable[] variables, final GridExtent area, final int[] subsampling)
+            throws IOException, DataStoreException
+    {
+        final Vector[] values = new Vector[variables.length];
+        final VariableInfo[] records = new VariableInfo[variables.length];
+        final int[] indices = new int[variables.length];
+        int count = 0;
+        for (int i=0; i<variables.length; i++) {
+            final Variable variable = variables[i];
+            if (variable instanceof VariableInfo && variable.isUnlimited()) {
+                records[count] = (VariableInfo) variable;
+                indices[count++] = i;
+            }
+        }
+        if (count >= 2) {
+            final VariableInfo[] group = Arrays.copyOf(records, count);
+            final long recordStride = RecordReader.recordStride(group, area.getDimension());
+            if (recordStride > 0) {
+                final Vector[] data = new RecordReader(input, group, recordStride).read(area, subsampling);
+                for (int i=0; i<count; i++) {
+                    values[indices[i]] = data[i];
+                }
+            }
+        }
+        for (int i=0; i<values.length; i++) {
+            if (values[i] == null) {
+                values[i] = variables[i].read(area, subsampling);
+            }
+        }
+        return values;
+    }
+
     /**
      * Closes the channel.
      *
@@ -941,6 +1033,7 @@ nextVar:    for (final VariableInfo variable : variables) {
      */
     @Override
     public void close() throws IOException {
+        ChunkCache.GLOBAL.removeAll(input);
         input.channel.close();
     }
 
@@ -0,0 +1,645 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.netcdf.impl;
+
+import java.util.Map;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.SeekableByteChannel;
+import org.apache.sis.internal.netcdf.DataType;
+import org.apache.sis.internal.netcdf.Resources;
+import org.apache.sis.internal.storage.io.ChannelDataOutput;
+import org.apache.sis.util.ArgumentChecks;
+import org.apache.sis.util.resources.Errors;
+
+
+/**
+ * Writes a netCDF file in the classic format, one record at a time. This class is the write counterpart
+ * of {@link ChannelDecoder}. Usage is done in three steps:
+ *
+ * <ol>
+ *   <li>Declare the dimensions, global attributes and variables with the {@code add(…)} methods.
+ *       Only one dimension can be unlimited, and it shall be the first dimension of the variables using it.</li>
+ *   <li>Invoke {@link #endDefinition()} for writing the netCDF header.</li>
+ *   <li>Write the values of all non-record variables in declaration order with {@link #write(String, Object)},
+ *       then write the records one after the other with {@link #writeRecord(Object...)}.</li>
+ * </ol>
+ *
+ * The records are written as they come, so a dataset larger than the available memory can be written
+ * one slice at a time (for example one time step at a time). Since the number of records is not known
+ * when the header is written, the header initially declares the {@code STREAMING} number of records.
+ * That number is replaced by the actual number of records on {@linkplain #close() close} if the channel
+ * is seekable or if the header is still in the buffer.
+ *
+ * <p>The 64-bits offset format (version 2) is used only if some variable begins after the 32-bits limit.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ *
+ * @see <a href="http://portal.opengeospatial.org/files/?artifact_id=43734">NetCDF Classic and 64-bit Offset Format (1.0)</a>
+ *
+ * @since 1.0
+ * @module
+ */
+public final class ChannelEncoder implements Closeable {
+    /**
+     * The encoding of dimension, variable and attribute names, and of character attribute values.
+     */
+    private static final Charset NAME_ENCODING = StandardCharsets.UTF_8;
+
+    /*
+     * NOTE: the names of the static constants below this point match the names used in the Backus-Naur Form (BNF)
+     *       definitions in the netCDF Classic and 64-bit Offset Format (1.0) specification (link in class javdoc).
+     *       See the same constants in ChannelDecoder.
+     */
+
+    /**
+     * A {@link #numrecs} value indicating indeterminate record count.
+     */
+    private static final int STREAMING = -1;
+
+    /**
+     * Tag for lists of dimensions, variables or attributes.
+     */
+    private static final int DIMENSION = 0x0A, VARIABLE = 0x0B, ATTRIBUTE = 0x0C;
+
+    /**
+     * The largest offset that can be stored in the classic format (version 1).
+     */
+    private static final long MAX_CLASSIC_OFFSET = 0xFFFFFFFFL;
+
+    /**
+     * An attribute value encoded as an array of the netCDF type.
+     */
+    private static final class Attribute {
+        /** The netCDF type of the values. */
+        final DataType type;
+
+        /** The values as an array of primitive type, or as bytes in the case of {@code CHAR}. */
+        final Object values;
+
+        /** Creates a new attribute for the given values. */
+        Attribute(final DataType type, final Object values) {
+            this.type   = type;
+            this.values = values;
+        }
+
+        /** Returns the number of bytes of the values, without padding. */
+        int length() {
+            return Array.getLength(values) * type.size();
+        }
+    }
+
+    /**
+     * Definition of a variable to write, together with its location in the file.
+     */
+    private static final class Definition {
+        /** The variable name. */
+        final String name;
+
+        /** The type of values. */
+        final DataType type;
+
+        /** The dimensions of the variable. The unlimited dimension, if any, is first. */
+        final Dimension[] dimensions;
+
+        /** The variable attributes. */
+        final Map<String,Attribute> attributes;
+
+        /** Number of values in the variable, or in a single record if the variable is unlimited. */
+        final long count;
+
+        /** Position of the first value, relative to the beginning of the netCDF file. */
+        long begin;
+
+        /** Creates a new variable definition. */
+        Definition(final String name, final DataType type, final Dimension[] dimensions, final Map<String,Attribute> attributes) {
+            this.name       = name;
+            this.type       = type;
+            this.dimensions = dimensions;
+            this.attributes = attributes;
+            long count = 1;
+            for (final Dimension dim : dimensions) {
+                if (!dim.isUnlimited) {
+                    count = Math.multiplyExact(count, dim.length());
+                }
+            }
+            this.count = count;
+        }
+
+        /** Whether this variable uses the unlimited dimension. */
+        boolean isUnlimited() {
+            return dimensions.length != 0 && dimensions[0].isUnlimited;
+        }
+
+        /** Number of bytes in the variable (or in a single record), padded to a multiple of 4 bytes. */
+        long paddedSize() {
+            return pad(Math.multiplyExact(count, type.size()));
+        }
+    }
+
+    /**
+     * The channel where to write the netCDF file, together with a buffer.
+     */
+    private final ChannelDataOutput output;
+
+    /**
+     * Stream position of the beginning of the netCDF file.
+     */
+    private final long origin;
+
+    /**
+     * The dimensions, in declaration order.
+     */
+    private final Map<String,Dimension> dimensions;
+
+    /**
+     * The global attributes, in declaration order.
+     */
+    private final Map<String,Attribute> attributes;
+
+    /**
+     * The variables, in declaration order.
+     */
+    private final List<Definition> variables;
+
+    /**
+     * The variables which are not using the unlimited dimension, in declaration order.
+     * This is {@code null} before the header has been written.
+     */
+    private Definition[] fixed;
+
+    /**
+     * The variables using the unlimited dimension, in declaration order.
+     * This is {@code null} before the header has been written.
+     */
+    private Definition[] records;
+
+    /**
+     * Index in the {@link #fixed} array of the next variable to write.
+     */
+    private int nextVariable;
+
+    /**
+     * Number of records written so far.
+     */
+    private int numrecs;
+
+    /**
+     * {@code false} for the classic format, or {@code true} for the 64-bits offset format.
+     */
+    private boolean is64bits;
+
+    /**
+     * Creates a new encoder writing a netCDF file at the current position of the given output.
+     *
+     * @param  output  the channel and the buffer where to write the netCDF file.
+     */
+    public ChannelEncoder(final ChannelDataOutput output) {
+        this.output = output;
+        origin      = output.getStreamPosition();
+        dimensions  = new LinkedHashMap<>();
+        attributes  = new LinkedHashMap<>();
+        variables   = new ArrayList<>();
+    }
+
+    /**
+     * Returns the given size rounded to the next multiple of 4 bytes.
+     */
+    static long pad(final long size) {
+        return Math.addExact(size, Integer.BYTES - 1) & ~(Integer.BYTES - 1);
+    }
+
+    /**
+     * Ensures that the header has not yet been written.
+     */
+    private void ensureDefineMode() {
+        if (records != null) {
+            throw new IllegalStateException(Errors.format(Errors.Keys.UnmodifiableObject_1, ChannelEncoder.class));
+        }
+    }
+
+    /**
+     * Declares a new dimension. A length of zero declares the unlimited dimension.
+     * At most one dimension can be unlimited.
+     *
+     * @param  name    the dimension name.
+     * @param  length  the dimension length, or 0 for the unlimited dimension.
+     * @throws IllegalArgumentException if a dimension of the same name already exists,
+     *         or if an unlimited dimension is already declared.
+     */
+    public void addDimension(final String name, final int length) {
+        ArgumentChecks.ensureNonEmpty("name", name);
+        ArgumentChecks.ensurePositive("length", length);
+        ensureDefineMode();
+        final boolean isUnlimited = (length == 0);
+        for (final Dimension dim : dimensions.values()) {
+            if (isUnlimited && dim.isUnlimited) {
+                throw new IllegalArgumentException(Errors.format(Errors.Keys.IllegalArgumentValue_2, "length", length));
+            }
+        }
+        if (dimensions.putIfAbsent(name, new Dimension(name, length, isUnlimited)) != null) {
+            throw new IllegalArgumentException(Errors.format(Errors.Keys.ElementAlreadyPresent_1, name));
+        }
+    }
+
+    /**
+     * Declares a global attribute. The value can be a character sequence, a number or an array of primitive type.
+     * Conventional attribute names are listed in {@link org.apache.sis.storage.netcdf.AttributeNames}.
+     *
+     * @param  name   the attribute name.
+     * @param  value  the attribute value.
+     * @throws IllegalArgumentException if the value is not of a supported type.
+     */
+    public void addAttribute(final String name, final Object value) {
+        ArgumentChecks.ensureNonEmpty("name", name);
+        ensureDefineMode();
+        attributes.put(name, toAttribute(name, value));
+    }
+
+    /**
+     * Declares a new variable. If the variable uses the unlimited dimension, that dimension shall be first.
+     * Only the data types of the classic format ({@code BYTE}, {@code CHAR}, {@code SHORT}, {@code INT},
+     * {@code FLOAT} and {@code DOUBLE}) are supported.
+     *
+     * @param  name        the variable name.
+     * @param  type        the type of values.
+     * @param  dimensions  names of the dimensions, with the slowest varying dimension first.
+     * @param  attributes  the variable attributes, or {@code null} if none.
+     * @throws IllegalArgumentException if the type is not supported by the classic format,
+     *         if a dimension is not found or if the unlimited dimension is not first.
+     */
+    public void addVariable(final String name, final DataType type, final String[] dimensions,
+                            final Map<String,?> attributes)
+    {
+        ArgumentChecks.ensureNonEmpty("name", name);
+        ArgumentChecks.ensureNonNull ("type", type);
+        ArgumentChecks.ensureNonNull ("dimensions", dimensions);
+        ensureDefineMode();
+        if (type.ordinal() < DataType.BYTE.ordinal() || type.ordinal() > DataType.DOUBLE.ordinal()) {
+            throw new IllegalArgumentException(Resources.format(Resources.Keys.UnsupportedDataType_3, output.filename, name, type));
+        }
+        final Dimension[] varDims = new Dimension[dimensions.length];
+        for (int i=0; i<varDims.length; i++) {
+            final Dimension dim = this.dimensions.get(dimensions[i]);
+            if (dim == null) {
+                throw new IllegalArgumentException(Errors.format(Errors.Keys.ElementNotFound_1, dimensions[i]));
+            }
+            if (dim.isUnlimited && i != 0) {
+                throw new IllegalArgumentException(Errors.format(Errors.Keys.IllegalArgumentValue_2,
+                        "dimensions", String.join(", ", dimensions)));
+            }
+            varDims[i] = dim;
+        }
+        final Map<String,Attribute> encoded = new LinkedHashMap<>();
+        if (attributes != null) {
+            for (final Map.Entry<String,?> entry : attributes.entrySet()) {
+                final Object value = entry.getValue();
+                if (value != null) {
+                    encoded.put(entry.getKey(), toAttribute(entry.getKey(), value));
+                }
+            }
+        }
+        for (final Definition variable : variables) {
+            if (variable.name.equals(name)) {
+                throw new IllegalArgumentException(Errors.format(Errors.Keys.ElementAlreadyPresent_1, name));
+            }
+        }
+        variables.add(new Definition(name, type, varDims, encoded));
+    }
+
+    /**
+     * Converts the given attribute value to an array of a netCDF type.
+     */
+    private static Attribute toAttribute(final String name, final Object value) {
+        if (value instanceof CharSequence) {
+            return new Attribute(DataType.CHAR, value.toString().getBytes(NAME_ENCODING));
+        }
+        if (value instanceof Number) {
+            if (value instanceof Byte)    return new Attribute(DataType.BYTE,  new byte[]  {(Byte)    value});
+            if (value instanceof Short)   return new Attribute(DataType.SHORT, new short[] {(Short)   value});
+            if (value instanceof Integer) return new Attribute(DataType.INT,   new int[]   {(Integer) value});
+            if (value instanceof Float)   return new Attribute(DataType.FLOAT, new float[] {(Float)   value});
+            return new Attribute(DataType.DOUBLE, new double[] {((Number) value).doubleValue()});
+        }
+        if (value instanceof byte[])   return new Attribute(DataType.BYTE,   value);
+        if (value instanceof short[])  return new Attribute(DataType.SHORT,  value);
+        if (value instanceof int[])    return new Attribute(DataType.INT,    value);
+        if (value instanceof float[])  return new Attribute(DataType.FLOAT,  value);
+        if (value instanceof double[]) return new Attribute(DataType.DOUBLE, value);
+        throw new IllegalArgumentException(Errors.format(Errors.Keys.IllegalArgumentClass_2, name, value.getClass()));
+    }
+
+    /**
+     * Returns the number of bytes used in the header by the given name.
+     */
+    private static long length(final String name) {
+        return Integer.BYTES + pad(name.getBytes(NAME_ENCODING).length);
+    }
+
+    /**
+     * Returns the number of bytes used in the header by the given list of attributes.
+     */
+    private static long length(final Map<String,Attribute> attributes) {
+        long length = 2 * Integer.BYTES;                            // Tag and number of elements, or ABSENT.
+        for (final Map.Entry<String,Attribute> entry : attributes.entrySet()) {
+            length += length(entry.getKey()) + 2 * Integer.BYTES + pad(entry.getValue().length());
+        }
+        return length;
+    }
+
+    /**
+     * Returns the number of bytes in the header, assuming the current value of {@link #is64bits}.
+     */
+    private long headerLength() {
+        long length = 2 * Integer.BYTES;                            // Magic number, version and numrecs.
+        length += 2 * Integer.BYTES;                                // Dimensions tag and number of elements.
+        for (final Dimension dim : dimensions.values()) {
+            length += length(dim.name) + Integer.BYTES;
+        }
+        length += length(attributes);
+        length += 2 * Integer.BYTES;                                // Variables tag and number of elements.
+        for (final Definition variable : variables) {
+            length += length(variable.name)
+                    + Integer.BYTES * (1 + variable.dimensions.length)
+                    + length(variable.attributes)
+                    + Integer.BYTES * 2                             // Type and size.
+                    + (is64bits ? Long.BYTES : Integer.BYTES);      // Offset.
+        }
+        return length;
+    }
+
+    /**
+     * Writes the netCDF header. After this method call, no more dimensions, attributes or variables can be added.
+     * This method computes the position of all variables: the non-record variables first in declaration order,
+     * followed by the records.
+     *
+     * @throws IOException if an error occurred while writing the header.
+     */
+    public void endDefinition() throws IOException {
+        ensureDefineMode();
+        final List<Definition> fixed   = new ArrayList<>();
+        final List<Definition> records = new ArrayList<>();
+        for (final Definition variable : variables) {
+            (variable.isUnlimited() ? records : fixed).add(variable);
+        }
+        /*
+         * Compute the location of all variables. If a variable begins after the 32-bits limit,
+         * we need to switch to the 64-bits offset format which has a larger header.
+         */
+        long position;
+        do {
+            position = headerLength();
+            for (final Definition variable : fixed) {
+                variable.begin = position;
+                position = Math.addExact(position, variable.paddedSize());
+            }
+            for (final Definition variable : records) {
+                variable.begin = position;
+                position = Math.addExact(position, variable.paddedSize());
+            }
+            if (is64bits) break;
+            is64bits = (position > MAX_CLASSIC_OFFSET);
+        } while (is64bits);
+        /*
+         * Write the header: magic number, number of records, dimensions, global attributes and variables.
+         */
+        output.writeInt(ChannelDecoder.MAGIC_NUMBER | (is64bits ? 2 : 1));
+        output.writeInt(STREAMING);
+        if (dimensions.isEmpty()) {
+            output.writeLong(0);
+        } else {
+            output.writeInt(DIMENSION);
+            output.writeInt(dimensions.size());
+            for (final Dimension dim : dimensions.values()) {
+                writeName(dim.name);
+                output.writeInt(dim.isUnlimited ? 0 : dim.length);
+            }
+        }
+        writeAttributes(attributes);
+        if (variables.isEmpty()) {
+            output.writeLong(0);
+        } else {
+            output.writeInt(VARIABLE);
+            output.writeInt(variables.size());
+            final List<Dimension> all = new ArrayList<>(dimensions.values());
+            for (final Definition variable : variables) {
+                writeName(variable.name);
+                output.writeInt(variable.dimensions.length);
+                for (final Dimension dim : variable.dimensions) {
+                    output.writeInt(all.indexOf(dim));
+                }
+                writeAttributes(variable.attributes);
+                output.writeInt(variable.type.ordinal());
+                output.writeInt((int) Math.min(variable.paddedSize(), MAX_CLASSIC_OFFSET));
+                if (is64bits) {
+                    output.writeLong(variable.begin);
+                } else {
+                    output.writeInt((int) variable.begin);
+                }
+            }
+        }
+        assert output.getStreamPosition() - origin == headerLength() : output;
+        this.fixed   = fixed  .toArray(new Definition[fixed  .size()]);
+        this.records = records.toArray(new Definition[records.size()]);
+    }
+
+    /**
+     * Writes a name in the header, followed by the padding.
+     */
+    private void writeName(final String name) throws IOException {
+        final byte[] bytes = name.getBytes(NAME_ENCODING);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+        writePadding(bytes.length);
+    }
+
+    /**
+     * Writes zero values after the given number of bytes for aligning on a multiple of 4 bytes.
+     */
+    private void writePadding(final long length) throws IOException {
+        for (int i = (int) (pad(length) - length); --i >= 0;) {
+            output.writeByte(0);
+        }
+    }
+
+    /**
+     * Writes the given list of attributes in the header.
+     */
+    private void writeAttributes(final Map<String,Attribute> attributes) throws IOException {
+        if (attributes.isEmpty()) {
+            output.writeLong(0);
+            return;
+        }
+        output.writeInt(ATTRIBUTE);
+        output.writeInt(attributes.size());
+        for (final Map.Entry<String,Attribute> entry : attributes.entrySet()) {
+            final Attribute attribute = entry.getValue();
+            writeName(entry.getKey());
+            output.writeInt(attribute.type.ordinal());
+            output.writeInt(Array.getLength(attribute.values));
+            writeValues(attribute.type, attribute.values);
+            writePadding(attribute.length());
+        }
+    }
+
+    /**
+     * Writes the given array of values, which is assumed of a type compatible with the given netCDF type.
+     */
+    private void writeValues(final DataType type, final Object values) throws IOException {
+        switch (type) {
+            case BYTE:
+            case CHAR:   output.write        ((byte[])   values); break;
+            case SHORT:  output.writeShorts  ((short[])  values); break;
+            case INT:    output.writeInts    ((int[])    values); break;
+            case FLOAT:  output.writeFloats  ((float[])  values); break;
+            case DOUBLE: output.writeDoubles ((double[]) values); break;
+            default: throw new AssertionError(type);
+        }
+    }
+
+    /**
+     * Writes the values of the given variable, followed by padding if {@code padding} is {@code true}.
+     */
+    private void write(final Definition variable, final Object values, final boolean padding) throws IOException {
+        final Class<?> expected;
+        switch (variable.type) {
+            case BYTE:
+            case CHAR:  expected = byte.class;   break;
+            case SHORT: expected = short.class;  break;
+            case INT:   expected = int.class;    break;
+            case FLOAT: expected = float.class;  break;
+            default:    expected = double.class; break;
+        }
+        if (values == null || values.getClass().getComponentType() != expected) {
+            throw new IllegalArgumentException(Errors.format(Errors.Keys.IllegalArgumentClass_2,
+                    variable.name, (values != null) ? values.getClass() : null));
+        }
+        final int length = Array.getLength(values);
+        if (length != variable.count) {
+            throw new IllegalArgumentException(Errors.format(Errors.Keys.UnexpectedArrayLength_2, variable.count, length));
+        }
+        writeValues(variable.type, values);
+        if (padding) {
+            writePadding(length * (long) variable.type.size());
+        }
+    }
+
+    /**
+     * Ensures that the header has been written and that the next non-record variable to write is the given one.
+     *
+     * @param  name  name of the variable to write, or {@code null} for a record.
+     */
+    private void ensureNext(final String name) throws IOException {
+        if (records == null) {
+            endDefinition();
+        }
+        if (nextVariable < fixed.length) {
+            final String expected = fixed[nextVariable].name;
+            if (!expected.equals(name)) {
+                throw new IllegalStateException(Resources.format(Resources.Keys.UnexpectedVariableOrder_3,
+                        output.filename, (name != null) ? name : records[0].name, expected));
+            }
+        } else if (name != null) {
+            throw new IllegalStateException(Resources.format(Resources.Keys.UnexpectedVariableOrder_3,
+                    output.filename, name, (records.length != 0) ? records[0].name : name));
+        }
+    }
+
+    /**
+     * Writes all values of a variable which does not use the unlimited dimension.
+     * Those variables shall be written in the order they were declared, before any record.
+     * The header is written first if {@link #endDefinition()} has not yet been invoked.
+     *
+     * @param  name    name of the variable to write.
+     * @param  values  the values as an array of the primitive type of the variable
+     *                 ({@code byte[]} for {@code BYTE} and {@code CHAR} types).
+     * @throws IllegalStateException if the variable is not the next one to write.
+     * @throws IllegalArgumentException if the array is not of the expected type or length.
+     * @throws IOException if an error occurred while writing the values.
+     */
+    public void write(final String name, final Object values) throws IOException {
+        ensureNext(name);
+        final Definition variable = fixed[nextVariable];
+        assert output.getStreamPosition() - origin == variable.begin : name;
+        write(variable, values, true);
+        nextVariable++;
+    }
+
+    /**
+     * Writes one record of all unlimited variables. There is one array of values for each variable
+     * using the unlimited dimension, in the order they were declared. Each array contains the values
+     * of one slice of the variable, with the slowest varying dimension first.
+     *
+     * @param  values  the values of each unlimited variable for the new record.
+     * @throws IllegalStateException if some non-record variables have not been written.
+     * @throws IllegalArgumentException if an array is not of the expected type or length.
+     * @throws IOException if an error occurred while writing the values.
+     */
+    public void writeRecord(final Object... values) throws IOException {
+        ensureNext(null);
+        if (values.length != records.length) {
+            throw new IllegalArgumentException(Errors.format(Errors.Keys.UnexpectedArrayLength_2, records.length, values.length));
+        }
+        /*
+         * Special case documented in netCDF specification: if there is only one record variable,
+         * then there is no padding between records.
+         */
+        final boolean padding = (records.length != 1);
+        for (int i=0; i<values.length; i++) {
+            write(records[i], values[i], padding);
+        }
+        numrecs = Math.incrementExact(numrecs);
+    }
+
+    /**
+     * Returns the number of records written so far.
+     *
+     * @return number of records written so far.
+     */
+    public int getRecordCount() {
+        return numrecs;
+    }
+
+    /**
+     * Writes the number of records in the header if possible, then closes the channel.
+     * The header is written first if {@link #endDefinition()} has not yet been invoked.
+     * If the channel is not seekable and the header is no longer in the buffer,
+     * then the header keeps the {@code STREAMING} number of records.
+     *
+     * @throws IOException if an error occurred while writing the number of records or closing the channel.
+     */
+    @Override
+    public void close() throws IOException {
+        if (records == null) {
+            endDefinition();
+        }
+        final long bufferOffset = output.getStreamPosition() - output.buffer.position();
+        if (output.channel instanceof SeekableByteChannel || bufferOffset <= origin + Integer.BYTES) {
+            output.seek(origin + Integer.BYTES);
+            output.writeInt(numrecs);
+        }
+        output.flush();
+        output.channel.close();
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.netcdf.impl;
+
+import java.util.Map;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import org.apache.sis.internal.storage.io.ChannelDataInput;
+
+
+/**
+ * A cache of uncompressed chunks read from netCDF-4 files. Chunks are discarded in least-recently-used order
+ * when the total number of bytes in the cache exceeds a limit. This is different than the SIS {@code Cache},
+ * which retains values by soft references after the cost limit has been reached. We want a hard limit here
+ * because the chunks of a large dataset can quickly fill the heap, while a chunk can always be read again.
+ *
+ * <p>This class is thread-safe. The same cache is shared by all {@link ChunkedStorage} instances,
+ * and the chunks of a file are removed from the cache when the file is closed.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ *
+ * @see org.apache.sis.util.collection.Cache
+ */
+final class ChunkCache {
+    /**
+     * The cache shared by all netCDF-4 files. The capacity is 1/16 of the maximal heap size.
+     */
+    static final ChunkCache GLOBAL = new ChunkCache(Runtime.getRuntime().maxMemory() / 16);
+
+    /**
+     * Key of chunks in the cache: the storage of a variable together with the linear index of a chunk.
+     */
+    static final class Key {
+        /** The storage of the variable from which the chunk has been read. */
+        final ChunkedStorage storage;
+
+        /** Linear index of the chunk in the storage, with dimensions in natural order. */
+        private final long index;
+
+        /** Creates a new key for the chunk at the given index. */
+        Key(final ChunkedStorage storage, final long index) {
+            this.storage = storage;
+            this.index   = index;
+        }
+
+        /** Returns a hash code value for this key. */
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(storage) + Long.hashCode(index);
+        }
+
+        /** Compares this key with the given object for equality. */
+        @Override
+        public boolean equals(final Object other) {
+            if (other instanceof Key) {
+                final Key that = (Key) other;
+                return storage == that.storage && index == that.index;
+            }
+            return false;
+        }
+
+        /** Returns a string representation for debugging purpose. */
+        @Override
+        public String toString() {
+            return storage + " chunk " + index;
+        }
+    }
+
+    /**
+     * The uncompressed chunks, in access order (least recently used first).
+     */
+    private final LinkedHashMap<Key,byte[]> chunks;
+
+    /**
+     * Maximal number of bytes in all chunks retained by this cache.
+     */
+    private final long capacity;
+
+    /**
+     * Number of bytes in all chunks currently in this cache.
+     */
+    private long size;
+
+    /**
+     * Creates a new cache retaining chunks up to the given total number of bytes.
+     *
+     * @param  capacity  maximal number of bytes in all chunks retained by this cache.
+     */
+    ChunkCache(final long capacity) {
+        this.capacity = capacity;
+        chunks = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns the chunk for the given key, or {@code null} if none.
+     * If a chunk is found, it becomes the most recently used one.
+     *
+     * @param  key  key of the chunk to get.
+     * @return the uncompressed chunk, or {@code null} if not in the cache.
+     */
+    synchronized byte[] get(final Key key) {
+        return chunks.get(key);
+    }
+
+    /**
+     * Adds the given chunk in the cache, then discards the least recently used chunks until the total number
+     * of bytes is not greater than the capacity. Chunks larger than the capacity are not cached.
+     *
+     * @param  key    key of the chunk to add.
+     * @param  chunk  the uncompressed chunk.
+     */
+    synchronized void put(final Key key, final byte[] chunk) {
+        if (chunk.length <= capacity) {
+            final byte[] old = chunks.put(key, chunk);
+            if (old != null) {
+                size -= old.length;
+            }
+            size += chunk.length;
+            final Iterator<byte[]> it = chunks.values().iterator();
+            while (size > capacity) {
+                size -= it.next().length;
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes all chunks read from the given input. This method is invoked when a file is closed,
+     * for avoiding to retain chunks that can not be used anymore.
+     *
+     * @param  input  the input of the file which is closed.
+     */
+    synchronized void removeAll(final ChannelDataInput input) {
+        final Iterator<Map.Entry<Key,byte[]>> it = chunks.entrySet().iterator();
+        while (it.hasNext()) {
+            final Map.Entry<Key,byte[]> entry = it.next();
+            if (entry.getKey().storage.input == input) {
+                size -= entry.getValue().length;
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns {@code true} if this cache contains a chunk for the given key.
+     * This method does not change the access order.
+     */
+    synchronized boolean contains(final Key key) {
+        return chunks.containsKey(key);
+    }
+
+    /**
+     * Returns the number of bytes in all chunks currently in this cache.
+     */
+    synchronized long size() {
+        return size;
+    }
+}
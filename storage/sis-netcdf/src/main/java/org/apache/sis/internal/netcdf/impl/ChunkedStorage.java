@@ -0,0 +1,632 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.netcdf.impl;
+
+import java.util.Arrays;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.ByteBuffer;
+import java.util.zip.Inflater;
+import java.util.zip.DataFormatException;
+import org.apache.sis.internal.netcdf.DataType;
+import org.apache.sis.internal.netcdf.Resources;
+import org.apache.sis.internal.storage.io.ChannelDataInput;
+import org.apache.sis.internal.util.Numerics;
+import org.apache.sis.storage.DataStoreContentException;
+import org.apache.sis.util.resources.Errors;
+import org.apache.sis.util.Numbers;
+
+
+/**
+ * Reader of a dataset stored in chunks in a HDF5 file, as used by netCDF-4.
+ * The dataset is divided in hyper-rectangles of fixed size (the chunks), each chunk being stored
+ * in a separated block of the file, optionally compressed. The location of each chunk is given
+ * by a version 1 B-tree (node type 1) read by {@link #readIndex(long, int)}, or specified directly
+ * by {@link #addChunk(long[], long, int, int)} for the other layouts.
+ *
+ * <p>Only the chunks intersecting the region to read are loaded. Chunks are uncompressed when first needed
+ * and retained in {@link ChunkCache#GLOBAL}, so reading many small regions in the same chunk does not inflate
+ * that chunk many times. The following filters are supported, in any order in the filter pipeline:</p>
+ *
+ * <ul>
+ *   <li>1 = deflate (zlib),</li>
+ *   <li>2 = shuffle (bytes of the same significance grouped together),</li>
+ *   <li>3 = Fletcher32 (the checksum is removed but not verified).</li>
+ * </ul>
+ *
+ * Other filters cause an exception when a chunk using them is read.
+ * Chunks that have never been written contain only the fill value.
+ *
+ * <p>All arrays given to or returned by this class are in "natural" order: the dimension of fastest varying index
+ * first. This is the reverse of HDF5 order, and the same order than {@link org.apache.sis.internal.storage.io.Region},
+ * except in {@link #addChunk addChunk(…)} which takes the offsets as declared in the file.
+ * This class is not thread-safe; callers shall synchronize on the object that protect the {@link ChannelDataInput}.</p>
+ *
+ * <p><b>Reference:</b>
+ * <a href="https://support.hdfgroup.org/HDF5/doc/H5.format.html">HDF5 File Format Specification</a>
+ * sections III.A.1 (version 1 B-trees) and IV.A.2.i (data layout message).</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+final class ChunkedStorage {
+    /**
+     * Identifiers of filters in the HDF5 filter pipeline.
+     */
+    static final int DEFLATE = 1, SHUFFLE = 2, FLETCHER32 = 3;
+
+    /**
+     * The signature of B-tree nodes, which is the "TREE" characters in US-ASCII
+     * read as an integer in little-endian byte order.
+     */
+    private static final int SIGNATURE = ('E' << 24) | ('E' << 16) | ('R' << 8) | 'T';
+
+    /**
+     * B-tree node type for nodes indexing raw data chunks.
+     */
+    private static final int RAW_DATA_CHUNKS = 1;
+
+    /**
+     * The channel from which to read the chunks, together with a buffer for transferring data.
+     */
+    final ChannelDataInput input;
+
+    /**
+     * Position in the input stream of the HDF5 superblock. All addresses in the file are relative to that position.
+     */
+    private final long baseAddress;
+
+    /**
+     * The type of elements in the dataset, as one of the constants defined in {@link Numbers}.
+     */
+    private final byte dataType;
+
+    /**
+     * Number of bytes in each element.
+     */
+    private final int dataSize;
+
+    /**
+     * Byte order of the elements in the uncompressed chunks.
+     */
+    private final ByteOrder order;
+
+    /**
+     * Number of elements in the dataset along each dimension, in natural order.
+     */
+    private final long[] datasetSize;
+
+    /**
+     * Number of elements in a chunk along each dimension, in natural order.
+     */
+    private final int[] chunkSize;
+
+    /**
+     * Number of chunks along each dimension, in natural order.
+     */
+    private final long[] chunksAcross;
+
+    /**
+     * Number of bytes in an uncompressed chunk.
+     */
+    private final int chunkBytes;
+
+    /**
+     * The filters applied on chunks when writing them, in pipeline order.
+     * Chunks are uncompressed by applying the inverse filters in reverse order.
+     */
+    private final int[] filters;
+
+    /**
+     * The value of elements in chunks that have never been written, or {@code null} for zero.
+     * The bytes are in the byte order of the elements.
+     */
+    private final byte[] fillValue;
+
+    /**
+     * A chunk filled with {@link #fillValue}, created when first needed.
+     */
+    private byte[] fillChunk;
+
+    /**
+     * Linear indices of chunks stored in the file. Chunks not listed here have never been written.
+     * This array is sorted in increasing order only if {@link #isSorted} is {@code true}.
+     */
+    private long[] chunkIndices;
+
+    /**
+     * For each chunk listed in {@link #chunkIndices}, the address of its data in the file
+     * (relative to {@link #baseAddress}), the number of bytes stored and the filter mask.
+     * The filter mask has one bit set for each filter in {@link #filters} that has not been applied.
+     */
+    private long[] addresses;
+    private int[]  storedSizes, filterMasks;
+
+    /**
+     * Number of valid elements in {@link #chunkIndices}, {@link #addresses}, {@link #storedSizes} and {@link #filterMasks}.
+     */
+    private int numChunks;
+
+    /**
+     * Whether {@link #chunkIndices} is sorted in increasing order, as required for binary searches.
+     */
+    private boolean isSorted;
+
+    /**
+     * Creates a new reader for a chunked dataset. Callers shall invoke {@link #readIndex(long, int)} or
+     * {@link #addChunk(long[], long, int, int)} after construction for declaring the chunk locations.
+     * Arguments are the values declared in the HDF5 data layout, datatype, fill value and filter pipeline messages.
+     *
+     * @param  input        the channel from which to read the chunks.
+     * @param  baseAddress  position in the input stream of the HDF5 superblock.
+     * @param  dataType     the type of elements.
+     * @param  order        byte order of the elements in the uncompressed chunks.
+     * @param  datasetSize  number of elements along each dimension, in natural order.
+     * @param  chunkSize    number of elements in a chunk along each dimension, in natural order.
+     * @param  filters      identifiers of filters in the filter pipeline, or an empty array if none.
+     * @param  fillValue    value of elements never written in the element byte order, or {@code null} for zero.
+     * @throws DataStoreContentException if the data type is not supported.
+     * @throws ArithmeticException if a chunk is too large.
+     */
+    ChunkedStorage(final ChannelDataInput input, final long baseAddress, final DataType dataType, final ByteOrder order,
+                   final long[] datasetSize, final int[] chunkSize, final int[] filters, final byte[] fillValue)
+            throws DataStoreContentException
+    {
+        this.input       = input;
+        this.baseAddress = baseAddress;
+        this.dataType    = dataType.number;
+        this.dataSize    = dataType.size();
+        this.order       = order;
+        this.datasetSize = datasetSize.clone();
+        this.chunkSize   = chunkSize.clone();
+        this.filters     = filters.clone();
+        if (dataSize == 0) {
+            throw new DataStoreContentException(Errors.format(Errors.Keys.UnknownType_1, dataType));
+        }
+        this.fillValue = (fillValue != null && fillValue.length == dataSize) ? fillValue.clone() : null;
+        int length = dataSize;
+        chunksAcross = new long[chunkSize.length];
+        for (int i=0; i<chunkSize.length; i++) {
+            chunksAcross[i] = Numerics.ceilDiv(datasetSize[i], chunkSize[i]);
+            length = Math.multiplyExact(length, chunkSize[i]);
+        }
+        chunkBytes   = length;
+        chunkIndices = new long[16];
+        addresses    = new long[16];
+        storedSizes  = new int [16];
+        filterMasks  = new int [16];
+        isSorted     = true;
+    }
+
+    /**
+     * Reads the B-tree giving the locations of all chunks.
+     *
+     * @param  btree       address of the root node of the B-tree indexing the chunks, relative to the superblock.
+     * @param  offsetSize  number of bytes used for storing addresses in the file (the "size of offsets").
+     * @throws IOException if an error occurred while reading the B-tree.
+     * @throws DataStoreContentException if the B-tree is malformed.
+     */
+    void readIndex(final long btree, final int offsetSize) throws IOException, DataStoreContentException {
+        /*
+         * All HDF5 metadata are in little-endian byte order,
+         * which may not be the byte order of the elements.
+         */
+        final ByteOrder previous = input.buffer.order();
+        input.buffer.order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            readNode(btree, offsetSize, -1);
+        } finally {
+            input.buffer.order(previous);
+        }
+    }
+
+    /**
+     * Reads the B-tree node at the given address, then reads its children recursively.
+     *
+     * @param  address     address of the node to read, relative to {@link #baseAddress}.
+     * @param  offsetSize  number of bytes used for storing addresses in the file.
+     * @param  level       expected level of the node, or -1 for the root node.
+     */
+    private void readNode(final long address, final int offsetSize, final int level)
+            throws IOException, DataStoreContentException
+    {
+        input.seek(baseAddress + address);
+        if (input.readInt() != SIGNATURE || input.readUnsignedByte() != RAW_DATA_CHUNKS) {
+            throw malformed();
+        }
+        final int nodeLevel = input.readUnsignedByte();
+        if (level >= 0 && nodeLevel != level) {
+            throw malformed();
+        }
+        final int entriesUsed = input.readUnsignedShort();
+        input.seek(input.getStreamPosition() + 2L * offsetSize);         // Skip left and right siblings.
+        final long[] children = (nodeLevel != 0) ? new long[entriesUsed] : null;
+        for (int i=0; i<entriesUsed; i++) {
+            /*
+             * Key: size of chunk in bytes, filter mask, then offset of the chunk in the dataset
+             * along each dimension in HDF5 order, followed by an offset in the element (always 0).
+             */
+            final int    size    = input.readInt();
+            final int    mask    = input.readInt();
+            final long[] offsets = input.readLongs(chunkSize.length + 1);
+            final long   child   = readAddress(offsetSize);
+            if (children != null) {
+                children[i] = child;
+            } else {
+                addChunk(offsets, child, size, mask);
+            }
+        }
+        if (children != null) {
+            for (final long child : children) {
+                readNode(child, offsetSize, nodeLevel - 1);
+            }
+        }
+    }
+
+    /**
+     * Reads an address stored on the given number of bytes.
+     */
+    private long readAddress(final int offsetSize) throws IOException, DataStoreContentException {
+        switch (offsetSize) {
+            case Short.BYTES:   return input.readUnsignedShort();
+            case Integer.BYTES: return input.readUnsignedInt();
+            case Long.BYTES:    return input.readLong();
+            default: throw malformed();
+        }
+    }
+
+    /**
+     * Declares the location of a chunk. Chunks outside the dataset extent are ignored.
+     *
+     * @param  offsets     index of the first element of the chunk along each dimension, in HDF5 order
+     *                     (<strong>not</strong> natural order). Extra values after the dataset rank are ignored.
+     * @param  address     address of the chunk data, relative to the superblock.
+     * @param  storedSize  number of bytes stored in the file for the chunk.
+     * @param  filterMask  one bit set for each filter in the pipeline which has not been applied on that chunk.
+     */
+    void addChunk(final long[] offsets, final long address, final int storedSize, final int filterMask) {
+        final int rank = chunkSize.length;
+        long index  = 0;
+        long stride = 1;
+        for (int d=0; d<rank; d++) {
+            final long c = offsets[rank - 1 - d] / chunkSize[d];
+            if (c < 0 || c >= chunksAcross[d]) {
+                return;
+            }
+            index  += c * stride;
+            stride *= chunksAcross[d];
+        }
+        if (numChunks == chunkIndices.length) {
+            final int capacity = numChunks * 2;
+            chunkIndices = Arrays.copyOf(chunkIndices, capacity);
+            addresses    = Arrays.copyOf(addresses,    capacity);
+            storedSizes  = Arrays.copyOf(storedSizes,  capacity);
+            filterMasks  = Arrays.copyOf(filterMasks,  capacity);
+        }
+        if (numChunks != 0 && index <= chunkIndices[numChunks - 1]) {
+            isSorted = false;
+        }
+        chunkIndices[numChunks] = index;
+        addresses   [numChunks] = address;
+        storedSizes [numChunks] = storedSize;
+        filterMasks [numChunks] = filterMask;
+        numChunks++;
+    }
+
+    /**
+     * Sorts the chunk entries in increasing order of chunk indices. The B-tree should give chunks
+     * in increasing order of their offsets in the dataset, but we do not rely on that.
+     */
+    private void sortChunks() {
+        final Integer[] order = new Integer[numChunks];
+        for (int i=0; i<numChunks; i++) order[i] = i;
+        Arrays.sort(order, (i1, i2) -> Long.compare(chunkIndices[i1], chunkIndices[i2]));
+        final long[] indices = new long[numChunks];
+        final long[] address = new long[numChunks];
+        final int [] sizes   = new int [numChunks];
+        final int [] masks   = new int [numChunks];
+        for (int i=0; i<numChunks; i++) {
+            final int j = order[i];
+            indices[i] = chunkIndices[j];
+            address[i] = addresses   [j];
+            sizes  [i] = storedSizes [j];
+            masks  [i] = filterMasks [j];
+        }
+        chunkIndices = indices;
+        addresses    = address;
+        storedSizes  = sizes;
+        filterMasks  = masks;
+        isSorted     = true;
+    }
+
+    /**
+     * Returns the exception to throw if the B-tree or a chunk is malformed.
+     */
+    private DataStoreContentException malformed() {
+        return new DataStoreContentException(Errors.format(Errors.Keys.UnexpectedFileFormat_2, "HDF5", input.filename));
+    }
+
+    /**
+     * Returns the name of the file from which the chunks are read.
+     */
+    final String filename() {
+        return input.filename;
+    }
+
+    /**
+     * Returns the position in the input stream of the first chunk, or of the superblock if there is no chunk.
+     * This is used for sorting variables in the order they appear in the file.
+     */
+    final long origin() {
+        long min = Long.MAX_VALUE;
+        for (int i=0; i<numChunks; i++) {
+            min = Math.min(min, addresses[i]);
+        }
+        return baseAddress + (numChunks != 0 ? min : 0);
+    }
+
+    /**
+     * Reads the data in the given region. The region is specified in natural order, with lower values inclusive
+     * and upper values exclusive. The region may extend beyond the dataset extent (for example if the dataset
+     * uses an unlimited dimension which is longer in other datasets), in which case missing values are the fill value.
+     *
+     * @param  lower        index of the first element to read along each dimension.
+     * @param  upper        index after the last element to read along each dimension.
+     * @param  subsampling  sub-sampling along each dimension, 1 for reading all elements.
+     * @return the data in an array of primitive type, in natural order.
+     * @throws IOException if an error occurred while reading a chunk.
+     * @throws DataStoreContentException if a chunk can not be uncompressed.
+     * @throws ArithmeticException if the region is too large.
+     */
+    Object read(final long[] lower, final long[] upper, final int[] subsampling) throws IOException, DataStoreContentException {
+        if (!isSorted) {
+            sortChunks();
+        }
+        final int rank = chunkSize.length;
+        if (rank == 0) {
+            return toArray(Arrays.copyOf(chunk(0), dataSize), 1);          // Scalar variable.
+        }
+        final int [] targetSize   = new int [rank];
+        final long[] targetStride = new long[rank];
+        final long[] firstChunk   = new long[rank];
+        final long[] lastChunk    = new long[rank];
+        final int [] chunkStride  = new int [rank];
+        long length = 1;
+        int  chunkLength = 1;
+        for (int i=0; i<rank; i++) {
+            targetSize  [i] = Math.toIntExact(Numerics.ceilDiv(upper[i] - lower[i], subsampling[i]));
+            targetStride[i] = length;
+            chunkStride [i] = chunkLength;
+            firstChunk  [i] = lower[i] / chunkSize[i];
+            lastChunk   [i] = (upper[i] - 1) / chunkSize[i];
+            length      *= targetSize[i];
+            chunkLength *= chunkSize[i];
+        }
+        final byte[] target = new byte[Math.multiplyExact(Math.toIntExact(length), dataSize)];
+        if (length == 0) {
+            return toArray(target, 0);
+        }
+        /*
+         * Iterate over all chunks intersecting the region to read. For each chunk, compute the index (relative to
+         * the chunk) of the first element to read along each dimension, and the number of elements to read. Chunks
+         * that fall between two sub-sampled elements are skipped without being read.
+         */
+        final long[] chunk  = firstChunk.clone();
+        final int [] first  = new int[rank];
+        final int [] count  = new int[rank];
+        final long[] offset = new long[rank];
+next:   do {
+            long    index   = 0;
+            long    stride  = 1;
+            boolean empty   = false;
+            boolean outside = false;
+            for (int i=0; i<rank; i++) {
+                final long start = chunk[i] * chunkSize[i];
+                final long end   = Math.min(start + chunkSize[i], upper[i]);
+                final int  step  = subsampling[i];
+                final long skip  = Numerics.ceilDiv(Math.max(start - lower[i], 0), step);
+                final long p     = lower[i] + skip * step;
+                first [i] = (int) (p - start);
+                count [i] = (int) Math.max(Numerics.ceilDiv(end - p, step), 0);
+                offset[i] = skip;
+                empty    |= (count[i] == 0);
+                outside  |= (chunk[i] >= chunksAcross[i]);
+                index    += chunk[i] * stride;
+                stride   *= chunksAcross[i];
+            }
+            if (!empty) {
+                final byte[] data = outside ? fill() : chunk(index);
+                copy(data, chunkStride, first, count, subsampling, target, targetStride, offset);
+            }
+            for (int i=0; i<rank; i++) {
+                if (++chunk[i] <= lastChunk[i]) {
+                    continue next;
+                }
+                chunk[i] = firstChunk[i];
+            }
+            break;
+        } while (true);
+        return toArray(target, (int) length);
+    }
+
+    /**
+     * Copies the selected elements of a chunk in the target array.
+     *
+     * @param  data          the uncompressed chunk.
+     * @param  chunkStride   number of elements between two consecutive indices in the chunk, for each dimension.
+     * @param  first         index in the chunk of the first element to copy, for each dimension.
+     * @param  count         number of elements to copy, for each dimension.
+     * @param  subsampling   sub-sampling along each dimension.
+     * @param  target        where to copy the elements.
+     * @param  targetStride  number of elements between two consecutive indices in the target, for each dimension.
+     * @param  offset        index in the target of the first element to copy, for each dimension.
+     */
+    private void copy(final byte[] data, final int[] chunkStride, final int[] first, final int[] count,
+            final int[] subsampling, final byte[] target, final long[] targetStride, final long[] offset)
+    {
+        final int rank = chunkStride.length;
+        final int[] cursor = new int[rank];
+next:   do {
+            int  src = 0;
+            long dst = 0;
+            for (int i=0; i<rank; i++) {
+                src += (first[i] + cursor[i] * subsampling[i]) * chunkStride[i];
+                dst += (offset[i] + cursor[i]) * targetStride[i];
+            }
+            src *= dataSize;
+            int t = (int) (dst * dataSize);
+            if (subsampling[0] == 1) {
+                System.arraycopy(data, src, target, t, count[0] * dataSize);
+            } else {
+                final int step = subsampling[0] * dataSize;
+                for (int n=count[0]; --n >= 0;) {
+                    System.arraycopy(data, src, target, t, dataSize);
+                    src += step;
+                    t   += dataSize;
+                }
+            }
+            for (int i=1; i<rank; i++) {
+                if (++cursor[i] < count[i]) {
+                    continue next;
+                }
+                cursor[i] = 0;
+            }
+            break;
+        } while (true);
+    }
+
+    /**
+     * Returns a chunk filled with the fill value. The returned array shall not be modified.
+     */
+    private byte[] fill() {
+        if (fillChunk == null) {
+            fillChunk = new byte[chunkBytes];
+            if (fillValue != null) {
+                for (int i=0; i<chunkBytes; i += dataSize) {
+                    System.arraycopy(fillValue, 0, fillChunk, i, dataSize);
+                }
+            }
+        }
+        return fillChunk;
+    }
+
+    /**
+     * Returns the uncompressed chunk at the given index, reading it if not already in the cache.
+     * The returned array shall not be modified.
+     *
+     * @param  index  linear index of the chunk, with dimensions in natural order.
+     * @return the uncompressed chunk, or a chunk filled with the fill value if the chunk has never been written.
+     */
+    private byte[] chunk(final long index) throws IOException, DataStoreContentException {
+        final int i = Arrays.binarySearch(chunkIndices, 0, numChunks, index);
+        if (i < 0) {
+            return fill();
+        }
+        final ChunkCache.Key key = new ChunkCache.Key(this, index);
+        byte[] data = ChunkCache.GLOBAL.get(key);
+        if (data == null) {
+            input.seek(baseAddress + addresses[i]);
+            data = input.readBytes(storedSizes[i]);
+            for (int f = filters.length; --f >= 0;) {
+                if ((filterMasks[i] & (1 << f)) == 0) {
+                    data = unfilter(filters[f], data);
+                }
+            }
+            if (data.length != chunkBytes) {
+                data = Arrays.copyOf(data, chunkBytes);
+            }
+            ChunkCache.GLOBAL.put(key, data);
+        }
+        return data;
+    }
+
+    /**
+     * Reverses the effect of the given filter on the given data.
+     *
+     * @param  filter  identifier of the filter to reverse.
+     * @param  data    the data as stored in the file, or as produced by the previous inverse filter.
+     * @return the unfiltered data.
+     */
+    private byte[] unfilter(final int filter, final byte[] data) throws DataStoreContentException {
+        switch (filter) {
+            case DEFLATE: {
+                final Inflater inflater = new Inflater();
+                try {
+                    inflater.setInput(data);
+                    final byte[] result = new byte[chunkBytes];
+                    int n = 0;
+                    while (n < chunkBytes && !inflater.finished()) {
+                        final int c = inflater.inflate(result, n, chunkBytes - n);
+                        if (c == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                        n += c;
+                    }
+                    return result;
+                } catch (DataFormatException e) {
+                    throw new DataStoreContentException(Errors.format(Errors.Keys.CanNotRead_1, input.filename), e);
+                } finally {
+                    inflater.end();
+                }
+            }
+            case SHUFFLE: {
+                /*
+                 * The shuffle filter stored the first byte of all elements, then the second byte of all elements,
+                 * etc. Trailing bytes that do not fill a complete element have been stored unchanged.
+                 */
+                final byte[] result = new byte[data.length];
+                final int n = data.length / dataSize;
+                for (int b=0; b<dataSize; b++) {
+                    final int base = b * n;
+                    for (int e=0; e<n; e++) {
+                        result[e*dataSize + b] = data[base + e];
+                    }
+                }
+                final int done = n * dataSize;
+                System.arraycopy(data, done, result, done, data.length - done);
+                return result;
+            }
+            case FLETCHER32: {
+                return Arrays.copyOf(data, Math.max(data.length - Integer.BYTES, 0));
+            }
+            default: throw new DataStoreContentException(Resources.format(Resources.Keys.UnsupportedFilter_2, input.filename, filter));
+        }
+    }
+
+    /**
+     * Converts the given bytes to an array of the type of elements.
+     */
+    private Object toArray(final byte[] bytes, final int length) {
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes).order(order);
+        switch (dataType) {
+            case Numbers.SHORT:   {final short [] array = new short [length]; buffer.asShortBuffer() .get(array); return array;}
+            case Numbers.INTEGER: {final int   [] array = new int   [length]; buffer.asIntBuffer()   .get(array); return array;}
+            case Numbers.LONG:    {final long  [] array = new long  [length]; buffer.asLongBuffer()  .get(array); return array;}
+            case Numbers.FLOAT:   {final float [] array = new float [length]; buffer.asFloatBuffer() .get(array); return array;}
+            case Numbers.DOUBLE:  {final double[] array = new double[length]; buffer.asDoubleBuffer().get(array); return array;}
+            default: return bytes;
+        }
+    }
+
+    /**
+     * Returns a string representation for debugging purpose.
+     */
+    @Override
+    public String toString() {
+        return input.filename + ' ' + Arrays.toString(datasetSize);
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.netcdf.impl;
+
+import java.util.Arrays;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import org.apache.sis.storage.DataStoreContentException;
+
+
+/**
+ * Reader of objects stored in a HDF5 fractal heap. Groups and objects having many links or attributes
+ * store them in a fractal heap ("dense storage") instead of in the object header. The heap is a tree
+ * of indirect blocks where the leaves are direct blocks containing the objects. The objects are located
+ * by heap identifiers, which are given by the records of a version 2 B-tree.
+ *
+ * <p>Current implementation supports "managed" and "tiny" objects in heaps without I/O filters.
+ * "Huge" objects and filtered heaps cause a {@link DataStoreContentException} to be thrown.</p>
+ *
+ * <p><b>Reference:</b>
+ * <a href="https://support.hdfgroup.org/HDF5/doc/H5.format.html">HDF5 File Format Specification</a>
+ * section III.G (disk format: level 1G - fractal heap).</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+final class FractalHeap {
+    /**
+     * The signature of fractal heap headers, which is the "FRHP" characters in US-ASCII
+     * read as an integer in little-endian byte order.
+     */
+    private static final int SIGNATURE = ('P' << 24) | ('H' << 16) | ('R' << 8) | 'F';
+
+    /**
+     * Values of the type bits in heap identifiers.
+     */
+    private static final int MANAGED = 0, TINY = 2;
+
+    /**
+     * The file containing the heap.
+     */
+    private final HDF5Header file;
+
+    /**
+     * Number of bytes in heap identifiers.
+     */
+    private final int idLength;
+
+    /**
+     * Number of columns in the table of blocks managed by each indirect block.
+     */
+    private final int tableWidth;
+
+    /**
+     * Number of bytes in the blocks of the two first rows. Each subsequent row doubles the block size.
+     */
+    private final long startBlockSize;
+
+    /**
+     * Number of rows of direct blocks in an indirect block. Rows after this limit are indirect blocks.
+     */
+    private final int maxDirectRows;
+
+    /**
+     * Number of bytes used for encoding offsets in the heap and lengths of managed objects.
+     */
+    private final int offsetBytes, lengthBytes;
+
+    /**
+     * Address of the root block, or {@link HDF5Header#UNDEFINED} if the heap is empty.
+     */
+    private final long rootAddress;
+
+    /**
+     * Number of rows in the root indirect block, or 0 if the root block is a direct block.
+     */
+    private final int rootRows;
+
+    /**
+     * Reads the header of the fractal heap at the given address.
+     *
+     * @param  file     the file containing the heap.
+     * @param  address  address of the fractal heap header.
+     * @throws IOException if an error occurred while reading the header.
+     * @throws DataStoreContentException if the header is malformed or uses unsupported features.
+     */
+    FractalHeap(final HDF5Header file, final long address) throws IOException, DataStoreContentException {
+        this.file = file;
+        final int offsetSize = file.offsetSize;
+        final int lengthSize = file.lengthSize;
+        final ByteBuffer b = file.read(address, 26 + 12*lengthSize + 3*offsetSize);
+        if (b.getInt() != SIGNATURE || b.get() != 0) {
+            throw file.malformed();
+        }
+        idLength = Short.toUnsignedInt(b.getShort());
+        final int filterLength = Short.toUnsignedInt(b.getShort());
+        b.get();                                                    // Flags.
+        final long maxManagedSize = Integer.toUnsignedLong(b.getInt());
+        b.position(b.position() + 10*lengthSize + 2*offsetSize);    // Skip statistics and free-space information.
+        tableWidth = Short.toUnsignedInt(b.getShort());
+        startBlockSize = file.length(b);
+        final long maxDirectSize = file.length(b);
+        final int maxHeapBits = Short.toUnsignedInt(b.getShort());
+        b.getShort();                                               // Starting number of rows in root indirect block.
+        rootAddress = file.offset(b);
+        rootRows = Short.toUnsignedInt(b.getShort());
+        if (filterLength != 0) {
+            throw file.unsupported("filtered fractal heap");
+        }
+        if (tableWidth == 0 || Long.bitCount(startBlockSize) != 1 || Long.bitCount(maxDirectSize) != 1 || maxManagedSize == 0) {
+            throw file.malformed();
+        }
+        maxDirectRows = log2(maxDirectSize) - log2(startBlockSize) + 2;
+        offsetBytes   = (maxHeapBits + 7) / Byte.SIZE;
+        lengthBytes   = Math.min((log2(maxDirectSize) + 7) / Byte.SIZE,
+                                 (Long.SIZE - 1 - Long.numberOfLeadingZeros(maxManagedSize)) / Byte.SIZE + 1);
+    }
+
+    /**
+     * Returns the base 2 logarithm of the given power of 2.
+     */
+    private static int log2(final long value) {
+        return Long.numberOfTrailingZeros(value);
+    }
+
+    /**
+     * Returns the number of bytes in the blocks of the given row.
+     */
+    private long blockSize(final int row) {
+        return (row == 0) ? startBlockSize : startBlockSize << (row - 1);
+    }
+
+    /**
+     * Returns the object identified by the given heap identifier.
+     *
+     * @param  id  the heap identifier, as stored in a B-tree record. Only the first {@code idLength} bytes are used.
+     * @return the object content.
+     * @throws IOException if an error occurred while reading the heap.
+     * @throws DataStoreContentException if the heap identifier is invalid or uses unsupported features.
+     */
+    byte[] get(final byte[] id) throws IOException, DataStoreContentException {
+        if (id.length < idLength) {
+            throw file.malformed();
+        }
+        final int flags = Byte.toUnsignedInt(id[0]);
+        if ((flags >>> 6) != 0) {
+            throw file.malformed();                                 // Unknown version of heap identifier.
+        }
+        switch ((flags >>> 4) & 3) {
+            case MANAGED: {
+                final long offset = unsigned(id, 1, offsetBytes);
+                final long length = unsigned(id, 1 + offsetBytes, lengthBytes);
+                final ByteBuffer b = file.read(locate(offset), Math.toIntExact(length));
+                return b.array();
+            }
+            case TINY: {
+                final int length, start;
+                if (idLength <= 18) {
+                    length = (flags & 0x0F) + 1;
+                    start  = 1;
+                } else {
+                    length = (((flags & 0x0F) << Byte.SIZE) | Byte.toUnsignedInt(id[1])) + 1;
+                    start  = 2;
+                }
+                if (start + length > id.length) {
+                    throw file.malformed();
+                }
+                return Arrays.copyOfRange(id, start, start + length);
+            }
+            default: throw file.unsupported("huge object in fractal heap");
+        }
+    }
+
+    /**
+     * Returns the value of the unsigned integer stored in the given bytes in little-endian order.
+     */
+    private static long unsigned(final byte[] id, final int offset, final int length) {
+        long value = 0;
+        for (int i=0; i<length; i++) {
+            value |= Byte.toUnsignedLong(id[offset + i]) << (i * Byte.SIZE);
+        }
+        return value;
+    }
+
+    /**
+     * Returns the address in the file of the managed object at the given offset in the heap.
+     * The offset is relative to the heap address space, in which each direct block (including
+     * its header) occupies a range of offsets determined by its position in the tree.
+     */
+    private long locate(final long offset) throws IOException, DataStoreContentException {
+        if (rootAddress == HDF5Header.UNDEFINED) {
+            throw file.malformed();
+        }
+        if (rootRows == 0) {
+            return rootAddress + offset;                        // Root block is a direct block at offset 0.
+        }
+        long block       = rootAddress;
+        long blockOffset = 0;
+        int  numRows     = rootRows;
+        for (;;) {
+            /*
+             * Find the row and the column of the child block containing the offset,
+             * then read the address of that child in the table of the indirect block.
+             */
+            final long relative = offset - blockOffset;
+            long rowStart = 0;
+            long size;
+            int  row = 0;
+            for (;;) {
+                size = blockSize(row);
+                final long span = size * tableWidth;
+                if (relative < rowStart + span) break;
+                rowStart += span;
+                if (++row >= numRows) {
+                    throw file.malformed();
+                }
+            }
+            final long column = (relative - rowStart) / size;
+            final long entry  = row * (long) tableWidth + column;
+            final int  header = 4 + 1 + file.offsetSize + offsetBytes;      // Signature, version, heap address, offset.
+            final long child  = file.offset(file.read(block + header + entry * file.offsetSize, file.offsetSize));
+            if (child == HDF5Header.UNDEFINED) {
+                throw file.malformed();
+            }
+            final long childOffset = blockOffset + rowStart + column * size;
+            if (row < maxDirectRows) {
+                return child + (offset - childOffset);
+            }
+            numRows     = log2(size) - log2(startBlockSize * tableWidth) + 1;
+            block       = child;
+            blockOffset = childOffset;
+        }
+    }
+}
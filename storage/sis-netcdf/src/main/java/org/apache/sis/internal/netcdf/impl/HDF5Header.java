@@ -0,0 +1,1554 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.netcdf.impl;
+
+import java.util.Map;
+import java.util.List;
+import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.AbstractMap;
+import java.util.Comparator;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.apache.sis.internal.netcdf.DataType;
+import org.apache.sis.internal.netcdf.Resources;
+import org.apache.sis.internal.storage.io.ChannelDataInput;
+import org.apache.sis.storage.DataStoreContentException;
+import org.apache.sis.util.resources.Errors;
+
+
+/**
+ * Parser of the header of a netCDF-4 file, which is a HDF5 file following some conventions.
+ * This class reads the HDF5 superblock, the object headers of the root group and of its datasets,
+ * then maps the HDF5 objects to netCDF dimensions, variables and attributes as below:
+ *
+ * <ul>
+ *   <li>Datasets having a {@code CLASS="DIMENSION_SCALE"} attribute are netCDF dimensions. Their length is
+ *       the current size of the dataset, and they are unlimited if their maximal size is unlimited. Unless
+ *       their {@code NAME} attribute tells that they are dimensions only, they are also netCDF variables.</li>
+ *   <li>Other datasets are netCDF variables. Their dimensions are given by the object references in their
+ *       {@code DIMENSION_LIST} attribute. Axes without dimension scale get "phony" dimensions.</li>
+ *   <li>Attributes of the root group are the global attributes. Attributes used by the HDF5 dimension scales
+ *       API or reserved by the netCDF library (e.g. {@code _Netcdf4Dimid}) are hidden.</li>
+ * </ul>
+ *
+ * Nested groups, user-defined compound types and variable-length types other than strings are ignored,
+ * since they have no equivalent in the netCDF classic model implemented by {@link ChannelDecoder}.
+ * Object headers of version 1 and 2, compact and dense storage of links and attributes, and symbol tables
+ * of old-style groups are supported. Data can be compact, contiguous or chunked. Chunked data can be indexed
+ * by a version 1 B-tree, or be a single chunk or chunks without index. Other chunk indexes (fixed arrays,
+ * extensible arrays and version 2 B-trees, written only when the HDF5 library is configured for the latest
+ * file format) cause a {@link DataStoreContentException} to be thrown.
+ *
+ * <p>All HDF5 metadata are in little-endian byte order. This class reads them in {@link ByteBuffer}s wrapping
+ * the bytes of each structure, so the byte order of the {@link ChannelDataInput} buffer is not used here.</p>
+ *
+ * <p><b>Reference:</b>
+ * <a href="https://support.hdfgroup.org/HDF5/doc/H5.format.html">HDF5 File Format Specification</a> and
+ * <a href="https://www.unidata.ucar.edu/software/netcdf/docs/file_format_specifications.html">NetCDF-4 format</a>.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+final class HDF5Header {
+    /**
+     * The first 4 bytes of the HDF5 signature, read as a big-endian integer. The full signature is
+     * {@code \211HDF\r\n\032\n}. This is the value that {@link ChannelDecoder} reads in place of the
+     * netCDF magic number.
+     */
+    static final int SIGNATURE = 0x89484446;
+
+    /**
+     * The last 4 bytes of the HDF5 signature, read as a big-endian integer.
+     */
+    static final int SIGNATURE_END = 0x0D0A1A0A;
+
+    /**
+     * Value of addresses that are not defined, for example the address of data that have never been written.
+     */
+    static final long UNDEFINED = -1;
+
+    /**
+     * Signatures of HDF5 structures, as the ASCII characters read as an integer in little-endian byte order.
+     */
+    private static final int OBJECT_HEADER      = ('R' << 24) | ('D' << 16) | ('H' << 8) | 'O',
+                             CONTINUATION_BLOCK = ('K' << 24) | ('H' << 16) | ('C' << 8) | 'O',
+                             BTREE              = ('E' << 24) | ('E' << 16) | ('R' << 8) | 'T',
+                             SYMBOL_NODE        = ('D' << 24) | ('O' << 16) | ('N' << 8) | 'S',
+                             LOCAL_HEAP         = ('P' << 24) | ('A' << 16) | ('E' << 8) | 'H',
+                             GLOBAL_HEAP        = ('L' << 24) | ('O' << 16) | ('C' << 8) | 'G',
+                             BTREE2_HEADER      = ('D' << 24) | ('H' << 16) | ('T' << 8) | 'B',
+                             BTREE2_INTERNAL    = ('N' << 24) | ('I' << 16) | ('T' << 8) | 'B',
+                             BTREE2_LEAF        = ('F' << 24) | ('L' << 16) | ('T' << 8) | 'B';
+
+    /**
+     * Types of header messages used by this class.
+     */
+    private static final int DATASPACE = 0x01, LINK_INFO = 0x02, DATATYPE = 0x03, FILL_VALUE_OLD = 0x04,
+            FILL_VALUE = 0x05, LINK = 0x06, DATA_LAYOUT = 0x08, FILTER_PIPELINE = 0x0B, ATTRIBUTE = 0x0C,
+            CONTINUATION = 0x10, SYMBOL_TABLE = 0x11, ATTRIBUTE_INFO = 0x15;
+
+    /**
+     * Classes of data layout.
+     */
+    private static final int COMPACT = 0, CONTIGUOUS = 1, CHUNKED = 2;
+
+    /**
+     * Types of chunk index. {@link #BTREE_V1} is used by data layout message version 3,
+     * while the other values are the codes declared in data layout message version 4.
+     */
+    private static final int BTREE_V1 = 0, SINGLE_CHUNK = 1, IMPLICIT = 2;
+
+    /**
+     * Classes of datatypes.
+     */
+    private static final int FIXED_POINT = 0, FLOATING_POINT = 1, STRING = 3, REFERENCE = 7, ENUMERATED = 8,
+            VARIABLE_LENGTH = 9;
+
+    /**
+     * Value of the {@code NAME} attribute of dimension scales that are netCDF dimensions but not netCDF variables.
+     */
+    private static final String DIMENSION_ONLY = "This is a netCDF dimension but not a netCDF variable";
+
+    /**
+     * Prefix added by the netCDF library to the name of variables having the same name than
+     * a dimension without being the coordinate variable of that dimension.
+     */
+    private static final String NON_COORDINATE_PREFIX = "_nc4_non_coord_";
+
+    /**
+     * Prefix of the names of dimensions created for axes having no dimension scale.
+     */
+    private static final String PHONY_DIMENSION = "phony_dim_";
+
+    /**
+     * The channel from which to read the file, together with a buffer for transferring data.
+     */
+    private final ChannelDataInput input;
+
+    /**
+     * Position in the input stream of the HDF5 superblock. All addresses in the file are relative to that position.
+     */
+    final long baseAddress;
+
+    /**
+     * Number of bytes used for storing addresses and lengths in the file.
+     */
+    final int offsetSize, lengthSize;
+
+    /**
+     * Objects in the collections of the global heap which have been read, for resolving variable-length data.
+     * Keys are the collection addresses, and values are the objects in the collection indexed by their identifier.
+     */
+    private final Map<Long, Map<Integer,byte[]>> globalHeap;
+
+    /**
+     * The netCDF dimensions, in the order they are found in the root group.
+     */
+    final Dimension[] dimensions;
+
+    /**
+     * The netCDF global attributes, in the order they are found in the root group.
+     */
+    final List<Map.Entry<String,Object>> attributes;
+
+    /**
+     * The netCDF variables, in the order they are found in the root group.
+     */
+    final DataObject[] variables;
+
+    /**
+     * A link from a group to an object, with the link name.
+     */
+    private static final class Link {
+        /** Name of the link. */
+        final String name;
+
+        /** Address of the object header. */
+        final long address;
+
+        /** Creation order of the link, or -1 if not tracked. */
+        final long order;
+
+        /** Creates a new link. */
+        Link(final String name, final long address, final long order) {
+            this.name    = name;
+            this.address = address;
+            this.order   = order;
+        }
+    }
+
+    /**
+     * Description of a HDF5 datatype.
+     */
+    private static final class Datatype {
+        /** One of {@link #FIXED_POINT}, {@link #FLOATING_POINT}, <i>etc.</i> constants. */
+        final int typeClass;
+
+        /** Number of bytes in each element. */
+        final int size;
+
+        /** Whether numbers are in big-endian byte order. */
+        final boolean bigEndian;
+
+        /** Whether integer numbers are signed. */
+        final boolean signed;
+
+        /** Whether this type is a variable-length string (otherwise a sequence if variable-length). */
+        final boolean isString;
+
+        /** The base type of enumerations and variable-length sequences, or {@code null} if none. */
+        final Datatype base;
+
+        /** Creates a new datatype. */
+        Datatype(final int typeClass, final int size, final boolean bigEndian, final boolean signed,
+                 final boolean isString, final Datatype base)
+        {
+            this.typeClass = typeClass;
+            this.size      = size;
+            this.bigEndian = bigEndian;
+            this.signed    = signed;
+            this.isString  = isString;
+            this.base      = base;
+        }
+
+        /**
+         * Returns the netCDF type of data of this HDF5 datatype, or {@code null} if none.
+         */
+        DataType toNetcdf() {
+            switch (typeClass) {
+                case FIXED_POINT: {
+                    switch (size) {
+                        case Byte.BYTES:    return signed ? DataType.BYTE  : DataType.UBYTE;
+                        case Short.BYTES:   return signed ? DataType.SHORT : DataType.USHORT;
+                        case Integer.BYTES: return signed ? DataType.INT   : DataType.UINT;
+                        case Long.BYTES:    return signed ? DataType.INT64 : DataType.UINT64;
+                    }
+                    break;
+                }
+                case FLOATING_POINT: {
+                    switch (size) {
+                        case Float.BYTES:  return DataType.FLOAT;
+                        case Double.BYTES: return DataType.DOUBLE;
+                    }
+                    break;
+                }
+                case STRING:          return (size == 1) ? DataType.CHAR : null;
+                case VARIABLE_LENGTH: return isString ? DataType.STRING : null;
+                case ENUMERATED:      return base.toNetcdf();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Information about a HDF5 object (group or dataset) read from its object header.
+     * After the netCDF interpretation, instances for datasets also contain the netCDF variable properties.
+     */
+    static final class DataObject {
+        /** Address of the object header. */
+        final long address;
+
+        /** Name of the object, or of the netCDF variable. */
+        String name;
+
+        /** Current and maximal size of the dataset in HDF5 order, or {@code null} if none. */
+        long[] shape, maxShape;
+
+        /** The type of dataset elements, or {@code null} if none. */
+        Datatype datatype;
+
+        /** The fill value in the byte order of the datatype, or {@code null} if undefined. */
+        byte[] fillValue;
+
+        /** Whether {@link #fillValue} has been set by the current fill value message (not the old one). */
+        boolean hasNewFillValue;
+
+        /** One of {@link #COMPACT}, {@link #CONTIGUOUS} or {@link #CHUNKED} constants, or -1 if not a dataset. */
+        int layout = -1;
+
+        /** Address of contiguous or compact data, or address of the chunk index. */
+        long dataAddress = UNDEFINED;
+
+        /** Number of bytes of contiguous or compact data, or of the single chunk. */
+        long dataSize;
+
+        /** Size of chunks in HDF5 order, or {@code null} if the data are not chunked. */
+        int[] chunkShape;
+
+        /** One of {@link #BTREE_V1}, {@link #SINGLE_CHUNK} or {@link #IMPLICIT} constants, or other code. */
+        int chunkIndex;
+
+        /** Filter mask of the single chunk. */
+        int singleChunkMask;
+
+        /** Identifiers of filters in the filter pipeline. */
+        int[] filters = new int[0];
+
+        /** The attributes of this object, in the order they are found. */
+        final List<Map.Entry<String,Object>> attributes = new ArrayList<>();
+
+        /** Addresses of the fractal heap and of the B-trees indexing attributes in dense storage. */
+        long attributeHeap = UNDEFINED, attributeNames = UNDEFINED, attributeOrder = UNDEFINED;
+
+        /** The links of this group stored in the object header, in the order they are found. */
+        final List<Link> links = new ArrayList<>();
+
+        /** Addresses of the fractal heap and of the B-trees indexing links in dense storage. */
+        long linkHeap = UNDEFINED, linkNames = UNDEFINED, linkOrder = UNDEFINED;
+
+        /** Addresses of the B-tree and of the local heap of old-style groups. */
+        long symbolTree = UNDEFINED, symbolHeap = UNDEFINED;
+
+        /** If this dataset is a dimension scale, the dimension. */
+        Dimension scale;
+
+        /** The netCDF dimensions of this variable, in netCDF order. */
+        Dimension[] dimensions;
+
+        /** The netCDF type of data, or {@code null} if not supported. */
+        DataType dataType;
+
+        /** The reader of chunked data, or {@code null} if the data are contiguous or can not be read. */
+        ChunkedStorage chunks;
+
+        /** Position in the input stream of contiguous data in little-endian byte order, or {@link #UNDEFINED}. */
+        long offset = UNDEFINED;
+
+        /** Creates a new object for the header at the given address. */
+        DataObject(final long address) {
+            this.address = address;
+        }
+
+        /** Returns the value of the attribute of the given name, or {@code null} if none. */
+        Object attribute(final String key) {
+            for (final Map.Entry<String,Object> entry : attributes) {
+                if (key.equals(entry.getKey())) {
+                    return entry.getValue();
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Reads the HDF5 superblock and the root group, then maps the HDF5 objects to netCDF elements.
+     * The first 4 bytes of the HDF5 signature shall have been read by the caller.
+     *
+     * @param  input  the channel from which to read the file, positioned after the first 4 bytes.
+     * @throws IOException if an error occurred while reading the channel.
+     * @throws DataStoreContentException if the file is malformed or uses unsupported HDF5 features.
+     * @throws ArithmeticException if a dimension or a structure is too large.
+     */
+    HDF5Header(final ChannelDataInput input) throws IOException, DataStoreContentException {
+        this.input  = input;
+        baseAddress = input.getStreamPosition() - Integer.BYTES;
+        globalHeap  = new HashMap<>();
+        ByteBuffer b = read(4, 5);
+        if (b.order(ByteOrder.BIG_ENDIAN).getInt() != SIGNATURE_END) {
+            throw malformed();
+        }
+        final int version = Byte.toUnsignedInt(b.get());
+        final long root;
+        switch (version) {
+            case 0:
+            case 1: {
+                /*
+                 * Version, free-space version, root group version, reserved, shared header version,
+                 * size of offsets, size of lengths, reserved, group leaf and internal node K, flags,
+                 * and in version 1 only indexed storage internal node K followed by reserved bytes.
+                 */
+                b = read(8, 16);
+                offsetSize = Byte.toUnsignedInt(b.get(5));
+                lengthSize = Byte.toUnsignedInt(b.get(6));
+                checkSizes();
+                final long position = (version == 0) ? 24 : 28;
+                b = read(position, 6*offsetSize);
+                b.position(5*offsetSize);       // Skip base, free-space, end-of-file and driver addresses, link name.
+                root = offset(b);               // Object header address in the root group symbol table entry.
+                break;
+            }
+            case 2:
+            case 3: {
+                b = read(9, 2);
+                offsetSize = Byte.toUnsignedInt(b.get());
+                lengthSize = Byte.toUnsignedInt(b.get());
+                checkSizes();
+                b = read(12, 4*offsetSize);
+                b.position(3*offsetSize);       // Skip base, superblock extension and end-of-file addresses.
+                root = offset(b);
+                break;
+            }
+            default: {
+                throw new DataStoreContentException(Errors.format(Errors.Keys.UnsupportedFormatVersion_2, "HDF5", version));
+            }
+        }
+        final DataObject group = readObject(root);
+        attributes = netcdfAttributes(group);
+        /*
+         * Read all objects in the root group. Datasets that are dimension scales define the netCDF dimensions.
+         * Other objects (groups and committed datatypes) are ignored since there is no equivalent in the netCDF
+         * classic model.
+         */
+        final List<Dimension>  dimensions = new ArrayList<>();
+        final List<DataObject> variables  = new ArrayList<>();
+        final Map<Long,Dimension>    scales = new HashMap<>();
+        final Map<Integer,Dimension> dimids = new HashMap<>();
+        for (final Link link : links(group)) {
+            final DataObject object = readObject(link.address);
+            if (object.layout < 0 || object.shape == null) {
+                continue;
+            }
+            object.name = link.name;
+            if ("DIMENSION_SCALE".equals(object.attribute("CLASS"))) {
+                if (object.shape.length != 0) {
+                    final boolean isUnlimited = (object.maxShape != null) && (object.maxShape[0] == UNDEFINED);
+                    final Dimension dim = new Dimension(link.name, dimensionLength(link.name, object.shape[0]), isUnlimited);
+                    dimensions.add(dim);
+                    scales.put(link.address, dim);
+                    final Object id = object.attribute("_Netcdf4Dimid");
+                    if (id instanceof Number) {
+                        dimids.put(((Number) id).intValue(), dim);
+                    }
+                    object.scale = dim;
+                    final Object name = object.attribute("NAME");
+                    if (name instanceof String && ((String) name).startsWith(DIMENSION_ONLY)) {
+                        continue;
+                    }
+                }
+            } else if (link.name.startsWith(NON_COORDINATE_PREFIX)) {
+                object.name = link.name.substring(NON_COORDINATE_PREFIX.length());
+            }
+            variables.add(object);
+        }
+        /*
+         * Now that all dimensions are known, assign the dimensions of each variable
+         * and create the readers of variable data.
+         */
+        final Map<Long,List<Dimension>> phony = new HashMap<>();
+        for (final DataObject variable : variables) {
+            final int rank = variable.shape.length;
+            final Dimension[] dims = new Dimension[rank];
+            final Object list = variable.attribute("DIMENSION_LIST");
+            if (list instanceof long[][]) {
+                final long[][] references = (long[][]) list;
+                for (int i = Math.min(rank, references.length); --i >= 0;) {
+                    if (references[i].length != 0) {
+                        dims[i] = scales.get(references[i][0]);
+                    }
+                }
+            } else if (variable.scale != null) {
+                final Object coordinates = variable.attribute("_Netcdf4Coordinates");
+                if (coordinates instanceof int[] && ((int[]) coordinates).length == rank) {
+                    for (int i=0; i<rank; i++) {
+                        dims[i] = dimids.get(((int[]) coordinates)[i]);
+                    }
+                } else if (rank == 1) {
+                    dims[0] = variable.scale;
+                }
+            }
+            /*
+             * Axes without dimension scales get phony dimensions, shared by all variables
+             * having an axis of the same length (but used at most once per variable).
+             */
+            for (int i=0; i<rank; i++) {
+                if (dims[i] == null) {
+                    final List<Dimension> candidates = phony.computeIfAbsent(variable.shape[i], (k) -> new ArrayList<>());
+                    for (final Dimension candidate : candidates) {
+                        if (!contains(dims, candidate)) {
+                            dims[i] = candidate;
+                            break;
+                        }
+                    }
+                    if (dims[i] == null) {
+                        final String name = PHONY_DIMENSION + dimensions.size();
+                        dims[i] = new Dimension(name, dimensionLength(name, variable.shape[i]), false);
+                        dimensions.add(dims[i]);
+                        candidates.add(dims[i]);
+                    }
+                }
+            }
+            variable.dimensions = dims;
+        }
+        /*
+         * The length of an unlimited dimension is the largest size of all variables along that dimension.
+         * It may be greater than the size of the dimension scale, in particular if the dimension scale
+         * is a dimension without variable.
+         */
+        for (int j=0; j<dimensions.size(); j++) {
+            final Dimension dim = dimensions.get(j);
+            if (dim.isUnlimited) {
+                long length = dim.length();
+                for (final DataObject variable : variables) {
+                    for (int i=0; i<variable.dimensions.length; i++) {
+                        if (variable.dimensions[i] == dim) {
+                            length = Math.max(length, variable.shape[i]);
+                        }
+                    }
+                }
+                if (length != dim.length()) {
+                    final Dimension replacement = new Dimension(dim.name, dimensionLength(dim.name, length), true);
+                    dimensions.set(j, replacement);
+                    for (final DataObject variable : variables) {
+                        for (int i=0; i<variable.dimensions.length; i++) {
+                            if (variable.dimensions[i] == dim) {
+                                variable.dimensions[i] = replacement;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        for (final DataObject variable : variables) {
+            variable.dataType = (variable.datatype != null) ? variable.datatype.toNetcdf() : null;
+            if (variable.dataType != null && variable.dataType.size() != 0) {
+                createStorage(variable);
+            }
+        }
+        this.dimensions = dimensions.toArray(new Dimension[dimensions.size()]);
+        this.variables  = variables .toArray(new DataObject[variables.size()]);
+        for (final DataObject variable : variables) {
+            final List<Map.Entry<String,Object>> visible = netcdfAttributes(variable);
+            variable.attributes.clear();
+            variable.attributes.addAll(visible);
+        }
+    }
+
+    /**
+     * Returns the given dimension length as an unsigned integer.
+     *
+     * @throws ArithmeticException if the given length can not be stored as an unsigned integer.
+     */
+    private static int dimensionLength(final String name, final long length) {
+        if ((length & ~0xFFFFFFFFL) != 0) {
+            throw new ArithmeticException(Errors.format(Errors.Keys.ValueOutOfRange_4, name, 0, 0xFFFFFFFFL, length));
+        }
+        return (int) length;
+    }
+
+    /**
+     * Returns {@code true} if the given array contains the given dimension.
+     */
+    private static boolean contains(final Dimension[] dimensions, final Dimension dim) {
+        for (final Dimension d : dimensions) {
+            if (d == dim) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the attributes of the given object, omitting the attributes reserved by the HDF5 dimension scales API
+     * and by the netCDF library for mapping the netCDF model to HDF5.
+     */
+    private static List<Map.Entry<String,Object>> netcdfAttributes(final DataObject object) {
+        final List<Map.Entry<String,Object>> visible = new ArrayList<>(object.attributes.size());
+        for (final Map.Entry<String,Object> entry : object.attributes) {
+            switch (entry.getKey()) {
+                case "CLASS":
+                case "NAME":
+                case "DIMENSION_LIST":
+                case "REFERENCE_LIST":
+                case "_Netcdf4Dimid":
+                case "_Netcdf4Coordinates":
+                case "_nc3_strict":
+                case "_NCProperties": continue;
+            }
+            visible.add(entry);
+        }
+        return visible;
+    }
+
+    /**
+     * Creates the reader of the data of the given netCDF variable. This method sets either the
+     * {@link DataObject#offset} field for data that {@link org.apache.sis.internal.storage.io.HyperRectangleReader}
+     * can read directly, or the {@link DataObject#chunks} field otherwise.
+     */
+    private void createStorage(final DataObject variable) throws IOException, DataStoreContentException {
+        final int      rank  = variable.shape.length;
+        final long[]   size  = new long[rank];
+        final ByteOrder order = variable.datatype.bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+        for (int i=0; i<rank; i++) {
+            size[i] = variable.shape[(rank - 1) - i];
+        }
+        final int[] chunkSize;
+        final int[] filters;
+        switch (variable.layout) {
+            case CHUNKED: {
+                chunkSize = new int[rank];
+                for (int i=0; i<rank; i++) {
+                    chunkSize[i] = variable.chunkShape[(rank - 1) - i];
+                }
+                filters = variable.filters;
+                break;
+            }
+            case CONTIGUOUS: {
+                if (variable.dataAddress != UNDEFINED && order == ByteOrder.LITTLE_ENDIAN && rank != 0) {
+                    variable.offset = baseAddress + variable.dataAddress;
+                    return;
+                }
+                // Otherwise, handle as a single chunk.
+            }
+            // Fall through
+            default: {
+                chunkSize = new int[rank];
+                for (int i=0; i<rank; i++) {
+                    chunkSize[i] = Math.toIntExact(Math.max(size[i], 1));
+                }
+                filters = new int[0];
+                break;
+            }
+        }
+        final ChunkedStorage chunks = new ChunkedStorage(input, baseAddress, variable.dataType, order,
+                                                         size, chunkSize, filters, variable.fillValue);
+        int chunkBytes = variable.dataType.size();
+        for (final int s : chunkSize) {
+            chunkBytes = Math.multiplyExact(chunkBytes, s);
+        }
+        final long[] origin = new long[rank];
+        if (variable.dataAddress != UNDEFINED) {
+            switch (variable.layout) {
+                case COMPACT:
+                case CONTIGUOUS: {
+                    chunks.addChunk(origin, variable.dataAddress, Math.toIntExact(variable.dataSize), 0);
+                    break;
+                }
+                default: {
+                    switch (variable.chunkIndex) {
+                        case BTREE_V1: {
+                            chunks.readIndex(variable.dataAddress, offsetSize);
+                            break;
+                        }
+                        case SINGLE_CHUNK: {
+                            final int stored = (variable.dataSize >= 0) ? Math.toIntExact(variable.dataSize) : chunkBytes;
+                            chunks.addChunk(origin, variable.dataAddress, stored, variable.singleChunkMask);
+                            break;
+                        }
+                        case IMPLICIT: {
+                            /*
+                             * Chunks are stored without filter in row-major order of the chunk grid. The chunk grid
+                             * covers the maximal size of the dataset, which is the current size for implicit index.
+                             */
+                            long address = variable.dataAddress;
+                            final long[] chunk = new long[rank];
+next:                       do {
+                                chunks.addChunk(chunk, address, chunkBytes, 0);
+                                address += chunkBytes;
+                                for (int i=rank; --i >= 0;) {
+                                    chunk[i] += variable.chunkShape[i];
+                                    if (chunk[i] < variable.shape[i]) continue next;
+                                    chunk[i] = 0;
+                                }
+                                break;
+                            } while (rank != 0);
+                            break;
+                        }
+                        default: {
+                            throw unsupported("chunk index type " + variable.chunkIndex);
+                        }
+                    }
+                }
+            }
+        }
+        variable.chunks = chunks;
+    }
+
+    /**
+     * Verifies that the sizes of offsets and lengths are supported.
+     */
+    private void checkSizes() throws DataStoreContentException {
+        for (final int size : new int[] {offsetSize, lengthSize}) {
+            switch (size) {
+                case Short.BYTES:
+                case Integer.BYTES:
+                case Long.BYTES: break;
+                default: throw malformed();
+            }
+        }
+    }
+
+    /**
+     * Returns the exception to throw if the file is malformed.
+     */
+    final DataStoreContentException malformed() {
+        return new DataStoreContentException(Errors.format(Errors.Keys.UnexpectedFileFormat_2, "HDF5", input.filename));
+    }
+
+    /**
+     * Returns the exception to throw if the file uses an HDF5 feature which is not supported.
+     *
+     * @param  feature  short description of the unsupported feature.
+     */
+    final DataStoreContentException unsupported(final String feature) {
+        return new DataStoreContentException(Resources.format(Resources.Keys.UnsupportedHDF5Feature_2, input.filename, feature));
+    }
+
+    /**
+     * Reads the given number of bytes at the given address.
+     *
+     * @param  address  address of the first byte to read, relative to the superblock.
+     * @param  length   number of bytes to read.
+     * @return a buffer in little-endian byte order wrapping an array of exactly {@code length} bytes.
+     */
+    final ByteBuffer read(final long address, final int length) throws IOException {
+        input.seek(Math.addExact(baseAddress, address));
+        return ByteBuffer.wrap(input.readBytes(length)).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Reads an unsigned integer stored on the given number of bytes in little-endian order.
+     */
+    private static long unsigned(final ByteBuffer b, final int size) {
+        long value = 0;
+        for (int i=0; i<size; i++) {
+            value |= Byte.toUnsignedLong(b.get()) << (i * Byte.SIZE);
+        }
+        return value;
+    }
+
+    /**
+     * Reads an unsigned integer stored on the given number of bytes, with the "all bits set" value mapped to -1.
+     */
+    private static long undefinedIfAllSet(final ByteBuffer b, final int size) {
+        final long value = unsigned(b, size);
+        return (size < Long.BYTES && value == (1L << (size * Byte.SIZE)) - 1) ? UNDEFINED : value;
+    }
+
+    /**
+     * Reads an address, which is {@link #UNDEFINED} if all bits are set.
+     */
+    final long offset(final ByteBuffer b) {
+        return undefinedIfAllSet(b, offsetSize);
+    }
+
+    /**
+     * Reads a length, which is {@link #UNDEFINED} if all bits are set (used for unlimited dimension sizes).
+     */
+    final long length(final ByteBuffer b) {
+        return undefinedIfAllSet(b, lengthSize);
+    }
+
+    /**
+     * Returns a view of the given number of bytes starting at the current position of the given buffer,
+     * then advances the position of the given buffer after those bytes.
+     */
+    private ByteBuffer slice(final ByteBuffer b, final int length) throws DataStoreContentException {
+        if (length < 0 || length > b.remaining()) {
+            throw malformed();
+        }
+        final int start = b.position();
+        final ByteBuffer view = ((ByteBuffer) b.duplicate().limit(start + length)).slice().order(ByteOrder.LITTLE_ENDIAN);
+        b.position(start + length);
+        return view;
+    }
+
+    /**
+     * Returns a copy of the given number of bytes starting at the current position of the given buffer,
+     * then advances the position of the given buffer after those bytes.
+     */
+    private byte[] bytes(final ByteBuffer b, final int length) throws DataStoreContentException {
+        if (length < 0 || length > b.remaining()) {
+            throw malformed();
+        }
+        final byte[] bytes = new byte[length];
+        b.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Reads a string of the given number of bytes, stopping at the first null character.
+     */
+    private String string(final ByteBuffer b, final int length) throws DataStoreContentException {
+        final ByteBuffer bytes = slice(b, length);
+        int n = 0;
+        while (n < length && bytes.get(n) != 0) n++;
+        return new String(bytes.array(), bytes.arrayOffset(), n, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the object header at the given address.
+     *
+     * @param  address  address of the object header.
+     * @return the information found in the header messages.
+     */
+    private DataObject readObject(final long address) throws IOException, DataStoreContentException {
+        final DataObject object = new DataObject(address);
+        final List<long[]> continuations = new ArrayList<>();
+        ByteBuffer b = read(address, 6);
+        final boolean isVersion2 = (b.getInt() == OBJECT_HEADER);
+        boolean hasCreationOrder = false;
+        if (isVersion2) {
+            /*
+             * Version 2: signature, version, flags, optional times and attribute phase change values,
+             * then size of the first chunk encoded on 1, 2, 4 or 8 bytes depending on the flags.
+             */
+            if (b.get() != 2) throw malformed();
+            final int flags = Byte.toUnsignedInt(b.get());
+            hasCreationOrder = (flags & 0x04) != 0;
+            long position = address + 6;
+            if ((flags & 0x20) != 0) position += 4 * Integer.BYTES;
+            if ((flags & 0x10) != 0) position += 2 * Short.BYTES;
+            final int sizeLength = 1 << (flags & 3);
+            final long size = unsigned(read(position, sizeLength), sizeLength);
+            position += sizeLength;
+            readMessages(object, position, read(position, Math.toIntExact(size)), true, hasCreationOrder, continuations);
+        } else {
+            /*
+             * Version 1: version, reserved, number of messages, reference count, header size,
+             * then padding for aligning the messages on a multiple of 8 bytes.
+             */
+            if (b.get(0) != 1) throw malformed();
+            b = read(address, 16);
+            final long size = Integer.toUnsignedLong(b.getInt(8));
+            readMessages(object, address + 16, read(address + 16, Math.toIntExact(size)), false, false, continuations);
+        }
+        for (int i=0; i<continuations.size(); i++) {        // The list may grow during iteration.
+            final long[] block = continuations.get(i);
+            long position = block[0];
+            int  length   = Math.toIntExact(block[1]);
+            if (isVersion2) {
+                if (read(position, Integer.BYTES).getInt() != CONTINUATION_BLOCK) {
+                    throw malformed();
+                }
+                position += Integer.BYTES;
+                length   -= 2 * Integer.BYTES;              // Signature and checksum.
+            }
+            readMessages(object, position, read(position, length), isVersion2, hasCreationOrder, continuations);
+        }
+        /*
+         * Links and attributes in dense storage are read after all messages
+         * because they are stored outside the object header.
+         */
+        if (object.attributeHeap != UNDEFINED) {
+            final FractalHeap heap = new FractalHeap(this, object.attributeHeap);
+            final boolean byOrder = (object.attributeOrder != UNDEFINED);
+            final List<Map.Entry<String,Object>> dense = new ArrayList<>();
+            for (final ByteBuffer record : btree2(byOrder ? object.attributeOrder : object.attributeNames)) {
+                final byte[] id = new byte[8];
+                record.get(id);
+                if ((record.get() & 1) != 0) {
+                    throw unsupported("shared attribute");
+                }
+                attribute(object, ByteBuffer.wrap(heap.get(id)).order(ByteOrder.LITTLE_ENDIAN), dense);
+            }
+            if (!byOrder) {
+                dense.sort(Map.Entry.comparingByKey());
+            }
+            object.attributes.addAll(dense);
+        }
+        return object;
+    }
+
+    /**
+     * Reads all messages in a block of an object header.
+     *
+     * @param  object            where to store the information found in the messages.
+     * @param  position          address of the first byte of the block.
+     * @param  block             the block content.
+     * @param  isVersion2        whether the object header is version 2.
+     * @param  hasCreationOrder  whether the message headers contain the creation order (version 2 only).
+     * @param  continuations     where to add the (address, length) of continuation blocks.
+     */
+    private void readMessages(final DataObject object, final long position, final ByteBuffer block,
+            final boolean isVersion2, final boolean hasCreationOrder, final List<long[]> continuations)
+            throws IOException, DataStoreContentException
+    {
+        final int headerSize = isVersion2 ? (hasCreationOrder ? 6 : 4) : 8;
+        while (block.remaining() >= headerSize) {
+            final int type, size, flags;
+            if (isVersion2) {
+                type  = Byte.toUnsignedInt(block.get());
+                size  = Short.toUnsignedInt(block.getShort());
+                flags = Byte.toUnsignedInt(block.get());
+                if (hasCreationOrder) block.getShort();
+            } else {
+                type  = Short.toUnsignedInt(block.getShort());
+                size  = Short.toUnsignedInt(block.getShort());
+                flags = Byte.toUnsignedInt(block.get());
+                block.position(block.position() + 3);
+            }
+            final long dataAddress = position + block.position();
+            ByteBuffer data = slice(block, size);
+            if ((flags & 0x02) != 0) {
+                /*
+                 * Shared message: the message is stored in another object header. This is used
+                 * for committed datatypes, which we handle. Other shared messages are rare.
+                 */
+                if (type != DATATYPE) {
+                    throw unsupported("shared message");
+                }
+                object.datatype = readObject(sharedAddress(data)).datatype;
+                continue;
+            }
+            switch (type) {
+                case DATASPACE: {
+                    dataspace(object, data);
+                    break;
+                }
+                case DATATYPE: {
+                    object.datatype = datatype(data);
+                    break;
+                }
+                case FILL_VALUE_OLD: {
+                    if (!object.hasNewFillValue) {
+                        final int n = data.getInt();
+                        if (n > 0) object.fillValue = bytes(data, n);
+                    }
+                    break;
+                }
+                case FILL_VALUE: {
+                    fillValue(object, data);
+                    break;
+                }
+                case DATA_LAYOUT: {
+                    layout(object, data, dataAddress);
+                    break;
+                }
+                case FILTER_PIPELINE: {
+                    filters(object, data);
+                    break;
+                }
+                case ATTRIBUTE: {
+                    attribute(object, data, object.attributes);
+                    break;
+                }
+                case ATTRIBUTE_INFO: {
+                    if (data.get() != 0) throw malformed();
+                    final int f = data.get();
+                    if ((f & 1) != 0) data.getShort();              // Maximum creation index.
+                    object.attributeHeap  = offset(data);
+                    object.attributeNames = offset(data);
+                    if ((f & 2) != 0) object.attributeOrder = offset(data);
+                    break;
+                }
+                case LINK: {
+                    link(object, data);
+                    break;
+                }
+                case LINK_INFO: {
+                    if (data.get() != 0) throw malformed();
+                    final int f = data.get();
+                    if ((f & 1) != 0) data.getLong();               // Maximum creation index.
+                    object.linkHeap  = offset(data);
+                    object.linkNames = offset(data);
+                    if ((f & 2) != 0) object.linkOrder = offset(data);
+                    break;
+                }
+                case SYMBOL_TABLE: {
+                    object.symbolTree = offset(data);
+                    object.symbolHeap = offset(data);
+                    break;
+                }
+                case CONTINUATION: {
+                    continuations.add(new long[] {offset(data), length(data)});
+                    break;
+                }
+                // Other messages (modification time, comments, etc.) are ignored.
+            }
+        }
+    }
+
+    /**
+     * Returns the address of the object header containing a shared message.
+     */
+    private long sharedAddress(final ByteBuffer data) throws DataStoreContentException {
+        final int version = data.get();
+        final int type    = data.get();
+        switch (version) {
+            case 1: data.position(data.position() + 6); break;      // Reserved bytes.
+            case 2: break;
+            case 3: if (type == 2) break;                           // Otherwise the message is in the shared message heap.
+                    throw unsupported("shared message heap");
+            default: throw malformed();
+        }
+        return offset(data);
+    }
+
+    /**
+     * Decodes a dataspace message: the rank and the current and maximal size along each dimension.
+     * Scalar dataspaces have a rank of 0. Null dataspaces (no element) have a {@code null} shape.
+     */
+    private void dataspace(final DataObject object, final ByteBuffer data) throws DataStoreContentException {
+        final int version = data.get();
+        final int rank    = Byte.toUnsignedInt(data.get());
+        final int flags   = data.get();
+        switch (version) {
+            case 1: data.position(data.position() + 5); break;      // Reserved bytes.
+            case 2: if (data.get() == 2) return; break;             // Null dataspace.
+            default: throw malformed();
+        }
+        final long[] shape = new long[rank];
+        for (int i=0; i<rank; i++) {
+            shape[i] = length(data);
+        }
+        if ((flags & 1) != 0) {
+            final long[] max = new long[rank];
+            for (int i=0; i<rank; i++) {
+                max[i] = length(data);
+            }
+            object.maxShape = max;
+        }
+        object.shape = shape;
+    }
+
+    /**
+     * Decodes a datatype message. The properties needed for netCDF types are decoded, and the properties
+     * of other types are ignored. The base type of enumerations and variable-length types is decoded
+     * recursively, since it is stored before the other properties of those types.
+     */
+    private Datatype datatype(final ByteBuffer data) throws DataStoreContentException {
+        final int classAndVersion = Byte.toUnsignedInt(data.get());
+        final int bits = Byte.toUnsignedInt(data.get())
+                      | (Byte.toUnsignedInt(data.get()) <<  8)
+                      | (Byte.toUnsignedInt(data.get()) << 16);
+        final int size = data.getInt();
+        final int typeClass = classAndVersion & 0x0F;
+        final boolean bigEndian = (bits & 1) != 0;
+        switch (typeClass) {
+            case FIXED_POINT: {
+                return new Datatype(typeClass, size, bigEndian, (bits & 0x08) != 0, false, null);
+            }
+            case FLOATING_POINT: {
+                if ((bits & 0x40) != 0) {
+                    throw unsupported("VAX floating point");
+                }
+                return new Datatype(typeClass, size, bigEndian, true, false, null);
+            }
+            case ENUMERATED: {
+                return new Datatype(typeClass, size, false, false, false, datatype(data));
+            }
+            case VARIABLE_LENGTH: {
+                return new Datatype(typeClass, size, false, false, (bits & 0x0F) == 1, datatype(data));
+            }
+            default: {
+                return new Datatype(typeClass, size, false, false, typeClass == STRING, null);
+            }
+        }
+    }
+
+    /**
+     * Decodes a fill value message. Only the value is retained; allocation and write times are ignored.
+     */
+    private void fillValue(final DataObject object, final ByteBuffer data) throws DataStoreContentException {
+        final int version = data.get();
+        final boolean defined;
+        switch (version) {
+            case 1:
+            case 2: {
+                data.get();                                         // Space allocation time.
+                data.get();                                         // Fill value write time.
+                defined = (data.get() != 0) || version == 1;        // Version 1 always has the size field.
+                break;
+            }
+            case 3: {
+                defined = (data.get() & 0x20) != 0;
+                break;
+            }
+            default: throw malformed();
+        }
+        object.hasNewFillValue = true;
+        object.fillValue = null;
+        if (defined && data.remaining() >= Integer.BYTES) {
+            final int n = data.getInt();
+            if (n > 0) {
+                object.fillValue = bytes(data, n);
+            }
+        }
+    }
+
+    /**
+     * Decodes a data layout message.
+     *
+     * @param  dataAddress  address of the message data, used for locating compact data.
+     */
+    private void layout(final DataObject object, final ByteBuffer data, final long dataAddress)
+            throws DataStoreContentException
+    {
+        final int version = data.get();
+        if (version != 3 && version != 4) {
+            throw unsupported("data layout version " + version);
+        }
+        final int layout = data.get();
+        switch (layout) {
+            case COMPACT: {
+                final int size = Short.toUnsignedInt(data.getShort());
+                object.dataAddress = dataAddress + data.position();
+                object.dataSize    = size;
+                break;
+            }
+            case CONTIGUOUS: {
+                object.dataAddress = offset(data);
+                object.dataSize    = length(data);
+                break;
+            }
+            case CHUNKED: {
+                final int rank, flags, dimSize;
+                if (version == 3) {
+                    flags   = 0;
+                    rank    = Byte.toUnsignedInt(data.get()) - 1;
+                    object.dataAddress = offset(data);
+                    object.chunkIndex  = BTREE_V1;
+                    dimSize = Integer.BYTES;
+                } else {
+                    flags   = data.get();
+                    rank    = Byte.toUnsignedInt(data.get()) - 1;
+                    dimSize = data.get();
+                }
+                if (rank < 0) throw malformed();
+                final int[] chunk = new int[rank];
+                for (int i=0; i<rank; i++) {
+                    chunk[i] = Math.toIntExact(unsigned(data, dimSize));
+                    if (chunk[i] <= 0) throw malformed();
+                }
+                unsigned(data, dimSize);                            // Size of a dataset element.
+                object.chunkShape = chunk;
+                if (version != 3) {
+                    object.chunkIndex = data.get();
+                    switch (object.chunkIndex) {
+                        case SINGLE_CHUNK: {
+                            if ((flags & 2) != 0) {
+                                object.dataSize = length(data);
+                                object.singleChunkMask = data.getInt();
+                            } else {
+                                object.dataSize = -1;
+                            }
+                            break;
+                        }
+                        case IMPLICIT: break;
+                        default: {
+                            throw unsupported("chunk index type " + object.chunkIndex);
+                        }
+                    }
+                    object.dataAddress = offset(data);
+                }
+                break;
+            }
+            default: throw unsupported("virtual dataset");
+        }
+        object.layout = layout;
+    }
+
+    /**
+     * Decodes a filter pipeline message. Only the filter identifiers are retained,
+     * since the parameters of supported filters are not needed for decompression.
+     */
+    private void filters(final DataObject object, final ByteBuffer data) throws DataStoreContentException {
+        final int version = data.get();
+        final int count   = Byte.toUnsignedInt(data.get());
+        if (version == 1) {
+            data.position(data.position() + 6);                     // Reserved bytes.
+        } else if (version != 2) {
+            throw malformed();
+        }
+        final int[] filters = new int[count];
+        for (int i=0; i<count; i++) {
+            final int id = Short.toUnsignedInt(data.getShort());
+            int nameLength = 0;
+            if (version == 1 || id >= 256) {
+                nameLength = Short.toUnsignedInt(data.getShort());
+            }
+            data.getShort();                                        // Flags.
+            final int numValues = Short.toUnsignedInt(data.getShort());
+            if (version == 1) {
+                nameLength = (nameLength + 7) & ~7;                 // Padded to a multiple of 8.
+            }
+            int skip = nameLength + numValues * Integer.BYTES;
+            if (version == 1 && (numValues & 1) != 0) {
+                skip += Integer.BYTES;                              // Padding.
+            }
+            slice(data, skip);
+            filters[i] = id;
+        }
+        object.filters = filters;
+    }
+
+    /**
+     * Decodes a link message. Only hard links are retained.
+     */
+    private void link(final DataObject object, final ByteBuffer data) throws DataStoreContentException {
+        if (data.get() != 1) throw malformed();
+        final int flags = data.get();
+        final int type  = ((flags & 0x08) != 0) ? data.get() : 0;
+        final long order = ((flags & 0x04) != 0) ? data.getLong() : -1;
+        if ((flags & 0x10) != 0) data.get();                        // Character set.
+        final int length = Math.toIntExact(unsigned(data, 1 << (flags & 3)));
+        final String name = string(data, length);
+        if (type == 0) {
+            object.links.add(new Link(name, offset(data), order));
+        }
+    }
+
+    /**
+     * Returns the links of the given group, from link messages, from dense storage or from a symbol table.
+     */
+    private List<Link> links(final DataObject group) throws IOException, DataStoreContentException {
+        final List<Link> links = new ArrayList<>(group.links);
+        if (group.linkHeap != UNDEFINED) {
+            final FractalHeap heap = new FractalHeap(this, group.linkHeap);
+            final boolean byOrder = (group.linkOrder != UNDEFINED);
+            for (final ByteBuffer record : btree2(byOrder ? group.linkOrder : group.linkNames)) {
+                record.position(byOrder ? Long.BYTES : Integer.BYTES);      // Skip creation order or name hash.
+                final byte[] id = new byte[record.remaining()];
+                record.get(id);
+                final DataObject holder = new DataObject(UNDEFINED);
+                link(holder, ByteBuffer.wrap(heap.get(id)).order(ByteOrder.LITTLE_ENDIAN));
+                links.addAll(holder.links);
+            }
+            if (!byOrder) {
+                links.sort(Comparator.comparing((link) -> link.name));
+            }
+        }
+        if (group.symbolTree != UNDEFINED) {
+            symbolTable(group.symbolTree, localHeap(group.symbolHeap), links);
+        }
+        if (!links.isEmpty() && links.stream().allMatch((link) -> link.order >= 0)) {
+            links.sort(Comparator.comparingLong((link) -> link.order));
+        }
+        return links;
+    }
+
+    /**
+     * Reads the data segment of the local heap at the given address. Local heaps contain the link names of old-style groups.
+     */
+    private ByteBuffer localHeap(final long address) throws IOException, DataStoreContentException {
+        final ByteBuffer b = read(address, 8 + 2*lengthSize + offsetSize);
+        if (b.getInt() != LOCAL_HEAP) throw malformed();
+        b.position(8);                                              // Skip version and reserved bytes.
+        final long size = length(b);
+        length(b);                                                  // Offset to head of free-list.
+        return read(offset(b), Math.toIntExact(size));
+    }
+
+    /**
+     * Reads the version 1 B-tree of an old-style group and the symbol table nodes referenced by the tree leaves.
+     *
+     * @param  address  address of the B-tree node.
+     * @param  heap     data segment of the local heap containing the link names.
+     * @param  links    where to add the links.
+     */
+    private void symbolTable(final long address, final ByteBuffer heap, final List<Link> links)
+            throws IOException, DataStoreContentException
+    {
+        ByteBuffer b = read(address, 8);
+        if (b.getInt() != BTREE || b.get() != 0) throw malformed();
+        final int level   = b.get();
+        final int entries = Short.toUnsignedInt(b.getShort());
+        b = read(address + 8 + 2*offsetSize, entries * (lengthSize + offsetSize) + lengthSize);
+        final long[] children = new long[entries];
+        for (int i=0; i<entries; i++) {
+            length(b);                                              // Key: offset in local heap of the largest name.
+            children[i] = offset(b);
+        }
+        for (final long child : children) {
+            if (level != 0) {
+                symbolTable(child, heap, links);
+                continue;
+            }
+            b = read(child, 8);
+            if (b.getInt() != SYMBOL_NODE) throw malformed();
+            final int count = Short.toUnsignedInt(b.getShort(6));
+            final int entrySize = 2*offsetSize + 24;
+            b = read(child + 8, count * entrySize);
+            for (int i=0; i<count; i++) {
+                b.position(i * entrySize);
+                final int nameOffset = Math.toIntExact(offset(b));
+                final long header = offset(b);
+                final ByteBuffer name = heap.duplicate();
+                name.position(nameOffset);
+                int end = nameOffset;
+                while (end < name.limit() && name.get(end) != 0) end++;
+                links.add(new Link(string(name, end - nameOffset), header, -1));
+            }
+        }
+    }
+
+    /**
+     * Returns all records of the version 2 B-tree at the given address, in increasing order of their keys.
+     * Each record is returned as a buffer in little-endian byte order positioned at the record start.
+     */
+    private List<ByteBuffer> btree2(final long address) throws IOException, DataStoreContentException {
+        final List<ByteBuffer> records = new ArrayList<>();
+        if (address == UNDEFINED) {
+            return records;
+        }
+        final ByteBuffer b = read(address, 22 + offsetSize + lengthSize);
+        if (b.getInt() != BTREE2_HEADER || b.get() != 0) throw malformed();
+        b.get();                                                    // Type of records.
+        final int nodeSize   = b.getInt();
+        final int recordSize = Short.toUnsignedInt(b.getShort());
+        final int depth      = Short.toUnsignedInt(b.getShort());
+        b.getShort();                                               // Split and merge percentages.
+        final long root      = offset(b);
+        final int  rootCount = Short.toUnsignedInt(b.getShort());
+        if (recordSize == 0 || nodeSize <= 10) throw malformed();
+        /*
+         * Compute the number of bytes used for encoding the number of records in child nodes,
+         * as done by the HDF5 library. Those sizes depend on the maximal number of records.
+         */
+        final long leafMax = (nodeSize - 10) / recordSize;
+        final int  countSize = encodedSize(leafMax);
+        final int[] totalSize = new int[depth + 1];
+        long max = leafMax;
+        for (int d=1; d<=depth; d++) {
+            final int pointerSize = offsetSize + countSize + (d > 1 ? totalSize[d-1] : 0);
+            final long internalMax = (nodeSize - (10 + pointerSize)) / (recordSize + pointerSize);
+            max = (internalMax + 1) * max + internalMax;
+            totalSize[d] = encodedSize(max);
+        }
+        if (root != UNDEFINED) {
+            btree2(root, rootCount, depth, recordSize, countSize, totalSize, records);
+        }
+        return records;
+    }
+
+    /**
+     * Returns the number of bytes needed for encoding the given maximal value, as done by the HDF5 library.
+     */
+    private static int encodedSize(final long max) {
+        return (Long.SIZE - 1 - Long.numberOfLeadingZeros(max)) / Byte.SIZE + 1;
+    }
+
+    /**
+     * Adds the records of the given version 2 B-tree node and of its children.
+     */
+    private void btree2(final long address, final int count, final int depth, final int recordSize,
+            final int countSize, final int[] totalSize, final List<ByteBuffer> records)
+            throws IOException, DataStoreContentException
+    {
+        if (depth == 0) {
+            final ByteBuffer b = read(address, 6 + count * recordSize);
+            if (b.getInt() != BTREE2_LEAF) throw malformed();
+            b.position(6);
+            for (int i=0; i<count; i++) {
+                records.add(slice(b, recordSize));
+            }
+            return;
+        }
+        final int pointerSize = offsetSize + countSize + (depth > 1 ? totalSize[depth-1] : 0);
+        final ByteBuffer b = read(address, 6 + count * recordSize + (count + 1) * pointerSize);
+        if (b.getInt() != BTREE2_INTERNAL) throw malformed();
+        b.position(6);
+        final ByteBuffer[] keys = new ByteBuffer[count];
+        for (int i=0; i<count; i++) {
+            keys[i] = slice(b, recordSize);
+        }
+        final long[] children = new long[count + 1];
+        final int [] counts   = new int [count + 1];
+        for (int i=0; i<=count; i++) {
+            children[i] = offset(b);
+            counts  [i] = Math.toIntExact(unsigned(b, countSize));
+            if (depth > 1) unsigned(b, totalSize[depth-1]);
+        }
+        for (int i=0; i<=count; i++) {
+            btree2(children[i], counts[i], depth - 1, recordSize, countSize, totalSize, records);
+            if (i < count) records.add(keys[i]);
+        }
+    }
+
+    /**
+     * Decodes an attribute message and adds the attribute to the given list.
+     * Attributes of types that can not be represented in the netCDF classic model are ignored.
+     */
+    private void attribute(final DataObject object, final ByteBuffer data, final List<Map.Entry<String,Object>> addTo)
+            throws IOException, DataStoreContentException
+    {
+        final int version = data.get();
+        final int flags   = data.get();
+        final int nameSize     = Short.toUnsignedInt(data.getShort());
+        final int datatypeSize = Short.toUnsignedInt(data.getShort());
+        final int spaceSize    = Short.toUnsignedInt(data.getShort());
+        final int padding;
+        switch (version) {
+            case 1:  padding = 7; break;                            // Fields padded to a multiple of 8 bytes.
+            case 2:  padding = 0; break;
+            case 3:  padding = 0; data.get(); break;                // Character set of the name.
+            default: throw malformed();
+        }
+        final String name = string(data, (nameSize + padding) & ~padding);
+        final ByteBuffer typeData  = slice(data, (datatypeSize + padding) & ~padding);
+        final ByteBuffer spaceData = slice(data, (spaceSize    + padding) & ~padding);
+        final Datatype type = ((flags & 1) != 0) ? readObject(sharedAddress(typeData)).datatype : datatype(typeData);
+        if ((flags & 2) != 0) {
+            throw unsupported("shared dataspace");
+        }
+        final DataObject space = new DataObject(UNDEFINED);
+        dataspace(space, spaceData);
+        if (type == null || space.shape == null) {
+            return;
+        }
+        long count = 1;
+        for (final long s : space.shape) {
+            count = Math.multiplyExact(count, s);
+        }
+        if (count == 0 || count > Integer.MAX_VALUE) {
+            return;
+        }
+        final Object value = decode(type, (int) count, data);
+        if (value != null) {
+            addTo.add(new AbstractMap.SimpleEntry<>(name, value));
+        }
+    }
+
+    /**
+     * Decodes the given number of values of the given type. Values are returned in the same way than
+     * {@link ChannelDecoder} for attributes of netCDF classic files: as a {@link String} for characters,
+     * as a {@link Number} for single values, or as an array of a primitive type otherwise.
+     * Unsigned single values are widened to the next larger type.
+     *
+     * @return the decoded values, or {@code null} if the type is not supported.
+     */
+    private Object decode(final Datatype type, final int count, final ByteBuffer data)
+            throws IOException, DataStoreContentException
+    {
+        final ByteBuffer b = slice(data, Math.multiplyExact(count, type.size)).order(
+                type.bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+        switch (type.typeClass) {
+            case FIXED_POINT: {
+                switch (type.size) {
+                    case Byte.BYTES: {
+                        final byte[] values = new byte[count];
+                        b.get(values);
+                        if (count != 1) return values;
+                        return type.signed ? (Number) values[0] : (Number) (short) Byte.toUnsignedInt(values[0]);
+                    }
+                    case Short.BYTES: {
+                        final short[] values = new short[count];
+                        b.asShortBuffer().get(values);
+                        if (count != 1) return values;
+                        return type.signed ? (Number) values[0] : (Number) Short.toUnsignedInt(values[0]);
+                    }
+                    case Integer.BYTES: {
+                        final int[] values = new int[count];
+                        b.asIntBuffer().get(values);
+                        if (count != 1) return values;
+                        return type.signed ? (Number) values[0] : (Number) Integer.toUnsignedLong(values[0]);
+                    }
+                    case Long.BYTES: {
+                        final long[] values = new long[count];
+                        b.asLongBuffer().get(values);
+                        return (count != 1) ? values : (Number) values[0];
+                    }
+                }
+                return null;
+            }
+            case FLOATING_POINT: {
+                switch (type.size) {
+                    case Float.BYTES: {
+                        final float[] values = new float[count];
+                        b.asFloatBuffer().get(values);
+                        return (count != 1) ? values : (Number) values[0];
+                    }
+                    case Double.BYTES: {
+                        final double[] values = new double[count];
+                        b.asDoubleBuffer().get(values);
+                        return (count != 1) ? values : (Number) values[0];
+                    }
+                }
+                return null;
+            }
+            case STRING: {
+                final String[] values = new String[count];
+                for (int i=0; i<count; i++) {
+                    values[i] = string(b, type.size).trim();
+                }
+                return strings(values);
+            }
+            case ENUMERATED: {
+                b.position(0);
+                return decode(type.base, count, b);
+            }
+            case REFERENCE: {
+                final long[] values = new long[count];
+                for (int i=0; i<count; i++) {
+                    values[i] = unsigned(slice(b, type.size), offsetSize);
+                }
+                return values;
+            }
+            case VARIABLE_LENGTH: {
+                /*
+                 * Each element is the number of elements in the sequence (or bytes in the string),
+                 * followed by the address of a global heap collection and the index of the object.
+                 */
+                final boolean isReference = !type.isString && type.base.typeClass == REFERENCE;
+                if (!type.isString && !isReference) {
+                    return null;
+                }
+                final Object[] values = isReference ? new long[count][] : new String[count];
+                for (int i=0; i<count; i++) {
+                    final ByteBuffer element = slice(b, type.size).order(ByteOrder.LITTLE_ENDIAN);
+                    final int  length     = element.getInt();
+                    final long collection = offset(element);
+                    final int  index      = element.getInt();
+                    final byte[] bytes = (length != 0) ? globalHeapObject(collection, index) : new byte[0];
+                    if (isReference) {
+                        final ByteBuffer refs = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+                        final long[] addresses = new long[Math.min(length, bytes.length / offsetSize)];
+                        for (int j=0; j<addresses.length; j++) {
+                            addresses[j] = offset(refs);
+                        }
+                        values[i] = addresses;
+                    } else {
+                        values[i] = new String(bytes, 0, Math.min(length, bytes.length), StandardCharsets.UTF_8).trim();
+                    }
+                }
+                return isReference ? values : strings((String[]) values);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the given strings as a single {@code String} if there is only one element,
+     * or {@code null} if the only element is empty.
+     */
+    private static Object strings(final String[] values) {
+        if (values.length != 1) {
+            return values;
+        }
+        return values[0].isEmpty() ? null : values[0];
+    }
+
+    /**
+     * Returns the object of the given index in the global heap collection at the given address.
+     */
+    private byte[] globalHeapObject(final long collection, final int index) throws IOException, DataStoreContentException {
+        Map<Integer,byte[]> objects = globalHeap.get(collection);
+        if (objects == null) {
+            ByteBuffer b = read(collection, 8 + lengthSize);
+            if (b.getInt() != GLOBAL_HEAP) throw malformed();
+            b.position(8);
+            b = read(collection, Math.toIntExact(length(b)));
+            b.position(8 + lengthSize);
+            objects = new HashMap<>();
+            while (b.remaining() >= 8 + lengthSize) {
+                final int id = Short.toUnsignedInt(b.getShort());
+                if (id == 0) break;                                 // Free space.
+                b.position(b.position() + 6);                       // Reference count and reserved bytes.
+                final int size = Math.toIntExact(length(b));
+                objects.put(id, bytes(b, size));
+                b.position(Math.min(b.position() + (-size & 7), b.limit()));     // Padding to a multiple of 8 bytes.
+            }
+            globalHeap.put(collection, objects);
+        }
+        final byte[] object = objects.get(index);
+        if (object == null) throw malformed();
+        return object;
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.netcdf.impl;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.lang.reflect.Array;
+import org.apache.sis.coverage.grid.GridExtent;
+import org.apache.sis.internal.storage.io.ChannelDataInput;
+import org.apache.sis.internal.storage.io.HyperRectangleReader;
+import org.apache.sis.internal.storage.io.Region;
+import org.apache.sis.internal.util.Numerics;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.util.resources.Errors;
+import org.apache.sis.util.Numbers;
+import org.apache.sis.math.Vector;
+
+
+/**
+ * Reads many unlimited variables in a single pass over the records of a netCDF file.
+ * In the netCDF classic format, the data of all variables using the unlimited dimension are interleaved:
+ * the file contains the first record of all those variables, then the second record of all variables, <i>etc.</i>
+ * Reading each variable separately would traverse the same disk pages as many times as there is variables.
+ * This class instead merges the byte ranges needed by all requested variables in a few large sequential reads,
+ * then scatters the values in the array of each variable.
+ *
+ * <p>For each record, the bytes are read from the beginning of the first variable slice up to the last value needed
+ * in the last variable slice. Consecutive records are read in the same operation if the gap between them is small,
+ * up to a maximal buffer size.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+final class RecordReader {
+    /**
+     * Maximal number of bytes to read in a single operation, unless a single record is larger.
+     */
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * Maximal number of unneeded bytes between two records for reading those records in the same operation.
+     * Reading a few unneeded bytes is cheaper than seeking to a new position.
+     */
+    private static final int MAX_GAP = 16 * 1024;
+
+    /**
+     * The channel from which to read the records, together with a buffer for transferring data.
+     */
+    private final ChannelDataInput input;
+
+    /**
+     * The variables to read, in any order. All variables shall be unlimited variables of the same file
+     * with the same dimensions.
+     */
+    private final VariableInfo[] variables;
+
+    /**
+     * Number of bytes from the beginning of a record to the beginning of the next record.
+     * This is the same value for all unlimited variables.
+     */
+    private final long recordStride;
+
+    /**
+     * Creates a new reader for the given variables.
+     *
+     * @param  input         the channel from which to read the records.
+     * @param  variables     the variables to read.
+     * @param  recordStride  number of bytes from the beginning of a record to the beginning of the next record.
+     */
+    RecordReader(final ChannelDataInput input, final VariableInfo[] variables, final long recordStride) {
+        this.input        = input;
+        this.variables    = variables;
+        this.recordStride = recordStride;
+    }
+
+    /**
+     * Returns the common record stride of the given variables, or -1 if they can not be read together by this class.
+     * Variables can be read together if they are unlimited variables using the same record dimension, with the same
+     * number of dimensions and the same length in each dimension. The later condition ensures that the same region
+     * of each record can be used for all variables.
+     *
+     * @param  variables  the variables to test.
+     * @param  dimension  number of dimensions of the area to read.
+     * @return the common record stride, or -1 if the variables can not be read by this class.
+     */
+    static long recordStride(final VariableInfo[] variables, final int dimension) {
+        if (dimension < 2) {
+            return -1;
+        }
+        final Dimension[] reference = variables[0].dimensions;
+        if (reference.length != dimension || !reference[0].isUnlimited) {
+            return -1;
+        }
+        long stride = -1;
+        for (final VariableInfo variable : variables) {
+            final long s = variable.recordStride();
+            if (s <= 0 || (stride >= 0 && s != stride)) {
+                return -1;
+            }
+            final Dimension[] dimensions = variable.dimensions;
+            if (dimensions.length != dimension || dimensions[0] != reference[0]) {
+                return -1;                                  // Not the same record dimension.
+            }
+            for (int i=1; i<dimension; i++) {
+                if (dimensions[i].length() != reference[i].length()) {
+                    return -1;
+                }
+            }
+            stride = s;
+        }
+        return stride;
+    }
+
+    /**
+     * Reads a sub-sampled sub-area of all variables.
+     *
+     * @param  area         indices of cell values to read along each dimension, in "natural" order.
+     * @param  subsampling  sub-sampling along each dimension. 1 means no sub-sampling.
+     * @return the data of each variable, in the same order than the variables given at construction time.
+     * @throws IOException if an error occurred while reading the records.
+     * @throws DataStoreException if the area requests records that do not exist in the file, or another logical error occurred.
+     * @throws ArithmeticException if the size of the region to read exceeds {@link Integer#MAX_VALUE}.
+     */
+    Vector[] read(final GridExtent area, final int[] subsampling) throws IOException, DataStoreException {
+        /*
+         * The unlimited dimension is the last dimension in "natural" order. The region to read in each record
+         * is described by the other dimensions. That region is the same for all variables. Compute also the
+         * number of bytes to read in each record, from the first byte of the first variable to the last value
+         * needed in the last variable.
+         */
+        final int    dimension   = area.getDimension() - 1;
+        final long[] size        = new long[dimension];
+        final long[] lower       = new long[dimension];
+        final long[] upper       = new long[dimension];
+        final int [] subsampled  = new int [dimension];
+        long lastElement = 0;               // Index of the last value to read in a record.
+        long elementStep = 1;               // Number of values between two consecutive indices in dimension i.
+        for (int i=0; i<dimension; i++) {
+            lower[i]      = area.getLow(i);
+            upper[i]      = Math.incrementExact(area.getHigh(i));
+            size [i]      = variables[0].dimensions[dimension - i].length();
+            subsampled[i] = subsampling[i];
+            lastElement  += (lower[i] + (Numerics.ceilDiv(upper[i] - lower[i], subsampled[i]) - 1) * subsampled[i]) * elementStep;
+            elementStep  *= size[i];
+        }
+        final Region region = new Region(size, lower, upper, subsampled);
+        long blockStart = Long.MAX_VALUE;
+        long blockEnd   = Long.MIN_VALUE;
+        for (final VariableInfo variable : variables) {
+            final long origin = variable.origin();
+            blockStart = Math.min(blockStart, origin);
+            blockEnd   = Math.max(blockEnd,   origin + (lastElement + 1) * variable.getDataType().size());
+        }
+        final int span = Math.toIntExact(blockEnd - blockStart);
+        /*
+         * Records to read along the unlimited dimension. The distance between two selected records is
+         * 'step' bytes, of which 'span' bytes are needed. We read many records in a single operation
+         * if the gap between them is small enough and the buffer is large enough.
+         */
+        final long firstRecord = area.getLow(dimension);
+        if (area.getHigh(dimension) >= variables[0].dimensions[0].length()) {
+            throw new DataStoreException(Errors.format(Errors.Keys.IndexOutOfBounds_1, area.getHigh(dimension)));
+        }
+        final int  recordStep  = subsampling[dimension];
+        final int  numRecords  = Math.toIntExact(Numerics.ceilDiv(area.getHigh(dimension) - firstRecord + 1, recordStep));
+        final long step        = Math.multiplyExact(recordStride, recordStep);
+        final int  batchSize;
+        if (step - span <= MAX_GAP && step <= BUFFER_SIZE) {
+            batchSize = (int) Math.max(1, (BUFFER_SIZE - span) / step + 1);
+        } else {
+            batchSize = 1;
+        }
+        final byte[] buffer = new byte[Math.toIntExact((Math.min(batchSize, numRecords) - 1) * step + span)];
+        final Object[] arrays = new Object[variables.length];
+        int valuesPerRecord = 0;
+        for (int r=0; r<numRecords; r += batchSize) {
+            final int  n = Math.min(batchSize, numRecords - r);
+            final long position = blockStart + (firstRecord + (long) r * recordStep) * recordStride;
+            input.seek(position);
+            input.readFully(buffer, 0, Math.toIntExact((n - 1) * step + span));
+            for (int k=0; k<n; k++) {
+                final int recordOffset = (int) (k * step);
+                for (int v=0; v<variables.length; v++) {
+                    final VariableInfo variable = variables[v];
+                    final int offset = recordOffset + (int) (variable.origin() - blockStart);
+                    final int length = Math.min((int) variable.recordSize(), buffer.length - offset);
+                    final ByteBuffer bytes = ByteBuffer.wrap(buffer, offset, length).slice().order(input.buffer.order());
+                    final Object values = new HyperRectangleReader(input.filename,
+                            view(bytes, variable.getDataType().number)).read(region);
+                    if (arrays[v] == null) {
+                        valuesPerRecord = Array.getLength(values);
+                        arrays[v] = Array.newInstance(values.getClass().getComponentType(),
+                                Math.multiplyExact(valuesPerRecord, numRecords));
+                    }
+                    System.arraycopy(values, 0, arrays[v], (r + k) * valuesPerRecord, valuesPerRecord);
+                }
+            }
+        }
+        final Vector[] vectors = new Vector[variables.length];
+        for (int v=0; v<vectors.length; v++) {
+            vectors[v] = variables[v].wrap(arrays[v]);
+        }
+        return vectors;
+    }
+
+    /**
+     * Returns a view of the given bytes as a buffer of the type of values to read.
+     *
+     * @param  bytes     the bytes of a record.
+     * @param  dataType  the type of values, as one of the constants defined in {@link Numbers}.
+     */
+    private static Buffer view(final ByteBuffer bytes, final byte dataType) {
+        switch (dataType) {
+            case Numbers.CHARACTER: return bytes.asCharBuffer();
+            case Numbers.SHORT:     return bytes.asShortBuffer();
+            case Numbers.INTEGER:   return bytes.asIntBuffer();
+            case Numbers.LONG:      return bytes.asLongBuffer();
+            case Numbers.FLOAT:     return bytes.asFloatBuffer();
+            case Numbers.DOUBLE:    return bytes.asDoubleBuffer();
+            default:                return bytes;
+        }
+    }
+}
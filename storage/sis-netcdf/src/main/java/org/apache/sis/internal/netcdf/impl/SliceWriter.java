@@ -0,0 +1,309 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.netcdf.impl;
+
+import java.util.Map;
+import java.util.List;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.io.Closeable;
+import java.io.IOException;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.crs.GeographicCRS;
+import org.opengis.referencing.cs.AxisDirection;
+import org.opengis.referencing.cs.CoordinateSystemAxis;
+import org.opengis.referencing.datum.PixelInCell;
+import org.opengis.referencing.operation.Matrix;
+import org.apache.sis.coverage.SampleDimension;
+import org.apache.sis.coverage.grid.GridCoverage;
+import org.apache.sis.coverage.grid.GridExtent;
+import org.apache.sis.coverage.grid.GridGeometry;
+import org.apache.sis.internal.netcdf.DataType;
+import org.apache.sis.internal.netcdf.Resources;
+import org.apache.sis.internal.storage.io.ChannelDataOutput;
+import org.apache.sis.referencing.operation.transform.MathTransforms;
+import org.apache.sis.referencing.operation.transform.TransferFunctionType;
+import org.apache.sis.storage.DataStoreReferencingException;
+import org.apache.sis.storage.netcdf.AttributeNames;
+import org.apache.sis.util.ArgumentChecks;
+import org.apache.sis.util.resources.Errors;
+import org.apache.sis.measure.Units;
+
+
+/**
+ * Writes two-dimensional grid coverages as successive time steps of a netCDF file in classic format.
+ * The netCDF file has an unlimited {@code time} dimension followed by the two dimensions of the grid.
+ * Each call to {@link #write(double, GridCoverage)} appends one record, so a multi-days cube can be
+ * written one slice at a time without holding the whole cube in memory.
+ *
+ * <p>The file follows the CF conventions for the coordinate variables and the ACDD conventions for the
+ * global attributes. Global attributes given at construction time should use the names defined in
+ * {@link AttributeNames}. The geographic bounding box attributes are added automatically if the CRS
+ * is geographic and the caller did not specify them.</p>
+ *
+ * <p>The grid axes shall be aligned with the CRS axes (no rotation), so that the coordinates can be stored
+ * in one-dimensional coordinate variables.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+public final class SliceWriter implements Closeable {
+    /**
+     * Name of the time dimension and variable.
+     */
+    private static final String TIME = "time";
+
+    /**
+     * The encoder where to write the netCDF file.
+     */
+    private final ChannelEncoder encoder;
+
+    /**
+     * The grid extent of the slices to write.
+     */
+    private final GridExtent extent;
+
+    /**
+     * Type of sample values in the netCDF file.
+     */
+    private final DataType dataType;
+
+    /**
+     * Number of bands in the slices to write.
+     */
+    private final int numBands;
+
+    /**
+     * Writes the header and the coordinate variables of a new netCDF file.
+     *
+     * @param  output     the channel and the buffer where to write the netCDF file.
+     * @param  domain     the two-dimensional grid geometry of all slices to write.
+     * @param  bands      description of the bands of all slices to write. Each band is written in a netCDF variable.
+     * @param  dataType   the type of sample values. Shall be a type supported by the netCDF classic format.
+     * @param  timeUnits  the units of time values in CF conventions, for example {@code "hours since 2018-01-01"}.
+     * @param  metadata   global attributes to write, using {@link AttributeNames} as keys, or {@code null} if none.
+     * @throws IOException if an error occurred while writing the header.
+     * @throws DataStoreReferencingException if the grid geometry can not be encoded in netCDF.
+     */
+    public SliceWriter(final ChannelDataOutput output, final GridGeometry domain, final List<SampleDimension> bands,
+            final DataType dataType, final String timeUnits, final Map<String,?> metadata)
+            throws IOException, DataStoreReferencingException
+    {
+        ArgumentChecks.ensureNonNull("domain",    domain);
+        ArgumentChecks.ensureNonNull("bands",     bands);
+        ArgumentChecks.ensureNonNull("dataType",  dataType);
+        ArgumentChecks.ensureNonNull("timeUnits", timeUnits);
+        if (domain.getDimension() != 2) {
+            throw new IllegalArgumentException(Errors.format(Errors.Keys.MismatchedDimension_3, "domain", 2, domain.getDimension()));
+        }
+        this.dataType = dataType;
+        this.numBands = bands.size();
+        this.extent   = domain.getExtent();
+        this.encoder  = new ChannelEncoder(output);
+        /*
+         * The conversion from grid indices to CRS coordinates shall be affine without rotation.
+         * For each grid dimension, find the CRS dimension which varies along that grid dimension.
+         */
+        final Matrix m = MathTransforms.getMatrix(domain.getGridToCRS(PixelInCell.CELL_CENTER));
+        if (m == null || m.getNumRow() != 3) {
+            throw new DataStoreReferencingException(Resources.format(Resources.Keys.CanNotEncodeGridGeometry_1, output.filename));
+        }
+        final CoordinateReferenceSystem crs = domain.isDefined(GridGeometry.CRS) ? domain.getCoordinateReferenceSystem() : null;
+        final Map<String,Object> global = new LinkedHashMap<>();
+        final String[] names  = new String[2];
+        final double[][] axes = new double[2][];
+        for (int g=0; g<2; g++) {
+            final int c = (m.getElement(0, g) != 0) ? 0 : 1;
+            if (m.getElement(c, g) == 0 || m.getElement(c, 1-g) != 0 || m.getElement(1-c, g) != 0) {
+                throw new DataStoreReferencingException(Resources.format(Resources.Keys.CanNotEncodeGridGeometry_1, output.filename));
+            }
+            final double scale  = m.getElement(c, g);
+            final double offset = m.getElement(c, 2);
+            final long   low    = extent.getLow(g);
+            final double[] values = new double[Math.toIntExact(extent.getSize(g))];
+            for (int i=0; i<values.length; i++) {
+                values[i] = scale * (low + i) + offset;
+            }
+            axes[g] = values;
+            /*
+             * Attributes of the coordinate variable. If the CRS is geographic with (north, east) directions
+             * in degrees, use the CF names for latitude and longitude and declare the ACDD bounding box.
+             */
+            final Map<String,Object> attributes = new HashMap<>();
+            String name = (g == 0) ? "x" : "y";
+            attributes.put("axis", (g == 0) ? "X" : "Y");
+            if (crs != null) {
+                final CoordinateSystemAxis axis = crs.getCoordinateSystem().getAxis(c);
+                final AxisDirection direction = axis.getDirection();
+                final boolean isNorth = AxisDirection.NORTH.equals(direction);
+                final boolean isEast  = AxisDirection.EAST .equals(direction);
+                AttributeNames.Dimension acdd = null;
+                if (crs instanceof GeographicCRS && Units.DEGREE.equals(axis.getUnit()) && (isNorth || isEast)) {
+                    if (isNorth) {
+                        name = "lat";
+                        acdd = AttributeNames.LATITUDE;
+                        attributes.put("standard_name", "latitude");
+                        attributes.put("units", "degrees_north");
+                    } else {
+                        name = "lon";
+                        acdd = AttributeNames.LONGITUDE;
+                        attributes.put("standard_name", "longitude");
+                        attributes.put("units", "degrees_east");
+                    }
+                } else {
+                    if (isNorth) attributes.put("standard_name", "projection_y_coordinate");
+                    if (isEast)  attributes.put("standard_name", "projection_x_coordinate");
+                    if (axis.getUnit() != null) {
+                        attributes.put("units", axis.getUnit().toString());
+                    }
+                }
+                if (acdd != null) {
+                    final double resolution = Math.abs(scale);
+                    final double first = values[0], last = values[values.length - 1];
+                    global.put(acdd.MINIMUM,    Math.min(first, last) - resolution / 2);
+                    global.put(acdd.MAXIMUM,    Math.max(first, last) + resolution / 2);
+                    global.put(acdd.RESOLUTION, resolution);
+                    global.put(acdd.UNITS,      attributes.get("units"));
+                }
+            }
+            names[g] = name;
+            encoder.addDimension(name, values.length);
+            encoder.addVariable(name, DataType.DOUBLE, new String[] {name}, attributes);
+        }
+        /*
+         * Global attributes: the ones specified by the caller have precedence over the computed ones.
+         */
+        encoder.addAttribute("Conventions", "CF-1.6, ACDD-1.3");
+        if (metadata != null) {
+            global.putAll(metadata);
+        }
+        for (final Map.Entry<String,Object> entry : global.entrySet()) {
+            if (entry.getValue() != null) {
+                encoder.addAttribute(entry.getKey(), entry.getValue());
+            }
+        }
+        /*
+         * The time variable and one variable per band, all using the unlimited dimension.
+         * NetCDF dimensions are declared with the slowest varying dimension (the grid rows) first.
+         */
+        encoder.addDimension(TIME, 0);
+        final Map<String,Object> timeAttributes = new HashMap<>();
+        timeAttributes.put("standard_name", TIME);
+        timeAttributes.put("units", timeUnits);
+        timeAttributes.put("axis", "T");
+        encoder.addVariable(TIME, DataType.DOUBLE, new String[] {TIME}, timeAttributes);
+        final String[] dimensions = {TIME, names[1], names[0]};
+        for (int b=0; b<numBands; b++) {
+            final SampleDimension band = bands.get(b);
+            final Map<String,Object> attributes = new HashMap<>();
+            band.getBackground().ifPresent((fill) -> attributes.put("_FillValue", cast(fill)));
+            band.getUnits().ifPresent((unit) -> attributes.put("units", unit.toString()));
+            band.getTransferFunctionFormula().ifPresent((tf) -> {
+                if (tf.getType() == TransferFunctionType.LINEAR && (tf.getScale() != 1 || tf.getOffset() != 0)) {
+                    attributes.put("scale_factor", tf.getScale());
+                    attributes.put("add_offset",   tf.getOffset());
+                }
+            });
+            encoder.addVariable((band.getName() != null) ? band.getName().toString() : "band" + (b+1),
+                                dataType, dimensions, attributes);
+        }
+        encoder.endDefinition();
+        encoder.write(names[0], axes[0]);
+        encoder.write(names[1], axes[1]);
+    }
+
+    /**
+     * Converts the given number to the type of sample values in the netCDF file.
+     */
+    private Number cast(final Number value) {
+        switch (dataType) {
+            case BYTE:  return value.byteValue();
+            case SHORT: return value.shortValue();
+            case INT:   return value.intValue();
+            case FLOAT: return value.floatValue();
+            default:    return value.doubleValue();
+        }
+    }
+
+    /**
+     * Appends a time step to the netCDF file. The given coverage shall have the same grid extent
+     * than the domain given at construction time, and the same number of bands.
+     * Only the sample values of the slice are held in memory during this method call.
+     *
+     * @param  time   the time of the slice, in the units given at construction time.
+     * @param  slice  the two-dimensional coverage to write.
+     * @throws IOException if an error occurred while writing the slice.
+     */
+    public void write(final double time, final GridCoverage slice) throws IOException {
+        final GridExtent actual = slice.getGridGeometry().getExtent();
+        if (actual.getDimension() != 2 || actual.getSize(0) != extent.getSize(0) || actual.getSize(1) != extent.getSize(1)) {
+            throw new IllegalArgumentException(Errors.format(Errors.Keys.MismatchedGridGeometry_2, "slice", "domain"));
+        }
+        final RenderedImage image = slice.render(null);
+        final Raster raster = image.getData();
+        final int width  = raster.getWidth();
+        final int height = raster.getHeight();
+        final int x      = raster.getMinX();
+        final int y      = raster.getMinY();
+        if (raster.getNumBands() != numBands) {
+            throw new IllegalArgumentException(Errors.format(Errors.Keys.UnexpectedArrayLength_2, numBands, raster.getNumBands()));
+        }
+        final Object[] values = new Object[numBands + 1];
+        values[0] = new double[] {time};
+        for (int b=0; b<numBands; b++) {
+            final Object array;
+            switch (dataType) {
+                case FLOAT:  array = raster.getSamples(x, y, width, height, b, (float[])  null); break;
+                case DOUBLE: array = raster.getSamples(x, y, width, height, b, (double[]) null); break;
+                default: {
+                    final int[] samples = raster.getSamples(x, y, width, height, b, (int[]) null);
+                    switch (dataType) {
+                        case INT: array = samples; break;
+                        case SHORT: {
+                            final short[] s = new short[samples.length];
+                            for (int i=0; i<s.length; i++) s[i] = (short) samples[i];
+                            array = s;
+                            break;
+                        }
+                        default: {
+                            final byte[] s = new byte[samples.length];
+                            for (int i=0; i<s.length; i++) s[i] = (byte) samples[i];
+                            array = s;
+                            break;
+                        }
+                    }
+                }
+            }
+            values[b + 1] = array;
+        }
+        encoder.writeRecord(values);
+    }
+
+    /**
+     * Writes the number of records in the header if possible, then closes the channel.
+     *
+     * @throws IOException if an error occurred while closing the channel.
+     */
+    @Override
+    public void close() throws IOException {
+        encoder.close();
+    }
+}
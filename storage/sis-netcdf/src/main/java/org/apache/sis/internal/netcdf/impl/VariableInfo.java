@@ -80,10 +80,16 @@ final class VariableInfo extends Variable implements Comparable<VariableInfo> {
 
     /**
      * Helper class for reading a sub-area with a sub-sampling,
-     * or {@code null} if {@code dataType} is not a supported type.
+     * or {@code null} if {@code dataType} is not a supported type or if the data are stored in chunks.
      */
     private final HyperRectangleReader reader;
 
+    /**
+     * Reader of data stored in chunks in a netCDF-4 file, or {@code null} if the data are stored
+     * contiguously as in netCDF classic files. If non-null, then {@link #reader} is null.
+     */
+    private final ChunkedStorage chunks;
+
     /**
      * The variable name.
      *
@@ -185,6 +191,7 @@ final class VariableInfo extends Variable implements Comparable<VariableInfo> {
      * @param  dataType    the netCDF type of data, or {@code null} if unknown.
      * @param  size        the variable size. May be inaccurate and ignored.
      * @param  offset      the offset where the variable data begins in the netCDF file.
+     * @param  chunks      reader of data stored in chunks (netCDF-4 only), or {@code null} if the data are contiguous.
      * @param  listeners   where to report warnings, if any.
      * @throws ArithmeticException if the variable size exceeds {@link Long#MAX_VALUE}.
      * @throws DataStoreContentException if a logical error is detected.
@@ -196,6 +203,7 @@ final class VariableInfo extends Variable implements Comparable<VariableInfo> {
                        DataType              dataType,
                  final int                   size,
                  final long                  offset,
+                 final ChunkedStorage        chunks,
                  final WarningListeners<?>   listeners) throws DataStoreContentException
     {
         super(listeners);
@@ -207,12 +215,16 @@ final class VariableInfo extends Variable implements Comparable<VariableInfo> {
             dataType = dataType.unsigned(booleanValue(isUnsigned));
         }
         this.dataType = dataType;
+        this.chunks   = chunks;
         /*
          * The 'size' value is provided in the netCDF files, but doesn't need to be stored since it
          * is redundant with the dimension lengths and is not large enough for big variables anyway.
-         * Instead we compute the length ourselves, excluding the unlimited dimension.
+         * Instead we compute the length ourselves, excluding the unlimited dimension. This is not
+         * needed for chunked data, where the unlimited dimension does not need to be first.
          */
-        if (dataType != null && (offsetToNextRecord = dataType.size()) != 0) {
+        if (chunks != null) {
+            reader = null;
+        } else if (dataType != null && (offsetToNextRecord = dataType.size()) != 0) {
             for (int i=0; i<dimensions.length; i++) {
                 final Dimension dim = dimensions[i];
                 if (!dim.isUnlimited) {
@@ -222,7 +234,7 @@ final class VariableInfo extends Variable implements Comparable<VariableInfo> {
                     throw new DataStoreContentException(listeners.getLocale(), Decoder.FORMAT_NAME, input.filename, null);
                 }
             }
-            reader = new HyperRectangleReader(dataType.number, input, offset);
+            reader = new HyperRectangleReader(dataType.number, input, offset, true);      // Map large regions of local files.
         } else {
             reader = null;
         }
@@ -355,7 +367,9 @@ final class VariableInfo extends Variable implements Comparable<VariableInfo> {
      */
     @Override
     public String getFilename() {
-        return (reader != null) ? reader.filename() : null;
+        if (reader != null) return reader.filename();
+        if (chunks != null) return chunks.filename();
+        return null;
     }
 
     /**
@@ -707,7 +721,7 @@ final class VariableInfo extends Variable implements Comparable<VariableInfo> {
     @SuppressWarnings("ReturnOfCollectionOrArrayField")
     public Vector read() throws IOException, DataStoreContentException {
         if (values == null) {
-            if (reader == null) {
+            if (reader == null && chunks == null) {
                 throw new DataStoreContentException(unknownType());
             }
             final int    dimension   = dimensions.length;
@@ -718,9 +732,14 @@ final class VariableInfo extends Variable implements Comparable<VariableInfo> {
                 upper[i] = dimensions[(dimension - 1) - i].length();
                 subsampling[i] = 1;
             }
-            final Region region = new Region(upper, lower, upper, subsampling);
-            applyUnlimitedDimensionStride(region);
-            Object array = reader.read(region);
+            Object array;
+            if (chunks != null) {
+                array = chunks.read(lower, upper, subsampling);
+            } else {
+                final Region region = new Region(upper, lower, upper, subsampling);
+                applyUnlimitedDimensionStride(region);
+                array = reader.read(region);
+            }
             replaceNaN(array);
             /*
              * If we can convert a double[] array to a float[] array, we should do that before
@@ -764,12 +783,12 @@ final class VariableInfo extends Variable implements Comparable<VariableInfo> {
      *
      * @param  area         indices of cell values to read along each dimension, in "natural" order.
      * @param  subsampling  sub-sampling along each dimension. 1 means no sub-sampling.
-     * @return the data as an array of a Java primitive type.
+     * @return the data as an array of a Java primitive type, or as a read-only view over the file mapped in memory.
      * @throws ArithmeticException if the size of the region to read exceeds {@link Integer#MAX_VALUE}, or other overflow occurs.
      */
     @Override
     public Vector read(final GridExtent area, final int[] subsampling) throws IOException, DataStoreException {
-        if (reader == null) {
+        if (reader == null && chunks == null) {
             throw new DataStoreContentException(unknownType());
         }
         if (values != null) {
@@ -803,13 +822,69 @@ final class VariableInfo extends Variable implements Comparable<VariableInfo> {
             upper[i] = Math.incrementExact(area.getHigh(i));
             size [i] = dimensions[(dimension - 1) - i].length();
         }
+        if (chunks != null) {
+            return wrap(chunks.read(lower, upper, subsampling));
+        }
         final Region region = new Region(size, lower, upper, subsampling);
         applyUnlimitedDimensionStride(region);
-        final Object array = reader.read(region);
+        /*
+         * If fill values need to be replaced by NaN, we need a modifiable array. Otherwise get the values
+         * as a buffer, which may be a read-only view over the file mapped in memory (no copy) if the region
+         * is large and contiguous.
+         */
+        if (hasRealValues() && !getNodataValues().isEmpty()) {
+            return wrap(reader.read(region));
+        }
+        return Vector.create(reader.readAsBuffer(region), dataType.isUnsigned);
+    }
+
+    /**
+     * Replaces fill values and missing values in the given array, then wraps the array in a vector.
+     * This is the final step of {@link #read(GridExtent, int[])}, also used by {@link RecordReader}.
+     *
+     * @param  array  the data as an array of a Java primitive type.
+     * @return the given array wrapped in a vector.
+     */
+    final Vector wrap(final Object array) {
         replaceNaN(array);
         return Vector.create(array, dataType.isUnsigned);
     }
 
+    /**
+     * Returns the number of bytes from the beginning of a record of this variable to the beginning of the next record,
+     * or -1 if this variable is not an unlimited variable that {@link RecordReader} can read. In the later case,
+     * the variable shall be read by {@link #read(GridExtent, int[])}.
+     */
+    final long recordStride() {
+        if (reader == null || values != null || !isUnlimited() || offsetToNextRecord < 0) {
+            return -1;
+        }
+        return Math.addExact(recordSize(), offsetToNextRecord);
+    }
+
+    /**
+     * Returns the number of bytes in a single record of this variable, ignoring padding.
+     * This method shall be invoked only if {@link #recordStride()} returned a positive value.
+     */
+    final long recordSize() {
+        long size = reader.dataSize();
+        for (int i=1; i<dimensions.length; i++) {
+            size = Math.multiplyExact(size, dimensions[i].length());
+        }
+        return size;
+    }
+
+    /**
+     * Returns the position in the file of the first value of this variable, or {@link Long#MAX_VALUE} if unknown.
+     * For unlimited variables, this is the position of the first record.
+     * For chunked variables, this is the position of the first chunk.
+     */
+    final long origin() {
+        if (reader != null) return reader.origin;
+        if (chunks != null) return chunks.origin();
+        return Long.MAX_VALUE;
+    }
+
     /**
      * Returns the meaning of the given ordinal value, or {@code null} if none.
      * Callers must have verified that {@link #isEnumeration()} returned {@code true}
@@ -835,7 +910,7 @@ final class VariableInfo extends Variable implements Comparable<VariableInfo> {
      */
     @Override
     public int compareTo(final VariableInfo other) {
-        int c = Long.compare(reader.origin, other.reader.origin);
+        int c = Long.compare(origin(), other.origin());
         if (c == 0) c = name.compareTo(other.name);                 // Should not happen, but we are paranoiac.
         return c;
     }
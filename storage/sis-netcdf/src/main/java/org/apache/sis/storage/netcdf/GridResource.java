@@ -19,6 +19,7 @@ package org.apache.sis.storage.netcdf;
 import java.util.Map;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.Buffer;
@@ -29,6 +30,7 @@ import org.opengis.referencing.operation.MathTransform1D;
 import org.opengis.referencing.operation.TransformException;
 import org.apache.sis.referencing.operation.transform.TransferFunction;
 import org.apache.sis.coverage.grid.GridGeometry;
+import org.apache.sis.coverage.grid.GridExtent;
 import org.apache.sis.internal.netcdf.Decoder;
 import org.apache.sis.internal.netcdf.Grid;
 import org.apache.sis.internal.netcdf.DataType;
@@ -39,11 +41,13 @@ import org.apache.sis.coverage.SampleDimension;
 import org.apache.sis.coverage.grid.GridChange;
 import org.apache.sis.coverage.grid.GridCoverage;
 import org.apache.sis.internal.raster.RasterFactory;
+import org.apache.sis.storage.DataOptionKey;
 import org.apache.sis.storage.DataStoreException;
 import org.apache.sis.storage.DataStoreContentException;
 import org.apache.sis.storage.DataStoreReferencingException;
 import org.apache.sis.storage.Resource;
 import org.apache.sis.math.MathFunctions;
+import org.apache.sis.math.Vector;
 import org.apache.sis.measure.NumberRange;
 import org.apache.sis.util.Numbers;
 import org.apache.sis.util.resources.Errors;
@@ -120,6 +124,21 @@ final class GridResource extends AbstractGridResource implements ResourceOnFileS
      */
     private final Path location;
 
+    /**
+     * The implementation used for decoding the netCDF file. This is also the object
+     * on which to synchronize when reading variables, since it is shared by all resources
+     * of the same netCDF file.
+     */
+    private final Decoder decoder;
+
+    /**
+     * Whether regions larger than a tile can be loaded tile by tile when first needed.
+     * If {@code false}, all sample values are read at {@link #read(GridGeometry, int...)} time.
+     *
+     * @see DataOptionKey#TILED_READING
+     */
+    private final boolean tiledReading;
+
     /**
      * Creates a new resource.
      *
@@ -127,9 +146,10 @@ final class GridResource extends AbstractGridResource implements ResourceOnFileS
      * @param  name     the name for the resource.
      * @param  grid     the grid geometry (size, CRS…) of the {@linkplain #data} cube.
      * @param  data     the variables providing actual data. Shall contain at least one variable.
+     * @param  tiled    whether regions larger than a tile can be loaded tile by tile when first needed.
      */
-    private GridResource(final Decoder decoder, final String name, final Grid grid, final List<Variable> data)
-            throws IOException, DataStoreException
+    private GridResource(final Decoder decoder, final String name, final Grid grid, final List<Variable> data,
+                         final boolean tiled) throws IOException, DataStoreException
     {
         super(decoder.listeners);
         this.data    = data.toArray(new Variable[data.size()]);
@@ -137,14 +157,17 @@ final class GridResource extends AbstractGridResource implements ResourceOnFileS
         gridGeometry = grid.getGridGeometry(decoder);
         identifier   = decoder.nameFactory.createLocalName(decoder.namespace, name);
         location     = decoder.location;
+        this.decoder = decoder;
+        tiledReading = tiled;
     }
 
     /**
      * Creates all grid resources from the given decoder.
      *
      * @param  decoder  the implementation used for decoding the netCDF file.
+     * @param  tiled    whether regions larger than a tile can be loaded tile by tile when first needed.
      */
-    static List<Resource> create(final Decoder decoder) throws IOException, DataStoreException {
+    static List<Resource> create(final Decoder decoder, final boolean tiled) throws IOException, DataStoreException {
         final Variable[]     variables = decoder.getVariables().clone();        // Needs a clone because may be modified.
         final List<Variable> siblings  = new ArrayList<>(4);
         final List<Resource> resources = new ArrayList<>();
@@ -214,7 +237,7 @@ final class GridResource extends AbstractGridResource implements ResourceOnFileS
                     }
                 }
             }
-            resources.add(new GridResource(decoder, name.trim(), grid, siblings));
+            resources.add(new GridResource(decoder, name.trim(), grid, siblings, tiled));
             siblings.clear();
         }
         return resources;
@@ -340,7 +363,10 @@ final class GridResource extends AbstractGridResource implements ResourceOnFileS
     }
 
     /**
-     * Loads a subset of the grid coverage represented by this resource.
+     * Loads a subset of the grid coverage represented by this resource. By default the sample values are read
+     * immediately. If the {@link DataOptionKey#TILED_READING} option has been enabled and the requested region
+     * is larger than a tile in the two first dimensions, then the returned coverage reads its tiles only when
+     * first requested, and caches them in a memory-bounded cache shared by all variables.
      *
      * @param  domain  desired grid extent and resolution, or {@code null} for reading the whole domain.
      * @param  range   0-based indices of sample dimensions to read, or {@code null} or an empty sequence for reading them all.
@@ -353,14 +379,21 @@ final class GridResource extends AbstractGridResource implements ResourceOnFileS
         if (domain == null) {
             domain = gridGeometry;
         }
-        final DataType          dataType;
+        final DataType          dataType = data[range[0]].getDataType();
         final DataBuffer        imageBuffer;
         final SampleDimension[] selected = new SampleDimension[range.length];
         try {
             final Buffer[]   samples = new Buffer[range.length];
             final GridChange change  = new GridChange(domain, gridGeometry);
             final int[]      strides = change.getTargetStrides();
+            domain = change.getTargetGeometry(strides);
+            final GridExtent extent  = domain.getExtent();
+            final boolean    tiled   = tiledReading && (extent.getSize(0) > TiledCoverage.TILE_SIZE
+                                                 || extent.getSize(1) > TiledCoverage.TILE_SIZE);
             SampleDimension.Builder builder = null;
+            final Variable[] toRead  = new Variable[range.length];
+            final int[]      indices = new int[range.length];
+            int count = 0;
             /*
              * Iterate over netCDF variables in the order they appear in the file, not in the order requested
              * by the 'range' argument.  The intent is to perform sequential I/O as much as possible, without
@@ -369,7 +402,7 @@ final class GridResource extends AbstractGridResource implements ResourceOnFileS
             for (int i=0; i<data.length; i++) {
                 final Variable variable = data[i];
                 SampleDimension def = ranges[i];
-                Buffer values = null;
+                boolean requested = false;
                 for (int j=0; j<range.length; j++) {
                     /*
                      * Check if the current variable is a sample dimension specified in the 'range' argument.
@@ -381,18 +414,46 @@ final class GridResource extends AbstractGridResource implements ResourceOnFileS
                             if (builder == null) builder = new SampleDimension.Builder();
                             ranges[i] = def = createSampleDimension(builder, variable);
                         }
-                        if (values == null) {
-                            // Optional.orElseThrow() below should never fail since Variable.read(…) wraps primitive array.
-                            values = variable.read(change.getTargetExtent(), strides).buffer().get();
-                        }
                         selected[j] = def;
-                        samples[j] = values;
+                        requested = true;
+                    }
+                }
+                if (requested) {
+                    toRead [count] = variable;
+                    indices[count++] = i;
+                }
+            }
+            /*
+             * Read all requested variables in a single call, which allows the decoder to merge the reads
+             * of variables stored in the same region of the file (e.g. variables interleaved by records).
+             */
+            if (!tiled) {
+                final Vector[] values;
+                synchronized (decoder) {
+                    values = decoder.read(Arrays.copyOf(toRead, count), change.getTargetExtent(), strides);
+                }
+                for (int k=0; k<count; k++) {
+                    // Optional.get() below should never fail since Variable.read(…) wraps primitive array or buffer.
+                    final Buffer buffer = values[k].buffer().get();
+                    for (int j=0; j<range.length; j++) {
+                        if (range[j] == indices[k]) {
+                            samples[j] = buffer;
+                        }
                     }
                 }
             }
-            dataType = data[range[0]].getDataType();
+            if (tiled) {
+                if (dataType.rasterDataType == DataBuffer.TYPE_UNDEFINED) {
+                    throw new DataStoreContentException(Errors.format(Errors.Keys.UnsupportedType_1, dataType.name()));
+                }
+                final Variable[] variables = new Variable[range.length];
+                for (int j=0; j<range.length; j++) {
+                    variables[j] = data[range[j]];
+                }
+                return new TiledCoverage(domain, UnmodifiableArrayList.wrap(selected), variables, decoder,
+                                         change.getTargetExtent(), strides, dataType.rasterDataType);
+            }
             imageBuffer = RasterFactory.wrap(dataType.rasterDataType, samples);
-            domain = change.getTargetGeometry(strides);
         } catch (TransformException e) {
             throw new DataStoreReferencingException(e);
         } catch (IOException e) {
@@ -18,18 +18,24 @@ package org.apache.sis.storage.netcdf;
 
 import java.awt.Color;
 import java.util.List;
+import java.util.Arrays;
 import java.awt.image.DataBuffer;
 import java.awt.image.ColorModel;
 import java.awt.image.BufferedImage;
 import java.awt.image.RenderedImage;
 import java.awt.image.WritableRaster;
 import org.opengis.geometry.DirectPosition;
+import org.opengis.geometry.MismatchedDimensionException;
+import org.opengis.referencing.datum.PixelInCell;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
 import org.apache.sis.coverage.SampleDimension;
 import org.apache.sis.coverage.grid.GridCoverage;
 import org.apache.sis.coverage.grid.GridGeometry;
 import org.apache.sis.coverage.grid.GridExtent;
 import org.apache.sis.internal.raster.RasterFactory;
 import org.apache.sis.internal.raster.ColorModelFactory;
+import org.apache.sis.util.resources.Errors;
 
 
 /**
@@ -46,6 +52,11 @@ final class Image extends GridCoverage {
      */
     private static final int VISIBLE_BAND = 0;
 
+    /**
+     * Number of dimensions of rendered images. Those dimensions are the two first dimensions of the grid.
+     */
+    static final int BIDIMENSIONAL = 2;
+
     /**
      * The sample values.
      */
@@ -62,16 +73,87 @@ final class Image extends GridCoverage {
     /**
      * Returns a two-dimensional slice of grid data as a rendered image.
      * This returns a view as much as possible; sample values are not copied.
+     *
+     * @param  slicePoint  coordinates of the slice in dimensions other than the two first ones,
+     *         or {@code null} for the first slice.
+     * @return the grid slice as a rendered image.
      */
     @Override
     public RenderedImage render(final DirectPosition slicePoint) {
-        // TODO: use slicePoint.
         final GridExtent extent = getGridGeometry().getExtent();
         final int width  = Math.toIntExact(extent.getSize(0));
         final int height = Math.toIntExact(extent.getSize(1));
-        final WritableRaster raster = RasterFactory.createBandedRaster(data, width, height, width, null, null, null);
+        final long[] slice = sliceIndices(getGridGeometry(), slicePoint);
+        long offset = 0, size = 1;
+        for (int i=0; i<slice.length; i++) {
+            size = Math.multiplyExact(size, extent.getSize(i + BIDIMENSIONAL - 1));
+            offset = Math.addExact(offset, Math.multiplyExact(slice[i], size));
+        }
+        offset = Math.multiplyExact(offset, width);
+        final int[] bandOffsets = new int[data.getNumBanks()];
+        Arrays.fill(bandOffsets, Math.toIntExact(offset));
+        final WritableRaster raster = RasterFactory.createBandedRaster(data, width, height, width, null, bandOffsets, null);
         final ColorModel colors = ColorModelFactory.createColorModel(getSampleDimensions(), VISIBLE_BAND, data.getDataType(),
                 (category) -> category.isQuantitative() ? new Color[] {Color.BLACK, Color.WHITE} : null);
         return new BufferedImage(colors, raster, false, null);
     }
+
+    /**
+     * Returns the grid indices of the slice to render in all dimensions other than the two first ones.
+     * The indices are relative to the lowest grid coordinates of the given domain. If the given point
+     * is null, or if the domain has only two dimensions, then this method returns the first slice.
+     *
+     * <p>The slice point can have the same number of dimensions than the CRS, in which case the two first
+     * coordinates are ignored, or two dimensions less than the CRS. Coordinates are assumed expressed in the
+     * coverage CRS.</p>
+     *
+     * @param  domain      the grid geometry of the coverage.
+     * @param  slicePoint  coordinates of the slice, or {@code null} for the first slice.
+     * @return grid indices of the slice in dimensions 2 and above, relative to the lowest grid coordinates.
+     * @throws MismatchedDimensionException if the slice point does not have the expected number of dimensions.
+     * @throws IllegalArgumentException if the slice point is outside the coverage domain.
+     */
+    static long[] sliceIndices(final GridGeometry domain, final DirectPosition slicePoint) {
+        final GridExtent extent = domain.getExtent();
+        final int dimension = extent.getDimension();
+        final long[] indices = new long[Math.max(dimension - BIDIMENSIONAL, 0)];
+        if (slicePoint == null || indices.length == 0) {
+            return indices;
+        }
+        final MathTransform gridToCRS = domain.getGridToCRS(PixelInCell.CELL_CORNER);
+        final int crsDimension = gridToCRS.getTargetDimensions();
+        final int skip = crsDimension - slicePoint.getDimension();
+        if (skip != 0 && skip != BIDIMENSIONAL) {
+            throw new MismatchedDimensionException(Errors.format(Errors.Keys.MismatchedDimension_3,
+                    "slicePoint", crsDimension - BIDIMENSIONAL, slicePoint.getDimension()));
+        }
+        /*
+         * Start from the "real world" coordinates of the first cell, replace the coordinates of all dimensions
+         * other than the two first ones by the slice point coordinates, then convert back to grid coordinates.
+         */
+        final double[] gridPoint = new double[dimension];
+        for (int i=0; i<dimension; i++) {
+            gridPoint[i] = extent.getLow(i) + 0.5;
+        }
+        final double[] crsPoint = new double[crsDimension];
+        try {
+            gridToCRS.transform(gridPoint, 0, crsPoint, 0, 1);
+            for (int i=BIDIMENSIONAL; i<crsDimension; i++) {
+                crsPoint[i] = slicePoint.getOrdinate(i - skip);
+            }
+            gridToCRS.inverse().transform(crsPoint, 0, gridPoint, 0, 1);
+        } catch (TransformException e) {
+            throw new IllegalArgumentException(Errors.format(Errors.Keys.OutsideDomainOfValidity), e);
+        }
+        for (int i=0; i<indices.length; i++) {
+            final int  d    = i + BIDIMENSIONAL;
+            final long low  = extent.getLow(d);
+            final double c  = Math.floor(gridPoint[d]);
+            if (!(c >= low && c <= extent.getHigh(d))) {
+                throw new IllegalArgumentException(Errors.format(Errors.Keys.OutsideDomainOfValidity));
+            }
+            indices[i] = (long) c - low;
+        }
+        return indices;
+    }
 }
@@ -17,28 +17,45 @@
 package org.apache.sis.storage.netcdf;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.channels.FileChannel;
 import java.net.URI;
+import java.time.Instant;
 import java.util.List;
 import java.util.Collection;
+import java.awt.image.DataBuffer;
 import org.opengis.util.NameSpace;
 import org.opengis.util.NameFactory;
 import org.opengis.util.GenericName;
 import org.opengis.metadata.Metadata;
 import org.opengis.parameter.ParameterValueGroup;
+import org.apache.sis.coverage.grid.GridCoverage;
 import org.apache.sis.storage.DataStore;
+import org.apache.sis.storage.DataOptionKey;
 import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.DataStoreClosedException;
+import org.apache.sis.storage.ReadOnlyStorageException;
 import org.apache.sis.storage.UnsupportedStorageException;
 import org.apache.sis.storage.StorageConnector;
 import org.apache.sis.storage.Aggregate;
+import org.apache.sis.internal.netcdf.DataType;
 import org.apache.sis.internal.netcdf.Decoder;
+import org.apache.sis.internal.netcdf.impl.SliceWriter;
+import org.apache.sis.internal.storage.io.ChannelDataOutput;
+import org.apache.sis.internal.storage.io.IOUtilities;
+import org.apache.sis.internal.storage.Resources;
 import org.apache.sis.internal.storage.URIDataStore;
 import org.apache.sis.internal.util.UnmodifiableArrayList;
 import org.apache.sis.setup.OptionKey;
 import org.apache.sis.storage.Resource;
 import org.apache.sis.storage.event.ChangeEvent;
 import org.apache.sis.storage.event.ChangeListener;
+import org.apache.sis.util.resources.Errors;
+import org.apache.sis.util.ArgumentChecks;
 import org.apache.sis.util.CharSequences;
+import org.apache.sis.util.ArraysExt;
 import org.apache.sis.util.Version;
 import ucar.nc2.constants.ACDD;
 import ucar.nc2.constants.CDM;
@@ -47,6 +64,10 @@ import ucar.nc2.constants.CDM;
 /**
  * A data store backed by netCDF files.
  * Instances of this data store are created by {@link NetcdfStoreProvider#open(StorageConnector)}.
+ * If the {@linkplain OptionKey#OPEN_OPTIONS open options} given to the storage connector contains
+ * {@link StandardOpenOption#WRITE}, then the store is opened in write mode instead: two-dimensional
+ * grid coverages can be appended as successive time steps with {@link #write(GridCoverage, Instant)},
+ * and the file needs to be opened again with another {@code NetcdfStore} instance for reading.
  *
  * @author  Martin Desruisseaux (Geomatys)
  * @version 1.0
@@ -57,12 +78,33 @@ import ucar.nc2.constants.CDM;
  * @module
  */
 public class NetcdfStore extends DataStore implements Aggregate {
+    /**
+     * Units of the time values written by {@link #write(GridCoverage, Instant)}.
+     */
+    private static final String TIME_UNITS = "seconds since 1970-01-01T00:00:00Z";
+
     /**
      * The object to use for decoding the netCDF file content. There is two different implementations,
      * depending on whether we are using the embedded SIS decoder or a wrapper around the UCAR library.
+     * This is {@code null} if this store has been opened in write mode.
+     *
+     * @see #decoder()
      */
     private final Decoder decoder;
 
+    /**
+     * Where to write the netCDF file, or {@code null} if this store has been opened in read mode or is closed.
+     *
+     * @see #write(GridCoverage, Instant)
+     */
+    private ChannelDataOutput output;
+
+    /**
+     * The writer of time steps, created from {@link #output} when the first slice is written.
+     * The grid geometry and the bands of that first slice determine the structure of the file.
+     */
+    private SliceWriter writer;
+
     /**
      * The {@link NetcdfStoreProvider#LOCATION} parameter value, or {@code null} if none.
      * This is used for information purpose only, not for actual reading operations.
@@ -83,6 +125,12 @@ public class NetcdfStore extends DataStore implements Aggregate {
      */
     private List<Resource> components;
 
+    /**
+     * Whether large grid coverages are loaded tile by tile when first needed.
+     * This is the value of the {@link DataOptionKey#TILED_READING} option.
+     */
+    private final boolean tiledReading;
+
     /**
      * Creates a new netCDF store from the given file, URL, stream or {@link ucar.nc2.NetcdfFile} object.
      * This constructor invokes {@link StorageConnector#closeAllExcept(Object)}, keeping open only the
@@ -96,6 +144,29 @@ public class NetcdfStore extends DataStore implements Aggregate {
      */
     public NetcdfStore(final NetcdfStoreProvider provider, final StorageConnector connector) throws DataStoreException {
         super(provider, connector);
+        tiledReading = Boolean.TRUE.equals(connector.getOption(DataOptionKey.TILED_READING));
+        if (ArraysExt.contains(connector.getOption(OptionKey.OPEN_OPTIONS), StandardOpenOption.WRITE)) {
+            /*
+             * Write mode: the number of records is written in the header after the records,
+             * so we need a path from which to open a seekable channel.
+             */
+            final Path path = connector.getStorageAs(Path.class);
+            if (path == null) {
+                throw new UnsupportedStorageException(super.getLocale(), NetcdfStoreProvider.NAME,
+                        connector.getStorage(), connector.getOption(OptionKey.OPEN_OPTIONS));
+            }
+            location = path.toUri();
+            connector.closeAllExcept(path);
+            decoder = null;
+            try {
+                final FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+                output = new ChannelDataOutput(IOUtilities.filename(path), channel, ByteBuffer.allocate(65536));
+            } catch (IOException e) {
+                throw new DataStoreException(e);
+            }
+            return;
+        }
         location = connector.getStorageAs(URI.class);
         final Path path = connector.getStorageAs(Path.class);
         try {
@@ -145,7 +216,7 @@ public class NetcdfStore extends DataStore implements Aggregate {
      * @since 0.8
      */
     public synchronized Version getConventionVersion() throws DataStoreException {
-        for (final CharSequence value : CharSequences.split(decoder.stringValue(CDM.CONVENTIONS), ',')) {
+        for (final CharSequence value : CharSequences.split(decoder().stringValue(CDM.CONVENTIONS), ',')) {
             if (CharSequences.regionMatches(value, 0, "CF-", true)) {
                 return new Version(value.subSequence(3, value.length()).toString());
             }
@@ -163,7 +234,7 @@ public class NetcdfStore extends DataStore implements Aggregate {
      */
     @Override
     public GenericName getIdentifier() throws DataStoreException {
-        final NameSpace namespace = decoder.namespace;
+        final NameSpace namespace = decoder().namespace;
         return (namespace != null) ? namespace.name() : null;
     }
 
@@ -178,7 +249,7 @@ public class NetcdfStore extends DataStore implements Aggregate {
     @Override
     public synchronized Metadata getMetadata() throws DataStoreException {
         if (metadata == null) try {
-            final MetadataReader reader = new MetadataReader(decoder);
+            final MetadataReader reader = new MetadataReader(decoder());
             metadata = reader.read();
         } catch (IOException | ArithmeticException e) {
             throw new DataStoreException(e);
@@ -198,8 +269,9 @@ public class NetcdfStore extends DataStore implements Aggregate {
     @SuppressWarnings("ReturnOfCollectionOrArrayField")
     public synchronized Collection<Resource> components() throws DataStoreException {
         if (components == null) try {
+            final Decoder decoder = decoder();
             Resource[] resources = decoder.getDiscreteSampling();
-            final List<Resource> grids = GridResource.create(decoder);
+            final List<Resource> grids = GridResource.create(decoder, tiledReading);
             if (!grids.isEmpty()) {
                 grids.addAll(UnmodifiableArrayList.wrap(resources));
                 resources = grids.toArray(new Resource[grids.size()]);
@@ -233,6 +305,68 @@ public class NetcdfStore extends DataStore implements Aggregate {
     public <T extends ChangeEvent> void removeListener(ChangeListener<? super T> listener, Class<T> eventType) {
     }
 
+    /**
+     * Returns the decoder if this store has been opened in read mode, or throws an exception otherwise.
+     */
+    private Decoder decoder() throws DataStoreException {
+        if (decoder == null) {
+            throw new DataStoreException(Resources.forLocale(getLocale()).getString(
+                    Resources.Keys.StreamIsNotReadable_1, getDisplayName()));
+        }
+        return decoder;
+    }
+
+    /**
+     * Appends a two-dimensional grid coverage as a new time step of the netCDF file.
+     * The grid geometry and the sample dimensions of the first slice determine the structure of the file:
+     * one coordinate variable for each grid axis, and one variable per band using an unlimited time dimension.
+     * All subsequent slices shall have the same grid extent and the same number of bands.
+     * Only the sample values of the given slice are held in memory during this method call.
+     *
+     * <p>Sample values are written as {@code short} if the image stores unsigned bytes
+     * and as {@code int} if the image stores unsigned shorts, since the netCDF classic format
+     * has no unsigned types. Times are written in seconds since January 1st, 1970.</p>
+     *
+     * <p>This method can be invoked only if this store has been opened in write mode.
+     * The number of time steps is written in the file header when this store is closed.</p>
+     *
+     * @param  slice  the two-dimensional coverage to write.
+     * @param  time   the time of the slice.
+     * @throws ReadOnlyStorageException if this store has not been opened in write mode.
+     * @throws DataStoreException if the grid geometry can not be encoded or an error occurred while writing.
+     *
+     * @since 1.0
+     */
+    public synchronized void write(final GridCoverage slice, final Instant time) throws DataStoreException {
+        ArgumentChecks.ensureNonNull("slice", slice);
+        ArgumentChecks.ensureNonNull("time",  time);
+        final ChannelDataOutput out = output;
+        if (out == null) {
+            if (decoder == null) {
+                throw new DataStoreClosedException(getLocale(), NetcdfStoreProvider.NAME, StandardOpenOption.WRITE);
+            }
+            throw new ReadOnlyStorageException(Resources.forLocale(getLocale()).getString(Resources.Keys.StoreIsReadOnly));
+        }
+        try {
+            if (writer == null) {
+                final DataType dataType;
+                switch (slice.render(null).getSampleModel().getDataType()) {
+                    case DataBuffer.TYPE_BYTE:
+                    case DataBuffer.TYPE_SHORT:  dataType = DataType.SHORT;  break;
+                    case DataBuffer.TYPE_USHORT:
+                    case DataBuffer.TYPE_INT:    dataType = DataType.INT;    break;
+                    case DataBuffer.TYPE_FLOAT:  dataType = DataType.FLOAT;  break;
+                    default:                     dataType = DataType.DOUBLE; break;
+                }
+                writer = new SliceWriter(out, slice.getGridGeometry(), slice.getSampleDimensions(), dataType, TIME_UNITS, null);
+            }
+            writer.write(time.getEpochSecond() + time.getNano() / 1E+9, slice);
+        } catch (IOException e) {
+            throw new DataStoreException(Errors.getResources(getLocale())
+                    .getString(Errors.Keys.CanNotWriteFile_2, NetcdfStoreProvider.NAME, out.filename), e);
+        }
+    }
+
     /**
      * Closes this netCDF store and releases any underlying resources.
      *
@@ -241,8 +375,19 @@ public class NetcdfStore extends DataStore implements Aggregate {
     @Override
     public synchronized void close() throws DataStoreException {
         metadata = null;
+        final SliceWriter w = writer;
+        final ChannelDataOutput out = output;
+        writer = null;
+        output = null;
         try {
-            decoder.close();
+            if (decoder != null) {
+                TiledCoverage.removeTiles(decoder);
+                decoder.close();
+            } else if (w != null) {
+                w.close();
+            } else if (out != null) {
+                out.channel.close();
+            }
         } catch (IOException e) {
             throw new DataStoreException(e);
         }
@@ -256,6 +401,6 @@ public class NetcdfStore extends DataStore implements Aggregate {
      */
     @Override
     public String toString() {
-        return getClass().getSimpleName() + '[' + decoder + ']';
+        return getClass().getSimpleName() + '[' + (decoder != null ? decoder : output) + ']';
     }
 }
@@ -70,7 +70,7 @@ import org.apache.sis.util.Version;
  */
 @StoreMetadata(formatName   = NetcdfStoreProvider.NAME,
                fileSuffixes = "nc",
-               capabilities = Capability.READ)
+               capabilities = {Capability.READ, Capability.WRITE})
 public class NetcdfStoreProvider extends DataStoreProvider {
     /**
      * The format name.
@@ -182,6 +182,15 @@ public class NetcdfStoreProvider extends DataStoreProvider {
                 hasVersion  = true;
                 version     = header & 0xFF;
                 isSupported = (version >= 1 && version <= ChannelDecoder.MAX_VERSION);
+            } else if (header == ChannelDecoder.HDF5_SIGNATURE) {
+                /*
+                 * NetCDF-4 file, which is a HDF5 file. The version number is stored in the HDF5 superblock,
+                 * but it is the version of the HDF5 format rather than the netCDF version, so we do not use it.
+                 */
+                if (buffer.remaining() < 2*Integer.BYTES) {
+                    return ProbeResult.INSUFFICIENT_BYTES;
+                }
+                isSupported = (buffer.getInt(buffer.position() + Integer.BYTES) == ChannelDecoder.HDF5_SIGNATURE_END);
             }
         }
         /*
@@ -269,8 +278,8 @@ public class NetcdfStoreProvider extends DataStoreProvider {
             throws IOException, DataStoreException
     {
         final GeometryLibrary geomlib = connector.getOption(OptionKey.GEOMETRY_LIBRARY);
-        Decoder decoder;
-        Object keepOpen;
+        Decoder decoder = null;
+        Object keepOpen = null;
         final ChannelDataInput input = connector.getStorageAs(ChannelDataInput.class);
         if (input != null) try {
             final ChannelDecoder cd = new ChannelDecoder(input, connector.getOption(OptionKey.ENCODING), geomlib, listeners);
@@ -285,7 +294,13 @@ public class NetcdfStoreProvider extends DataStoreProvider {
             } catch (IOException | DataStoreException s) {
                 e.addSuppressed(s);
             }
-            throw e;
+            /*
+             * The embedded decoder may fail on netCDF-4 files using HDF5 features that it does not support.
+             * In such case the UCAR library, if present, has been used as a fallback.
+             */
+            if (decoder == null) {
+                throw e;
+            }
         } else {
             keepOpen = connector.getStorage();
             decoder = createByReflection(keepOpen, true, geomlib, listeners);
@@ -0,0 +1,418 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.netcdf;
+
+import java.awt.Color;
+import java.awt.Point;
+import java.util.List;
+import java.util.Arrays;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.awt.image.Raster;
+import java.awt.image.DataBuffer;
+import java.awt.image.ColorModel;
+import java.awt.image.SampleModel;
+import java.awt.image.RenderedImage;
+import java.awt.image.WritableRaster;
+import java.awt.image.BandedSampleModel;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.metadata.spatial.DimensionNameType;
+import org.apache.sis.coverage.SampleDimension;
+import org.apache.sis.coverage.grid.GridCoverage;
+import org.apache.sis.coverage.grid.GridGeometry;
+import org.apache.sis.coverage.grid.GridExtent;
+import org.apache.sis.internal.netcdf.Decoder;
+import org.apache.sis.internal.netcdf.Variable;
+import org.apache.sis.internal.raster.ColorModelFactory;
+import org.apache.sis.internal.raster.RasterFactory;
+import org.apache.sis.internal.raster.TiledImage;
+import org.apache.sis.internal.raster.TileCache;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.util.ArraysExt;
+import org.apache.sis.util.collection.Cache;
+import org.apache.sis.math.Vector;
+
+
+/**
+ * Data from a {@link GridResource}, loaded one tile at a time when first requested.
+ * This is used instead of {@link Image} when the requested region is larger than a tile,
+ * in which case reading all sample values at {@code read(…)} time would consume a lot of
+ * memory even if the caller needs only a small part of the image.
+ *
+ * <p>Each tile is read from a single netCDF variable, then cached in {@link TileCache#GLOBAL}.
+ * The tiles of all bands missing from the cache are read together, which allows the decoder to
+ * read variables interleaved record by record in a single pass over the file.
+ * The cache is shared by all variables of all netCDF files, and its capacity is bounded by the
+ * amount of memory used by the tiles. Tiles of different variables are combined in a multi-banks
+ * raster when the image is rendered.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+final class TiledCoverage extends GridCoverage {
+    /**
+     * Index of the band to show in rendered image.
+     */
+    private static final int VISIBLE_BAND = 0;
+
+    /**
+     * The maximal tile width and height, in pixels. Images having at least one
+     * dimension greater than this size are loaded tile by tile.
+     */
+    static final int TILE_SIZE = 512;
+
+    /**
+     * The variable to read for each band, in the order of sample dimensions.
+     * The same variable may appear more than once. Those slices are for the first
+     * grid cell in all dimensions other than the two first ones.
+     *
+     * @see Slice#at(long[])
+     */
+    private final Slice[] bands;
+
+    /**
+     * The decoder to use for reading the variables. This is also the object
+     * on which to synchronize when reading a variable.
+     */
+    private final Decoder decoder;
+
+    /**
+     * Size of the image after sub-sampling.
+     */
+    private final int width, height;
+
+    /**
+     * The sample model of tiles cached for a single variable.
+     */
+    private final SampleModel cachedModel;
+
+    /**
+     * The sample model of the tiles returned by the rendered image, with one bank per band.
+     */
+    private final SampleModel imageModel;
+
+    /**
+     * The image returned by the last call to {@link #render(DirectPosition)}, or {@code null} if none.
+     */
+    private RenderedImage image;
+
+    /**
+     * Indices of the slice rendered by {@link #image}, in all dimensions other than the two first ones.
+     * Indices are in units of the sub-sampled grid, relative to the lowest grid coordinates.
+     */
+    private long[] imageSlice;
+
+    /**
+     * Creates a new coverage for the given region of the given variables.
+     *
+     * @param  domain     the grid geometry of the coverage, after sub-sampling.
+     * @param  range      the sample dimensions of the selected bands.
+     * @param  variables  the variable to read for each band.
+     * @param  decoder    the decoder to use for reading the variables, also used as synchronization lock.
+     * @param  area       indices of cell values to read in the variables, before sub-sampling.
+     * @param  strides    sub-sampling along each dimension.
+     * @param  dataType   the {@link DataBuffer} type of sample values.
+     */
+    TiledCoverage(final GridGeometry domain, final List<SampleDimension> range, final Variable[] variables,
+                  final Decoder decoder, final GridExtent area, final int[] strides, final int dataType)
+    {
+        super(domain, range);
+        this.decoder = decoder;
+        final GridExtent extent = domain.getExtent();
+        width       = Math.toIntExact(extent.getSize(0));
+        height      = Math.toIntExact(extent.getSize(1));
+        final int tw = Math.min(width,  TILE_SIZE);
+        final int th = Math.min(height, TILE_SIZE);
+        cachedModel = new BandedSampleModel(dataType, tw, th, 1);
+        imageModel  = new BandedSampleModel(dataType, tw, th, variables.length);
+        bands       = new Slice[variables.length];
+        for (int i=0; i<bands.length; i++) {
+            bands[i] = new Slice(decoder, variables[i], area, strides);
+        }
+    }
+
+    /**
+     * Removes from {@link TileCache#GLOBAL} all tiles read by the given decoder.
+     * This method shall be invoked when the netCDF file is closed, since the cache keys contain
+     * references to the variables which would otherwise keep the decoder and its channel reachable.
+     *
+     * @param  decoder  the decoder of the netCDF file which is closed.
+     */
+    static void removeTiles(final Decoder decoder) {
+        TileCache.GLOBAL.removeAll((source) -> (source instanceof Slice) && ((Slice) source).decoder == decoder);
+    }
+
+    /**
+     * Returns a two-dimensional slice of grid data as a rendered image. Tiles are loaded when first requested.
+     * If the grid has more than two dimensions, then the slice is selected by the given point, or is the first
+     * slice if the given point is null. The image of the last requested slice is cached.
+     *
+     * @param  slicePoint  coordinates of the slice in dimensions other than the two first ones,
+     *         or {@code null} for the first slice.
+     * @return the grid slice as a rendered image.
+     * @throws IllegalArgumentException if the given point is outside the coverage domain.
+     */
+    @Override
+    public synchronized RenderedImage render(final DirectPosition slicePoint) {
+        final long[] slice = Image.sliceIndices(getGridGeometry(), slicePoint);
+        if (image == null || !Arrays.equals(slice, imageSlice)) {
+            final Slice[] selected = new Slice[bands.length];
+            for (int i=0; i<selected.length; i++) {
+                selected[i] = bands[i].at(slice);
+            }
+            final ColorModel colors = ColorModelFactory.createColorModel(getSampleDimensions(), VISIBLE_BAND,
+                    imageModel.getDataType(), (category) -> category.isQuantitative() ? new Color[] {Color.BLACK, Color.WHITE} : null);
+            image = new Tiles(colors, selected);
+            imageSlice = slice;
+        }
+        return image;
+    }
+
+    /**
+     * The rendered image reading tiles on demand.
+     */
+    private final class Tiles extends TiledImage {
+        /**
+         * The variable and slice to read for each band.
+         */
+        private final Slice[] slices;
+
+        /**
+         * Creates a new image for the given slices of the enclosing coverage.
+         */
+        Tiles(final ColorModel colors, final Slice[] slices) {
+            super(imageModel, colors, width, height, 0, 0);
+            this.slices = slices;
+        }
+
+        /**
+         * Returns the tile at the given indices, reading it from the variables or fetching it from the cache.
+         */
+        @Override
+        protected Raster createTile(final int tileX, final int tileY) throws Exception {
+            final Raster[] tiles  = cachedTiles(slices, tileX, tileY);
+            final Buffer[] planes = new Buffer[tiles.length];
+            for (int i=0; i<planes.length; i++) {
+                planes[i] = RasterFactory.wrapAsBuffer(tiles[i].getDataBuffer(), 0);
+            }
+            final DataBuffer buffer = RasterFactory.wrap(imageModel.getDataType(), planes);
+            return Raster.createRaster(imageModel, buffer, new Point(tileX * getTileWidth(), tileY * getTileHeight()));
+        }
+    }
+
+    /**
+     * Returns the tiles of the given variables at the given indices, reading the tiles not already in the cache.
+     * All missing tiles are read by a single call to {@link Decoder#read(Variable[], GridExtent, int[])}, which
+     * allows the decoder to read variables interleaved record by record in a single pass over the file.
+     * The raster locations are (0,0); callers need to wrap their data buffers in a new raster.
+     *
+     * @param  slices  the variable and slice to read for each band. All slices shall use the same area.
+     * @return the tile of each slice, in the same order than the {@code slices} argument.
+     * @throws IOException if an error occurred while reading the variables.
+     * @throws DataStoreException if a logical error occurred.
+     */
+    private Raster[] cachedTiles(final Slice[] slices, final int tileX, final int tileY) throws IOException, DataStoreException {
+        final int tw = cachedModel.getWidth();
+        final int th = cachedModel.getHeight();
+        final int tilesAcross = (width + tw - 1) / tw;
+        final long index = tileY * (long) tilesAcross + tileX;
+        final Raster[] tiles   = new Raster[slices.length];
+        final Slice[]  missing = new Slice [slices.length];
+        int count = 0;
+        for (int i=0; i<slices.length; i++) {
+            final Slice slice = slices[i];
+            tiles[i] = TileCache.GLOBAL.peek(new TileCache.Key(slice, index));
+            if (tiles[i] == null && !ArraysExt.contains(missing, slice)) {
+                missing[count++] = slice;               // The same slice may be requested for many bands.
+            }
+        }
+        if (count != 0) {
+            final int x = tileX * tw;
+            final int y = tileY * th;
+            final int w = Math.min(tw, width  - x);
+            final int h = Math.min(th, height - y);
+            final Variable[] variables = new Variable[count];
+            for (int k=0; k<count; k++) {
+                variables[k] = missing[k].variable;
+            }
+            final Vector[] values;
+            synchronized (decoder) {
+                values = decoder.read(variables, missing[0].area(x, y, w, h), missing[0].strides);
+            }
+            final int dataType = cachedModel.getDataType();
+            for (int k=0; k<count; k++) {
+                // Optional.get() should never fail since Variable.read(…) wraps primitive array or buffer.
+                final Buffer samples = values[k].buffer().get();
+                Raster tile = Raster.createRaster(new BandedSampleModel(dataType, w, h, 1), RasterFactory.wrap(dataType, samples), null);
+                if (w != tw || h != th) {
+                    /*
+                     * Tiles on the last row or last column may be smaller than the other tiles.
+                     * Copy their values in a tile of standard size, with remaining values set to zero.
+                     */
+                    final WritableRaster full = Raster.createWritableRaster(cachedModel, null);
+                    full.setRect(tile);
+                    tile = full;
+                }
+                /*
+                 * Another thread may have read the same tile in the meantime.
+                 * In such case, keep the tile already in the cache.
+                 */
+                final Cache.Handler<Raster> handler = TileCache.GLOBAL.lock(new TileCache.Key(missing[k], index));
+                try {
+                    final Raster existing = handler.peek();
+                    if (existing != null) {
+                        tile = existing;
+                    }
+                } finally {
+                    handler.putAndUnlock(tile);
+                }
+                for (int i=0; i<slices.length; i++) {
+                    if (tiles[i] == null && slices[i].equals(missing[k])) {
+                        tiles[i] = tile;
+                    }
+                }
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * A netCDF variable together with the region to read and the sub-sampling.
+     * Instances of this class are used as source identifiers in {@link TileCache} keys.
+     * Two instances are equal if they read the same cells of the same variable.
+     */
+    private static final class Slice {
+        /**
+         * The decoder which reads the variable.
+         * Used for identifying the tiles to remove when the netCDF file is closed.
+         */
+        final Decoder decoder;
+
+        /**
+         * The variable from which to read tiles.
+         */
+        final Variable variable;
+
+        /**
+         * Indices of cell values to read, before sub-sampling.
+         * Only the lowest index is read in dimensions other than the two first ones.
+         */
+        private final GridExtent extent;
+
+        /**
+         * Sub-sampling along each dimension.
+         */
+        final int[] strides;
+
+        /**
+         * Creates a new description of the tiles to read in the given variable.
+         */
+        Slice(final Decoder decoder, final Variable variable, final GridExtent extent, final int[] strides) {
+            this.decoder  = decoder;
+            this.variable = variable;
+            this.extent   = extent;
+            this.strides  = strides;
+        }
+
+        /**
+         * Returns a description of the tiles to read in the given slice of the same variable.
+         * The given indices are in units of the sub-sampled grid, relative to the first slice.
+         *
+         * @param  slice  indices of the slice in all dimensions other than the two first ones.
+         * @return description of the tiles to read for the given slice.
+         */
+        Slice at(final long[] slice) {
+            boolean isFirst = true;
+            for (final long index : slice) {
+                isFirst &= (index == 0);
+            }
+            if (isFirst) {
+                return this;
+            }
+            final int dimension = extent.getDimension();
+            final DimensionNameType[] types = new DimensionNameType[dimension];
+            final long[] low  = new long[dimension];
+            final long[] high = new long[dimension];
+            for (int i=0; i<dimension; i++) {
+                types[i] = extent.getAxisType(i).orElse(null);
+                low  [i] = extent.getLow (i);
+                high [i] = extent.getHigh(i);
+            }
+            for (int i=0; i<slice.length; i++) {
+                final int d = i + Image.BIDIMENSIONAL;
+                low [d] = Math.addExact(low[d], Math.multiplyExact(slice[i], strides[d]));
+                high[d] = low[d];
+            }
+            return new Slice(decoder, variable, new GridExtent(types, low, high, true), strides);
+        }
+
+        /**
+         * Returns the indices of cell values to read for the given tile.
+         *
+         * @param  x  column of the first pixel of the tile, in units of pixels after sub-sampling.
+         * @param  y  row of the first pixel of the tile, in units of pixels after sub-sampling.
+         * @param  w  tile width, in units of pixels after sub-sampling.
+         * @param  h  tile height, in units of pixels after sub-sampling.
+         */
+        GridExtent area(final int x, final int y, final int w, final int h) {
+            final int dimension = extent.getDimension();
+            final DimensionNameType[] types = new DimensionNameType[dimension];
+            final long[] low  = new long[dimension];
+            final long[] high = new long[dimension];
+            for (int i=0; i<dimension; i++) {
+                types[i] = extent.getAxisType(i).orElse(null);
+                low  [i] = extent.getLow(i);
+                high [i] = low[i];
+            }
+            low [0] += x * (long) strides[0];
+            low [1] += y * (long) strides[1];
+            high[0]  = low[0] + (w - 1) * (long) strides[0];
+            high[1]  = low[1] + (h - 1) * (long) strides[1];
+            return new GridExtent(types, low, high, true);
+        }
+
+        /**
+         * Returns a hash code value for this description.
+         */
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(variable) + 31 * (extent.hashCode() + 31 * Arrays.hashCode(strides));
+        }
+
+        /**
+         * Compares this description with the given object for equality.
+         */
+        @Override
+        public boolean equals(final Object other) {
+            if (other instanceof Slice) {
+                final Slice that = (Slice) other;
+                return variable == that.variable && extent.equals(that.extent) && Arrays.equals(strides, that.strides);
+            }
+            return false;
+        }
+
+        /**
+         * Returns a string representation for debugging purpose.
+         */
+        @Override
+        public String toString() {
+            return variable.getName() + ' ' + extent;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.netcdf.impl;
+
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Collections;
+import java.io.IOException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import org.apache.sis.internal.netcdf.DataType;
+import org.apache.sis.internal.netcdf.Decoder;
+import org.apache.sis.internal.netcdf.TestCase;
+import org.apache.sis.internal.netcdf.Variable;
+import org.apache.sis.internal.storage.io.ChannelDataInput;
+import org.apache.sis.internal.storage.io.ChannelDataOutput;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.netcdf.AttributeNames;
+import org.apache.sis.setup.GeometryLibrary;
+import org.apache.sis.util.ArraysExt;
+import org.apache.sis.math.Vector;
+import org.apache.sis.test.DependsOn;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the {@link ChannelEncoder} class by writing a small file in memory, then reading it back
+ * with {@link ChannelDecoder}.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+@DependsOn(ChannelDecoderTest.class)
+public final strictfp class ChannelEncoderTest extends TestCase {
+    /**
+     * Number of records to write.
+     */
+    private static final int NUM_RECORDS = 4;
+
+    /**
+     * Creates an encoder writing in the given stream, with a dataset of 2×3 cells over an unlimited time dimension.
+     */
+    private static ChannelEncoder createEncoder(final ByteArrayOutputStream bytes) {
+        final ChannelEncoder encoder = new ChannelEncoder(new ChannelDataOutput("test",
+                Channels.newChannel(bytes), ByteBuffer.allocate(4096)));
+        encoder.addDimension("time", 0);
+        encoder.addDimension("lat",  2);
+        encoder.addDimension("lon",  3);
+        encoder.addAttribute(AttributeNames.TITLE, "Encoder test");
+        encoder.addVariable("lat",  DataType.FLOAT,  new String[] {"lat"},  Collections.singletonMap("units", "degrees_north"));
+        encoder.addVariable("lon",  DataType.FLOAT,  new String[] {"lon"},  Collections.singletonMap("units", "degrees_east"));
+        encoder.addVariable("time", DataType.DOUBLE, new String[] {"time"}, Collections.singletonMap("units", "hours since 2018-01-01"));
+        encoder.addVariable("flag", DataType.BYTE,   new String[] {"time", "lat", "lon"}, null);
+        return encoder;
+    }
+
+    /**
+     * Writes records one at a time, then verifies that {@link ChannelDecoder} reads the same values.
+     * The byte variable requires padding between records, which is verified by reading it back.
+     *
+     * @throws IOException should never happen since we write in memory.
+     * @throws DataStoreException if the decoder can not parse the file.
+     */
+    @Test
+    public void testWriteRecords() throws IOException, DataStoreException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ChannelEncoder encoder = createEncoder(bytes)) {
+            encoder.endDefinition();
+            encoder.write("lat", new float[] {10, 20});
+            encoder.write("lon", new float[] {-5, 0, 5});
+            for (int t=0; t<NUM_RECORDS; t++) {
+                final byte[] flags = new byte[6];
+                for (int i=0; i<flags.length; i++) {
+                    flags[i] = (byte) (t*10 + i);
+                }
+                encoder.writeRecord(new double[] {t}, flags);
+            }
+            assertEquals("recordCount", NUM_RECORDS, encoder.getRecordCount());
+        }
+        final ChannelDataInput input = new ChannelDataInput("test",
+                Channels.newChannel(new ByteArrayInputStream(ArraysExt.EMPTY_BYTE)), ByteBuffer.wrap(bytes.toByteArray()), true);
+        final Decoder decoder = new ChannelDecoder(input, null, GeometryLibrary.JAVA2D, LISTENERS);
+        assertEquals(AttributeNames.TITLE, "Encoder test", decoder.stringValue(AttributeNames.TITLE));
+        final Map<String,Variable> variables = new HashMap<>();
+        for (final Variable variable : decoder.getVariables()) {
+            variables.put(variable.getName(), variable);
+        }
+        assertEquals("variables", 4, variables.size());
+
+        Vector values = variables.get("lon").read();
+        assertEquals("lon", 3, values.size());
+        assertEquals("lon", 5, values.doubleValue(2), STRICT);
+
+        values = variables.get("time").read();
+        assertEquals("time", NUM_RECORDS, values.size());
+        for (int t=0; t<NUM_RECORDS; t++) {
+            assertEquals("time", t, values.doubleValue(t), STRICT);
+        }
+        values = variables.get("flag").read();
+        assertEquals("flag", NUM_RECORDS * 6, values.size());
+        for (int i=0; i<values.size(); i++) {
+            assertEquals("flag", (i / 6) * 10 + (i % 6), values.intValue(i));
+        }
+    }
+
+    /**
+     * Verifies that writing variables in a different order than declaration order is rejected.
+     *
+     * @throws IOException should never happen since we write in memory.
+     */
+    @Test
+    public void testWrongOrder() throws IOException {
+        final ChannelEncoder encoder = createEncoder(new ByteArrayOutputStream());
+        try {
+            encoder.write("lon", new float[] {-5, 0, 5});
+            fail("Shall not write a variable before the previous ones.");
+        } catch (IllegalStateException e) {
+            final String message = e.getMessage();
+            assertTrue(message, message.contains("lon"));
+            assertTrue(message, message.contains("lat"));
+        }
+    }
+}
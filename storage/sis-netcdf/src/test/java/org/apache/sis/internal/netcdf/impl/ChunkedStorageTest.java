@@ -0,0 +1,247 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.netcdf.impl;
+
+import java.io.IOException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteOrder;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import org.apache.sis.internal.netcdf.DataType;
+import org.apache.sis.internal.storage.io.ChannelDataInput;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.util.ArraysExt;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the {@link ChunkedStorage} class with a small dataset encoded in memory.
+ * The dataset has 5 columns and 7 rows of 16 bits integers, stored in chunks of 2 columns and 3 rows.
+ * Chunks are shuffled and deflated, except one chunk which is only shuffled and one chunk which is missing.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+public final strictfp class ChunkedStorageTest extends TestCase {
+    /**
+     * Size of the dataset and of the chunks, in natural order.
+     */
+    static final int WIDTH = 5, HEIGHT = 7, CHUNK_WIDTH = 2, CHUNK_HEIGHT = 3;
+
+    /**
+     * Number of chunks along each dimension.
+     */
+    private static final int CHUNKS_ACROSS = 3, CHUNKS_DOWN = 3;
+
+    /**
+     * Index of the chunk which is not stored in the file.
+     */
+    private static final int MISSING_CHUNK = 1 * CHUNKS_ACROSS + 1;
+
+    /**
+     * Index of the chunk which is shuffled but not deflated.
+     */
+    private static final int UNCOMPRESSED_CHUNK = 2;
+
+    /**
+     * Returns {@code true} if the value at the given column and row is in the chunk which is not stored in the file.
+     */
+    static boolean isMissing(final int x, final int y) {
+        return (y / CHUNK_HEIGHT) * CHUNKS_ACROSS + (x / CHUNK_WIDTH) == MISSING_CHUNK;
+    }
+
+    /**
+     * Returns the value stored at the given column and row, or 0 if that value is in the missing chunk.
+     */
+    static short value(final int x, final int y) {
+        return isMissing(x, y) ? 0 : (short) (100 * y + x + 1);
+    }
+
+    /**
+     * Encodes the content of a chunk as the HDF5 library would do with the shuffle and deflate filters.
+     */
+    private static byte[] encodeChunk(final int cx, final int cy, final boolean deflate) {
+        final ByteBuffer buffer = ByteBuffer.allocate(CHUNK_WIDTH * CHUNK_HEIGHT * Short.BYTES);
+        for (int y=0; y<CHUNK_HEIGHT; y++) {
+            for (int x=0; x<CHUNK_WIDTH; x++) {
+                final int gx = cx * CHUNK_WIDTH  + x;
+                final int gy = cy * CHUNK_HEIGHT + y;
+                buffer.putShort((gx < WIDTH && gy < HEIGHT) ? value(gx, gy) : 0);
+            }
+        }
+        final byte[] plain = buffer.array();
+        final int n = plain.length / Short.BYTES;
+        final byte[] shuffled = new byte[plain.length];
+        for (int i=0; i<n; i++) {
+            for (int b=0; b<Short.BYTES; b++) {
+                shuffled[b*n + i] = plain[i*Short.BYTES + b];
+            }
+        }
+        if (!deflate) {
+            return shuffled;
+        }
+        final Deflater deflater = new Deflater();
+        deflater.setInput(shuffled);
+        deflater.finish();
+        final byte[] compressed = new byte[shuffled.length * 2 + 64];
+        final int length = deflater.deflate(compressed);
+        assertTrue(deflater.finished());
+        deflater.end();
+        return Arrays.copyOf(compressed, length);
+    }
+
+    /**
+     * Creates a B-tree with a single leaf node, followed by the chunks. Addresses are 8 bytes long.
+     *
+     * @param  address  address in the file where the returned bytes will be stored.
+     * @return the B-tree node followed by the chunks.
+     */
+    static byte[] createIndex(final long address) {
+        final ByteArrayOutputStream chunks = new ByteArrayOutputStream();
+        final int numEntries = CHUNKS_ACROSS * CHUNKS_DOWN - 1;
+        final int keySize    = 2 * Integer.BYTES + 3 * Long.BYTES;
+        final int nodeSize   = 8 + 2 * Long.BYTES + numEntries * (keySize + Long.BYTES) + keySize;
+        final ByteBuffer node = ByteBuffer.allocate(nodeSize).order(ByteOrder.LITTLE_ENDIAN);
+        node.put(new byte[] {'T', 'R', 'E', 'E', 1, 0}).putShort((short) numEntries).putLong(-1).putLong(-1);
+        for (int cy=0; cy<CHUNKS_DOWN; cy++) {
+            for (int cx=0; cx<CHUNKS_ACROSS; cx++) {
+                final int index = cy * CHUNKS_ACROSS + cx;
+                if (index != MISSING_CHUNK) {
+                    final boolean deflate = (index != UNCOMPRESSED_CHUNK);
+                    final byte[] data = encodeChunk(cx, cy, deflate);
+                    node.putInt(data.length).putInt(deflate ? 0 : 2);           // Bit 1 = second filter not applied.
+                    node.putLong(cy * CHUNK_HEIGHT).putLong(cx * CHUNK_WIDTH).putLong(0);
+                    node.putLong(address + nodeSize + chunks.size());
+                    chunks.write(data, 0, data.length);
+                }
+            }
+        }
+        node.putInt(0).putInt(0).putLong(HEIGHT).putLong(WIDTH).putLong(0);
+        assertEquals(nodeSize, node.position());
+        final byte[] file = Arrays.copyOf(node.array(), nodeSize + chunks.size());
+        System.arraycopy(chunks.toByteArray(), 0, file, nodeSize, chunks.size());
+        return file;
+    }
+
+    /**
+     * Creates the storage to test.
+     */
+    private static ChunkedStorage createStorage() throws IOException, DataStoreException {
+        final ChannelDataInput input = new ChannelDataInput("test",
+                Channels.newChannel(new ByteArrayInputStream(ArraysExt.EMPTY_BYTE)), ByteBuffer.wrap(createIndex(0)), true);
+        final ChunkedStorage storage = new ChunkedStorage(input, 0, DataType.SHORT, ByteOrder.BIG_ENDIAN,
+                new long[] {WIDTH, HEIGHT}, new int[] {CHUNK_WIDTH, CHUNK_HEIGHT},
+                new int[] {ChunkedStorage.SHUFFLE, ChunkedStorage.DEFLATE}, null);
+        storage.readIndex(0, Long.BYTES);
+        return storage;
+    }
+
+    /**
+     * Reads the given region and compares with the expected values.
+     *
+     * @param  fill  the value expected in the missing chunk.
+     */
+    static void verify(final ChunkedStorage storage, final int xmin, final int ymin,
+            final int xmax, final int ymax, final int sx, final int sy, final short fill)
+            throws IOException, DataStoreException
+    {
+        final short[] actual = (short[]) storage.read(new long[] {xmin, ymin}, new long[] {xmax, ymax}, new int[] {sx, sy});
+        final short[] expected = new short[actual.length];
+        int i = 0;
+        for (int y=ymin; y<ymax; y += sy) {
+            for (int x=xmin; x<xmax; x += sx) {
+                expected[i++] = isMissing(x, y) ? fill : value(x, y);
+            }
+        }
+        assertEquals("length", i, actual.length);
+        assertArrayEquals(expected, actual);
+    }
+
+    /**
+     * Tests reading the whole dataset, then sub-regions with and without sub-sampling.
+     *
+     * @throws IOException should never happen since we read in memory only.
+     * @throws DataStoreException if the B-tree or a chunk can not be decoded.
+     */
+    @Test
+    public void testRead() throws IOException, DataStoreException {
+        final ChunkedStorage storage = createStorage();
+        verify(storage, 0, 0, WIDTH, HEIGHT, 1, 1, (short) 0);
+        verify(storage, 1, 2, 4, 6, 1, 1, (short) 0);
+        verify(storage, 1, 0, WIDTH, HEIGHT, 2, 2, (short) 0);
+        verify(storage, 0, 1, WIDTH, HEIGHT, 3, 4, (short) 0);
+    }
+
+    /**
+     * Tests that uncompressed chunks are cached and reused by subsequent reads,
+     * and that only the chunks intersecting the requested region are read.
+     *
+     * @throws IOException should never happen since we read in memory only.
+     * @throws DataStoreException if the B-tree or a chunk can not be decoded.
+     */
+    @Test
+    public void testCache() throws IOException, DataStoreException {
+        final ChunkedStorage storage = createStorage();
+        final ChunkCache.Key key = new ChunkCache.Key(storage, 0);
+        assertFalse(ChunkCache.GLOBAL.contains(key));
+        verify(storage, 0, 0, 2, 2, 1, 1, (short) 0);
+        final byte[] chunk = ChunkCache.GLOBAL.get(key);
+        assertNotNull(chunk);
+        assertFalse(ChunkCache.GLOBAL.contains(new ChunkCache.Key(storage, 1)));
+        verify(storage, 1, 1, 2, 3, 1, 1, (short) 0);
+        assertSame(chunk, ChunkCache.GLOBAL.get(key));
+        ChunkCache.GLOBAL.removeAll(storage.input);
+        assertFalse(ChunkCache.GLOBAL.contains(key));
+    }
+
+    /**
+     * Tests the eviction of least recently used chunks when the cache capacity is exceeded.
+     *
+     * @throws IOException should never happen since we read in memory only.
+     * @throws DataStoreException if the B-tree can not be decoded.
+     */
+    @Test
+    public void testEviction() throws IOException, DataStoreException {
+        final ChunkedStorage storage = createStorage();
+        final ChunkCache cache = new ChunkCache(30);
+        final ChunkCache.Key k0 = new ChunkCache.Key(storage, 0);
+        final ChunkCache.Key k1 = new ChunkCache.Key(storage, 1);
+        final ChunkCache.Key k2 = new ChunkCache.Key(storage, 2);
+        cache.put(k0, new byte[10]);
+        cache.put(k1, new byte[10]);
+        assertEquals(20, cache.size());
+        assertNotNull(cache.get(k0));                   // Make k1 the least recently used chunk.
+        cache.put(k2, new byte[15]);
+        assertEquals(25, cache.size());
+        assertTrue (cache.contains(k0));
+        assertFalse(cache.contains(k1));
+        assertTrue (cache.contains(k2));
+        cache.put(k1, new byte[40]);                    // Larger than the capacity: not cached.
+        assertFalse(cache.contains(k1));
+        assertEquals(25, cache.size());
+        cache.removeAll(storage.input);
+        assertEquals(0, cache.size());
+    }
+}
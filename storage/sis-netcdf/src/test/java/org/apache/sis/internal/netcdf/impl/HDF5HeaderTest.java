@@ -0,0 +1,349 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.netcdf.impl;
+
+import java.util.Map;
+import java.util.List;
+import java.io.IOException;
+import java.io.ByteArrayInputStream;
+import java.nio.ByteOrder;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.apache.sis.internal.netcdf.DataType;
+import org.apache.sis.internal.storage.io.ChannelDataInput;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.util.ArraysExt;
+import org.apache.sis.test.DependsOn;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.apache.sis.internal.netcdf.impl.ChunkedStorageTest.WIDTH;
+import static org.apache.sis.internal.netcdf.impl.ChunkedStorageTest.HEIGHT;
+
+
+/**
+ * Tests the {@link HDF5Header} class with a small netCDF-4 file encoded in memory.
+ * The file contains the following dimensions and variables, where {@code sst} is stored
+ * in shuffled and deflated chunks as described in {@link ChunkedStorageTest}:
+ *
+ * {@preformat text
+ *     dimensions:
+ *         y = 7 ;
+ *         x = 5 ;
+ *     variables:
+ *         float x(x) ;
+ *             x:units = "m" ;
+ *         short sst(y, x) ;
+ *             sst:units = "K" ;
+ *             sst:_FillValue = -1s ;
+ *     // global attributes:
+ *         :title = "Test" ;
+ * }
+ *
+ * The checksums of HDF5 structures are left to zero since they are not verified by the reader.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+@DependsOn(ChunkedStorageTest.class)
+public final strictfp class HDF5HeaderTest extends TestCase {
+    /**
+     * Types of header messages written by this test.
+     */
+    private static final int DATASPACE = 0x01, DATATYPE = 0x03, FILL_VALUE = 0x05, LINK = 0x06,
+            DATA_LAYOUT = 0x08, FILTER_PIPELINE = 0x0B, ATTRIBUTE = 0x0C;
+
+    /**
+     * The fill value of the {@code sst} variable.
+     */
+    private static final short FILL_VALUE_SST = -1;
+
+    /**
+     * The file being written, in little-endian byte order as all HDF5 metadata.
+     */
+    private final ByteBuffer file = ByteBuffer.allocate(16384).order(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Address of the data of the {@code x} variable.
+     */
+    private long xData;
+
+    /**
+     * Appends a header message of the given type in the given buffer of messages.
+     */
+    private static void message(final ByteBuffer messages, final int type, final ByteBuffer data) {
+        data.flip();
+        messages.put((byte) type).putShort((short) data.remaining()).put((byte) 0).put(data);
+    }
+
+    /**
+     * Returns a new buffer for encoding the content of a message.
+     */
+    private static ByteBuffer buffer() {
+        return ByteBuffer.allocate(4096).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Writes a version 2 object header containing the given messages and returns its address.
+     */
+    private long objectHeader(final ByteBuffer messages) {
+        messages.flip();
+        final long address = file.position();
+        file.put(new byte[] {'O', 'H', 'D', 'R', 2, 1}).putShort((short) messages.remaining()).put(messages).putInt(0);
+        return address;
+    }
+
+    /**
+     * Encodes a simple dataspace of the given size, or a scalar dataspace if no size is given.
+     */
+    private static ByteBuffer dataspace(final long... shape) {
+        final ByteBuffer b = buffer().put((byte) 2).put((byte) shape.length).put((byte) 0).put((byte) (shape.length != 0 ? 1 : 0));
+        for (final long s : shape) b.putLong(s);
+        return b;
+    }
+
+    /**
+     * Encodes a fixed-point datatype of the given size.
+     */
+    private static ByteBuffer fixedPoint(final int size, final boolean bigEndian) {
+        return buffer().put((byte) 0x10).put((byte) (0x08 | (bigEndian ? 1 : 0))).putShort((short) 0)
+                .putInt(size).putShort((short) 0).putShort((short) (size * Byte.SIZE));
+    }
+
+    /**
+     * Encodes the IEEE 754 single precision datatype in little-endian byte order.
+     */
+    private static ByteBuffer floatingPoint() {
+        return buffer().put((byte) 0x11).put((byte) 0x20).put((byte) 31).put((byte) 0).putInt(Float.BYTES)
+                .putShort((short) 0).putShort((short) Float.SIZE).put((byte) 23).put((byte) 8)
+                .put((byte) 0).put((byte) 23).putInt(127);
+    }
+
+    /**
+     * Encodes a fixed-length string datatype of the given size.
+     */
+    private static ByteBuffer string(final int size) {
+        return buffer().put((byte) 0x13).put((byte) 0).putShort((short) 0).putInt(size);
+    }
+
+    /**
+     * Encodes a variable-length sequence of object references, as used by the {@code DIMENSION_LIST} attribute.
+     */
+    private static ByteBuffer references() {
+        return buffer().put((byte) 0x19).put((byte) 0).putShort((short) 0).putInt(Integer.BYTES + Long.BYTES + Integer.BYTES)
+                       .put((byte) 0x17).put((byte) 0).putShort((short) 0).putInt(Long.BYTES);
+    }
+
+    /**
+     * Appends a version 3 attribute message in the given buffer of messages.
+     */
+    private static void attribute(final ByteBuffer messages, final String name, ByteBuffer type, ByteBuffer space, final ByteBuffer value) {
+        final byte[] n = (name + '\0').getBytes(StandardCharsets.US_ASCII);
+        type.flip(); space.flip(); value.flip();
+        final ByteBuffer b = buffer().put((byte) 3).put((byte) 0).putShort((short) n.length)
+                .putShort((short) type.remaining()).putShort((short) space.remaining()).put((byte) 0)
+                .put(n).put(type).put(space).put(value);
+        message(messages, ATTRIBUTE, b);
+    }
+
+    /**
+     * Appends an attribute message for a string value.
+     */
+    private static void attribute(final ByteBuffer messages, final String name, final String value) {
+        final byte[] v = (value + '\0').getBytes(StandardCharsets.US_ASCII);
+        attribute(messages, name, string(v.length), dataspace(), buffer().put(v));
+    }
+
+    /**
+     * Appends an attribute message for a 32 bits integer value.
+     */
+    private static void attribute(final ByteBuffer messages, final String name, final int value) {
+        attribute(messages, name, fixedPoint(Integer.BYTES, false), dataspace(), buffer().putInt(value));
+    }
+
+    /**
+     * Appends a link message for the object at the given address.
+     */
+    private static void link(final ByteBuffer messages, final String name, final long address) {
+        final byte[] n = name.getBytes(StandardCharsets.US_ASCII);
+        message(messages, LINK, buffer().put((byte) 1).put((byte) 0).put((byte) n.length).put(n).putLong(address));
+    }
+
+    /**
+     * Writes the dimension scale {@code y}, which is a netCDF dimension without variable.
+     */
+    private long writeY() {
+        final ByteBuffer m = buffer();
+        message(m, DATASPACE,   dataspace(HEIGHT));
+        message(m, DATATYPE,    floatingPoint());
+        message(m, DATA_LAYOUT, buffer().put((byte) 3).put((byte) 1).putLong(-1).putLong(HEIGHT * Float.BYTES));
+        attribute(m, "CLASS", "DIMENSION_SCALE");
+        attribute(m, "NAME", "This is a netCDF dimension but not a netCDF variable         " + HEIGHT);
+        attribute(m, "_Netcdf4Dimid", 0);
+        return objectHeader(m);
+    }
+
+    /**
+     * Writes the dimension scale {@code x}, which is also a coordinate variable with contiguous data.
+     */
+    private long writeX() {
+        xData = file.position();
+        for (int i=0; i<WIDTH; i++) {
+            file.putFloat(i * 10);
+        }
+        final ByteBuffer m = buffer();
+        message(m, DATASPACE,   dataspace(WIDTH));
+        message(m, DATATYPE,    floatingPoint());
+        message(m, DATA_LAYOUT, buffer().put((byte) 3).put((byte) 1).putLong(xData).putLong(WIDTH * Float.BYTES));
+        attribute(m, "CLASS", "DIMENSION_SCALE");
+        attribute(m, "NAME", "x");
+        attribute(m, "_Netcdf4Dimid", 1);
+        attribute(m, "units", "m");
+        return objectHeader(m);
+    }
+
+    /**
+     * Writes a global heap collection containing one reference for each given object address.
+     * The identifier of each object in the collection is its index in the given array plus one.
+     */
+    private long writeGlobalHeap(final long... addresses) {
+        final long collection = file.position();
+        file.put(new byte[] {'G', 'C', 'O', 'L', 1, 0, 0, 0}).putLong(4096);
+        for (int i=0; i<addresses.length; i++) {
+            file.putShort((short) (i + 1)).putShort((short) 1).putInt(0).putLong(Long.BYTES).putLong(addresses[i]);
+        }
+        file.position(Math.toIntExact(collection + 4096));      // Free space, with object index 0.
+        return collection;
+    }
+
+    /**
+     * Writes the {@code sst} variable, which is stored in chunks.
+     */
+    private long writeSST(final long y, final long x) {
+        final long heap = writeGlobalHeap(y, x);
+        final long btree = file.position();
+        file.put(ChunkedStorageTest.createIndex(btree));
+        final ByteBuffer m = buffer();
+        message(m, DATASPACE,  dataspace(HEIGHT, WIDTH));
+        message(m, DATATYPE,   fixedPoint(Short.BYTES, true));
+        message(m, FILL_VALUE, buffer().put((byte) 3).put((byte) 0x20).putInt(Short.BYTES)
+                .order(ByteOrder.BIG_ENDIAN).putShort(FILL_VALUE_SST).order(ByteOrder.LITTLE_ENDIAN));
+        message(m, DATA_LAYOUT, buffer().put((byte) 3).put((byte) 2).put((byte) 3).putLong(btree)
+                .putInt(ChunkedStorageTest.CHUNK_HEIGHT).putInt(ChunkedStorageTest.CHUNK_WIDTH).putInt(Short.BYTES));
+        message(m, FILTER_PIPELINE, buffer().put((byte) 2).put((byte) 2)
+                .putShort((short) ChunkedStorage.SHUFFLE).putShort((short) 0).putShort((short) 1).putInt(Short.BYTES)
+                .putShort((short) ChunkedStorage.DEFLATE).putShort((short) 0).putShort((short) 1).putInt(6));
+        final ByteBuffer list = buffer();
+        for (int i=1; i<=2; i++) {
+            list.putInt(1).putLong(heap).putInt(i);
+        }
+        attribute(m, "DIMENSION_LIST", references(), dataspace(2), list);
+        attribute(m, "units", "K");
+        return objectHeader(m);
+    }
+
+    /**
+     * Writes the whole file and returns its content.
+     */
+    private byte[] createFile() {
+        file.put(new byte[] {(byte) 0x89, 'H', 'D', 'F', '\r', '\n', 0x1A, '\n', 2, 8, 8, 0});
+        file.putLong(0).putLong(-1).putLong(0).putLong(0).putInt(0);        // Root address and EOF set later.
+        final long y   = writeY();
+        final long x   = writeX();
+        final long sst = writeSST(y, x);
+        final ByteBuffer m = buffer();
+        link(m, "y",   y);
+        link(m, "x",   x);
+        link(m, "sst", sst);
+        attribute(m, "title", "Test");
+        attribute(m, "_NCProperties", "version=2");
+        final long root = objectHeader(m);
+        file.putLong(28, file.position()).putLong(36, root);
+        return Arrays.copyOf(file.array(), file.position());
+    }
+
+    /**
+     * Returns the value of the attribute of the given name, or {@code null} if none.
+     */
+    private static Object attribute(final List<Map.Entry<String,Object>> attributes, final String name) {
+        for (final Map.Entry<String,Object> entry : attributes) {
+            if (entry.getKey().equals(name)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Tests the parsing of dimensions, variables and attributes, then reads the chunked variable.
+     *
+     * @throws IOException should never happen since we read in memory only.
+     * @throws DataStoreException if the file can not be decoded.
+     */
+    @Test
+    public void testRead() throws IOException, DataStoreException {
+        final ChannelDataInput input = new ChannelDataInput("test.nc",
+                Channels.newChannel(new ByteArrayInputStream(ArraysExt.EMPTY_BYTE)), ByteBuffer.wrap(createFile()), true);
+        assertEquals("signature", HDF5Header.SIGNATURE, input.readInt());
+        final HDF5Header header = new HDF5Header(input);
+        assertEquals("baseAddress", 0, header.baseAddress);
+        /*
+         * Dimensions and global attributes.
+         */
+        assertEquals("dimensions", 2, header.dimensions.length);
+        final Dimension y = header.dimensions[0];
+        final Dimension x = header.dimensions[1];
+        assertEquals("y", y.getName());
+        assertEquals("x", x.getName());
+        assertEquals(HEIGHT, y.length());
+        assertEquals(WIDTH,  x.length());
+        assertEquals(1, header.attributes.size());
+        assertEquals("Test", attribute(header.attributes, "title"));
+        /*
+         * Variables: "y" is a dimension without variable, "x" is stored contiguously and "sst" is chunked.
+         */
+        assertEquals("variables", 2, header.variables.length);
+        final HDF5Header.DataObject vx  = header.variables[0];
+        final HDF5Header.DataObject sst = header.variables[1];
+        assertEquals("x",   vx .name);
+        assertEquals("sst", sst.name);
+        assertEquals(DataType.FLOAT, vx .dataType);
+        assertEquals(DataType.SHORT, sst.dataType);
+        assertArrayEquals(new Dimension[] {x},    vx .dimensions);
+        assertArrayEquals(new Dimension[] {y, x}, sst.dimensions);
+        assertEquals(1, vx .attributes.size());
+        assertEquals(1, sst.attributes.size());
+        assertEquals("m", attribute(vx .attributes, "units"));
+        assertEquals("K", attribute(sst.attributes, "units"));
+        assertEquals(xData, vx.offset);
+        assertNull(vx.chunks);
+        assertEquals(HDF5Header.UNDEFINED, sst.offset);
+        /*
+         * Read the chunked data. The missing chunk shall contain the fill value.
+         */
+        assertNotNull(sst.chunks);
+        ChunkedStorageTest.verify(sst.chunks, 0, 0, WIDTH, HEIGHT, 1, 1, FILL_VALUE_SST);
+        ChunkedStorageTest.verify(sst.chunks, 1, 2, 4, 6, 1, 1, FILL_VALUE_SST);
+        ChunkedStorageTest.verify(sst.chunks, 0, 1, WIDTH, HEIGHT, 3, 2, FILL_VALUE_SST);
+        ChunkCache.GLOBAL.removeAll(input);
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.netcdf.impl;
+
+import java.util.Map;
+import java.util.HashMap;
+import java.io.IOException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import org.apache.sis.coverage.grid.GridExtent;
+import org.apache.sis.internal.netcdf.DataType;
+import org.apache.sis.internal.netcdf.TestCase;
+import org.apache.sis.internal.netcdf.Variable;
+import org.apache.sis.internal.storage.io.ChannelDataInput;
+import org.apache.sis.internal.storage.io.ChannelDataOutput;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.setup.GeometryLibrary;
+import org.apache.sis.util.ArraysExt;
+import org.apache.sis.math.Vector;
+import org.apache.sis.test.DependsOnMethod;
+import org.apache.sis.test.DependsOn;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the {@link RecordReader} class on variables interleaved record by record in a classic netCDF file.
+ * The file is written in memory by {@link ChannelEncoder}. Values read by {@code RecordReader} are compared
+ * with the values read separately for each variable by {@link VariableInfo#read(GridExtent, int[])}.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+@DependsOn(ChannelEncoderTest.class)
+public final strictfp class RecordReaderTest extends TestCase {
+    /**
+     * Number of cells along the longitude and latitude dimensions.
+     */
+    private static final int WIDTH = 5, HEIGHT = 3;
+
+    /**
+     * Number of cells along the depth dimension of the {@code "transect"} variable.
+     * This variable has as many dimensions as the {@link #RECORD_VARIABLES} but different lengths.
+     */
+    private static final int DEPTH = 2;
+
+    /**
+     * Names of the three-dimensional variables using the unlimited dimension, in declaration order.
+     * The byte and short variables need padding between records, which the reader shall skip.
+     */
+    private static final String[] RECORD_VARIABLES = {"sst", "flag", "qc"};
+
+    /**
+     * The input from which the decoder reads the file, or {@code null} if not yet created.
+     */
+    private ChannelDataInput input;
+
+    /**
+     * The {@code "transect"} variable, which uses the unlimited dimension but not the same
+     * dimension lengths than the {@link #RECORD_VARIABLES}.
+     */
+    private VariableInfo transect;
+
+    /**
+     * Returns the value at the given indices of the variable at the given index in {@link #RECORD_VARIABLES}.
+     */
+    private static int value(final int variable, final int x, final int y, final int t) {
+        return variable * 1000 + t * 100 + y * 10 + x;
+    }
+
+    /**
+     * Writes a file with the given number of records in memory, then opens it with {@link ChannelDecoder}.
+     *
+     * @param  numRecords  number of records to write.
+     * @return the variables using the unlimited dimension, in the order of {@link #RECORD_VARIABLES}.
+     */
+    private VariableInfo[] createVariables(final int numRecords) throws IOException, DataStoreException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ChannelEncoder encoder = new ChannelEncoder(new ChannelDataOutput("test",
+                Channels.newChannel(bytes), ByteBuffer.allocate(4096))))
+        {
+            encoder.addDimension("time", 0);
+            encoder.addDimension("lat",  HEIGHT);
+            encoder.addDimension("lon",  WIDTH);
+            encoder.addDimension("depth", DEPTH);
+            final String[] dimensions = {"time", "lat", "lon"};
+            encoder.addVariable("time", DataType.DOUBLE, new String[] {"time"}, null);
+            encoder.addVariable("sst",  DataType.FLOAT,  dimensions, null);
+            encoder.addVariable("flag", DataType.BYTE,   dimensions, null);
+            encoder.addVariable("qc",   DataType.SHORT,  dimensions, null);
+            encoder.addVariable("transect", DataType.FLOAT, new String[] {"time", "depth", "lon"}, null);
+            encoder.endDefinition();
+            for (int t=0; t<numRecords; t++) {
+                final float[] sst  = new float[WIDTH * HEIGHT];
+                final byte [] flag = new byte [WIDTH * HEIGHT];
+                final short[] qc   = new short[WIDTH * HEIGHT];
+                for (int y=0; y<HEIGHT; y++) {
+                    for (int x=0; x<WIDTH; x++) {
+                        final int i = y * WIDTH + x;
+                        sst [i] = value(0, x, y, t);
+                        flag[i] = (byte)  value(1, x, y, t);
+                        qc  [i] = (short) value(2, x, y, t);
+                    }
+                }
+                encoder.writeRecord(new double[] {t}, sst, flag, qc, new float[WIDTH * DEPTH]);
+            }
+            assertEquals("recordCount", numRecords, encoder.getRecordCount());
+        }
+        input = new ChannelDataInput("test", Channels.newChannel(new ByteArrayInputStream(ArraysExt.EMPTY_BYTE)),
+                                     ByteBuffer.wrap(bytes.toByteArray()), true);
+        final ChannelDecoder decoder = new ChannelDecoder(input, null, GeometryLibrary.JAVA2D, LISTENERS);
+        final Map<String,Variable> variables = new HashMap<>();
+        for (final Variable variable : decoder.getVariables()) {
+            variables.put(variable.getName(), variable);
+        }
+        final VariableInfo[] selected = new VariableInfo[RECORD_VARIABLES.length];
+        for (int i=0; i<selected.length; i++) {
+            selected[i] = (VariableInfo) variables.get(RECORD_VARIABLES[i]);
+            assertTrue(RECORD_VARIABLES[i], selected[i].isUnlimited());
+        }
+        transect = (VariableInfo) variables.get("transect");
+        return selected;
+    }
+
+    /**
+     * Reads the given area with {@link RecordReader}, then compares with the values read separately
+     * for each variable and with the expected values.
+     *
+     * @param  variables  the variables to read, in any order.
+     * @param  order      for each variable, its index in {@link #RECORD_VARIABLES}.
+     */
+    private void verifyRead(final VariableInfo[] variables, final int[] order, final GridExtent area,
+            final int[] subsampling) throws IOException, DataStoreException
+    {
+        final long stride = RecordReader.recordStride(variables, area.getDimension());
+        assertTrue("recordStride", stride > 0);
+        final Vector[] actual = new RecordReader(input, variables, stride).read(area, subsampling);
+        assertEquals("variables", variables.length, actual.length);
+        for (int v=0; v<variables.length; v++) {
+            final String name = RECORD_VARIABLES[order[v]];
+            final Vector expected = variables[v].read(area, subsampling);
+            assertEquals(name, expected.size(), actual[v].size());
+            int i = 0;
+            for (long t = area.getLow(2); t <= area.getHigh(2); t += subsampling[2]) {
+                for (long y = area.getLow(1); y <= area.getHigh(1); y += subsampling[1]) {
+                    for (long x = area.getLow(0); x <= area.getHigh(0); x += subsampling[0]) {
+                        final int value = value(order[v], (int) x, (int) y, (int) t);
+                        assertEquals(name, (order[v] == 1) ? (byte) value : value, actual[v].intValue(i));
+                        assertEquals(name, expected.intValue(i), actual[v].intValue(i));
+                        i++;
+                    }
+                }
+            }
+            assertEquals(name, i, actual[v].size());
+        }
+    }
+
+    /**
+     * Tests reading all records of all variables, without sub-sampling.
+     *
+     * @throws IOException should never happen since we read and write in memory.
+     * @throws DataStoreException if an error occurred while decoding the file.
+     */
+    @Test
+    public void testReadAll() throws IOException, DataStoreException {
+        final VariableInfo[] variables = createVariables(6);
+        verifyRead(variables, new int[] {0, 1, 2},
+                new GridExtent(null, null, new long[] {WIDTH, HEIGHT, 6}, false), new int[] {1, 1, 1});
+    }
+
+    /**
+     * Tests reading a sub-area with sub-sampling, including along the unlimited dimension,
+     * with the variables given in a different order than the file order.
+     *
+     * @throws IOException should never happen since we read and write in memory.
+     * @throws DataStoreException if an error occurred while decoding the file.
+     */
+    @Test
+    @DependsOnMethod("testReadAll")
+    public void testReadSubArea() throws IOException, DataStoreException {
+        final VariableInfo[] variables = createVariables(7);
+        ArraysExt.swap(variables, 0, 2);
+        verifyRead(variables, new int[] {2, 1, 0},
+                new GridExtent(null, new long[] {1, 0, 1}, new long[] {4, 2, 6}, true), new int[] {2, 2, 3});
+    }
+
+    /**
+     * Tests a file where the unlimited dimension has no record. Requesting any record shall
+     * be reported as an error instead of reading beyond the end of the file.
+     *
+     * @throws IOException should never happen since we read and write in memory.
+     * @throws DataStoreException if an error occurred while decoding the file.
+     */
+    @Test
+    public void testNoRecord() throws IOException, DataStoreException {
+        final VariableInfo[] variables = createVariables(0);
+        final GridExtent area = new GridExtent(null, null, new long[] {WIDTH, HEIGHT, 1}, false);
+        final long stride = RecordReader.recordStride(variables, area.getDimension());
+        assertTrue("recordStride", stride > 0);
+        try {
+            new RecordReader(input, variables, stride).read(area, new int[] {1, 1, 1});
+            fail("Shall not read a record that does not exist.");
+        } catch (DataStoreException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("0"));
+        }
+    }
+
+    /**
+     * Tests {@link RecordReader#recordStride(VariableInfo[], int)} with variables having the same number
+     * of dimensions but different dimension lengths. Those variables shall not be read together.
+     *
+     * @throws IOException should never happen since we read and write in memory.
+     * @throws DataStoreException if an error occurred while decoding the file.
+     */
+    @Test
+    public void testMismatchedDimensions() throws IOException, DataStoreException {
+        final VariableInfo[] variables = createVariables(2);
+        assertTrue("recordStride", RecordReader.recordStride(variables, 3) > 0);
+        assertTrue(transect.isUnlimited());
+        assertEquals("recordStride", transect.recordStride(), variables[0].recordStride());
+        variables[1] = transect;
+        assertEquals("recordStride", -1, RecordReader.recordStride(variables, 3));
+    }
+}
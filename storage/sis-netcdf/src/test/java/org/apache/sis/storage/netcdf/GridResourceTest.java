@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.netcdf;
+
+import java.util.Collections;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.channels.FileChannel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.referencing.datum.PixelInCell;
+import org.opengis.referencing.operation.TransformException;
+import org.apache.sis.coverage.grid.GridCoverage;
+import org.apache.sis.geometry.GeneralDirectPosition;
+import org.apache.sis.internal.netcdf.DataType;
+import org.apache.sis.internal.raster.TileCache;
+import org.apache.sis.internal.netcdf.impl.ChannelEncoder;
+import org.apache.sis.internal.storage.io.ChannelDataOutput;
+import org.apache.sis.storage.GridCoverageResource;
+import org.apache.sis.storage.DataOptionKey;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.Resource;
+import org.apache.sis.storage.StorageConnector;
+import org.apache.sis.test.DependsOn;
+import org.apache.sis.test.DependsOnMethod;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link GridResource} on a three-dimensional variable, with emphasis on the selection
+ * of the slice to render by {@link Image} and {@link TiledCoverage}.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+@DependsOn(NetcdfStoreTest.class)
+public final strictfp class GridResourceTest extends TestCase {
+    /**
+     * Number of cells along the latitude and time dimensions.
+     */
+    private static final int HEIGHT = 3, NUM_TIMES = 4;
+
+    /**
+     * Returns the sample value expected at the given grid indices.
+     */
+    private static float value(final int x, final int y, final int t) {
+        return t * 100000 + y * 1000 + x;
+    }
+
+    /**
+     * Writes a netCDF file with a variable of the given width, {@value #HEIGHT} rows and {@value #NUM_TIMES} records.
+     *
+     * @param  width  number of cells along the longitude dimension.
+     * @return the temporary file written by this method.
+     */
+    private static Path write(final int width) throws IOException {
+        final Path file = Files.createTempFile("sis-test", ".nc");
+        final ChannelDataOutput output = new ChannelDataOutput(file.getFileName().toString(),
+                FileChannel.open(file, StandardOpenOption.WRITE), ByteBuffer.allocate(4096));
+        try (ChannelEncoder encoder = new ChannelEncoder(output)) {
+            encoder.addDimension("time", 0);
+            encoder.addDimension("lat",  HEIGHT);
+            encoder.addDimension("lon",  width);
+            encoder.addVariable("lat",  DataType.FLOAT,  new String[] {"lat"},  Collections.singletonMap("units", "degrees_north"));
+            encoder.addVariable("lon",  DataType.FLOAT,  new String[] {"lon"},  Collections.singletonMap("units", "degrees_east"));
+            encoder.addVariable("time", DataType.DOUBLE, new String[] {"time"}, Collections.singletonMap("units", "hours since 2018-01-01"));
+            encoder.addVariable("sst",  DataType.FLOAT,  new String[] {"time", "lat", "lon"}, null);
+            encoder.endDefinition();
+            final float[] lat = new float[HEIGHT];
+            for (int i=0; i<lat.length; i++) lat[i] = 10 + i;
+            final float[] lon = new float[width];
+            for (int i=0; i<lon.length; i++) lon[i] = i * 0.25f;
+            encoder.write("lat", lat);
+            encoder.write("lon", lon);
+            for (int t=0; t<NUM_TIMES; t++) {
+                final float[] values = new float[width * HEIGHT];
+                for (int y=0; y<HEIGHT; y++) {
+                    for (int x=0; x<width; x++) {
+                        values[y*width + x] = value(x, y, t);
+                    }
+                }
+                encoder.writeRecord(new double[] {t * 6}, values);
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Reads the whole coverage in the given store. The store shall be kept open
+     * as long as the coverage is used, since tiles may be loaded when first needed.
+     */
+    private static GridCoverage read(final NetcdfStore store) throws DataStoreException {
+        for (final Resource resource : store.components()) {
+            if (resource instanceof GridCoverageResource) {
+                return ((GridCoverageResource) resource).read(null);
+            }
+        }
+        throw new AssertionError("No grid coverage found.");
+    }
+
+    /**
+     * Returns the "real world" coordinates of the first cell in the given slice.
+     */
+    private static DirectPosition slicePoint(final GridCoverage coverage, final int t) throws TransformException {
+        return coverage.getGridGeometry().getGridToCRS(PixelInCell.CELL_CENTER)
+                .transform(new GeneralDirectPosition(0, 0, t), null);
+    }
+
+    /**
+     * Verifies the values of the given image, which is expected to be the slice at the given time index.
+     */
+    private static void verifySlice(final RenderedImage image, final int width, final int t) {
+        assertEquals("width",  width,  image.getWidth());
+        assertEquals("height", HEIGHT, image.getHeight());
+        final Raster raster = image.getData();
+        for (int y=0; y<HEIGHT; y++) {
+            for (int x=0; x<width; x += 7) {
+                assertEquals("value", value(x, y, t), raster.getSampleFloat(x, y, 0), STRICT);
+            }
+        }
+    }
+
+    /**
+     * Renders all slices of the given coverage, using full and partial slice points.
+     */
+    private static void verifyRender(final GridCoverage coverage, final int width) throws TransformException {
+        verifySlice(coverage.render(null), width, 0);
+        for (int t=0; t<NUM_TIMES; t++) {
+            final DirectPosition point = slicePoint(coverage, t);
+            verifySlice(coverage.render(point), width, t);
+            verifySlice(coverage.render(new GeneralDirectPosition(point.getOrdinate(2))), width, t);
+        }
+        final DirectPosition point = slicePoint(coverage, NUM_TIMES);
+        try {
+            coverage.render(point);
+            fail("Expected an exception for a slice outside the coverage domain.");
+        } catch (IllegalArgumentException e) {
+            assertNotNull(e.getMessage());
+        }
+    }
+
+    /**
+     * Returns {@code true} if {@link TileCache#GLOBAL} contains at least one tile read by a {@link TiledCoverage}.
+     */
+    private static boolean hasTiles() {
+        return TileCache.GLOBAL.keySet().stream().anyMatch((key) -> key.getSource().getClass().getEnclosingClass() == TiledCoverage.class);
+    }
+
+    /**
+     * Tests {@link Image#render(DirectPosition)} on an image small enough for being loaded in a single read.
+     *
+     * @throws IOException if an error occurred while writing the temporary file.
+     * @throws DataStoreException if an error occurred while reading the temporary file.
+     * @throws TransformException if an error occurred while computing the slice points.
+     */
+    @Test
+    public void testRenderSlice() throws IOException, DataStoreException, TransformException {
+        final int width = 20;
+        final Path file = write(width);
+        try (NetcdfStore store = new NetcdfStore(null, new StorageConnector(file))) {
+            final GridCoverage coverage = read(store);
+            assertTrue(coverage instanceof Image);
+            verifyRender(coverage, width);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests {@link TiledCoverage#render(DirectPosition)} on an image large enough for being loaded tile by tile.
+     * Also verifies that tiled reading is enabled only on request, and that closing the store removes its tiles
+     * from {@link TileCache#GLOBAL}.
+     *
+     * @throws IOException if an error occurred while writing the temporary file.
+     * @throws DataStoreException if an error occurred while reading the temporary file.
+     * @throws TransformException if an error occurred while computing the slice points.
+     */
+    @Test
+    @DependsOnMethod("testRenderSlice")
+    public void testRenderTiledSlice() throws IOException, DataStoreException, TransformException {
+        final int width = TiledCoverage.TILE_SIZE + 100;
+        final Path file = write(width);
+        try {
+            try (NetcdfStore store = new NetcdfStore(null, new StorageConnector(file))) {
+                assertTrue("Tiled reading shall be disabled by default.", read(store) instanceof Image);
+            }
+            final StorageConnector connector = new StorageConnector(file);
+            connector.setOption(DataOptionKey.TILED_READING, Boolean.TRUE);
+            try (NetcdfStore store = new NetcdfStore(null, connector)) {
+                final GridCoverage coverage = read(store);
+                assertTrue(coverage instanceof TiledCoverage);
+                verifyRender(coverage, width);
+                assertSame("Image of the last slice should be cached.", coverage.render(null), coverage.render(null));
+                assertTrue("Tiles shall be cached.", hasTiles());
+            }
+            assertFalse("Tiles shall be removed on close.", hasTiles());
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
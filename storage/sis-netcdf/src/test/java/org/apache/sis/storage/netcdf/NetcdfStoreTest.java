@@ -16,9 +16,36 @@
  */
 package org.apache.sis.storage.netcdf;
 
+import java.util.Collections;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.awt.image.Raster;
+import java.awt.image.BufferedImage;
+import java.awt.image.RenderedImage;
+import java.awt.image.WritableRaster;
+import org.opengis.geometry.DirectPosition;
 import org.opengis.metadata.Metadata;
+import org.opengis.referencing.datum.PixelInCell;
+import org.opengis.referencing.operation.TransformException;
+import org.apache.sis.coverage.SampleDimension;
+import org.apache.sis.coverage.grid.GridCoverage;
+import org.apache.sis.coverage.grid.GridExtent;
+import org.apache.sis.coverage.grid.GridGeometry;
+import org.apache.sis.geometry.GeneralDirectPosition;
+import org.apache.sis.referencing.CommonCRS;
+import org.apache.sis.referencing.operation.matrix.Matrix3;
+import org.apache.sis.referencing.operation.transform.MathTransforms;
+import org.apache.sis.setup.OptionKey;
+import org.apache.sis.storage.GridCoverageResource;
+import org.apache.sis.storage.ReadOnlyStorageException;
+import org.apache.sis.storage.DataStoreClosedException;
 import org.apache.sis.storage.StorageConnector;
 import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.Resource;
 import org.apache.sis.test.TestCase;
 import org.apache.sis.test.DependsOn;
 import org.apache.sis.util.Version;
@@ -80,4 +107,114 @@ public final strictfp class NetcdfStoreTest extends TestCase {
         assertEquals("major", 1, version.getMajor());
         assertEquals("minor", 4, version.getMinor());
     }
+
+    /**
+     * Number of cells along the longitude and latitude axes of the slices written by {@link #testWrite()}.
+     */
+    private static final int WIDTH = 8, HEIGHT = 5;
+
+    /**
+     * A two-dimensional coverage wrapping an image, used as a slice to write.
+     */
+    private static final class Slice extends GridCoverage {
+        private final RenderedImage image;
+
+        Slice(final GridGeometry domain, final RenderedImage image) {
+            super(domain, Collections.singletonList(new SampleDimension.Builder().setName("sst").build()));
+            this.image = image;
+        }
+
+        @Override
+        public RenderedImage render(final DirectPosition slicePoint) {
+            return image;
+        }
+    }
+
+    /**
+     * Returns the sample value written at the given indices.
+     */
+    private static int value(final int x, final int y, final int t) {
+        return t * 1000 + y * 10 + x;
+    }
+
+    /**
+     * Tests {@link NetcdfStore#write(GridCoverage, Instant)} by writing three time steps,
+     * then reading the file back as a three-dimensional grid coverage.
+     *
+     * @throws IOException if an error occurred while creating or deleting the temporary file.
+     * @throws DataStoreException if an error occurred while writing or reading the netCDF file.
+     * @throws TransformException if an error occurred while computing the slice points.
+     */
+    @Test
+    public void testWrite() throws IOException, DataStoreException, TransformException {
+        final int numTimes = 3;
+        final Instant start = Instant.parse("2018-01-01T00:00:00Z");
+        final GridGeometry domain = new GridGeometry(new GridExtent(WIDTH, HEIGHT), PixelInCell.CELL_CENTER,
+                MathTransforms.linear(new Matrix3(0.5, 0, 10, 0, -0.5, 40, 0, 0, 1)), CommonCRS.WGS84.normalizedGeographic());
+        final Path file = Files.createTempFile("sis-test", ".nc");
+        try {
+            final StorageConnector connector = new StorageConnector(file);
+            connector.setOption(OptionKey.OPEN_OPTIONS, new StandardOpenOption[] {StandardOpenOption.WRITE});
+            final NetcdfStore writer = new NetcdfStore(null, connector);
+            try {
+                for (int t=0; t<numTimes; t++) {
+                    final BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_USHORT_GRAY);
+                    final WritableRaster raster = image.getRaster();
+                    for (int y=0; y<HEIGHT; y++) {
+                        for (int x=0; x<WIDTH; x++) {
+                            raster.setSample(x, y, 0, value(x, y, t));
+                        }
+                    }
+                    writer.write(new Slice(domain, image), start.plus(t, ChronoUnit.HOURS));
+                }
+            } finally {
+                writer.close();
+            }
+            try {
+                writer.write(new Slice(domain, new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_USHORT_GRAY)), start);
+                fail("Shall not write in a closed store.");
+            } catch (DataStoreClosedException e) {
+                assertNotNull(e.getMessage());
+            }
+            /*
+             * Read the file back. The time steps shall be stacked in a third grid dimension,
+             * with slices selected by the time coordinate (in seconds since 1970).
+             */
+            try (NetcdfStore reader = new NetcdfStore(null, new StorageConnector(file))) {
+                assertEquals("Conventions", new Version("1.6"), reader.getConventionVersion());
+                GridCoverage coverage = null;
+                for (final Resource resource : reader.components()) {
+                    if (resource instanceof GridCoverageResource) {
+                        coverage = ((GridCoverageResource) resource).read(null);
+                        break;
+                    }
+                }
+                assertNotNull("coverage", coverage);
+                final GridExtent extent = coverage.getGridGeometry().getExtent();
+                assertEquals("dimension", 3, extent.getDimension());
+                assertEquals("width",    WIDTH,    extent.getSize(0));
+                assertEquals("height",   HEIGHT,   extent.getSize(1));
+                assertEquals("numTimes", numTimes, extent.getSize(2));
+                for (int t=0; t<numTimes; t++) {
+                    final DirectPosition point = coverage.getGridGeometry().getGridToCRS(PixelInCell.CELL_CENTER)
+                            .transform(new GeneralDirectPosition(0, 0, t), null);
+                    assertEquals("time", start.plus(t, ChronoUnit.HOURS).getEpochSecond(), point.getOrdinate(2), 1E-6);
+                    final Raster raster = coverage.render(point).getData();
+                    for (int y=0; y<HEIGHT; y++) {
+                        for (int x=0; x<WIDTH; x++) {
+                            assertEquals("value", value(x, y, t), raster.getSample(x, y, 0));
+                        }
+                    }
+                }
+                try {
+                    reader.write(coverage, start);
+                    fail("Shall not write in a store opened for reading.");
+                } catch (ReadOnlyStorageException e) {
+                    assertNotNull(e.getMessage());
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
 }
@@ -36,10 +36,15 @@ import org.junit.BeforeClass;
     org.apache.sis.internal.netcdf.GridTest.class,
     org.apache.sis.internal.netcdf.impl.ChannelDecoderTest.class,
     org.apache.sis.internal.netcdf.impl.VariableInfoTest.class,
+    org.apache.sis.internal.netcdf.impl.ChunkedStorageTest.class,
+    org.apache.sis.internal.netcdf.impl.HDF5HeaderTest.class,
+    org.apache.sis.internal.netcdf.impl.ChannelEncoderTest.class,
+    org.apache.sis.internal.netcdf.impl.RecordReaderTest.class,
     org.apache.sis.internal.netcdf.impl.GridInfoTest.class,
     org.apache.sis.storage.netcdf.MetadataReaderTest.class,
     org.apache.sis.storage.netcdf.NetcdfStoreProviderTest.class,
-    org.apache.sis.storage.netcdf.NetcdfStoreTest.class
+    org.apache.sis.storage.netcdf.NetcdfStoreTest.class,
+    org.apache.sis.storage.netcdf.GridResourceTest.class
 })
 public final strictfp class NetcdfTestSuite extends TestSuite {
     /**
@@ -45,7 +45,7 @@ import com.esri.core.geometry.*;
  */
 public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormatException, SQLShapefileNotFoundException> {
     /** Name of the Geometry field. */
-    private static final String GEOMETRY_NAME = "geometry";
+    public static final String GEOMETRY_NAME = "geometry";
 
     /** Shapefile descriptor. */
     private ShapefileDescriptor shapefileDescriptor;
@@ -140,6 +140,55 @@ public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormat
         return new DefaultFeatureType(properties, false, null, attributes);
     }
 
+    /**
+     * Create the type of the features stored in batches of columns. Numeric fields of the database
+     * are typed as {@code Long} or {@code Double} instead of {@code String}, for allowing batches
+     * to store them in arrays of primitive types.
+     * @return The feature type for batches.
+     */
+    public DefaultFeatureType getBatchType() {
+        final int n = this.databaseFieldsDescriptors.size();
+        final DefaultAttributeType<?>[] attributes = new DefaultAttributeType<?>[n + 1];
+        final Map<String, Object> properties = new HashMap<>(4);
+
+        // Load data field, with a numeric type where possible.
+        for (int i = 0; i < n; i++) {
+            final DBase3FieldDescriptor field = this.databaseFieldsDescriptors.get(i);
+            properties.put(DefaultAttributeType.NAME_KEY, field.getName());
+            attributes[i] = new DefaultAttributeType<>(properties, getBatchValueClass(field), 1, 1, null);
+        }
+
+        // Add geometry field.
+        properties.put(DefaultAttributeType.NAME_KEY, GEOMETRY_NAME);
+        attributes[n] = new DefaultAttributeType<>(properties, Geometry.class, 1, 1, null);
+
+        properties.put(DefaultAttributeType.NAME_KEY, this.featuresType.getName());
+        return new DefaultFeatureType(properties, false, null, attributes);
+    }
+
+    /**
+     * Returns the type of values of the given field in batches of columns.
+     * @param field Field descriptor.
+     * @return {@code Long} for integers, {@code Double} for other numbers, {@code String} otherwise.
+     */
+    public static Class<?> getBatchValueClass(DBase3FieldDescriptor field) {
+        switch(field.getType()) {
+            case Integer:
+            case AutoIncrement:
+                return Long.class;
+
+            case Number:
+                return (field.getDecimalCount() == 0) ? Long.class : Double.class;
+
+            case FloatingPoint:
+            case Double:
+                return Double.class;
+
+            default:
+                return String.class;
+        }
+    }
+
     /**
      * Load shapefile descriptor.
      */
@@ -260,6 +309,15 @@ public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormat
      * @throws InvalidShapefileFormatException if a validation problem occurs.
      */
     public void completeFeature(AbstractFeature feature) throws InvalidShapefileFormatException {
+        feature.setPropertyValue(GEOMETRY_NAME, readGeometry());
+    }
+
+    /**
+     * Read the geometry of the current record, without creating a feature.
+     * @return Geometry of the current record.
+     * @throws InvalidShapefileFormatException if a validation problem occurs.
+     */
+    public Geometry readGeometry() throws InvalidShapefileFormatException {
         // insert points into some type of list
         int RecordNumber = getByteBuffer().getInt();
         @SuppressWarnings("unused")
@@ -273,17 +331,19 @@ public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormat
         if (type == null)
             throw new InvalidShapefileFormatException(MessageFormat.format("The shapefile feature type {0} doesn''t match to any known feature type.", this.featuresType));
 
+        Geometry geometry;
+
         switch (type) {
             case Point:
-                loadPointFeature(feature);
+                geometry = readPoint();
                 break;
 
             case Polygon:
-                loadPolygonFeature(feature);
+                geometry = readPolygon();
                 break;
 
             case PolyLine:
-                loadPolylineFeature(feature);
+                geometry = readPolyline();
                 break;
 
             default:
@@ -291,24 +351,24 @@ public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormat
         }
 
         getByteBuffer().order(ByteOrder.BIG_ENDIAN);
+        return geometry;
     }
 
     /**
-     * Load point feature.
-     * @param feature Feature to fill.
+     * Read a point.
+     * @return Point.
      */
-    private void loadPointFeature(AbstractFeature feature) {
+    private Point readPoint() {
         double x = getByteBuffer().getDouble();
         double y = getByteBuffer().getDouble();
-        Point pnt = new Point(x, y);
-        feature.setPropertyValue(GEOMETRY_NAME, pnt);
+        return new Point(x, y);
     }
 
     /**
-     * Load polygon feature.
-     * @param feature Feature to fill.
+     * Read a polygon.
+     * @return Polygon.
      */
-    private void loadPolygonFeature(AbstractFeature feature) {
+    private Polygon readPolygon() {
         /* double xmin = */getByteBuffer().getDouble();
         /* double ymin = */getByteBuffer().getDouble();
         /* double xmax = */getByteBuffer().getDouble();
@@ -335,7 +395,7 @@ public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormat
             poly = readUniquePolygonPart(numPoints);
         }
 
-        feature.setPropertyValue(GEOMETRY_NAME, poly);
+        return poly;
     }
 
     /**
@@ -426,10 +486,10 @@ public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormat
     }
 
     /**
-     * Load polyline feature.
-     * @param feature Feature to fill.
+     * Read a polyline.
+     * @return Polyline.
      */
-    private void loadPolylineFeature(AbstractFeature feature) {
+    private Polyline readPolyline() {
         /* double xmin = */getByteBuffer().getDouble();
         /* double ymin = */getByteBuffer().getDouble();
         /* double xmax = */getByteBuffer().getDouble();
@@ -461,6 +521,6 @@ public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormat
             }
         }
 
-        feature.setPropertyValue(GEOMETRY_NAME, ply);
+        return ply;
     }
 }
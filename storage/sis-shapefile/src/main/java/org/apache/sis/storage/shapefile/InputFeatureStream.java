@@ -28,6 +28,7 @@ import java.util.logging.Logger;
 
 import org.apache.sis.feature.DefaultFeatureType;
 import org.apache.sis.internal.shapefile.*;
+import org.apache.sis.internal.storage.FeatureBatch;
 import org.apache.sis.internal.shapefile.jdbc.*;
 import org.apache.sis.internal.shapefile.jdbc.connection.DBFConnection;
 import org.apache.sis.internal.shapefile.jdbc.metadata.DBFDatabaseMetaData;
@@ -232,6 +233,34 @@ public class InputFeatureStream extends InputStream {
         }
     }
 
+    /**
+     * Read next record responding to the SQL query in the given batch, without creating a feature.
+     * The batch type should be {@link #getBatchType()}.
+     * @param batch Batch where to store the record, at the row index given by {@link FeatureBatch#size()}.
+     * @return false if no more record is available.
+     * @throws DataStoreClosedException if the current connection used to query the shapefile has been closed.
+     * @throws DataStoreQueryException if the statement used to query the shapefile content is incorrect, or requires a shapefile index to be executed and none is available.
+     * @throws DataStoreQueryResultException if the shapefile results cause a trouble (wrong format, for example).
+     * @throws InvalidShapefileFormatException if the shapefile structure shows a problem.
+     */
+    public boolean readRow(FeatureBatch batch) throws DataStoreClosedException, DataStoreQueryException, DataStoreQueryResultException, InvalidShapefileFormatException {
+        try {
+            return internalReadRow(batch);
+        }
+        catch(SQLConnectionClosedException e) {
+            throw new DataStoreClosedException(e.getMessage(), e);
+        }
+        catch(SQLInvalidStatementException | SQLIllegalParameterException | SQLNoSuchFieldException | SQLUnsupportedParsingFeatureException | SQLFeatureNotSupportedException e) {
+            throw new DataStoreQueryException(e.getMessage(), e);
+        }
+        catch(SQLNotNumericException | SQLNotDateException e) {
+            throw new DataStoreQueryResultException(e.getMessage(), e);
+        }
+        catch(SQLNoDirectAccessAvailableException e) {
+            throw new DataStoreQueryException(e.getMessage(), e);
+        }
+    }
+
     /**
      * Return the features type.
      * @return Features type.
@@ -240,6 +269,14 @@ public class InputFeatureStream extends InputStream {
         return this.featuresType;
     }
 
+    /**
+     * Return the type of the features stored in batches, with numeric fields typed as numbers.
+     * @return Features type for batches.
+     */
+    public DefaultFeatureType getBatchType() {
+        return this.shapefileReader.getBatchType();
+    }
+
     /**
      * Returns the shapefile descriptor.
      * @return Shapefile descriptor.
@@ -280,43 +317,10 @@ public class InputFeatureStream extends InputStream {
      */
     private AbstractFeature internalReadFeature() throws SQLConnectionClosedException, SQLInvalidStatementException, SQLIllegalParameterException, SQLNoSuchFieldException, SQLUnsupportedParsingFeatureException, SQLNotNumericException, SQLNotDateException, SQLFeatureNotSupportedException, InvalidShapefileFormatException, SQLNoDirectAccessAvailableException {
         try {
-            if (this.endOfFile) {
-                return null;
-            }
-
-            int previousRecordNumber = this.rs.getRowNum();
-
-            if (this.rs.next() == false) {
-                this.endOfFile = true;
+            if (nextRecord() == false) {
                 return null;
             }
 
-            int currentRecordNumber = this.rs.getRowNum();
-
-            // On the shapefile, only jump in another place if a direct access is needed.
-            boolean directAccesRequired = currentRecordNumber != (previousRecordNumber + 1);
-
-            if (directAccesRequired) {
-                try {
-                    if (LOGGER.isLoggable(Level.FINER)) {
-                        MessageFormat format = new MessageFormat(this.rsc.getString("log.shapefile_reading_with_direct_access"));
-                        LOGGER.finer(format.format(new Object[] {previousRecordNumber, currentRecordNumber}));
-                    }
-
-                    this.shapefileReader.setRowNum(currentRecordNumber);
-                }
-                catch(SQLInvalidRecordNumberForDirectAccessException e) {
-                    // This would be an internal API problem, because as soon as we handle a shapefile index, we shall go through its relative shape feature file correctly.
-                    throw new RuntimeException(e.getMessage(), e);
-                }
-            }
-            else {
-                if (LOGGER.isLoggable(Level.FINER)) {
-                    MessageFormat format = new MessageFormat(this.rsc.getString("log.shapefile_reading_with_sequential_access"));
-                    LOGGER.finer(format.format(new Object[] {previousRecordNumber, currentRecordNumber}));
-                }
-            }
-
             AbstractFeature feature = this.featuresType.newInstance();
             this.shapefileReader.completeFeature(feature);
             DBFDatabaseMetaData metadata = (DBFDatabaseMetaData)this.connection.getMetaData();
@@ -327,28 +331,7 @@ public class InputFeatureStream extends InputStream {
                     Object fieldValue = this.rs.getObject(fieldName);
 
                     // FIXME To allow features to be filled again, the values are converted to String again : feature should allow any kind of data.
-                    String stringValue;
-
-                    if (fieldValue == null) {
-                        stringValue = null;
-                    }
-                    else {
-                        if (fieldValue instanceof Integer || fieldValue instanceof Long) {
-                            stringValue = MessageFormat.format("{0,number,#0}", fieldValue); // Avoid thousand separator.
-                        }
-                        else {
-                            if (fieldValue instanceof Double || fieldValue instanceof Float) {
-                                // Avoid thousand separator.
-                                DecimalFormat df = new DecimalFormat();
-                                df.setGroupingUsed(false);
-                                stringValue = df.format(fieldValue);
-                            }
-                            else
-                                stringValue = fieldValue.toString();
-                        }
-                    }
-
-                    feature.setPropertyValue(fieldName, stringValue);
+                    feature.setPropertyValue(fieldName, toFeatureValue(fieldValue));
                 }
 
                 return feature;
@@ -364,6 +347,139 @@ public class InputFeatureStream extends InputStream {
         }
     }
 
+    /**
+     * Read next record responding to the SQL query in the given batch, without creating a feature.
+     * Numeric fields are stored in arrays of primitive types if the batch type declares them as numbers,
+     * as done by {@link ShapefileByteReader#getBatchType()}.
+     * @param batch Batch where to store the record, at the row index given by {@link FeatureBatch#size()}.
+     * @return false if no more record is available.
+     * @throws SQLNotNumericException if a field expected numeric isn't.
+     * @throws SQLNotDateException if a field expected of date kind, isn't.
+     * @throws SQLNoSuchFieldException if a field doesn't exist.
+     * @throws SQLIllegalParameterException if a parameter is illegal in the query.
+     * @throws SQLInvalidStatementException if the SQL statement is invalid.
+     * @throws SQLConnectionClosedException if the connection is closed.
+     * @throws SQLUnsupportedParsingFeatureException if a SQL ability is not currently available through this driver.
+     * @throws SQLFeatureNotSupportedException if a SQL ability is not currently available through this driver.
+     * @throws InvalidShapefileFormatException if the shapefile format is invalid.
+     * @throws SQLNoDirectAccessAvailableException if the underlying SQL statement requires a direct access in the shapefile, but the shapefile cannot allow it.
+     */
+    private boolean internalReadRow(FeatureBatch batch) throws SQLConnectionClosedException, SQLInvalidStatementException, SQLIllegalParameterException, SQLNoSuchFieldException, SQLUnsupportedParsingFeatureException, SQLNotNumericException, SQLNotDateException, SQLFeatureNotSupportedException, InvalidShapefileFormatException, SQLNoDirectAccessAvailableException {
+        try {
+            if (nextRecord() == false) {
+                return false;
+            }
+        }
+        catch(SQLNoResultException e) {
+            // We are trying to prevent this. If it occurs, we have an internal problem.
+            throw new RuntimeException(e.getMessage(), e);
+        }
+
+        for (int column = 0; column < batch.getColumnCount(); column ++) {
+            String fieldName = batch.getColumnName(column);
+
+            if (batch.isFloatingPoint(column)) {
+                double value = this.rs.getDouble(fieldName);
+
+                if (this.rs.wasNull() == false) {
+                    batch.setDouble(column, value);
+                }
+            }
+            else if (batch.isInteger(column)) {
+                long value = this.rs.getLong(fieldName);
+
+                if (this.rs.wasNull() == false) {
+                    batch.setLong(column, value);
+                }
+            }
+            else if (batch.getValueClass(column) == String.class) {
+                batch.setValue(column, toFeatureValue(this.rs.getObject(fieldName)));
+            }
+        }
+
+        batch.setValue(batch.indexOf(ShapefileByteReader.GEOMETRY_NAME), this.shapefileReader.readGeometry());
+        batch.nextRow();
+        return true;
+    }
+
+    /**
+     * Move to the next record responding to the SQL query, in both the database and the shapefile.
+     * @return false if no more record is available.
+     * @throws SQLConnectionClosedException if the connection is closed.
+     * @throws SQLNoSuchFieldException if a field doesn't exist.
+     * @throws SQLIllegalParameterException if a parameter is illegal in the query.
+     * @throws SQLInvalidStatementException if the SQL statement is invalid.
+     * @throws SQLUnsupportedParsingFeatureException if a SQL ability is not currently available through this driver.
+     * @throws SQLNotNumericException if a field expected numeric isn't.
+     * @throws SQLNotDateException if a field expected of date kind, isn't.
+     * @throws SQLNoDirectAccessAvailableException if the underlying SQL statement requires a direct access in the shapefile, but the shapefile cannot allow it.
+     * @throws SQLNoResultException if the database has no current record.
+     */
+    private boolean nextRecord() throws SQLConnectionClosedException, SQLInvalidStatementException, SQLIllegalParameterException, SQLNoSuchFieldException, SQLUnsupportedParsingFeatureException, SQLNotNumericException, SQLNotDateException, SQLNoDirectAccessAvailableException, SQLNoResultException {
+        if (this.endOfFile) {
+            return false;
+        }
+
+        int previousRecordNumber = this.rs.getRowNum();
+
+        if (this.rs.next() == false) {
+            this.endOfFile = true;
+            return false;
+        }
+
+        int currentRecordNumber = this.rs.getRowNum();
+
+        // On the shapefile, only jump in another place if a direct access is needed.
+        boolean directAccesRequired = currentRecordNumber != (previousRecordNumber + 1);
+
+        if (directAccesRequired) {
+            try {
+                if (LOGGER.isLoggable(Level.FINER)) {
+                    MessageFormat format = new MessageFormat(this.rsc.getString("log.shapefile_reading_with_direct_access"));
+                    LOGGER.finer(format.format(new Object[] {previousRecordNumber, currentRecordNumber}));
+                }
+
+                this.shapefileReader.setRowNum(currentRecordNumber);
+            }
+            catch(SQLInvalidRecordNumberForDirectAccessException e) {
+                // This would be an internal API problem, because as soon as we handle a shapefile index, we shall go through its relative shape feature file correctly.
+                throw new RuntimeException(e.getMessage(), e);
+            }
+        }
+        else {
+            if (LOGGER.isLoggable(Level.FINER)) {
+                MessageFormat format = new MessageFormat(this.rsc.getString("log.shapefile_reading_with_sequential_access"));
+                LOGGER.finer(format.format(new Object[] {previousRecordNumber, currentRecordNumber}));
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Convert a database value to the string stored in features.
+     * @param fieldValue Database value, may be null.
+     * @return Value as a string, or null.
+     */
+    private static String toFeatureValue(Object fieldValue) {
+        if (fieldValue == null) {
+            return null;
+        }
+
+        if (fieldValue instanceof Integer || fieldValue instanceof Long) {
+            return MessageFormat.format("{0,number,#0}", fieldValue); // Avoid thousand separator.
+        }
+
+        if (fieldValue instanceof Double || fieldValue instanceof Float) {
+            // Avoid thousand separator.
+            DecimalFormat df = new DecimalFormat();
+            df.setGroupingUsed(false);
+            return df.format(fieldValue);
+        }
+
+        return fieldValue.toString();
+    }
+
     /**
      * Execute the wished SQL query.
      * @throws SQLConnectionClosedException if the connection is closed.
@@ -19,10 +19,19 @@ package org.apache.sis.storage.shapefile;
 import java.io.File;
 import java.util.List;
 import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.apache.sis.feature.DefaultFeatureType;
 import org.apache.sis.internal.shapefile.ShapefileDescriptor;
 import org.apache.sis.internal.shapefile.jdbc.DBase3FieldDescriptor;
+import org.apache.sis.internal.storage.FeatureBatch;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.util.ArgumentChecks;
+import org.apache.sis.util.collection.BackingStoreException;
 
 /**
  * Provides a ShapeFile Reader.
@@ -193,6 +202,41 @@ public class ShapeFile {
         return is;
     }
 
+    /**
+     * Find all features as batches of columns, without creating a feature instance per record.
+     * Numeric fields of the database are stored in arrays of primitive types, and geometries are kept as objects.
+     * The type of batches is the {@linkplain #getFeaturesType() features type} with numeric fields typed as numbers.
+     * The stream shall be closed after usage.
+     * @param capacity Maximal number of features in each batch.
+     * @return All features, as batches.
+     * @throws DataStoreException if the shapefile or the database file can not be opened.
+     */
+    public Stream<FeatureBatch> batches(final int capacity) throws DataStoreException {
+        ArgumentChecks.ensureStrictlyPositive("capacity", capacity);
+        final InputFeatureStream is = findAll();
+        final DefaultFeatureType type = is.getBatchType();
+        final Spliterator<FeatureBatch> batches = new Spliterators.AbstractSpliterator<FeatureBatch>(Long.MAX_VALUE,
+                Spliterator.NONNULL | Spliterator.ORDERED)
+        {
+            @Override public boolean tryAdvance(final Consumer<? super FeatureBatch> action) {
+                final FeatureBatch batch = new FeatureBatch(type, capacity);
+                try {
+                    while (!batch.isFull() && is.readRow(batch)) {
+                        // Values are stored in the batch by readRow.
+                    }
+                } catch (DataStoreException e) {
+                    throw new BackingStoreException(e);
+                }
+                if (batch.size() == 0) {
+                    return false;
+                }
+                action.accept(batch);
+                return true;
+            }
+        };
+        return StreamSupport.stream(batches, false).onClose(is::close);
+    }
+
     /**
      * Load shapefile descriptors : features types, shapefileDescriptor, database field descriptors :
      * this is also automatically done when executing a query on it, by findAll.
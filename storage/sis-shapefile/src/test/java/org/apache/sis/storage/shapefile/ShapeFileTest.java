@@ -18,12 +18,18 @@ package org.apache.sis.storage.shapefile;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.net.URISyntaxException;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.logging.Logger;
 
+import org.apache.sis.internal.storage.FeatureBatch;
 import org.apache.sis.storage.DataStoreException;
 import org.apache.sis.test.TestCase;
 import org.junit.Ignore;
@@ -189,6 +195,58 @@ public final strictfp class ShapeFileTest extends TestCase {
          assertEquals("Shapefile part : direct access didn't returned the same geometry than sequential access.", sequentialGeometry, directGeometry);
      }
 
+     /**
+      * Tests reading the shapefile as batches of columns, with numeric fields stored as primitive values.
+      * @throws URISyntaxException if the resource name is incorrect.
+      * @throws DataStoreException if a general file reading trouble occurs.
+      */
+     @Test
+     public void testBatches() throws URISyntaxException, DataStoreException {
+         ShapeFile shp = new ShapeFile(path("ABRALicenseePt_4326_clipped.shp"));
+         List<AbstractFeature> features = new ArrayList<>();
+
+         try(InputFeatureStream is = shp.findAll()) {
+             AbstractFeature feature;
+
+             while((feature = is.readFeature()) != null) {
+                 features.add(feature);
+             }
+         }
+
+         List<FeatureBatch> batches;
+
+         try(Stream<FeatureBatch> stream = shp.batches(2)) {
+             batches = stream.collect(Collectors.toList());
+         }
+
+         assertEquals("Number of batches.", 2, batches.size());
+         assertEquals("Size of the first batch.",  2, batches.get(0).size());
+         assertEquals("Size of the second batch.", 1, batches.get(1).size());
+
+         double[] addressIds = {279370, 262739, 242105};
+         int index = 0;
+
+         for (FeatureBatch batch : batches) {
+             int addrid   = batch.indexOf("ADDRID");
+             int address  = batch.indexOf("ADDRESS");
+             int geometry = batch.indexOf("geometry");
+
+             assertTrue("ADDRID shall be stored as a floating point number.", batch.isFloatingPoint(addrid));
+             assertEquals("ADDRESS shall be stored as a string.", String.class, batch.getValueClass(address));
+
+             for (int row = 0; row < batch.size(); row++) {
+                 AbstractFeature feature = features.get(index);
+                 assertEquals("ADDRID", addressIds[index], batch.doubleValue(addrid, row), 0);
+                 assertEquals("ADDRID", Double.valueOf((String) feature.getPropertyValue("ADDRID")), batch.getValue(addrid, row));
+                 assertEquals("ADDRESS", feature.getPropertyValue("ADDRESS"), batch.getValue(address, row));
+                 assertEquals("geometry", feature.getPropertyValue("geometry"), batch.getValue(geometry, row));
+                 index++;
+             }
+         }
+
+         assertEquals("Number of features.", features.size(), index);
+     }
+
     /**
      * Read all the shapefile content.
      * @param shp Shapefile to read.
@@ -122,6 +122,16 @@ final class Analyzer {
      */
     final Locale locale;
 
+    /**
+     * Maximal number of rows to insert in a single JDBC batch.
+     */
+    final int batchSize;
+
+    /**
+     * Number of rows to insert before to commit the transaction, or 0 for using the connection auto-commit mode.
+     */
+    final int featuresPerTransaction;
+
     /**
      * The last catalog and schema used for creating {@link #namespace}.
      * Used for determining if {@link #namespace} is still valid.
@@ -140,14 +150,18 @@ final class Analyzer {
      * @param  metadata   Value of {@code source.getConnection().getMetaData()}.
      * @param  listeners  Value of {@code SQLStore.listeners}.
      * @param  locale     Value of {@code SQLStore.getLocale()}.
+     * @param  batchSize  maximal number of rows to insert in a single JDBC batch.
+     * @param  featuresPerTransaction  number of rows to insert before to commit, or 0 for auto-commit.
      */
     Analyzer(final DataSource source, final DatabaseMetaData metadata, final WarningListeners<DataStore> listeners,
-             final Locale locale) throws SQLException
+             final Locale locale, final int batchSize, final int featuresPerTransaction) throws SQLException
     {
         this.source      = source;
         this.metadata    = metadata;
         this.listeners   = listeners;
         this.locale      = locale;
+        this.batchSize   = batchSize;
+        this.featuresPerTransaction = featuresPerTransaction;
         this.strings     = new HashMap<>();
         this.escape      = metadata.getSearchStringEscape();
         this.functions   = new SpatialFunctions(metadata);
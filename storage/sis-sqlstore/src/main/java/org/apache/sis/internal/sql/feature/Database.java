@@ -104,15 +104,18 @@ public final class Database {
      * @param  connection   connection to the database. Sometime the caller already has a connection at hand.
      * @param  source       provider of (pooled) connections to the database. Specified by users at construction time.
      * @param  tableNames   qualified name of the tables. Specified by users at construction time.
+     * @param  batchSize    maximal number of rows to insert in a single JDBC batch.
+     * @param  featuresPerTransaction  number of rows to insert before to commit, or 0 for the connection auto-commit mode.
      * @param  listeners    where to send the warnings. This is the value of {@code store.listeners}.
      * @throws SQLException if a database error occurred while reading metadata.
      * @throws DataStoreException if a logical error occurred while analyzing the database structure.
      */
     public Database(final SQLStore store, final Connection connection, final DataSource source,
-            final GenericName[] tableNames, final WarningListeners<DataStore> listeners)
-            throws SQLException, DataStoreException
+            final GenericName[] tableNames, final int batchSize, final int featuresPerTransaction,
+            final WarningListeners<DataStore> listeners) throws SQLException, DataStoreException
     {
-        final Analyzer analyzer = new Analyzer(source, connection.getMetaData(), listeners, store.getLocale());
+        final Analyzer analyzer = new Analyzer(source, connection.getMetaData(), listeners, store.getLocale(),
+                                               batchSize, featuresPerTransaction);
         final String[] tableTypes = getTableTypes(analyzer.metadata);
         final Set<TableReference> declared = new LinkedHashSet<>();
         for (final GenericName tableName : tableNames) {
@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.sql.feature;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import org.apache.sis.internal.metadata.sql.SQLBuilder;
+import org.apache.sis.internal.storage.FeatureBatch;
+import org.apache.sis.util.collection.BackingStoreException;
+
+
+/**
+ * Iterator over the rows of a table as batches of values stored by columns.
+ * Only the attributes are read; associations are ignored since batches do not store them.
+ * Numbers are read with {@link ResultSet#getDouble(int)} or {@link ResultSet#getLong(int)}
+ * and stored in arrays of primitive types, without creating feature instances.
+ *
+ * <p>This iterator is sequential. The connection is closed by {@link #run()},
+ * which shall be invoked when the stream is closed.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+final class FeatureBatches implements Spliterator<FeatureBatch>, Runnable {
+    /**
+     * Number of rows to fetch from the database in each round trip.
+     */
+    private static final int FETCH_SIZE = 1000;
+
+    /**
+     * The table for which this iterator has been created.
+     */
+    private final Table table;
+
+    /**
+     * Index of the batch column for each column in the result set, or -1 if none.
+     */
+    private final int[] columns;
+
+    /**
+     * Maximal number of features in each batch.
+     */
+    private final int capacity;
+
+    /**
+     * Connection to the database, or {@code null} if this iterator has been closed.
+     */
+    private Connection connection;
+
+    /**
+     * The result of the query, or {@code null} if this iterator has been closed.
+     */
+    private ResultSet result;
+
+    /**
+     * Creates a new iterator over the rows of the given table.
+     *
+     * @param  table       the table to read.
+     * @param  names       names of the attributes to read.
+     * @param  columns     names of the columns corresponding to the attributes.
+     * @param  connection  connection to the database, closed by {@link #run()}.
+     * @param  capacity    maximal number of features in each batch.
+     */
+    FeatureBatches(final Table table, final String[] names, final String[] columns,
+            final Connection connection, final int capacity) throws SQLException
+    {
+        this.table      = table;
+        this.capacity   = capacity;
+        this.connection = connection;
+        this.columns    = new int[names.length];
+        final FeatureBatch template = new FeatureBatch(table.featureType, 1);
+        final SQLBuilder sql = new SQLBuilder(connection.getMetaData(), true).append("SELECT ");
+        for (int i=0; i<columns.length; i++) {
+            if (i != 0) sql.append(", ");
+            sql.appendIdentifier(columns[i]);
+            this.columns[i] = template.indexOf(names[i]);
+        }
+        sql.append(" FROM ").appendIdentifier(table.name.catalog, table.name.schema, table.name.table);
+        final Statement stmt = connection.createStatement();
+        stmt.setFetchSize(FETCH_SIZE);
+        result = stmt.executeQuery(sql.toString());
+    }
+
+    /**
+     * Gives the next batch to the given consumer.
+     */
+    @Override
+    public boolean tryAdvance(final Consumer<? super FeatureBatch> action) {
+        if (result == null) {
+            return false;                   // Iterator has been closed.
+        }
+        final FeatureBatch batch = new FeatureBatch(table.featureType, capacity);
+        try {
+            while (!batch.isFull() && result.next()) {
+                for (int i=0; i<columns.length; i++) {
+                    final int column = columns[i];
+                    if (column >= 0) {
+                        if (batch.isFloatingPoint(column)) {
+                            final double value = result.getDouble(i+1);
+                            if (!result.wasNull()) batch.setDouble(column, value);
+                        } else if (batch.isInteger(column)) {
+                            final long value = result.getLong(i+1);
+                            if (!result.wasNull()) batch.setLong(column, value);
+                        } else {
+                            final Object value = result.getObject(i+1);
+                            if (!result.wasNull()) batch.setValue(column, value);
+                        }
+                    }
+                }
+                batch.nextRow();
+            }
+        } catch (SQLException e) {
+            throw new BackingStoreException(e);
+        }
+        if (batch.size() == 0) {
+            return false;
+        }
+        action.accept(batch);
+        return true;
+    }
+
+    /**
+     * Returns {@code null} since this iterator does not support parallelism.
+     */
+    @Override
+    public Spliterator<FeatureBatch> trySplit() {
+        return null;
+    }
+
+    /**
+     * We do not know the number of batches.
+     */
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Returns the characteristics of the iteration over batches.
+     * The iteration is {@link #NONNULL} (i.e. {@link #tryAdvance(Consumer)} is not allowed
+     * to return null value), {@link #IMMUTABLE} and {@link #ORDERED}.
+     */
+    @Override
+    public int characteristics() {
+        return NONNULL | IMMUTABLE | ORDERED;
+    }
+
+    /**
+     * Closes the (pooled) connection, including the statements used by this iterator.
+     * This method is invoked when the stream is closed.
+     */
+    @Override
+    public void run() {
+        final Connection c = connection;
+        if (c != null) {
+            connection = null;
+            try (Connection unused = c) {
+                final ResultSet r = result;
+                if (r != null) {
+                    result = null;
+                    final Statement s = r.getStatement();
+                    r.close();
+                    s.close();
+                }
+            } catch (SQLException e) {
+                throw new BackingStoreException(e);
+            }
+        }
+    }
+}
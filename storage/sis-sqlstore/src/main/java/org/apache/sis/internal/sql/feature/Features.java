@@ -18,8 +18,11 @@ package org.apache.sis.internal.sql.feature;
 
 import java.util.List;
 import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Collection;
 import java.util.Spliterator;
 import java.util.function.Consumer;
@@ -30,7 +33,12 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import org.apache.sis.internal.metadata.sql.SQLBuilder;
+import org.apache.sis.internal.storage.query.Condition;
+import org.apache.sis.internal.storage.query.SimpleQuery;
+import org.apache.sis.storage.DataStoreException;
 import org.apache.sis.storage.InternalDataStoreException;
 import org.apache.sis.util.collection.BackingStoreException;
 import org.apache.sis.util.collection.WeakValueHashMap;
@@ -55,6 +63,30 @@ final class Features implements Spliterator<AbstractFeature>, Runnable {
      */
     private static final Features[] EMPTY = new Features[0];
 
+    /**
+     * Maximal number of rows to read before to resolve their associations. The associations of all rows
+     * in a block are resolved with a single query per relation instead of one query per row and relation.
+     * This value is also the maximal number of keys in the {@code IN (…)} clause of those queries.
+     */
+    static final int BATCH_SIZE = 100;
+
+    /**
+     * Number of rows to fetch from the database when more rows are needed by the main iterator.
+     * This is a hint given to the JDBC driver, which may ignore it. For example the PostgreSQL
+     * driver ignores it in auto-commit mode, which is why the query is executed in a transaction.
+     */
+    private static final int FETCH_SIZE = 1000;
+
+    /**
+     * Minimal range of primary key values for allowing {@link #trySplit()} to split this iterator.
+     */
+    private static final long MINIMAL_SPLIT_RANGE = 1000;
+
+    /**
+     * The table for which this iterator has been created.
+     */
+    private final Table table;
+
     /**
      * The type of features to create.
      */
@@ -67,6 +99,24 @@ final class Features implements Spliterator<AbstractFeature>, Runnable {
      */
     private final String[] attributeNames;
 
+    /**
+     * Name of the columns of attributes in the {@code SELECT} clause, in the same order than {@link #attributeNames}.
+     * This array is a shared instance and shall not be modified.
+     */
+    private final String[] attributeColumns;
+
+    /**
+     * The relations used for creating imported and exported {@link #dependencies}, or {@code null} if none.
+     * Those arrays are shared instances and shall not be modified.
+     */
+    private final Relation[] importedKeys, exportedKeys;
+
+    /**
+     * The query given at construction time, or {@code null} if none.
+     * Used for creating new iterators when this iterator is split.
+     */
+    private final SimpleQuery query;
+
     /**
      * Name of the properties where are stored associations in feature instances.
      * The length of this array shall be equal to the {@link #dependencies} array length.
@@ -108,6 +158,34 @@ final class Features implements Spliterator<AbstractFeature>, Runnable {
      */
     private final PreparedStatement statement;
 
+    /**
+     * If this iterator is a dependency, the {@code SELECT … FROM …} part of {@link #statement} without the
+     * {@code WHERE} clause. Used for fetching the features referenced by many keys in a single query.
+     * Otherwise this field is {@code null}.
+     */
+    private final String selectFrom;
+
+    /**
+     * If this iterator is a dependency, the condition on the search columns for a single key
+     * (for example {@code "code"=?}). Otherwise this field is {@code null}.
+     */
+    private final String keyCondition;
+
+    /**
+     * If this iterator is a dependency, one-based indices of the columns compared to the keys in {@link #statement}.
+     * Those column values are used for dispatching the features fetched by a single query to the features
+     * owning them. Otherwise this field is {@code null}.
+     */
+    private final int[] searchColumnIndices;
+
+    /**
+     * Features read in advance with their associations resolved, but not yet given to the consumer.
+     * This is non-null only for the main iterator when there is at least one dependency.
+     *
+     * @see #BATCH_SIZE
+     */
+    private final ArrayDeque<AbstractFeature> pending;
+
     /**
      * The result of executing the SQL query for a {@link Table}. If {@link #statement} is null,
      * then a single {@code ResultSet} is used for all the lifetime of this {@code Features} instance.
@@ -115,6 +193,68 @@ final class Features implements Spliterator<AbstractFeature>, Runnable {
      */
     private ResultSet result;
 
+    /**
+     * Connection to the database, or {@code null} if this iterator is a dependency or has been closed.
+     * If non-null, then this iterator is responsible for closing this connection.
+     */
+    private Connection connection;
+
+    /**
+     * Whether this iterator has disabled the auto-commit mode of {@link #connection} before to execute the query.
+     * In such case, the auto-commit mode and the {@link #wasReadOnly} mode shall be restored by {@link #close()}.
+     */
+    private boolean inTransaction;
+
+    /**
+     * The read-only mode of {@link #connection} before {@link #execute()} started a transaction.
+     * Used only if {@link #inTransaction} is {@code true}.
+     */
+    private boolean wasReadOnly;
+
+    /**
+     * The query to execute for the main iterator, without the range of primary key values. The query is executed
+     * only when the first feature is requested, for giving a chance to {@link #trySplit()} to restrict the range.
+     * This is {@code null} if this iterator is a dependency.
+     */
+    private final String mainQuery;
+
+    /**
+     * Values of the {@code ?} parameters in {@link #mainQuery}, or {@code null} if this iterator is a dependency.
+     */
+    private final List<Object> parameters;
+
+    /**
+     * Whether {@link #mainQuery} contains a {@code WHERE} clause.
+     */
+    private final boolean hasWhere;
+
+    /**
+     * The primary key column as a quoted identifier if this iterator can be split in ranges of key values,
+     * or {@code null} otherwise. This column must be of integer type.
+     */
+    private String keyColumn;
+
+    /**
+     * The query for fetching the minimal and maximal values of {@link #keyColumn}, or {@code null} if none.
+     */
+    private final String rangeQuery;
+
+    /**
+     * Whether the rows to read are restricted to the {@link #lowerKey} … {@link #upperKey} range (inclusive).
+     */
+    private boolean hasRange;
+
+    /**
+     * Range of primary key values to read, inclusive. Used only if {@link #hasRange} is {@code true}.
+     */
+    private long lowerKey, upperKey;
+
+    /**
+     * All iterators created by {@link #trySplit()} from the same main iterator, or {@code null} if this iterator
+     * is a dependency. This list is shared by all splits and is closed when the stream is closed.
+     */
+    private List<Features> splits;
+
     /**
      * Feature instances already created, or {@code null} if the features created by this iterator are not cached.
      * This map is used when requesting a feature by identifier, not when iterating over all features (note: we
@@ -137,7 +277,14 @@ final class Features implements Spliterator<AbstractFeature>, Runnable {
     /**
      * Estimated number of rows, or {@literal <= 0} if unknown.
      */
-    private final long estimatedSize;
+    private long estimatedSize;
+
+    /**
+     * The query conditions that could not be translated to SQL and need to be evaluated in Java,
+     * or {@code null} if none. If non-null, then the query offset and limit have not been applied
+     * by the database neither.
+     */
+    final List<Condition> residualConditions;
 
     /**
      * Creates a new iterator over the feature instances.
@@ -150,15 +297,28 @@ final class Features implements Spliterator<AbstractFeature>, Runnable {
      * @param exportedKeys      value of {@link Table#exportedKeys}:     foreigner keys of other tables.
      * @param following         the relations that we are following. Used for avoiding never ending loop.
      * @param noFollow          relation to not follow, or {@code null} if none.
+     * @param query             the query to translate in {@code WHERE}, {@code OFFSET} and {@code FETCH} clauses,
+     *                          or {@code null} if none. Used only if {@code following} is empty.
+     * @param featureType       the type of features to create, which may be a subset of {@link Table#featureType}.
+     * @param countRows         whether to ask the database for an estimation of the number of rows. This is {@code false}
+     *                          for iterators created by {@link #trySplit()}, which get their estimation from the parent.
      */
     Features(final Table table, final Connection connection, final String[] attributeNames, final String[] attributeColumns,
-             final Relation[] importedKeys, final Relation[] exportedKeys, final List<Relation> following, final Relation noFollow)
+             final Relation[] importedKeys, final Relation[] exportedKeys, final List<Relation> following, final Relation noFollow,
+             final SimpleQuery query, final DefaultFeatureType featureType, final boolean countRows)
              throws SQLException, InternalDataStoreException
     {
-        this.featureType = table.featureType;
-        this.attributeNames = attributeNames;
+        this.table            = table;
+        this.featureType      = featureType;
+        this.attributeNames   = attributeNames;
+        this.attributeColumns = attributeColumns;
+        this.importedKeys     = importedKeys;
+        this.exportedKeys     = exportedKeys;
+        this.query            = query;
         final DatabaseMetaData metadata = connection.getMetaData();
-        estimatedSize = following.isEmpty() ? table.countRows(metadata, true) : 0;
+        if (countRows && following.isEmpty() && (query == null || !isFiltering(query))) {
+            estimatedSize = table.countRows(metadata, true);
+        }
         final SQLBuilder sql = new SQLBuilder(metadata, true).append("SELECT");
         final Map<String,Integer> columnIndices = new HashMap<>();
         /*
@@ -231,6 +391,8 @@ final class Features implements Spliterator<AbstractFeature>, Runnable {
             this.deferredAssociation = deferredAssociation;
         }
         this.importCount = importCount;
+        searchColumnIndices = following.isEmpty() ? null : getColumnIndices(sql,
+                following.get(following.size() - 1).getSearchColumns(), columnIndices);
         /*
          * Create a Statement if we don't need any condition, or a PreparedStatement if we need to add
          * a "WHERE" clause. In the later case, we will cache the features already created if there is
@@ -241,15 +403,49 @@ final class Features implements Spliterator<AbstractFeature>, Runnable {
             statement = null;
             instances = null;       // A future SIS version could use the map opportunistically if it exists.
             keyComponentClass = null;
-            result = connection.createStatement().executeQuery(sql.toString());
+            selectFrom = null;
+            keyCondition = null;
+            pending = (dependencies.length != 0) ? new ArrayDeque<>(BATCH_SIZE) : null;
+            parameters = new ArrayList<>();
+            residualConditions = (query != null) ? appendQuery(sql, table, query, parameters) : null;
+            mainQuery = sql.toString();
+            this.connection = connection;
+            splits = new ArrayList<>();
+            /*
+             * The scan can be split in ranges of primary key values only if the database does not apply
+             * an offset or a limit (otherwise each range would apply them). If some conditions have not
+             * been translated to SQL, then the offset and limit are applied in Java after the split.
+             */
+            final String key = table.splittableKey();
+            if (key != null && (query == null || residualConditions != null || (query.getOffset() <= 0 && query.getLimit() < 0))) {
+                keyColumn  = new SQLBuilder(metadata, true).appendIdentifier(key).toString();
+                rangeQuery = new SQLBuilder(metadata, true).append("SELECT MIN(").appendIdentifier(key)
+                        .append("), MAX(").appendIdentifier(key).append(") FROM ")
+                        .appendIdentifier(table.name.catalog, table.name.schema, table.name.table).toString();
+                hasWhere = (query != null) && query.getConditions().size() > (residualConditions != null ? residualConditions.size() : 0);
+            } else {
+                rangeQuery = null;
+                hasWhere   = false;
+            }
         } else {
+            residualConditions = null;
+            pending    = null;
+            mainQuery  = null;
+            parameters = null;
+            rangeQuery = null;
+            hasWhere   = false;
             final Relation componentOf = following.get(following.size() - 1);
-            String separator = " WHERE ";
+            selectFrom = sql.toString();
+            sql.append(" WHERE ");
+            final int start = sql.toString().length();
+            String separator = "";
             for (String primaryKey : componentOf.getSearchColumns()) {
                 sql.append(separator).appendIdentifier(primaryKey).append("=?");
                 separator = " AND ";
             }
-            statement = connection.prepareStatement(sql.toString());
+            final String select = sql.toString();
+            keyCondition = select.substring(start);
+            statement = connection.prepareStatement(select);
             /*
              * Following assumes that the foreigner key references the primary key of this table,
              * in which case 'table.primaryKeyClass' should never be null. This assumption may not
@@ -265,6 +461,76 @@ final class Features implements Spliterator<AbstractFeature>, Runnable {
         }
     }
 
+    /**
+     * Returns whether the given query may exclude some rows.
+     */
+    private static boolean isFiltering(final SimpleQuery query) {
+        return !query.getConditions().isEmpty() || query.getOffset() > 0 || query.getLimit() >= 0;
+    }
+
+    /**
+     * Appends the {@code WHERE}, {@code ORDER BY}, {@code OFFSET} and {@code FETCH} clauses for the given query.
+     * Conditions are resolved against all columns of the table, including the columns that are not selected.
+     * Conditions that can not be expressed in SQL are returned for evaluation in Java; in such case the offset
+     * and limit are not appended since they must be applied after filtering. If an offset or a limit is appended,
+     * then the rows are sorted by primary key for making the pages reproducible.
+     *
+     * @param  sql         the builder where to append the clauses.
+     * @param  table       the table on which the query is executed.
+     * @param  query       the query to translate.
+     * @param  parameters  where to add the values of {@code ?} parameters.
+     * @return the conditions not translated to SQL, or {@code null} if all conditions have been translated.
+     */
+    private static List<Condition> appendQuery(final SQLBuilder sql, final Table table,
+            final SimpleQuery query, final List<Object> parameters)
+    {
+        List<Condition> residual = null;
+        String separator = " WHERE ";
+        for (final Condition condition : query.getConditions()) {
+            final String column = table.columnOf(condition.property);
+            if (column != null) {
+                final SQLBuilder clause = new SQLBuilder(sql);
+                boolean translated = false;
+                if (condition instanceof Condition.Comparison) {
+                    final Condition.Comparison c = (Condition.Comparison) condition;
+                    clause.appendIdentifier(column).append(c.operator.symbol).append('?');
+                    parameters.add(c.literal);
+                    translated = true;
+                } else if (condition instanceof Condition.BoundingBox) {
+                    translated = table.functions.appendBoundingBoxCondition(clause, table.name, column,
+                                        ((Condition.BoundingBox) condition).envelope, parameters);
+                }
+                if (translated) {
+                    sql.append(separator).append(clause.toString());
+                    separator = " AND ";
+                    continue;
+                }
+            }
+            if (residual == null) {
+                residual = new ArrayList<>();
+            }
+            residual.add(condition);
+        }
+        if (residual == null && (query.getOffset() > 0 || query.getLimit() >= 0)) {
+            if (table.primaryKeys != null) {
+                separator = " ORDER BY ";
+                for (final String column : table.primaryKeys) {
+                    sql.append(separator).appendIdentifier(column);
+                    separator = ", ";
+                }
+            }
+            final long offset = query.getOffset();
+            if (offset > 0) {
+                sql.append(" OFFSET ").append(Long.toString(offset)).append(" ROWS");
+            }
+            final long limit = query.getLimit();
+            if (limit >= 0) {
+                sql.append(" FETCH FIRST ").append(Long.toString(limit)).append(" ROWS ONLY");
+            }
+        }
+        return residual;
+    }
+
     /**
      * Appends a columns in the given builder and remember the column indices.
      * An exception is thrown if the column has already been added (should never happen).
@@ -319,13 +585,92 @@ final class Features implements Spliterator<AbstractFeature>, Runnable {
     }
 
     /**
-     * Current version does not support split.
+     * Splits this iterator in two ranges of primary key values, if possible. The split is possible only before
+     * the first feature is read and only if the table has a primary key made of a single column of integer type.
+     * The new iterator uses its own connection to the database, so the two ranges can be read in parallel.
      *
-     * @return always {@code null}.
+     * @return an iterator over the upper half of the primary key values, or {@code null} if this iterator can not be split.
      */
     @Override
     public Spliterator<AbstractFeature> trySplit() {
-        return null;
+        if (keyColumn == null || result != null || connection == null) {
+            return null;
+        }
+        try {
+            if (!hasRange) {
+                try (Statement stmt = connection.createStatement(); ResultSet r = stmt.executeQuery(rangeQuery)) {
+                    if (r.next()) {
+                        lowerKey = r.getLong(1);
+                        upperKey = r.getLong(2);
+                        hasRange = !r.wasNull();
+                    }
+                }
+                if (!hasRange) {
+                    keyColumn = null;               // Empty table: no need to try again.
+                    return null;
+                }
+            }
+            final long middle = (lowerKey >> 1) + (upperKey >> 1) + (lowerKey & upperKey & 1);     // Avoid overflow.
+            if (middle - lowerKey < MINIMAL_SPLIT_RANGE) {
+                return null;
+            }
+            final Connection c = table.source.getConnection();
+            final Features split;
+            try {
+                split = new Features(table, c, attributeNames, attributeColumns, importedKeys, exportedKeys,
+                                     new ArrayList<>(), null, query, featureType, false);
+            } catch (Throwable e) {
+                c.close();
+                throw e;
+            }
+            split.splits   = splits;
+            split.hasRange = true;
+            split.lowerKey = middle + 1;
+            split.upperKey = upperKey;
+            upperKey = middle;
+            split.estimatedSize = (estimatedSize >>= 1);
+            synchronized (splits) {
+                splits.add(split);
+            }
+            return split;
+        } catch (SQLException | DataStoreException e) {
+            throw new BackingStoreException(e);
+        }
+    }
+
+    /**
+     * Executes the query of the main iterator, restricted to the range of primary key values if any.
+     * If the connection is in auto-commit mode, the query is executed in a read-only transaction because
+     * some JDBC drivers (e.g. PostgreSQL) ignore the fetch size and load the whole result set in memory
+     * otherwise. The connection modes are restored by {@link #close()}.
+     */
+    private void execute() throws SQLException {
+        if (connection.getAutoCommit()) {
+            wasReadOnly = connection.isReadOnly();
+            connection.setReadOnly(true);               // Must be invoked before the transaction starts.
+            connection.setAutoCommit(false);
+            inTransaction = true;
+        }
+        String sql = mainQuery;
+        List<Object> parameters = this.parameters;
+        if (hasRange) {
+            sql = sql + (hasWhere ? " AND " : " WHERE ") + keyColumn + ">=? AND " + keyColumn + "<=?";
+            parameters = new ArrayList<>(parameters);
+            parameters.add(lowerKey);
+            parameters.add(upperKey);
+        }
+        if (parameters.isEmpty()) {
+            final Statement stmt = connection.createStatement();
+            stmt.setFetchSize(FETCH_SIZE);
+            result = stmt.executeQuery(sql);
+        } else {
+            final PreparedStatement stmt = connection.prepareStatement(sql);
+            stmt.setFetchSize(FETCH_SIZE);
+            for (int i=0; i<parameters.size(); i++) {
+                stmt.setObject(i+1, parameters.get(i));
+            }
+            result = stmt.executeQuery();
+        }
     }
 
     /**
@@ -356,106 +701,308 @@ final class Features implements Spliterator<AbstractFeature>, Runnable {
      * Gives at least the next feature to the given consumer.
      * Gives all remaining features if {@code all} is {@code true}.
      *
+     * <p>If this iterator has dependencies, then rows are read by blocks of {@value #BATCH_SIZE} and the
+     * associations of each block are resolved by {@link #fetchBlock()}. Otherwise each row is handled
+     * as soon as it is read by {@link #fetchRows(Consumer, boolean)}.</p>
+     *
      * @param  action  the action to execute for each {@link AbstractFeature} instances fetched by this method.
      * @param  all     {@code true} for reading all remaining feature instances, or {@code false} for only the next one.
      * @return {@code true} if we have read an instance and {@code all} is {@code false} (so there is maybe other instances).
      */
     private boolean fetch(final Consumer<? super AbstractFeature> action, final boolean all) throws SQLException {
-        while (result.next()) {
-            final AbstractFeature feature = featureType.newInstance();
-            for (int i=0; i < attributeNames.length; i++) {
-                final Object value = result.getObject(i+1);
-                if (!result.wasNull()) {
-                    feature.setPropertyValue(attributeNames[i], value);
+        if (result == null) {
+            if (connection == null) {
+                return false;           // Iterator has been closed.
+            }
+            execute();
+        }
+        if (pending == null) {
+            return fetchRows(action, all);
+        }
+        do {
+            AbstractFeature feature;
+            while ((feature = pending.poll()) != null) {
+                action.accept(feature);
+                if (!all) return true;
+            }
+        } while (fetchBlock());
+        return false;
+    }
+
+    /**
+     * Creates a feature instance with the attribute values of the current row.
+     * Associations are not set by this method.
+     */
+    private AbstractFeature createFeature() throws SQLException {
+        final AbstractFeature feature = featureType.newInstance();
+        for (int i=0; i < attributeNames.length; i++) {
+            final Object value = result.getObject(i+1);
+            if (!result.wasNull()) {
+                feature.setPropertyValue(attributeNames[i], value);
+            }
+        }
+        return feature;
+    }
+
+    /**
+     * Returns the values of the foreigner keys of the current row for each dependency.
+     * The value at index <var>i</var> is {@code null} if a column of {@code dependencies[i]} key is null.
+     */
+    private Object[][] foreignerKeys() throws SQLException {
+        final Object[][] keys = new Object[dependencies.length][];
+        for (int i=0; i < dependencies.length; i++) {
+            final int[] columnIndices = foreignerKeyIndices[i];
+            Object[] key = new Object[columnIndices.length];
+            for (int p=0; p < columnIndices.length; p++) {
+                if ((key[p] = result.getObject(columnIndices[p])) == null) {
+                    key = null;             // Null foreigner keys reference nothing.
+                    break;
                 }
             }
-            for (int i=0; i < dependencies.length; i++) {
-                final Features dependency = dependencies[i];
-                final int[] columnIndices = foreignerKeyIndices[i];
-                final Object value;
-                if (i < importCount) {
-                    /*
-                     * Relation.Direction.IMPORT: this table contains the foreigner keys.
-                     *
-                     * If the foreigner key uses only one column, we will store the foreigner key value
-                     * in the 'key' variable without creating array. But if the foreigner key uses more
-                     * than one column, then we need to create an array holding all values.
-                     */
-                    Object key = null;
-                    final Object keys = dependency.identifierArray(columnIndices.length);
-                    for (int p=0; p < columnIndices.length;) {
-                        key = result.getObject(columnIndices[p]);
-                        if (keys != null) Array.set(keys, p, key);
-                        dependency.statement.setObject(++p, key);
+            keys[i] = key;
+        }
+        return keys;
+    }
+
+    /**
+     * Reads the next block of at most {@value #BATCH_SIZE} rows and adds the features to the {@link #pending} queue.
+     * The keys of all rows in the block are collected first, then the associations are resolved by
+     * {@link #resolve(List, List)}.
+     *
+     * @return {@code false} if there is no more rows to read.
+     */
+    private boolean fetchBlock() throws SQLException {
+        final List<AbstractFeature> features = new ArrayList<>(BATCH_SIZE);
+        final List<Object[][]> rowKeys = new ArrayList<>(BATCH_SIZE);
+        while (features.size() < BATCH_SIZE && result.next()) {
+            rowKeys.add(foreignerKeys());
+            features.add(createFeature());
+        }
+        if (features.isEmpty()) {
+            return false;
+        }
+        resolve(features, rowKeys);
+        pending.addAll(features);
+        return true;
+    }
+
+    /**
+     * Sets the associations of the given features. Each dependency is resolved by a single query per block of
+     * {@value #BATCH_SIZE} keys not already in the cache, instead of one query per row and per relation.
+     * The dependencies resolve their own associations in the same way, so each level of a chain of
+     * associations costs one query per block of keys.
+     *
+     * @param  features  the features for which to resolve the associations.
+     * @param  rowKeys   the {@linkplain #foreignerKeys() foreigner keys} of each feature.
+     */
+    private void resolve(final List<AbstractFeature> features, final List<Object[][]> rowKeys) throws SQLException {
+        for (int i=0; i < dependencies.length; i++) {
+            final Features dependency = dependencies[i];
+            final boolean isImport = (i < importCount);
+            /*
+             * Collect the distinct keys of this relation. For Relation.Direction.IMPORT, the features may
+             * already be in the cache, in which case we do not need to query them again. Keys are compared
+             * in their normalized form, but the values given by the JDBC driver are kept in the 'missing' map
+             * for the query parameters and for the cache, which may use arrays of primitive type.
+             */
+            final Map<List<Object>,Object> values = new HashMap<>();
+            final Map<List<Object>,Object[]> missing = new LinkedHashMap<>();
+            for (final Object[][] keys : rowKeys) {
+                final Object[] key = keys[i];
+                if (key != null) {
+                    final List<Object> k = normalize(key);
+                    if (!values.containsKey(k)) {
+                        final Object existing = isImport ? dependency.instances.get(dependency.cacheKey(key)) : null;
+                        values.put(k, existing);
+                        if (existing == null) {
+                            missing.put(k, key);
+                        }
                     }
-                    if (keys != null) key = keys;
-                    value = dependency.fetchReferenced(key, null);
-                } else {
-                    /*
-                     * Relation.Direction.EXPORT: another table references this table.
-                     *
-                     * 'key' must stay null because we do not cache those dependencies.
-                     * The reason is that this direction can return a lot of instances,
-                     * contrarily to Direction.IMPORT which return only one instance.
-                     * Furthermore instances fetched from Direction.EXPORT can not be
-                     * shared by feature instances, so caching would be useless here.
-                     */
-                    for (int p=0; p < columnIndices.length;) {
-                        final Object k = result.getObject(columnIndices[p]);
-                        dependency.statement.setObject(++p, k);
+                }
+            }
+            if (!missing.isEmpty()) {
+                final Map<List<Object>, List<AbstractFeature>> fetched = new HashMap<>();
+                final List<Object[]> keys = new ArrayList<>(missing.values());
+                for (int lower = 0; lower < keys.size(); lower += BATCH_SIZE) {
+                    dependency.fetchReferenced(keys.subList(lower, Math.min(lower + BATCH_SIZE, keys.size())), fetched);
+                }
+                for (final Map.Entry<List<Object>,Object[]> entry : missing.entrySet()) {
+                    final List<AbstractFeature> components = fetched.get(entry.getKey());
+                    Object value = (components != null) ? toPropertyValue(components) : null;
+                    if (isImport && value != null) {
+                        value = dependency.cache(dependency.cacheKey(entry.getValue()), value);
+                    }
+                    values.put(entry.getKey(), value);
+                }
+            }
+            /*
+             * Assign the associations. For Relation.Direction.EXPORT, the features fetched for a key are
+             * components of the single feature having that key (no caching since they can not be shared),
+             * so we can also set the association from the components back to their owner.
+             */
+            for (int r=0; r < features.size(); r++) {
+                final Object[] key = rowKeys.get(r)[i];
+                if (key != null) {
+                    final Object value = values.get(normalize(key));
+                    if (value != null) {
+                        final AbstractFeature feature = features.get(r);
+                        if (!isImport && dependency.deferredAssociation != null) {
+                            for (final Object component : (value instanceof List<?>) ? (List<?>) value : Arrays.asList(value)) {
+                                ((AbstractFeature) component).setPropertyValue(dependency.deferredAssociation, feature);
+                            }
+                        }
+                        feature.setPropertyValue(associationNames[i], value);
                     }
-                    value = dependency.fetchReferenced(null, feature);
                 }
-                feature.setPropertyValue(associationNames[i], value);
             }
-            action.accept(feature);
+        }
+    }
+
+    /**
+     * Gives the features of rows in the current result set to the given consumer.
+     * This method is used only by iterators without dependencies.
+     *
+     * @param  action  the action to execute for each {@link AbstractFeature} instances fetched by this method.
+     * @param  all     {@code true} for reading all remaining feature instances, or {@code false} for only the next one.
+     * @return {@code true} if we have read an instance and {@code all} is {@code false} (so there is maybe other instances).
+     */
+    private boolean fetchRows(final Consumer<? super AbstractFeature> action, final boolean all) throws SQLException {
+        while (result.next()) {
+            action.accept(createFeature());
             if (!all) return true;
         }
         return false;
     }
 
     /**
-     * Executes the current {@link #statement} and stores all features in a list.
-     * Returns {@code null} if there is no feature, or returns the feature instance
-     * if there is only one such instance, or returns a list of features otherwise.
+     * Fetches the features referenced by all the given keys using a single query, then resolves their own
+     * associations. Each key contains the values of the search columns, in the same order than the
+     * {@link #statement} parameters. If there is only one search column, the query uses a
+     * {@code WHERE column IN (?, ?, …)} clause. Otherwise the query uses a disjunction of the
+     * conditions for each key.
      *
-     * @param  key    the key to use for referencing the feature in the cache, or {@code null} for no caching.
-     * @param  owner  if the features to fetch are components of another feature, that container feature instance.
-     * @return the feature as a singleton {@code Feature} or as a {@code Collection<Feature>}.
-     */
-    private Object fetchReferenced(final Object key, final AbstractFeature owner) throws SQLException {
-        if (key != null) {
-            Object existing = instances.get(key);
-            if (existing != null) {
-                return existing;
+     * @param  keys      the distinct keys of the features to fetch, as values given by the JDBC driver.
+     * @param  features  where to add the features fetched for each {@linkplain #normalize normalized} key.
+     *                   Keys without feature are absent.
+     */
+    private void fetchReferenced(final Collection<Object[]> keys, final Map<List<Object>, List<AbstractFeature>> features)
+            throws SQLException
+    {
+        final StringBuilder sql = new StringBuilder(selectFrom).append(" WHERE ");
+        if (searchColumnIndices.length == 1) {
+            sql.append(keyCondition, 0, keyCondition.length() - 2).append(" IN (");     // Remove the trailing "=?".
+            for (int i=0; i < keys.size(); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            sql.append(')');
+        } else {
+            for (int i=0; i < keys.size(); i++) {
+                if (i != 0) sql.append(" OR ");
+                sql.append('(').append(keyCondition).append(')');
+            }
+        }
+        final List<AbstractFeature> fetched = new ArrayList<>();
+        final List<Object[][]> rowKeys = new ArrayList<>();
+        try (PreparedStatement stmt = statement.getConnection().prepareStatement(sql.toString())) {
+            int p = 0;
+            for (final Object[] key : keys) {
+                for (final Object k : key) {
+                    stmt.setObject(++p, k);
+                }
+            }
+            try (ResultSet r = stmt.executeQuery()) {
+                result = r;
+                while (r.next()) {
+                    final Object[] key = new Object[searchColumnIndices.length];
+                    for (int i=0; i < key.length; i++) {
+                        key[i] = r.getObject(searchColumnIndices[i]);
+                    }
+                    final AbstractFeature feature = createFeature();
+                    features.computeIfAbsent(normalize(key), (k) -> new ArrayList<>()).add(feature);
+                    fetched.add(feature);
+                    rowKeys.add(foreignerKeys());
+                }
+            } finally {
+                result = null;
             }
         }
-        final List<AbstractFeature> features = new ArrayList<>();
-        try (ResultSet r = statement.executeQuery()) {
-            result = r;
-            fetch(features::add, true);
-        } finally {
-            result = null;
+        /*
+         * Resolve the associations of the fetched features only after the result set has been closed,
+         * since some JDBC drivers do not support many open result sets on the same connection.
+         */
+        if (!fetched.isEmpty()) {
+            resolve(fetched, rowKeys);
         }
-        if (owner != null && deferredAssociation != null) {
-            for (final AbstractFeature feature : features) {
-                feature.setPropertyValue(deferredAssociation, owner);
+    }
+
+    /**
+     * Returns the given key values in a form suitable for comparisons between the foreigner key columns
+     * and the columns of the referenced table. Those columns may have different types, for example
+     * {@code INTEGER} and {@code BIGINT}, in which case the JDBC driver returns {@link Integer} and
+     * {@link Long} instances that are not equal. This method converts all integer values to {@link Long}.
+     *
+     * @param  key  the key values as given by the JDBC driver. This array is not modified.
+     * @return the key values with integers converted to {@code Long}.
+     */
+    private static List<Object> normalize(final Object[] key) {
+        Object[] values = key;
+        for (int i=0; i<key.length; i++) {
+            Object value = key[i];
+            if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                value = ((Number) value).longValue();
+            } else if (value instanceof BigInteger || value instanceof BigDecimal) {
+                try {
+                    value = (value instanceof BigInteger) ? ((BigInteger) value).longValueExact()
+                                                          : ((BigDecimal) value).longValueExact();
+                } catch (ArithmeticException e) {
+                    continue;                       // Not an integer in the range of 'long': keep as is.
+                }
+            } else {
+                continue;
+            }
+            if (values == key) {
+                values = key.clone();
             }
+            values[i] = value;
         }
-        Object feature;
+        return Arrays.asList(values);
+    }
+
+    /**
+     * Returns the key to use in the {@link #instances} cache for the given values of search columns.
+     */
+    private Object cacheKey(final Object[] values) {
+        final Object keys = identifierArray(values.length);
+        if (keys == null) {
+            return values[0];
+        }
+        for (int p=0; p < values.length; p++) {
+            Array.set(keys, p, values[p]);
+        }
+        return keys;
+    }
+
+    /**
+     * Stores the given feature in the {@link #instances} cache if no value was already associated to the given key.
+     *
+     * @return the cached value, which may be different than the given feature.
+     */
+    private Object cache(final Object key, final Object feature) {
+        @SuppressWarnings("unchecked")          // Check is performed by putIfAbsent(…).
+        final Object previous = ((WeakValueHashMap) instances).putIfAbsent(key, feature);
+        return (previous != null) ? previous : feature;
+    }
+
+    /**
+     * Returns {@code null} if there is no feature, or returns the feature instance
+     * if there is only one such instance, or returns the list of features otherwise.
+     */
+    private static Object toPropertyValue(final List<AbstractFeature> features) {
         switch (features.size()) {
-            case 0:  feature = null; break;
-            case 1:  feature = features.get(0); break;
-            default: feature = features; break;
-        }
-        if (key != null) {
-            @SuppressWarnings("unchecked")          // Check is performed by putIfAbsent(…).
-            final Object previous = ((WeakValueHashMap) instances).putIfAbsent(key, feature);
-            if (previous != null) {
-                feature = previous;
-            }
+            case 0:  return null;
+            case 1:  return features.get(0);
+            default: return features;
         }
-        return feature;
     }
 
     /**
@@ -463,37 +1010,69 @@ final class Features implements Spliterator<AbstractFeature>, Runnable {
      */
     private void close() throws SQLException {
         /*
-         * Only one of 'statement' and 'result' should be non-null. The connection should be closed
-         * by the 'Features' instance having a non-null 'result' because it is the main one created
-         * by 'Table.features(boolean)' method. The other 'Features' instances are dependencies.
+         * Only one of 'statement' and 'connection' should be non-null. The connection should be closed
+         * by the 'Features' instance having a non-null 'connection' because it is the main one created
+         * by 'Table.features(boolean)' method or by 'trySplit()'. Other instances are dependencies.
          */
         if (statement != null) {
             statement.close();
         }
-        final ResultSet r = result;
-        if (r != null) {
-            result = null;
-            final Statement s = r.getStatement();
-            try (Connection c = s.getConnection()) {
-                r.close();      // Implied by s.close() according JDBC javadoc, but we are paranoiac.
-                s.close();
-                for (final Features dependency : dependencies) {
-                    dependency.close();
+        final Connection c = connection;
+        if (c != null) {
+            connection = null;
+            try (Connection unused = c) {
+                try {
+                    final ResultSet r = result;
+                    if (r != null) {
+                        result = null;
+                        final Statement s = r.getStatement();
+                        r.close();      // Implied by s.close() according JDBC javadoc, but we are paranoiac.
+                        s.close();
+                    }
+                    for (final Features dependency : dependencies) {
+                        dependency.close();
+                    }
+                } finally {
+                    /*
+                     * Restore the connection modes before the connection is closed or returned to the pool.
+                     * The transaction is read-only, so there is nothing to commit.
+                     */
+                    if (inTransaction) {
+                        inTransaction = false;
+                        try {
+                            c.rollback();
+                        } finally {
+                            c.setAutoCommit(true);
+                            c.setReadOnly(wasReadOnly);
+                        }
+                    }
                 }
             }
         }
     }
 
     /**
-     * Closes the (pooled) connection, including the statements of all dependencies.
+     * Closes the (pooled) connections, including the statements of all dependencies and splits.
      * This is a handler to be invoked by {@link java.util.stream.Stream#close()}.
      */
     @Override
     public void run() {
-        try {
-            close();
-        } catch (SQLException e) {
-            throw new BackingStoreException(e);
+        SQLException error = null;
+        final Features[] all;
+        synchronized (splits) {
+            all = splits.toArray(new Features[splits.size() + 1]);
+        }
+        all[all.length - 1] = this;
+        for (final Features iter : all) {
+            try {
+                iter.close();
+            } catch (SQLException e) {
+                if (error == null) error = e;
+                else error.addSuppressed(e);
+            }
+        }
+        if (error != null) {
+            throw new BackingStoreException(error);
         }
     }
 }
@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.sql.feature;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.sql.Types;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ParameterMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import org.apache.sis.internal.metadata.sql.SQLBuilder;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.DataStoreContentException;
+import org.apache.sis.storage.IllegalFeatureTypeException;
+
+// Branch-dependent imports
+import org.apache.sis.feature.AbstractFeature;
+import org.apache.sis.feature.DefaultFeatureType;
+
+
+/**
+ * Inserts feature instances in a table using JDBC batches.
+ * The same prepared statement is reused for all batches.
+ * Values of attributes are written in their columns, and associations through imported keys
+ * are written as the primary key values of the associated features in the foreigner key columns.
+ * Associations through exported keys are ignored, since they are stored in other tables.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+final class Inserter {
+    /**
+     * The table where to insert the features.
+     */
+    private final Table table;
+
+    /**
+     * The {@code INSERT INTO … VALUES (?, …)} statement.
+     */
+    private final String sql;
+
+    /**
+     * Name of the columns in the {@code INSERT} statement, in the order of {@code ?} parameters.
+     */
+    private final String[] columns;
+
+    /**
+     * For each column in the {@code INSERT} statement, the name of the feature property providing the value.
+     * This is an attribute name, or the name of an association if {@link #isAssociation} is {@code true}.
+     */
+    private final String[] properties;
+
+    /**
+     * For each column in the {@code INSERT} statement, whether the value is read in a feature associated
+     * to the feature to insert instead than directly in the feature to insert.
+     */
+    private final boolean[] isAssociation;
+
+    /**
+     * For each column in the {@code INSERT} statement where {@link #isAssociation} is {@code true}, the name of
+     * the attribute to read in the associated feature. This is {@code null} if the column referenced by the
+     * foreigner key is not an attribute of the associated feature, for example because that column is itself
+     * a foreigner key. In such case, only features with a null association can be inserted.
+     */
+    private final String[] targetProperties;
+
+    /**
+     * Prepares the insertion of features in the given table.
+     *
+     * @param table             the table where to insert features.
+     * @param sql               an initially empty builder for the SQL statement.
+     * @param attributeNames    value of {@link Table#attributeNames}:   where to get simple values.
+     * @param attributeColumns  value of {@link Table#attributeColumns}: often the same as attribute names.
+     * @param attributeTypes    value of {@link Table#attributeTypes}:   database type names of attribute columns.
+     * @param importedKeys      value of {@link Table#importedKeys}:     targets of this table foreign keys.
+     */
+    Inserter(final Table table, final SQLBuilder sql, final String[] attributeNames, final String[] attributeColumns,
+             final String[] attributeTypes, final Relation[] importedKeys) throws DataStoreException
+    {
+        this.table = table;
+        final List<String> columns    = new ArrayList<>(Arrays.asList(attributeColumns));
+        final List<String> properties = new ArrayList<>(Arrays.asList(attributeNames));
+        final List<String> targets    = new ArrayList<>(Arrays.asList(new String[attributeNames.length]));
+        final int attributeCount      = attributeNames.length;
+        /*
+         * Foreigner key columns are not attributes (except when they are also primary keys).
+         * Their values are the primary key values of the features referenced by associations.
+         */
+        if (importedKeys != null) {
+            for (final Relation relation : importedKeys) {
+                final Table target = relation.getSearchTable();
+                final Iterator<String> it = relation.getSearchColumns().iterator();
+                for (final String column : relation.getForeignerKeys()) {
+                    final String primaryKey = it.next();
+                    if (!columns.contains(column)) {
+                        columns.add(column);
+                        properties.add(relation.propertyName);
+                        targets.add(target.attributeName(primaryKey));
+                    }
+                }
+            }
+        }
+        sql.append("INSERT INTO ").appendIdentifier(table.name.catalog, table.name.schema, table.name.table).append(" (");
+        for (int i=0; i<columns.size(); i++) {
+            if (i != 0) sql.append(", ");
+            sql.appendIdentifier(columns.get(i));
+        }
+        sql.append(") VALUES (");
+        for (int i=0; i<columns.size(); i++) {
+            if (i != 0) sql.append(", ");
+            table.functions.appendInsertParameter(sql, table.name, columns.get(i),
+                    (i < attributeCount) ? attributeTypes[i] : null);
+        }
+        this.sql              = sql.append(')').toString();
+        this.columns          = columns.toArray(new String[columns.size()]);
+        this.properties       = properties.toArray(new String[properties.size()]);
+        this.targetProperties = targets.toArray(new String[targets.size()]);
+        this.isAssociation    = new boolean[this.columns.length];
+        Arrays.fill(isAssociation, attributeCount, isAssociation.length, true);
+    }
+
+    /**
+     * Inserts all given features. Rows are sent to the database by batches of {@code batchSize} rows.
+     * If {@code featuresPerTransaction} is positive, then the auto-commit mode is disabled during this
+     * operation and the changes are committed after every group of that number of rows. In case of
+     * failure, the changes since the last commit are rolled back.
+     *
+     * @param  connection              connection to the database.
+     * @param  features                the features to insert.
+     * @param  batchSize               maximal number of rows in a single JDBC batch.
+     * @param  featuresPerTransaction  number of rows to insert before to commit, or 0 for the connection auto-commit mode.
+     * @return number of features inserted.
+     * @throws SQLException if an error occurred while inserting the rows.
+     * @throws DataStoreException if a feature is not of the type expected by the table.
+     */
+    long insert(final Connection connection, final Iterator<? extends AbstractFeature> features,
+                final int batchSize, final int featuresPerTransaction) throws SQLException, DataStoreException
+    {
+        final DefaultFeatureType type = table.featureType;
+        final boolean isTransaction = (featuresPerTransaction > 0);
+        final boolean autoCommit = connection.getAutoCommit();
+        if (isTransaction) {
+            connection.setAutoCommit(false);
+        }
+        long count = 0;
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            final int[] sqlTypes = parameterTypes(stmt);
+            int inBatch = 0, inTransaction = 0;
+            while (features.hasNext()) {
+                final AbstractFeature feature = features.next();
+                if (!type.isAssignableFrom(feature.getType())) {
+                    throw new IllegalFeatureTypeException(table.getLocale(), "SQL", feature.getType().getName());
+                }
+                for (int i=0; i<properties.length; i++) {
+                    Object value = feature.getPropertyValue(properties[i]);
+                    if (isAssociation[i] && value != null) {
+                        final String target = targetProperties[i];
+                        if (target == null) {
+                            throw new DataStoreContentException(Resources.forLocale(table.getLocale())
+                                    .getString(Resources.Keys.NotAnAttributeColumn_2, properties[i], columns[i]));
+                        }
+                        value = ((AbstractFeature) value).getPropertyValue(target);
+                    }
+                    table.functions.setValue(stmt, i+1, value, sqlTypes[i]);
+                }
+                stmt.addBatch();
+                count++;
+                if (++inBatch >= batchSize) {
+                    stmt.executeBatch();
+                    inBatch = 0;
+                }
+                if (isTransaction && ++inTransaction >= featuresPerTransaction) {
+                    if (inBatch != 0) {
+                        stmt.executeBatch();
+                        inBatch = 0;
+                    }
+                    connection.commit();
+                    inTransaction = 0;
+                }
+            }
+            if (inBatch != 0) {
+                stmt.executeBatch();
+            }
+            if (isTransaction) {
+                connection.commit();
+            }
+        } catch (SQLException | DataStoreException | RuntimeException e) {
+            if (isTransaction) try {
+                connection.rollback();
+            } catch (SQLException s) {
+                e.addSuppressed(s);
+            }
+            throw e;
+        } finally {
+            if (isTransaction) {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the SQL types of all parameters in the given statement, as {@link Types} constants.
+     * If the JDBC driver can not provide this information, then the types are {@link Types#NULL}.
+     */
+    private static int[] parameterTypes(final PreparedStatement stmt) throws SQLException {
+        final ParameterMetaData metadata = stmt.getParameterMetaData();
+        final int[] sqlTypes = new int[metadata.getParameterCount()];
+        try {
+            for (int i=0; i<sqlTypes.length; i++) {
+                sqlTypes[i] = metadata.getParameterType(i+1);
+            }
+        } catch (SQLFeatureNotSupportedException e) {
+            Arrays.fill(sqlTypes, Types.NULL);      // Accepted by most drivers for null values.
+        }
+        return sqlTypes;
+    }
+}
@@ -70,11 +70,21 @@ public final class Resources extends IndexedResourceBundle {
          */
         public static final short DuplicatedColumn_1 = 5;
 
+        /**
+         * Can not encode the “{0}” geometry in Well Known Binary format.
+         */
+        public static final short GeometryNotWritable_1 = 10;
+
         /**
          * “{0}” is not a valid qualified name for a table.
          */
         public static final short IllegalQualifiedName_1 = 3;
 
+        /**
+         * The “{0}” table supports only the addition of new features.
+         */
+        public static final short InsertOnly_1 = 8;
+
         /**
          * Unexpected error while analyzing the database schema.
          */
@@ -85,6 +95,11 @@ public final class Resources extends IndexedResourceBundle {
          */
         public static final short MalformedForeignerKey_2 = 7;
 
+        /**
+         * Can not write the “{0}” association because the “{1}” column is not an attribute of the associated feature.
+         */
+        public static final short NotAnAttributeColumn_2 = 9;
+
         /**
          * Table names, optionally with their schemas and catalogs.
          */
@@ -16,6 +16,8 @@
  */
 package org.apache.sis.internal.sql.feature;
 
+import java.util.List;
+import java.util.Locale;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -24,10 +26,16 @@ import java.time.OffsetTime;
 import java.time.OffsetDateTime;
 import java.sql.Types;
 import java.sql.ResultSet;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
 import java.sql.DatabaseMetaData;
+import org.opengis.geometry.Envelope;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.apache.sis.internal.metadata.sql.Dialect;
 import org.apache.sis.internal.metadata.sql.Reflection;
+import org.apache.sis.internal.metadata.sql.SQLBuilder;
+import org.apache.sis.internal.feature.Geometries;
 import org.apache.sis.setup.GeometryLibrary;
 
 
@@ -56,6 +64,11 @@ class SpatialFunctions {
      */
     final GeometryLibrary library;
 
+    /**
+     * The database product, used for selecting the syntax of spatial functions.
+     */
+    private final Dialect dialect;
+
     /**
      * Creates a new accessor to geospatial functions for the database described by given metadata.
      */
@@ -80,6 +93,7 @@ class SpatialFunctions {
          * For now use the default library.
          */
         library = null;
+        dialect = Dialect.guess(metadata);
     }
 
     /**
@@ -141,4 +155,118 @@ class SpatialFunctions {
     protected CoordinateReferenceSystem createGeometryCRS(ResultSet reflect) throws SQLException {
         return null;
     }
+
+    /**
+     * Appends a condition testing whether the bounding box of the geometry in the given column intersects
+     * the given envelope. The envelope is assumed expressed in the CRS of the geometry column. Values that
+     * are not literal numbers shall be appended as {@code ?} with their value added to {@code parameters}.
+     * If this method does not know how to express the condition for the database, then it appends nothing
+     * and returns {@code false}; the condition will be evaluated in Java on the features read.
+     *
+     * <p>The default implementation supports PostGIS, using the {@code &&} operator for benefiting from
+     * spatial index. Subclasses may override for handling other spatial extensions.</p>
+     *
+     * @param  sql         the builder where to append the condition.
+     * @param  table       the table which contains the geometry column.
+     * @param  column      name of the geometry column.
+     * @param  bbox        the envelope to test for intersection.
+     * @param  parameters  where to add the values of {@code ?} parameters.
+     * @return whether a condition has been appended.
+     */
+    protected boolean appendBoundingBoxCondition(final SQLBuilder sql, final TableReference table, final String column,
+                                                 final Envelope bbox, final List<Object> parameters)
+    {
+        if (dialect != Dialect.POSTGRESQL || bbox.getDimension() != 2) {
+            return false;
+        }
+        for (int i=0; i<2; i++) {
+            if (!Double.isFinite(bbox.getMinimum(i)) || !Double.isFinite(bbox.getMaximum(i))) {
+                return false;
+            }
+        }
+        sql.appendIdentifier(column).append(" && ST_MakeEnvelope(")
+           .append(Double.toString(bbox.getMinimum(0))).append(", ")
+           .append(Double.toString(bbox.getMinimum(1))).append(", ")
+           .append(Double.toString(bbox.getMaximum(0))).append(", ")
+           .append(Double.toString(bbox.getMaximum(1))).append(", Find_SRID(?, ?, ?))");
+        parameters.add(table.schema != null ? table.schema : "");
+        parameters.add(table.table);
+        parameters.add(column);
+        return true;
+    }
+
+    /**
+     * Appends the {@code ?} parameter for the value of a column in a statement inserting new rows.
+     * The parameter value will be set by {@link #setValue setValue(…)}, which encodes geometries
+     * in Well Known Binary (WKB) format. Consequently for geometry columns, this method needs to
+     * wrap the parameter in the function converting WKB to the database geometry type.
+     *
+     * <p>The default implementation supports PostGIS, using {@code ST_GeomFromWKB(?, srid)} for
+     * {@code geometry} columns with the SRID declared for the column, and {@code ST_GeogFromWKB(?)}
+     * for {@code geography} columns. For all other columns and databases, this method appends only
+     * {@code ?}. Subclasses may override for handling other spatial extensions.</p>
+     *
+     * @param  sql       the builder where to append the parameter.
+     * @param  table     the table where rows will be inserted.
+     * @param  column    name of the column where the parameter value will be inserted.
+     * @param  typeName  data source dependent type name of the column, or {@code null} if unknown.
+     */
+    protected void appendInsertParameter(final SQLBuilder sql, final TableReference table, final String column,
+                                         final String typeName)
+    {
+        if (dialect == Dialect.POSTGRESQL && typeName != null) {
+            String type = typeName.replace("\"", "");
+            type = type.substring(type.lastIndexOf('.') + 1).toLowerCase(Locale.US);
+            switch (type) {
+                case "geometry": {
+                    sql.append("ST_GeomFromWKB(?, Find_SRID('")
+                       .append(SQLBuilder.doubleQuotes(table.schema != null ? table.schema : "")).append("', '")
+                       .append(SQLBuilder.doubleQuotes(table.table)).append("', '")
+                       .append(SQLBuilder.doubleQuotes(column)).append("'))");
+                    return;
+                }
+                case "geography": {
+                    sql.append("ST_GeogFromWKB(?)");
+                    return;
+                }
+            }
+        }
+        sql.append('?');
+    }
+
+    /**
+     * Sets the value of a parameter in a statement inserting new rows. The {@code sqlType} argument is
+     * the SQL type of the parameter as one of {@link Types} constants, or {@link Types#NULL} if unknown.
+     *
+     * <p>The default implementation delegates to {@link PreparedStatement#setObject(int, Object)}, or to
+     * {@link PreparedStatement#setNull(int, int)} for null values. Geometry objects are encoded in Well
+     * Known Binary (WKB) format by {@link Geometries#toWKB(Object)} and set as bytes; the conversion to
+     * the database geometry type is done by the function appended by {@link #appendInsertParameter
+     * appendInsertParameter(…)}.</p>
+     *
+     * @param  stmt     the statement where to set the parameter value.
+     * @param  index    one-based index of the parameter to set.
+     * @param  value    the value to set, or {@code null}.
+     * @param  sqlType  SQL type of the parameter as one of {@link Types} constants.
+     * @throws SQLFeatureNotSupportedException if the value is a geometry which can not be encoded in WKB.
+     * @throws SQLException if a JDBC error occurred while setting the value.
+     */
+    protected void setValue(final PreparedStatement stmt, final int index, final Object value, final int sqlType)
+            throws SQLException
+    {
+        if (value != null) {
+            if (Geometries.isKnownType(value.getClass())) {
+                final byte[] wkb = Geometries.toWKB(value);
+                if (wkb == null) {
+                    throw new SQLFeatureNotSupportedException(Resources.format(
+                            Resources.Keys.GeometryNotWritable_1, Geometries.toString(value)));
+                }
+                stmt.setBytes(index, wkb);
+                return;
+            }
+            stmt.setObject(index, value);
+        } else {
+            stmt.setNull(index, sqlType);
+        }
+    }
 }
@@ -19,9 +19,13 @@ package org.apache.sis.internal.sql.feature;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.Set;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import java.sql.DatabaseMetaData;
@@ -36,12 +40,20 @@ import org.apache.sis.feature.builder.AttributeTypeBuilder;
 import org.apache.sis.feature.builder.AssociationRoleBuilder;
 import org.apache.sis.feature.builder.FeatureTypeBuilder;
 import org.apache.sis.internal.feature.Geometries;
+import org.apache.sis.storage.Query;
+import org.apache.sis.storage.FeatureSet;
+import org.apache.sis.storage.WritableFeatureSet;
+import org.apache.sis.storage.IllegalFeatureTypeException;
 import org.apache.sis.storage.DataStoreException;
 import org.apache.sis.storage.DataStoreContentException;
 import org.apache.sis.storage.InternalDataStoreException;
 import org.apache.sis.internal.metadata.sql.Reflection;
+import org.apache.sis.internal.metadata.sql.SQLBuilder;
 import org.apache.sis.internal.metadata.sql.SQLUtilities;
 import org.apache.sis.internal.storage.AbstractFeatureSet;
+import org.apache.sis.internal.storage.FeatureBatch;
+import org.apache.sis.internal.storage.query.Condition;
+import org.apache.sis.internal.storage.query.SimpleQuery;
 import org.apache.sis.internal.util.CollectionsExt;
 import org.apache.sis.util.collection.WeakValueHashMap;
 import org.apache.sis.util.collection.TreeTable;
@@ -49,12 +61,14 @@ import org.apache.sis.util.CharSequences;
 import org.apache.sis.util.Exceptions;
 import org.apache.sis.util.Classes;
 import org.apache.sis.util.Numbers;
+import org.apache.sis.util.ArgumentChecks;
 import org.apache.sis.util.Debug;
 
 // Branch-dependent imports
 import org.apache.sis.feature.AbstractFeature;
 import org.apache.sis.feature.DefaultFeatureType;
 import org.apache.sis.feature.DefaultAssociationRole;
+import org.apache.sis.feature.AbstractOperation;
 
 
 /**
@@ -69,11 +83,27 @@ import org.apache.sis.feature.DefaultAssociationRole;
  * @since   1.0
  * @module
  */
-final class Table extends AbstractFeatureSet {
+final class Table extends AbstractFeatureSet implements WritableFeatureSet, FeatureBatch.Source {
     /**
      * Provider of (pooled) connections to the database.
+     * This is used also by {@link Features} for opening a connection for each split of a parallel scan.
      */
-    private final DataSource source;
+    final DataSource source;
+
+    /**
+     * Functions specific to the spatial database, used for translating spatial conditions of queries.
+     */
+    final SpatialFunctions functions;
+
+    /**
+     * Maximal number of rows to insert in a single JDBC batch by {@link #add(Iterator)}.
+     */
+    private final int batchSize;
+
+    /**
+     * Number of rows to insert before to commit the transaction, or 0 for using the connection auto-commit mode.
+     */
+    private final int featuresPerTransaction;
 
     /**
      * The structure of this table represented as a feature. Each feature attribute is a table column,
@@ -101,10 +131,17 @@ final class Table extends AbstractFeatureSet {
      */
     private final String[] attributeColumns;
 
+    /**
+     * Database-dependent type names of each {@link #attributeColumns}, as given by {@link Reflection#TYPE_NAME}.
+     * Used for choosing how to encode values (for example geometries) when inserting new rows.
+     */
+    private final String[] attributeTypes;
+
     /**
      * The columns that constitute the primary key, or {@code null} if there is no primary key.
+     * This array shall not be modified after construction.
      */
-    private final String[] primaryKeys;
+    final String[] primaryKeys;
 
     /**
      * The primary keys of other tables that are referenced by this table foreign key columns.
@@ -155,8 +192,11 @@ final class Table extends AbstractFeatureSet {
             throws SQLException, DataStoreException
     {
         super(analyzer.listeners);
-        this.source = analyzer.source;
-        this.name   = id;
+        this.source    = analyzer.source;
+        this.functions = analyzer.functions;
+        this.batchSize = analyzer.batchSize;
+        this.featuresPerTransaction = analyzer.featuresPerTransaction;
+        this.name      = id;
         final String tableEsc  = analyzer.escape(id.table);
         final String schemaEsc = analyzer.escape(id.schema);
         /*
@@ -222,6 +262,7 @@ final class Table extends AbstractFeatureSet {
         int startWithLowerCase     = 0;
         final List<String> attributeNames = new ArrayList<>();
         final List<String> attributeColumns = new ArrayList<>();
+        final List<String> attributeTypes = new ArrayList<>();
         final FeatureTypeBuilder feature = new FeatureTypeBuilder(analyzer.nameFactory, analyzer.functions.library, analyzer.locale);
         try (ResultSet reflect = analyzer.metadata.getColumns(id.catalog, schemaEsc, tableEsc, null)) {
             while (reflect.next()) {
@@ -251,6 +292,7 @@ final class Table extends AbstractFeatureSet {
                     attributeNames.add(column);
                     attributeColumns.add(column);
                     final String typeName = reflect.getString(Reflection.TYPE_NAME);
+                    attributeTypes.add(typeName);
                     Class<?> type = analyzer.functions.toJavaType(reflect.getInt(Reflection.DATA_TYPE), typeName);
                     if (type == null) {
                         analyzer.warning(Resources.Keys.UnknownType_1, typeName);
@@ -413,6 +455,7 @@ final class Table extends AbstractFeatureSet {
         this.attributeNames   = attributeNames.toArray(new String[attributeNames.size()]);
         this.attributeColumns = attributeColumns.equals(attributeNames) ? this.attributeNames
                               : attributeColumns.toArray(new String[attributeColumns.size()]);
+        this.attributeTypes   = attributeTypes.toArray(new String[attributeTypes.size()]);
     }
 
     /**
@@ -563,6 +606,14 @@ final class Table extends AbstractFeatureSet {
         return instanceForPrimaryKeys;
     }
 
+    /**
+     * Returns the primary key column if it is a single column of integer type, or {@code null} otherwise.
+     * A parallel scan of this table can be split in ranges of values of that column.
+     */
+    final String splittableKey() {
+        return (primaryKeys != null && primaryKeys.length == 1 && Numbers.isInteger(primaryKeyClass)) ? primaryKeys[0] : null;
+    }
+
     /**
      * Returns the number of rows, or -1 if unknown. Note that some database drivers returns 0,
      * so it is better to consider 0 as "unknown" too. We do not cache this count because it may
@@ -600,12 +651,153 @@ final class Table extends AbstractFeatureSet {
      */
     @Override
     public Stream<AbstractFeature> features(final boolean parallel) throws DataStoreException {
+        return features(parallel, null, featureType);
+    }
+
+    /**
+     * Returns a stream of all features in this table as batches of values stored by columns.
+     * Only attributes are read; associations to other tables are not followed.
+     * The stream shall be closed after usage for releasing the connection.
+     *
+     * @param  capacity  maximal number of features in each batch.
+     * @return all features in this table, as batches.
+     * @throws DataStoreException if an error occurred while creating the stream.
+     */
+    @Override
+    public Stream<FeatureBatch> batches(final int capacity) throws DataStoreException {
+        ArgumentChecks.ensureStrictlyPositive("capacity", capacity);
+        DataStoreException ex;
+        Connection connection = null;
+        try {
+            connection = source.getConnection();
+            final FeatureBatches iter = new FeatureBatches(this, attributeNames, attributeColumns, connection, capacity);
+            return StreamSupport.stream(iter, false).onClose(iter);
+        } catch (SQLException cause) {
+            ex = new DataStoreException(Exceptions.unwrap(cause));
+        }
+        if (connection != null) try {
+            connection.close();
+        } catch (SQLException e) {
+            ex.addSuppressed(e);
+        }
+        throw ex;
+    }
+
+    /**
+     * Requests a subset of features and/or feature properties from this table. If the given query is a
+     * {@link SimpleQuery}, then its conditions, offset, limit and columns are translated into the SQL
+     * statement when possible, so only the requested rows and columns are transferred from the database.
+     *
+     * @param  query  definition of feature and feature properties filtering applied at reading time.
+     * @return resulting subset of features.
+     * @throws DataStoreException if an error occurred while processing the query.
+     */
+    @Override
+    public FeatureSet subset(final Query query) throws DataStoreException {
+        if (query instanceof SimpleQuery) {
+            return new TableSubset(this, (SimpleQuery) query);
+        }
+        return super.subset(query);
+    }
+
+    /**
+     * Returns a stream of features selected by the given query.
+     * Conditions that can not be translated to SQL are applied on the stream.
+     *
+     * @param  parallel     {@code true} for a parallel stream (if supported), or {@code false} for a sequential stream.
+     * @param  query        the query to execute, or {@code null} for all features.
+     * @param  resultType   the type of features to create. Shall be {@code query.expectedType(featureType)}.
+     * @return the features selected by the query.
+     * @throws DataStoreException if an error occurred while creating the stream.
+     */
+    final Stream<AbstractFeature> features(final boolean parallel, final SimpleQuery query,
+            final DefaultFeatureType resultType) throws DataStoreException
+    {
         DataStoreException ex;
         Connection connection = null;
         try {
             connection = source.getConnection();
-            final Features iter = features(connection, new ArrayList<>(), null);
-            return StreamSupport.stream(iter, parallel).onClose(iter);
+            final Features iter;
+            DefaultFeatureType copyTo = null;               // Non-null if features need to be copied.
+            Set<String> copied = null;                      // Properties to copy if 'copyTo' is non-null.
+            if (query == null) {
+                iter = features(connection, new ArrayList<>(), null);
+            } else {
+                /*
+                 * Keep only the columns and associations required by the query. Foreigner keys
+                 * of an association are added by the 'Features' constructor when needed.
+                 */
+                String[] names   = attributeNames;
+                String[] columns = attributeColumns;
+                Relation[] imported = importedKeys;
+                Relation[] exported = exportedKeys;
+                Set<String> required = query.getRequiredProperties(featureType);
+                if (required != null) {
+                    /*
+                     * Conditions which may not be translated to SQL are evaluated on the features.
+                     * If such a condition uses a property which is not in the projection, we need
+                     * to read full features and copy the requested properties after filtering.
+                     */
+                    for (final Condition condition : query.getConditions()) {
+                        if (!required.contains(condition.property) &&
+                                !(condition instanceof Condition.Comparison && columnOf(condition.property) != null))
+                        {
+                            copyTo = resultType;
+                            copied = required;
+                            required = null;
+                            break;
+                        }
+                    }
+                }
+                if (required != null) {
+                    final List<String> n = new ArrayList<>(names.length);
+                    final List<String> c = new ArrayList<>(names.length);
+                    for (int i=0; i<names.length; i++) {
+                        if (required.contains(names[i])) {
+                            n.add(names[i]);
+                            c.add(columns[i]);
+                        }
+                    }
+                    names    = n.toArray(new String[n.size()]);
+                    columns  = c.toArray(new String[c.size()]);
+                    imported = retain(imported, required);
+                    exported = retain(exported, required);
+                }
+                iter = new Features(this, connection, names, columns, imported, exported,
+                                    new ArrayList<>(), null, query, (copyTo != null) ? featureType : resultType, true);
+            }
+            Stream<AbstractFeature> stream = StreamSupport.stream(iter, parallel).onClose(iter);
+            if (iter.residualConditions != null) {
+                /*
+                 * Some conditions could not be translated to SQL. In such case the offset
+                 * and limit have not been applied by the database and must be applied here.
+                 */
+                for (final Condition condition : iter.residualConditions) {
+                    stream = stream.filter(condition);
+                }
+                final long offset = query.getOffset();
+                if (offset > 0) {
+                    stream = stream.skip(offset);
+                }
+                final long limit = query.getLimit();
+                if (limit >= 0) {
+                    stream = stream.limit(limit);
+                }
+            }
+            if (copyTo != null) {
+                final DefaultFeatureType type = copyTo;
+                final Set<String> names = copied;
+                stream = stream.map((feature) -> {
+                    final AbstractFeature copy = type.newInstance();
+                    for (final String name : names) {
+                        if (!(type.getProperty(name) instanceof AbstractOperation)) {
+                            copy.setPropertyValue(name, feature.getPropertyValue(name));
+                        }
+                    }
+                    return copy;
+                });
+            }
+            return stream;
         } catch (SQLException cause) {
             ex = new DataStoreException(Exceptions.unwrap(cause));
         }
@@ -617,6 +809,112 @@ final class Table extends AbstractFeatureSet {
         throw ex;
     }
 
+    /**
+     * Returns the relations for which the association is a required property, or {@code null} if none.
+     */
+    private static Relation[] retain(final Relation[] relations, final Set<String> required) {
+        if (relations == null) {
+            return null;
+        }
+        final List<Relation> retained = new ArrayList<>(relations.length);
+        for (final Relation relation : relations) {
+            if (required.contains(relation.propertyName)) {
+                retained.add(relation);
+            }
+        }
+        return toArray(retained);
+    }
+
+    /**
+     * Returns the column for the given attribute name, or {@code null} if the property is not stored directly
+     * in a column (for example an operation or an association). This method searches in all columns of this
+     * table, not only the columns selected by a query.
+     */
+    final String columnOf(final String property) {
+        for (int i=0; i<attributeNames.length; i++) {
+            if (property.equals(attributeNames[i])) {
+                return attributeColumns[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the name of the attribute for the given column, or {@code null} if the column is not an attribute.
+     * This is usually the column name, except for columns used both as primary key and as foreigner key.
+     */
+    final String attributeName(final String column) {
+        for (int i=0; i<attributeColumns.length; i++) {
+            if (column.equals(attributeColumns[i])) {
+                return attributeNames[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Verifies that the given type is the type of this table, since the table structure can not be changed.
+     *
+     * @param  newType  the type of features to store in this table.
+     * @throws IllegalFeatureTypeException if the given type is not the type of this table.
+     */
+    @Override
+    public void updateType(final DefaultFeatureType newType) throws DataStoreException {
+        ArgumentChecks.ensureNonNull("newType", newType);
+        if (!featureType.equals(newType)) {
+            throw new IllegalFeatureTypeException(getLocale(), "SQL", newType.getName());
+        }
+    }
+
+    /**
+     * Inserts new features in this table. The rows are sent to the database by JDBC batches,
+     * using a single prepared statement for all features. The batch size and the number of
+     * rows per transaction are specified by the {@link org.apache.sis.storage.DataOptionKey}
+     * given to the {@code SQLStore}.
+     *
+     * <p>Values are written for all columns, including primary keys. Associations through imported keys
+     * are written as the primary key values of the associated features. Associations through exported keys
+     * are ignored, since they are stored in other tables. Geometry values are encoded in Well Known Binary
+     * format and converted to the database geometry type by a function of the spatial extension, for example
+     * {@code ST_GeomFromWKB(…)} on PostGIS.</p>
+     *
+     * @param  features  features to insert in this table.
+     * @throws DataStoreException if an error occurred while inserting the features.
+     */
+    @Override
+    public void add(final Iterator<? extends AbstractFeature> features) throws DataStoreException {
+        ArgumentChecks.ensureNonNull("features", features);
+        try (Connection connection = source.getConnection()) {
+            final Inserter inserter = new Inserter(this, new SQLBuilder(connection.getMetaData(), true),
+                                                   attributeNames, attributeColumns, attributeTypes, importedKeys);
+            inserter.insert(connection, features, batchSize, featuresPerTransaction);
+        } catch (SQLException e) {
+            throw new DataStoreException(Exceptions.unwrap(e));
+        }
+    }
+
+    /**
+     * Unsupported operation, since this implementation can only add features.
+     *
+     * @param  filter  a predicate which returns true for resources to be removed.
+     * @return never returns.
+     */
+    @Override
+    public boolean removeIf(final Predicate<? super AbstractFeature> filter) {
+        throw new UnsupportedOperationException(Resources.forLocale(getLocale()).getString(Resources.Keys.InsertOnly_1, featureType.getName()));
+    }
+
+    /**
+     * Unsupported operation, since this implementation can only add features.
+     *
+     * @param  filter   a predicate which returns true for resources to be updated.
+     * @param  updater  operation called for each matching feature.
+     */
+    @Override
+    public void replaceIf(final Predicate<? super AbstractFeature> filter, final UnaryOperator<AbstractFeature> updater) {
+        throw new UnsupportedOperationException(Resources.forLocale(getLocale()).getString(Resources.Keys.InsertOnly_1, featureType.getName()));
+    }
+
     /**
      * Returns an iterator over the features.
      *
@@ -627,6 +925,7 @@ final class Table extends AbstractFeatureSet {
     final Features features(final Connection connection, final List<Relation> following, final Relation noFollow)
             throws SQLException, InternalDataStoreException
     {
-        return new Features(this, connection, attributeNames, attributeColumns, importedKeys, exportedKeys, following, noFollow);
+        return new Features(this, connection, attributeNames, attributeColumns, importedKeys, exportedKeys,
+                            following, noFollow, null, featureType, true);
     }
 }
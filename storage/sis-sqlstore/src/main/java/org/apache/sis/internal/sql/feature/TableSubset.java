@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.sql.feature;
+
+import java.util.stream.Stream;
+import org.opengis.util.GenericName;
+import org.apache.sis.internal.storage.AbstractFeatureSet;
+import org.apache.sis.internal.storage.query.SimpleQuery;
+import org.apache.sis.storage.DataStoreException;
+
+// Branch-dependent imports
+import org.apache.sis.feature.AbstractFeature;
+import org.apache.sis.feature.DefaultFeatureType;
+
+
+/**
+ * The result of {@link Table#subset(org.apache.sis.storage.Query)} for a {@link SimpleQuery}.
+ * The query is translated into SQL {@code WHERE}, {@code OFFSET} and {@code FETCH} clauses
+ * every time that {@link #features(boolean)} is invoked.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+final class TableSubset extends AbstractFeatureSet {
+    /**
+     * The table on which the query is executed.
+     */
+    private final Table table;
+
+    /**
+     * The query to execute.
+     */
+    private final SimpleQuery query;
+
+    /**
+     * The type of features in this set, which may contain only a subset of the table columns.
+     */
+    private final DefaultFeatureType resultType;
+
+    /**
+     * Creates a new subset of the given table.
+     *
+     * @throws IllegalArgumentException if the query references a property which is not in the table.
+     */
+    TableSubset(final Table table, final SimpleQuery query) {
+        super(table);
+        this.table = table;
+        this.query = query;
+        resultType = query.expectedType(table.featureType);
+    }
+
+    /**
+     * Returns {@code null} since this resource is a computation result.
+     */
+    @Override
+    public GenericName getIdentifier() {
+        return null;
+    }
+
+    /**
+     * Returns a description of properties that are common to all features in this dataset.
+     */
+    @Override
+    public DefaultFeatureType getType() {
+        return resultType;
+    }
+
+    /**
+     * Returns a stream of the features selected by the query.
+     */
+    @Override
+    public Stream<AbstractFeature> features(final boolean parallel) throws DataStoreException {
+        return table.features(parallel, query, resultType);
+    }
+}
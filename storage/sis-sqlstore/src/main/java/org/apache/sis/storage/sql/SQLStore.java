@@ -28,6 +28,7 @@ import org.opengis.metadata.spatial.SpatialRepresentationType;
 import org.apache.sis.storage.Resource;
 import org.apache.sis.storage.Aggregate;
 import org.apache.sis.storage.DataStore;
+import org.apache.sis.storage.DataOptionKey;
 import org.apache.sis.storage.DataStoreException;
 import org.apache.sis.storage.IllegalNameException;
 import org.apache.sis.storage.StorageConnector;
@@ -53,6 +54,11 @@ import org.apache.sis.util.Exceptions;
  * @module
  */
 public class SQLStore extends DataStore implements Aggregate {
+    /**
+     * Default number of rows to insert in a single JDBC batch when adding features.
+     */
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+
     /**
      * Names of possible public getter methods for data source title, in preference order.
      */
@@ -80,6 +86,20 @@ public class SQLStore extends DataStore implements Aggregate {
      */
     private final GenericName[] tableNames;
 
+    /**
+     * Maximal number of rows to insert in a single JDBC batch.
+     *
+     * @see DataOptionKey#BATCH_SIZE
+     */
+    private final int batchSize;
+
+    /**
+     * Number of rows to insert before to commit the transaction, or 0 for using the connection auto-commit mode.
+     *
+     * @see DataOptionKey#FEATURES_PER_TRANSACTION
+     */
+    private final int featuresPerTransaction;
+
     /**
      * The metadata, created when first requested.
      */
@@ -102,6 +122,9 @@ public class SQLStore extends DataStore implements Aggregate {
      * Qualified table names can be created by the {@link SQLStoreProvider#createTableName(String, String, String)}
      * convenience method. Only the main tables need to be specified; dependencies will be followed automatically.
      *
+     * <p>The {@link DataOptionKey#BATCH_SIZE} and {@link DataOptionKey#FEATURES_PER_TRANSACTION} options
+     * of the given connector, if present, control how features are added in the tables.</p>
+     *
      * @param  provider    the factory that created this {@code DataStore} instance, or {@code null} if unspecified.
      * @param  connector   information about the storage (JDBC data source, <i>etc</i>).
      * @param  tableNames  fully qualified names (including catalog and schema) of the tables to include in this store.
@@ -123,6 +146,20 @@ public class SQLStore extends DataStore implements Aggregate {
             }
         }
         this.tableNames = tableNames;
+        Integer n = connector.getOption(DataOptionKey.BATCH_SIZE);
+        if (n != null) {
+            ArgumentChecks.ensureStrictlyPositive("BATCH_SIZE", n);
+            batchSize = n;
+        } else {
+            batchSize = DEFAULT_BATCH_SIZE;
+        }
+        n = connector.getOption(DataOptionKey.FEATURES_PER_TRANSACTION);
+        if (n != null) {
+            ArgumentChecks.ensurePositive("FEATURES_PER_TRANSACTION", n);
+            featuresPerTransaction = n;
+        } else {
+            featuresPerTransaction = 0;
+        }
     }
 
     /**
@@ -159,7 +196,7 @@ public class SQLStore extends DataStore implements Aggregate {
     private synchronized Database model() throws DataStoreException {
         if (model == null) {
             try (Connection c = source.getConnection()) {
-                model = new Database(this, c, source, tableNames, listeners);
+                model = new Database(this, c, source, tableNames, batchSize, featuresPerTransaction, listeners);
             } catch (SQLException e) {
                 throw new DataStoreException(Exceptions.unwrap(e));
             }
@@ -176,7 +213,7 @@ public class SQLStore extends DataStore implements Aggregate {
      */
     private Database model(final Connection c) throws DataStoreException, SQLException {
         if (model == null) {
-            model = new Database(this, c, source, tableNames, listeners);
+            model = new Database(this, c, source, tableNames, batchSize, featuresPerTransaction, listeners);
         }
         return model;
     }
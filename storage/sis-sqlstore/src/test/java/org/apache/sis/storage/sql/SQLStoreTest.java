@@ -18,11 +18,34 @@ package org.apache.sis.storage.sql;
 
 import java.util.Map;
 import java.util.HashMap;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Set;
 import java.util.HashSet;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Spliterator;
+import java.util.Collections;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Stream;
+import java.util.stream.Collectors;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Method;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import org.apache.sis.internal.storage.FeatureBatch;
+import org.apache.sis.internal.storage.query.Condition;
+import org.apache.sis.internal.storage.query.SimpleQuery;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.DataOptionKey;
 import org.apache.sis.storage.FeatureSet;
+import org.apache.sis.storage.WritableFeatureSet;
 import org.apache.sis.storage.StorageConnector;
 import org.apache.sis.test.sql.TestDatabase;
 import org.apache.sis.test.TestCase;
@@ -52,6 +75,42 @@ public final strictfp class SQLStoreTest extends TestCase {
      */
     private static final String SCHEMA = "features";
 
+    /**
+     * Number of rows to insert in the {@code "Measurements"} table. Shall be greater than the number
+     * of rows for which associations are resolved together, which is 100 in current implementation.
+     */
+    private static final int MEASUREMENT_COUNT = 300;
+
+    /**
+     * Region, number and name of the stations in the {@code "Stations"} table.
+     * Shall be in the same order than in the {@code Features.sql} script.
+     */
+    private static final String[][] STATIONS = {
+        {"QC", "1", "Montréal-Trudeau"},
+        {"QC", "2", "Québec-Lesage"},
+        {"ON", "1", "Toronto-Pearson"}
+    };
+
+    /**
+     * Code and kind of the sensors in the {@code "Sensors"} table, followed by the name of their manufacturer.
+     */
+    private static final String[][] SENSORS = {
+        {"T1", "Thermometer", "Acme"},
+        {"P1", "Barometer",   "Baroxo"}
+    };
+
+    /**
+     * Whether the connections were in auto-commit and read-write modes when they were closed,
+     * in the order they were closed.
+     */
+    private final List<Boolean> autoCommitOnClose = new CopyOnWriteArrayList<>();
+
+    /**
+     * Auto-commit mode of the connections when a query has been executed, in the order the queries were executed.
+     * The size of this list is the number of queries executed on the connections given to the store.
+     */
+    private final List<Boolean> autoCommitOnQuery = new CopyOnWriteArrayList<>();
+
     /**
      * Number of time that the each country has been seen while iterating over the cities.
      */
@@ -111,8 +170,13 @@ public final strictfp class SQLStoreTest extends TestCase {
         }
         try (TestDatabase tmp = database) {
             tmp.executeSQL(SQLStoreTest.class, scripts);
-            try (SQLStore store = new SQLStore(new SQLStoreProvider(), new StorageConnector(tmp.source),
-                    SQLStoreProvider.createTableName(null, inMemory ? null : SCHEMA, "Cities")))
+            insertMeasurements(tmp.source);
+            final StorageConnector connector = new StorageConnector(ConnectionTracker.wrap(tmp.source, autoCommitOnClose, autoCommitOnQuery));
+            connector.setOption(DataOptionKey.BATCH_SIZE, 3);
+            connector.setOption(DataOptionKey.FEATURES_PER_TRANSACTION, 5);
+            try (SQLStore store = new SQLStore(new SQLStoreProvider(), connector,
+                    SQLStoreProvider.createTableName(null, inMemory ? null : SCHEMA, "Cities"),
+                    SQLStoreProvider.createTableName(null, inMemory ? null : SCHEMA, "Measurements")))
             {
                 final FeatureSet cities = (FeatureSet) store.findResource("Cities");
                 verifyFeatureType(cities.getType(),
@@ -130,6 +194,17 @@ public final strictfp class SQLStoreTest extends TestCase {
                 try (Stream<AbstractFeature> features = cities.features(false)) {
                     features.forEach((f) -> verifyContent(f));
                 }
+                verifyQuery(cities);
+
+                final FeatureSet measurements = (FeatureSet) store.findResource("Measurements");
+                verifyFeatureType(measurements.getType(),
+                        new String[] {"sis:identifier", "id",          "FK_Station", "sensor",  "value"},
+                        new Object[] {null,             Integer.class, "Stations",   "Sensors", Double.class});
+                verifyChainedAssociations(measurements);
+                verifyAssociations(measurements);
+                verifySplit(measurements);
+                verifyBatches(measurements);
+                verifyInsert(store);
             }
         }
         assertEquals(Integer.valueOf(2), countryCount.remove("CAN"));
@@ -138,6 +213,415 @@ public final strictfp class SQLStoreTest extends TestCase {
         assertTrue  (countryCount.isEmpty());
     }
 
+    /**
+     * Verifies queries on the {@code "Cities"} table with conditions, column projections, offsets and limits.
+     */
+    private static void verifyQuery(final FeatureSet cities) throws DataStoreException {
+        final SimpleQuery query = new SimpleQuery();
+        query.setColumns("native_name", "population");
+        query.setConditions(new Condition.Comparison("population", Condition.Operator.GREATER, 1000000));
+        FeatureSet subset = cities.subset(query);
+        verifyFeatureType(subset.getType(),
+                new String[] {"native_name", "population"},
+                new Object[] {String.class,  Integer.class});
+        final Set<Object> names;
+        try (Stream<AbstractFeature> features = subset.features(false)) {
+            names = features.map((f) -> f.getPropertyValue("native_name")).collect(Collectors.toSet());
+        }
+        assertSetEquals(Arrays.asList("東京", "Paris", "Montréal"), names);
+        query.setLimit(1);
+        subset = cities.subset(query);
+        try (Stream<AbstractFeature> features = subset.features(false)) {
+            assertEquals("limit", 1, features.count());
+        }
+        /*
+         * Condition on a column which is not in the projection. The condition shall be resolved
+         * against all columns of the table. Rows are sorted by primary key ("country", "native_name")
+         * when an offset or a limit is specified, so the page content is determinist.
+         */
+        query.setColumns("native_name");
+        query.setOffset(1);
+        query.setLimit(2);
+        subset = cities.subset(query);
+        verifyFeatureType(subset.getType(), new String[] {"native_name"}, new Object[] {String.class});
+        try (Stream<AbstractFeature> features = subset.features(false)) {
+            assertEquals(Arrays.asList("Paris", "東京"),
+                    features.map((f) -> f.getPropertyValue("native_name")).collect(Collectors.toList()));
+        }
+        query.setConditions(new Condition.Comparison("english_name", Condition.Operator.EQUAL, "Quebec"));
+        query.setOffset(0);
+        query.setLimit(-1);
+        subset = cities.subset(query);
+        try (Stream<AbstractFeature> features = subset.features(false)) {
+            assertEquals(Arrays.asList("Québec"),
+                    features.map((f) -> f.getPropertyValue("native_name")).collect(Collectors.toList()));
+        }
+    }
+
+    /**
+     * Verifies the reading of the {@code "Measurements"} table as batches of columns.
+     * The numbers shall be stored in arrays of primitive types and associations shall be omitted.
+     */
+    private static void verifyBatches(final FeatureSet measurements) throws DataStoreException {
+        assertTrue("Tables shall create batches natively.", measurements instanceof FeatureBatch.Source);
+        final List<FeatureBatch> batches;
+        try (Stream<FeatureBatch> stream = FeatureBatch.batches(measurements, 64)) {
+            batches = stream.collect(Collectors.toList());
+        }
+        assertEquals("batches", (MEASUREMENT_COUNT + 63) / 64, batches.size());
+        final Set<Long> ids = new HashSet<>();
+        for (final FeatureBatch batch : batches) {
+            assertEquals("columnCount", 2, batch.getColumnCount());
+            assertEquals("indexOf", -1, batch.indexOf("FK_Station"));
+            final int id    = batch.indexOf("id");
+            final int value = batch.indexOf("value");
+            assertTrue("id",    batch.isInteger(id));
+            assertTrue("value", batch.isFloatingPoint(value));
+            for (int row=0; row < batch.size(); row++) {
+                final long i = batch.longValue(id, row);
+                assertEquals("value", i / 10 * 0.5, batch.doubleValue(value, row), STRICT);
+                assertTrue("Duplicated identifier.", ids.add(i));
+            }
+        }
+        assertEquals("count", MEASUREMENT_COUNT, ids.size());
+    }
+
+    /**
+     * Verifies the insertion of new features. The store is configured with a batch size and a number of features
+     * per transaction smaller than the number of features to insert. This method verifies that a failure rollbacks
+     * only the last transaction, that associations are written as foreigner keys and that the auto-commit mode of
+     * connections is restored.
+     */
+    private void verifyInsert(final SQLStore store) throws DataStoreException {
+        final WritableFeatureSet countries = (WritableFeatureSet) store.findResource("Countries");
+        final List<String> expected = new ArrayList<>(Arrays.asList("CAN", "FRA", "JPN"));
+        final List<AbstractFeature> added = new ArrayList<>();
+        for (int i=0; i<12; i++) {
+            final String code = String.format("X%02d", i);
+            added.add(country(countries, code, "Country " + i));
+            expected.add(code);
+        }
+        added.add(country(countries, "DEU", "Deutschland"));
+        added.add(country(countries, "ITA", "Italia"));
+        expected.add("DEU");
+        expected.add("ITA");
+        autoCommitOnClose.clear();
+        countries.add(added.iterator());
+        assertSetEquals(expected, codes(countries));
+        assertAutoCommitRestored();
+        /*
+         * The last feature has a duplicated primary key. The first 5 features are committed in a first
+         * transaction; the 6th feature is in the same transaction than the failing one and is rolled back.
+         */
+        added.clear();
+        for (int i=0; i<6; i++) {
+            added.add(country(countries, "Y0" + i, "Other " + i));
+        }
+        added.add(country(countries, "FRA", "France"));
+        autoCommitOnClose.clear();
+        try {
+            countries.add(added.iterator());
+            fail("Duplicated primary key shall not be accepted.");
+        } catch (DataStoreException e) {
+            assertNotNull(e.getMessage());
+        }
+        for (int i=0; i<5; i++) {
+            expected.add("Y0" + i);
+        }
+        assertSetEquals(expected, codes(countries));
+        assertAutoCommitRestored();
+        /*
+         * A city with its association to a country. The country code is also a primary key column,
+         * which appears as the "pk:country" attribute.
+         */
+        final WritableFeatureSet cities = (WritableFeatureSet) store.findResource("Cities");
+        final AbstractFeature berlin = cities.getType().newInstance();
+        berlin.setPropertyValue("pk:country",   "DEU");
+        berlin.setPropertyValue("country",      country(countries, "DEU", "Deutschland"));
+        berlin.setPropertyValue("native_name",  "Berlin");
+        berlin.setPropertyValue("english_name", "Berlin");
+        berlin.setPropertyValue("population",   3520031);
+        cities.add(Collections.singleton(berlin).iterator());
+        final SimpleQuery query = new SimpleQuery();
+        query.setConditions(new Condition.Comparison("native_name", Condition.Operator.EQUAL, "Berlin"));
+        try (Stream<AbstractFeature> features = cities.subset(query).features(false)) {
+            final List<AbstractFeature> found = features.collect(Collectors.toList());
+            assertEquals("count", 1, found.size());
+            assertEquals("population", 3520031, found.get(0).getPropertyValue("population"));
+            assertEquals("country", "Deutschland", getIndirectPropertyValue(found.get(0), "country", "native_name"));
+        }
+        /*
+         * Measurements with associations through foreigner keys of two columns and of one column,
+         * some of them null. Values are chosen for being consistent with verifyMeasurement(…).
+         */
+        final WritableFeatureSet measurements = (WritableFeatureSet) store.findResource("Measurements");
+        final AbstractFeature station = ((FeatureSet) store.findResource("Stations")).getType().newInstance();
+        station.setPropertyValue("region", STATIONS[1][0]);
+        station.setPropertyValue("number", Integer.valueOf(STATIONS[1][1]));
+        station.setPropertyValue("name",   STATIONS[1][2]);
+        final FeatureSet sensors = (FeatureSet) store.findResource("Sensors");
+        final AbstractFeature m1 = measurements.getType().newInstance();
+        m1.setPropertyValue("id",         10000);             // i = 1000: station 1, sensor 0.
+        m1.setPropertyValue("FK_Station", station);
+        m1.setPropertyValue("sensor",     sensor(sensors, 0));
+        m1.setPropertyValue("value",      500.0);
+        final AbstractFeature m2 = measurements.getType().newInstance();
+        m2.setPropertyValue("id",         10030);             // i = 1003: no station, sensor 1.
+        m2.setPropertyValue("sensor",     sensor(sensors, 1));
+        m2.setPropertyValue("value",      501.5);
+        measurements.add(Arrays.asList(m1, m2).iterator());
+        query.setConditions(new Condition.Comparison("id", Condition.Operator.GREATER_OR_EQUAL, 10000));
+        try (Stream<AbstractFeature> features = measurements.subset(query).features(false)) {
+            assertEquals("count", 2, features.peek(SQLStoreTest::verifyMeasurement).count());
+        }
+    }
+
+    /**
+     * Creates a new feature for the {@code "Countries"} table.
+     */
+    private static AbstractFeature country(final FeatureSet countries, final String code, final String name)
+            throws DataStoreException
+    {
+        final AbstractFeature feature = countries.getType().newInstance();
+        feature.setPropertyValue("code",        code);
+        feature.setPropertyValue("native_name", name);
+        return feature;
+    }
+
+    /**
+     * Creates a new feature for the {@code "Sensors"} table with the values at the given index in {@link #SENSORS}.
+     */
+    private static AbstractFeature sensor(final FeatureSet sensors, final int index) throws DataStoreException {
+        final AbstractFeature feature = sensors.getType().newInstance();
+        feature.setPropertyValue("code", SENSORS[index][0]);
+        feature.setPropertyValue("kind", SENSORS[index][1]);
+        return feature;
+    }
+
+    /**
+     * Returns the codes of all countries in the {@code "Countries"} table.
+     */
+    private static Set<Object> codes(final FeatureSet countries) throws DataStoreException {
+        try (Stream<AbstractFeature> features = countries.features(false)) {
+            return features.map((f) -> f.getPropertyValue("code")).collect(Collectors.toSet());
+        }
+    }
+
+    /**
+     * Verifies that all connections closed since the last call to {@code autoCommitOnClose.clear()}
+     * were in auto-commit and read-write modes when closed.
+     */
+    private void assertAutoCommitRestored() {
+        assertFalse("No connection has been used.", autoCommitOnClose.isEmpty());
+        for (final Boolean autoCommit : autoCommitOnClose) {
+            assertTrue("Auto-commit and read-write modes shall be restored.", autoCommit);
+        }
+    }
+
+    /**
+     * Wraps a data source, a connection or a statement for recording the modes of connections
+     * when they are closed and when statements execute queries.
+     */
+    private static final class ConnectionTracker implements InvocationHandler {
+        /** The data source, connection or statement where to delegate the method calls. */
+        private final Object target;
+
+        /** Where to record the auto-commit mode of connections when they are closed. */
+        private final List<Boolean> autoCommitOnClose;
+
+        /** Where to record the auto-commit mode of connections when a query is executed. */
+        private final List<Boolean> autoCommitOnQuery;
+
+        /** Creates a new handler delegating to the given data source, connection or statement. */
+        private ConnectionTracker(final Object target, final List<Boolean> autoCommitOnClose,
+                                  final List<Boolean> autoCommitOnQuery)
+        {
+            this.target = target;
+            this.autoCommitOnClose = autoCommitOnClose;
+            this.autoCommitOnQuery = autoCommitOnQuery;
+        }
+
+        /** Returns a data source recording the auto-commit mode of connections when they are closed. */
+        static DataSource wrap(final DataSource source, final List<Boolean> autoCommitOnClose,
+                               final List<Boolean> autoCommitOnQuery)
+        {
+            return (DataSource) Proxy.newProxyInstance(SQLStoreTest.class.getClassLoader(),
+                    new Class<?>[] {DataSource.class}, new ConnectionTracker(source, autoCommitOnClose, autoCommitOnQuery));
+        }
+
+        /** Delegates the given call to the target, recording the connection modes if the call closes a connection or executes a query. */
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            if (target instanceof Connection && method.getName().equals("close")) {
+                final Connection c = (Connection) target;
+                if (!c.isClosed()) {
+                    autoCommitOnClose.add(c.getAutoCommit() && !c.isReadOnly());
+                }
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (target instanceof Statement && method.getName().equals("executeQuery")) {
+                autoCommitOnQuery.add(((Statement) target).getConnection().getAutoCommit());
+            }
+            final Class<?> type;
+            if (result instanceof Connection && method.getName().equals("getConnection")) {
+                type = Connection.class;
+            } else if (result instanceof PreparedStatement) {
+                type = PreparedStatement.class;
+            } else if (result instanceof Statement && target instanceof Connection) {
+                type = Statement.class;
+            } else {
+                return result;
+            }
+            return Proxy.newProxyInstance(SQLStoreTest.class.getClassLoader(),
+                    new Class<?>[] {type}, new ConnectionTracker(result, autoCommitOnClose, autoCommitOnQuery));
+        }
+    }
+
+    /**
+     * Inserts {@value #MEASUREMENT_COUNT} rows in the {@code "Measurements"} table. Some rows have null foreigner keys.
+     * The values in each row are computed from the row index as documented in {@link #verifyMeasurement(AbstractFeature)}.
+     */
+    private static void insertMeasurements(final DataSource source) throws SQLException {
+        try (Connection c = source.getConnection();
+             PreparedStatement stmt = c.prepareStatement("INSERT INTO " + SCHEMA
+                     + ".\"Measurements\" (\"id\", \"region\", \"station\", \"sensor\", \"value\") VALUES (?,?,?,?,?)"))
+        {
+            for (int i=0; i<MEASUREMENT_COUNT; i++) {
+                final String[] station = STATIONS[i % STATIONS.length];
+                final boolean noStation = (i % 4 == 3);
+                final boolean noSensor  = (i % 5 == 4);
+                stmt.setInt   (1, i * 10);
+                stmt.setString(2, noStation ? null : station[0]);
+                if (noStation) stmt.setNull(3, Types.INTEGER);
+                else stmt.setInt(3, Integer.parseInt(station[1]));
+                stmt.setString(4, noSensor ? null : SENSORS[i % SENSORS.length][0]);
+                stmt.setDouble(5, i * 0.5);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Verifies that the associations of features in the {@code "Measurements"} table are resolved with one query
+     * per relation and per block of rows, including the {@code "Sensors"} → {@code "Manufacturers"} association
+     * which is resolved on behalf of the features fetched for the {@code "Measurements"} → {@code "Sensors"}
+     * association. This method shall be invoked before any other iteration on {@code "Measurements"}, for
+     * making sure that the referenced features are not already in the cache.
+     */
+    private void verifyChainedAssociations(final FeatureSet measurements) throws DataStoreException {
+        autoCommitOnQuery.clear();
+        final List<AbstractFeature> all;
+        try (Stream<AbstractFeature> features = measurements.features(false)) {
+            all = features.collect(Collectors.toList());
+        }
+        assertEquals("count", MEASUREMENT_COUNT, all.size());
+        for (final AbstractFeature feature : all) {
+            verifyMeasurement(feature);
+        }
+        /*
+         * One query for the measurements, then one query for each of the "Stations", "Sensors" and
+         * "Manufacturers" tables. All referenced features are cached after the first block of rows.
+         */
+        assertEquals("queries", 4, autoCommitOnQuery.size());
+        assertFalse("Queries shall be executed in a transaction.", autoCommitOnQuery.contains(Boolean.TRUE));
+    }
+
+    /**
+     * Verifies the associations of features in the {@code "Measurements"} table. The number of rows is greater
+     * than the number of rows for which associations are resolved together, the association to stations uses a
+     * foreigner key made of two columns and some foreigner keys are null.
+     */
+    private static void verifyAssociations(final FeatureSet measurements) throws DataStoreException {
+        final Map<Object,AbstractFeature> stations = new HashMap<>();
+        final Set<Object> identifiers = new HashSet<>();
+        try (Stream<AbstractFeature> features = measurements.features(false)) {
+            features.forEach((f) -> {
+                verifyMeasurement(f);
+                assertTrue("Duplicated identifier.", identifiers.add(f.getPropertyValue("id")));
+                final Object station = f.getPropertyValue("FK_Station");
+                if (station != null) {
+                    final AbstractFeature previous = stations.putIfAbsent(((AbstractFeature) station).getPropertyValue("name"),
+                                                                          (AbstractFeature) station);
+                    if (previous != null) {
+                        assertSame("Stations shall be shared.", previous, station);
+                    }
+                }
+            });
+        }
+        assertEquals("count", MEASUREMENT_COUNT, identifiers.size());
+        assertEquals("stations", STATIONS.length, stations.size());
+    }
+
+    /**
+     * Verifies the parallel iteration over the {@code "Measurements"} table. The range of primary key values
+     * is large enough for allowing at least one split in two ranges, each range being read with its own
+     * connection. The union of the features read in all ranges shall be the content of the table.
+     * The queries shall be executed in transactions, and the connection modes shall be restored on close.
+     */
+    private void verifySplit(final FeatureSet measurements) throws DataStoreException {
+        final Set<Object> lower = new HashSet<>();
+        final Set<Object> upper = new HashSet<>();
+        autoCommitOnClose.clear();
+        autoCommitOnQuery.clear();
+        try (Stream<AbstractFeature> features = measurements.features(true)) {
+            final Spliterator<AbstractFeature> first = features.spliterator();
+            final Spliterator<AbstractFeature> second = first.trySplit();
+            assertNotNull("trySplit", second);
+            first .forEachRemaining((f) -> {verifyMeasurement(f); lower.add(f.getPropertyValue("id"));});
+            second.forEachRemaining((f) -> {verifyMeasurement(f); upper.add(f.getPropertyValue("id"));});
+        }
+        assertFalse("lower", lower.isEmpty());
+        assertFalse("upper", upper.isEmpty());
+        final int max = lower.stream().mapToInt((id) -> ((Number) id).intValue()).max().getAsInt();
+        final int min = upper.stream().mapToInt((id) -> ((Number) id).intValue()).min().getAsInt();
+        assertTrue("Ranges shall not overlap.", max < min);
+        lower.addAll(upper);
+        assertEquals("count", MEASUREMENT_COUNT, lower.size());
+        assertAutoCommitRestored();
+        assertTrue("Split queries shall be executed in transactions.",
+                   Collections.frequency(autoCommitOnQuery, Boolean.FALSE) >= 2);
+        /*
+         * Same verification with the splits done by the stream framework.
+         */
+        final Set<Object> identifiers;
+        try (Stream<AbstractFeature> features = measurements.features(true)) {
+            identifiers = features.peek(SQLStoreTest::verifyMeasurement)
+                    .map((f) -> f.getPropertyValue("id")).collect(Collectors.toSet());
+        }
+        assertEquals(lower, identifiers);
+    }
+
+    /**
+     * Verifies the values of a feature from the {@code "Measurements"} table. For row <var>i</var>, the identifier
+     * is 10<var>i</var>, the value is <var>i</var>/2, the station is {@code STATIONS[i % 3]} except if <var>i</var>
+     * modulo 4 is 3 and the sensor is {@code SENSORS[i % 2]} except if <var>i</var> modulo 5 is 4.
+     */
+    private static void verifyMeasurement(final AbstractFeature feature) {
+        final int i = ((Number) feature.getPropertyValue("id")).intValue() / 10;
+        assertEquals("value", i * 0.5, ((Number) feature.getPropertyValue("value")).doubleValue(), STRICT);
+        final Object station = feature.getPropertyValue("FK_Station");
+        if (i % 4 == 3) {
+            assertNull("FK_Station", station);
+        } else {
+            assertNotNull("FK_Station", station);
+            assertEquals("station", STATIONS[i % STATIONS.length][2], ((AbstractFeature) station).getPropertyValue("name"));
+        }
+        final Object sensor = feature.getPropertyValue("sensor");
+        if (i % 5 == 4) {
+            assertNull("sensor", sensor);
+        } else {
+            assertNotNull("sensor", sensor);
+            assertEquals("sensor", SENSORS[i % SENSORS.length][1], ((AbstractFeature) sensor).getPropertyValue("kind"));
+            assertEquals("maker",  SENSORS[i % SENSORS.length][2], getIndirectPropertyValue((AbstractFeature) sensor, "maker", "name"));
+        }
+    }
+
     /**
      * Verifies the result of analyzing the structure of the {@code "Cities"} table.
      */
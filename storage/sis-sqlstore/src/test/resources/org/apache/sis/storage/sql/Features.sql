@@ -67,3 +67,64 @@ INSERT INTO features."Parks" ("country", "city", "native_name", "english_name")
     ('FRA', 'Paris',    'Jardin du Luxembourg', 'Luxembourg Garden'),
     ('JPN', '東京',     '代々木公園',           'Yoyogi-kōen'),
     ('JPN', '東京',     '新宿御苑',             'Shinjuku Gyoen');
+
+
+
+-- Tables for testing the resolution of associations by blocks of rows. The "Measurements" table
+-- references "Stations" through a foreigner key made of two columns and "Sensors" through a
+-- foreigner key of one column. Both foreigner keys are nullable. The rows of "Measurements"
+-- are inserted by the test, since there is more than one block of rows. The "Sensors" table
+-- references "Manufacturers", for testing a chain of associations on two levels.
+
+CREATE TABLE features."Stations" (
+    "region"       CHARACTER(2)          NOT NULL,
+    "number"       INTEGER               NOT NULL,
+    "name"         CHARACTER VARYING(20) NOT NULL,
+
+    CONSTRAINT "PK_Station" PRIMARY KEY ("region", "number")
+);
+
+
+CREATE TABLE features."Manufacturers" (
+    "code"         CHARACTER VARYING(8)  NOT NULL,
+    "name"         CHARACTER VARYING(20) NOT NULL,
+
+    CONSTRAINT "PK_Manufacturer" PRIMARY KEY ("code")
+);
+
+
+CREATE TABLE features."Sensors" (
+    "code"         CHARACTER VARYING(8)  NOT NULL,
+    "kind"         CHARACTER VARYING(20) NOT NULL,
+    "maker"        CHARACTER VARYING(8),
+
+    CONSTRAINT "PK_Sensor" PRIMARY KEY ("code"),
+    CONSTRAINT "FK_Maker"  FOREIGN KEY ("maker") REFERENCES features."Manufacturers"("code")
+);
+
+
+CREATE TABLE features."Measurements" (
+    "id"           INTEGER               NOT NULL,
+    "region"       CHARACTER(2),
+    "station"      INTEGER,
+    "sensor"       CHARACTER VARYING(8),
+    "value"        DOUBLE PRECISION,
+
+    CONSTRAINT "PK_Measurement" PRIMARY KEY ("id"),
+    CONSTRAINT "FK_Station" FOREIGN KEY ("region", "station") REFERENCES features."Stations"("region", "number"),
+    CONSTRAINT "FK_Sensor"  FOREIGN KEY ("sensor") REFERENCES features."Sensors"("code")
+);
+
+
+INSERT INTO features."Stations" ("region", "number", "name") VALUES
+    ('QC', 1, 'Montréal-Trudeau'),
+    ('QC', 2, 'Québec-Lesage'),
+    ('ON', 1, 'Toronto-Pearson');
+
+INSERT INTO features."Manufacturers" ("code", "name") VALUES
+    ('AC', 'Acme'),
+    ('BX', 'Baroxo');
+
+INSERT INTO features."Sensors" ("code", "kind", "maker") VALUES
+    ('T1', 'Thermometer', 'AC'),
+    ('P1', 'Barometer',   'BX');
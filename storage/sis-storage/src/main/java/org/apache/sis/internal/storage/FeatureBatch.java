@@ -0,0 +1,631 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.storage;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.apache.sis.math.Vector;
+import org.apache.sis.storage.FeatureSet;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.util.ArgumentChecks;
+
+// Branch-dependent imports
+import org.apache.sis.feature.AbstractFeature;
+import org.apache.sis.feature.AbstractIdentifiedType;
+import org.apache.sis.feature.DefaultAttributeType;
+import org.apache.sis.feature.DefaultFeatureType;
+
+
+/**
+ * A block of feature instances stored by columns instead than by rows. Each column contains the values
+ * of one single-valued attribute for all features in the block. Numbers are stored in arrays of primitive
+ * types ({@code double[]}, {@code float[]}, {@code long[]} or {@code int[]}) and attributes of type
+ * {@code double[]} (for example trajectory coordinates) are packed in a single {@code double[]} array
+ * with offsets. Other attributes are stored in {@code Object[]} arrays.
+ *
+ * <p>This class is an alternative to streams of {@link AbstractFeature} for analytics over a large amount
+ * of features, since it avoids the creation of one feature instance per record and the boxing of numbers.
+ * Associations, operations and multi-valued attributes are not stored in batches.</p>
+ *
+ * <p>Batches are created by {@link #batches(FeatureSet, int)}. Data stores capable to produce batches without
+ * creating feature instances implement the {@link Source} interface. Data stores fill a batch one row at a time:
+ * the {@code set(…)} methods write in the row at index {@link #size()}, then {@link #nextRow()} completes that row.</p>
+ *
+ * <p>Missing values are {@link Double#NaN} in floating point columns, 0 in integer columns
+ * and {@code null} in other columns. The {@link #isMissing(int, int)} method distinguishes
+ * missing values from zero values.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+public final class FeatureBatch {
+    /**
+     * Kinds of storage for the columns.
+     */
+    private static final byte OBJECT = 0, DOUBLE = 1, FLOAT = 2, LONG = 3, INTEGER = 4, COORDINATES = 5;
+
+    /**
+     * Implemented by feature sets capable to produce batches without creating feature instances.
+     */
+    public interface Source extends FeatureSet {
+        /**
+         * Returns a stream of batches of at most {@code capacity} features each.
+         * The stream shall be closed after usage for releasing resources.
+         *
+         * @param  capacity  maximal number of features in each batch.
+         * @return all features in this set, as batches.
+         * @throws DataStoreException if an error occurred while creating the stream.
+         */
+        Stream<FeatureBatch> batches(int capacity) throws DataStoreException;
+    }
+
+    /**
+     * The type of features in this batch. May contain properties not stored in this batch.
+     */
+    private final DefaultFeatureType type;
+
+    /**
+     * Names of the attributes stored in this batch.
+     */
+    private final String[] names;
+
+    /**
+     * Type of values in each column.
+     */
+    private final Class<?>[] valueClasses;
+
+    /**
+     * Kind of storage of each column, as one of {@link #DOUBLE}, {@link #FLOAT}, <i>etc.</i> constants.
+     */
+    private final byte[] kinds;
+
+    /**
+     * Values of each column. For {@link #COORDINATES} columns, this is a {@code double[]} array
+     * growing as needed, with the values of row <var>i</var> starting at {@code offsets[c][i]}.
+     */
+    private final Object[] columns;
+
+    /**
+     * For {@link #COORDINATES} columns, the index of the first coordinate of each row.
+     * The length of those arrays is {@link #capacity} + 1. Other elements are null.
+     */
+    private final int[][] offsets;
+
+    /**
+     * For columns of primitive values, the rows having a value. Other elements are null.
+     */
+    private final BitSet[] present;
+
+    /**
+     * Maximal number of features in this batch.
+     */
+    private final int capacity;
+
+    /**
+     * Number of features in this batch. This is also the index of the row being written.
+     */
+    private int size;
+
+    /**
+     * Creates an initially empty batch for features of the given type.
+     *
+     * @param  type      the type of features to store in this batch.
+     * @param  capacity  maximal number of features in this batch.
+     */
+    public FeatureBatch(final DefaultFeatureType type, final int capacity) {
+        ArgumentChecks.ensureNonNull("type", type);
+        ArgumentChecks.ensureStrictlyPositive("capacity", capacity);
+        this.type     = type;
+        this.capacity = capacity;
+        final List<DefaultAttributeType<?>> attributes = new ArrayList<>();
+        for (final AbstractIdentifiedType property : type.getProperties(true)) {
+            if (property instanceof DefaultAttributeType<?> && ((DefaultAttributeType<?>) property).getMaximumOccurs() == 1) {
+                attributes.add((DefaultAttributeType<?>) property);
+            }
+        }
+        final int n  = attributes.size();
+        names        = new String  [n];
+        valueClasses = new Class<?>[n];
+        kinds        = new byte    [n];
+        columns      = new Object  [n];
+        offsets      = new int     [n][];
+        present      = new BitSet  [n];
+        for (int i=0; i<n; i++) {
+            final DefaultAttributeType<?> attribute = attributes.get(i);
+            final Class<?> c = attribute.getValueClass();
+            names[i] = attribute.getName().toString();
+            valueClasses[i] = c;
+            final byte kind;
+            final Object values;
+            if (c == Double.class) {
+                kind = DOUBLE;  values = new double[capacity];
+            } else if (c == Float.class) {
+                kind = FLOAT;   values = new float[capacity];
+            } else if (c == Long.class) {
+                kind = LONG;    values = new long[capacity];
+            } else if (c == Integer.class || c == Short.class || c == Byte.class) {
+                kind = INTEGER; values = new int[capacity];
+            } else if (c == double[].class) {
+                kind = COORDINATES;
+                values = new double[capacity * 2];
+                offsets[i] = new int[capacity + 1];
+            } else {
+                kind = OBJECT;  values = new Object[capacity];
+            }
+            kinds[i]   = kind;
+            columns[i] = values;
+            if (kind != OBJECT) {
+                present[i] = new BitSet(capacity);
+            }
+        }
+    }
+
+    /**
+     * Returns a stream of batches of at most {@code capacity} features each. If the given feature set implements
+     * {@link Source}, then the batches are created directly by the feature set. Otherwise this method copies in
+     * batches the attribute values of the features provided by {@link FeatureSet#features(boolean)}.
+     * The stream shall be closed after usage.
+     *
+     * @param  source    the feature set from which to get the features.
+     * @param  capacity  maximal number of features in each batch.
+     * @return all features in the given set, as batches.
+     * @throws DataStoreException if an error occurred while creating the stream.
+     */
+    public static Stream<FeatureBatch> batches(final FeatureSet source, final int capacity) throws DataStoreException {
+        ArgumentChecks.ensureNonNull("source", source);
+        ArgumentChecks.ensureStrictlyPositive("capacity", capacity);
+        if (source instanceof Source) {
+            return ((Source) source).batches(capacity);
+        }
+        return fromFeatures(source.getType(), source.features(false), capacity);
+    }
+
+    /**
+     * Returns a stream of batches containing the attribute values of the given features.
+     * This is the fallback used by {@link #batches(FeatureSet, int)} for feature sets which
+     * can not create batches directly. Closing the returned stream closes the given stream.
+     *
+     * @param  type      the type of features in the stream.
+     * @param  features  the features to copy in batches.
+     * @param  capacity  maximal number of features in each batch.
+     * @return the given features, as batches.
+     */
+    public static Stream<FeatureBatch> fromFeatures(final DefaultFeatureType type,
+            final Stream<AbstractFeature> features, final int capacity)
+    {
+        ArgumentChecks.ensureNonNull("type", type);
+        ArgumentChecks.ensureNonNull("features", features);
+        ArgumentChecks.ensureStrictlyPositive("capacity", capacity);
+        final Iterator<AbstractFeature> it = features.iterator();
+        final Spliterator<FeatureBatch> batches = new Spliterators.AbstractSpliterator<FeatureBatch>(Long.MAX_VALUE,
+                Spliterator.NONNULL | Spliterator.ORDERED)
+        {
+            @Override public boolean tryAdvance(final Consumer<? super FeatureBatch> action) {
+                final FeatureBatch batch = new FeatureBatch(type, capacity);
+                while (!batch.isFull() && it.hasNext()) {
+                    batch.add(it.next());
+                }
+                if (batch.size == 0) {
+                    return false;
+                }
+                action.accept(batch);
+                return true;
+            }
+        };
+        return StreamSupport.stream(batches, false).onClose(features::close);
+    }
+
+    /**
+     * Returns the type of features in this batch.
+     * This type may contain properties that are not stored in this batch.
+     *
+     * @return the type of features in this batch.
+     */
+    public DefaultFeatureType getType() {
+        return type;
+    }
+
+    /**
+     * Returns the number of features in this batch.
+     *
+     * @return number of features in this batch.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this batch can not accept more features.
+     *
+     * @return whether this batch is full.
+     */
+    public boolean isFull() {
+        return size >= capacity;
+    }
+
+    /**
+     * Returns the number of columns, which is the number of single-valued attributes in the feature type.
+     *
+     * @return number of columns.
+     */
+    public int getColumnCount() {
+        return names.length;
+    }
+
+    /**
+     * Returns the name of the attribute stored in the given column.
+     *
+     * @param  column  index of the column.
+     * @return name of the attribute in that column.
+     */
+    public String getColumnName(final int column) {
+        return names[column];
+    }
+
+    /**
+     * Returns the index of the column for the attribute of the given name, or -1 if none.
+     *
+     * @param  name  name of the attribute.
+     * @return index of the column for the given attribute, or -1 if none.
+     */
+    public int indexOf(final String name) {
+        for (int i=0; i<names.length; i++) {
+            if (names[i].equals(name)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the type of values in the given column. This is the attribute value class,
+     * with wrapper classes for primitive types.
+     *
+     * @param  column  index of the column.
+     * @return type of values in that column.
+     */
+    public Class<?> getValueClass(final int column) {
+        return valueClasses[column];
+    }
+
+    /**
+     * Returns {@code true} if the given column stores floating point numbers in an array of primitive type.
+     * Values in such column should be written with {@link #setDouble(int, double)}.
+     *
+     * @param  column  index of the column.
+     * @return whether the column stores {@code double} or {@code float} values.
+     */
+    public boolean isFloatingPoint(final int column) {
+        final byte kind = kinds[column];
+        return kind == DOUBLE || kind == FLOAT;
+    }
+
+    /**
+     * Returns {@code true} if the given column stores integers in an array of primitive type.
+     * Values in such column should be written with {@link #setLong(int, long)}.
+     *
+     * @param  column  index of the column.
+     * @return whether the column stores {@code long} or {@code int} values.
+     */
+    public boolean isInteger(final int column) {
+        final byte kind = kinds[column];
+        return kind == LONG || kind == INTEGER;
+    }
+
+    /**
+     * Returns {@code true} if the value at the given row is missing.
+     *
+     * @param  column  index of the column.
+     * @param  row     index of the feature.
+     * @return whether the value is missing.
+     */
+    public boolean isMissing(final int column, final int row) {
+        ArgumentChecks.ensureValidIndex(size, row);
+        final BitSet p = present[column];
+        return (p != null) ? !p.get(row) : ((Object[]) columns[column])[row] == null;
+    }
+
+    /**
+     * Returns the value at the given row as a floating point number.
+     * Missing values are returned as {@link Double#NaN}.
+     *
+     * @param  column  index of a column of numbers.
+     * @param  row     index of the feature.
+     * @return the value as a floating point number.
+     * @throws ClassCastException if the column does not contain numbers.
+     */
+    public double doubleValue(final int column, final int row) {
+        ArgumentChecks.ensureValidIndex(size, row);
+        final Object values = columns[column];
+        switch (kinds[column]) {
+            case DOUBLE:  return ((double[]) values)[row];
+            case FLOAT:   return ((float[])  values)[row];
+            case LONG:    return present[column].get(row) ? ((long[]) values)[row] : Double.NaN;
+            case INTEGER: return present[column].get(row) ? ((int[])  values)[row] : Double.NaN;
+            case OBJECT: {
+                final Number value = (Number) ((Object[]) values)[row];
+                return (value != null) ? value.doubleValue() : Double.NaN;
+            }
+            default: throw new ClassCastException();
+        }
+    }
+
+    /**
+     * Returns the value at the given row as an integer. Missing values are returned as 0.
+     * Floating point values are truncated.
+     *
+     * @param  column  index of a column of numbers.
+     * @param  row     index of the feature.
+     * @return the value as an integer.
+     * @throws ClassCastException if the column does not contain numbers.
+     */
+    public long longValue(final int column, final int row) {
+        ArgumentChecks.ensureValidIndex(size, row);
+        final Object values = columns[column];
+        switch (kinds[column]) {
+            case LONG:    return ((long[]) values)[row];
+            case INTEGER: return ((int[])  values)[row];
+            case DOUBLE:
+            case FLOAT:   return present[column].get(row) ? (long) doubleValue(column, row) : 0;
+            case OBJECT: {
+                final Number value = (Number) ((Object[]) values)[row];
+                return (value != null) ? value.longValue() : 0;
+            }
+            default: throw new ClassCastException();
+        }
+    }
+
+    /**
+     * Returns the value at the given row as an object. Numbers are boxed and coordinates are copied
+     * in a new {@code double[]} array. Missing values are returned as {@code null}.
+     *
+     * @param  column  index of the column.
+     * @param  row     index of the feature.
+     * @return the value, or {@code null} if missing.
+     */
+    public Object getValue(final int column, final int row) {
+        if (isMissing(column, row)) {
+            return null;
+        }
+        final Object values = columns[column];
+        switch (kinds[column]) {
+            case DOUBLE:      return ((double[]) values)[row];
+            case FLOAT:       return ((float[])  values)[row];
+            case LONG:        return ((long[])   values)[row];
+            case INTEGER: {
+                final int value = ((int[]) values)[row];
+                final Class<?> c = valueClasses[column];
+                if (c == Short.class) return (short) value;
+                if (c == Byte.class)  return (byte)  value;
+                return value;
+            }
+            case COORDINATES: {
+                final int[] offset = offsets[column];
+                return Arrays.copyOfRange((double[]) values, offset[row], offset[row + 1]);
+            }
+            default: return ((Object[]) values)[row];
+        }
+    }
+
+    /**
+     * Returns a view over all values in the given column of numbers. The view is backed by this batch;
+     * changes in this batch are reflected in the view, which should not be used after {@link #clear()}.
+     *
+     * @param  column  index of a column of numbers.
+     * @return the numbers in the given column.
+     * @throws ClassCastException if the column does not store numbers in an array of primitive type.
+     */
+    public Vector getColumn(final int column) {
+        switch (kinds[column]) {
+            case DOUBLE: case FLOAT: case LONG: case INTEGER: {
+                return Vector.create(columns[column], false).subList(0, size);
+            }
+            default: throw new ClassCastException();
+        }
+    }
+
+    /**
+     * Returns a view over the coordinates of the given row in a column of {@code double[]} values.
+     * This method avoids the copy done by {@link #getValue(int, int)}.
+     *
+     * @param  column  index of a column of {@code double[]} values.
+     * @param  row     index of the feature.
+     * @return the coordinates, or {@code null} if missing.
+     * @throws ClassCastException if the column does not store {@code double[]} values.
+     */
+    public Vector getCoordinates(final int column, final int row) {
+        if (kinds[column] != COORDINATES) {
+            throw new ClassCastException();
+        }
+        if (isMissing(column, row)) {
+            return null;
+        }
+        final int[] offset = offsets[column];
+        return Vector.create(columns[column], false).subList(offset[row], offset[row + 1]);
+    }
+
+    /**
+     * Creates a feature instance with the values of the given row.
+     * Properties not stored in this batch are left to their default value.
+     *
+     * @param  row  index of the feature.
+     * @return a new feature instance with the values of the given row.
+     */
+    public AbstractFeature toFeature(final int row) {
+        final AbstractFeature feature = type.newInstance();
+        for (int i=0; i<names.length; i++) {
+            final Object value = getValue(i, row);
+            if (value != null) {
+                feature.setPropertyValue(names[i], value);
+            }
+        }
+        return feature;
+    }
+
+    /**
+     * Sets a floating point value in the row being written.
+     * Integer columns receive the value rounded to the nearest integer,
+     * except {@link Double#NaN} which is stored as a missing value.
+     *
+     * @param  column  index of a column of numbers.
+     * @param  value   the value to set.
+     */
+    public void setDouble(final int column, final double value) {
+        if (Double.isNaN(value) && isInteger(column)) {
+            present[column].clear(size);
+            return;
+        }
+        final Object values = columns[column];
+        switch (kinds[column]) {
+            case DOUBLE:  ((double[]) values)[size] = value; break;
+            case FLOAT:   ((float[])  values)[size] = (float) value; break;
+            case LONG:    ((long[])   values)[size] = Math.round(value); break;
+            case INTEGER: ((int[])    values)[size] = Math.toIntExact(Math.round(value)); break;
+            default:      setValue(column, value); return;
+        }
+        present[column].set(size);
+    }
+
+    /**
+     * Sets an integer value in the row being written.
+     *
+     * @param  column  index of a column of numbers.
+     * @param  value   the value to set.
+     */
+    public void setLong(final int column, final long value) {
+        final Object values = columns[column];
+        switch (kinds[column]) {
+            case LONG:    ((long[])   values)[size] = value; break;
+            case INTEGER: ((int[])    values)[size] = Math.toIntExact(value); break;
+            case DOUBLE:  ((double[]) values)[size] = value; break;
+            case FLOAT:   ((float[])  values)[size] = value; break;
+            default:      setValue(column, value); return;
+        }
+        present[column].set(size);
+    }
+
+    /**
+     * Sets a value in the row being written. Numbers are stored in arrays of primitive type if the column
+     * allows that, and {@code double[]} values are copied in the array of packed coordinates.
+     *
+     * @param  column  index of the column.
+     * @param  value   the value to set, or {@code null} for a missing value.
+     * @throws ClassCastException if the value is not an instance of the column value class.
+     */
+    public void setValue(final int column, final Object value) {
+        switch (kinds[column]) {
+            case OBJECT: {
+                ((Object[]) columns[column])[size] = valueClasses[column].cast(value);
+                return;
+            }
+            case COORDINATES: {
+                if (value != null) {
+                    final double[] coordinates = (double[]) value;
+                    final int[] offset = offsets[column];
+                    final int start = offset[size];
+                    final int end = start + coordinates.length;
+                    double[] values = (double[]) columns[column];
+                    if (end > values.length) {
+                        columns[column] = values = Arrays.copyOf(values, Math.max(end, values.length * 2));
+                    }
+                    System.arraycopy(coordinates, 0, values, start, coordinates.length);
+                    offset[size + 1] = end;
+                    present[column].set(size);
+                } else {
+                    present[column].clear(size);
+                }
+                return;
+            }
+        }
+        if (value == null) {
+            present[column].clear(size);
+        } else {
+            final Number n = (Number) value;
+            if (isFloatingPoint(column)) {
+                setDouble(column, n.doubleValue());
+            } else {
+                setLong(column, n.longValue());
+            }
+        }
+    }
+
+    /**
+     * Completes the row being written and moves to the next row.
+     * Columns for which no value has been set in the completed row are missing values.
+     *
+     * @return {@code true} if this batch can accept more rows.
+     * @throws IllegalStateException if this batch is already full.
+     */
+    public boolean nextRow() {
+        if (isFull()) {
+            throw new IllegalStateException();
+        }
+        for (int i=0; i<kinds.length; i++) {
+            final BitSet p = present[i];
+            if (p != null && !p.get(size)) {
+                switch (kinds[i]) {
+                    case DOUBLE:      ((double[]) columns[i])[size] = Double.NaN; break;
+                    case FLOAT:       ((float[])  columns[i])[size] = Float.NaN;  break;
+                    case LONG:        ((long[])   columns[i])[size] = 0; break;
+                    case INTEGER:     ((int[])    columns[i])[size] = 0; break;
+                    case COORDINATES: offsets[i][size + 1] = offsets[i][size]; break;
+                }
+            }
+        }
+        return ++size < capacity;
+    }
+
+    /**
+     * Appends the values of the given feature as a new row.
+     * Attributes of the feature which are not stored in this batch are ignored.
+     *
+     * @param  feature  the feature to add.
+     * @return {@code true} if this batch can accept more rows.
+     * @throws IllegalStateException if this batch is already full.
+     */
+    public boolean add(final AbstractFeature feature) {
+        if (isFull()) {
+            throw new IllegalStateException();
+        }
+        for (int i=0; i<names.length; i++) {
+            setValue(i, feature.getPropertyValue(names[i]));
+        }
+        return nextRow();
+    }
+
+    /**
+     * Removes all rows from this batch, for reusing it.
+     */
+    public void clear() {
+        for (int i=0; i<kinds.length; i++) {
+            if (kinds[i] == OBJECT) {
+                Arrays.fill((Object[]) columns[i], 0, size, null);
+            } else {
+                present[i].clear();
+            }
+        }
+        size = 0;
+    }
+}
@@ -18,12 +18,14 @@ package org.apache.sis.internal.storage.csv;
 
 import java.util.Collection;
 import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.function.Consumer;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.time.DateTimeException;
 import java.io.IOException;
 import org.apache.sis.util.ObjectConverter;
 import org.apache.sis.util.ObjectConverters;
+import org.apache.sis.internal.storage.FeatureBatch;
 import org.apache.sis.util.collection.BackingStoreException;
 
 // Branch-dependent imports
@@ -48,7 +50,7 @@ import org.apache.sis.feature.DefaultAttributeType;
  * However many {@code Iter} instances can be used concurrently for the same {@link Store} instance.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.8
+ * @version 1.0
  * @since   0.7
  * @module
  */
@@ -238,6 +240,74 @@ class FeatureIterator implements Spliterator<AbstractFeature> {
         return false;
     }
 
+    /**
+     * Returns an iterator over the remaining lines as batches of at most {@code capacity} features each.
+     * This method shall be invoked on a new {@code FeatureIterator} instance which has not been used for
+     * iterating over features, because the {@link #values} array will contain the texts of the last line
+     * instead than converted values.
+     *
+     * @param  capacity  maximal number of features in each batch.
+     * @return the remaining features in the CSV file, as batches.
+     */
+    final Spliterator<FeatureBatch> batches(final int capacity) {
+        return new Spliterators.AbstractSpliterator<FeatureBatch>(Long.MAX_VALUE, NONNULL | ORDERED) {
+            @Override public boolean tryAdvance(final Consumer<? super FeatureBatch> action) {
+                final FeatureBatch batch = new FeatureBatch(store.featureType, capacity);
+                try {
+                    read(batch);
+                } catch (IOException | IllegalArgumentException | ArithmeticException | DateTimeException e) {
+                    throw new BackingStoreException(store.canNotParseFile(), e);
+                }
+                if (batch.size() == 0) {
+                    return false;
+                }
+                action.accept(batch);
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Fills the given batch with the values of the next lines, until the batch is full or there is no more lines.
+     * Numbers are parsed directly as primitive values, without creating feature instances and without boxing.
+     * Other values are converted by the same converters than the ones used for creating features.
+     *
+     * <p>In this method the {@link #values} array contains the texts of the last line instead than converted
+     * values. Omitted texts at the end of a line are taken from the previous line, as required by the
+     * Moving Feature specification.</p>
+     *
+     * @param  batch  the batch to fill.
+     * @throws IOException if an I/O error occurred while reading a line.
+     * @throws IllegalArgumentException if parsing of a number failed, or other error.
+     * @throws DateTimeException if parsing of a date failed.
+     */
+    private void read(final FeatureBatch batch) throws IOException {
+        final int[] columns = new int[propertyNames.length];
+        for (int i=0; i<columns.length; i++) {
+            columns[i] = batch.indexOf(propertyNames[i]);
+        }
+        final FixedSizeList elements = new FixedSizeList(values);
+        String line;
+        while (!batch.isFull() && (line = store.readLine()) != null) {
+            Store.split(line, elements);
+            for (int i=0; i<values.length; i++) {
+                final int column = columns[i];
+                final String text = (String) values[i];
+                if (column >= 0 && text != null) {
+                    if (batch.isFloatingPoint(column)) {
+                        batch.setDouble(column, Double.parseDouble(text));
+                    } else if (batch.isInteger(column)) {
+                        batch.setLong(column, Long.parseLong(text));
+                    } else {
+                        batch.setValue(column, converters[i].apply(text));
+                    }
+                }
+            }
+            batch.nextRow();
+            elements.clear();
+        }
+    }
+
     /**
      * We do not know the number of features.
      */
@@ -52,6 +52,7 @@ import org.apache.sis.internal.referencing.GeodeticObjectBuilder;
 import org.apache.sis.internal.util.UnmodifiableArrayList;
 import org.apache.sis.internal.util.Numerics;
 import org.apache.sis.internal.storage.MetadataBuilder;
+import org.apache.sis.internal.storage.FeatureBatch;
 import org.apache.sis.internal.storage.io.IOUtilities;
 import org.apache.sis.internal.storage.io.RewindableLineReader;
 import org.apache.sis.internal.storage.Resources;
@@ -71,6 +72,7 @@ import org.apache.sis.storage.StorageConnector;
 import org.apache.sis.storage.FeatureSet;
 import org.apache.sis.setup.OptionKey;
 import org.apache.sis.util.ArraysExt;
+import org.apache.sis.util.ArgumentChecks;
 import org.apache.sis.util.CharSequences;
 import org.apache.sis.util.resources.Errors;
 import org.apache.sis.io.InvalidSeekException;
@@ -90,7 +92,7 @@ import org.apache.sis.feature.AbstractIdentifiedType;
  * @since   0.7
  * @module
  */
-final class Store extends URIDataStore implements FeatureSet {
+final class Store extends URIDataStore implements FeatureSet, FeatureBatch.Source {
     /**
      * The character at the beginning of lines to ignore in the header.
      * Note that this is not part of OGC Moving Feature Specification.
@@ -721,6 +723,24 @@ final class Store extends URIDataStore implements FeatureSet {
         return movingFeatures.stream();
     }
 
+    /**
+     * Returns the stream of features as batches of values stored by columns. If the user asks for one feature
+     * instance per line, then numbers are parsed directly in arrays of primitive types without creating feature
+     * instances. Otherwise the moving features are copied in batches.
+     *
+     * @param  capacity  maximal number of features in each batch.
+     * @return a stream over all features in the CSV file, as batches.
+     * @throws DataStoreException if an error occurred while creating the stream.
+     */
+    @Override
+    public final synchronized Stream<FeatureBatch> batches(final int capacity) throws DataStoreException {
+        ArgumentChecks.ensureStrictlyPositive("capacity", capacity);
+        if (dissociate) {
+            return StreamSupport.stream(new FeatureIterator(this).batches(capacity), false);
+        }
+        return FeatureBatch.fromFeatures(featureType, features(false), capacity);
+    }
+
     /**
      * Splits the content of the given line around the column separator.
      * Quotes are taken in account. The elements are added in the given list.
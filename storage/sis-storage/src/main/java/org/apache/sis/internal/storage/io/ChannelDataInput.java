@@ -27,6 +27,7 @@ import java.nio.LongBuffer;
 import java.nio.FloatBuffer;
 import java.nio.DoubleBuffer;
 import java.nio.charset.Charset;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SeekableByteChannel;
 import org.apache.sis.internal.storage.Resources;
@@ -61,17 +62,36 @@ import static org.apache.sis.util.ArgumentChecks.ensureBetween;
  * {@link javax.imageio} is needed.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.7
+ * @version 1.0
  * @since   0.3
  * @module
  */
 public class ChannelDataInput extends ChannelData {
+    /**
+     * Minimal size in bytes of the windows mapped by {@link #map(long, long)}. Mapping windows larger than the
+     * requested regions allows consecutive requests in the same part of the file to reuse the same mapping.
+     */
+    static final int MAPPED_WINDOW_SIZE = 64 * 1024 * 1024;
+
     /**
      * The channel from where data are read.
      * This is supplied at construction time.
      */
     public final ReadableByteChannel channel;
 
+    /**
+     * The last window of the file mapped by {@link #map(long, long)}, or {@code null} if none.
+     * Only one window is retained at a time; the previous mapping is released by the garbage
+     * collector when no view over it is in use anymore.
+     */
+    private ByteBuffer mappedWindow;
+
+    /**
+     * Position in the channel of the first byte of {@link #mappedWindow}.
+     * This position includes the {@link #channelOffset}.
+     */
+    private long mappedStart;
+
     /**
      * Creates a new data input for the given channel and using the given buffer.
      * If the buffer already contains some data, then the {@code filled} argument shall be {@code true}.
@@ -457,7 +477,8 @@ public class ChannelDataInput extends ChannelData {
 
     /**
      * Reads the given amount of floats from the stream and returns them in a newly allocated array.
-     * This is a convenience method for {@link #readFully(float[], int, int)} with a new array.
+     * This is a convenience method for {@link #readFully(float[], int, int)} with a new array,
+     * except that large arrays are read directly from the file mapped in memory when possible.
      *
      * @param  length The number of floats to read.
      * @return the next floats in a newly allocated array of the given length.
@@ -465,13 +486,19 @@ public class ChannelDataInput extends ChannelData {
      */
     public final float[] readFloats(final int length) throws IOException {
         final float[] array = new float[length];
-        readFully(array, 0, length);
+        final ByteBuffer mapped = mapNext((long) length * Float.BYTES);
+        if (mapped != null) {
+            mapped.asFloatBuffer().get(array);
+        } else {
+            readFully(array, 0, length);
+        }
         return array;
     }
 
     /**
      * Reads the given amount of doubles from the stream and returns them in a newly allocated array.
-     * This is a convenience method for {@link #readFully(double[], int, int)} with a new array.
+     * This is a convenience method for {@link #readFully(double[], int, int)} with a new array,
+     * except that large arrays are read directly from the file mapped in memory when possible.
      *
      * @param  length The number of doubles to read.
      * @return the next doubles in a newly allocated array of the given length.
@@ -479,7 +506,12 @@ public class ChannelDataInput extends ChannelData {
      */
     public final double[] readDoubles(final int length) throws IOException {
         final double[] array = new double[length];
-        readFully(array, 0, length);
+        final ByteBuffer mapped = mapNext((long) length * Double.BYTES);
+        if (mapped != null) {
+            mapped.asDoubleBuffer().get(array);
+        } else {
+            readFully(array, 0, length);
+        }
         return array;
     }
 
@@ -842,6 +874,71 @@ public class ChannelDataInput extends ChannelData {
         return new String(array, position, length, encoding);
     }
 
+    /**
+     * Maps the given region of the file directly in memory, if possible. This method can be used for reading
+     * large blocks of data from the operating system page cache without copying them in the {@linkplain #buffer
+     * buffer} of this {@code ChannelDataInput}. Mapping is possible only if the {@linkplain #channel} is a
+     * {@link FileChannel} and the requested region is fully contained in the file and not larger than
+     * {@link Integer#MAX_VALUE} bytes.
+     *
+     * <p>This method maps a window of at least 64 megabytes (or up to the end of the file) and keeps that window
+     * for subsequent calls, so consecutive requests in the same part of the file share a single mapping.
+     * The returned buffer is a read-only view over that window and uses the same byte order than {@link #buffer}.
+     * This method does not change the position of this {@code ChannelDataInput}.</p>
+     *
+     * @param  position  position of the first byte to map, relative to the stream position at construction time.
+     * @param  size      number of bytes to map.
+     * @return the mapped region, or {@code null} if the region can not be mapped.
+     * @throws IOException if an error occurred while mapping the file.
+     *
+     * @since 1.0
+     */
+    public final ByteBuffer map(final long position, final long size) throws IOException {
+        if (channel instanceof FileChannel && position >= 0 && size >= 0 && size <= Integer.MAX_VALUE) {
+            final long start = Math.addExact(channelOffset, position);
+            final long end   = Math.addExact(start, size);
+            ByteBuffer window = mappedWindow;
+            if (window == null || start < mappedStart || end > mappedStart + window.capacity()) {
+                final FileChannel fc = (FileChannel) channel;
+                final long available = fc.size() - start;
+                if (size > available) {
+                    return null;
+                }
+                final long length = Math.min(Math.max(size, MAPPED_WINDOW_SIZE), Math.min(available, Integer.MAX_VALUE));
+                window = fc.map(FileChannel.MapMode.READ_ONLY, start, length);
+                mappedWindow = window;
+                mappedStart  = start;
+            }
+            final int offset = (int) (start - mappedStart);
+            window = window.duplicate();
+            window.limit(offset + (int) size);
+            window.position(offset);
+            return window.slice().order(buffer.order());
+        }
+        return null;
+    }
+
+    /**
+     * Maps the given amount of bytes starting at the current stream position, then moves the stream
+     * after those bytes. This method does nothing and returns {@code null} if the amount of bytes is
+     * too small for making memory mapping worth, or if the file can not be mapped.
+     *
+     * @param  size  number of bytes to map.
+     * @return the mapped region, or {@code null} if the bytes shall be read through the {@linkplain #buffer}.
+     * @throws IOException if an error occurred while mapping the file.
+     */
+    private ByteBuffer mapNext(final long size) throws IOException {
+        if (size >= HyperRectangleReader.MIN_MAPPED_SIZE) {
+            final long position = getStreamPosition();
+            final ByteBuffer mapped = map(position, size);
+            if (mapped != null) {
+                seek(position + size);
+                return mapped;
+            }
+        }
+        return null;
+    }
+
     /**
      * Moves to the given position in the stream, relative to the stream position at construction time.
      *
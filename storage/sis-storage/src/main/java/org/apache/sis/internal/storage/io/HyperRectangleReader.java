@@ -18,6 +18,12 @@ package org.apache.sis.internal.storage.io;
 
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.ShortBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.FloatBuffer;
+import java.nio.DoubleBuffer;
 import java.io.IOException;
 import org.apache.sis.util.Numbers;
 import org.apache.sis.util.resources.Errors;
@@ -36,11 +42,31 @@ import org.apache.sis.storage.DataStoreContentException;
  * @module
  */
 public final class HyperRectangleReader {
+    /**
+     * Minimal number of bytes in a region for reading it from a memory-mapped file.
+     * Smaller regions are read through the {@link ChannelDataInput} buffer, since the
+     * cost of mapping the file would be higher than the cost of copying a few bytes.
+     */
+    static final int MIN_MAPPED_SIZE = 256 * 1024;
+
     /**
      * The channel from which to read the values, together with a buffer for transferring data.
      */
     private final DataTransfer reader;
 
+    /**
+     * The input to map in memory when reading large regions, or {@code null} if memory mapping is disabled.
+     * Memory mapping is used only if the channel is a {@link java.nio.channels.FileChannel}.
+     *
+     * @see ChannelDataInput#map(long, long)
+     */
+    private final ChannelDataInput mapped;
+
+    /**
+     * The type of elements to read, as one of the constants defined in {@link Numbers}.
+     */
+    private final byte dataType;
+
     /**
      * The {@code input} position of the first sample (ignoring sub-area and sub-sampling).
      * This is the {@code origin} argument given to the constructor, copied verbatim.
@@ -60,6 +86,30 @@ public final class HyperRectangleReader {
     public HyperRectangleReader(final byte dataType, final ChannelDataInput input, final long origin)
             throws DataStoreContentException
     {
+        this(dataType, input, origin, false);
+    }
+
+    /**
+     * Creates a new reader for the given input and source region, optionally reading large regions
+     * from a memory-mapped file. If {@code mapFile} is {@code true} and the channel is a local file,
+     * then regions of at least a few hundreds kilobytes are read directly from the file mapped in memory
+     * instead than through the {@link ChannelDataInput#buffer}. This avoid the copy from the operating
+     * system page cache to the buffer, and allows {@link #readAsBuffer(Region)} to return views
+     * without any copy.
+     *
+     * @param  dataType  the type of elements to read, as one of the constants defined in {@link Numbers}.
+     * @param  input     the channel from which to read the values, together with a buffer for transferring data.
+     * @param  origin    the position in the channel of the first sample value in the hyper-rectangle.
+     * @param  mapFile   whether to read large regions from a memory-mapped file when possible.
+     * @throws DataStoreContentException if the given {@code dataType} is not one of the supported values.
+     *
+     * @since 1.0
+     */
+    public HyperRectangleReader(final byte dataType, final ChannelDataInput input, final long origin, final boolean mapFile)
+            throws DataStoreContentException
+    {
+        this.dataType = dataType;
+        this.mapped   = mapFile ? input : null;
         switch (dataType) {
             case Numbers.BYTE:      reader = input.new BytesReader  (           null); break;
             case Numbers.CHARACTER: reader = input.new CharsReader  ((char[])   null); break;
@@ -91,8 +141,10 @@ public final class HyperRectangleReader {
      * @throws IOException should never happen.
      */
     public HyperRectangleReader(final String filename, final Buffer data) throws IOException {
-        reader = new MemoryDataTransfer(filename, data).reader();
-        origin = 0;
+        reader   = new MemoryDataTransfer(filename, data).reader();
+        origin   = 0;
+        mapped   = null;
+        dataType = 0;                   // Not used when 'mapped' is null.
     }
 
     /**
@@ -122,6 +174,21 @@ public final class HyperRectangleReader {
      * @throws IOException if an error occurred while transferring data from the channel.
      */
     public Object read(final Region region) throws IOException {
+        return read(region, 0);
+    }
+
+    /**
+     * Reads data in the given region into an array of at least the given length. This method is equivalent
+     * to {@link #read(Region)} except that the returned array will be larger than needed if the given capacity
+     * is greater than the number of values in the region. Extraneous elements are left to zero.
+     * This is useful when the region is the first rows of a larger destination (e.g. the last strip of an image).
+     *
+     * @param  region    the sub-area to read and the sub-sampling to use.
+     * @param  capacity  minimal length of the array to return.
+     * @return the data in an array of primitive type.
+     * @throws IOException if an error occurred while transferring data from the channel.
+     */
+    public Object read(final Region region, final int capacity) throws IOException {
         final int contiguousDataDimension = region.contiguousDataDimension();
         final int contiguousDataLength = region.targetLength(contiguousDataDimension);
         final long[] strides = new long[region.getDimension() - contiguousDataDimension];
@@ -133,13 +200,42 @@ public final class HyperRectangleReader {
             strides[i] = (region.skips[i + contiguousDataDimension] + contiguousDataLength) << sizeShift;
             assert (strides[i] > 0) : i;
         }
+        /*
+         * If memory mapping is enabled and the region is large enough, read the values from a view
+         * over the mapped file instead than through the ChannelDataInput buffer. The mapped window
+         * is shared by consecutive reads in the same part of the file (see ChannelDataInput.map).
+         * Stream positions become relative to the beginning of the mapped region.
+         */
+        DataTransfer transfer = reader;
+        if (mapped != null) {
+            /*
+             * Compute the position after the last value to read. The stream position is never moved
+             * backward by the loop below, so each increment of the cursor in dimension i is repeated
+             * for all combinations of indices in the higher dimensions.
+             */
+            long end = streamPosition + ((long) contiguousDataLength << sizeShift);
+            long repetition = 1;
+            for (int i=strides.length; --i >= 0;) {
+                final int n = region.targetSize[i + contiguousDataDimension];
+                end = Math.addExact(end, Math.multiplyExact((n - 1) * repetition, strides[i]));
+                repetition *= n;
+            }
+            final long size = end - streamPosition;
+            if (size >= MIN_MAPPED_SIZE) {
+                final ByteBuffer window = mapped.map(streamPosition, size);
+                if (window != null) {
+                    transfer = new MemoryDataTransfer(reader.filename(), view(window)).reader();
+                    streamPosition = 0;
+                }
+            }
+        }
         try {
-            reader.createDataArray(region.targetLength(region.getDimension()));
-            final Buffer view = reader.view();
+            transfer.createDataArray(Math.max(capacity, region.targetLength(region.getDimension())));
+            final Buffer view = transfer.view();
 loop:       do {
-                reader.seek(streamPosition);
-                assert reader.view() == view;
-                reader.readFully(view, arrayPosition, contiguousDataLength);
+                transfer.seek(streamPosition);
+                assert transfer.view() == view;
+                transfer.readFully(view, arrayPosition, contiguousDataLength);
                 for (int i=0; i<cursor.length; i++) {
                     /*
                      * After we have read as much contiguous data as we can (may be a row, or a plane, or
@@ -157,9 +253,62 @@ loop:       do {
                 }
                 break;
             } while (true);
-            return reader.dataArray();
+            return transfer.dataArray();
         } finally {
-            reader.setDest(null);
+            transfer.setDest(null);
+        }
+    }
+
+    /**
+     * Reads data in the given region and returns them in a buffer. If memory mapping has been enabled at
+     * construction time, the channel is a local file and the region is a single block of contiguous values
+     * (no sub-area other than in the last dimension and no sub-sampling), then this method returns a read-only
+     * view over the file mapped in memory; no data are copied. Otherwise this method reads the data in a new
+     * array as {@link #read(Region)} does, and wraps that array in a buffer.
+     *
+     * <p>The returned buffer may be read-only and is not necessarily backed by an accessible array.
+     * Callers needing a Java array shall use {@link #read(Region)} instead.</p>
+     *
+     * @param  region  the sub-area to read and the sub-sampling to use.
+     * @return the data in a buffer of a type determined by the data type given at construction time.
+     * @throws IOException if an error occurred while transferring data from the channel.
+     *
+     * @since 1.0
+     */
+    public Buffer readAsBuffer(final Region region) throws IOException {
+        if (mapped != null) {
+            final int dimension = region.getDimension();
+            if (region.contiguousDataDimension() == dimension) {
+                final int  sizeShift = reader.dataSizeShift();
+                final long position  = origin + (region.startAt << sizeShift);
+                final ByteBuffer window = mapped.map(position, (long) region.targetLength(dimension) << sizeShift);
+                if (window != null) {
+                    return view(window);
+                }
+            }
+        }
+        final Object array = read(region);
+        if (array instanceof double[]) return DoubleBuffer.wrap((double[]) array);
+        if (array instanceof float[])  return FloatBuffer .wrap((float[])  array);
+        if (array instanceof long[])   return LongBuffer  .wrap((long[])   array);
+        if (array instanceof int[])    return IntBuffer   .wrap((int[])    array);
+        if (array instanceof short[])  return ShortBuffer .wrap((short[])  array);
+        if (array instanceof char[])   return CharBuffer  .wrap((char[])   array);
+        return ByteBuffer.wrap((byte[]) array);
+    }
+
+    /**
+     * Returns a view of the given bytes as a buffer of the type of values to read.
+     */
+    private Buffer view(final ByteBuffer bytes) {
+        switch (dataType) {
+            case Numbers.CHARACTER: return bytes.asCharBuffer();
+            case Numbers.SHORT:     return bytes.asShortBuffer();
+            case Numbers.INTEGER:   return bytes.asIntBuffer();
+            case Numbers.LONG:      return bytes.asLongBuffer();
+            case Numbers.FLOAT:     return bytes.asFloatBuffer();
+            case Numbers.DOUBLE:    return bytes.asDoubleBuffer();
+            default:                return bytes;
         }
     }
 }
@@ -0,0 +1,259 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.storage.query;
+
+import java.util.Objects;
+import java.util.function.Predicate;
+import org.opengis.geometry.Envelope;
+import org.apache.sis.geometry.GeneralEnvelope;
+import org.apache.sis.geometry.ImmutableEnvelope;
+import org.apache.sis.internal.feature.Geometries;
+import org.apache.sis.util.ArgumentChecks;
+
+// Branch-dependent imports
+import org.apache.sis.feature.AbstractFeature;
+
+
+/**
+ * A condition on feature property values, to be used in the {@code WHERE} clause of a {@link SimpleQuery}.
+ * This is a minimal substitute for OGC filters, limited to the conditions that data stores can easily
+ * translate to their native query language. The {@link #test(AbstractFeature)} method evaluates the
+ * condition in Java and is used as a fallback when the data store can not execute it natively.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+public abstract class Condition implements Predicate<AbstractFeature> {
+    /**
+     * Name of the feature property on which the condition applies.
+     */
+    public final String property;
+
+    /**
+     * Creates a new condition on the given property.
+     */
+    Condition(final String property) {
+        ArgumentChecks.ensureNonEmpty("property", property);
+        this.property = property;
+    }
+
+    /**
+     * Returns a hash code value for this condition.
+     */
+    @Override
+    public int hashCode() {
+        return property.hashCode() ^ getClass().hashCode();
+    }
+
+    /**
+     * Compares this condition with the given object for equality.
+     */
+    @Override
+    public boolean equals(final Object obj) {
+        return (obj != null) && obj.getClass() == getClass() && property.equals(((Condition) obj).property);
+    }
+
+    /**
+     * The operators of a {@link Comparison} condition, together with their SQL symbol.
+     */
+    public enum Operator {
+        /** Property value is equal to the literal.                 */ EQUAL("="),
+        /** Property value is not equal to the literal.             */ NOT_EQUAL("<>"),
+        /** Property value is less than the literal.                */ LESS("<"),
+        /** Property value is less than or equal to the literal.    */ LESS_OR_EQUAL("<="),
+        /** Property value is greater than the literal.             */ GREATER(">"),
+        /** Property value is greater than or equal to the literal. */ GREATER_OR_EQUAL(">=");
+
+        /**
+         * The symbol of this operator in SQL statements.
+         */
+        public final String symbol;
+
+        /**
+         * Creates a new operator for the given SQL symbol.
+         */
+        private Operator(final String symbol) {
+            this.symbol = symbol;
+        }
+    }
+
+    /**
+     * A comparison between a property value and a literal. Following SQL semantic,
+     * a comparison on a null property value is never true.
+     *
+     * @author  Martin Desruisseaux (Geomatys)
+     * @version 1.0
+     * @since   1.0
+     * @module
+     */
+    public static final class Comparison extends Condition {
+        /**
+         * The comparison operator.
+         */
+        public final Operator operator;
+
+        /**
+         * The literal to compare with property values.
+         */
+        public final Object literal;
+
+        /**
+         * Creates a new comparison between the given property and the given literal.
+         *
+         * @param  property  name of the property on which the condition applies.
+         * @param  operator  the comparison operator.
+         * @param  literal   the literal to compare with property values.
+         */
+        public Comparison(final String property, final Operator operator, final Object literal) {
+            super(property);
+            ArgumentChecks.ensureNonNull("operator", operator);
+            ArgumentChecks.ensureNonNull("literal",  literal);
+            this.operator = operator;
+            this.literal  = literal;
+        }
+
+        /**
+         * Returns whether the property value of the given feature satisfies this condition.
+         *
+         * @param  feature  the feature to test.
+         * @return whether the given feature satisfies this condition.
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean test(final AbstractFeature feature) {
+            final Object value = feature.getPropertyValue(property);
+            if (value == null) {
+                return false;
+            }
+            final int c;
+            if (value instanceof Number && literal instanceof Number) {
+                c = Double.compare(((Number) value).doubleValue(), ((Number) literal).doubleValue());
+            } else if (value instanceof Comparable<?> && value.getClass().isInstance(literal)) {
+                c = ((Comparable<Object>) value).compareTo(literal);
+            } else switch (operator) {
+                case EQUAL:     return value.equals(literal);
+                case NOT_EQUAL: return !value.equals(literal);
+                default:        return false;
+            }
+            switch (operator) {
+                case EQUAL:            return c == 0;
+                case NOT_EQUAL:        return c != 0;
+                case LESS:             return c <  0;
+                case LESS_OR_EQUAL:    return c <= 0;
+                case GREATER:          return c >  0;
+                case GREATER_OR_EQUAL: return c >= 0;
+                default: throw new AssertionError(operator);
+            }
+        }
+
+        /**
+         * Returns a hash code value for this condition.
+         */
+        @Override
+        public int hashCode() {
+            return super.hashCode() + 31 * Objects.hash(operator, literal);
+        }
+
+        /**
+         * Compares this condition with the given object for equality.
+         */
+        @Override
+        public boolean equals(final Object obj) {
+            if (super.equals(obj)) {
+                final Comparison other = (Comparison) obj;
+                return operator == other.operator && literal.equals(other.literal);
+            }
+            return false;
+        }
+
+        /**
+         * Returns a string representation of this condition for debugging purpose.
+         */
+        @Override
+        public String toString() {
+            return property + ' ' + operator.symbol + ' ' + literal;
+        }
+    }
+
+    /**
+     * A test for bounding box intersection between a geometry property and an envelope.
+     * The envelope shall be expressed in the coordinate reference system of the geometries;
+     * no coordinate transformation is applied.
+     *
+     * @author  Martin Desruisseaux (Geomatys)
+     * @version 1.0
+     * @since   1.0
+     * @module
+     */
+    public static final class BoundingBox extends Condition {
+        /**
+         * The envelope to test for intersection with the geometry envelopes.
+         */
+        public final ImmutableEnvelope envelope;
+
+        /**
+         * Creates a new bounding box condition on the given geometry property.
+         *
+         * @param  property  name of the geometry property on which the condition applies.
+         * @param  envelope  the envelope to test for intersection with the geometry envelopes.
+         */
+        public BoundingBox(final String property, final Envelope envelope) {
+            super(property);
+            ArgumentChecks.ensureNonNull("envelope", envelope);
+            this.envelope = ImmutableEnvelope.castOrCopy(envelope);
+        }
+
+        /**
+         * Returns whether the envelope of the geometry in the given feature intersects the envelope of this condition.
+         * Geometries on the envelope border are considered as intersecting.
+         *
+         * @param  feature  the feature to test.
+         * @return whether the given feature satisfies this condition.
+         */
+        @Override
+        public boolean test(final AbstractFeature feature) {
+            final GeneralEnvelope bounds = Geometries.getEnvelope(feature.getPropertyValue(property));
+            return (bounds != null) && bounds.intersects(envelope, true);
+        }
+
+        /**
+         * Returns a hash code value for this condition.
+         */
+        @Override
+        public int hashCode() {
+            return super.hashCode() + 31 * envelope.hashCode();
+        }
+
+        /**
+         * Compares this condition with the given object for equality.
+         */
+        @Override
+        public boolean equals(final Object obj) {
+            return super.equals(obj) && envelope.equals(((BoundingBox) obj).envelope);
+        }
+
+        /**
+         * Returns a string representation of this condition for debugging purpose.
+         */
+        @Override
+        public String toString() {
+            return "BBOX(" + property + ", " + envelope + ')';
+        }
+    }
+}
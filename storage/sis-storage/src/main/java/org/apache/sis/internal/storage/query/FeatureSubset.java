@@ -16,6 +16,7 @@
  */
 package org.apache.sis.internal.storage.query;
 
+import java.util.Set;
 import java.util.stream.Stream;
 import org.opengis.util.GenericName;
 import org.apache.sis.internal.storage.AbstractFeatureSet;
@@ -24,6 +25,7 @@ import org.apache.sis.storage.FeatureSet;
 
 // Branch-dependent imports
 import org.apache.sis.feature.AbstractFeature;
+import org.apache.sis.feature.AbstractOperation;
 import org.apache.sis.feature.DefaultFeatureType;
 
 
@@ -90,6 +92,12 @@ final class FeatureSubset extends AbstractFeatureSet {
     @Override
     public Stream<AbstractFeature> features(final boolean parallel) throws DataStoreException {
         Stream<AbstractFeature> stream = source.features(parallel);
+        /*
+         * Apply filter.
+         */
+        for (final Condition condition : query.getConditions()) {
+            stream = stream.filter(condition);
+        }
         /*
          * Apply offset.
          */
@@ -104,6 +112,22 @@ final class FeatureSubset extends AbstractFeatureSet {
         if (limit >= 0) {
             stream = stream.limit(limit);
         }
+        /*
+         * Copy the requested properties in features of the reduced type.
+         */
+        final DefaultFeatureType type = getType();
+        if (type != source.getType()) {
+            final Set<String> names = query.getRequiredProperties(source.getType());
+            stream = stream.map((feature) -> {
+                final AbstractFeature copy = type.newInstance();
+                for (final String name : names) {
+                    if (!(type.getProperty(name) instanceof AbstractOperation)) {
+                        copy.setPropertyValue(name, feature.getPropertyValue(name));
+                    }
+                }
+                return copy;
+            });
+        }
         return stream;
     }
 }
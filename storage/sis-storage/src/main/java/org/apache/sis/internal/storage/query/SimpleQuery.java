@@ -16,11 +16,18 @@
  */
 package org.apache.sis.internal.storage.query;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import org.apache.sis.storage.FeatureSet;
 import org.apache.sis.storage.Query;
 import org.apache.sis.util.ArgumentChecks;
 
 // Branch-dependent imports
+import org.apache.sis.feature.AbstractIdentifiedType;
+import org.apache.sis.feature.AbstractOperation;
 import org.apache.sis.feature.DefaultFeatureType;
 
 
@@ -59,11 +66,85 @@ public class SimpleQuery extends Query {
      */
     private long limit;
 
+    /**
+     * Names of the properties to retrieve, or {@code null} for all properties.
+     *
+     * @see #getColumns()
+     * @see #setColumns(String...)
+     */
+    private String[] columns;
+
+    /**
+     * The conditions that features must satisfy, combined by a logical {@code AND}.
+     * This is an empty array if there is no filtering.
+     *
+     * @see #getConditions()
+     * @see #setConditions(Condition...)
+     */
+    private Condition[] conditions;
+
     /**
      * Creates a new query retrieving no column and applying no filter.
      */
     public SimpleQuery() {
-        limit  = UNLIMITED;
+        limit      = UNLIMITED;
+        conditions = new Condition[0];
+    }
+
+    /**
+     * Sets the names of the properties to retrieve, in the order they shall appear in the result.
+     * If an {@linkplain AbstractOperation operation} is requested, the properties on which it depends
+     * are also retrieved. A null value means to retrieve all properties.
+     *
+     * @param  columns  names of the properties to retrieve, or {@code null} for all properties.
+     */
+    public void setColumns(String... columns) {
+        if (columns != null) {
+            columns = columns.clone();
+            for (int i=0; i<columns.length; i++) {
+                ArgumentChecks.ensureNonNullElement("columns", i, columns[i]);
+            }
+        }
+        this.columns = columns;
+    }
+
+    /**
+     * Returns the names of the properties to retrieve, or {@code null} for all properties.
+     * This is the value specified in the last call to {@link #setColumns(String...)}.
+     *
+     * @return names of the properties to retrieve, or {@code null} for all properties.
+     */
+    public List<String> getColumns() {
+        return (columns != null) ? Collections.unmodifiableList(Arrays.asList(columns)) : null;
+    }
+
+    /**
+     * Sets the conditions that features must satisfy. All conditions shall be true for a feature
+     * to be included in the result (they are combined by a logical {@code AND}). Conditions are
+     * applied before the {@linkplain #setOffset(long) offset} and {@linkplain #setLimit(long) limit}.
+     *
+     * @param  conditions  the conditions that features must satisfy, or an empty array for no filtering.
+     */
+    public void setConditions(Condition... conditions) {
+        if (conditions == null) {
+            conditions = new Condition[0];
+        } else {
+            conditions = conditions.clone();
+            for (int i=0; i<conditions.length; i++) {
+                ArgumentChecks.ensureNonNullElement("conditions", i, conditions[i]);
+            }
+        }
+        this.conditions = conditions;
+    }
+
+    /**
+     * Returns the conditions that features must satisfy.
+     * This is the value specified in the last call to {@link #setConditions(Condition...)}.
+     *
+     * @return the conditions that features must satisfy (never null).
+     */
+    public List<Condition> getConditions() {
+        return Collections.unmodifiableList(Arrays.asList(conditions));
     }
 
     /**
@@ -137,8 +218,41 @@ public class SimpleQuery extends Query {
     /**
      * Returns the expected property type for this query executed on features of the given type.
      */
-    final DefaultFeatureType expectedType(final DefaultFeatureType source) {
-        return source;          // More developped code in JDK8 branch.
+    public DefaultFeatureType expectedType(final DefaultFeatureType source) {
+        if (columns == null) {
+            return source;
+        }
+        final Set<String> names = getRequiredProperties(source);
+        final AbstractIdentifiedType[] properties = new AbstractIdentifiedType[names.size()];
+        int i = 0;
+        for (final String name : names) {
+            properties[i++] = source.getProperty(name);
+        }
+        return new DefaultFeatureType(Collections.singletonMap(DefaultFeatureType.NAME_KEY, source.getName()),
+                                      false, null, properties);
+    }
+
+    /**
+     * Returns the names of the properties requested by this query, together with the properties
+     * on which the requested operations depend. Names are in the order of {@link #setColumns(String...)}
+     * followed by dependencies. If this query does not specify columns, returns {@code null}.
+     *
+     * @param  source  the type of features on which this query is executed.
+     * @return names of properties to retrieve, or {@code null} for all properties.
+     * @throws IllegalArgumentException if a requested property does not exist in the given type.
+     */
+    public Set<String> getRequiredProperties(final DefaultFeatureType source) {
+        if (columns == null) {
+            return null;
+        }
+        final Set<String> names = new LinkedHashSet<>(Arrays.asList(columns));
+        for (final String name : columns) {
+            final AbstractIdentifiedType property = source.getProperty(name);     // Check existence.
+            if (property instanceof AbstractOperation) {
+                names.addAll(((AbstractOperation) property).getDependencies());
+            }
+        }
+        return names;
     }
 
     /**
@@ -148,7 +262,7 @@ public class SimpleQuery extends Query {
      */
     @Override
     public int hashCode() {
-        return Long.hashCode(limit ^ skip);
+        return Long.hashCode(limit ^ skip) + 31 * (Arrays.hashCode(columns) + 31 * Arrays.hashCode(conditions));
     }
 
     /**
@@ -164,9 +278,11 @@ public class SimpleQuery extends Query {
         }
         if (obj != null && getClass() == obj.getClass()) {
             final SimpleQuery other = (SimpleQuery) obj;
-            return skip  == other.skip &&
-                   limit == other.limit;
+            return skip  == other.skip  &&
+                   limit == other.limit &&
+                   Arrays.equals(columns,    other.columns) &&
+                   Arrays.equals(conditions, other.conditions);
         }
-        return true;
+        return false;
     }
 }
@@ -49,6 +49,38 @@ public final class DataOptionKey<T> extends OptionKey<T> {
     public static final OptionKey<FoliationRepresentation> FOLIATION_REPRESENTATION =
             new DataOptionKey<>("FOLIATION_REPRESENTATION", FoliationRepresentation.class);
 
+    /**
+     * Maximal number of features to send to the storage in a single batch when adding many features.
+     * Larger values reduce the number of round trips with the storage at the cost of more memory.
+     * This option is currently used by SQL stores only, where each batch is executed by a single
+     * {@link java.sql.Statement#executeBatch()} call.
+     *
+     * @since 1.0
+     */
+    public static final OptionKey<Integer> BATCH_SIZE =
+            new DataOptionKey<>("BATCH_SIZE", Integer.class);
+
+    /**
+     * Number of features to add before to commit the changes, or 0 for letting the storage decide.
+     * If this option is set to a positive value, then the changes are committed after every group
+     * of that number of features and at the end of the operation. If an error occurs, only the
+     * changes since the last commit are rolled back. This option is currently used by SQL stores only.
+     *
+     * @since 1.0
+     */
+    public static final OptionKey<Integer> FEATURES_PER_TRANSACTION =
+            new DataOptionKey<>("FEATURES_PER_TRANSACTION", Integer.class);
+
+    /**
+     * Whether to load grid coverages larger than a tile one tile at a time when first needed, instead of reading
+     * all sample values at {@code read(…)} time. Tiles are then cached in a memory-bounded cache shared by all
+     * data stores. This option is currently used by netCDF stores only, and is {@code false} by default.
+     *
+     * @since 1.0
+     */
+    public static final OptionKey<Boolean> TILED_READING =
+            new DataOptionKey<>("TILED_READING", Boolean.class);
+
     /**
      * Creates a new key of the given name.
      */
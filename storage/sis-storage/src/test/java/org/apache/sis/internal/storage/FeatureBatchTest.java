@@ -0,0 +1,301 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.storage;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.sis.feature.builder.FeatureTypeBuilder;
+import org.apache.sis.math.Vector;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.apache.sis.test.Assert.*;
+
+// Branch-dependent imports
+import org.apache.sis.feature.AbstractFeature;
+import org.apache.sis.feature.DefaultFeatureType;
+
+
+/**
+ * Tests {@link FeatureBatch}.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ * @module
+ */
+public final strictfp class FeatureBatchTest extends TestCase {
+    /**
+     * Column indices of the attributes declared by {@link #type}, in declaration order.
+     */
+    private static final int ID = 0, COUNT = 1, VALUE = 2, RATIO = 3, NAME = 4, COORDINATES = 5;
+
+    /**
+     * The type of features stored in the batches to test.
+     */
+    private final DefaultFeatureType type;
+
+    /**
+     * Creates a new test.
+     */
+    public FeatureBatchTest() {
+        final FeatureTypeBuilder ftb = new FeatureTypeBuilder();
+        ftb.setName("Trajectory");
+        ftb.addAttribute(Long.class)    .setName("id");
+        ftb.addAttribute(Integer.class) .setName("count");
+        ftb.addAttribute(Double.class)  .setName("value");
+        ftb.addAttribute(Float.class)   .setName("ratio");
+        ftb.addAttribute(String.class)  .setName("name");
+        ftb.addAttribute(double[].class).setName("coordinates");
+        type = ftb.build();
+    }
+
+    /**
+     * Verifies the columns inferred from the feature type.
+     */
+    @Test
+    public void testColumns() {
+        final FeatureBatch batch = new FeatureBatch(type, 4);
+        assertEquals("columnCount", 6, batch.getColumnCount());
+        assertEquals("id",          ID,          batch.indexOf("id"));
+        assertEquals("coordinates", COORDINATES, batch.indexOf("coordinates"));
+        assertEquals("unknown",     -1,          batch.indexOf("unknown"));
+        assertTrue  ("id",    batch.isInteger(ID));
+        assertTrue  ("count", batch.isInteger(COUNT));
+        assertTrue  ("value", batch.isFloatingPoint(VALUE));
+        assertTrue  ("ratio", batch.isFloatingPoint(RATIO));
+        assertFalse ("name",  batch.isInteger(NAME) || batch.isFloatingPoint(NAME));
+        assertEquals("count", Integer.class, batch.getValueClass(COUNT));
+        assertEquals("name",  String.class,  batch.getValueClass(NAME));
+    }
+
+    /**
+     * Tests missing values, and verifies that they are distinguished from explicit zero values.
+     */
+    @Test
+    public void testMissingValues() {
+        final FeatureBatch batch = new FeatureBatch(type, 4);
+        batch.setLong  (ID,    7);
+        batch.setLong  (COUNT, 3);
+        batch.setDouble(VALUE, 2.5);
+        batch.setDouble(RATIO, 0.25);
+        batch.setValue (NAME,  "First");
+        batch.setValue (COORDINATES, new double[] {1, 2});
+        assertTrue(batch.nextRow());
+        assertTrue(batch.nextRow());                        // Row without any value.
+        batch.setLong  (ID,    0);
+        batch.setLong  (COUNT, 0);
+        batch.setDouble(VALUE, 0);
+        batch.setDouble(RATIO, 0);
+        assertTrue(batch.nextRow());
+        assertEquals("size", 3, batch.size());
+        for (int column=0; column < batch.getColumnCount(); column++) {
+            assertFalse("Row 0 shall be complete.",      batch.isMissing(column, 0));
+            assertTrue ("Row 1 shall be empty.",         batch.isMissing(column, 1));
+            assertNull ("Missing values shall be null.", batch.getValue(column, 1));
+        }
+        assertEquals("id",    7L,    batch.getValue(ID,    0));
+        assertEquals("count", 3,     batch.getValue(COUNT, 0));
+        assertEquals("value", 2.5,   batch.getValue(VALUE, 0));
+        assertEquals("ratio", 0.25f, batch.getValue(RATIO, 0));
+        /*
+         * Missing values are NaN when read as floating point numbers, including in integer columns.
+         * Explicit zeros are not missing values.
+         */
+        assertTrue  ("count", Double.isNaN(batch.doubleValue(COUNT, 1)));
+        assertTrue  ("value", Double.isNaN(batch.doubleValue(VALUE, 1)));
+        assertTrue  ("ratio", Double.isNaN(batch.doubleValue(RATIO, 1)));
+        assertEquals("count", 0, batch.longValue(COUNT, 1));
+        assertEquals("value", 0, batch.longValue(VALUE, 1));
+        for (int column = ID; column <= RATIO; column++) {
+            assertFalse ("Explicit zero is not missing.", batch.isMissing(column, 2));
+            assertEquals("Explicit zero.", 0, batch.doubleValue(column, 2), STRICT);
+            assertEquals("Explicit zero.", 0, batch.longValue  (column, 2));
+        }
+        assertTrue("name",        batch.isMissing(NAME, 2));
+        assertTrue("coordinates", batch.isMissing(COORDINATES, 2));
+        /*
+         * Conversion to features shall leave the missing values unset.
+         */
+        final AbstractFeature feature = batch.toFeature(1);
+        assertNull("id",   feature.getPropertyValue("id"));
+        assertNull("name", feature.getPropertyValue("name"));
+        assertEquals("id", 0L, batch.toFeature(2).getPropertyValue("id"));
+    }
+
+    /**
+     * Tests {@link FeatureBatch#setDouble(int, double)} on integer columns.
+     * Values shall be rounded, except NaN which shall be stored as a missing value.
+     */
+    @Test
+    public void testSetDoubleOnIntegerColumn() {
+        final FeatureBatch batch = new FeatureBatch(type, 4);
+        batch.setDouble(ID,    2.6);
+        batch.setDouble(COUNT, -1.4);
+        batch.nextRow();
+        batch.setDouble(ID,    Double.NaN);
+        batch.setDouble(COUNT, Double.NaN);
+        batch.nextRow();
+        batch.setDouble(COUNT, 4);
+        batch.setDouble(COUNT, Double.NaN);                 // Shall overwrite the previous value.
+        batch.nextRow();
+        assertEquals("id",    3,  batch.longValue(ID,    0));
+        assertEquals("count", -1, batch.longValue(COUNT, 0));
+        assertTrue  ("id",    batch.isMissing(ID,    1));
+        assertTrue  ("count", batch.isMissing(COUNT, 1));
+        assertTrue  ("count", Double.isNaN(batch.doubleValue(COUNT, 1)));
+        assertEquals("count", 0, batch.longValue(COUNT, 1));
+        assertTrue  ("count", batch.isMissing(COUNT, 2));
+        assertNull  ("count", batch.getValue(COUNT, 2));
+    }
+
+    /**
+     * Tests {@link FeatureBatch#nextRow()} and {@link FeatureBatch#add(AbstractFeature)} on a full batch.
+     */
+    @Test
+    public void testFullBatch() {
+        final FeatureBatch batch = new FeatureBatch(type, 2);
+        assertFalse(batch.isFull());
+        assertTrue (batch.nextRow());
+        assertFalse(batch.nextRow());
+        assertTrue (batch.isFull());
+        try {
+            batch.nextRow();
+            fail("Shall not accept more rows than the capacity.");
+        } catch (IllegalStateException e) {
+            // This is the expected exception.
+        }
+        try {
+            batch.add(type.newInstance());
+            fail("Shall not accept more rows than the capacity.");
+        } catch (IllegalStateException e) {
+            // This is the expected exception.
+        }
+        assertEquals("size", 2, batch.size());
+    }
+
+    /**
+     * Tests {@link FeatureBatch#clear()} followed by the reuse of the batch.
+     * Values of previous rows shall not be visible after the clear.
+     */
+    @Test
+    public void testClear() {
+        final FeatureBatch batch = new FeatureBatch(type, 2);
+        for (int i=0; i<2; i++) {
+            batch.setLong  (ID,    i + 1);
+            batch.setDouble(VALUE, i + 0.5);
+            batch.setValue (NAME,  "Row " + i);
+            batch.setValue (COORDINATES, new double[] {i, i, i});
+            batch.nextRow();
+        }
+        batch.clear();
+        assertEquals("size", 0, batch.size());
+        assertFalse("isFull", batch.isFull());
+        assertEquals("column size", 0, batch.getColumn(ID).size());
+        batch.setValue(NAME, "New");
+        batch.nextRow();
+        batch.setValue(COORDINATES, new double[] {8, 9});
+        batch.nextRow();
+        for (int column=0; column < batch.getColumnCount(); column++) {
+            assertEquals("Row 0 shall contain only the name.", column != NAME, batch.isMissing(column, 0));
+        }
+        assertEquals("name",        "New", batch.getValue(NAME, 0));
+        assertNull  ("name",        batch.getValue(NAME, 1));
+        assertNull  ("id",          batch.getValue(ID,   1));
+        assertNull  ("coordinates", batch.getCoordinates(COORDINATES, 0));
+        assertArrayEquals("coordinates", new double[] {8, 9}, (double[]) batch.getValue(COORDINATES, 1), STRICT);
+    }
+
+    /**
+     * Tests the packing of coordinates when their total length exceeds the initial array
+     * length, which is twice the capacity.
+     */
+    @Test
+    public void testCoordinatePacking() {
+        final int capacity = 3;
+        final FeatureBatch batch = new FeatureBatch(type, capacity);
+        final double[][] expected = {
+            {1, 2, 3, 4, 5, 6, 7, 8},                       // Alone longer than capacity*2.
+            null,
+            {10, 11, 12, 13, 14}
+        };
+        for (final double[] coordinates : expected) {
+            batch.setValue(COORDINATES, coordinates);
+            batch.nextRow();
+        }
+        for (int row=0; row < capacity; row++) {
+            final double[] coordinates = expected[row];
+            final double[] actual = (double[]) batch.getValue(COORDINATES, row);
+            final Vector view = batch.getCoordinates(COORDINATES, row);
+            if (coordinates == null) {
+                assertNull(actual);
+                assertNull(view);
+            } else {
+                assertArrayEquals("getValue", coordinates, actual, STRICT);
+                assertEquals("size", coordinates.length, view.size());
+                for (int i=0; i<coordinates.length; i++) {
+                    assertEquals("getCoordinates", coordinates[i], view.doubleValue(i), STRICT);
+                }
+            }
+        }
+        /*
+         * The copy returned by getValue(…) shall be independent of the batch.
+         */
+        ((double[]) batch.getValue(COORDINATES, 0))[0] = -1;
+        assertEquals("getCoordinates", 1, batch.getCoordinates(COORDINATES, 0).doubleValue(0), STRICT);
+    }
+
+    /**
+     * Tests {@link FeatureBatch#fromFeatures(DefaultFeatureType, Stream, int)} and the conversion back to features.
+     */
+    @Test
+    public void testFromFeatures() {
+        final AbstractFeature[] features = new AbstractFeature[5];
+        for (int i=0; i<features.length; i++) {
+            final AbstractFeature f = type.newInstance();
+            f.setPropertyValue("id",    (long) i);
+            f.setPropertyValue("count", i * 10);
+            f.setPropertyValue("value", i * 0.5);
+            f.setPropertyValue("ratio", 0.25f);
+            f.setPropertyValue("name",  "Feature " + i);
+            f.setPropertyValue("coordinates", new double[] {i, -i});
+            features[i] = f;
+        }
+        final List<FeatureBatch> batches;
+        try (Stream<FeatureBatch> stream = FeatureBatch.fromFeatures(type, Stream.of(features), 2)) {
+            batches = stream.collect(Collectors.toList());
+        }
+        assertEquals("batches", 3, batches.size());
+        int i = 0;
+        for (final FeatureBatch batch : batches) {
+            final Vector values = batch.getColumn(VALUE);
+            assertEquals("size", batch.size(), values.size());
+            for (int row=0; row < batch.size(); row++) {
+                final AbstractFeature expected = features[i++];
+                final AbstractFeature actual = batch.toFeature(row);
+                assertEquals("value", (Double) expected.getPropertyValue("value"), values.doubleValue(row), STRICT);
+                for (final String name : new String[] {"id", "count", "value", "ratio", "name"}) {
+                    assertEquals(name, expected.getPropertyValue(name), actual.getPropertyValue(name));
+                }
+                assertArrayEquals("coordinates", (double[]) expected.getPropertyValue("coordinates"),
+                                                 (double[]) actual.getPropertyValue("coordinates"), STRICT);
+            }
+        }
+        assertEquals("count", features.length, i);
+    }
+}
@@ -16,8 +16,10 @@
  */
 package org.apache.sis.internal.storage.csv;
 
+import java.util.List;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.stream.Collectors;
 import java.time.Instant;
 import java.io.StringReader;
 import org.opengis.metadata.Metadata;
@@ -27,6 +29,8 @@ import org.apache.sis.feature.FoliationRepresentation;
 import org.apache.sis.storage.DataStoreException;
 import org.apache.sis.storage.StorageConnector;
 import org.apache.sis.storage.DataOptionKey;
+import org.apache.sis.internal.storage.FeatureBatch;
+import org.apache.sis.test.DependsOnMethod;
 import org.apache.sis.test.TestCase;
 import org.junit.Test;
 import com.esri.core.geometry.Point2D;
@@ -129,6 +133,33 @@ public final strictfp class StoreTest extends TestCase {
         }
     }
 
+    /**
+     * Tests {@link Store#batches(int)} on static features. The capacity is smaller than the number
+     * of lines in order to test the creation of more than one batch.
+     *
+     * @throws DataStoreException if an error occurred while parsing the data.
+     */
+    @Test
+    @DependsOnMethod("testStaticFeatures")
+    public void testStaticBatches() throws DataStoreException {
+        try (Store store = open()) {
+            final List<FeatureBatch> batches = store.batches(3).collect(Collectors.toList());
+            assertEquals("batches", 2, batches.size());
+            FeatureBatch batch = batches.get(0);
+            assertEquals("size", 3, batch.size());
+            final int trajectory = batch.indexOf("trajectory");
+            final int typeCode   = batch.indexOf("\"type\" code");
+            assertTrue("typeCode", batch.isInteger(typeCode));
+            assertArrayEquals("typeCode", new double[] {1, 2, 2}, batch.getColumn(typeCode).doubleValues(), STRICT);
+            assertArrayEquals("trajectory", new double[] {12, 3, 10, 3}, batch.getCoordinates(trajectory, 2).doubleValues(), STRICT);
+            assertEquals("state", "walking", batch.getValue(batch.indexOf("state"), 2));
+            assertPropertyEquals(batch.toFeature(1), "b", "12:33:51", "12:36:51", new double[] {10, 2, 11, 3}, "walking", 2);
+            batch = batches.get(1);
+            assertEquals("size", 1, batch.size());
+            assertPropertyEquals(batch.toFeature(0), "c", "12:33:51", "12:36:51", new double[] {12, 1, 10, 2, 11, 3}, "vehicle", 1);
+        }
+    }
+
     /**
      * Tests reading the data as a moving features. In the following data:
      *
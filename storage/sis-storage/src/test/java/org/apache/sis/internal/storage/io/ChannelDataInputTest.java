@@ -21,7 +21,11 @@ import java.io.DataInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import org.junit.Test;
 
 import static org.junit.Assert.*;
@@ -32,7 +36,7 @@ import static org.junit.Assert.*;
  * of that buffer is used for the tests, while the original full buffer is used for comparison purpose.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.5
+ * @version 1.0
  * @since   0.3
  * @module
  */
@@ -217,4 +221,40 @@ public final strictfp class ChannelDataInputTest extends ChannelDataTestCase {
             }
         }
     }
+
+    /**
+     * Tests {@link ChannelDataInput#readDoubles(int)} on an array large enough for being read from
+     * a memory-mapped file, followed by a read through the buffer for verifying the stream position.
+     * Also verifies that overlapping regions mapped afterward are read correctly.
+     *
+     * @throws IOException if an error occurred while writing or reading the temporary file.
+     */
+    @Test
+    public void testMappedReadDoubles() throws IOException {
+        final int length = HyperRectangleReader.MIN_MAPPED_SIZE / Double.BYTES + 100;
+        final ByteBuffer bytes = ByteBuffer.allocate((length + 1) * Double.BYTES);
+        for (int i=0; i<=length; i++) {
+            bytes.putDouble(i * 0.25);
+        }
+        final Path file = Files.createTempFile("SIS", ".raw");
+        try {
+            Files.write(file, bytes.array());
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                final ChannelDataInput input = new ChannelDataInput("Mapped", channel, ByteBuffer.allocate(64), false);
+                input.seek(Double.BYTES);
+                final double[] values = input.readDoubles(length);
+                for (int i=0; i<length; i++) {
+                    assertEquals((i + 1) * 0.25, values[i], 0);
+                }
+                assertEquals("Stream position after mapped read.", (length + 1) * Double.BYTES, input.getStreamPosition());
+                final ByteBuffer first  = input.map(0, 16);
+                final ByteBuffer second = input.map(8, 16);
+                assertTrue(first.isReadOnly());
+                assertEquals(0.25, second.getDouble(0), 0);
+                assertEquals(0.25, first .getDouble(8), 0);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
 }
@@ -22,6 +22,10 @@ import java.nio.ByteOrder;
 import java.nio.ByteBuffer;
 import java.nio.ShortBuffer;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.channels.FileChannel;
 import org.apache.sis.util.Numbers;
 import org.apache.sis.storage.DataStoreException;
 import org.apache.sis.test.DependsOnMethod;
@@ -38,7 +42,7 @@ import static org.junit.Assert.*;
  *
  * @author  Johann Sorel (Geomatys)
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.7
+ * @version 1.0
  * @since   0.7
  * @module
  */
@@ -70,6 +74,11 @@ public final strictfp class HyperRectangleReaderTest extends TestCase {
      */
     private HyperRectangleReader reader;
 
+    /**
+     * The channel opened by {@link #initialize(Random, boolean, Path)} when reading from a file, or {@code null}.
+     */
+    private FileChannel fileChannel;
+
     /**
      * Encodes the given index in the sample values to be stored in the array of data.
      * We use a decimal encoding for making easier to compare the actual values with the expected ones.
@@ -87,6 +96,20 @@ public final strictfp class HyperRectangleReaderTest extends TestCase {
      *                    {@code false} if the data are expected to be fully contained in the buffer.
      */
     private void initialize(final Random random, final boolean useChannel) throws IOException, DataStoreException {
+        initialize(random, useChannel, null);
+    }
+
+    /**
+     * Creates an hyper-rectangle of random size, optionally stored in the given file.
+     *
+     * @param random      the random number generator to use for initializing the test.
+     * @param useChannel  {@code true} for fetching the data from channel to a small buffer, or
+     *                    {@code false} if the data are expected to be fully contained in the buffer.
+     * @param file        if non-null, the file where to write the data for reading them with memory mapping.
+     */
+    private void initialize(final Random random, final boolean useChannel, final Path file)
+            throws IOException, DataStoreException
+    {
         /*
          * Compute a random hyper-rectangle size, sub-region and sub-sampling. Each dimension will have a
          * size between 1 to 10, so we will be able to use decimal digits from 0 to 9 in the sample values.
@@ -131,7 +154,13 @@ public final strictfp class HyperRectangleReaderTest extends TestCase {
             }
         }
         assertEquals(length, view.position());
-        if (useChannel) {
+        if (file != null) {
+            Files.write(file, array);
+            fileChannel = FileChannel.open(file, StandardOpenOption.READ);
+            final ByteBuffer       buffer  = ByteBuffer.allocate(random.nextInt(20) + 20).order(ByteOrder.nativeOrder());
+            final ChannelDataInput input   = new ChannelDataInput("HyperRectangle in file", fileChannel, buffer, false);
+            reader = new HyperRectangleReader(Numbers.SHORT, input, origin, true);
+        } else if (useChannel) {
             final ByteArrayChannel channel = new ByteArrayChannel(array, true);
             final ByteBuffer       buffer  = ByteBuffer.allocate(random.nextInt(20) + 20).order(ByteOrder.nativeOrder());
             final ChannelDataInput input   = new ChannelDataInput("HyperRectangle in channel", channel, buffer, false);
@@ -217,4 +246,87 @@ public final strictfp class HyperRectangleReaderTest extends TestCase {
         initialize(TestUtilities.createRandomNumberGenerator(), false);
         verifyRegionRead();
     }
+
+    /**
+     * Tests reading data from a memory-mapped file. The whole hyper-cube is read, which allows
+     * {@link HyperRectangleReader#readAsBuffer(Region)} to return a view over the mapped file.
+     *
+     * @throws IOException if an error occurred while writing or reading the temporary file.
+     * @throws DataStoreException should never happen.
+     */
+    @Test
+    @DependsOnMethod("testRandom")
+    public void testMemoryMapping() throws IOException, DataStoreException {
+        final Path file = Files.createTempFile("HyperRectangle", ".raw");
+        try {
+            initialize(TestUtilities.createRandomNumberGenerator(), true, file);
+            verifyRegionRead();
+            System.arraycopy(size, 0, upper, 0, size.length);
+            Arrays.fill(lower, 0, lower.length, 0);
+            Arrays.fill(subsampling, 0, subsampling.length, 1);
+            final ShortBuffer data = (ShortBuffer) reader.readAsBuffer(new Region(size, lower, upper, subsampling));
+            assertTrue("Expected a view over the mapped file.", data.isReadOnly());
+            int p = 0;
+            for (int i3=0; i3<size[3]; i3++) {
+                for (int i2=0; i2<size[2]; i2++) {
+                    for (int i1=0; i1<size[1]; i1++) {
+                        for (int i0=0; i0<size[0]; i0++) {
+                            assertEquals("Sample value", sampleValue(i0, i1, i2, i3), data.get(p++));
+                        }
+                    }
+                }
+            }
+            assertEquals("Buffer length", p, data.remaining());
+        } finally {
+            if (fileChannel != null) {
+                fileChannel.close();
+            }
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests reading a sub-sampled region large enough for being read from a memory-mapped file.
+     * The region spans more than {@link HyperRectangleReader#MIN_MAPPED_SIZE} bytes, so values
+     * are read from a mapped view without moving the {@link ChannelDataInput} position.
+     * The same region is read a second time without memory mapping for comparison.
+     *
+     * @throws IOException if an error occurred while writing or reading the temporary file.
+     * @throws DataStoreException should never happen.
+     */
+    @Test
+    @DependsOnMethod("testMemoryMapping")
+    public void testLargeMappedRegion() throws IOException, DataStoreException {
+        final int width  = 600;
+        final int height = 300;
+        assertTrue(width * height * Short.BYTES > HyperRectangleReader.MIN_MAPPED_SIZE);
+        final ByteBuffer bytes = ByteBuffer.allocate(width * height * Short.BYTES).order(ByteOrder.nativeOrder());
+        for (int i=0; i < width*height; i++) {
+            bytes.putShort((short) i);
+        }
+        final Region region = new Region(new long[] {width, height}, new long[] {1, 2},
+                                         new long[] {width - 1, height - 1}, new int[] {3, 2});
+        final Path file = Files.createTempFile("HyperRectangle", ".raw");
+        try {
+            Files.write(file, bytes.array());
+            for (final boolean mapFile : new boolean[] {true, false}) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    final ByteBuffer buffer = ByteBuffer.allocate(64).order(ByteOrder.nativeOrder());
+                    final ChannelDataInput input = new ChannelDataInput("Large region", channel, buffer, false);
+                    final short[] data = (short[]) new HyperRectangleReader(Numbers.SHORT, input, 0, mapFile).read(region);
+                    int p = 0;
+                    for (int y=2; y < height-1; y += 2) {
+                        for (int x=1; x < width-1; x += 3) {
+                            assertEquals("Sample value", (short) (y*width + x), data[p++]);
+                        }
+                    }
+                    assertEquals("Array length", p, data.length);
+                    assertEquals("Stream position should move only if the file is not mapped.",
+                                 mapFile, input.getStreamPosition() == 0);
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
 }
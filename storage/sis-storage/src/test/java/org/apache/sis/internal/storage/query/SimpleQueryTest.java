@@ -126,4 +126,33 @@ public final strictfp class SimpleQueryTest extends TestCase {
         query.setOffset(2);
         verifyQueryResult(2, 3, 4);
     }
+
+    /**
+     * Verifies the effect of {@link SimpleQuery#setConditions(Condition...)},
+     * combined with an offset applied after the filtering.
+     *
+     * @throws DataStoreException if an error occurred while executing the query.
+     */
+    @Test
+    public void testConditions() throws DataStoreException {
+        query.setConditions(new Condition.Comparison("value1", Condition.Operator.GREATER_OR_EQUAL, 2),
+                            new Condition.Comparison("value2", Condition.Operator.EQUAL, 1));
+        verifyQueryResult(0, 2, 4);
+        query.setOffset(1);
+        verifyQueryResult(2, 4);
+    }
+
+    /**
+     * Verifies the effect of {@link SimpleQuery#setColumns(String...)}.
+     *
+     * @throws DataStoreException if an error occurred while executing the query.
+     */
+    @Test
+    public void testColumns() throws DataStoreException {
+        query.setColumns("value2");
+        final FeatureSet fs = query.execute(featureSet);
+        assertEquals("properties", 1, fs.getType().getProperties(true).size());
+        final List<Object> values = fs.features(false).map((f) -> f.getPropertyValue("value2")).collect(Collectors.toList());
+        assertEquals(Arrays.asList(1, 2, 1, 1, 1), values);
+    }
 }